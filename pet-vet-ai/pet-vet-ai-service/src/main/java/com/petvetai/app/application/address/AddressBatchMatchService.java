@@ -0,0 +1,333 @@
+package com.petvetai.app.application.address;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.petvetai.app.dto.resp.AddressBatchMatchSummaryResp;
+import com.petvetai.app.dto.resp.AddressMatchRowResp;
+import com.petvetai.infrastructure.util.LatencyHistogram;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.MatchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 批量地址匹配应用服务
+ * 
+ * 用于医生、客户地址导入时的批量清洗：
+ * - 流式输入、流式输出：输入按块（chunkSize 行）提交到有界线程池，同时在途的块数有上限，
+ *   结果按输入顺序逐行回调，内存占用与批量大小无关
+ * - 去重：标准化后相同的地址在同一批次内只匹配一次（并发执行的块通过去重缓存的原子加载共享同一次匹配），
+ *   是否标记为重复由调用线程在输出时按输入顺序判定，与块的执行顺序无关
+ * - 统计：异常地址（多行政区划）、未匹配行数和单行处理延迟分位数
+ * 
+ * 所有工作线程共享同一个只读的 AddressIndex（通过 AddressMatcher），匹配过程无锁
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Service
+public class AddressBatchMatchService {
+    
+    private final AddressMatcher addressMatcher;
+    
+    private final ExecutorService executor;
+    
+    /**
+     * 每个任务处理的行数
+     */
+    private final int chunkSize;
+    
+    /**
+     * 单个批次同时在途的任务数上限
+     */
+    private final int maxInFlightChunks;
+    
+    /**
+     * 单个批次去重缓存的最大条目数
+     */
+    private final long dedupCacheSize;
+    
+    /**
+     * 构造函数
+     * 
+     * @param addressMatcher 地址匹配器
+     * @param executor 批量匹配线程池
+     * @param chunkSize 每个任务处理的行数
+     * @param maxInFlightChunks 单个批次同时在途的任务数上限（0 表示CPU核数的2倍）
+     * @param dedupCacheSize 单个批次去重缓存的最大条目数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public AddressBatchMatchService(AddressMatcher addressMatcher,
+                                    @Qualifier("addressBatchExecutor") ExecutorService executor,
+                                    @Value("${address.batch.chunk-size:256}") int chunkSize,
+                                    @Value("${address.batch.max-in-flight-chunks:0}") int maxInFlightChunks,
+                                    @Value("${address.batch.dedup-cache-size:100000}") long dedupCacheSize) {
+        if (chunkSize <= 0 || dedupCacheSize < 0) {
+            throw new IllegalArgumentException("批量匹配参数非法: chunkSize=" + chunkSize + ", dedupCacheSize=" + dedupCacheSize);
+        }
+        this.addressMatcher = addressMatcher;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxInFlightChunks = maxInFlightChunks > 0 ? maxInFlightChunks : Runtime.getRuntime().availableProcessors() * 2;
+        this.dedupCacheSize = dedupCacheSize;
+    }
+    
+    /**
+     * 批量匹配地址
+     * 
+     * @param addresses 输入地址（逐个读取，可以是文件或请求体的行迭代器）
+     * @param sink 结果回调，按输入顺序在调用线程中执行；回调抛出异常时批次中止
+     * @return 批次统计
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public AddressBatchMatchSummaryResp matchBatch(Iterator<String> addresses, Consumer<AddressMatchRowResp> sink) {
+        long start = System.nanoTime();
+        Cache<String, MatchResult> dedupCache = Caffeine.newBuilder()
+                .maximumSize(dedupCacheSize)
+                .build();
+        SeenAddresses seen = new SeenAddresses(dedupCacheSize);
+        BatchStats stats = new BatchStats();
+        Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+        
+        try {
+            long line = 1;
+            List<String> chunk = new ArrayList<>(chunkSize);
+            while (addresses.hasNext()) {
+                chunk.add(addresses.next());
+                if (chunk.size() == chunkSize) {
+                    inFlight.add(submit(chunk, line, dedupCache));
+                    line += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                    if (inFlight.size() >= maxInFlightChunks) {
+                        emit(inFlight.poll(), seen, sink, stats);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight.add(submit(chunk, line, dedupCache));
+            }
+            while (!inFlight.isEmpty()) {
+                emit(inFlight.poll(), seen, sink, stats);
+            }
+        } finally {
+            // 异常中止时取消尚未完成的任务
+            for (Future<ChunkResult> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        
+        AddressBatchMatchSummaryResp summary = stats.toSummary(System.nanoTime() - start);
+        log.info("批量地址匹配完成: {}", summary);
+        return summary;
+    }
+    
+    /**
+     * 提交一个块
+     * 
+     * @param chunk 输入行
+     * @param firstLine 第一行的行号
+     * @param dedupCache 批次去重缓存
+     * @return 块结果
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private Future<ChunkResult> submit(List<String> chunk, long firstLine, Cache<String, MatchResult> dedupCache) {
+        return executor.submit(() -> matchChunk(chunk, firstLine, dedupCache));
+    }
+    
+    /**
+     * 等待一个块完成并按顺序输出
+     * 
+     * 重复标记在这里按输入顺序判定：地址在本批次中第一次出现的行不是重复，之后的行是重复
+     * 
+     * @param future 块结果
+     * @param seen 本批次已输出的地址
+     * @param sink 结果回调
+     * @param stats 批次统计
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private void emit(Future<ChunkResult> future, SeenAddresses seen, Consumer<AddressMatchRowResp> sink,
+                      BatchStats stats) {
+        ChunkResult result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("批量地址匹配被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("批量地址匹配失败", e.getCause());
+        }
+        stats.merge(result);
+        for (int i = 0; i < result.rows.size(); i++) {
+            AddressMatchRowResp row = result.rows.get(i);
+            String normalized = result.normalized.get(i);
+            if (!normalized.isEmpty() && seen.put(normalized, Boolean.TRUE) != null) {
+                row.setDuplicate(true);
+                stats.duplicates++;
+            }
+            sink.accept(row);
+        }
+    }
+    
+    /**
+     * 匹配一个块（在工作线程中执行）
+     * 
+     * @param chunk 输入行
+     * @param firstLine 第一行的行号
+     * @param dedupCache 批次去重缓存
+     * @return 块结果
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private ChunkResult matchChunk(List<String> chunk, long firstLine, Cache<String, MatchResult> dedupCache) {
+        ChunkResult result = new ChunkResult(chunk.size());
+        long line = firstLine;
+        for (String input : chunk) {
+            long rowStart = System.nanoTime();
+            String normalized = addressMatcher.normalize(input);
+            
+            // 同一地址并发加载时只有一个线程执行匹配，其余线程等待并复用结果
+            MatchResult match = normalized.isEmpty() ? null : dedupCache.get(normalized, addressMatcher::match);
+            
+            AddressMatchRowResp row = toRow(line++, input, match);
+            result.add(row, normalized, System.nanoTime() - rowStart);
+        }
+        return result;
+    }
+    
+    private static AddressMatchRowResp toRow(long line, String input, MatchResult match) {
+        if (match == null) {
+            return AddressMatchRowResp.builder()
+                    .line(line)
+                    .input(input)
+                    .score(0.0)
+                    .abnormal(false)
+                    .duplicate(false)
+                    .build();
+        }
+        return AddressMatchRowResp.builder()
+                .line(line)
+                .input(input)
+                .code(match.getCode())
+                .fullAddress(match.getDivision() == null ? null : match.getDivision().getFullAddress())
+                .score(match.getScore())
+                .abnormal(match.isAbnormal())
+                .abnormalReason(match.getAbnormalReason())
+                .duplicate(false)
+                .build();
+    }
+    
+    /**
+     * 块结果
+     */
+    private static final class ChunkResult {
+        
+        private final List<AddressMatchRowResp> rows;
+        
+        /**
+         * 每行标准化后的地址（与 rows 一一对应）
+         */
+        private final List<String> normalized;
+        
+        private final LatencyHistogram latency = new LatencyHistogram();
+        
+        private long matched;
+        
+        private long abnormal;
+        
+        private ChunkResult(int size) {
+            this.rows = new ArrayList<>(size);
+            this.normalized = new ArrayList<>(size);
+        }
+        
+        private void add(AddressMatchRowResp row, String normalizedAddress, long latencyNanos) {
+            rows.add(row);
+            normalized.add(normalizedAddress);
+            latency.record(latencyNanos);
+            if (row.getCode() != null) {
+                matched++;
+            }
+            if (Boolean.TRUE.equals(row.getAbnormal())) {
+                abnormal++;
+            }
+        }
+    }
+    
+    /**
+     * 批次统计（只在调用线程中合并）
+     */
+    private static final class BatchStats {
+        
+        private final LatencyHistogram latency = new LatencyHistogram();
+        
+        private long total;
+        
+        private long duplicates;
+        
+        private long matched;
+        
+        private long abnormal;
+        
+        private void merge(ChunkResult result) {
+            latency.merge(result.latency);
+            total += result.rows.size();
+            matched += result.matched;
+            abnormal += result.abnormal;
+        }
+        
+        private AddressBatchMatchSummaryResp toSummary(long elapsedNanos) {
+            return AddressBatchMatchSummaryResp.builder()
+                    .total(total)
+                    .duplicates(duplicates)
+                    .matched(matched)
+                    .unmatched(total - matched)
+                    .abnormal(abnormal)
+                    .elapsedMillis(elapsedNanos / 1_000_000L)
+                    .rowsPerSecond(elapsedNanos == 0 ? 0.0 : total * 1_000_000_000.0 / elapsedNanos)
+                    .latencyP50Micros(latency.percentile(50) / 1000L)
+                    .latencyP90Micros(latency.percentile(90) / 1000L)
+                    .latencyP99Micros(latency.percentile(99) / 1000L)
+                    .latencyMaxMicros(latency.getMaxValue() / 1000L)
+                    .build();
+        }
+    }
+    
+    /**
+     * 本批次已输出的地址（只在调用线程中访问）
+     * 
+     * 与去重缓存使用相同的容量上限，超出时按最近最少出现淘汰；淘汰只取决于输入顺序，重复标记仍然确定
+     */
+    private static final class SeenAddresses extends LinkedHashMap<String, Boolean> {
+        
+        private final long maxSize;
+        
+        private SeenAddresses(long maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.petvetai.app.controller.address;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petvetai.app.application.address.AddressBatchMatchService;
+import com.petvetai.app.dto.resp.AddressBatchMatchSummaryResp;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * 地址控制器
+ * 
+ * 提供地址批量匹配接口：请求体为纯文本，每行一个地址；
+ * 响应为 NDJSON，每行一个匹配结果（与输入行一一对应），最后一行为批次统计 {"summary": {...}}
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/address")
+@RequiredArgsConstructor
+public class AddressController {
+    
+    /**
+     * NDJSON 媒体类型
+     */
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    
+    /**
+     * 每输出多少行刷新一次响应
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+    
+    private final AddressBatchMatchService addressBatchMatchService;
+    
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 批量匹配地址
+     * 
+     * @param request HTTP请求（直接读取请求体，不整体缓冲）
+     * @return 流式 NDJSON 响应
+     * @throws IOException 读取请求体失败
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @PostMapping(value = "/batch-match", consumes = MediaType.TEXT_PLAIN_VALUE, produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> batchMatch(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        log.info("收到批量地址匹配请求");
+        
+        StreamingResponseBody stream = outputStream -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                int[] pending = {0};
+                AddressBatchMatchSummaryResp summary = addressBatchMatchService.matchBatch(reader.lines().iterator(), row -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                        if (++pending[0] >= FLUSH_INTERVAL) {
+                            writer.flush();
+                            pending[0] = 0;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.write(objectMapper.writeValueAsString(Collections.singletonMap("summary", summary)));
+                writer.write('\n');
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                // 客户端断开等写出失败，批次已中止
+                log.warn("批量地址匹配输出中断: {}", e.getMessage());
+                throw e.getCause();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(stream);
+    }
+}
@@ -0,0 +1,74 @@
+package com.petvetai.app.dto.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量地址匹配统计 DTO
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddressBatchMatchSummaryResp {
+    
+    /**
+     * 输入总行数
+     */
+    private Long total;
+    
+    /**
+     * 标准化后重复、直接复用结果的行数
+     */
+    private Long duplicates;
+    
+    /**
+     * 匹配到行政区划的行数
+     */
+    private Long matched;
+    
+    /**
+     * 未匹配到行政区划的行数（含空行）
+     */
+    private Long unmatched;
+    
+    /**
+     * 检测为异常地址（多行政区划）的行数
+     */
+    private Long abnormal;
+    
+    /**
+     * 总耗时（毫秒）
+     */
+    private Long elapsedMillis;
+    
+    /**
+     * 吞吐量（行/秒）
+     */
+    private Double rowsPerSecond;
+    
+    /**
+     * 单行处理延迟 P50（微秒）
+     */
+    private Long latencyP50Micros;
+    
+    /**
+     * 单行处理延迟 P90（微秒）
+     */
+    private Long latencyP90Micros;
+    
+    /**
+     * 单行处理延迟 P99（微秒）
+     */
+    private Long latencyP99Micros;
+    
+    /**
+     * 单行处理延迟最大值（微秒）
+     */
+    private Long latencyMaxMicros;
+}
@@ -0,0 +1,59 @@
+package com.petvetai.app.dto.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量地址匹配单行结果 DTO
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddressMatchRowResp {
+    
+    /**
+     * 输入行号（从1开始）
+     */
+    private Long line;
+    
+    /**
+     * 原始输入地址
+     */
+    private String input;
+    
+    /**
+     * 匹配到的行政区划编码（未匹配时为null）
+     */
+    private String code;
+    
+    /**
+     * 匹配到的行政区划完整地址（未匹配时为null）
+     */
+    private String fullAddress;
+    
+    /**
+     * 匹配分数（0.0-100.0）
+     */
+    private Double score;
+    
+    /**
+     * 是否异常地址（多行政区划）
+     */
+    private Boolean abnormal;
+    
+    /**
+     * 异常原因
+     */
+    private String abnormalReason;
+    
+    /**
+     * 是否与本批次前面某行标准化后相同（结果直接复用）
+     */
+    private Boolean duplicate;
+}
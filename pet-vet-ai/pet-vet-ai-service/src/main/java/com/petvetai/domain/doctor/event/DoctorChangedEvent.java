@@ -0,0 +1,215 @@
+package com.petvetai.domain.doctor.event;
+
+import com.petvetai.domain.doctor.model.Address;
+import com.petvetai.domain.doctor.model.DoctorId;
+import com.petvetai.domain.doctor.model.DoctorStatus;
+
+/**
+ * 医生变更领域事件
+ * 
+ * 由医生聚合根在注册、状态流转（审核通过、审核失败、禁用、启用、更新资质后重新待审核）、资料变更和地址变更时记录，
+ * 医生仓储保存成功后发布，删除医生时由仓储直接发布。事件携带变更后的状态、地址和手机号，订阅方按最新状态处理即可，
+ * 不依赖事件的先后顺序；地址和手机号变更时同时携带变更前的值，供订阅方清理按旧值建立的数据（如缓存）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class DoctorChangedEvent {
+    
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        /**
+         * 注册
+         */
+        REGISTERED,
+        /**
+         * 状态变更
+         */
+        STATUS,
+        /**
+         * 地址变更
+         */
+        ADDRESS,
+        /**
+         * 基本信息或资质变更（不影响状态和地址）
+         */
+        INFO,
+        /**
+         * 删除
+         */
+        DELETED
+    }
+    
+    private final DoctorId doctorId;
+    
+    private final ChangeType changeType;
+    
+    private final DoctorStatus previousStatus;
+    
+    private final DoctorStatus status;
+    
+    private final Address previousAddress;
+    
+    private final Address address;
+    
+    private final String previousPhone;
+    
+    private final String phone;
+    
+    private DoctorChangedEvent(DoctorId doctorId, ChangeType changeType, DoctorStatus previousStatus,
+                               DoctorStatus status, Address previousAddress, Address address,
+                               String previousPhone, String phone) {
+        this.doctorId = doctorId;
+        this.changeType = changeType;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.previousAddress = previousAddress;
+        this.address = address;
+        this.previousPhone = previousPhone;
+        this.phone = phone;
+    }
+    
+    /**
+     * 注册事件
+     * 
+     * @param doctorId 医生ID
+     * @param status 初始状态
+     * @param address 地址
+     * @param phone 手机号
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static DoctorChangedEvent registered(DoctorId doctorId, DoctorStatus status, Address address, String phone) {
+        return new DoctorChangedEvent(doctorId, ChangeType.REGISTERED, null, status, null, address, null, phone);
+    }
+    
+    /**
+     * 状态变更事件
+     * 
+     * @param doctorId 医生ID
+     * @param previousStatus 变更前状态
+     * @param status 变更后状态
+     * @param address 当前地址
+     * @param phone 当前手机号
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static DoctorChangedEvent statusChanged(DoctorId doctorId, DoctorStatus previousStatus,
+                                                   DoctorStatus status, Address address, String phone) {
+        return new DoctorChangedEvent(doctorId, ChangeType.STATUS, previousStatus, status, address, address, phone, phone);
+    }
+    
+    /**
+     * 地址变更事件
+     * 
+     * @param doctorId 医生ID
+     * @param status 当前状态
+     * @param previousAddress 变更前地址
+     * @param address 变更后地址
+     * @param phone 当前手机号
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static DoctorChangedEvent addressChanged(DoctorId doctorId, DoctorStatus status, Address previousAddress,
+                                                    Address address, String phone) {
+        return new DoctorChangedEvent(doctorId, ChangeType.ADDRESS, status, status, previousAddress, address, phone, phone);
+    }
+    
+    /**
+     * 基本信息或资质变更事件
+     * 
+     * @param doctorId 医生ID
+     * @param status 当前状态
+     * @param address 当前地址
+     * @param previousPhone 变更前手机号
+     * @param phone 变更后手机号
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static DoctorChangedEvent infoChanged(DoctorId doctorId, DoctorStatus status, Address address,
+                                                 String previousPhone, String phone) {
+        return new DoctorChangedEvent(doctorId, ChangeType.INFO, status, status, address, address, previousPhone, phone);
+    }
+    
+    /**
+     * 删除事件
+     * 
+     * @param doctorId 医生ID
+     * @param address 删除前的地址（未知时为null）
+     * @param phone 删除前的手机号（未知时为null）
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static DoctorChangedEvent deleted(DoctorId doctorId, Address address, String phone) {
+        return new DoctorChangedEvent(doctorId, ChangeType.DELETED, null, null, address, address, phone, phone);
+    }
+    
+    /**
+     * 变更后是否为可提供服务且有地理位置的医生（即应出现在附近医生查询中）
+     * 
+     * @return 是否可被附近查询到
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean isLocatable() {
+        return changeType != ChangeType.DELETED && status != null && status.canProvideService()
+                && address != null && address.hasLocation();
+    }
+    
+    /**
+     * 是否可能改变医生在附近查询中的可见性或位置（注册后为待审核状态，资料变更不涉及位置，二者都不影响）
+     * 
+     * @return 是否影响位置
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean affectsLocation() {
+        return changeType == ChangeType.STATUS || changeType == ChangeType.ADDRESS || changeType == ChangeType.DELETED;
+    }
+    
+    // Getters
+    public DoctorId getDoctorId() {
+        return doctorId;
+    }
+    
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    
+    public DoctorStatus getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public DoctorStatus getStatus() {
+        return status;
+    }
+    
+    public Address getPreviousAddress() {
+        return previousAddress;
+    }
+    
+    public Address getAddress() {
+        return address;
+    }
+    
+    public String getPreviousPhone() {
+        return previousPhone;
+    }
+    
+    public String getPhone() {
+        return phone;
+    }
+    
+    @Override
+    public String toString() {
+        return "DoctorChangedEvent{doctorId=" + doctorId + ", changeType=" + changeType
+                + ", previousStatus=" + previousStatus + ", status=" + status + "}";
+    }
+}
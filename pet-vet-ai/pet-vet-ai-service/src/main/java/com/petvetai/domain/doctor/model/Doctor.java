@@ -1,6 +1,10 @@
 package com.petvetai.domain.doctor.model;
 
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -23,6 +27,7 @@ public class Doctor {
     private LocalDateTime updateTime;        // 更新时间
     private LocalDateTime approveTime;       // 审核通过时间
     private String rejectReason;             // 审核失败原因
+    private final List<DoctorChangedEvent> events = new ArrayList<>(); // 尚未发布的领域事件
     
     /**
      * 私有构造函数，防止直接创建
@@ -69,6 +74,7 @@ public class Doctor {
         doctor.status = DoctorStatus.PENDING;
         doctor.createTime = LocalDateTime.now();
         doctor.updateTime = LocalDateTime.now();
+        doctor.events.add(DoctorChangedEvent.registered(doctor.id, doctor.status, address, doctorInfo.getPhone()));
         
         return doctor;
     }
@@ -109,6 +115,7 @@ public class Doctor {
         doctor.status = DoctorStatus.PENDING;
         doctor.createTime = LocalDateTime.now();
         doctor.updateTime = LocalDateTime.now();
+        doctor.events.add(DoctorChangedEvent.registered(doctor.id, doctor.status, address, doctorInfo.getPhone()));
         
         return doctor;
     }
@@ -166,8 +173,10 @@ public class Doctor {
         if (this.type == DoctorType.INSTITUTION && !doctorInfo.isInstitution()) {
             throw new IllegalArgumentException("机构类型医生必须包含机构信息");
         }
+        String previousPhone = phone();
         this.doctorInfo = doctorInfo;
         this.updateTime = LocalDateTime.now();
+        events.add(DoctorChangedEvent.infoChanged(id, status, this.address, previousPhone, phone()));
     }
     
     /**
@@ -181,8 +190,10 @@ public class Doctor {
         if (address == null) {
             throw new IllegalArgumentException("地址信息不能为空");
         }
+        Address previousAddress = this.address;
         this.address = address;
         this.updateTime = LocalDateTime.now();
+        events.add(DoctorChangedEvent.addressChanged(id, status, previousAddress, address, phone()));
     }
     
     /**
@@ -200,7 +211,9 @@ public class Doctor {
             throw new IllegalArgumentException("资质证明信息不完整");
         }
         this.qualification = qualification;
-        this.status = DoctorStatus.PENDING; // 更新资质后需要重新审核
+        if (!changeStatus(DoctorStatus.PENDING)) { // 更新资质后需要重新审核
+            events.add(DoctorChangedEvent.infoChanged(id, status, address, phone(), phone()));
+        }
         this.updateTime = LocalDateTime.now();
     }
     
@@ -214,7 +227,7 @@ public class Doctor {
         if (this.status != DoctorStatus.PENDING) {
             throw new IllegalStateException("只有待审核状态的医生才能审核通过");
         }
-        this.status = DoctorStatus.APPROVED;
+        changeStatus(DoctorStatus.APPROVED);
         this.approveTime = LocalDateTime.now();
         this.rejectReason = null;
         this.updateTime = LocalDateTime.now();
@@ -234,7 +247,7 @@ public class Doctor {
         if (reason == null || reason.trim().isEmpty()) {
             throw new IllegalArgumentException("审核失败原因不能为空");
         }
-        this.status = DoctorStatus.REJECTED;
+        changeStatus(DoctorStatus.REJECTED);
         this.rejectReason = reason;
         this.updateTime = LocalDateTime.now();
     }
@@ -249,7 +262,7 @@ public class Doctor {
         if (this.status == DoctorStatus.DISABLED) {
             return; // 已经禁用，无需重复操作
         }
-        this.status = DoctorStatus.DISABLED;
+        changeStatus(DoctorStatus.DISABLED);
         this.updateTime = LocalDateTime.now();
     }
     
@@ -261,7 +274,7 @@ public class Doctor {
      */
     public void enable() {
         if (this.status == DoctorStatus.DISABLED) {
-            this.status = DoctorStatus.APPROVED;
+            changeStatus(DoctorStatus.APPROVED);
             this.updateTime = LocalDateTime.now();
         }
     }
@@ -293,6 +306,38 @@ public class Doctor {
         return address.calculateDistance(longitude, latitude);
     }
     
+    /**
+     * 取出并清空尚未发布的领域事件（由仓储在保存成功后发布）
+     * 
+     * @return 领域事件，按发生顺序
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public List<DoctorChangedEvent> pullEvents() {
+        List<DoctorChangedEvent> pulled = new ArrayList<>(events);
+        events.clear();
+        return pulled;
+    }
+    
+    /**
+     * 变更状态并记录状态变更事件
+     * 
+     * @return 状态是否发生变化
+     */
+    private boolean changeStatus(DoctorStatus newStatus) {
+        DoctorStatus previous = this.status;
+        this.status = newStatus;
+        if (previous == newStatus) {
+            return false;
+        }
+        events.add(DoctorChangedEvent.statusChanged(id, previous, newStatus, address, phone()));
+        return true;
+    }
+    
+    private String phone() {
+        return doctorInfo != null ? doctorInfo.getPhone() : null;
+    }
+    
     // Getters
     public DoctorId getId() {
         return id;
@@ -0,0 +1,186 @@
+package com.petvetai.infrastructure.cache.tiered;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 基于 Redis 的共享缓存存储
+ * 
+ * 值存放在 prefix + "{key}"，代数存放在 prefix + "gen:{key}"。写入和失效各用一个 Lua 脚本批量执行，
+ * 比较代数与写入在同一个脚本内完成，不会被并发的失效打断；失效后通过 Pub/Sub 频道广播失效的Key
+ * 
+ * 同一个Key的值和代数用 {key} 作为 hash tag，在 Redis Cluster 中位于同一个槽。集群模式下一批Key按槽分组，
+ * 每组执行一次脚本（脚本只能访问同一个槽的Key），单机模式下整批执行一次
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class RedisRemoteCacheStore implements RemoteCacheStore {
+    
+    /**
+     * KEYS: 值Key x n, 代数Key x n；ARGV: n, 代数 x n, 过期毫秒数 x n, 值 x n
+     */
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "local n = tonumber(ARGV[1]) " +
+            "for i = 1, n do " +
+            "  if (redis.call('GET', KEYS[n + i]) or '0') == ARGV[1 + i] then " +
+            "    redis.call('SET', KEYS[i], ARGV[1 + 2 * n + i], 'PX', ARGV[1 + n + i]) " +
+            "  end " +
+            "end " +
+            "return n", Long.class);
+    
+    /**
+     * KEYS: 值Key x n, 代数Key x n；ARGV: 代数的过期毫秒数
+     */
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>(
+            "local n = #KEYS / 2 " +
+            "for i = 1, n do " +
+            "  redis.call('DEL', KEYS[i]) " +
+            "  redis.call('INCR', KEYS[n + i]) " +
+            "  redis.call('PEXPIRE', KEYS[n + i], ARGV[1]) " +
+            "end " +
+            "return n", Long.class);
+    
+    private static final String KEY_SEPARATOR = "\n";
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    private final RedisMessageListenerContainer listenerContainer;
+    
+    private final String prefix;
+    
+    private final String channel;
+    
+    /**
+     * 代数的过期时间（毫秒），需要远大于值的过期时间和一次加载的耗时
+     */
+    private final long generationTtlMillis;
+    
+    /**
+     * 是否连接 Redis Cluster（按槽分组执行脚本）
+     */
+    private final boolean cluster;
+    
+    /**
+     * 根据连接工厂判断是否为 Redis Cluster
+     */
+    public RedisRemoteCacheStore(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                 String prefix, String channel, long generationTtlMillis) {
+        this(redisTemplate, listenerContainer, prefix, channel, generationTtlMillis,
+                redisTemplate.getConnectionFactory() instanceof LettuceConnectionFactory
+                        && ((LettuceConnectionFactory) redisTemplate.getConnectionFactory()).isClusterAware());
+    }
+    
+    /**
+     * @param cluster 是否按槽分组执行脚本（非 Lettuce 的集群连接需要显式指定）
+     */
+    public RedisRemoteCacheStore(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                 String prefix, String channel, long generationTtlMillis, boolean cluster) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.prefix = prefix;
+        this.channel = channel;
+        this.generationTtlMillis = generationTtlMillis;
+        this.cluster = cluster;
+    }
+    
+    @Override
+    public List<Entry> getAll(List<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size() * 2);
+        keys.forEach(key -> redisKeys.add(valueKey(key)));
+        keys.forEach(key -> redisKeys.add(generationKey(key)));
+        List<String> values = redisTemplate.opsForValue().multiGet(redisKeys);
+        List<Entry> entries = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            String generation = values != null ? values.get(keys.size() + i) : null;
+            entries.add(new Entry(keys.get(i), values != null ? values.get(i) : null,
+                    generation != null ? Long.parseLong(generation) : 0L, 0L));
+        }
+        return entries;
+    }
+    
+    @Override
+    public void putAll(List<Entry> entries) {
+        for (List<Entry> group : groupBySlot(entries, Entry::getKey)) {
+            putGroup(group);
+        }
+    }
+    
+    private void putGroup(List<Entry> entries) {
+        int n = entries.size();
+        List<String> redisKeys = new ArrayList<>(n * 2);
+        entries.forEach(entry -> redisKeys.add(valueKey(entry.getKey())));
+        entries.forEach(entry -> redisKeys.add(generationKey(entry.getKey())));
+        String[] args = new String[1 + 3 * n];
+        args[0] = Integer.toString(n);
+        for (int i = 0; i < n; i++) {
+            Entry entry = entries.get(i);
+            args[1 + i] = Long.toString(entry.getGeneration());
+            args[1 + n + i] = Long.toString(entry.getTtlMillis());
+            args[1 + 2 * n + i] = entry.getValue();
+        }
+        redisTemplate.execute(PUT_SCRIPT, redisKeys, (Object[]) args);
+    }
+    
+    @Override
+    public void invalidate(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        for (List<String> group : groupBySlot(keys, Function.identity())) {
+            List<String> redisKeys = new ArrayList<>(group.size() * 2);
+            group.forEach(key -> redisKeys.add(valueKey(key)));
+            group.forEach(key -> redisKeys.add(generationKey(key)));
+            redisTemplate.execute(INVALIDATE_SCRIPT, redisKeys, Long.toString(generationTtlMillis));
+        }
+        redisTemplate.convertAndSend(channel, String.join(KEY_SEPARATOR, keys));
+    }
+    
+    @Override
+    public void subscribe(Consumer<Collection<String>> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> listener.accept(
+                Arrays.asList(new String(message.getBody(), StandardCharsets.UTF_8).split(KEY_SEPARATOR))),
+                new ChannelTopic(channel));
+    }
+    
+    /**
+     * 集群模式下按Key所在的槽分组（保持原有顺序），单机模式下整批作为一组
+     */
+    private <T> Collection<List<T>> groupBySlot(Collection<T> items, Function<T, String> keyOf) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        if (!cluster) {
+            return List.of(new ArrayList<>(items));
+        }
+        Map<Integer, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(valueKey(keyOf.apply(item))),
+                    slot -> new ArrayList<>()).add(item);
+        }
+        return groups.values();
+    }
+    
+    private String valueKey(String key) {
+        return prefix + "{" + key + "}";
+    }
+    
+    private String generationKey(String key) {
+        return prefix + "gen:{" + key + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.petvetai.infrastructure.cache.tiered;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 多级缓存的共享（二级）存储
+ * 
+ * 每个 Key 除了值之外还有一个失效代数：每次失效代数加一并删除值。加载方先读出代数，
+ * 从数据源加载后只有代数未变时才能写入，避免失效之前开始的加载把旧值写回共享存储。
+ * 失效的同时广播给所有实例（包括自己），用于清理各实例的本地缓存
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public interface RemoteCacheStore {
+    
+    /**
+     * 批量读取值和当前代数
+     * 
+     * @param keys 缓存Key
+     * @return 与 keys 一一对应的结果
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    List<Entry> getAll(List<String> keys);
+    
+    /**
+     * 批量写入，代数与当前代数不一致的条目会被丢弃
+     * 
+     * @param entries 待写入的条目
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    void putAll(List<Entry> entries);
+    
+    /**
+     * 失效：代数加一、删除值，并广播给所有实例
+     * 
+     * @param keys 缓存Key
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    void invalidate(Collection<String> keys);
+    
+    /**
+     * 订阅失效广播
+     * 
+     * @param listener 收到的失效Key
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    void subscribe(Consumer<Collection<String>> listener);
+    
+    /**
+     * 缓存条目
+     */
+    @Getter
+    @AllArgsConstructor
+    final class Entry {
+        
+        private final String key;
+        
+        /**
+         * 序列化后的值，读取时不存在为null
+         */
+        private final String value;
+        
+        /**
+         * 读取时的代数（写入时为加载前读到的代数）
+         */
+        private final long generation;
+        
+        /**
+         * 写入时的过期时间（毫秒），读取结果中无意义
+         */
+        private final long ttlMillis;
+    }
+}
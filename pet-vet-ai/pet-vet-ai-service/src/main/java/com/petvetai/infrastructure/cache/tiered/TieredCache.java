@@ -0,0 +1,327 @@
+package com.petvetai.infrastructure.cache.tiered;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 两级读穿透缓存：本地 Caffeine（一级）+ 共享存储（二级，如 Redis）
+ * 
+ * <ul>
+ *     <li>读取顺序为本地缓存、共享存储、数据源，数据源中不存在的Key也会缓存（负缓存，过期时间较短）</li>
+ *     <li>同一实例内同一个Key同时只有一次加载，其他请求等待该次加载的结果</li>
+ *     <li>失效先在共享存储中删除并递增代数、广播给其他实例，再清理本地缓存；失效之前开始的加载
+ *     不会把旧值写回共享存储（代数不一致）或本地缓存（本地失效计数不一致）</li>
+ *     <li>本地缓存写入后固定时间过期，即使广播丢失，各实例读到旧值的时间也不超过该时间；
+ *     共享存储不可用时直接读数据源，此时的不一致时间上限为共享存储的过期时间</li>
+ * </ul>
+ * 调用方需在数据源提交之后再调用 {@link #invalidate}。缓存的值会被多个请求共享，调用方不能修改
+ * 
+ * @param <V> 值类型
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+public class TieredCache<V> {
+    
+    /**
+     * 负缓存在共享存储中的值
+     */
+    private static final String NEGATIVE_VALUE = "";
+    
+    /**
+     * 本地失效计数的分段数
+     */
+    private static final int STRIPES = 64;
+    
+    /**
+     * 缓存名称，同时作为Key的前缀
+     */
+    private final String name;
+    
+    private final String keyPrefix;
+    
+    private final RemoteCacheStore store;
+    
+    private final Function<V, String> serializer;
+    
+    private final Function<String, V> deserializer;
+    
+    private final long remoteTtlMillis;
+    
+    private final long negativeTtlMillis;
+    
+    private final Cache<String, Optional<V>> local;
+    
+    /**
+     * 正在加载的Key
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<V>>> loading = new ConcurrentHashMap<>();
+    
+    /**
+     * 按Key分段的本地失效计数，加载前后计数不同说明期间发生过失效，结果不能写入本地缓存
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    
+    /**
+     * 创建缓存并订阅共享存储的失效广播
+     * 
+     * @param name 缓存名称（Key前缀，同一个共享存储上的缓存不能重名）
+     * @param store 共享存储
+     * @param serializer 序列化
+     * @param deserializer 反序列化
+     * @param localMaxSize 本地缓存最大条目数
+     * @param localTtl 本地缓存过期时间，即各实例读到旧值的最长时间
+     * @param remoteTtl 共享存储过期时间
+     * @param negativeTtl 负缓存在共享存储中的过期时间
+     */
+    public TieredCache(String name, RemoteCacheStore store, Function<V, String> serializer,
+                       Function<String, V> deserializer, long localMaxSize, Duration localTtl,
+                       Duration remoteTtl, Duration negativeTtl) {
+        this.name = name;
+        this.keyPrefix = name + ":";
+        this.store = store;
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        this.remoteTtlMillis = remoteTtl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        store.subscribe(this::onRemoteInvalidation);
+    }
+    
+    /**
+     * 读取缓存，未命中时加载
+     * 
+     * @param key 缓存Key
+     * @param loader 从数据源加载，不存在时返回null
+     * @return 值，不存在时为null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public V get(String key, Function<String, V> loader) {
+        return getAll(List.of(key), keys -> {
+            Map<String, V> loaded = new HashMap<>();
+            V value = loader.apply(key);
+            if (value != null) {
+                loaded.put(key, value);
+            }
+            return loaded;
+        }).get(key);
+    }
+    
+    /**
+     * 批量读取缓存，未命中的Key一次性加载
+     * 
+     * @param keys 缓存Key
+     * @param loader 从数据源批量加载，结果中没有的Key视为不存在
+     * @return 存在的Key和值
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public Map<String, V> getAll(Collection<String> keys, Function<Set<String>, Map<String, V>> loader) {
+        Map<String, V> result = new HashMap<>();
+        Map<String, CompletableFuture<Optional<V>>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Optional<V>>> joined = new HashMap<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            Optional<V> cached = local.getIfPresent(key);
+            if (cached != null) {
+                cached.ifPresent(value -> result.put(key, value));
+                continue;
+            }
+            CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+            CompletableFuture<Optional<V>> existing = loading.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                joined.put(key, existing);
+            }
+        }
+        
+        if (!owned.isEmpty()) {
+            Map<String, Optional<V>> loaded;
+            try {
+                loaded = load(owned.keySet(), loader);
+            } catch (RuntimeException e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(loading::remove);
+            }
+            owned.forEach((key, future) -> {
+                Optional<V> value = loaded.get(key);
+                future.complete(value);
+                value.ifPresent(present -> result.put(key, present));
+            });
+        }
+        // 先完成自己负责的加载再等待其他请求，两个批量请求互相等待对方的Key时不会死锁
+        joined.forEach((key, future) -> await(future).ifPresent(value -> result.put(key, value)));
+        return result;
+    }
+    
+    /**
+     * 失效：先失效共享存储并广播，再清理本地缓存（数据源提交之后调用）
+     * 
+     * @param keys 缓存Key
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void invalidate(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> remoteKeys = new ArrayList<>(keys.size());
+        keys.forEach(key -> remoteKeys.add(keyPrefix + key));
+        try {
+            store.invalidate(remoteKeys);
+        } catch (RuntimeException e) {
+            log.warn("缓存 {} 失效共享存储失败，其他实例最长在共享存储过期后读到新值, keys: {}", name, keys, e);
+        }
+        invalidateLocal(keys);
+    }
+    
+    /**
+     * 只清理本实例的本地缓存
+     * 
+     * @param keys 缓存Key
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void invalidateLocal(Collection<String> keys) {
+        for (String key : keys) {
+            // 先递增计数再清理：与之并发的加载要么在清理之前写入（随后被清理），要么看到计数变化而放弃写入
+            invalidations.incrementAndGet(stripe(key));
+            loading.remove(key);
+            local.invalidate(key);
+        }
+    }
+    
+    /**
+     * 本地缓存条目数（近似值）
+     * 
+     * @return 条目数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public long localSize() {
+        return local.estimatedSize();
+    }
+    
+    private Map<String, Optional<V>> load(Set<String> keys, Function<Set<String>, Map<String, V>> loader) {
+        Map<String, Long> stamps = new HashMap<>();
+        for (String key : keys) {
+            stamps.put(key, invalidations.get(stripe(key)));
+        }
+        
+        Map<String, Optional<V>> values = new HashMap<>();
+        Map<String, Long> generations = new HashMap<>();
+        boolean remoteAvailable = true;
+        try {
+            List<String> remoteKeys = new ArrayList<>(keys.size());
+            keys.forEach(key -> remoteKeys.add(keyPrefix + key));
+            for (RemoteCacheStore.Entry entry : store.getAll(remoteKeys)) {
+                String key = entry.getKey().substring(keyPrefix.length());
+                Optional<V> value = entry.getValue() != null ? decode(entry.getValue()) : null;
+                if (value != null) {
+                    values.put(key, value);
+                } else {
+                    generations.put(key, entry.getGeneration());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("缓存 {} 读取共享存储失败，直接从数据源加载", name, e);
+            remoteAvailable = false;
+            values.clear();
+        }
+        
+        Set<String> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(values.keySet());
+        if (!missing.isEmpty()) {
+            Map<String, V> loaded = loader.apply(missing);
+            List<RemoteCacheStore.Entry> puts = new ArrayList<>(missing.size());
+            for (String key : missing) {
+                V value = loaded.get(key);
+                values.put(key, Optional.ofNullable(value));
+                if (remoteAvailable) {
+                    puts.add(new RemoteCacheStore.Entry(keyPrefix + key,
+                            value != null ? serializer.apply(value) : NEGATIVE_VALUE,
+                            generations.getOrDefault(key, 0L),
+                            value != null ? remoteTtlMillis : negativeTtlMillis));
+                }
+            }
+            if (remoteAvailable) {
+                try {
+                    store.putAll(puts);
+                } catch (RuntimeException e) {
+                    log.warn("缓存 {} 写入共享存储失败", name, e);
+                }
+            }
+        }
+        
+        for (String key : keys) {
+            Optional<V> value = values.get(key);
+            long stamp = stamps.get(key);
+            // 与同一Key的失效互斥：加载期间发生过失效时结果可能是旧值，只返回给本次请求，不写入本地缓存
+            local.asMap().compute(key, (k, current) -> invalidations.get(stripe(k)) == stamp ? value : current);
+        }
+        return values;
+    }
+    
+    /**
+     * 解析共享存储中的值，无法解析（如版本升级后结构变化）时返回null按未命中处理
+     */
+    private Optional<V> decode(String value) {
+        if (NEGATIVE_VALUE.equals(value)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(deserializer.apply(value));
+        } catch (RuntimeException e) {
+            log.warn("缓存 {} 解析共享存储中的值失败，重新加载", name, e);
+            return null;
+        }
+    }
+    
+    private void onRemoteInvalidation(Collection<String> remoteKeys) {
+        List<String> keys = new ArrayList<>();
+        for (String remoteKey : remoteKeys) {
+            if (remoteKey.startsWith(keyPrefix)) {
+                keys.add(remoteKey.substring(keyPrefix.length()));
+            }
+        }
+        invalidateLocal(keys);
+    }
+    
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
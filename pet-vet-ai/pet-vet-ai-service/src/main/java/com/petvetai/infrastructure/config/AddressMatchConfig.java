@@ -0,0 +1,136 @@
+package com.petvetai.infrastructure.config;
+
+import com.petvetai.infrastructure.util.address.AddressDivisionLoader;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 地址匹配配置类
+ * 
+ * 启动时加载行政区划数据并构建只读的地址索引，所有请求和批量匹配的工作线程共享同一个索引和匹配器。
+ * 配置了快照文件（由 AddressSnapshotBuilder 离线生成）时优先内存映射加载快照，加载失败再回退到从原始数据构建
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Configuration
+public class AddressMatchConfig {
+    
+    /**
+     * 行政区划数据位置
+     */
+    @Value("${address.divisions-location:classpath:data/administrative_divisions.csv}")
+    private Resource divisionsLocation;
+    
+    /**
+     * 地址索引快照文件路径（为空表示不使用快照）
+     */
+    @Value("${address.snapshot-path:}")
+    private String snapshotPath;
+    
+    /**
+     * 批量匹配线程数（0 表示CPU核数）
+     */
+    @Value("${address.batch.threads:0}")
+    private int batchThreads;
+    
+    /**
+     * 批量匹配任务队列容量
+     */
+    @Value("${address.batch.queue-capacity:256}")
+    private int batchQueueCapacity;
+    
+    /**
+     * 构建地址索引
+     * 
+     * @return 地址索引
+     * @throws IOException 行政区划数据读取失败
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Bean
+    public AddressIndex addressIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        if (!snapshotPath.isBlank()) {
+            Path snapshot = Paths.get(snapshotPath);
+            if (Files.isReadable(snapshot)) {
+                try {
+                    AddressIndex index = new AddressIndex();
+                    index.loadSnapshot(snapshot);
+                    log.info("地址索引快照加载完成，文件: {}，耗时 {} ms，{}", snapshot,
+                            System.currentTimeMillis() - start, index.getStats());
+                    return index;
+                } catch (IOException e) {
+                    log.warn("地址索引快照加载失败，改为从行政区划数据构建: {}", e.getMessage());
+                }
+            } else {
+                log.warn("地址索引快照文件不存在或不可读，改为从行政区划数据构建: {}", snapshot);
+            }
+        }
+        
+        List<AdministrativeDivision> divisions;
+        try (InputStream inputStream = divisionsLocation.getInputStream()) {
+            divisions = AddressDivisionLoader.load(inputStream);
+        }
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        log.info("地址索引构建完成，数据: {}，行政区划 {} 条，耗时 {} ms，{}", divisionsLocation.getDescription(),
+                divisions.size(), System.currentTimeMillis() - start, index.getStats());
+        return index;
+    }
+    
+    /**
+     * 地址匹配器（无状态，线程安全）
+     * 
+     * @param addressIndex 地址索引
+     * @return 地址匹配器
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Bean
+    public AddressMatcher addressMatcher(AddressIndex addressIndex) {
+        return new AddressMatcher(addressIndex);
+    }
+    
+    /**
+     * 批量地址匹配线程池
+     * 
+     * 线程数和队列都有上限；队列满时由提交任务的线程自己执行，对批量输入形成反压
+     * 
+     * @return 线程池
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService addressBatchExecutor() {
+        int threads = batchThreads > 0 ? batchThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "address-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -45,6 +46,21 @@ public class RedisConfig {
         return template;
     }
     
+    /**
+     * Redis 消息监听容器（用于订阅缓存失效广播等 Pub/Sub 消息）
+     * 
+     * @param connectionFactory Redis 连接工厂
+     * @return 消息监听容器
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+    
     // 注意：不再定义 stringRedisTemplate，直接使用 Spring Boot 自动配置的 StringRedisTemplate
     // StringRedisTemplate 已经配置好了 String 序列化，满足 RedisServiceImpl 的需求
 }
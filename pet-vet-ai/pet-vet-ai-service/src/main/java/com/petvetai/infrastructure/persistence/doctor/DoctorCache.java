@@ -0,0 +1,245 @@
+package com.petvetai.infrastructure.persistence.doctor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
+import com.petvetai.domain.doctor.model.Address;
+import com.petvetai.domain.doctor.model.DoctorStatus;
+import com.petvetai.infrastructure.cache.tiered.RedisRemoteCacheStore;
+import com.petvetai.infrastructure.cache.tiered.RemoteCacheStore;
+import com.petvetai.infrastructure.cache.tiered.TieredCache;
+import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
+import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 医生缓存：按ID、按手机号、按地址编码（和状态）读取医生，两级缓存（本地 Caffeine + Redis）
+ * 
+ * 订阅 {@link DoctorChangedEvent}，事务提交后失效受影响的Key：医生ID、变更前后的手机号、
+ * 变更前后地址编码下各状态的列表。其他实例通过 Redis Pub/Sub 收到失效广播，广播丢失时最长
+ * local-ttl-seconds 后读到新值。缓存中保存的是持久化对象，调用方只能读取，需要修改时转换为领域对象
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+public class DoctorCache {
+    
+    /**
+     * 按地址编码查询时不限状态的Key后缀
+     */
+    private static final String ANY_STATUS = "all";
+    
+    /**
+     * 按ID读取的缓存名称（共享存储中Key的前缀）
+     */
+    private static final String ID_CACHE = "id";
+    
+    private final DoctorMapper doctorMapper;
+    
+    private final RemoteCacheStore store;
+    
+    private final TieredCache<VetAiDoctorPO> byId;
+    
+    private final TieredCache<VetAiDoctorPO> byPhone;
+    
+    private final TieredCache<List<VetAiDoctorPO>> byAddressCode;
+    
+    @Autowired
+    public DoctorCache(DoctorMapper doctorMapper,
+                       StringRedisTemplate redisTemplate,
+                       RedisMessageListenerContainer listenerContainer,
+                       ObjectMapper objectMapper,
+                       @Value("${doctor.cache.key-prefix:doctor:cache:}") String keyPrefix,
+                       @Value("${doctor.cache.channel:doctor:cache:invalidate}") String channel,
+                       @Value("${doctor.cache.local-max-size:10000}") long localMaxSize,
+                       @Value("${doctor.cache.local-ttl-seconds:5}") long localTtlSeconds,
+                       @Value("${doctor.cache.remote-ttl-seconds:1800}") long remoteTtlSeconds,
+                       @Value("${doctor.cache.negative-ttl-seconds:60}") long negativeTtlSeconds) {
+        this(doctorMapper,
+                new RedisRemoteCacheStore(redisTemplate, listenerContainer, keyPrefix, channel,
+                        Duration.ofSeconds(remoteTtlSeconds).multipliedBy(2).toMillis()),
+                objectMapper, localMaxSize, Duration.ofSeconds(localTtlSeconds),
+                Duration.ofSeconds(remoteTtlSeconds), Duration.ofSeconds(negativeTtlSeconds));
+    }
+    
+    public DoctorCache(DoctorMapper doctorMapper, RemoteCacheStore store, ObjectMapper objectMapper,
+                       long localMaxSize, Duration localTtl, Duration remoteTtl, Duration negativeTtl) {
+        this.doctorMapper = doctorMapper;
+        this.store = store;
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, VetAiDoctorPO.class);
+        Function<Object, String> serializer = value -> {
+            try {
+                return objectMapper.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("医生缓存序列化失败", e);
+            }
+        };
+        Function<String, VetAiDoctorPO> doctorDeserializer = json -> {
+            try {
+                return objectMapper.readValue(json, VetAiDoctorPO.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("医生缓存反序列化失败", e);
+            }
+        };
+        Function<String, List<VetAiDoctorPO>> listDeserializer = json -> {
+            try {
+                return Collections.unmodifiableList(objectMapper.readValue(json, listType));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("医生缓存反序列化失败", e);
+            }
+        };
+        this.byId = new TieredCache<>(ID_CACHE, store, serializer::apply, doctorDeserializer,
+                localMaxSize, localTtl, remoteTtl, negativeTtl);
+        this.byPhone = new TieredCache<>("phone", store, serializer::apply, doctorDeserializer,
+                localMaxSize, localTtl, remoteTtl, negativeTtl);
+        this.byAddressCode = new TieredCache<>("address-code", store, serializer::apply, listDeserializer,
+                localMaxSize, localTtl, remoteTtl, negativeTtl);
+    }
+    
+    /**
+     * 根据ID读取医生
+     * 
+     * @param id 医生ID
+     * @return 医生，不存在或已删除时为null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public VetAiDoctorPO getById(Long id) {
+        return byId.get(id.toString(), key -> doctorMapper.selectById(id));
+    }
+    
+    /**
+     * 根据ID批量读取医生
+     * 
+     * @param ids 医生ID
+     * @return 医生ID -> 医生，不存在或已删除的ID不在结果中
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public Map<Long, VetAiDoctorPO> getAllById(Collection<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        ids.forEach(id -> keys.add(id.toString()));
+        Map<String, VetAiDoctorPO> cached = byId.getAll(keys, missing -> {
+            List<Long> missingIds = new ArrayList<>(missing.size());
+            missing.forEach(key -> missingIds.add(Long.valueOf(key)));
+            Map<String, VetAiDoctorPO> loaded = new HashMap<>();
+            doctorMapper.selectBatchIds(missingIds).forEach(po -> loaded.put(po.getId().toString(), po));
+            return loaded;
+        });
+        Map<Long, VetAiDoctorPO> result = new HashMap<>(cached.size() * 2);
+        cached.values().forEach(po -> result.put(po.getId(), po));
+        return result;
+    }
+    
+    /**
+     * 根据手机号读取医生
+     * 
+     * @param phone 手机号
+     * @return 医生，不存在时为null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public VetAiDoctorPO getByPhone(String phone) {
+        return byPhone.get(phone, doctorMapper::selectByPhone);
+    }
+    
+    /**
+     * 根据地址编码读取医生列表
+     * 
+     * @param addressCode 地址编码
+     * @param status 医生状态编码（为null时不限状态）
+     * @return 医生列表（只读）
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public List<VetAiDoctorPO> getByAddressCode(String addressCode, Integer status) {
+        String key = addressCodeKey(addressCode, status != null ? status.toString() : ANY_STATUS);
+        return byAddressCode.get(key,
+                ignored -> Collections.unmodifiableList(doctorMapper.selectByAddressCode(addressCode, status)));
+    }
+    
+    /**
+     * 医生变更后失效相关缓存（有事务时在提交后执行）
+     * 
+     * @param event 医生变更事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.getDoctorId() != null) {
+            byId.invalidate(List.of(event.getDoctorId().getValue().toString()));
+        }
+        
+        Set<String> phones = new LinkedHashSet<>();
+        addIfPresent(phones, event.getPreviousPhone());
+        addIfPresent(phones, event.getPhone());
+        byPhone.invalidate(phones);
+        
+        Set<String> addressCodeKeys = new LinkedHashSet<>();
+        for (Address address : new Address[]{event.getPreviousAddress(), event.getAddress()}) {
+            if (address == null || address.getAddressCode() == null || address.getAddressCode().isEmpty()) {
+                continue;
+            }
+            addressCodeKeys.add(addressCodeKey(address.getAddressCode(), ANY_STATUS));
+            for (DoctorStatus status : DoctorStatus.values()) {
+                addressCodeKeys.add(addressCodeKey(address.getAddressCode(), status.getCode().toString()));
+            }
+        }
+        byAddressCode.invalidate(addressCodeKeys);
+        log.debug("已失效医生缓存，事件: {}", event);
+    }
+    
+    /**
+     * 订阅医生ID的失效广播（本实例和其他实例的医生变更都会收到，在共享存储的监听线程中回调）
+     * 
+     * @param listener 失效的医生ID
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void subscribeIdInvalidation(Consumer<List<Long>> listener) {
+        String idKeyPrefix = ID_CACHE + ":";
+        store.subscribe(keys -> {
+            List<Long> ids = new ArrayList<>();
+            for (String key : keys) {
+                if (key.startsWith(idKeyPrefix)) {
+                    ids.add(Long.valueOf(key.substring(idKeyPrefix.length())));
+                }
+            }
+            if (!ids.isEmpty()) {
+                listener.accept(ids);
+            }
+        });
+    }
+    
+    private static void addIfPresent(Set<String> keys, String key) {
+        if (key != null && !key.isEmpty()) {
+            keys.add(key);
+        }
+    }
+    
+    private static String addressCodeKey(String addressCode, String status) {
+        return addressCode + ":" + status;
+    }
+}
@@ -0,0 +1,99 @@
+package com.petvetai.infrastructure.persistence.doctor;
+
+import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
+import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import com.petvetai.infrastructure.util.GeoHashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 医生 GeoHash 补齐
+ * 
+ * 新增和更新医生时由 DoctorConverter 根据经纬度写入 GeoHash，这里为增加 geohash 列之前的存量数据补齐：
+ * 按ID顺序分批查询有经纬度但缺少 GeoHash 的医生并批量更新，可以重复执行，已补齐时只有一次索引查询。
+ * 默认在应用启动完成后执行一次，多个实例同时执行时写入的值相同，互不影响
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+public class DoctorGeohashBackfill {
+    
+    private final DoctorMapper doctorMapper;
+    
+    /**
+     * 是否在启动完成后执行
+     */
+    private final boolean backfillOnStartup;
+    
+    /**
+     * 每批处理的行数
+     */
+    private final int batchSize;
+    
+    public DoctorGeohashBackfill(DoctorMapper doctorMapper,
+                                 @Value("${doctor.geohash.backfill-on-startup:true}") boolean backfillOnStartup,
+                                 @Value("${doctor.geohash.backfill-batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("doctor.geohash.backfill-batch-size 必须大于0: " + batchSize);
+        }
+        this.doctorMapper = doctorMapper;
+        this.backfillOnStartup = backfillOnStartup;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * 应用启动完成后补齐（失败只记录日志，不影响服务，缺少 GeoHash 的医生在补齐前按包围盒查询，只是少了网格筛选）
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (Exception e) {
+            log.error("医生 GeoHash 补齐失败", e);
+        }
+    }
+    
+    /**
+     * 为有经纬度但缺少 GeoHash 的医生补齐 GeoHash
+     * 
+     * @return 补齐的医生数量
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public int backfill() {
+        long start = System.currentTimeMillis();
+        int total = 0;
+        long afterId = 0L;
+        while (true) {
+            List<VetAiDoctorPO> doctors = doctorMapper.selectWithoutGeohash(afterId, batchSize);
+            if (doctors.isEmpty()) {
+                break;
+            }
+            for (VetAiDoctorPO doctor : doctors) {
+                doctor.setGeohash(GeoHashUtil.encode(doctor.getLongitude(), doctor.getLatitude()));
+            }
+            total += doctorMapper.updateGeohashBatch(doctors);
+            afterId = doctors.get(doctors.size() - 1).getId();
+            if (doctors.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("医生 GeoHash 补齐完成，共 {} 条，耗时 {} ms", total, System.currentTimeMillis() - start);
+        }
+        return total;
+    }
+}
@@ -1,5 +1,6 @@
 package com.petvetai.infrastructure.persistence.doctor;
 
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
 import com.petvetai.domain.doctor.model.Doctor;
 import com.petvetai.domain.doctor.model.DoctorId;
 import com.petvetai.domain.doctor.model.DoctorStatus;
@@ -8,16 +9,28 @@ import com.petvetai.domain.doctor.repository.DoctorRepository;
 import com.petvetai.infrastructure.persistence.doctor.converter.DoctorConverter;
 import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
 import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import com.petvetai.infrastructure.util.GeoHashUtil;
+import com.petvetai.infrastructure.util.geo.GeoPointIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * 医生仓储实现
  * 
- * 实现医生仓储接口，使用MyBatis-Plus进行数据持久化
+ * 实现医生仓储接口，使用MyBatis-Plus进行数据持久化。
+ * 附近医生查询优先使用内存空间索引（{@link DoctorSpatialIndex}）得到排好序的医生ID，再按主键读取详情；
+ * 索引尚未加载完成时，先按 GeoHash 网格和经纬度包围盒在数据库索引上筛选候选，再在内存中计算精确距离、排序和截取。
+ * 保存医生后发布聚合根记录的 {@link DoctorChangedEvent}，删除医生时发布删除事件。
+ * 按ID、手机号、地址编码查询经过 {@link DoctorCache}；事务中按ID查询直接读库，因为调用方随后会修改并整行保存聚合根，
+ * 不能基于可能过期的缓存副本修改
  * 
  * @author daidasheng
  * @date 2024-12-27
@@ -26,8 +39,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DoctorRepositoryImpl implements DoctorRepository {
     
+    /**
+     * 地球半径（公里）
+     */
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    
+    /**
+     * 附近医生排序：按距离从近到远，距离相同时按ID
+     */
+    private static final Comparator<NearbyCandidate> NEARBY_ORDER = Comparator
+            .comparingDouble((NearbyCandidate candidate) -> candidate.distance)
+            .thenComparing(candidate -> candidate.po.getId());
+    
+    /**
+     * 用空间索引查询时最多向索引取 limit 的多少倍，超过后改用数据库查询
+     */
+    private static final int MAX_INDEX_OVERFETCH = 8;
+    
     private final DoctorMapper doctorMapper;
     private final DoctorConverter doctorConverter;
+    private final DoctorSpatialIndex doctorSpatialIndex;
+    private final DoctorCache doctorCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     public Doctor save(Doctor doctor) {
@@ -39,6 +72,7 @@ public class DoctorRepositoryImpl implements DoctorRepository {
             // 更新
             doctorMapper.updateById(po);
         }
+        doctor.pullEvents().forEach(eventPublisher::publishEvent);
         return doctorConverter.toDomain(po);
     }
     
@@ -47,7 +81,9 @@ public class DoctorRepositoryImpl implements DoctorRepository {
         if (id == null) {
             return null;
         }
-        VetAiDoctorPO po = doctorMapper.selectById(id.getValue());
+        VetAiDoctorPO po = TransactionSynchronizationManager.isActualTransactionActive()
+                ? doctorMapper.selectById(id.getValue())
+                : doctorCache.getById(id.getValue());
         return doctorConverter.toDomain(po);
     }
     
@@ -56,7 +92,7 @@ public class DoctorRepositoryImpl implements DoctorRepository {
         if (phone == null || phone.isEmpty()) {
             return null;
         }
-        VetAiDoctorPO po = doctorMapper.selectByPhone(phone);
+        VetAiDoctorPO po = doctorCache.getByPhone(phone);
         return doctorConverter.toDomain(po);
     }
     
@@ -90,9 +126,45 @@ public class DoctorRepositoryImpl implements DoctorRepository {
         if (limit == null || limit <= 0) {
             limit = 10; // 默认返回10条
         }
-        List<VetAiDoctorPO> pos = doctorMapper.selectNearbyDoctors(longitude, latitude, maxDistance, limit);
-        return pos.stream()
-                .map(doctorConverter::toDomain)
+        if (doctorSpatialIndex.isReady()) {
+            List<Doctor> doctors = findNearbyDoctorsByIndex(longitude, latitude, maxDistance, limit);
+            if (doctors != null) {
+                return doctors;
+            }
+        }
+        return findNearbyDoctorsByDatabase(longitude, latitude, maxDistance, limit);
+    }
+    
+    /**
+     * 在数据库中查询附近医生：按 GeoHash 网格和包围盒筛选候选，在内存中计算精确距离
+     */
+    private List<Doctor> findNearbyDoctorsByDatabase(double longitude, double latitude, double maxDistance, int limit) {
+        GeoHashUtil.Cover cover = GeoHashUtil.cover(longitude, latitude, maxDistance);
+        if (cover == null) {
+            // 查询范围跨越南北极或180度经线，无法用网格覆盖，逐行计算距离
+            List<VetAiDoctorPO> pos = doctorMapper.selectNearbyDoctors(longitude, latitude, maxDistance, limit);
+            return pos.stream()
+                    .map(doctorConverter::toDomain)
+                    .collect(Collectors.toList());
+        }
+        
+        // 先按网格和包围盒在索引上筛选候选，只对候选计算精确距离
+        List<String> prefixes = cover.getCells().stream()
+                .map(cell -> cell + "%")
+                .collect(Collectors.toList());
+        List<VetAiDoctorPO> candidates = doctorMapper.selectNearbyCandidates(prefixes,
+                cover.getMinLongitude(), cover.getMaxLongitude(), cover.getMinLatitude(), cover.getMaxLatitude());
+        List<NearbyCandidate> nearby = new ArrayList<>(candidates.size());
+        for (VetAiDoctorPO po : candidates) {
+            double distance = distance(longitude, latitude, po.getLongitude(), po.getLatitude());
+            if (distance <= maxDistance) {
+                nearby.add(new NearbyCandidate(po, distance));
+            }
+        }
+        nearby.sort(NEARBY_ORDER);
+        return nearby.stream()
+                .limit(limit)
+                .map(candidate -> doctorConverter.toDomain(candidate.po))
                 .collect(Collectors.toList());
     }
     
@@ -102,7 +174,7 @@ public class DoctorRepositoryImpl implements DoctorRepository {
             return List.of();
         }
         Integer statusCode = status != null ? status.getCode() : null;
-        List<VetAiDoctorPO> pos = doctorMapper.selectByAddressCode(addressCode, statusCode);
+        List<VetAiDoctorPO> pos = doctorCache.getByAddressCode(addressCode, statusCode);
         return pos.stream()
                 .map(doctorConverter::toDomain)
                 .collect(Collectors.toList());
@@ -113,7 +185,80 @@ public class DoctorRepositoryImpl implements DoctorRepository {
         if (id == null) {
             return;
         }
+        Doctor doctor = doctorConverter.toDomain(doctorMapper.selectById(id.getValue()));
         doctorMapper.deleteById(id.getValue());
+        eventPublisher.publishEvent(doctor != null
+                ? DoctorChangedEvent.deleted(id, doctor.getAddress(), doctor.getDoctorInfo().getPhone())
+                : DoctorChangedEvent.deleted(id, null, null));
+    }
+    
+    /**
+     * 用内存空间索引查询附近医生：索引给出按距离排好序的ID，再从医生缓存批量读取详情并保持索引的顺序
+     * 
+     * 索引与数据库之间可能有短暂延迟，读取详情后再次确认医生仍为审核通过状态。被过滤掉的医生由更远的邻居补足：
+     * 不足 limit 条且索引中还有更多邻居时，加倍向索引取数重新筛选，最多取到 limit 的
+     * {@value #MAX_INDEX_OVERFETCH} 倍，仍不足时返回 null，由调用方改用数据库查询
+     * 
+     * @return 附近医生；索引中过期的医生过多时为 null
+     */
+    private List<Doctor> findNearbyDoctorsByIndex(double longitude, double latitude, double maxDistance, int limit) {
+        long maxFetch = (long) limit * MAX_INDEX_OVERFETCH;
+        int fetch = limit;
+        while (true) {
+            List<GeoPointIndex.Neighbor> neighbors = doctorSpatialIndex.nearest(longitude, latitude, maxDistance, fetch);
+            if (neighbors.isEmpty()) {
+                return List.of();
+            }
+            List<Long> ids = neighbors.stream()
+                    .map(GeoPointIndex.Neighbor::getId)
+                    .collect(Collectors.toList());
+            Map<Long, VetAiDoctorPO> pos = doctorCache.getAllById(ids);
+            List<Doctor> doctors = new ArrayList<>(Math.min(ids.size(), limit));
+            for (Long id : ids) {
+                VetAiDoctorPO po = pos.get(id);
+                if (po != null && DoctorStatus.APPROVED.getCode().equals(po.getStatus())) {
+                    doctors.add(doctorConverter.toDomain(po));
+                    if (doctors.size() == limit) {
+                        return doctors;
+                    }
+                }
+            }
+            if (neighbors.size() < fetch) {
+                // 范围内的邻居已全部取出
+                return doctors;
+            }
+            if (fetch >= maxFetch) {
+                return null;
+            }
+            fetch = (int) Math.min(maxFetch, fetch * 2L);
+        }
+    }
+    
+    /**
+     * 计算两点间的距离（单位：公里），与 Address.calculateDistance 相同使用 Haversine 公式
+     */
+    private static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double deltaLatRad = Math.toRadians(latitude2 - latitude1);
+        double deltaLonRad = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(deltaLatRad / 2) * Math.sin(deltaLatRad / 2) +
+                   Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) *
+                   Math.sin(deltaLonRad / 2) * Math.sin(deltaLonRad / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+    
+    /**
+     * 附近医生候选及其距离
+     */
+    private static final class NearbyCandidate {
+        
+        private final VetAiDoctorPO po;
+        
+        private final double distance;
+        
+        private NearbyCandidate(VetAiDoctorPO po, double distance) {
+            this.po = po;
+            this.distance = distance;
+        }
     }
 }
 
@@ -0,0 +1,296 @@
+package com.petvetai.infrastructure.persistence.doctor;
+
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
+import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
+import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import com.petvetai.infrastructure.util.geo.GeoPointIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已审核医生的内存空间索引
+ * 
+ * 附近医生查询直接在内存中按 Haversine 距离精确排序，不再访问数据库（详情仍按主键批量读取）。
+ * 索引的维护分两部分：
+ * <ul>
+ *     <li>增量：订阅医生聚合根的 {@link DoctorChangedEvent}（审核通过、审核失败、禁用、启用、地址变更等），
+ *     事务提交后更新；增量变更超过 max-pending-changes 时在后台合并进 KD 树</li>
+ *     <li>跨实例增量：订阅 {@link DoctorCache} 的医生ID失效广播（Redis Pub/Sub），在后台按ID重新读取
+ *     医生的状态和经纬度后更新，其他实例上的变更通常在一次广播延迟内可见</li>
+ *     <li>全量对账：启动后及每隔 reconcile-interval-seconds 从数据库分页读取全部已审核医生重建，
+ *     修正广播丢失（Pub/Sub 不保证送达）和遗漏的事件；对账期间发生的增量变更会保留</li>
+ * </ul>
+ * 广播丢失时，其他实例上的变更最长在一个对账周期后可见；期间已不再审核通过的医生由查询方在读取详情后过滤
+ * 首次对账完成前 {@link #isReady()} 为 false，由调用方回退到数据库查询
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+public class DoctorSpatialIndex {
+    
+    private final DoctorMapper doctorMapper;
+    
+    /**
+     * 医生缓存，用于订阅其他实例的变更广播（为null时只依赖本实例事件和全量对账）
+     */
+    private final DoctorCache doctorCache;
+    
+    private final GeoPointIndex index = new GeoPointIndex();
+    
+    /**
+     * 是否启用
+     */
+    private final boolean enabled;
+    
+    /**
+     * 全量对账间隔（秒）
+     */
+    private final long reconcileIntervalSeconds;
+    
+    /**
+     * 全量对账时每页读取的行数
+     */
+    private final int pageSize;
+    
+    /**
+     * 增量变更超过该数量时合并进 KD 树
+     */
+    private final int maxPendingChanges;
+    
+    /**
+     * 是否已有合并任务在排队
+     */
+    private final AtomicBoolean compactScheduled = new AtomicBoolean();
+    
+    /**
+     * 对账和合并都在这个单线程中执行，二者不会并发
+     */
+    private ScheduledExecutorService scheduler;
+    
+    private volatile boolean ready;
+    
+    @Autowired
+    public DoctorSpatialIndex(DoctorMapper doctorMapper,
+                              DoctorCache doctorCache,
+                              @Value("${doctor.spatial-index.enabled:true}") boolean enabled,
+                              @Value("${doctor.spatial-index.reconcile-interval-seconds:300}") long reconcileIntervalSeconds,
+                              @Value("${doctor.spatial-index.page-size:10000}") int pageSize,
+                              @Value("${doctor.spatial-index.max-pending-changes:10000}") int maxPendingChanges) {
+        if (reconcileIntervalSeconds <= 0 || pageSize <= 0 || maxPendingChanges <= 0) {
+            throw new IllegalArgumentException("doctor.spatial-index 的对账间隔、分页大小和增量变更上限必须大于0");
+        }
+        this.doctorMapper = doctorMapper;
+        this.doctorCache = doctorCache;
+        this.enabled = enabled;
+        this.reconcileIntervalSeconds = reconcileIntervalSeconds;
+        this.pageSize = pageSize;
+        this.maxPendingChanges = maxPendingChanges;
+    }
+    
+    public DoctorSpatialIndex(DoctorMapper doctorMapper, boolean enabled, long reconcileIntervalSeconds, int pageSize,
+                              int maxPendingChanges) {
+        this(doctorMapper, null, enabled, reconcileIntervalSeconds, pageSize, maxPendingChanges);
+    }
+    
+    /**
+     * 启动后台对账（首次立即执行）
+     * 
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("医生空间索引未启用，附近医生查询使用数据库");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "doctor-spatial-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, 0, reconcileIntervalSeconds, TimeUnit.SECONDS);
+        if (doctorCache != null) {
+            // 在对账线程中刷新，不阻塞 Redis 监听线程，也不与对账和合并并发
+            ScheduledExecutorService executor = scheduler;
+            doctorCache.subscribeIdInvalidation(ids -> {
+                if (!executor.isShutdown()) {
+                    executor.execute(() -> refreshQuietly(ids));
+                }
+            });
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    /**
+     * 是否已完成首次全量加载
+     * 
+     * @return 是否可用
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * 查询距离不超过上限的最近的医生
+     * 
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param maxDistance 最大距离（公里）
+     * @param limit 最多返回条数
+     * @return 医生ID和距离，按距离从近到远排序
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public List<GeoPointIndex.Neighbor> nearest(double longitude, double latitude, double maxDistance, int limit) {
+        return index.nearest(longitude, latitude, maxDistance, limit);
+    }
+    
+    /**
+     * 医生变更后更新索引（有事务时在提交后执行，回滚的变更不会进入索引）
+     * 
+     * @param event 医生变更事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.getDoctorId() == null || !event.affectsLocation()) {
+            return;
+        }
+        long id = event.getDoctorId().getValue();
+        if (event.isLocatable()) {
+            index.upsert(id, event.getAddress().getLongitude(), event.getAddress().getLatitude());
+        } else {
+            index.remove(id);
+        }
+        compactIfNeeded();
+    }
+    
+    /**
+     * 按ID从数据库重新读取医生并更新索引（收到其他实例的变更广播后调用）
+     * 
+     * 已审核且有经纬度的医生写入索引，其余（包括已删除、不存在）从索引中移除
+     * 
+     * @param ids 医生ID
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, VetAiDoctorPO> approved = new HashMap<>(ids.size() * 2);
+        for (VetAiDoctorPO po : doctorMapper.selectApprovedLocationsByIds(ids)) {
+            approved.put(po.getId(), po);
+        }
+        for (Long id : ids) {
+            VetAiDoctorPO po = approved.get(id);
+            if (po != null) {
+                index.upsert(id, po.getLongitude(), po.getLatitude());
+            } else {
+                index.remove(id);
+            }
+        }
+        compactIfNeeded();
+    }
+    
+    /**
+     * 增量变更超过上限时在后台合并进 KD 树
+     */
+    private void compactIfNeeded() {
+        if (index.pendingChanges() > maxPendingChanges && scheduler != null
+                && compactScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    index.compact();
+                } finally {
+                    compactScheduled.set(false);
+                }
+            });
+        }
+    }
+    
+    /**
+     * 从数据库全量重建索引
+     * 
+     * @return 索引中的医生数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        long sequence = index.sequence();
+        long[] ids = new long[Math.max(16, index.treeSize() + index.pendingChanges())];
+        double[] longitudes = new double[ids.length];
+        double[] latitudes = new double[ids.length];
+        int size = 0;
+        long afterId = 0L;
+        while (true) {
+            List<VetAiDoctorPO> page = doctorMapper.selectApprovedLocations(afterId, pageSize);
+            if (size + page.size() > ids.length) {
+                int capacity = Math.max(size + page.size(), ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+            }
+            for (VetAiDoctorPO po : page) {
+                ids[size] = po.getId();
+                longitudes[size] = po.getLongitude();
+                latitudes[size] = po.getLatitude();
+                size++;
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        index.rebuild(ids, longitudes, latitudes, size, sequence);
+        ready = true;
+        log.info("医生空间索引对账完成，已审核医生 {} 条，耗时 {} ms", size, System.currentTimeMillis() - start);
+        return size;
+    }
+    
+    private void refreshQuietly(Collection<Long> ids) {
+        try {
+            refresh(ids);
+        } catch (Exception e) {
+            // 由下一次全量对账修正
+            log.warn("医生空间索引增量刷新失败, ids: {}", ids, e);
+        }
+    }
+    
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            // 保留上一次的索引，下个周期重试
+            log.error("医生空间索引对账失败", e);
+        }
+    }
+}
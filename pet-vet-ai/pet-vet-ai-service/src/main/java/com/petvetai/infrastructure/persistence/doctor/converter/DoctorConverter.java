@@ -2,6 +2,7 @@ package com.petvetai.infrastructure.persistence.doctor.converter;
 
 import com.petvetai.domain.doctor.model.*;
 import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import com.petvetai.infrastructure.util.GeoHashUtil;
 import org.springframework.stereotype.Component;
 
 /**
@@ -56,6 +57,7 @@ public class DoctorConverter {
             po.setFullAddress(address.getFullAddress());
             po.setLongitude(address.getLongitude());
             po.setLatitude(address.getLatitude());
+            po.setGeohash(GeoHashUtil.encode(address.getLongitude(), address.getLatitude()));
             po.setAddressCode(address.getAddressCode());
         }
         
@@ -6,7 +6,9 @@ import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -84,7 +86,10 @@ public interface DoctorMapper extends BaseMapper<VetAiDoctorPO> {
     }
     
     /**
-     * 根据地理位置查询附近的医生列表（使用Haversine公式计算距离）
+     * 根据地理位置查询附近的医生列表（逐行使用Haversine公式计算距离）
+     * 
+     * 需要计算每一行的距离，只在无法用 GeoHash 网格覆盖查询范围时使用（跨越南北极或180度经线），
+     * 一般查询见 {@link #selectNearbyCandidates}
      * 
      * @param longitude 经度
      * @param latitude 纬度
@@ -94,21 +99,126 @@ public interface DoctorMapper extends BaseMapper<VetAiDoctorPO> {
      * @author daidasheng
      * @date 2024-12-27
      */
-    @Select("SELECT *, " +
-            "(6371 * acos(cos(radians(#{latitude})) * cos(radians(latitude)) * " +
-            "cos(radians(longitude) - radians(#{longitude})) + " +
-            "sin(radians(#{latitude})) * sin(radians(latitude)))) AS distance " +
-            "FROM vet_ai_doctor " +
-            "WHERE is_void = 0 " +
-            "AND status = 1 " +
-            "AND longitude IS NOT NULL " +
-            "AND latitude IS NOT NULL " +
-            "HAVING distance <= #{maxDistance} " +
+    @Select("SELECT * FROM (" +
+            "SELECT d.*, " +
+            "(6371 * acos(cos(radians(#{latitude})) * cos(radians(d.latitude)) * " +
+            "cos(radians(d.longitude) - radians(#{longitude})) + " +
+            "sin(radians(#{latitude})) * sin(radians(d.latitude)))) AS distance " +
+            "FROM vet_ai_doctor d " +
+            "WHERE d.is_void = 0 " +
+            "AND d.status = 1 " +
+            "AND d.longitude IS NOT NULL " +
+            "AND d.latitude IS NOT NULL" +
+            ") t " +
+            "WHERE distance <= #{maxDistance} " +
             "ORDER BY distance ASC " +
             "LIMIT #{limit}")
     List<VetAiDoctorPO> selectNearbyDoctors(@Param("longitude") Double longitude,
                                           @Param("latitude") Double latitude,
                                           @Param("maxDistance") Double maxDistance,
                                           @Param("limit") Integer limit);
+    
+    /**
+     * 查询 GeoHash 网格和经纬度包围盒内已审核的医生（附近医生查询的候选集，由调用方计算精确距离）
+     * 
+     * 每个网格是 idx_geohash 上的一段前缀范围，包围盒和状态条件在索引上过滤。
+     * 尚未补齐 GeoHash 的医生（geohash 为 NULL，见 DoctorGeohashBackfill）只按包围盒筛选，
+     * 同样是 idx_geohash 上的一段范围（NULL 值），补齐前也不会在附近医生查询中丢失
+     * 
+     * @param geohashPrefixes 网格编码的 LIKE 前缀模式（如 wx4g%），不能为空
+     * @param minLongitude 最小经度
+     * @param maxLongitude 最大经度
+     * @param minLatitude 最小纬度
+     * @param maxLatitude 最大纬度
+     * @return 候选医生列表（未排序）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Select("<script>" +
+            "SELECT * FROM vet_ai_doctor " +
+            "WHERE (" +
+            "<foreach collection='geohashPrefixes' item='prefix' separator=' OR '>geohash LIKE #{prefix}</foreach>" +
+            " OR geohash IS NULL" +
+            ") " +
+            "AND latitude BETWEEN #{minLatitude} AND #{maxLatitude} " +
+            "AND longitude BETWEEN #{minLongitude} AND #{maxLongitude} " +
+            "AND status = 1 " +
+            "AND is_void = 0" +
+            "</script>")
+    List<VetAiDoctorPO> selectNearbyCandidates(@Param("geohashPrefixes") List<String> geohashPrefixes,
+                                             @Param("minLongitude") Double minLongitude,
+                                             @Param("maxLongitude") Double maxLongitude,
+                                             @Param("minLatitude") Double minLatitude,
+                                             @Param("maxLatitude") Double maxLatitude);
+    
+    /**
+     * 按ID顺序查询已审核且有经纬度的医生（只返回ID和经纬度，用于全量构建内存空间索引）
+     * 
+     * @param afterId 只查询ID大于该值的记录
+     * @param limit 返回数量限制
+     * @return 医生列表
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @Select("SELECT id, longitude, latitude FROM vet_ai_doctor " +
+            "WHERE id > #{afterId} " +
+            "AND status = 1 " +
+            "AND is_void = 0 " +
+            "AND longitude IS NOT NULL " +
+            "AND latitude IS NOT NULL " +
+            "ORDER BY id ASC " +
+            "LIMIT #{limit}")
+    List<VetAiDoctorPO> selectApprovedLocations(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+    
+    /**
+     * 按ID查询已审核且有经纬度的医生（只返回ID和经纬度，用于增量刷新内存空间索引）
+     * 
+     * @param ids 医生ID，不能为空
+     * @return 医生列表，不满足条件的ID不在结果中
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @Select("<script>" +
+            "SELECT id, longitude, latitude FROM vet_ai_doctor " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status = 1 " +
+            "AND is_void = 0 " +
+            "AND longitude IS NOT NULL " +
+            "AND latitude IS NOT NULL" +
+            "</script>")
+    List<VetAiDoctorPO> selectApprovedLocationsByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 按ID顺序查询有经纬度但缺少 GeoHash 的医生（只返回ID和经纬度，用于补齐 GeoHash）
+     * 
+     * @param afterId 只查询ID大于该值的记录
+     * @param limit 返回数量限制
+     * @return 医生列表
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Select("SELECT id, longitude, latitude FROM vet_ai_doctor " +
+            "WHERE id > #{afterId} " +
+            "AND geohash IS NULL " +
+            "AND longitude IS NOT NULL " +
+            "AND latitude IS NOT NULL " +
+            "ORDER BY id ASC " +
+            "LIMIT #{limit}")
+    List<VetAiDoctorPO> selectWithoutGeohash(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+    
+    /**
+     * 批量更新 GeoHash（不改变更新时间）
+     * 
+     * @param doctors 医生列表（id 和 geohash），不能为空
+     * @return 更新行数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Update("<script>" +
+            "UPDATE vet_ai_doctor SET update_time = update_time, geohash = CASE id " +
+            "<foreach collection='doctors' item='doctor'>WHEN #{doctor.id} THEN #{doctor.geohash} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='doctors' item='doctor' open='(' separator=',' close=')'>#{doctor.id}</foreach>" +
+            "</script>")
+    int updateGeohashBatch(@Param("doctors") List<VetAiDoctorPO> doctors);
 }
-
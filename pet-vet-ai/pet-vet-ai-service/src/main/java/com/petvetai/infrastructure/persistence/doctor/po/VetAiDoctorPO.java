@@ -113,6 +113,11 @@ public class VetAiDoctorPO extends BaseEntity {
      */
     private Double latitude;
     
+    /**
+     * GeoHash编码（由经纬度计算，用于附近医生查询）
+     */
+    private String geohash;
+    
     /**
      * 地址编码（行政区划编码）
      */
@@ -0,0 +1,215 @@
+package com.petvetai.infrastructure.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GeoHash 工具类
+ * 
+ * 经度、纬度分别按 2 的幂等分成网格，网格坐标的二进制位从经度开始交替拼接，每 5 位编码为一个 base32 字符。
+ * 同一网格内的点编码相同，某个网格内所有点的编码都以该网格的编码为前缀，因此按前缀可以走索引范围扫描。
+ * 
+ * 网格坐标直接由 (经度 + 180) / 360、(纬度 + 90) / 180 乘以 2 的幂取整得到，乘 2 的幂没有舍入误差，
+ * 保证低精度编码始终是高精度编码的前缀（存储和查询必须都使用本类计算）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class GeoHashUtil {
+    
+    /**
+     * 存储精度：8 位约 38m × 19m
+     */
+    public static final int STORE_PRECISION = 8;
+    
+    /**
+     * 覆盖查询范围最多使用的网格数
+     */
+    public static final int MAX_COVER_CELLS = 16;
+    
+    /**
+     * 地球半径（公里），与 Haversine 距离计算一致
+     */
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    
+    /**
+     * 包围盒外扩的度数（约 0.1m）：经纬度入库时按 DECIMAL(10,7) 舍入，GeoHash 按舍入前的坐标计算，
+     * 外扩后边界附近的点不会因为舍入落到覆盖网格之外
+     */
+    private static final double BOX_MARGIN = 1e-6;
+    
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    
+    private GeoHashUtil() {
+    }
+    
+    /**
+     * 计算 GeoHash 编码
+     * 
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param precision 编码长度（1-12）
+     * @return GeoHash 编码
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static String encode(double longitude, double latitude, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("GeoHash 精度必须在 1-12 之间: " + precision);
+        }
+        return encodeCell(lonCell(longitude, lonBits(precision)), latCell(latitude, latBits(precision)), precision);
+    }
+    
+    /**
+     * 计算存储用的 GeoHash 编码，经纬度任一为空时返回 null
+     * 
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @return {@value #STORE_PRECISION} 位 GeoHash 编码
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static String encode(Double longitude, Double latitude) {
+        if (longitude == null || latitude == null) {
+            return null;
+        }
+        return encode(longitude.doubleValue(), latitude.doubleValue(), STORE_PRECISION);
+    }
+    
+    /**
+     * 计算覆盖以指定坐标为圆心、指定半径的圆的网格和经纬度包围盒
+     * 
+     * 在不超过 {@value #MAX_COVER_CELLS} 个网格的前提下选择最高的精度。
+     * 圆跨越南北极或 180 度经线时经纬度范围不连续，返回 null，由调用方回退为逐行计算距离
+     * 
+     * @param longitude 圆心经度
+     * @param latitude 圆心纬度
+     * @param radiusKm 半径（公里）
+     * @return 覆盖范围，无法用网格覆盖时返回 null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static Cover cover(double longitude, double latitude, double radiusKm) {
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        if (!(angle >= 0) || angle >= Math.PI / 2) {
+            return null;
+        }
+        double latDelta = Math.toDegrees(angle) + BOX_MARGIN;
+        double minLat = latitude - latDelta;
+        double maxLat = latitude + latDelta;
+        // 圆上经度差最大的点：sin(Δlon) = sin(r/R) / cos(lat)，比值不小于 1 说明圆包含了极点
+        double ratio = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        if (minLat < -90 || maxLat > 90 || !(ratio < 1)) {
+            return null;
+        }
+        double lonDelta = Math.toDegrees(Math.asin(ratio)) + BOX_MARGIN;
+        double minLon = longitude - lonDelta;
+        double maxLon = longitude + lonDelta;
+        if (minLon < -180 || maxLon > 180) {
+            return null;
+        }
+        
+        for (int precision = STORE_PRECISION; precision >= 1; precision--) {
+            int lonBits = lonBits(precision);
+            int latBits = latBits(precision);
+            long x0 = lonCell(minLon, lonBits);
+            long x1 = lonCell(maxLon, lonBits);
+            long y0 = latCell(minLat, latBits);
+            long y1 = latCell(maxLat, latBits);
+            if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_COVER_CELLS) {
+                continue;
+            }
+            List<String> cells = new ArrayList<>();
+            for (long x = x0; x <= x1; x++) {
+                for (long y = y0; y <= y1; y++) {
+                    cells.add(encodeCell(x, y, precision));
+                }
+            }
+            Collections.sort(cells);
+            return new Cover(Collections.unmodifiableList(cells), minLon, maxLon, minLat, maxLat);
+        }
+        return null;
+    }
+    
+    private static int lonBits(int precision) {
+        return (precision * 5 + 1) / 2;
+    }
+    
+    private static int latBits(int precision) {
+        return precision * 5 / 2;
+    }
+    
+    private static long lonCell(double longitude, int bits) {
+        return cell((longitude + 180.0) / 360.0, bits);
+    }
+    
+    private static long latCell(double latitude, int bits) {
+        return cell((latitude + 90.0) / 180.0, bits);
+    }
+    
+    private static long cell(double fraction, int bits) {
+        long max = (1L << bits) - 1;
+        long cell = (long) Math.floor(fraction * (1L << bits));
+        return Math.max(0, Math.min(max, cell));
+    }
+    
+    /**
+     * 将网格坐标按经度在前交替拼接并编码为 base32
+     */
+    private static String encodeCell(long x, long y, int precision) {
+        int lonBit = lonBits(precision) - 1;
+        int latBit = latBits(precision) - 1;
+        char[] chars = new char[precision];
+        for (int i = 0; i < precision; i++) {
+            int value = 0;
+            for (int j = 0; j < 5; j++) {
+                int bit;
+                if (((i * 5 + j) & 1) == 0) {
+                    bit = (int) (x >>> lonBit--) & 1;
+                } else {
+                    bit = (int) (y >>> latBit--) & 1;
+                }
+                value = (value << 1) | bit;
+            }
+            chars[i] = BASE32[value];
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 查询范围的网格覆盖
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Cover {
+        
+        /**
+         * 覆盖的网格编码（升序）
+         */
+        private final List<String> cells;
+        
+        /**
+         * 包围盒最小经度
+         */
+        private final double minLongitude;
+        
+        /**
+         * 包围盒最大经度
+         */
+        private final double maxLongitude;
+        
+        /**
+         * 包围盒最小纬度
+         */
+        private final double minLatitude;
+        
+        /**
+         * 包围盒最大纬度
+         */
+        private final double maxLatitude;
+    }
+}
@@ -0,0 +1,108 @@
+package com.petvetai.infrastructure.util;
+
+/**
+ * 延迟直方图（对数线性分桶，非线程安全）
+ * 
+ * 每个 2 的幂区间再均分为 16 个桶，相对误差不超过 1/16，占用内存固定（约8KB），
+ * 适合记录大批量请求的延迟后计算分位数。多线程场景下每个线程各自记录，最后用 {@link #merge} 合并
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class LatencyHistogram {
+    
+    /**
+     * 每个 2 的幂区间的子桶位数
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    
+    private final long[] counts = new long[SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT];
+    
+    private long totalCount;
+    
+    private long maxValue;
+    
+    /**
+     * 记录一个值
+     * 
+     * @param value 值（如纳秒），负数按0记录
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        counts[indexOf(v)]++;
+        totalCount++;
+        if (v > maxValue) {
+            maxValue = v;
+        }
+    }
+    
+    /**
+     * 合并另一个直方图
+     * 
+     * @param other 另一个直方图
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+    
+    /**
+     * 计算分位数
+     * 
+     * @param percentile 分位（0-100）
+     * @return 分位值（所在桶的上界，不超过最大值）；没有记录时返回0
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(totalCount * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+    
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    public long getMaxValue() {
+        return maxValue;
+    }
+    
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+    
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lower = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -1,22 +1,38 @@
 package com.petvetai.infrastructure.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
 import net.sourceforge.pinyin4j.PinyinHelper;
 import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
 import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
 import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
 import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 拼音工具类
  * 
- * 用于处理同音字匹配
+ * 用于处理同音字匹配。
+ * 单字读音缓存在按字符下标的读音表中（覆盖 CJK 统一汉字及扩展A），首次查询时从 pinyin4j 加载，
+ * 也可通过 {@link #preload(String)} 在加载行政区划数据时预热；整串的拼音和拼音组合结果缓存在有界缓存中。
+ * 拼音组合最多展开 {@value #MAX_COMBINATIONS} 个，超出时截断并计数
  * 
  * @author daidasheng
  * @date 2024-12-20
  */
+@Slf4j
 public class PinyinUtil {
     
     private static final HanyuPinyinOutputFormat format;
@@ -28,6 +44,55 @@ public class PinyinUtil {
         format.setVCharType(HanyuPinyinVCharType.WITH_V);
     }
     
+    /**
+     * 单个字符串最多展开的拼音组合数
+     */
+    public static final int MAX_COMBINATIONS = 256;
+    
+    /**
+     * 整串结果缓存的最大条目数
+     */
+    private static final int STRING_CACHE_MAX_SIZE = 10_000;
+    
+    /**
+     * 读音表覆盖的第一个字符（CJK 统一汉字扩展A）
+     */
+    private static final char TABLE_START = '\u3400';
+    
+    /**
+     * 读音表覆盖的最后一个字符（CJK 统一汉字）
+     */
+    private static final char TABLE_END = '\u9FFF';
+    
+    private static final String[] NO_PINYIN = new String[0];
+    
+    /**
+     * 单字读音表：下标为 字符 - TABLE_START，未加载时为 null，非汉字为空数组
+     */
+    private static final AtomicReferenceArray<String[]> READINGS = new AtomicReferenceArray<>(TABLE_END - TABLE_START + 1);
+    
+    /**
+     * 整串拼音组合缓存
+     */
+    private static final Cache<String, Set<String>> COMBINATION_CACHE = Caffeine.newBuilder()
+            .maximumSize(STRING_CACHE_MAX_SIZE)
+            .recordStats()
+            .build();
+    
+    /**
+     * 整串首选拼音缓存
+     */
+    private static final Cache<String, String> PINYIN_CACHE = Caffeine.newBuilder()
+            .maximumSize(STRING_CACHE_MAX_SIZE)
+            .recordStats()
+            .build();
+    
+    private static final LongAdder READING_HITS = new LongAdder();
+    
+    private static final LongAdder READING_MISSES = new LongAdder();
+    
+    private static final LongAdder TRUNCATED_EXPANSIONS = new LongAdder();
+    
     /**
      * 获取汉字的所有拼音（多音字）
      * 
@@ -37,18 +102,91 @@ public class PinyinUtil {
      * @date 2024-12-20
      */
     public static Set<String> getPinyinSet(char c) {
-        Set<String> pinyinSet = new HashSet<>();
+        return new LinkedHashSet<>(Arrays.asList(getPinyinArray(c)));
+    }
+    
+    /**
+     * 获取汉字的所有拼音（多音字），按 pinyin4j 给出的读音顺序去重
+     * 
+     * 与 {@link #getPinyinSet(char)} 不同，返回结果保留读音顺序（常用读音在前），便于按读音个数截断。
+     * 返回的数组来自读音表缓存，调用方不得修改
+     * 
+     * @param c 汉字字符
+     * @return 拼音数组，非汉字字符返回空数组
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static String[] getPinyinArray(char c) {
+        if (c < TABLE_START || c > TABLE_END) {
+            READING_MISSES.increment();
+            return loadReadings(c);
+        }
+        int slot = c - TABLE_START;
+        String[] readings = READINGS.get(slot);
+        if (readings != null) {
+            READING_HITS.increment();
+            return readings;
+        }
+        READING_MISSES.increment();
+        readings = loadReadings(c);
+        READINGS.lazySet(slot, readings);
+        return readings;
+    }
+    
+    /**
+     * 预热读音表：加载文本中所有汉字的读音
+     * 
+     * @param text 文本
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static void preload(String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= TABLE_START && c <= TABLE_END && READINGS.get(c - TABLE_START) == null) {
+                READINGS.lazySet(c - TABLE_START, loadReadings(c));
+            }
+        }
+    }
+    
+    /**
+     * 从 pinyin4j 加载单字读音
+     * 
+     * @param c 字符
+     * @return 去重后的读音
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static String[] loadReadings(char c) {
+        String[] pinyins;
         try {
-            String[] pinyins = PinyinHelper.toHanyuPinyinStringArray(c, format);
-            if (pinyins != null) {
-                for (String pinyin : pinyins) {
-                    pinyinSet.add(pinyin);
+            pinyins = PinyinHelper.toHanyuPinyinStringArray(c, format);
+        } catch (Exception e) {
+            // 非汉字字符，返回空数组
+            return NO_PINYIN;
+        }
+        if (pinyins == null) {
+            return NO_PINYIN;
+        }
+        // 去掉声调后不同声调的读音会重复（如 "hang2"、"hang4" 都变为 "hang"）
+        int size = 0;
+        String[] distinct = new String[pinyins.length];
+        for (String pinyin : pinyins) {
+            boolean duplicated = false;
+            for (int i = 0; i < size; i++) {
+                if (distinct[i].equals(pinyin)) {
+                    duplicated = true;
+                    break;
                 }
             }
-        } catch (Exception e) {
-            // 非汉字字符，返回空集合
+            if (!duplicated) {
+                distinct[size++] = pinyin;
+            }
         }
-        return pinyinSet;
+        return Arrays.copyOf(distinct, size);
     }
     
     /**
@@ -56,57 +194,60 @@ public class PinyinUtil {
      * 
      * 例如："与杭" -> ["yuhang", "yuxing"]
      * 
+     * 结果来自缓存，不可修改。组合数超过 {@value #MAX_COMBINATIONS} 时截断：
+     * 按常用读音优先的顺序保留前 {@value #MAX_COMBINATIONS} 个组合（全部取首个读音的组合一定保留）
+     * 
      * @param text 文本
      * @return 所有拼音组合
      * @author daidasheng
      * @date 2024-12-20
      */
     public static Set<String> getAllPinyinCombinations(String text) {
-        Set<String> result = new HashSet<>();
         if (text == null || text.isEmpty()) {
-            return result;
+            return Collections.emptySet();
         }
-        
-        char[] chars = text.toCharArray();
-        @SuppressWarnings("unchecked")
-        Set<String>[] pinyinSets = new Set[chars.length];
-        
-        // 为每个字符获取所有可能的拼音
-        for (int i = 0; i < chars.length; i++) {
-            pinyinSets[i] = getPinyinSet(chars[i]);
-            if (pinyinSets[i].isEmpty()) {
-                // 非汉字字符，直接使用原字符
-                pinyinSets[i] = new HashSet<>();
-                pinyinSets[i].add(String.valueOf(chars[i]));
-            }
-        }
-        
-        // 生成所有组合
-        generateCombinations(pinyinSets, 0, "", result);
-        
-        return result;
+        return COMBINATION_CACHE.get(text, PinyinUtil::expandCombinations);
     }
     
     /**
-     * 递归生成所有拼音组合
+     * 展开拼音组合（有上限）
      * 
-     * @param pinyinSets 拼音集合数组
-     * @param index 当前索引
-     * @param current 当前组合
-     * @param result 结果集合
+     * @param text 文本
+     * @return 拼音组合
      * @author daidasheng
-     * @date 2024-12-20
+     * @date 2026-10-16
      */
-    private static void generateCombinations(Set<String>[] pinyinSets, int index, 
-                                            String current, Set<String> result) {
-        if (index >= pinyinSets.length) {
-            result.add(current);
-            return;
+    private static Set<String> expandCombinations(String text) {
+        List<String> combinations = new ArrayList<>();
+        combinations.add("");
+        boolean truncated = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String[] pinyins = getPinyinArray(c);
+            if (pinyins.length == 0) {
+                // 非汉字字符，直接使用原字符
+                pinyins = new String[]{String.valueOf(c)};
+            }
+            
+            int capacity = Math.min(MAX_COMBINATIONS, combinations.size() * pinyins.length);
+            List<String> next = new ArrayList<>(capacity);
+            expand:
+            for (String prefix : combinations) {
+                for (String pinyin : pinyins) {
+                    if (next.size() == MAX_COMBINATIONS) {
+                        truncated = true;
+                        break expand;
+                    }
+                    next.add(prefix + pinyin);
+                }
+            }
+            combinations = next;
         }
-        
-        for (String pinyin : pinyinSets[index]) {
-            generateCombinations(pinyinSets, index + 1, current + pinyin, result);
+        if (truncated) {
+            TRUNCATED_EXPANSIONS.increment();
+            log.debug("拼音组合超过上限 {}，已截断: {}", MAX_COMBINATIONS, text);
         }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(combinations));
     }
     
     /**
@@ -121,17 +262,19 @@ public class PinyinUtil {
         if (text == null || text.isEmpty()) {
             return "";
         }
-        
-        StringBuilder sb = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            Set<String> pinyins = getPinyinSet(c);
-            if (!pinyins.isEmpty()) {
-                sb.append(pinyins.iterator().next());
-            } else {
-                sb.append(c);
+        return PINYIN_CACHE.get(text, key -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                String[] pinyins = getPinyinArray(c);
+                if (pinyins.length > 0) {
+                    sb.append(pinyins[0]);
+                } else {
+                    sb.append(c);
+                }
             }
-        }
-        return sb.toString();
+            return sb.toString();
+        });
     }
     
     /**
@@ -152,8 +295,37 @@ public class PinyinUtil {
         Set<String> pinyin2 = getAllPinyinCombinations(str2);
         
         // 如果两个集合有交集，则认为同音
-        pinyin1.retainAll(pinyin2);
-        return !pinyin1.isEmpty();
+        Set<String> smaller = pinyin1.size() <= pinyin2.size() ? pinyin1 : pinyin2;
+        Set<String> larger = smaller == pinyin1 ? pinyin2 : pinyin1;
+        for (String pinyin : smaller) {
+            if (larger.contains(pinyin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 获取缓存统计信息（读音表命中率、整串缓存命中率、截断次数）
+     * 
+     * @return 统计信息
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = READING_HITS.sum();
+        long misses = READING_MISSES.sum();
+        stats.put("readingHits", hits);
+        stats.put("readingMisses", misses);
+        stats.put("readingHitRate", hits + misses == 0 ? 1.0 : (double) hits / (hits + misses));
+        CacheStats combinationStats = COMBINATION_CACHE.stats();
+        stats.put("combinationCacheSize", COMBINATION_CACHE.estimatedSize());
+        stats.put("combinationCacheHitRate", combinationStats.hitRate());
+        CacheStats pinyinStats = PINYIN_CACHE.stats();
+        stats.put("pinyinCacheSize", PINYIN_CACHE.estimatedSize());
+        stats.put("pinyinCacheHitRate", pinyinStats.hitRate());
+        stats.put("truncatedExpansions", TRUNCATED_EXPANSIONS.sum());
+        return stats;
     }
 }
-
@@ -0,0 +1,96 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 行政区划数据加载器
+ * 
+ * 读取 CSV 格式的行政区划数据（见 resources/data/administrative_divisions.csv）：
+ * 每行为"编码,省,市,区,街道"，空行和 # 开头的注释行忽略，缺少的层级留空
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class AddressDivisionLoader {
+    
+    private AddressDivisionLoader() {
+    }
+    
+    /**
+     * 加载行政区划数据
+     * 
+     * @param inputStream CSV 输入流（UTF-8，由调用方关闭）
+     * @return 行政区划列表
+     * @throws IOException 读取失败
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static List<AdministrativeDivision> load(InputStream inputStream) throws IOException {
+        List<AdministrativeDivision> divisions = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",", -1);
+            if (parts.length < 5 || parts[0].isEmpty()) {
+                throw new IOException("行政区划数据格式错误，第 " + lineNumber + " 行: " + line);
+            }
+            divisions.add(toDivision(parts));
+        }
+        return divisions;
+    }
+    
+    /**
+     * 转换为行政区划对象
+     * 
+     * @param parts 编码,省,市,区,街道
+     * @return 行政区划对象
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static AdministrativeDivision toDivision(String[] parts) {
+        String province = emptyToNull(parts[1]);
+        String city = emptyToNull(parts[2]);
+        String district = emptyToNull(parts[3]);
+        String street = emptyToNull(parts[4]);
+        
+        StringBuilder fullAddress = new StringBuilder();
+        int level = 0;
+        if (province != null) {
+            fullAddress.append(province);
+            level = 1;
+        }
+        if (city != null) {
+            // 直辖市省市同名，完整地址中只保留一次（如：北京市海淀区中关村街道）
+            if (!city.equals(province)) {
+                fullAddress.append(city);
+            }
+            level = 2;
+        }
+        if (district != null) {
+            fullAddress.append(district);
+            level = 3;
+        }
+        if (street != null) {
+            fullAddress.append(street);
+            level = 4;
+        }
+        return new AdministrativeDivision(parts[0].trim(), province, city, district, street, fullAddress.toString(), level);
+    }
+    
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -2,12 +2,19 @@ package com.petvetai.infrastructure.util.address;
 
 import com.petvetai.infrastructure.util.PinyinUtil;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * 地址索引结构
  * 
- * 实现倒排索引和前缀树，用于快速匹配地址
+ * 实现倒排索引和前缀树，用于快速匹配地址。
+ * 构建完成后冻结为只读快照：行政区划编码驻留为 int，前缀树和倒排列表存放在基本类型数组中
+ * （见 {@link CompactAddressTrie}），重建时整体替换快照，查询无需加锁。
+ * 
+ * 快照中的数据都存放在基本类型缓冲区中，可以写出为二进制文件（{@link #writeSnapshot(Path)}），
+ * 其他进程以只读内存映射方式直接加载（{@link #loadSnapshot(Path)}），不必再从原始数据重新构建
  * 
  * @author daidasheng
  * @date 2024-12-20
@@ -15,24 +22,9 @@ import java.util.*;
 public class AddressIndex {
     
     /**
-     * 倒排索引：关键词 -> 行政区划编码列表
+     * 当前索引快照
      */
-    private final Map<String, Set<String>> invertedIndex = new HashMap<>();
-    
-    /**
-     * 前缀树：用于前缀匹配
-     */
-    private final TrieNode trieRoot = new TrieNode();
-    
-    /**
-     * 所有行政区划数据：编码 -> 行政区划对象
-     */
-    private final Map<String, AdministrativeDivision> divisionMap = new HashMap<>();
-    
-    /**
-     * 拼音索引：拼音 -> 原始关键词列表
-     */
-    private final Map<String, Set<String>> pinyinIndex = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
     
     /**
      * 构建索引
@@ -42,53 +34,77 @@ public class AddressIndex {
      * @date 2024-12-20
      */
     public void buildIndex(List<AdministrativeDivision> divisions) {
-        divisionMap.clear();
-        invertedIndex.clear();
-        pinyinIndex.clear();
-        trieRoot.clear();
+        Map<String, Integer> codeIds = new HashMap<>(divisions.size() * 2);
+        List<AdministrativeDivision> divisionsById = new ArrayList<>(divisions.size());
+        CompactAddressTrie.Builder trieBuilder = new CompactAddressTrie.Builder();
+        AddressPinyinIndex.Builder pinyinBuilder = new AddressPinyinIndex.Builder();
         
         for (AdministrativeDivision division : divisions) {
-            divisionMap.put(division.getCode(), division);
+            // 编码驻留为 int，重复编码以最后一次出现的行政区划为准
+            Integer id = codeIds.get(division.getCode());
+            if (id == null) {
+                id = divisionsById.size();
+                codeIds.put(division.getCode(), id);
+                divisionsById.add(division);
+            } else {
+                divisionsById.set(id, division);
+            }
             
             // 为每个层级建立索引
             String[] levels = division.getLevels();
             for (String level : levels) {
                 if (level != null && !level.isEmpty()) {
-                    // 倒排索引
-                    invertedIndex.computeIfAbsent(level, k -> new HashSet<>()).add(division.getCode());
+                    trieBuilder.add(level, id);
                     
-                    // 前缀树索引
-                    addToTrie(level, division.getCode());
-                    
-                    // 拼音索引
-                    String pinyin = PinyinUtil.getPinyin(level);
-                    if (!pinyin.equals(level)) {
-                        pinyinIndex.computeIfAbsent(pinyin, k -> new HashSet<>()).add(level);
-                    }
+                    // 拼音索引（同时预热单字读音表，之后匹配时的读音查询都直接命中）
+                    PinyinUtil.preload(level);
+                    pinyinBuilder.add(level, id);
                 }
             }
             
             // 为完整地址建立索引
-            String fullAddress = division.getFullAddress();
-            invertedIndex.computeIfAbsent(fullAddress, k -> new HashSet<>()).add(division.getCode());
-            addToTrie(fullAddress, division.getCode());
+            trieBuilder.add(division.getFullAddress(), id);
         }
+        
+        CompactAddressTrie trie = trieBuilder.build();
+        AddressPinyinIndex pinyinIndex = pinyinBuilder.build();
+        
+        DivisionTable divisionTable = DivisionTable.build(divisionsById.toArray(new AdministrativeDivision[0]));
+        snapshot = new Snapshot(divisionTable, trie, pinyinIndex);
     }
     
     /**
-     * 添加到前缀树
+     * 从二进制快照文件加载索引
      * 
-     * @param word 关键词
-     * @param code 行政区划编码
+     * 文件以只读方式内存映射，索引直接引用映射的页面；加载时校验文件头、版本和各分区的校验和，
+     * 校验失败时抛出异常并保留当前索引不变
+     * 
+     * @param file 快照文件（由 {@link #writeSnapshot(Path)} 或 {@link AddressSnapshotBuilder} 生成）
+     * @throws IOException 读取失败、版本不支持或校验失败
      * @author daidasheng
-     * @date 2024-12-20
+     * @date 2026-10-16
      */
-    private void addToTrie(String word, String code) {
-        TrieNode node = trieRoot;
-        for (char c : word.toCharArray()) {
-            node = node.getOrCreateChild(c);
-            node.addCode(code);
-        }
+    public void loadSnapshot(Path file) throws IOException {
+        AddressSnapshot mapped = AddressSnapshot.map(file);
+        snapshot = new Snapshot(DivisionTable.readFrom(mapped), CompactAddressTrie.readFrom(mapped),
+                AddressPinyinIndex.readFrom(mapped));
+    }
+    
+    /**
+     * 将当前索引写出为二进制快照文件（先写临时文件再原子替换）
+     * 
+     * @param file 快照文件
+     * @throws IOException 写入失败
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Snapshot current = snapshot;
+        AddressSnapshot.Writer writer = new AddressSnapshot.Writer();
+        current.divisions.writeTo(writer);
+        current.trie.writeTo(writer);
+        current.pinyinIndex.writeTo(writer);
+        writer.writeTo(file);
     }
     
     /**
@@ -100,18 +116,14 @@ public class AddressIndex {
      * @date 2024-12-20
      */
     public Set<String> searchByKeyword(String keyword) {
+        Snapshot current = snapshot;
         Set<String> codes = new HashSet<>();
         
-        // 精确匹配
-        if (invertedIndex.containsKey(keyword)) {
-            codes.addAll(invertedIndex.get(keyword));
-        }
-        
-        // 前缀匹配
-        codes.addAll(searchByPrefix(keyword));
+        // 前缀匹配（精确匹配的编码必然在同一节点的前缀列表中，无需单独合并）
+        current.collect(current.trie.prefixPosting(keyword), codes);
         
         // 拼音匹配
-        codes.addAll(searchByPinyin(keyword));
+        current.pinyinIndex.searchFuzzy(keyword, id -> codes.add(current.divisions.code(id)));
         
         return codes;
     }
@@ -125,64 +137,39 @@ public class AddressIndex {
      * @date 2024-12-20
      */
     public Set<String> searchByPrefix(String prefix) {
+        Snapshot current = snapshot;
         Set<String> codes = new HashSet<>();
-        TrieNode node = trieRoot;
-        
-        // 找到前缀对应的节点
-        for (char c : prefix.toCharArray()) {
-            node = node.getChild(c);
-            if (node == null) {
-                return codes; // 前缀不存在
-            }
-        }
-        
-        // 收集所有子节点的编码
-        collectCodes(node, codes);
+        current.collect(current.trie.prefixPosting(prefix), codes);
         return codes;
     }
     
     /**
-     * 递归收集所有编码
+     * 拼音匹配
      * 
-     * @param node 前缀树节点
-     * @param codes 编码集合
+     * @param keyword 关键词
+     * @return 匹配的编码集合
      * @author daidasheng
      * @date 2024-12-20
      */
-    private void collectCodes(TrieNode node, Set<String> codes) {
-        codes.addAll(node.getCodes());
-        for (TrieNode child : node.getChildren().values()) {
-            collectCodes(child, codes);
-        }
+    public Set<String> searchByPinyin(String keyword) {
+        Snapshot current = snapshot;
+        Set<String> codes = new HashSet<>();
+        current.pinyinIndex.searchFuzzy(keyword, id -> codes.add(current.divisions.code(id)));
+        return codes;
     }
     
     /**
-     * 拼音匹配
+     * 同音匹配：查找某一层级名称与关键词同音（长度相同且逐字读音有交集）的编码
      * 
      * @param keyword 关键词
      * @return 匹配的编码集合
      * @author daidasheng
-     * @date 2024-12-20
+     * @date 2026-10-16
      */
-    public Set<String> searchByPinyin(String keyword) {
+    public Set<String> searchByHomophone(String keyword) {
+        Snapshot current = snapshot;
         Set<String> codes = new HashSet<>();
-        String keywordPinyin = PinyinUtil.getPinyin(keyword);
-        
-        // 查找拼音相同的原始关键词
-        Set<String> matchedKeywords = new HashSet<>();
-        for (Map.Entry<String, Set<String>> entry : pinyinIndex.entrySet()) {
-            if (entry.getKey().contains(keywordPinyin) || keywordPinyin.contains(entry.getKey())) {
-                matchedKeywords.addAll(entry.getValue());
-            }
-        }
-        
-        // 通过匹配的关键词查找编码
-        for (String matchedKeyword : matchedKeywords) {
-            if (invertedIndex.containsKey(matchedKeyword)) {
-                codes.addAll(invertedIndex.get(matchedKeyword));
-            }
-        }
-        
+        current.pinyinIndex.searchHomophones(keyword, id -> codes.add(current.divisions.code(id)));
         return codes;
     }
     
@@ -195,7 +182,8 @@ public class AddressIndex {
      * @date 2024-12-20
      */
     public AdministrativeDivision getDivision(String code) {
-        return divisionMap.get(code);
+        DivisionFeatures features = getFeatures(code);
+        return features == null ? null : features.division();
     }
     
     /**
@@ -206,43 +194,79 @@ public class AddressIndex {
      * @date 2024-12-20
      */
     public Collection<AdministrativeDivision> getAllDivisions() {
-        return divisionMap.values();
+        return snapshot.divisions.asList();
     }
     
     /**
-     * 前缀树节点
+     * 获取行政区划的打分特征
      * 
+     * @param code 行政区划编码
+     * @return 打分特征，编码不存在时返回null
      * @author daidasheng
-     * @date 2024-12-20
+     * @date 2026-10-16
      */
-    private static class TrieNode {
-        private final Map<Character, TrieNode> children = new HashMap<>();
-        private final Set<String> codes = new HashSet<>();
+    DivisionFeatures getFeatures(String code) {
+        DivisionTable divisions = snapshot.divisions;
+        int id = divisions.find(code);
+        return id < 0 ? null : divisions.features(id);
+    }
+    
+    /**
+     * 获取索引统计信息（节点数、共享倒排列表数、估算字节数）
+     * 
+     * @return 统计信息
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("divisions", current.divisions.size());
+        stats.put("trieNodes", current.trie.nodeCount());
+        stats.put("distinctPostings", current.trie.distinctPostingCount());
+        stats.put("pinyinNames", current.pinyinIndex.nameCount());
+        stats.put("pinyinSyllables", current.pinyinIndex.syllableCount());
+        stats.put("trieBytes", current.trie.estimatedBytes());
+        return stats;
+    }
+    
+    /**
+     * 只读索引快照
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static final class Snapshot {
         
-        public TrieNode getOrCreateChild(char c) {
-            return children.computeIfAbsent(c, k -> new TrieNode());
-        }
+        private static final Snapshot EMPTY = new Snapshot(DivisionTable.build(new AdministrativeDivision[0]),
+                new CompactAddressTrie.Builder().build(), new AddressPinyinIndex.Builder().build());
         
-        public TrieNode getChild(char c) {
-            return children.get(c);
-        }
+        /**
+         * 行政区划表（编码ID -> 行政区划、编码 -> 编码ID）
+         */
+        private final DivisionTable divisions;
         
-        public void addCode(String code) {
-            codes.add(code);
-        }
+        /**
+         * 紧凑前缀树（含精确倒排和前缀倒排）
+         */
+        private final CompactAddressTrie trie;
         
-        public Set<String> getCodes() {
-            return codes;
-        }
+        /**
+         * 拼音索引
+         */
+        private final AddressPinyinIndex pinyinIndex;
         
-        public Map<Character, TrieNode> getChildren() {
-            return children;
+        private Snapshot(DivisionTable divisions, CompactAddressTrie trie, AddressPinyinIndex pinyinIndex) {
+            this.divisions = divisions;
+            this.trie = trie;
+            this.pinyinIndex = pinyinIndex;
         }
         
-        public void clear() {
-            children.clear();
-            codes.clear();
+        private void collect(int posting, Set<String> codes) {
+            int size = trie.postingSize(posting);
+            for (int i = 0; i < size; i++) {
+                codes.add(divisions.code(trie.postingId(posting, i)));
+            }
         }
     }
 }
-
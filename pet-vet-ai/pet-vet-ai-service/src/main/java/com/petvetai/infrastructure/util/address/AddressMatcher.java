@@ -4,7 +4,6 @@ import com.petvetai.infrastructure.util.PinyinUtil;
 
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * 地址匹配器
@@ -18,6 +17,13 @@ public class AddressMatcher {
     
     private final AddressIndex index;
     
+    /**
+     * 候选排序：分数低的在前，同分时遍历靠后的在前（小顶堆堆顶为当前最差的候选）
+     */
+    private static final Comparator<ScoredCandidate> WORST_FIRST = Comparator
+            .comparingDouble((ScoredCandidate candidate) -> candidate.score)
+            .thenComparing(Comparator.comparingInt((ScoredCandidate candidate) -> candidate.order).reversed());
+    
     // 行政区划关键词
     private static final Set<String> PROVINCE_KEYWORDS = Set.of("省", "自治区", "特别行政区");
     private static final Set<String> CITY_KEYWORDS = Set.of("市", "州", "盟", "地区");
@@ -28,6 +34,9 @@ public class AddressMatcher {
     private static final Pattern PROVINCE_PATTERN = Pattern.compile(".*?(省|自治区|特别行政区)");
     private static final Pattern CITY_PATTERN = Pattern.compile(".*?(市|州|盟|地区)");
     
+    // 标准化时去除的字符（空白和常见标点）
+    private static final Pattern NORMALIZE_PATTERN = Pattern.compile("[\\s,，。、]");
+    
     /**
      * 构造函数
      * 
@@ -52,33 +61,107 @@ public class AddressMatcher {
             return null;
         }
         
-        String normalizedAddress = normalizeAddress(inputAddress);
-        
-        // 1. 检测异常地址（多行政区划）
-        String abnormalReason = detectAbnormalAddress(normalizedAddress);
-        boolean isAbnormal = abnormalReason != null;
-        
-        // 2. 提取地址关键词
-        List<String> keywords = extractKeywords(normalizedAddress);
-        
-        // 3. 通过索引查找候选编码
-        Set<String> candidateCodes = findCandidateCodes(keywords);
-        
+        Query query = new Query(normalizeAddress(inputAddress));
+        List<MatchResult> results = selectTopK(query, 1);
+        if (results.isEmpty()) {
+            return new MatchResult(null, null, 0.0, query.abnormalReason != null, query.abnormalReason);
+        }
+        return results.get(0);
+    }
+    
+    /**
+     * 匹配地址，返回分数最高的前 k 个结果
+     * 
+     * 结果按分数从高到低排列，分数相同时的先后顺序与对全部候选排序后取前 k 个一致
+     * 
+     * @param inputAddress 输入地址
+     * @param k 返回结果数上限，必须大于0
+     * @return 匹配结果（没有候选时为空列表）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public List<MatchResult> match(String inputAddress, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须大于0: " + k);
+        }
+        if (inputAddress == null || inputAddress.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return selectTopK(new Query(normalizeAddress(inputAddress)), k);
+    }
+    
+    /**
+     * 标准化地址（去除空格、标点等），标准化结果相同的地址匹配结果也相同
+     * 
+     * @param inputAddress 输入地址
+     * @return 标准化后的地址，输入为null时返回空串
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public String normalize(String inputAddress) {
+        return inputAddress == null ? "" : normalizeAddress(inputAddress);
+    }
+    
+    /**
+     * 检测异常地址（多行政区划）
+     * 
+     * @param inputAddress 输入地址
+     * @return 异常原因，地址正常或为空时返回null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public String detectAbnormal(String inputAddress) {
+        if (inputAddress == null || inputAddress.trim().isEmpty()) {
+            return null;
+        }
+        return detectAbnormalAddress(normalizeAddress(inputAddress));
+    }
+    
+    /**
+     * 查找候选并选出前 k 个
+     * 
+     * 用大小为 k 的小顶堆保存当前最好的 k 个候选；堆满后先计算候选的分数上界（同音判断按命中计），
+     * 上界不超过堆顶分数的候选不可能进入前 k，直接跳过，不再做同音判断
+     * 
+     * @param query 查询
+     * @param k 返回结果数上限
+     * @return 按分数从高到低排列的结果
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private List<MatchResult> selectTopK(Query query, int k) {
+        // 1. 通过索引查找候选编码
+        Set<String> candidateCodes = findCandidateCodes(query.keywords);
         if (candidateCodes.isEmpty()) {
-            return new MatchResult(null, null, 0.0, isAbnormal, abnormalReason);
+            return Collections.emptyList();
         }
         
-        // 4. 计算匹配度并排序
-        List<MatchResult> results = candidateCodes.stream()
-                .map(code -> calculateMatchScore(code, normalizedAddress, keywords))
-                .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
-                .collect(Collectors.toList());
-        
-        MatchResult bestMatch = results.get(0);
-        bestMatch.setAbnormal(isAbnormal);
-        bestMatch.setAbnormalReason(abnormalReason);
+        // 2. 计算匹配度，只保留前 k 个（遍历顺序作为同分时的次序，与稳定排序一致）
+        PriorityQueue<ScoredCandidate> heap = new PriorityQueue<>(
+                Math.max(1, Math.min(k, candidateCodes.size())), WORST_FIRST);
+        int order = 0;
+        for (String code : candidateCodes) {
+            double floor = heap.size() < k ? -1.0 : heap.peek().score;
+            DivisionFeatures features = index.getFeatures(code);
+            double score = features == null ? 0.0 : calculateMatchScore(features, query, floor);
+            if (score > floor) {
+                if (heap.size() == k) {
+                    heap.poll();
+                }
+                heap.add(new ScoredCandidate(order, code, features, score));
+            }
+            order++;
+        }
         
-        return bestMatch;
+        List<ScoredCandidate> selected = new ArrayList<>(heap);
+        selected.sort(WORST_FIRST.reversed());
+        List<MatchResult> results = new ArrayList<>(selected.size());
+        boolean isAbnormal = query.abnormalReason != null;
+        for (ScoredCandidate candidate : selected) {
+            AdministrativeDivision division = candidate.features == null ? null : candidate.features.division();
+            results.add(new MatchResult(candidate.code, division, candidate.score, isAbnormal, query.abnormalReason));
+        }
+        return results;
     }
     
     /**
@@ -90,7 +173,7 @@ public class AddressMatcher {
      * @date 2024-12-20
      */
     private String normalizeAddress(String address) {
-        return address.replaceAll("[\\s,，。、]", "");
+        return NORMALIZE_PATTERN.matcher(address).replaceAll("");
     }
     
     /**
@@ -249,15 +332,8 @@ public class AddressMatcher {
             // 精确匹配
             candidateCodes.addAll(index.searchByKeyword(keyword));
             
-            // 同音字匹配
-            for (AdministrativeDivision division : index.getAllDivisions()) {
-                String[] levels = division.getLevels();
-                for (String level : levels) {
-                    if (level != null && PinyinUtil.isHomophone(keyword, level)) {
-                        candidateCodes.add(division.getCode());
-                    }
-                }
-            }
+            // 同音字匹配（拼音 n-gram 索引，只校验候选名称）
+            candidateCodes.addAll(index.searchByHomophone(keyword));
         }
         
         return candidateCodes;
@@ -266,23 +342,21 @@ public class AddressMatcher {
     /**
      * 计算匹配度分数
      * 
-     * @param code 行政区划编码
-     * @param inputAddress 输入地址
-     * @param keywords 关键词列表
-     * @return 匹配结果
+     * 先计算不需要同音判断的部分；层级不相等的位置暂按同音（8分）计入上界，
+     * 上界不超过 floor 时直接返回，否则再逐个做同音判断得到准确分数
+     * 
+     * @param features 行政区划打分特征
+     * @param query 查询
+     * @param floor 需要超过的分数（堆未满时为 -1）
+     * @return 匹配分数；不可能超过 floor 时返回不超过 floor 的上界
      * @author daidasheng
      * @date 2024-12-20
      */
-    private MatchResult calculateMatchScore(String code, String inputAddress, List<String> keywords) {
-        AdministrativeDivision division = index.getDivision(code);
-        if (division == null) {
-            return new MatchResult(code, null, 0.0);
-        }
-        
+    private double calculateMatchScore(DivisionFeatures features, Query query, double floor) {
         double score = 0.0;
-        String fullAddress = division.getFullAddress();
-        String[] levels = division.getLevels();
-        String[] inputLevels = parseAddressLevels(inputAddress);
+        String inputAddress = query.normalizedAddress;
+        String fullAddress = features.fullAddress();
+        String[] inputLevels = query.inputLevels;
         
         // 1. 完整地址匹配（权重最高）
         if (inputAddress.equals(fullAddress)) {
@@ -291,44 +365,126 @@ public class AddressMatcher {
             score += 30.0;
         }
         
-        // 2. 层级匹配
-        for (int i = 0; i < Math.min(levels.length, inputLevels.length); i++) {
-            if (levels[i] != null && inputLevels[i] != null) {
-                if (levels[i].equals(inputLevels[i])) {
+        // 2. 层级匹配（不相等的层级先记下，稍后做同音判断）
+        int levelCount = Math.min(features.levelCount(), inputLevels.length);
+        int pendingMask = 0;
+        int pendingCount = 0;
+        for (int i = 0; i < levelCount; i++) {
+            String level = features.level(i);
+            if (level != null && inputLevels[i] != null) {
+                if (level.equals(inputLevels[i])) {
                     score += 10.0;
-                } else if (PinyinUtil.isHomophone(levels[i], inputLevels[i])) {
-                    score += 8.0; // 同音字匹配分数稍低
-                } else if (levels[i].contains(inputLevels[i]) || inputLevels[i].contains(levels[i])) {
-                    score += 5.0;
+                } else {
+                    pendingMask |= 1 << i;
+                    pendingCount++;
                 }
             }
         }
         
         // 3. 部分匹配（处理缺少层级的情况）
-        if (inputLevels[0] == null && levels[1] != null) {
+        if (inputLevels[0] == null && features.level(1) != null) {
             // 缺少省份，但城市匹配
-            if (inputAddress.contains(levels[1])) {
+            if (inputAddress.contains(features.level(1))) {
                 score += 15.0;
             }
         }
-        if (inputLevels[1] == null && levels[2] != null) {
+        if (inputLevels[1] == null && features.level(2) != null) {
             // 缺少城市，但区匹配
-            if (inputAddress.contains(levels[2])) {
+            if (inputAddress.contains(features.level(2))) {
                 score += 10.0;
             }
         }
         
         // 4. 关键词匹配
-        for (String keyword : keywords) {
+        for (String keyword : query.keywords) {
             if (fullAddress.contains(keyword)) {
                 score += 2.0;
             }
         }
         
+        // 上界：未决层级全部按同音计分
+        double upperBound = Math.min(100.0, score + 8.0 * pendingCount);
+        if (upperBound <= floor) {
+            return upperBound;
+        }
+        
+        for (int i = 0; i < levelCount; i++) {
+            if ((pendingMask & (1 << i)) != 0) {
+                String level = features.level(i);
+                if (query.isHomophone(i, level)) {
+                    score += 8.0; // 同音字匹配分数稍低
+                } else if (level.contains(inputLevels[i]) || inputLevels[i].contains(level)) {
+                    score += 5.0;
+                }
+            }
+        }
+        
         // 5. 归一化分数（0-100）
-        score = Math.min(100.0, score);
+        return Math.min(100.0, score);
+    }
+    
+    /**
+     * 单次匹配的查询上下文：标准化地址、异常原因、关键词和输入层级只计算一次
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private final class Query {
+        
+        private final String normalizedAddress;
+        
+        private final String abnormalReason;
+        
+        private final List<String> keywords;
+        
+        private final String[] inputLevels;
+        
+        /**
+         * 各层级的同音判断结果缓存（候选之间省市区名称大量重复）
+         */
+        private final Map<String, Boolean>[] homophoneMemo;
+        
+        @SuppressWarnings("unchecked")
+        private Query(String normalizedAddress) {
+            this.normalizedAddress = normalizedAddress;
+            // 检测异常地址（多行政区划）
+            this.abnormalReason = detectAbnormalAddress(normalizedAddress);
+            // 提取地址关键词
+            this.keywords = extractKeywords(normalizedAddress);
+            this.inputLevels = parseAddressLevels(normalizedAddress);
+            this.homophoneMemo = new Map[inputLevels.length];
+        }
+        
+        private boolean isHomophone(int i, String level) {
+            if (homophoneMemo[i] == null) {
+                homophoneMemo[i] = new HashMap<>();
+            }
+            return homophoneMemo[i].computeIfAbsent(level, l -> PinyinUtil.isHomophone(l, inputLevels[i]));
+        }
+    }
+    
+    /**
+     * 已打分的候选
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static final class ScoredCandidate {
+        
+        private final int order;
+        
+        private final String code;
         
-        return new MatchResult(code, division, score);
+        private final DivisionFeatures features;
+        
+        private final double score;
+        
+        private ScoredCandidate(int order, String code, DivisionFeatures features, double score) {
+            this.order = order;
+            this.code = code;
+            this.features = features;
+            this.score = score;
+        }
     }
 }
 
@@ -0,0 +1,668 @@
+package com.petvetai.infrastructure.util.address;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 地址拼音索引（构建后只读）
+ * 
+ * 加载时为每个行政区划名称计算一次去声调的音节序列（多音字每个位置保留多个读音）和首字母，
+ * 并按音节 n-gram 建立倒排，查询时只校验 n-gram 命中的少量名称，不再逐条展开全部拼音组合：
+ * - 首部索引：名称前两个音节（单字名称为首音节）-> 名称，用于同音查询和"输入包含名称"查询
+ * - 二元组索引：名称任意位置相邻两个音节 -> 名称，用于"名称包含输入"查询
+ * - 一元组索引：名称任意位置的音节 -> 名称，用于单字输入
+ * - 全拼和首字母索引：用于直接输入拼音（如 yuhang、yhq）
+ * 
+ * 两个字符串同音的判定为：长度相同且每个位置的读音集合有交集（按音节对齐，不再比较拼接后的字符串）。
+ * 多音字每个字最多取前 {@value #MAX_READINGS_PER_CHAR} 个读音参与索引和比较，
+ * 单个名称的 n-gram 个数因此有上限，不会因多音字组合爆炸
+ * 
+ * 除音节表外，所有结构都存放在基本类型缓冲区中：n-gram 索引为开放寻址哈希表，值为倒排列表在共享池中的偏移，
+ * 可以直接指向内存映射的快照分区。全拼和首字母以 64 位哈希为键，命中后用名称的读音校验，哈希冲突不影响结果
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class AddressPinyinIndex {
+    
+    /**
+     * 每个字参与索引的最大读音数
+     */
+    static final int MAX_READINGS_PER_CHAR = 3;
+    
+    /**
+     * 单音节名称在首部索引中的第二个音节占位
+     */
+    private static final int NONE = -1;
+    
+    /**
+     * 哈希表中不存在的键
+     */
+    private static final int NO_POSTING = -1;
+    
+    private static final int[] EMPTY = new int[0];
+    
+    /**
+     * 音节ID -> 音节
+     */
+    private final String[] syllables;
+    
+    /**
+     * 音节 -> 音节ID
+     */
+    private final Map<String, Integer> syllableIds;
+    
+    /**
+     * 名称ID -> 第一个位置在 positionStarts 中的下标，长度为名称数 + 1
+     */
+    private final IntBuffer nameStarts;
+    
+    /**
+     * 位置 -> 第一个读音在 readings 中的下标，长度为位置总数 + 1
+     */
+    private final IntBuffer positionStarts;
+    
+    /**
+     * 所有位置的读音（音节ID）
+     */
+    private final IntBuffer readings;
+    
+    /**
+     * 名称ID -> 行政区划ID倒排列表的偏移（该名称作为某一层级出现的所有行政区划）
+     */
+    private final IntBuffer nameDivisions;
+    
+    /**
+     * 首部索引
+     */
+    private final LongIntHashTable headIndex;
+    
+    /**
+     * 二元组索引
+     */
+    private final LongIntHashTable bigramIndex;
+    
+    /**
+     * 一元组索引
+     */
+    private final LongIntHashTable unigramIndex;
+    
+    /**
+     * 全拼（各字首个读音拼接）的哈希 -> 名称ID倒排列表的偏移
+     */
+    private final LongIntHashTable fullPinyinIndex;
+    
+    /**
+     * 首字母（各字首个读音的首字母拼接）的哈希 -> 名称ID倒排列表的偏移
+     */
+    private final LongIntHashTable initialsIndex;
+    
+    /**
+     * 倒排列表池：每个列表为 [长度, id1, id2, ...]，名称ID列表和行政区划ID列表共用
+     */
+    private final IntBuffer pool;
+    
+    private AddressPinyinIndex(String[] syllables, IntBuffer nameStarts, IntBuffer positionStarts, IntBuffer readings,
+                               IntBuffer nameDivisions, LongIntHashTable headIndex, LongIntHashTable bigramIndex,
+                               LongIntHashTable unigramIndex, LongIntHashTable fullPinyinIndex,
+                               LongIntHashTable initialsIndex, IntBuffer pool) {
+        this.syllables = syllables;
+        this.syllableIds = new HashMap<>(syllables.length * 2);
+        for (int i = 0; i < syllables.length; i++) {
+            syllableIds.put(syllables[i], i);
+        }
+        this.nameStarts = nameStarts;
+        this.positionStarts = positionStarts;
+        this.readings = readings;
+        this.nameDivisions = nameDivisions;
+        this.headIndex = headIndex;
+        this.bigramIndex = bigramIndex;
+        this.unigramIndex = unigramIndex;
+        this.fullPinyinIndex = fullPinyinIndex;
+        this.initialsIndex = initialsIndex;
+        this.pool = pool;
+    }
+    
+    /**
+     * 查找与文本同音的名称
+     * 
+     * @param text 文本
+     * @param visitor 命中名称对应的行政区划ID回调
+     */
+    void searchHomophones(String text, DivisionVisitor visitor) {
+        int[][] query = toQuery(text);
+        if (query.length == 0) {
+            return;
+        }
+        for (int name : candidates(headIndex, query, 0, query.length == 1)) {
+            if (length(name) == query.length && matchesAt(name, 0, query, 0, query.length)) {
+                visitDivisions(name, visitor);
+            }
+        }
+    }
+    
+    /**
+     * 拼音模糊查找：名称包含文本、文本包含名称（均按音节对齐），以及直接输入的全拼或首字母
+     * 
+     * @param text 文本
+     * @param visitor 命中名称对应的行政区划ID回调
+     */
+    void searchFuzzy(String text, DivisionVisitor visitor) {
+        int[][] query = toQuery(text);
+        if (query.length == 0) {
+            return;
+        }
+        
+        // 名称包含文本：取命中名称最少的一组相邻音节作为候选来源
+        int[] candidates;
+        if (query.length == 1) {
+            candidates = unigramCandidates(query[0]);
+        } else {
+            candidates = candidates(bigramIndex, query, 0, false);
+            for (int i = 1; i + 1 < query.length && candidates.length > 0; i++) {
+                int[] current = candidates(bigramIndex, query, i, false);
+                if (current.length < candidates.length) {
+                    candidates = current;
+                }
+            }
+        }
+        for (int name : candidates) {
+            if (containsQuery(name, query)) {
+                visitDivisions(name, visitor);
+            }
+        }
+        
+        // 文本包含名称：以文本的每个位置作为名称起点查首部索引
+        for (int start = 0; start < query.length; start++) {
+            for (int name : candidates(headIndex, query, start, true)) {
+                int nameLength = length(name);
+                if (nameLength <= query.length - start && matchesAt(name, 0, query, start, nameLength)) {
+                    visitDivisions(name, visitor);
+                }
+            }
+            if (start + 1 < query.length) {
+                for (int name : candidates(headIndex, query, start, false)) {
+                    int nameLength = length(name);
+                    if (nameLength <= query.length - start && matchesAt(name, 0, query, start, nameLength)) {
+                        visitDivisions(name, visitor);
+                    }
+                }
+            }
+        }
+        
+        // 直接输入拼音或首字母
+        if (isAsciiLetters(text)) {
+            String lower = text.toLowerCase(Locale.ROOT);
+            for (int name : posting(fullPinyinIndex, stringKey(lower))) {
+                if (firstReadingsMatch(name, lower, false)) {
+                    visitDivisions(name, visitor);
+                }
+            }
+            for (int name : posting(initialsIndex, stringKey(lower))) {
+                if (firstReadingsMatch(name, lower, true)) {
+                    visitDivisions(name, visitor);
+                }
+            }
+        }
+    }
+    
+    int nameCount() {
+        return nameDivisions.capacity();
+    }
+    
+    int syllableCount() {
+        return syllables.length;
+    }
+    
+    /**
+     * 写入快照
+     * 
+     * @param writer 快照写入器
+     */
+    void writeTo(AddressSnapshot.Writer writer) {
+        StringBuilder syllableChars = new StringBuilder();
+        int[] syllableStarts = new int[syllables.length + 1];
+        for (int i = 0; i < syllables.length; i++) {
+            syllableStarts[i] = syllableChars.length();
+            syllableChars.append(syllables[i]);
+        }
+        syllableStarts[syllables.length] = syllableChars.length();
+        
+        writer.putChars(AddressSnapshot.PINYIN_SYLLABLE_CHARS, CharBuffer.wrap(syllableChars.toString().toCharArray()))
+                .putInts(AddressSnapshot.PINYIN_SYLLABLE_STARTS, IntBuffer.wrap(syllableStarts))
+                .putInts(AddressSnapshot.PINYIN_NAME_STARTS, nameStarts)
+                .putInts(AddressSnapshot.PINYIN_POSITION_STARTS, positionStarts)
+                .putInts(AddressSnapshot.PINYIN_READINGS, readings)
+                .putInts(AddressSnapshot.PINYIN_NAME_DIVISIONS, nameDivisions)
+                .putLongs(AddressSnapshot.PINYIN_HEAD_KEYS, headIndex.keys())
+                .putInts(AddressSnapshot.PINYIN_HEAD_VALUES, headIndex.values())
+                .putLongs(AddressSnapshot.PINYIN_BIGRAM_KEYS, bigramIndex.keys())
+                .putInts(AddressSnapshot.PINYIN_BIGRAM_VALUES, bigramIndex.values())
+                .putLongs(AddressSnapshot.PINYIN_UNIGRAM_KEYS, unigramIndex.keys())
+                .putInts(AddressSnapshot.PINYIN_UNIGRAM_VALUES, unigramIndex.values())
+                .putLongs(AddressSnapshot.PINYIN_FULL_KEYS, fullPinyinIndex.keys())
+                .putInts(AddressSnapshot.PINYIN_FULL_VALUES, fullPinyinIndex.values())
+                .putLongs(AddressSnapshot.PINYIN_INITIALS_KEYS, initialsIndex.keys())
+                .putInts(AddressSnapshot.PINYIN_INITIALS_VALUES, initialsIndex.values())
+                .putInts(AddressSnapshot.PINYIN_POSTING_POOL, pool);
+    }
+    
+    /**
+     * 从快照加载（除音节表外直接引用快照分区，不复制）
+     * 
+     * @param snapshot 快照
+     * @return 拼音索引
+     * @throws IOException 缺少分区或分区长度不一致
+     */
+    static AddressPinyinIndex readFrom(AddressSnapshot snapshot) throws IOException {
+        CharBuffer syllableChars = snapshot.chars(AddressSnapshot.PINYIN_SYLLABLE_CHARS);
+        IntBuffer syllableStarts = snapshot.ints(AddressSnapshot.PINYIN_SYLLABLE_STARTS);
+        IntBuffer nameStarts = snapshot.ints(AddressSnapshot.PINYIN_NAME_STARTS);
+        IntBuffer positionStarts = snapshot.ints(AddressSnapshot.PINYIN_POSITION_STARTS);
+        IntBuffer nameDivisions = snapshot.ints(AddressSnapshot.PINYIN_NAME_DIVISIONS);
+        if (syllableStarts.capacity() < 1 || nameStarts.capacity() != nameDivisions.capacity() + 1
+                || positionStarts.capacity() < 1) {
+            throw new IOException("地址索引快照拼音索引分区长度不一致");
+        }
+        String[] syllables = new String[syllableStarts.capacity() - 1];
+        for (int i = 0; i < syllables.length; i++) {
+            syllables[i] = syllableChars.subSequence(syllableStarts.get(i), syllableStarts.get(i + 1)).toString();
+        }
+        try {
+            return new AddressPinyinIndex(syllables, nameStarts, positionStarts,
+                    snapshot.ints(AddressSnapshot.PINYIN_READINGS), nameDivisions,
+                    table(snapshot, AddressSnapshot.PINYIN_HEAD_KEYS, AddressSnapshot.PINYIN_HEAD_VALUES),
+                    table(snapshot, AddressSnapshot.PINYIN_BIGRAM_KEYS, AddressSnapshot.PINYIN_BIGRAM_VALUES),
+                    table(snapshot, AddressSnapshot.PINYIN_UNIGRAM_KEYS, AddressSnapshot.PINYIN_UNIGRAM_VALUES),
+                    table(snapshot, AddressSnapshot.PINYIN_FULL_KEYS, AddressSnapshot.PINYIN_FULL_VALUES),
+                    table(snapshot, AddressSnapshot.PINYIN_INITIALS_KEYS, AddressSnapshot.PINYIN_INITIALS_VALUES),
+                    snapshot.ints(AddressSnapshot.PINYIN_POSTING_POOL));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("地址索引快照拼音索引损坏: " + e.getMessage(), e);
+        }
+    }
+    
+    private static LongIntHashTable table(AddressSnapshot snapshot, int keysId, int valuesId) throws IOException {
+        return new LongIntHashTable(snapshot.longs(keysId), snapshot.ints(valuesId));
+    }
+    
+    /**
+     * 回调名称对应的所有行政区划ID
+     */
+    private void visitDivisions(int name, DivisionVisitor visitor) {
+        int offset = nameDivisions.get(name);
+        int size = pool.get(offset);
+        for (int i = 1; i <= size; i++) {
+            visitor.visit(pool.get(offset + i));
+        }
+    }
+    
+    /**
+     * 读取哈希表中键对应的名称ID倒排列表
+     * 
+     * @param table 哈希表
+     * @param key 键
+     * @return 名称ID（升序），键不存在时为空数组
+     */
+    private int[] posting(LongIntHashTable table, long key) {
+        int offset = table.get(key, NO_POSTING);
+        if (offset == NO_POSTING) {
+            return EMPTY;
+        }
+        int[] names = new int[pool.get(offset)];
+        pool.get(offset + 1, names);
+        return names;
+    }
+    
+    /**
+     * 名称各字首个读音拼接（或其首字母拼接）是否等于输入，用于排除全拼和首字母哈希冲突
+     * 
+     * @param name 名称ID
+     * @param lower 小写输入
+     * @param initials 是否只比较首字母
+     * @return 是否相等
+     */
+    private boolean firstReadingsMatch(int name, String lower, boolean initials) {
+        int offset = 0;
+        for (int position = nameStarts.get(name); position < nameStarts.get(name + 1); position++) {
+            String syllable = syllables[readings.get(positionStarts.get(position))];
+            int length = initials ? 1 : syllable.length();
+            if (!lower.regionMatches(true, offset, syllable, 0, length)) {
+                return false;
+            }
+            offset += length;
+        }
+        return offset == lower.length();
+    }
+    
+    /**
+     * 将文本转换为按位置排列的读音ID集合；索引中不存在的读音直接丢弃（该位置不可能与任何名称对齐）
+     * 
+     * @param text 文本
+     * @return 每个位置的读音ID
+     */
+    private int[][] toQuery(String text) {
+        if (text == null || text.isEmpty()) {
+            return new int[0][];
+        }
+        int[][] query = new int[text.length()][];
+        for (int i = 0; i < text.length(); i++) {
+            String[] syllables = syllablesOf(text.charAt(i));
+            int[] ids = new int[syllables.length];
+            int size = 0;
+            for (String syllable : syllables) {
+                Integer id = syllableIds.get(syllable);
+                if (id != null) {
+                    ids[size++] = id;
+                }
+            }
+            query[i] = size == ids.length ? ids : Arrays.copyOf(ids, size);
+        }
+        return query;
+    }
+    
+    /**
+     * 从 n-gram 索引取候选名称（多音字各读音组合的并集）
+     * 
+     * @param index 首部索引或二元组索引
+     * @param query 查询读音
+     * @param position 起始位置
+     * @param unigram 是否按单音节名称查找（第二个音节为占位）
+     * @return 候选名称ID
+     */
+    private int[] candidates(LongIntHashTable index, int[][] query, int position, boolean unigram) {
+        if (unigram) {
+            return union(index, query[position], new int[]{NONE});
+        }
+        return union(index, query[position], query[position + 1]);
+    }
+    
+    private int[] union(LongIntHashTable index, int[] first, int[] second) {
+        int[] single = null;
+        List<int[]> postings = null;
+        for (int a : first) {
+            for (int b : second) {
+                int[] posting = posting(index, key(a, b));
+                if (posting.length == 0) {
+                    continue;
+                }
+                if (single == null) {
+                    single = posting;
+                } else {
+                    if (postings == null) {
+                        postings = new ArrayList<>();
+                        postings.add(single);
+                    }
+                    postings.add(posting);
+                }
+            }
+        }
+        if (postings == null) {
+            return single == null ? EMPTY : single;
+        }
+        return mergeSorted(postings);
+    }
+    
+    private int[] unigramCandidates(int[] syllables) {
+        List<int[]> postings = new ArrayList<>(syllables.length);
+        for (int syllable : syllables) {
+            int[] posting = posting(unigramIndex, syllable);
+            if (posting.length > 0) {
+                postings.add(posting);
+            }
+        }
+        if (postings.isEmpty()) {
+            return EMPTY;
+        }
+        return postings.size() == 1 ? postings.get(0) : mergeSorted(postings);
+    }
+    
+    /**
+     * 名称是否在某个对齐位置包含整个查询
+     * 
+     * @param name 名称ID
+     * @param query 查询读音
+     * @return 是否包含
+     */
+    private boolean containsQuery(int name, int[][] query) {
+        int nameLength = length(name);
+        for (int start = 0; start + query.length <= nameLength; start++) {
+            if (matchesAt(name, start, query, 0, query.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 名称从 nameOffset 开始的 length 个位置是否与查询从 queryOffset 开始的位置逐一有共同读音
+     */
+    private boolean matchesAt(int name, int nameOffset, int[][] query, int queryOffset, int length) {
+        int base = nameStarts.get(name) + nameOffset;
+        for (int i = 0; i < length; i++) {
+            if (!intersects(base + i, query[queryOffset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean intersects(int position, int[] syllables) {
+        for (int r = positionStarts.get(position); r < positionStarts.get(position + 1); r++) {
+            int reading = readings.get(r);
+            for (int syllable : syllables) {
+                if (reading == syllable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private int length(int name) {
+        return nameStarts.get(name + 1) - nameStarts.get(name);
+    }
+    
+    private static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * 字符串的 64 位 FNV-1a 哈希（清除符号位，不会与哈希表的空槽标记冲突）
+     */
+    private static long stringKey(String text) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash & Long.MAX_VALUE;
+    }
+    
+    /**
+     * 获取字符的读音（最多 MAX_READINGS_PER_CHAR 个）；非汉字字符以字符本身作为音节
+     * 
+     * @param c 字符
+     * @return 读音
+     */
+    private static String[] syllablesOf(char c) {
+        String[] pinyins = PinyinUtil.getPinyinArray(c);
+        if (pinyins.length == 0) {
+            return new String[]{String.valueOf(c)};
+        }
+        return pinyins.length <= MAX_READINGS_PER_CHAR ? pinyins : Arrays.copyOf(pinyins, MAX_READINGS_PER_CHAR);
+    }
+    
+    private static boolean isAsciiLetters(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 合并多个升序ID列表（去重）
+     */
+    private static int[] mergeSorted(List<int[]> postings) {
+        CompactAddressTrie.IntList merged = new CompactAddressTrie.IntList();
+        for (int[] posting : postings) {
+            for (int id : posting) {
+                merged.add(id);
+            }
+        }
+        return merged.toSortedUnique();
+    }
+    
+    /**
+     * 命中名称的回调
+     */
+    @FunctionalInterface
+    interface DivisionVisitor {
+        
+        /**
+         * 访问命中名称对应的行政区划ID
+         * 
+         * @param divisionId 行政区划ID（同一名称内升序）
+         */
+        void visit(int divisionId);
+    }
+    
+    /**
+     * 构建器（仅在构建期间使用）
+     */
+    static final class Builder {
+        
+        /**
+         * 名称 -> 行政区划ID，保持首次出现的顺序
+         */
+        private final Map<String, CompactAddressTrie.IntList> names = new LinkedHashMap<>();
+        
+        /**
+         * 添加名称
+         * 
+         * @param name 行政区划某一层级的名称
+         * @param divisionId 行政区划ID
+         */
+        void add(String name, int divisionId) {
+            if (name.isEmpty()) {
+                return;
+            }
+            names.computeIfAbsent(name, k -> new CompactAddressTrie.IntList()).add(divisionId);
+        }
+        
+        AddressPinyinIndex build() {
+            Map<String, Integer> syllableIds = new HashMap<>();
+            List<String> syllables = new ArrayList<>();
+            Map<Character, int[]> charReadings = new HashMap<>();
+            
+            int nameCount = names.size();
+            int[] nameStarts = new int[nameCount + 1];
+            CompactAddressTrie.IntList positionStarts = new CompactAddressTrie.IntList();
+            CompactAddressTrie.IntList readings = new CompactAddressTrie.IntList();
+            CompactAddressTrie.PostingPool pool = new CompactAddressTrie.PostingPool();
+            int[] nameDivisions = new int[nameCount];
+            Map<Long, CompactAddressTrie.IntList> headIndex = new HashMap<>();
+            Map<Long, CompactAddressTrie.IntList> bigramIndex = new HashMap<>();
+            Map<Long, CompactAddressTrie.IntList> unigramIndex = new HashMap<>();
+            Map<Long, CompactAddressTrie.IntList> fullPinyinIndex = new HashMap<>();
+            Map<Long, CompactAddressTrie.IntList> initialsIndex = new HashMap<>();
+            
+            int name = 0;
+            for (Map.Entry<String, CompactAddressTrie.IntList> entry : names.entrySet()) {
+                String text = entry.getKey();
+                nameDivisions[name] = pool.intern(entry.getValue().toSortedUnique());
+                nameStarts[name] = positionStarts.size();
+                
+                int[][] positions = new int[text.length()][];
+                StringBuilder fullPinyin = new StringBuilder();
+                StringBuilder initials = new StringBuilder();
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    positions[i] = charReadings.computeIfAbsent(c, k -> {
+                        String[] charSyllables = syllablesOf(k);
+                        int[] ids = new int[charSyllables.length];
+                        for (int j = 0; j < charSyllables.length; j++) {
+                            ids[j] = syllableIds.computeIfAbsent(charSyllables[j], syllable -> {
+                                syllables.add(syllable);
+                                return syllables.size() - 1;
+                            });
+                        }
+                        return ids;
+                    });
+                    positionStarts.add(readings.size());
+                    for (int id : positions[i]) {
+                        readings.add(id);
+                    }
+                    String first = syllables.get(positions[i][0]);
+                    fullPinyin.append(first);
+                    initials.append(first.charAt(0));
+                }
+                
+                // 首部：前两个音节，单字名称为首音节 + 占位
+                for (int a : positions[0]) {
+                    if (positions.length == 1) {
+                        addPosting(headIndex, key(a, NONE), name);
+                    } else {
+                        for (int b : positions[1]) {
+                            addPosting(headIndex, key(a, b), name);
+                        }
+                    }
+                }
+                for (int i = 0; i < positions.length; i++) {
+                    for (int a : positions[i]) {
+                        addPosting(unigramIndex, (long) a, name);
+                        if (i + 1 < positions.length) {
+                            for (int b : positions[i + 1]) {
+                                addPosting(bigramIndex, key(a, b), name);
+                            }
+                        }
+                    }
+                }
+                addPosting(fullPinyinIndex, stringKey(fullPinyin.toString().toLowerCase(Locale.ROOT)), name);
+                addPosting(initialsIndex, stringKey(initials.toString().toLowerCase(Locale.ROOT)), name);
+                name++;
+            }
+            nameStarts[nameCount] = positionStarts.size();
+            positionStarts.add(readings.size());
+            
+            LongIntHashTable head = freeze(headIndex, pool);
+            LongIntHashTable bigram = freeze(bigramIndex, pool);
+            LongIntHashTable unigram = freeze(unigramIndex, pool);
+            LongIntHashTable full = freeze(fullPinyinIndex, pool);
+            LongIntHashTable initialsTable = freeze(initialsIndex, pool);
+            return new AddressPinyinIndex(syllables.toArray(new String[0]), IntBuffer.wrap(nameStarts),
+                    IntBuffer.wrap(positionStarts.toArray()), IntBuffer.wrap(readings.toArray()),
+                    IntBuffer.wrap(nameDivisions), head, bigram, unigram, full, initialsTable,
+                    IntBuffer.wrap(pool.toArray()));
+        }
+        
+        private static void addPosting(Map<Long, CompactAddressTrie.IntList> index, Long key, int name) {
+            index.computeIfAbsent(key, k -> new CompactAddressTrie.IntList()).add(name);
+        }
+        
+        /**
+         * 将倒排列表放入共享池，冻结为 键 -> 池偏移 的哈希表
+         */
+        private static LongIntHashTable freeze(Map<Long, CompactAddressTrie.IntList> index,
+                                               CompactAddressTrie.PostingPool pool) {
+            Map<Long, Integer> offsets = new HashMap<>(index.size() * 4 / 3 + 1);
+            for (Map.Entry<Long, CompactAddressTrie.IntList> entry : index.entrySet()) {
+                offsets.put(entry.getKey(), pool.intern(entry.getValue().toSortedUnique()));
+            }
+            return LongIntHashTable.of(offsets);
+        }
+    }
+}
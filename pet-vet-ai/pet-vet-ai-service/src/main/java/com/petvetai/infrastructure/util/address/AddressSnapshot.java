@@ -0,0 +1,328 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 地址索引二进制快照
+ * 
+ * 快照由离线构建工具（{@link AddressSnapshotBuilder}）生成，运行时以只读方式内存映射，
+ * 索引直接在映射的页面上查询，不再反序列化：启动只需校验文件，同一台机器上的多个进程共享同一份页缓存。
+ * 
+ * 文件格式（小端序）：
+ * <pre>
+ * 文件头  magic(int) version(int) sectionCount(int) tableCrc(int)
+ * 分区表  sectionCount 项，每项 id(int) type(int) offset(long) length(long) crc(int) reserved(int)
+ * 分区    每个分区为一个基本类型数组（char/int/long），按 8 字节对齐
+ * </pre>
+ * tableCrc 为分区表的 CRC32，每个分区另有自己的 CRC32。格式变化时递增 {@link #VERSION}，
+ * 版本不一致的快照直接拒绝加载，由调用方回退到从原始数据构建
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class AddressSnapshot {
+    
+    /**
+     * 文件标识："PVAS"
+     */
+    static final int MAGIC = 0x50564153;
+    
+    /**
+     * 格式版本
+     */
+    static final int VERSION = 1;
+    
+    /**
+     * 文件头长度（字节）
+     */
+    static final int HEADER_BYTES = 16;
+    
+    /**
+     * 分区表每项长度（字节）
+     */
+    static final int SECTION_ENTRY_BYTES = 32;
+    
+    static final int TYPE_CHAR = 1;
+    
+    static final int TYPE_INT = 2;
+    
+    static final int TYPE_LONG = 3;
+    
+    /* 行政区划表 */
+    
+    static final int DIVISION_STRINGS = 1;
+    
+    static final int DIVISION_ROWS = 2;
+    
+    static final int DIVISION_CODE_ORDER = 3;
+    
+    /* 前缀树 */
+    
+    static final int TRIE_EDGE_CHARS = 10;
+    
+    static final int TRIE_EDGE_TARGETS = 11;
+    
+    static final int TRIE_FIRST_EDGE = 12;
+    
+    static final int TRIE_PREFIX_POSTINGS = 13;
+    
+    static final int TRIE_EXACT_POSTINGS = 14;
+    
+    static final int TRIE_POSTING_POOL = 15;
+    
+    /* 拼音索引 */
+    
+    static final int PINYIN_SYLLABLE_CHARS = 20;
+    
+    static final int PINYIN_SYLLABLE_STARTS = 21;
+    
+    static final int PINYIN_NAME_STARTS = 22;
+    
+    static final int PINYIN_POSITION_STARTS = 23;
+    
+    static final int PINYIN_READINGS = 24;
+    
+    static final int PINYIN_NAME_DIVISIONS = 25;
+    
+    static final int PINYIN_HEAD_KEYS = 26;
+    
+    static final int PINYIN_HEAD_VALUES = 27;
+    
+    static final int PINYIN_BIGRAM_KEYS = 28;
+    
+    static final int PINYIN_BIGRAM_VALUES = 29;
+    
+    static final int PINYIN_UNIGRAM_KEYS = 30;
+    
+    static final int PINYIN_UNIGRAM_VALUES = 31;
+    
+    static final int PINYIN_FULL_KEYS = 32;
+    
+    static final int PINYIN_FULL_VALUES = 33;
+    
+    static final int PINYIN_INITIALS_KEYS = 34;
+    
+    static final int PINYIN_INITIALS_VALUES = 35;
+    
+    static final int PINYIN_POSTING_POOL = 36;
+    
+    /**
+     * 分区ID -> 分区内容（已切片并设置字节序）
+     */
+    private final Map<Integer, ByteBuffer> sections;
+    
+    /**
+     * 分区ID -> 元素类型
+     */
+    private final Map<Integer, Integer> types;
+    
+    private AddressSnapshot(Map<Integer, ByteBuffer> sections, Map<Integer, Integer> types) {
+        this.sections = sections;
+        this.types = types;
+    }
+    
+    /**
+     * 以只读内存映射方式打开快照并校验文件头、分区表和各分区的校验和
+     * 
+     * @param file 快照文件
+     * @return 快照
+     * @throws IOException 读取失败、格式或版本不支持、校验和不一致
+     */
+    static AddressSnapshot map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是地址索引快照文件: " + file);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("不支持的地址索引快照版本: " + version + "，当前版本: " + VERSION);
+        }
+        int sectionCount = buffer.getInt(8);
+        long tableEnd = HEADER_BYTES + (long) sectionCount * SECTION_ENTRY_BYTES;
+        if (sectionCount < 0 || tableEnd > buffer.capacity()) {
+            throw new IOException("地址索引快照分区表损坏: " + file);
+        }
+        if (buffer.getInt(12) != crc(buffer, HEADER_BYTES, (int) tableEnd - HEADER_BYTES)) {
+            throw new IOException("地址索引快照分区表校验失败: " + file);
+        }
+        
+        Map<Integer, ByteBuffer> sections = new LinkedHashMap<>(sectionCount * 2);
+        Map<Integer, Integer> types = new LinkedHashMap<>(sectionCount * 2);
+        for (int i = 0; i < sectionCount; i++) {
+            int entry = HEADER_BYTES + i * SECTION_ENTRY_BYTES;
+            int id = buffer.getInt(entry);
+            long offset = buffer.getLong(entry + 8);
+            long length = buffer.getLong(entry + 16);
+            if (offset < tableEnd || length < 0 || offset + length > buffer.capacity() || (offset & 7) != 0) {
+                throw new IOException("地址索引快照分区越界: id=" + id);
+            }
+            if (buffer.getInt(entry + 24) != crc(buffer, (int) offset, (int) length)) {
+                throw new IOException("地址索引快照分区校验失败: id=" + id);
+            }
+            sections.put(id, buffer.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN));
+            types.put(id, buffer.getInt(entry + 4));
+        }
+        return new AddressSnapshot(sections, types);
+    }
+    
+    CharBuffer chars(int id) throws IOException {
+        return section(id, TYPE_CHAR).asCharBuffer();
+    }
+    
+    IntBuffer ints(int id) throws IOException {
+        return section(id, TYPE_INT).asIntBuffer();
+    }
+    
+    LongBuffer longs(int id) throws IOException {
+        return section(id, TYPE_LONG).asLongBuffer();
+    }
+    
+    private ByteBuffer section(int id, int type) throws IOException {
+        ByteBuffer section = sections.get(id);
+        if (section == null) {
+            throw new IOException("地址索引快照缺少分区: id=" + id);
+        }
+        if (types.get(id) != type) {
+            throw new IOException("地址索引快照分区类型不符: id=" + id);
+        }
+        return section.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * 快照写入器：收集各分区后一次性写出
+     */
+    static final class Writer {
+        
+        /**
+         * 分区ID -> 分区内容（小端序字节）
+         */
+        private final Map<Integer, ByteBuffer> sections = new LinkedHashMap<>();
+        
+        /**
+         * 分区ID -> 元素类型
+         */
+        private final Map<Integer, Integer> types = new LinkedHashMap<>();
+        
+        Writer putChars(int id, CharBuffer values) {
+            CharBuffer source = values.duplicate().clear();
+            ByteBuffer bytes = allocate(id, TYPE_CHAR, source.capacity() * 2L);
+            bytes.asCharBuffer().put(source);
+            return this;
+        }
+        
+        Writer putInts(int id, IntBuffer values) {
+            IntBuffer source = values.duplicate().clear();
+            ByteBuffer bytes = allocate(id, TYPE_INT, source.capacity() * 4L);
+            bytes.asIntBuffer().put(source);
+            return this;
+        }
+        
+        Writer putLongs(int id, LongBuffer values) {
+            LongBuffer source = values.duplicate().clear();
+            ByteBuffer bytes = allocate(id, TYPE_LONG, source.capacity() * 8L);
+            bytes.asLongBuffer().put(source);
+            return this;
+        }
+        
+        private ByteBuffer allocate(int id, int type, long length) {
+            if (sections.containsKey(id)) {
+                throw new IllegalArgumentException("重复的快照分区: id=" + id);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("快照分区过大: id=" + id);
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+            sections.put(id, bytes);
+            types.put(id, type);
+            return bytes;
+        }
+        
+        /**
+         * 写出快照文件
+         * 
+         * 先写入同目录下的临时文件再原子替换：正在映射旧文件的进程不受影响，也不会读到写了一半的文件
+         * 
+         * @param file 目标文件
+         * @throws IOException 写入失败
+         */
+        void writeTo(Path file) throws IOException {
+            int sectionCount = sections.size();
+            long offset = align(HEADER_BYTES + (long) sectionCount * SECTION_ENTRY_BYTES);
+            ByteBuffer header = ByteBuffer.allocate((int) offset).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, sectionCount);
+            
+            int entry = HEADER_BYTES;
+            for (Map.Entry<Integer, ByteBuffer> section : sections.entrySet()) {
+                ByteBuffer bytes = section.getValue();
+                header.putInt(entry, section.getKey());
+                header.putInt(entry + 4, types.get(section.getKey()));
+                header.putLong(entry + 8, offset);
+                header.putLong(entry + 16, bytes.capacity());
+                header.putInt(entry + 24, crc(bytes, 0, bytes.capacity()));
+                entry += SECTION_ENTRY_BYTES;
+                offset = align(offset + bytes.capacity());
+            }
+            header.putInt(12, crc(header, HEADER_BYTES, entry - HEADER_BYTES));
+            
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    writeFully(channel, header.clear());
+                    long position = header.capacity();
+                    for (ByteBuffer bytes : sections.values()) {
+                        channel.position(position);
+                        writeFully(channel, bytes.duplicate().clear());
+                        position = align(position + bytes.capacity());
+                    }
+                    // 末尾补齐，保证最后一个分区之后文件长度也按 8 字节对齐
+                    if (channel.size() < position) {
+                        channel.position(position - 1);
+                        writeFully(channel, ByteBuffer.allocate(1));
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        
+        private static long align(long offset) {
+            return (offset + 7) & ~7L;
+        }
+    }
+}
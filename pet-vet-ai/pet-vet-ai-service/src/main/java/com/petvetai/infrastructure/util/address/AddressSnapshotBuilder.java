@@ -0,0 +1,67 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 地址索引快照离线构建工具
+ * 
+ * 从 CSV 格式的行政区划数据（格式见 {@link AddressDivisionLoader}）构建地址索引并写出二进制快照，
+ * 服务启动时通过 address.snapshot-path 配置直接内存映射加载：
+ * <pre>
+ * java -cp pet-vet-ai-service.jar:依赖 com.petvetai.infrastructure.util.address.AddressSnapshotBuilder \
+ *     administrative_divisions.csv address-index.snapshot
+ * </pre>
+ * 写出后会重新映射加载一次并对比行政区划条数，确认文件可用
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class AddressSnapshotBuilder {
+    
+    private AddressSnapshotBuilder() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: AddressSnapshotBuilder <行政区划CSV> <快照文件>");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[1]);
+        long start = System.currentTimeMillis();
+        AddressIndex index = build(Paths.get(args[0]), output);
+        System.out.printf("快照已写入 %s，%,d 字节，耗时 %d ms，%s%n", output, Files.size(output),
+                System.currentTimeMillis() - start, index.getStats());
+    }
+    
+    /**
+     * 构建并写出快照
+     * 
+     * @param csv 行政区划CSV
+     * @param output 快照文件
+     * @return 从快照重新加载的索引
+     * @throws IOException 读写失败或写出的快照校验不通过
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static AddressIndex build(Path csv, Path output) throws IOException {
+        List<AdministrativeDivision> divisions;
+        try (InputStream inputStream = Files.newInputStream(csv)) {
+            divisions = AddressDivisionLoader.load(inputStream);
+        }
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        index.writeSnapshot(output);
+        
+        AddressIndex loaded = new AddressIndex();
+        loaded.loadSnapshot(output);
+        if (loaded.getAllDivisions().size() != index.getAllDivisions().size()) {
+            throw new IOException("快照校验失败: 行政区划条数不一致");
+        }
+        return loaded;
+    }
+}
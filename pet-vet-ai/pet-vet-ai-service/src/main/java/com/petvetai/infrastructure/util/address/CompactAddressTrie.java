@@ -0,0 +1,422 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑地址前缀树（构建后只读）
+ * 
+ * 节点和边全部存放在基本类型缓冲区中（构建时包装堆内数组，从快照加载时直接指向内存映射的分区）：
+ * - 节点按层序编号，节点 n 的子边为 [firstEdge[n], firstEdge[n + 1])，边按字符升序排列，查找子节点用二分
+ * - 行政区划编码在外部驻留为 int，每个节点只保存倒排列表在共享池中的偏移
+ * - 倒排列表为升序 int 数组，内容相同的列表在池中只存一份（深层节点大多只对应少数几个编码，共享率很高）
+ * 
+ * 每个节点有两个倒排列表：前缀列表（经过该节点的所有关键词的编码）和精确列表（恰好在该节点结束的关键词的编码）
+ * 
+ * 共享倒排列表个数只在构建时统计，从快照加载时为 -1
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class CompactAddressTrie {
+    
+    /**
+     * 无倒排列表
+     */
+    static final int NO_POSTING = -1;
+    
+    /**
+     * 子边字符
+     */
+    private final CharBuffer edgeChars;
+    
+    /**
+     * 子边指向的节点
+     */
+    private final IntBuffer edgeTargets;
+    
+    /**
+     * 各节点第一条子边的下标，长度为节点数 + 1
+     */
+    private final IntBuffer firstEdge;
+    
+    /**
+     * 各节点前缀倒排列表在池中的偏移
+     */
+    private final IntBuffer prefixPostings;
+    
+    /**
+     * 各节点精确倒排列表在池中的偏移，无则为 NO_POSTING
+     */
+    private final IntBuffer exactPostings;
+    
+    /**
+     * 倒排列表池：每个列表为 [长度, id1, id2, ...]
+     */
+    private final IntBuffer pool;
+    
+    /**
+     * 共享的倒排列表个数
+     */
+    private final int distinctPostingCount;
+    
+    private CompactAddressTrie(CharBuffer edgeChars, IntBuffer edgeTargets, IntBuffer firstEdge, IntBuffer prefixPostings,
+                               IntBuffer exactPostings, IntBuffer pool, int distinctPostingCount) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.firstEdge = firstEdge;
+        this.prefixPostings = prefixPostings;
+        this.exactPostings = exactPostings;
+        this.pool = pool;
+        this.distinctPostingCount = distinctPostingCount;
+    }
+    
+    /**
+     * 查找前缀对应的前缀倒排列表
+     * 
+     * @param prefix 前缀（空串对应所有已索引的编码）
+     * @return 倒排列表偏移；前缀不存在时返回 NO_POSTING
+     */
+    int prefixPosting(String prefix) {
+        int node = findNode(prefix);
+        return node < 0 ? NO_POSTING : prefixPostings.get(node);
+    }
+    
+    /**
+     * 查找关键词对应的精确倒排列表
+     * 
+     * @param word 关键词
+     * @return 倒排列表偏移；关键词未被索引时返回 NO_POSTING
+     */
+    int exactPosting(String word) {
+        int node = findNode(word);
+        return node < 0 ? NO_POSTING : exactPostings.get(node);
+    }
+    
+    /**
+     * 倒排列表长度
+     * 
+     * @param posting 倒排列表偏移
+     * @return 编码个数
+     */
+    int postingSize(int posting) {
+        return posting == NO_POSTING ? 0 : pool.get(posting);
+    }
+    
+    /**
+     * 倒排列表中的第 i 个编码ID
+     * 
+     * @param posting 倒排列表偏移
+     * @param i 下标
+     * @return 编码ID
+     */
+    int postingId(int posting, int i) {
+        return pool.get(posting + 1 + i);
+    }
+    
+    /**
+     * 逐字符下钻查找节点
+     * 
+     * @param word 关键词
+     * @return 节点编号，不存在时返回 -1
+     */
+    private int findNode(String word) {
+        int node = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int edge = findEdge(firstEdge.get(node), firstEdge.get(node + 1), word.charAt(i));
+            if (edge < 0) {
+                return -1;
+            }
+            node = edgeTargets.get(edge);
+        }
+        return node;
+    }
+    
+    /**
+     * 在 [from, to) 的有序子边中二分查找字符
+     * 
+     * @return 边下标，不存在时返回 -1
+     */
+    private int findEdge(int from, int to, char c) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars.get(mid);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    int nodeCount() {
+        return firstEdge.capacity() - 1;
+    }
+    
+    int distinctPostingCount() {
+        return distinctPostingCount;
+    }
+    
+    /**
+     * 估算占用的堆内存（字节，只计数组数据）
+     * 
+     * @return 估算字节数
+     */
+    long estimatedBytes() {
+        return 2L * edgeChars.capacity() + 4L * (edgeTargets.capacity() + firstEdge.capacity()
+                + prefixPostings.capacity() + exactPostings.capacity() + pool.capacity());
+    }
+    
+    /**
+     * 写入快照
+     * 
+     * @param writer 快照写入器
+     */
+    void writeTo(AddressSnapshot.Writer writer) {
+        writer.putChars(AddressSnapshot.TRIE_EDGE_CHARS, edgeChars)
+                .putInts(AddressSnapshot.TRIE_EDGE_TARGETS, edgeTargets)
+                .putInts(AddressSnapshot.TRIE_FIRST_EDGE, firstEdge)
+                .putInts(AddressSnapshot.TRIE_PREFIX_POSTINGS, prefixPostings)
+                .putInts(AddressSnapshot.TRIE_EXACT_POSTINGS, exactPostings)
+                .putInts(AddressSnapshot.TRIE_POSTING_POOL, pool);
+    }
+    
+    /**
+     * 从快照加载（直接引用快照分区，不复制）
+     * 
+     * @param snapshot 快照
+     * @return 紧凑前缀树
+     * @throws IOException 缺少分区或分区长度不一致
+     */
+    static CompactAddressTrie readFrom(AddressSnapshot snapshot) throws IOException {
+        CharBuffer edgeChars = snapshot.chars(AddressSnapshot.TRIE_EDGE_CHARS);
+        IntBuffer edgeTargets = snapshot.ints(AddressSnapshot.TRIE_EDGE_TARGETS);
+        IntBuffer firstEdge = snapshot.ints(AddressSnapshot.TRIE_FIRST_EDGE);
+        IntBuffer prefixPostings = snapshot.ints(AddressSnapshot.TRIE_PREFIX_POSTINGS);
+        IntBuffer exactPostings = snapshot.ints(AddressSnapshot.TRIE_EXACT_POSTINGS);
+        int nodeCount = firstEdge.capacity() - 1;
+        if (nodeCount < 1 || edgeTargets.capacity() != edgeChars.capacity()
+                || prefixPostings.capacity() != nodeCount || exactPostings.capacity() != nodeCount) {
+            throw new IOException("地址索引快照前缀树分区长度不一致");
+        }
+        return new CompactAddressTrie(edgeChars, edgeTargets, firstEdge, prefixPostings, exactPostings,
+                snapshot.ints(AddressSnapshot.TRIE_POSTING_POOL), -1);
+    }
+    
+    /**
+     * 构建器（仅在构建期间使用，构建完成后可丢弃）
+     */
+    static final class Builder {
+        
+        private final MutableNode root = new MutableNode();
+        
+        /**
+         * 索引关键词（空串忽略）
+         * 
+         * @param word 关键词
+         * @param id 编码ID
+         */
+        void add(String word, int id) {
+            if (word.isEmpty()) {
+                return;
+            }
+            root.prefix.add(id);
+            MutableNode node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), c -> new MutableNode());
+                node.prefix.add(id);
+            }
+            node.exact.add(id);
+        }
+        
+        /**
+         * 冻结为紧凑结构
+         * 
+         * @return 紧凑前缀树
+         */
+        CompactAddressTrie build() {
+            PostingPool postingPool = new PostingPool();
+            
+            // 层序遍历：子节点在父节点之后连续编号，子边因此连续存放
+            int nodeCount = root.count();
+            char[] edgeChars = new char[nodeCount - 1];
+            int[] edgeTargets = new int[nodeCount - 1];
+            int[] firstEdge = new int[nodeCount + 1];
+            int[] prefixPostings = new int[nodeCount];
+            int[] exactPostings = new int[nodeCount];
+            
+            ArrayDeque<MutableNode> queue = new ArrayDeque<>();
+            queue.add(root);
+            int node = 0;
+            int nextNode = 1;
+            int edge = 0;
+            while (!queue.isEmpty()) {
+                MutableNode current = queue.poll();
+                prefixPostings[node] = postingPool.intern(current.prefix.toSortedUnique());
+                exactPostings[node] = current.exact.isEmpty() ? NO_POSTING : postingPool.intern(current.exact.toSortedUnique());
+                
+                firstEdge[node] = edge;
+                Character[] chars = current.children.keySet().toArray(new Character[0]);
+                Arrays.sort(chars);
+                for (Character c : chars) {
+                    edgeChars[edge] = c;
+                    edgeTargets[edge] = nextNode++;
+                    edge++;
+                    queue.add(current.children.get(c));
+                }
+                node++;
+            }
+            firstEdge[nodeCount] = edge;
+            
+            return new CompactAddressTrie(CharBuffer.wrap(edgeChars), IntBuffer.wrap(edgeTargets),
+                    IntBuffer.wrap(firstEdge), IntBuffer.wrap(prefixPostings), IntBuffer.wrap(exactPostings),
+                    IntBuffer.wrap(postingPool.toArray()), postingPool.distinctCount());
+        }
+    }
+    
+    /**
+     * 构建期间的可变节点
+     */
+    private static final class MutableNode {
+        
+        private final Map<Character, MutableNode> children = new HashMap<>();
+        
+        private final IntList prefix = new IntList();
+        
+        private final IntList exact = new IntList();
+        
+        private int count() {
+            int total = 1;
+            ArrayDeque<MutableNode> stack = new ArrayDeque<>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                for (MutableNode child : stack.pop().children.values()) {
+                    total++;
+                    stack.push(child);
+                }
+            }
+            return total;
+        }
+    }
+    
+    /**
+     * 倒排列表池：内容相同的列表只存一份
+     */
+    static final class PostingPool {
+        
+        private final IntList data = new IntList();
+        
+        private final Map<IntArrayKey, Integer> offsets = new HashMap<>();
+        
+        /**
+         * 放入倒排列表
+         * 
+         * @param ids 升序去重的编码ID
+         * @return 列表偏移
+         */
+        int intern(int[] ids) {
+            return offsets.computeIfAbsent(new IntArrayKey(ids), key -> {
+                int offset = data.size();
+                data.add(ids.length);
+                for (int id : ids) {
+                    data.add(id);
+                }
+                return offset;
+            });
+        }
+        
+        int[] toArray() {
+            return data.toArray();
+        }
+        
+        int distinctCount() {
+            return offsets.size();
+        }
+    }
+    
+    /**
+     * 以内容比较的 int 数组 Key
+     */
+    private static final class IntArrayKey {
+        
+        private final int[] values;
+        
+        private final int hash;
+        
+        private IntArrayKey(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntArrayKey && Arrays.equals(values, ((IntArrayKey) o).values);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * 可增长的 int 列表（构建期间使用）
+     */
+    static final class IntList {
+        
+        private int[] values = new int[4];
+        
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+        
+        /**
+         * 转为升序去重数组（编码按ID顺序加入时已有序，只需去重）
+         * 
+         * @return 升序去重数组
+         */
+        int[] toSortedUnique() {
+            int[] sorted = Arrays.copyOf(values, size);
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] < sorted[i - 1]) {
+                    Arrays.sort(sorted);
+                    break;
+                }
+            }
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.petvetai.infrastructure.util.address;
+
+/**
+ * 行政区划打分特征（内存构建索引时预先计算，从快照加载时首次访问才创建，只读）
+ * 
+ * 打分时需要的层级数组和完整地址在这里只计算一次，避免每个候选每次打分都重新创建层级数组
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class DivisionFeatures {
+    
+    /**
+     * 行政区划对象
+     */
+    private final AdministrativeDivision division;
+    
+    /**
+     * 地址层级 [省份, 城市, 区县, 街道]
+     */
+    private final String[] levels;
+    
+    /**
+     * 完整地址
+     */
+    private final String fullAddress;
+    
+    DivisionFeatures(AdministrativeDivision division) {
+        this.division = division;
+        this.levels = division.getLevels();
+        this.fullAddress = division.getFullAddress();
+    }
+    
+    AdministrativeDivision division() {
+        return division;
+    }
+    
+    String code() {
+        return division.getCode();
+    }
+    
+    String level(int i) {
+        return levels[i];
+    }
+    
+    int levelCount() {
+        return levels.length;
+    }
+    
+    String fullAddress() {
+        return fullAddress;
+    }
+}
@@ -0,0 +1,268 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 行政区划表（只读）
+ * 
+ * 按编码ID存放行政区划的各个字段，字符串统一放在去重后的字符池中，每行为
+ * [编码, 省份, 城市, 区县, 街道, 完整地址] 六个字符串的 (偏移, 长度) 和层级，共 {@value #ROW_INTS} 个 int。
+ * 另有一个按编码排序的ID列表，编码查找用二分，不需要构建 HashMap。
+ * 
+ * 行政区划对象和打分特征在第一次访问时才从字符池创建并缓存，从快照加载时启动不需要创建任何行政区划对象
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class DivisionTable {
+    
+    /**
+     * 每行的 int 个数
+     */
+    static final int ROW_INTS = 13;
+    
+    /**
+     * 层级列的下标
+     */
+    private static final int LEVEL_COLUMN = 12;
+    
+    /**
+     * 空字段的偏移
+     */
+    private static final int NULL_STRING = -1;
+    
+    /**
+     * 字符池
+     */
+    private final CharBuffer strings;
+    
+    /**
+     * 行数据
+     */
+    private final IntBuffer rows;
+    
+    /**
+     * 按编码升序排列的编码ID
+     */
+    private final IntBuffer codeOrder;
+    
+    /**
+     * 编码ID -> 打分特征（延迟创建）
+     */
+    private final AtomicReferenceArray<DivisionFeatures> features;
+    
+    /**
+     * 全部行政区划的只读视图
+     */
+    private final List<AdministrativeDivision> divisionList;
+    
+    private DivisionTable(CharBuffer strings, IntBuffer rows, IntBuffer codeOrder) {
+        this.strings = strings;
+        this.rows = rows;
+        this.codeOrder = codeOrder;
+        this.features = new AtomicReferenceArray<>(codeOrder.capacity());
+        this.divisionList = new DivisionList();
+    }
+    
+    int size() {
+        return codeOrder.capacity();
+    }
+    
+    /**
+     * 获取打分特征（首次访问时创建）
+     * 
+     * @param id 编码ID
+     * @return 打分特征
+     */
+    DivisionFeatures features(int id) {
+        DivisionFeatures current = features.get(id);
+        if (current == null) {
+            // 并发首次访问时可能重复创建，以先写入的为准，保证同一编码始终返回同一对象
+            DivisionFeatures created = new DivisionFeatures(materialize(id));
+            current = features.compareAndSet(id, null, created) ? created : features.get(id);
+        }
+        return current;
+    }
+    
+    /**
+     * 获取编码（直接读取字符池，不创建行政区划对象）
+     * 
+     * @param id 编码ID
+     * @return 编码
+     */
+    String code(int id) {
+        DivisionFeatures current = features.get(id);
+        return current != null ? current.code() : string(id, 0);
+    }
+    
+    /**
+     * 按编码查找编码ID
+     * 
+     * @param code 编码
+     * @return 编码ID，不存在时返回 -1
+     */
+    int find(String code) {
+        if (code == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = codeOrder.capacity() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = codeOrder.get(mid);
+            int cmp = compareCode(id, code);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+    
+    List<AdministrativeDivision> asList() {
+        return divisionList;
+    }
+    
+    private AdministrativeDivision materialize(int id) {
+        return new AdministrativeDivision(string(id, 0), string(id, 1), string(id, 2), string(id, 3), string(id, 4),
+                string(id, 5), level(id));
+    }
+    
+    private Integer level(int id) {
+        int level = rows.get(id * ROW_INTS + LEVEL_COLUMN);
+        return level < 0 ? null : level;
+    }
+    
+    private String string(int id, int column) {
+        int base = id * ROW_INTS + column * 2;
+        int offset = rows.get(base);
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        return strings.subSequence(offset, offset + rows.get(base + 1)).toString();
+    }
+    
+    /**
+     * 比较编码ID对应的编码与给定编码（逐字符比较字符池，不创建字符串）
+     */
+    private int compareCode(int id, String code) {
+        int base = id * ROW_INTS;
+        int offset = rows.get(base);
+        int length = rows.get(base + 1);
+        int common = Math.min(length, code.length());
+        for (int i = 0; i < common; i++) {
+            int diff = strings.get(offset + i) - code.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - code.length();
+    }
+    
+    /**
+     * 写入快照
+     * 
+     * @param writer 快照写入器
+     */
+    void writeTo(AddressSnapshot.Writer writer) {
+        writer.putChars(AddressSnapshot.DIVISION_STRINGS, strings)
+                .putInts(AddressSnapshot.DIVISION_ROWS, rows)
+                .putInts(AddressSnapshot.DIVISION_CODE_ORDER, codeOrder);
+    }
+    
+    /**
+     * 从快照加载（直接引用快照分区，不复制）
+     * 
+     * @param snapshot 快照
+     * @return 行政区划表
+     * @throws IOException 缺少分区或分区长度不一致
+     */
+    static DivisionTable readFrom(AddressSnapshot snapshot) throws IOException {
+        CharBuffer strings = snapshot.chars(AddressSnapshot.DIVISION_STRINGS);
+        IntBuffer rows = snapshot.ints(AddressSnapshot.DIVISION_ROWS);
+        IntBuffer codeOrder = snapshot.ints(AddressSnapshot.DIVISION_CODE_ORDER);
+        if (rows.capacity() != codeOrder.capacity() * ROW_INTS) {
+            throw new IOException("地址索引快照行政区划分区长度不一致");
+        }
+        return new DivisionTable(strings, rows, codeOrder);
+    }
+    
+    /**
+     * 由行政区划对象构建（编码ID即数组下标，已有的对象直接作为缓存，不再重新创建）
+     * 
+     * @param divisions 行政区划，编码不重复
+     * @return 行政区划表
+     */
+    static DivisionTable build(AdministrativeDivision[] divisions) {
+        StringBuilder pool = new StringBuilder();
+        Map<String, Integer> offsets = new HashMap<>();
+        int[] rows = new int[divisions.length * ROW_INTS];
+        for (int id = 0; id < divisions.length; id++) {
+            AdministrativeDivision division = divisions[id];
+            String[] columns = {division.getCode(), division.getProvince(), division.getCity(),
+                division.getDistrict(), division.getStreet(), division.getFullAddress()};
+            int base = id * ROW_INTS;
+            for (int column = 0; column < columns.length; column++) {
+                String value = columns[column];
+                if (value == null) {
+                    rows[base + column * 2] = NULL_STRING;
+                    continue;
+                }
+                rows[base + column * 2] = offsets.computeIfAbsent(value, v -> {
+                    int offset = pool.length();
+                    pool.append(v);
+                    return offset;
+                });
+                rows[base + column * 2 + 1] = value.length();
+            }
+            rows[base + LEVEL_COLUMN] = division.getLevel() == null ? -1 : division.getLevel();
+        }
+        
+        Integer[] order = new Integer[divisions.length];
+        for (int id = 0; id < order.length; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, Comparator.comparing(id -> divisions[id].getCode()));
+        int[] codeOrder = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            codeOrder[i] = order[i];
+        }
+        
+        char[] chars = new char[pool.length()];
+        pool.getChars(0, chars.length, chars, 0);
+        DivisionTable table = new DivisionTable(CharBuffer.wrap(chars), IntBuffer.wrap(rows), IntBuffer.wrap(codeOrder));
+        for (int id = 0; id < divisions.length; id++) {
+            table.features.set(id, new DivisionFeatures(divisions[id]));
+        }
+        return table;
+    }
+    
+    /**
+     * 按编码ID顺序的只读列表视图
+     */
+    private final class DivisionList extends AbstractList<AdministrativeDivision> implements RandomAccess {
+        
+        @Override
+        public AdministrativeDivision get(int index) {
+            return features(index).division();
+        }
+        
+        @Override
+        public int size() {
+            return DivisionTable.this.size();
+        }
+    }
+}
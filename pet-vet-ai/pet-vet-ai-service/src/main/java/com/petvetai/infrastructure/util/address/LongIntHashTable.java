@@ -0,0 +1,99 @@
+package com.petvetai.infrastructure.util.address;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 只读的 long -> int 开放寻址哈希表（线性探测）
+ * 
+ * 键和值分别存放在 LongBuffer 和 IntBuffer 中，既可以包装堆内数组，也可以直接指向内存映射的快照分区，
+ * 查询时不创建任何对象。容量为 2 的幂，装载因子不超过 0.5；{@link #EMPTY} 作为空槽标记，不能作为键
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+final class LongIntHashTable {
+    
+    /**
+     * 空槽标记
+     */
+    static final long EMPTY = Long.MIN_VALUE;
+    
+    private final LongBuffer keys;
+    
+    private final IntBuffer values;
+    
+    private final int mask;
+    
+    LongIntHashTable(LongBuffer keys, IntBuffer values) {
+        if (Integer.bitCount(keys.capacity()) != 1 || values.capacity() != keys.capacity()) {
+            throw new IllegalArgumentException("哈希表容量必须为2的幂且键值数量一致: " + keys.capacity());
+        }
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.capacity() - 1;
+    }
+    
+    /**
+     * 查找键对应的值
+     * 
+     * @param key 键
+     * @param missing 键不存在时的返回值
+     * @return 值
+     */
+    int get(long key, int missing) {
+        int slot = slot(key, mask);
+        while (true) {
+            long current = keys.get(slot);
+            if (current == key) {
+                return values.get(slot);
+            }
+            if (current == EMPTY) {
+                return missing;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    LongBuffer keys() {
+        return keys;
+    }
+    
+    IntBuffer values() {
+        return values;
+    }
+    
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+    
+    /**
+     * 由键值对构建哈希表
+     * 
+     * @param entries 键值对（键不能为 EMPTY）
+     * @return 哈希表
+     */
+    static LongIntHashTable of(Map<Long, Integer> entries) {
+        int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1);
+        int mask = capacity - 1;
+        long[] keys = new long[capacity];
+        int[] values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            long key = entry.getKey();
+            if (key == EMPTY) {
+                throw new IllegalArgumentException("哈希表不支持的键: " + key);
+            }
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = entry.getValue();
+        }
+        return new LongIntHashTable(LongBuffer.wrap(keys), IntBuffer.wrap(values));
+    }
+}
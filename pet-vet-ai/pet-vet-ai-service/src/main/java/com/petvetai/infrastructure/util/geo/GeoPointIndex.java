@@ -0,0 +1,265 @@
+package com.petvetai.infrastructure.util.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的地理位置索引（线程安全）
+ * 
+ * 由两部分组成：全量重建的静态 KD 树（{@link PackedKdTree}），以及重建之后的增量变更（ID -> 新位置或已移除）。
+ * 查询时跳过 KD 树中被增量变更覆盖的ID，再合并增量变更中的点（逐点按弦长预筛选），按 Haversine 距离精确排序。
+ * 
+ * 状态为不可变快照，写操作在锁内复制增量变更后整体替换，读操作不加锁。增量变更较多时由调用方
+ * 调用 {@link #compact()} 合并进 KD 树。每次变更分配一个递增序号：{@link #rebuild} 用外部数据（如数据库）
+ * 全量重建时，只保留读取数据之后发生的变更，读取期间的变更不会丢失。
+ * {@link #rebuild} 和 {@link #compact()} 都会整体替换 KD 树，调用方需保证二者不并发执行
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public final class GeoPointIndex {
+    
+    private final Object lock = new Object();
+    
+    private volatile State state = new State(PackedKdTree.EMPTY, Collections.emptyMap(), 0L);
+    
+    /**
+     * 新增或移动一个点
+     * 
+     * @param id 点ID
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @return 变更序号
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public long upsert(long id, double longitude, double latitude) {
+        return apply(id, true, longitude, latitude);
+    }
+    
+    /**
+     * 移除一个点（不存在时也记录为移除）
+     * 
+     * @param id 点ID
+     * @return 变更序号
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public long remove(long id) {
+        return apply(id, false, 0, 0);
+    }
+    
+    /**
+     * 当前变更序号，全量重建前读取，传给 {@link #rebuild}
+     * 
+     * @return 变更序号
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public long sequence() {
+        return state.sequence;
+    }
+    
+    /**
+     * 用全量数据重建 KD 树
+     * 
+     * 序号不大于 sinceSequence 的增量变更视为已包含在全量数据中并丢弃，之后的变更保留。
+     * 数组会被重新排列，调用方之后不能再使用
+     * 
+     * @param ids 点ID（不重复）
+     * @param longitudes 经度
+     * @param latitudes 纬度
+     * @param size 点数（数组前 size 个元素有效）
+     * @param sinceSequence 开始读取全量数据前的变更序号
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void rebuild(long[] ids, double[] longitudes, double[] latitudes, int size, long sinceSequence) {
+        PackedKdTree tree = new PackedKdTree(ids, longitudes, latitudes, size);
+        synchronized (lock) {
+            State current = state;
+            Map<Long, Change> changes = new HashMap<>();
+            for (Map.Entry<Long, Change> entry : current.changes.entrySet()) {
+                if (entry.getValue().sequence > sinceSequence) {
+                    changes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            state = new State(tree, changes, current.sequence);
+        }
+    }
+    
+    /**
+     * 把增量变更合并进 KD 树
+     * 
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void compact() {
+        State current = state;
+        int capacity = current.tree.size() + current.changes.size();
+        long[] ids = new long[capacity];
+        double[] longitudes = new double[capacity];
+        double[] latitudes = new double[capacity];
+        int size = 0;
+        for (int i = 0; i < current.tree.size(); i++) {
+            if (!current.changes.containsKey(current.tree.id(i))) {
+                ids[size] = current.tree.id(i);
+                longitudes[size] = current.tree.longitude(i);
+                latitudes[size] = current.tree.latitude(i);
+                size++;
+            }
+        }
+        for (Map.Entry<Long, Change> entry : current.changes.entrySet()) {
+            Change change = entry.getValue();
+            if (change.present) {
+                ids[size] = entry.getKey();
+                longitudes[size] = change.longitude;
+                latitudes[size] = change.latitude;
+                size++;
+            }
+        }
+        rebuild(ids, longitudes, latitudes, size, current.sequence);
+    }
+    
+    /**
+     * 查询距离不超过上限的最近的点
+     * 
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param maxDistanceKm 最大距离（公里），不限制时传 {@link Double#POSITIVE_INFINITY}
+     * @param limit 最多返回条数
+     * @return 按距离从近到远排序的结果，距离相同时按ID
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public List<Neighbor> nearest(double longitude, double latitude, double maxDistanceKm, int limit) {
+        if (limit <= 0 || !(maxDistanceKm >= 0)) {
+            return Collections.emptyList();
+        }
+        State current = state;
+        NeighborCollector collector = new NeighborCollector(maxDistanceKm, limit);
+        current.tree.nearest(longitude, latitude, collector, current.changes.keySet());
+        current.overlay.nearest(longitude, latitude, collector, Collections.emptySet());
+        return collector.toList();
+    }
+    
+    /**
+     * KD 树中的点数（不含增量变更）
+     * 
+     * @return 点数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int treeSize() {
+        return state.tree.size();
+    }
+    
+    /**
+     * 尚未合并进 KD 树的增量变更数
+     * 
+     * @return 变更数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int pendingChanges() {
+        return state.changes.size();
+    }
+    
+    private long apply(long id, boolean present, double longitude, double latitude) {
+        synchronized (lock) {
+            State current = state;
+            long sequence = current.sequence + 1;
+            Map<Long, Change> changes = new HashMap<>(current.changes);
+            changes.put(id, new Change(sequence, present, longitude, latitude));
+            state = new State(current.tree, changes, sequence);
+            return sequence;
+        }
+    }
+    
+    /**
+     * 查询结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Neighbor {
+        
+        /**
+         * 点ID
+         */
+        private final long id;
+        
+        /**
+         * 距离（公里）
+         */
+        private final double distance;
+    }
+    
+    /**
+     * 不可变的索引状态
+     */
+    private static final class State {
+        
+        private final PackedKdTree tree;
+        
+        /**
+         * ID -> 重建之后的变更
+         */
+        private final Map<Long, Change> changes;
+        
+        /**
+         * 增量变更中新增或移动后的点
+         */
+        private final PackedKdTree overlay;
+        
+        private final long sequence;
+        
+        private State(PackedKdTree tree, Map<Long, Change> changes, long sequence) {
+            this.tree = tree;
+            this.changes = Collections.unmodifiableMap(changes);
+            this.sequence = sequence;
+            long[] ids = new long[changes.size()];
+            double[] longitudes = new double[changes.size()];
+            double[] latitudes = new double[changes.size()];
+            int size = 0;
+            for (Map.Entry<Long, Change> entry : changes.entrySet()) {
+                Change change = entry.getValue();
+                if (change.present) {
+                    ids[size] = entry.getKey();
+                    longitudes[size] = change.longitude;
+                    latitudes[size] = change.latitude;
+                    size++;
+                }
+            }
+            this.overlay = PackedKdTree.unindexed(ids, longitudes, latitudes, size);
+        }
+    }
+    
+    /**
+     * 一次增量变更
+     */
+    private static final class Change {
+        
+        private final long sequence;
+        
+        /**
+         * true 为新增或移动，false 为移除
+         */
+        private final boolean present;
+        
+        private final double longitude;
+        
+        private final double latitude;
+        
+        private Change(long sequence, boolean present, double longitude, double latitude) {
+            this.sequence = sequence;
+            this.present = present;
+            this.longitude = longitude;
+            this.latitude = latitude;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.petvetai.infrastructure.util.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 最近邻结果收集器：保留距离不超过上限的前 limit 个点
+ * 
+ * 用按 (距离, ID) 比较的大顶堆保存当前结果，堆满后只有比堆顶更近的点才能进入；
+ * {@link #chordSquaredBound()} 随之收紧，供 KD 树剪枝
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+final class NeighborCollector {
+    
+    private final double maxDistanceKm;
+    
+    private final int limit;
+    
+    /**
+     * 最大距离对应的弦长平方
+     */
+    private final double radiusChordSquared;
+    
+    /**
+     * 当前剪枝用的弦长平方
+     */
+    private double bound;
+    
+    private double[] distances;
+    
+    private long[] ids;
+    
+    private int size;
+    
+    NeighborCollector(double maxDistanceKm, int limit) {
+        this.maxDistanceKm = maxDistanceKm;
+        this.limit = limit;
+        this.radiusChordSquared = PackedKdTree.chordSquared(maxDistanceKm);
+        this.bound = radiusChordSquared;
+        int capacity = Math.max(1, Math.min(limit, 64));
+        this.distances = new double[capacity];
+        this.ids = new long[capacity];
+    }
+    
+    double chordSquaredBound() {
+        return bound;
+    }
+    
+    void offer(long id, double distance) {
+        if (distance > maxDistanceKm) {
+            return;
+        }
+        if (size < limit) {
+            if (size == distances.length) {
+                int capacity = (int) Math.min(limit, distances.length * 2L);
+                distances = Arrays.copyOf(distances, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            distances[size] = distance;
+            ids[size] = id;
+            siftUp(size++);
+            if (size == limit) {
+                tighten();
+            }
+        } else if (size > 0 && before(distance, id, distances[0], ids[0])) {
+            distances[0] = distance;
+            ids[0] = id;
+            siftDown(0);
+            tighten();
+        }
+    }
+    
+    /**
+     * 按距离从近到远输出结果（之后收集器不能再使用）
+     * 
+     * @return 结果列表
+     */
+    List<GeoPointIndex.Neighbor> toList() {
+        // 堆排序：依次把堆顶（当前最远）换到末尾，数组即按从近到远排列
+        int count = size;
+        while (size > 1) {
+            swap(0, --size);
+            siftDown(0);
+        }
+        size = 0;
+        List<GeoPointIndex.Neighbor> neighbors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            neighbors.add(new GeoPointIndex.Neighbor(ids[i], distances[i]));
+        }
+        return neighbors;
+    }
+    
+    private void tighten() {
+        bound = Math.min(radiusChordSquared, PackedKdTree.chordSquared(distances[0]));
+    }
+    
+    private static boolean before(double distance1, long id1, double distance2, long id2) {
+        return distance1 < distance2 || (distance1 == distance2 && id1 < id2);
+    }
+    
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(distances[parent], ids[parent], distances[index], ids[index])) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+    
+    private void siftDown(int index) {
+        while (true) {
+            int largest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < size && before(distances[largest], ids[largest], distances[left], ids[left])) {
+                largest = left;
+            }
+            if (right < size && before(distances[largest], ids[largest], distances[right], ids[right])) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(largest, index);
+            index = largest;
+        }
+    }
+    
+    private void swap(int i, int j) {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
@@ -0,0 +1,313 @@
+package com.petvetai.infrastructure.util.geo;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * 静态 KD 树（只读，紧凑数组存储）
+ * 
+ * 经纬度转换为单位球面上的三维坐标 (x, y, z) 后建树：球面上两点的弦长与大圆距离单调对应，
+ * 按弦长剪枝不会漏掉点，也不需要单独处理 180 度经线和南北极。
+ * 树不存储节点对象：点按建树顺序排列在数组中，区间 [left, right] 的中点即为该子树的分割点，
+ * 分割轴取该区间内跨度最大的坐标轴，记录在分割点的下标上；区间不超过 {@value #LEAF_SIZE} 个点时作为叶子直接遍历。
+ * 点数较少且频繁重建时（如增量变更）可以用 {@link #unindexed} 跳过建树，查询时逐点按弦长预筛选。
+ * 
+ * 排序和最终距离都用经纬度按 Haversine 公式计算（与数据库查询一致），弦长只用于剪枝和预筛选
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+final class PackedKdTree {
+    
+    /**
+     * 叶子最多包含的点数
+     */
+    static final int LEAF_SIZE = 32;
+    
+    /**
+     * 地球半径（公里）
+     */
+    static final double EARTH_RADIUS_KM = 6371.0;
+    
+    /**
+     * 剪枝时弦长平方的容差，抵消三维坐标的浮点误差（只会多检查点，不影响结果）
+     */
+    private static final double CHORD_SLACK = 1e-12;
+    
+    static final PackedKdTree EMPTY = new PackedKdTree(new long[0], new double[0], new double[0], 0);
+    
+    private final long[] ids;
+    
+    private final double[] longitudes;
+    
+    private final double[] latitudes;
+    
+    /**
+     * 三维坐标，第 i 个点为 coords[3i], coords[3i+1], coords[3i+2]
+     */
+    private final double[] coords;
+    
+    /**
+     * 分割轴（0/1/2），按分割点下标存放
+     */
+    private final byte[] axes;
+    
+    /**
+     * 是否已建树，未建树时查询逐点检查
+     */
+    private final boolean indexed;
+    
+    /**
+     * 由点数组建树，数组会被重新排列，调用方之后不能再使用
+     * 
+     * @param ids 点ID
+     * @param longitudes 经度
+     * @param latitudes 纬度
+     * @param size 点数（数组前 size 个元素有效）
+     */
+    PackedKdTree(long[] ids, double[] longitudes, double[] latitudes, int size) {
+        this(ids, longitudes, latitudes, size, true);
+    }
+    
+    private PackedKdTree(long[] ids, double[] longitudes, double[] latitudes, int size, boolean indexed) {
+        this.ids = ids.length == size ? ids : Arrays.copyOf(ids, size);
+        this.longitudes = longitudes.length == size ? longitudes : Arrays.copyOf(longitudes, size);
+        this.latitudes = latitudes.length == size ? latitudes : Arrays.copyOf(latitudes, size);
+        this.coords = new double[size * 3];
+        this.axes = indexed ? new byte[size] : new byte[0];
+        this.indexed = indexed;
+        for (int i = 0; i < size; i++) {
+            toUnitVector(this.longitudes[i], this.latitudes[i], coords, i * 3);
+        }
+        if (indexed) {
+            build(0, size - 1);
+        }
+    }
+    
+    /**
+     * 不建树的点集，查询时逐点检查
+     * 
+     * @param ids 点ID
+     * @param longitudes 经度
+     * @param latitudes 纬度
+     * @param size 点数（数组前 size 个元素有效）
+     * @return 点集
+     */
+    static PackedKdTree unindexed(long[] ids, double[] longitudes, double[] latitudes, int size) {
+        return new PackedKdTree(ids, longitudes, latitudes, size, false);
+    }
+    
+    int size() {
+        return ids.length;
+    }
+    
+    long id(int index) {
+        return ids[index];
+    }
+    
+    double longitude(int index) {
+        return longitudes[index];
+    }
+    
+    double latitude(int index) {
+        return latitudes[index];
+    }
+    
+    /**
+     * 查找最近的点，结果写入收集器
+     * 
+     * @param longitude 查询点经度
+     * @param latitude 查询点纬度
+     * @param collector 结果收集器（决定最大距离和条数）
+     * @param excluded 需要跳过的ID（已被增量变更覆盖），可以为空集合
+     */
+    void nearest(double longitude, double latitude, NeighborCollector collector, Set<Long> excluded) {
+        if (ids.length == 0) {
+            return;
+        }
+        double[] query = new double[3];
+        toUnitVector(longitude, latitude, query, 0);
+        if (!indexed) {
+            for (int i = 0; i < ids.length; i++) {
+                visit(i, query, longitude, latitude, collector, excluded.isEmpty() ? null : excluded);
+            }
+            return;
+        }
+        search(0, ids.length - 1, query, longitude, latitude, collector, excluded.isEmpty() ? null : excluded);
+    }
+    
+    private void search(int left, int right, double[] query, double longitude, double latitude,
+                        NeighborCollector collector, Set<Long> excluded) {
+        if (right - left <= LEAF_SIZE) {
+            for (int i = left; i <= right; i++) {
+                visit(i, query, longitude, latitude, collector, excluded);
+            }
+            return;
+        }
+        int middle = (left + right) >>> 1;
+        int axis = axes[middle];
+        double diff = query[axis] - coords[middle * 3 + axis];
+        visit(middle, query, longitude, latitude, collector, excluded);
+        if (diff <= 0) {
+            search(left, middle - 1, query, longitude, latitude, collector, excluded);
+            if (diff * diff <= collector.chordSquaredBound() + CHORD_SLACK) {
+                search(middle + 1, right, query, longitude, latitude, collector, excluded);
+            }
+        } else {
+            search(middle + 1, right, query, longitude, latitude, collector, excluded);
+            if (diff * diff <= collector.chordSquaredBound() + CHORD_SLACK) {
+                search(left, middle - 1, query, longitude, latitude, collector, excluded);
+            }
+        }
+    }
+    
+    private void visit(int index, double[] query, double longitude, double latitude,
+                       NeighborCollector collector, Set<Long> excluded) {
+        int base = index * 3;
+        double dx = query[0] - coords[base];
+        double dy = query[1] - coords[base + 1];
+        double dz = query[2] - coords[base + 2];
+        if (dx * dx + dy * dy + dz * dz > collector.chordSquaredBound() + CHORD_SLACK) {
+            return;
+        }
+        long id = ids[index];
+        if (excluded != null && excluded.contains(id)) {
+            return;
+        }
+        collector.offer(id, haversine(longitude, latitude, longitudes[index], latitudes[index]));
+    }
+    
+    /**
+     * 递归建树：选出区间内跨度最大的轴，按该轴把中位数放到区间中点
+     */
+    private void build(int left, int right) {
+        if (right - left <= LEAF_SIZE) {
+            return;
+        }
+        int axis = widestAxis(left, right);
+        int middle = (left + right) >>> 1;
+        select(middle, left, right, axis);
+        axes[middle] = (byte) axis;
+        build(left, middle - 1);
+        build(middle + 1, right);
+    }
+    
+    private int widestAxis(int left, int right) {
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = left; i <= right; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                double value = coords[i * 3 + axis];
+                min[axis] = Math.min(min[axis], value);
+                max[axis] = Math.max(max[axis], value);
+            }
+        }
+        int widest = 0;
+        for (int axis = 1; axis < 3; axis++) {
+            if (max[axis] - min[axis] > max[widest] - min[widest]) {
+                widest = axis;
+            }
+        }
+        return widest;
+    }
+    
+    /**
+     * Floyd-Rivest 选择：使第 k 个元素就位，左侧不大于它，右侧不小于它
+     */
+    private void select(int k, int left, int right, int axis) {
+        while (right > left) {
+            if (right - left > 600) {
+                int n = right - left + 1;
+                int m = k - left + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2.0 < 0 ? -1 : 1);
+                int newLeft = (int) Math.max(left, Math.floor(k - m * s / n + sd));
+                int newRight = (int) Math.min(right, Math.floor(k + (n - m) * s / n + sd));
+                select(k, newLeft, newRight, axis);
+            }
+            double pivot = coords[k * 3 + axis];
+            int i = left;
+            int j = right;
+            swap(left, k);
+            if (coords[right * 3 + axis] > pivot) {
+                swap(left, right);
+            }
+            while (i < j) {
+                swap(i, j);
+                i++;
+                j--;
+                while (coords[i * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (coords[j * 3 + axis] > pivot) {
+                    j--;
+                }
+            }
+            if (coords[left * 3 + axis] == pivot) {
+                swap(left, j);
+            } else {
+                j++;
+                swap(j, right);
+            }
+            if (j <= k) {
+                left = j + 1;
+            }
+            if (k <= j) {
+                right = j - 1;
+            }
+        }
+    }
+    
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double value = longitudes[i];
+        longitudes[i] = longitudes[j];
+        longitudes[j] = value;
+        value = latitudes[i];
+        latitudes[i] = latitudes[j];
+        latitudes[j] = value;
+        for (int axis = 0; axis < 3; axis++) {
+            value = coords[i * 3 + axis];
+            coords[i * 3 + axis] = coords[j * 3 + axis];
+            coords[j * 3 + axis] = value;
+        }
+    }
+    
+    private static void toUnitVector(double longitude, double latitude, double[] target, int offset) {
+        double lonRad = Math.toRadians(longitude);
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        target[offset] = cosLat * Math.cos(lonRad);
+        target[offset + 1] = cosLat * Math.sin(lonRad);
+        target[offset + 2] = Math.sin(latRad);
+    }
+    
+    /**
+     * 大圆距离对应的弦长平方（单位球）
+     * 
+     * @param distanceKm 距离（公里）
+     * @return 弦长平方，不超过 4
+     */
+    static double chordSquared(double distanceKm) {
+        if (distanceKm >= Math.PI * EARTH_RADIUS_KM) {
+            return 4.0;
+        }
+        double chord = 2 * Math.sin(distanceKm / EARTH_RADIUS_KM / 2);
+        return chord * chord;
+    }
+    
+    /**
+     * 两点间的距离（公里），Haversine 公式
+     */
+    static double haversine(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double deltaLatRad = Math.toRadians(latitude2 - latitude1);
+        double deltaLonRad = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(deltaLatRad / 2) * Math.sin(deltaLatRad / 2) +
+                   Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) *
+                   Math.sin(deltaLonRad / 2) * Math.sin(deltaLonRad / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
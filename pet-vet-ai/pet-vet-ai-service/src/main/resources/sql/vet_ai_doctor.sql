@@ -23,6 +23,7 @@ CREATE TABLE IF NOT EXISTS `vet_ai_doctor` (
     `full_address` VARCHAR(1000) DEFAULT NULL COMMENT '完整地址（省市区+详细地址）',
     `longitude` DECIMAL(10, 7) DEFAULT NULL COMMENT '经度',
     `latitude` DECIMAL(10, 7) DEFAULT NULL COMMENT '纬度',
+    `geohash` VARCHAR(12) DEFAULT NULL COMMENT 'GeoHash编码（由经纬度计算，8位，用于附近医生查询）',
     `address_code` VARCHAR(20) DEFAULT NULL COMMENT '地址编码（行政区划编码）',
     `license_number` VARCHAR(100) NOT NULL COMMENT '执业证书编号',
     `license_photo_url` VARCHAR(500) NOT NULL COMMENT '执业证书照片URL',
@@ -46,5 +47,16 @@ CREATE TABLE IF NOT EXISTS `vet_ai_doctor` (
     KEY `idx_type` (`type`, `is_void`),
     KEY `idx_address_code` (`address_code`, `status`, `is_void`),
     KEY `idx_location` (`longitude`, `latitude`, `status`, `is_void`),
+    KEY `idx_geohash` (`geohash`, `latitude`, `longitude`, `status`, `is_void`),
     KEY `idx_create_time` (`create_time`, `is_void`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='医生表';
+
+-- ============================================
+-- 已有表升级：增加 GeoHash 列和索引
+-- 索引包含经纬度和状态列，按 GeoHash 前缀范围扫描时包围盒和状态条件在索引上过滤（索引条件下推），不需要回表
+-- 升级后由 DoctorGeohashBackfill 为已有数据补齐 GeoHash（默认在应用启动完成后执行一次，也可调用 backfill()）；
+-- 补齐前 geohash 为 NULL 的医生在附近医生查询中只按经纬度包围盒筛选，不会丢失
+-- ============================================
+-- ALTER TABLE `vet_ai_doctor`
+--     ADD COLUMN `geohash` VARCHAR(12) DEFAULT NULL COMMENT 'GeoHash编码（由经纬度计算，8位，用于附近医生查询）' AFTER `latitude`,
+--     ADD KEY `idx_geohash` (`geohash`, `latitude`, `longitude`, `status`, `is_void`);
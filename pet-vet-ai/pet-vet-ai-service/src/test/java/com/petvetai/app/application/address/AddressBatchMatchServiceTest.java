@@ -0,0 +1,249 @@
+package com.petvetai.app.application.address;
+
+import com.petvetai.app.dto.resp.AddressBatchMatchSummaryResp;
+import com.petvetai.app.dto.resp.AddressMatchRowResp;
+import com.petvetai.infrastructure.util.LatencyHistogram;
+import com.petvetai.infrastructure.util.address.AddressDivisionLoader;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import com.petvetai.infrastructure.util.address.MatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量地址匹配服务测试（不依赖Spring上下文）
+ * 
+ * 使用 resources/data/administrative_divisions.csv 构建索引，块大小设为 2，
+ * 使一个批次被拆成多个并发执行的块，校验输出顺序、去重（重复标记确定、每个地址只匹配一次）和统计
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("批量地址匹配服务测试")
+class AddressBatchMatchServiceTest {
+    
+    private ExecutorService executor;
+    
+    private AddressIndex index;
+    
+    private AddressMatcher matcher;
+    
+    private AddressBatchMatchService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        List<AdministrativeDivision> divisions;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/administrative_divisions.csv")) {
+            assertNotNull(in, "缺少行政区划数据文件");
+            divisions = AddressDivisionLoader.load(in);
+        }
+        index = new AddressIndex();
+        index.buildIndex(divisions);
+        matcher = new AddressMatcher(index);
+        executor = Executors.newFixedThreadPool(4);
+        service = new AddressBatchMatchService(matcher, executor, 2, 3, 1000);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    @DisplayName("加载行政区划数据")
+    void testLoadDivisions() throws IOException {
+        String csv = "# 注释\n\n33011,浙江省,杭州市,余杭区,仓前街道\n11001,北京市,北京市,海淀区,\n";
+        List<AdministrativeDivision> divisions = AddressDivisionLoader.load(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        
+        assertEquals(2, divisions.size());
+        assertEquals("浙江省杭州市余杭区仓前街道", divisions.get(0).getFullAddress());
+        assertEquals(4, divisions.get(0).getLevel());
+        assertNull(divisions.get(1).getStreet());
+        assertEquals("北京市海淀区", divisions.get(1).getFullAddress());
+        assertEquals(3, divisions.get(1).getLevel());
+        
+        assertThrows(IOException.class, () -> AddressDivisionLoader.load(
+            new ByteArrayInputStream("33011,浙江省".getBytes(StandardCharsets.UTF_8))));
+    }
+    
+    @Test
+    @DisplayName("按输入顺序输出并与单条匹配结果一致")
+    void testOrderAndConsistency() {
+        List<String> inputs = new ArrayList<>();
+        String[] samples = {
+            "浙江省杭州市余杭区仓前街道",
+            "北京市海淀区中关村街道",
+            "上海市黄浦区外滩街道",
+            "四川省成都市锦江区春熙路街道",
+            "江苏省南京市鼓楼区湖南路街道"
+        };
+        for (int i = 0; i < 40; i++) {
+            inputs.add(samples[i % samples.length] + (i % 7 == 0 ? "" : " " + i + "号"));
+        }
+        
+        List<AddressMatchRowResp> rows = new ArrayList<>();
+        AddressBatchMatchSummaryResp summary = service.matchBatch(inputs.iterator(), rows::add);
+        
+        assertEquals(inputs.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            AddressMatchRowResp row = rows.get(i);
+            assertEquals(i + 1, row.getLine());
+            assertEquals(inputs.get(i), row.getInput());
+            assertEquals(matcher.match(inputs.get(i)).getCode(), row.getCode());
+        }
+        assertEquals(inputs.size(), summary.getTotal());
+        assertEquals(inputs.size(), summary.getMatched());
+        assertEquals(0, summary.getUnmatched());
+    }
+    
+    @Test
+    @DisplayName("标准化后相同的地址标记为重复")
+    void testDuplicates() {
+        List<String> inputs = Arrays.asList(
+            "浙江省杭州市余杭区仓前街道",
+            "浙江省 杭州市 余杭区 仓前街道",
+            "北京市海淀区中关村街道",
+            "浙江省杭州市余杭区仓前街道"
+        );
+        
+        List<AddressMatchRowResp> rows = new ArrayList<>();
+        AddressBatchMatchSummaryResp summary = service.matchBatch(inputs.iterator(), rows::add);
+        
+        // 重复标记按输入顺序判定，与第四行所在的块是否和第一个块并发执行无关
+        assertFalse(rows.get(0).getDuplicate());
+        assertTrue(rows.get(1).getDuplicate());
+        assertFalse(rows.get(2).getDuplicate());
+        assertTrue(rows.get(3).getDuplicate());
+        assertEquals(rows.get(0).getCode(), rows.get(1).getCode());
+        assertEquals(rows.get(0).getCode(), rows.get(3).getCode());
+        assertEquals(2, summary.getDuplicates());
+    }
+    
+    @Test
+    @DisplayName("跨块并发的重复地址：标记确定且每个地址只匹配一次")
+    void testDuplicatesAcrossConcurrentChunks() {
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        AddressMatcher countingMatcher = new AddressMatcher(index) {
+            @Override
+            public MatchResult match(String inputAddress) {
+                calls.computeIfAbsent(inputAddress, key -> new AtomicInteger()).incrementAndGet();
+                return super.match(inputAddress);
+            }
+        };
+        AddressBatchMatchService countingService = new AddressBatchMatchService(countingMatcher, executor, 2, 8, 1000);
+        String[] samples = {
+            "浙江省杭州市余杭区仓前街道",
+            "北京市海淀区中关村街道",
+            "上海市黄浦区外滩街道",
+            "完全无关的内容"
+        };
+        
+        for (int round = 0; round < 20; round++) {
+            calls.clear();
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                inputs.add(i % 9 == 0 ? "" : samples[(i * 7 + round) % samples.length]);
+            }
+            
+            List<AddressMatchRowResp> rows = new ArrayList<>();
+            AddressBatchMatchSummaryResp summary = countingService.matchBatch(inputs.iterator(), rows::add);
+            
+            Set<String> seen = new HashSet<>();
+            long expectedDuplicates = 0;
+            for (int i = 0; i < inputs.size(); i++) {
+                boolean expected = !inputs.get(i).isEmpty() && !seen.add(inputs.get(i));
+                assertEquals(expected, rows.get(i).getDuplicate(), "第" + (i + 1) + "行");
+                expectedDuplicates += expected ? 1 : 0;
+            }
+            assertEquals(expectedDuplicates, summary.getDuplicates());
+            assertEquals(seen, calls.keySet());
+            for (Map.Entry<String, AtomicInteger> entry : calls.entrySet()) {
+                assertEquals(1, entry.getValue().get(), "重复匹配: " + entry.getKey());
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("统计空行、未匹配和异常地址")
+    void testStats() {
+        List<String> inputs = Arrays.asList(
+            "",
+            "   ",
+            "浙江省杭州市余杭区仓前街道",
+            "北京北京市海淀区浙江省杭州市余杭区五常街道",
+            "完全无关的内容"
+        );
+        
+        List<AddressMatchRowResp> rows = new ArrayList<>();
+        AddressBatchMatchSummaryResp summary = service.matchBatch(inputs.iterator(), rows::add);
+        
+        assertEquals(5, summary.getTotal());
+        assertNull(rows.get(0).getCode());
+        assertNull(rows.get(1).getCode());
+        assertFalse(rows.get(0).getAbnormal());
+        assertTrue(rows.get(3).getAbnormal());
+        assertNotNull(rows.get(3).getAbnormalReason());
+        assertEquals(matcher.detectAbnormal(inputs.get(3)), rows.get(3).getAbnormalReason());
+        assertEquals(1, summary.getAbnormal());
+        assertEquals(summary.getTotal() - summary.getMatched(), summary.getUnmatched());
+        assertTrue(summary.getUnmatched() >= 3);
+        assertTrue(summary.getLatencyP50Micros() <= summary.getLatencyP99Micros());
+        assertTrue(summary.getLatencyP99Micros() <= summary.getLatencyMaxMicros());
+    }
+    
+    @Test
+    @DisplayName("输出回调异常时中止批次")
+    void testSinkFailure() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inputs.add("浙江省杭州市余杭区仓前街道" + i + "号");
+        }
+        int[] count = {0};
+        
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.matchBatch(inputs.iterator(), row -> {
+            if (++count[0] == 5) {
+                throw new RuntimeException("写出失败");
+            }
+        }));
+        assertEquals("写出失败", e.getMessage());
+        assertEquals(5, count[0]);
+    }
+    
+    @Test
+    @DisplayName("延迟直方图分位数")
+    void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram other = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? histogram : other).record(i * 1000);
+        }
+        histogram.merge(other);
+        
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1_000_000, histogram.getMaxValue());
+        // 相对误差不超过 1/16
+        assertEquals(500_000, histogram.percentile(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.percentile(99), 990_000 / 16.0);
+    }
+}
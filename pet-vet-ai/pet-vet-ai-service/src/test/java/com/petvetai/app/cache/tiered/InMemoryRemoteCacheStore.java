@@ -0,0 +1,103 @@
+package com.petvetai.app.cache.tiered;
+
+import com.petvetai.infrastructure.cache.tiered.RemoteCacheStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 内存实现的共享缓存存储，模拟 Redis 的代数比较写入和失效广播（同步通知所有订阅方），
+ * 多个 TieredCache 共用一个实例即模拟多个服务实例
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class InMemoryRemoteCacheStore implements RemoteCacheStore {
+    
+    private final Map<String, String> values = new HashMap<>();
+    
+    private final Map<String, Long> generations = new HashMap<>();
+    
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+    
+    private final AtomicInteger reads = new AtomicInteger();
+    
+    private final AtomicInteger rejectedPuts = new AtomicInteger();
+    
+    private volatile boolean failing;
+    
+    @Override
+    public List<Entry> getAll(List<String> keys) {
+        checkAvailable();
+        reads.incrementAndGet();
+        List<Entry> entries = new ArrayList<>(keys.size());
+        synchronized (this) {
+            for (String key : keys) {
+                entries.add(new Entry(key, values.get(key), generations.getOrDefault(key, 0L), 0L));
+            }
+        }
+        return entries;
+    }
+    
+    @Override
+    public synchronized void putAll(List<Entry> entries) {
+        checkAvailable();
+        for (Entry entry : entries) {
+            if (generations.getOrDefault(entry.getKey(), 0L) == entry.getGeneration()) {
+                values.put(entry.getKey(), entry.getValue());
+            } else {
+                rejectedPuts.incrementAndGet();
+            }
+        }
+    }
+    
+    @Override
+    public void invalidate(Collection<String> keys) {
+        checkAvailable();
+        synchronized (this) {
+            for (String key : keys) {
+                values.remove(key);
+                generations.merge(key, 1L, Long::sum);
+            }
+        }
+        listeners.forEach(listener -> listener.accept(keys));
+    }
+    
+    @Override
+    public void subscribe(Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * 模拟存储不可用
+     * 
+     * @param failing 是否不可用
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+    
+    public synchronized String rawValue(String key) {
+        return values.get(key);
+    }
+    
+    public int getReads() {
+        return reads.get();
+    }
+    
+    public int getRejectedPuts() {
+        return rejectedPuts.get();
+    }
+    
+    private void checkAvailable() {
+        if (failing) {
+            throw new IllegalStateException("remote cache store unavailable");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.petvetai.app.cache.tiered;
+
+import com.petvetai.infrastructure.cache.tiered.RedisRemoteCacheStore;
+import com.petvetai.infrastructure.cache.tiered.RemoteCacheStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis 共享缓存存储测试（在真实 Redis 上执行写入和失效脚本，未安装 Docker 时跳过）
+ * 
+ * 集群模式的分组逻辑在单机 Redis 上同样可以执行（每组一个槽），用同一组用例校验两种模式
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Redis 共享缓存存储测试")
+class RedisRemoteCacheStoreTest {
+    
+    private static final String KEY_PREFIX = "test:cache:";
+    
+    private static final String CHANNEL = "test:cache:invalidate";
+    
+    private static final long TTL_MILLIS = 60_000L;
+    
+    private static final long GENERATION_TTL_MILLIS = 120_000L;
+    
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+    
+    private static LettuceConnectionFactory connectionFactory;
+    
+    private static StringRedisTemplate redisTemplate;
+    
+    private static RedisMessageListenerContainer listenerContainer;
+    
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+    
+    @AfterAll
+    static void disconnect() throws Exception {
+        listenerContainer.destroy();
+        connectionFactory.destroy();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        Set<String> keys = redisTemplate.keys(KEY_PREFIX + "*");
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+    
+    private static RedisRemoteCacheStore store(boolean cluster) {
+        return new RedisRemoteCacheStore(redisTemplate, listenerContainer, KEY_PREFIX, CHANNEL,
+                GENERATION_TTL_MILLIS, cluster);
+    }
+    
+    private static RemoteCacheStore.Entry entry(String key, String value, long generation) {
+        return new RemoteCacheStore.Entry(key, value, generation, TTL_MILLIS);
+    }
+    
+    @Test
+    @DisplayName("测试写入后读取到值和代数，并设置过期时间")
+    void testPutAndGet() {
+        for (boolean cluster : new boolean[]{false, true}) {
+            setUp();
+            RedisRemoteCacheStore store = store(cluster);
+            assertEntry(store.getAll(List.of("a")).get(0), "a", null, 0L);
+            
+            store.putAll(List.of(entry("a", "v1", 0L), entry("b", "", 0L)));
+            
+            List<RemoteCacheStore.Entry> entries = store.getAll(List.of("a", "b", "c"));
+            assertEntry(entries.get(0), "a", "v1", 0L);
+            assertEntry(entries.get(1), "b", "", 0L);
+            assertEntry(entries.get(2), "c", null, 0L);
+            assertTtl(KEY_PREFIX + "{a}", TTL_MILLIS);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试失效删除值、代数加一并设置代数的过期时间")
+    void testInvalidate() {
+        for (boolean cluster : new boolean[]{false, true}) {
+            setUp();
+            RedisRemoteCacheStore store = store(cluster);
+            store.putAll(List.of(entry("a", "v1", 0L), entry("b", "v1", 0L)));
+            
+            store.invalidate(List.of("a", "c"));
+            store.invalidate(List.of("a"));
+            
+            List<RemoteCacheStore.Entry> entries = store.getAll(List.of("a", "b", "c"));
+            assertEntry(entries.get(0), "a", null, 2L);
+            assertEntry(entries.get(1), "b", "v1", 0L);
+            assertEntry(entries.get(2), "c", null, 1L);
+            assertTtl(KEY_PREFIX + "gen:{a}", GENERATION_TTL_MILLIS);
+            assertTtl(KEY_PREFIX + "gen:{c}", GENERATION_TTL_MILLIS);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试代数已变化的写入被丢弃，同一批中代数一致的条目正常写入")
+    void testStalePutDiscarded() {
+        for (boolean cluster : new boolean[]{false, true}) {
+            setUp();
+            RedisRemoteCacheStore store = store(cluster);
+            // 加载前读到代数 0，加载期间 a 被失效
+            long generation = store.getAll(List.of("a")).get(0).getGeneration();
+            store.invalidate(List.of("a"));
+            
+            store.putAll(List.of(entry("a", "stale", generation), entry("b", "v1", 0L)));
+            
+            List<RemoteCacheStore.Entry> entries = store.getAll(List.of("a", "b"));
+            assertEntry(entries.get(0), "a", null, 1L);
+            assertEntry(entries.get(1), "b", "v1", 0L);
+            
+            // 失效之后重新读取代数再加载的结果可以写入
+            store.putAll(List.of(entry("a", "v2", 1L)));
+            assertEntry(store.getAll(List.of("a")).get(0), "a", "v2", 1L);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试大批量Key跨多个槽时写入和失效结果正确，且每个Key的值和代数在同一个槽")
+    void testManySlots() {
+        List<String> keys = IntStream.range(0, 200).mapToObj(i -> "id:" + i).collect(Collectors.toList());
+        Set<Integer> slots = keys.stream()
+                .map(key -> ClusterSlotHashUtil.calculateSlot(KEY_PREFIX + "{" + key + "}"))
+                .collect(Collectors.toSet());
+        assertTrue(slots.size() > 100, "槽的数量: " + slots.size());
+        
+        for (boolean cluster : new boolean[]{false, true}) {
+            setUp();
+            RedisRemoteCacheStore store = store(cluster);
+            List<RemoteCacheStore.Entry> entries = new ArrayList<>();
+            keys.forEach(key -> entries.add(entry(key, "v:" + key, 0L)));
+            store.putAll(entries);
+            store.invalidate(keys.subList(0, 100));
+            
+            List<RemoteCacheStore.Entry> read = store.getAll(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                if (i < 100) {
+                    assertEntry(read.get(i), keys.get(i), null, 1L);
+                } else {
+                    assertEntry(read.get(i), keys.get(i), "v:" + keys.get(i), 0L);
+                }
+            }
+            
+            Set<String> redisKeys = redisTemplate.keys(KEY_PREFIX + "*");
+            assertNotNull(redisKeys);
+            assertEquals(200, redisKeys.size());
+            for (String redisKey : redisKeys) {
+                String key = redisKey.substring(redisKey.indexOf('{') + 1, redisKey.length() - 1);
+                assertEquals(ClusterSlotHashUtil.calculateSlot(key), ClusterSlotHashUtil.calculateSlot(redisKey),
+                        redisKey);
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("测试失效后向订阅方广播失效的Key")
+    void testInvalidationBroadcast() throws InterruptedException {
+        RedisRemoteCacheStore store = store(false);
+        BlockingQueue<Collection<String>> received = new LinkedBlockingQueue<>();
+        store.subscribe(received::add);
+        
+        // 订阅异步生效，先发送探测消息直到收到为止
+        Collection<String> probe = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (probe == null && System.currentTimeMillis() < deadline) {
+            redisTemplate.convertAndSend(CHANNEL, "probe");
+            probe = received.poll(100, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(List.of("probe"), probe);
+        received.clear();
+        
+        store.invalidate(List.of("id:1", "phone:13800000000"));
+        
+        Collection<String> keys = received.poll(5, TimeUnit.SECONDS);
+        while (keys != null && keys.equals(List.of("probe"))) {
+            keys = received.poll(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("id:1", "phone:13800000000"), keys);
+    }
+    
+    private static void assertEntry(RemoteCacheStore.Entry entry, String key, String value, long generation) {
+        assertEquals(key, entry.getKey());
+        assertEquals(value, entry.getValue(), key);
+        assertEquals(generation, entry.getGeneration(), key);
+    }
+    
+    private static void assertTtl(String redisKey, long ttlMillis) {
+        Long remaining = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+        assertNotNull(remaining);
+        assertTrue(remaining > 0 && remaining <= ttlMillis, redisKey + " 剩余 TTL: " + remaining);
+    }
+}
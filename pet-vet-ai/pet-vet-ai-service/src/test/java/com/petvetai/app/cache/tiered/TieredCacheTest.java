@@ -0,0 +1,290 @@
+package com.petvetai.app.cache.tiered;
+
+import com.petvetai.infrastructure.cache.tiered.TieredCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两级缓存测试（不依赖Spring上下文和Redis）
+ * 
+ * 多个 TieredCache 共用一个 {@link InMemoryRemoteCacheStore} 模拟多个服务实例，
+ * 重点校验并发更新时失效与加载的先后顺序：失效完成之后开始的读取不能再读到失效之前的值
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("两级缓存测试")
+class TieredCacheTest {
+    
+    private static final Duration LOCAL_TTL = Duration.ofMinutes(1);
+    
+    private static final Duration REMOTE_TTL = Duration.ofMinutes(30);
+    
+    private static final Duration NEGATIVE_TTL = Duration.ofMinutes(1);
+    
+    private InMemoryRemoteCacheStore store;
+    
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRemoteCacheStore();
+        executor = Executors.newCachedThreadPool();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    @DisplayName("读穿透：共享存储命中时不访问数据源，不存在的Key也会缓存")
+    void testReadThroughAndNegativeCaching() {
+        TieredCache<String> replicaA = newCache();
+        TieredCache<String> replicaB = newCache();
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, String> loader = key -> {
+            loads.incrementAndGet();
+            return "k".equals(key) ? "v1" : null;
+        };
+        
+        assertEquals("v1", replicaA.get("k", loader));
+        assertEquals("v1", replicaA.get("k", loader));
+        assertEquals("v1", replicaB.get("k", loader));
+        assertEquals(1, loads.get(), "第二个实例应从共享存储读取");
+        
+        assertNull(replicaA.get("missing", loader));
+        assertNull(replicaA.get("missing", loader));
+        assertNull(replicaB.get("missing", loader));
+        assertEquals(2, loads.get(), "不存在的Key应被缓存");
+    }
+    
+    @Test
+    @DisplayName("同一个Key并发未命中时只加载一次")
+    void testSingleFlight() throws Exception {
+        TieredCache<String> cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> loader = key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "v1";
+        };
+        
+        List<Thread> threads = new ArrayList<>();
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread());
+                }
+                return cache.get("k", loader);
+            }));
+        }
+        // 等所有线程都阻塞（一个在加载，其余在等待加载结果）后再放行
+        waitUntil(() -> {
+            synchronized (threads) {
+                return threads.size() == 16 && threads.stream().allMatch(thread ->
+                        thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING);
+            }
+        });
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    @DisplayName("加载期间发生失效：旧值不写入缓存，失效之后的读取不等待旧的加载")
+    void testInvalidationDuringLoad() throws Exception {
+        TieredCache<String> cache = newCache();
+        AtomicReference<String> db = new AtomicReference<>("v1");
+        AtomicBoolean blockNext = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> loader = key -> {
+            String value = db.get();
+            if (blockNext.compareAndSet(true, false)) {
+                started.countDown();
+                await(release);
+            }
+            return value;
+        };
+        
+        Future<String> slowRead = executor.submit(() -> cache.get("k", loader));
+        await(started);
+        db.set("v2");
+        cache.invalidate(List.of("k"));
+        
+        // 旧的加载仍未结束，失效之后的读取应重新加载
+        assertEquals("v2", cache.get("k", loader));
+        
+        release.countDown();
+        assertEquals("v1", slowRead.get(5, TimeUnit.SECONDS), "失效之前开始的读取返回旧值");
+        assertEquals("v2", cache.get("k", key -> fail("应命中本地缓存")));
+        assertEquals("v2", store.rawValue("test:k"));
+        assertEquals(1, store.getRejectedPuts(), "旧值不能写回共享存储");
+    }
+    
+    @Test
+    @DisplayName("一个实例失效后其他实例的本地缓存同时被清理")
+    void testInvalidationReachesOtherReplicas() {
+        TieredCache<String> replicaA = newCache();
+        TieredCache<String> replicaB = newCache();
+        AtomicReference<String> db = new AtomicReference<>("v1");
+        Function<String, String> loader = key -> db.get();
+        assertEquals("v1", replicaA.get("k", loader));
+        assertEquals("v1", replicaB.get("k", loader));
+        
+        db.set("v2");
+        replicaA.invalidate(List.of("k"));
+        
+        assertEquals("v2", replicaB.get("k", loader));
+        assertEquals("v2", replicaA.get("k", loader));
+    }
+    
+    @Test
+    @DisplayName("并发更新：失效完成之后开始的读取不会读到更早的版本")
+    void testInvalidationOrderingUnderConcurrentUpdates() throws Exception {
+        List<TieredCache<String>> replicas = List.of(newCache(), newCache(), newCache());
+        AtomicLong db = new AtomicLong();
+        // 已完成失效的最大版本
+        AtomicLong committed = new AtomicLong();
+        Function<String, String> loader = key -> {
+            String value = Long.toString(db.get());
+            Thread.yield();
+            return value;
+        };
+        
+        int writers = 2;
+        int readers = 6;
+        int updates = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            TieredCache<String> replica = replicas.get(w % replicas.size());
+            tasks.add(executor.submit(() -> {
+                await(start);
+                for (int i = 0; i < updates; i++) {
+                    long version = db.incrementAndGet();
+                    replica.invalidate(List.of("k"));
+                    committed.accumulateAndGet(version, Math::max);
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            TieredCache<String> replica = replicas.get(r % replicas.size());
+            tasks.add(executor.submit(() -> {
+                await(start);
+                while (writing.get()) {
+                    long expectedAtLeast = committed.get();
+                    long read = Long.parseLong(replica.get("k", loader));
+                    assertTrue(read >= expectedAtLeast,
+                            () -> "读到已失效的版本 " + read + "，失效已完成的版本 " + expectedAtLeast);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (int w = 0; w < writers; w++) {
+            tasks.get(w).get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        
+        String latest = Long.toString(db.get());
+        for (TieredCache<String> replica : replicas) {
+            assertEquals(latest, replica.get("k", loader));
+        }
+    }
+    
+    @Test
+    @DisplayName("共享存储不可用时直接读数据源，失效不抛异常")
+    void testRemoteStoreUnavailable() {
+        TieredCache<String> cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<String> db = new AtomicReference<>("v1");
+        Function<String, String> loader = key -> {
+            loads.incrementAndGet();
+            return db.get();
+        };
+        store.setFailing(true);
+        
+        assertEquals("v1", cache.get("k", loader));
+        assertEquals("v1", cache.get("k", loader));
+        assertEquals(1, loads.get());
+        
+        db.set("v2");
+        cache.invalidate(List.of("k"));
+        assertEquals("v2", cache.get("k", loader));
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    @DisplayName("批量读取只加载未命中的Key")
+    void testGetAllLoadsOnlyMissingKeys() {
+        TieredCache<String> cache = newCache();
+        cache.get("a", key -> "va");
+        List<Set<String>> requested = new ArrayList<>();
+        
+        Map<String, String> result = cache.getAll(List.of("a", "b", "c", "b"), keys -> {
+            requested.add(Set.copyOf(keys));
+            Map<String, String> loaded = new HashMap<>();
+            loaded.put("b", "vb");
+            return loaded;
+        });
+        
+        assertEquals(Map.of("a", "va", "b", "vb"), result);
+        assertEquals(List.of(Set.of("b", "c")), requested);
+        assertTrue(cache.getAll(List.of("b", "c"), keys -> fail("应全部命中缓存")).containsKey("b"));
+    }
+    
+    private TieredCache<String> newCache() {
+        return new TieredCache<>("test", store, Function.identity(), Function.identity(),
+                1000, LOCAL_TTL, REMOTE_TTL, NEGATIVE_TTL);
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS), "等待超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
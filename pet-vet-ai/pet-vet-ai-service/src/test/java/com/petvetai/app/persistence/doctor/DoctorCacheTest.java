@@ -0,0 +1,210 @@
+package com.petvetai.app.persistence.doctor;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.petvetai.app.cache.tiered.InMemoryRemoteCacheStore;
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
+import com.petvetai.domain.doctor.model.Address;
+import com.petvetai.domain.doctor.model.Doctor;
+import com.petvetai.domain.doctor.model.DoctorId;
+import com.petvetai.domain.doctor.model.DoctorInfo;
+import com.petvetai.domain.doctor.model.DoctorStatus;
+import com.petvetai.domain.doctor.model.DoctorType;
+import com.petvetai.domain.doctor.model.Qualification;
+import com.petvetai.infrastructure.persistence.doctor.DoctorCache;
+import com.petvetai.infrastructure.persistence.doctor.DoctorRepositoryImpl;
+import com.petvetai.infrastructure.persistence.doctor.DoctorSpatialIndex;
+import com.petvetai.infrastructure.persistence.doctor.converter.DoctorConverter;
+import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
+import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 医生缓存测试（H2 MySQL 兼容模式，不依赖Spring上下文和Redis）
+ * 
+ * 仓储的按ID、按手机号、按地址编码查询走缓存，校验注册、资料变更、地址变更、审核和删除后
+ * 通过医生变更事件失效缓存，查询结果与数据库一致。缓存在测试之间共享，每个测试使用不同的地址编码
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("医生缓存测试")
+class DoctorCacheTest {
+    
+    private static SqlSession sqlSession;
+    
+    private static DoctorMapper doctorMapper;
+    
+    private static DoctorConverter doctorConverter;
+    
+    private static ApplicationEventPublisher publisher;
+    
+    private static DoctorRepositoryImpl doctorRepository;
+    
+    @BeforeAll
+    static void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:doctor_cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("sql/vet_ai_doctor.sql"), StandardCharsets.UTF_8));
+        }
+        
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("h2", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(DoctorMapper.class);
+        sqlSession = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+        doctorMapper = sqlSession.getMapper(DoctorMapper.class);
+        doctorConverter = new DoctorConverter();
+        DoctorCache doctorCache = new DoctorCache(doctorMapper, new InMemoryRemoteCacheStore(),
+                new ObjectMapper().registerModule(new JavaTimeModule()), 1000,
+                Duration.ofMinutes(1), Duration.ofMinutes(30), Duration.ofMinutes(1));
+        // 没有事务，监听器立即执行
+        publisher = event -> {
+            if (event instanceof DoctorChangedEvent) {
+                doctorCache.onDoctorChanged((DoctorChangedEvent) event);
+            }
+        };
+        doctorRepository = new DoctorRepositoryImpl(doctorMapper, doctorConverter,
+                new DoctorSpatialIndex(doctorMapper, false, 300, 10_000, 10_000), doctorCache, publisher);
+    }
+    
+    @AfterAll
+    static void tearDown() {
+        if (sqlSession != null) {
+            sqlSession.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("测试注册后不再返回缓存的不存在结果")
+    void testNegativeCacheInvalidatedOnRegister() {
+        String addressCode = "330101";
+        Doctor doctor = doctor(20_000_001L, DoctorStatus.PENDING, addressCode);
+        String phone = doctor.getDoctorInfo().getPhone();
+        assertNull(doctorRepository.findByPhone(phone));
+        assertNull(doctorRepository.findById(doctor.getId()));
+        
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        // 没有事件时仍返回缓存的结果
+        assertNull(doctorRepository.findByPhone(phone));
+        
+        publisher.publishEvent(DoctorChangedEvent.registered(doctor.getId(), doctor.getStatus(),
+                doctor.getAddress(), phone));
+        assertEquals(doctor.getId(), doctorRepository.findByPhone(phone).getId());
+        assertEquals(doctor.getId(), doctorRepository.findById(doctor.getId()).getId());
+    }
+    
+    @Test
+    @DisplayName("测试审核通过和禁用后按ID、按地址编码查询结果更新")
+    void testStatusChanges() {
+        String addressCode = "330102";
+        Doctor doctor = doctor(20_000_002L, DoctorStatus.PENDING, addressCode);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        assertEquals(DoctorStatus.PENDING, doctorRepository.findById(doctor.getId()).getStatus());
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+        assertTrue(containsDoctor(doctorRepository.findByAddressCode(addressCode, null), doctor));
+        
+        doctor.approve();
+        doctorRepository.save(doctor);
+        assertEquals(DoctorStatus.APPROVED, doctorRepository.findById(doctor.getId()).getStatus());
+        assertTrue(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.PENDING), doctor));
+        
+        doctor.disable();
+        doctorRepository.save(doctor);
+        assertEquals(DoctorStatus.DISABLED, doctorRepository.findById(doctor.getId()).getStatus());
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+    }
+    
+    @Test
+    @DisplayName("测试地址和手机号变更后旧值对应的缓存失效")
+    void testAddressAndPhoneChanges() {
+        String addressCode = "330103";
+        String newAddressCode = "310101";
+        Doctor doctor = doctor(20_000_003L, DoctorStatus.APPROVED, addressCode);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        String oldPhone = doctor.getDoctorInfo().getPhone();
+        assertTrue(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(newAddressCode, DoctorStatus.APPROVED), doctor));
+        assertEquals(doctor.getId(), doctorRepository.findByPhone(oldPhone).getId());
+        
+        doctor.updateAddress(Address.of("上海市", "上海市", "黄浦区", "详细地址", 121.4737, 31.2304, newAddressCode));
+        doctorRepository.save(doctor);
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+        assertTrue(containsDoctor(doctorRepository.findByAddressCode(newAddressCode, DoctorStatus.APPROVED), doctor));
+        
+        String newPhone = "13900000003";
+        doctor.updateInfo(DoctorInfo.ofIndividual("测试医生", 1, 35, newPhone, null, null, null));
+        doctorRepository.save(doctor);
+        assertNull(doctorRepository.findByPhone(oldPhone));
+        assertEquals(doctor.getId(), doctorRepository.findByPhone(newPhone).getId());
+        assertEquals(newPhone, doctorRepository.findById(doctor.getId()).getDoctorInfo().getPhone());
+    }
+    
+    @Test
+    @DisplayName("测试删除后不再返回缓存的医生")
+    void testDelete() {
+        String addressCode = "330104";
+        Doctor doctor = doctor(20_000_004L, DoctorStatus.APPROVED, addressCode);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        String phone = doctor.getDoctorInfo().getPhone();
+        assertNotNull(doctorRepository.findById(doctor.getId()));
+        assertNotNull(doctorRepository.findByPhone(phone));
+        assertTrue(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+        
+        doctorRepository.delete(doctor.getId());
+        assertNull(doctorRepository.findById(doctor.getId()));
+        assertNull(doctorRepository.findByPhone(phone));
+        assertFalse(containsDoctor(doctorRepository.findByAddressCode(addressCode, DoctorStatus.APPROVED), doctor));
+    }
+    
+    private static boolean containsDoctor(List<Doctor> doctors, Doctor doctor) {
+        return doctors.stream().anyMatch(found -> found.getId().equals(doctor.getId()));
+    }
+    
+    /**
+     * 指定状态和地址编码的医生
+     */
+    private static Doctor doctor(long id, DoctorStatus status, String addressCode) {
+        String phone = String.format("138%08d", id % 100_000_000L);
+        LocalDateTime now = LocalDateTime.now();
+        VetAiDoctorPO existing = doctorMapper.selectById(id);
+        assertNull(existing, "测试数据ID重复");
+        return Doctor.reconstruct(
+            DoctorId.of(id),
+            DoctorType.INDIVIDUAL,
+            DoctorInfo.ofIndividual("测试医生", 1, 35, phone, null, null, null),
+            Address.of("浙江省", "杭州市", "西湖区", "详细地址", 120.1551, 30.2741, addressCode),
+            Qualification.of("L" + phone, "L.jpg", "C" + phone, "C.jpg", null, null, null),
+            status,
+            now,
+            now,
+            now,
+            null
+        );
+    }
+}
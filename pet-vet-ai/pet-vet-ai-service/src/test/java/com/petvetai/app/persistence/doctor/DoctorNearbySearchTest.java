@@ -0,0 +1,577 @@
+package com.petvetai.app.persistence.doctor;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.petvetai.app.cache.tiered.InMemoryRemoteCacheStore;
+import com.petvetai.domain.doctor.event.DoctorChangedEvent;
+import com.petvetai.domain.doctor.model.Address;
+import com.petvetai.domain.doctor.model.Doctor;
+import com.petvetai.domain.doctor.model.DoctorId;
+import com.petvetai.domain.doctor.model.DoctorInfo;
+import com.petvetai.domain.doctor.model.DoctorStatus;
+import com.petvetai.domain.doctor.model.DoctorType;
+import com.petvetai.domain.doctor.model.Qualification;
+import com.petvetai.infrastructure.persistence.doctor.DoctorCache;
+import com.petvetai.infrastructure.persistence.doctor.DoctorGeohashBackfill;
+import com.petvetai.infrastructure.persistence.doctor.DoctorRepositoryImpl;
+import com.petvetai.infrastructure.persistence.doctor.DoctorSpatialIndex;
+import com.petvetai.infrastructure.persistence.doctor.converter.DoctorConverter;
+import com.petvetai.infrastructure.persistence.doctor.mapper.DoctorMapper;
+import com.petvetai.infrastructure.persistence.doctor.po.VetAiDoctorPO;
+import com.petvetai.infrastructure.util.GeoHashUtil;
+import com.petvetai.infrastructure.util.geo.GeoPointIndex;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 附近医生查询测试（H2 MySQL 兼容模式，不依赖Spring上下文）
+ * 
+ * 使用 sql/vet_ai_doctor.sql 建表，写入 10 万条医生数据（大部分集中在几个城市周边），
+ * 以逐行计算距离的原查询为基准，校验 GeoHash 网格查询和内存空间索引查询的结果一致，
+ * 以及存量数据补齐和新增、更新时 GeoHash 的维护、医生状态变更后空间索引的增量更新。
+ * 
+ * 原查询在 SQL 中用余弦公式计算距离，新查询在 Java 中用 Haversine 公式计算，两者的浮点误差在 0.1m 量级，
+ * 所以结果只在距离边界（查询半径或第 limit 名的距离）附近允许不同
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("附近医生查询测试")
+class DoctorNearbySearchTest {
+    
+    private static final int DOCTOR_COUNT = 100_000;
+    
+    /**
+     * 两种距离计算方式允许的误差（公里）
+     */
+    private static final double DISTANCE_TOLERANCE = 0.001;
+    
+    /**
+     * 城市中心（经度, 纬度）：北京、上海、杭州、广州、成都
+     */
+    private static final double[][] CITIES = {
+        {116.4074, 39.9042}, {121.4737, 31.2304}, {120.1551, 30.2741}, {113.2644, 23.1291}, {104.0665, 30.5728}
+    };
+    
+    private static SqlSession sqlSession;
+    
+    private static DoctorMapper doctorMapper;
+    
+    private static DoctorConverter doctorConverter;
+    
+    /**
+     * 空间索引未加载，使用数据库查询
+     */
+    private static DoctorRepositoryImpl doctorRepository;
+    
+    private static DoctorSpatialIndex spatialIndex;
+    
+    /**
+     * 医生缓存的共享存储（相当于多个实例共用的 Redis）
+     */
+    private static InMemoryRemoteCacheStore remoteStore;
+    
+    /**
+     * 使用空间索引查询（测试中按需全量加载）
+     */
+    private static DoctorRepositoryImpl indexedRepository;
+    
+    private static DoctorGeohashBackfill backfill;
+    
+    /**
+     * 写入的有经纬度的医生数量
+     */
+    private static int locatedCount;
+    
+    /**
+     * 首次补齐的数量
+     */
+    private static int backfilledCount;
+    
+    @BeforeAll
+    static void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:doctor_nearby;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("sql/vet_ai_doctor.sql"), StandardCharsets.UTF_8));
+            locatedCount = seed(connection);
+        }
+        
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("h2", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(DoctorMapper.class);
+        sqlSession = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+        doctorMapper = sqlSession.getMapper(DoctorMapper.class);
+        doctorConverter = new DoctorConverter();
+        spatialIndex = new DoctorSpatialIndex(doctorMapper, true, 300, 10_000, 10_000);
+        remoteStore = new InMemoryRemoteCacheStore();
+        DoctorCache doctorCache = doctorCache();
+        // 两个仓储保存的变更都同步到空间索引和缓存（没有事务，监听器立即执行）
+        ApplicationEventPublisher publisher = event -> {
+            if (event instanceof DoctorChangedEvent) {
+                spatialIndex.onDoctorChanged((DoctorChangedEvent) event);
+                doctorCache.onDoctorChanged((DoctorChangedEvent) event);
+            }
+        };
+        doctorRepository = new DoctorRepositoryImpl(doctorMapper, doctorConverter,
+                new DoctorSpatialIndex(doctorMapper, true, 300, 10_000, 10_000), doctorCache, publisher);
+        indexedRepository = new DoctorRepositoryImpl(doctorMapper, doctorConverter, spatialIndex, doctorCache,
+                publisher);
+        
+        // 写入的数据没有 GeoHash，相当于增加 geohash 列之前的存量数据
+        backfill = new DoctorGeohashBackfill(doctorMapper, false, 500);
+        backfilledCount = backfill.backfill();
+    }
+    
+    @AfterAll
+    static void tearDown() {
+        if (sqlSession != null) {
+            sqlSession.close();
+        }
+    }
+    
+    /**
+     * 写入医生数据：80% 在城市中心 30 公里左右范围内，其余分布在全国范围；
+     * 约 5% 没有经纬度，约 70% 已审核，约 5% 已删除
+     * 
+     * @return 有经纬度的医生数量
+     */
+    private static int seed(Connection connection) throws SQLException {
+        String sql = "INSERT INTO vet_ai_doctor (type, name, phone, province, city, detail, longitude, latitude, " +
+                "license_number, license_photo_url, certificate_number, certificate_photo_url, status, is_void) " +
+                "VALUES (1, ?, ?, '省', '市', '详细地址', ?, ?, 'L', 'L.jpg', 'C', 'C.jpg', ?, ?)";
+        Random random = new Random(20261016L);
+        int located = 0;
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < DOCTOR_COUNT; i++) {
+                statement.setString(1, "医生" + i);
+                statement.setString(2, String.format("139%08d", i));
+                if (random.nextInt(100) < 5) {
+                    statement.setNull(3, Types.DECIMAL);
+                    statement.setNull(4, Types.DECIMAL);
+                } else {
+                    double[] point = randomPoint(random);
+                    statement.setDouble(3, point[0]);
+                    statement.setDouble(4, point[1]);
+                    located++;
+                }
+                statement.setInt(5, random.nextInt(100) < 70 ? 1 : random.nextInt(4));
+                statement.setInt(6, random.nextInt(100) < 5 ? 1 : 0);
+                statement.addBatch();
+                if (i % 1000 == 999) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        return located;
+    }
+    
+    /**
+     * 随机坐标（经度, 纬度）：80% 在某个城市中心附近，其余在全国范围内
+     */
+    private static double[] randomPoint(Random random) {
+        if (random.nextInt(100) < 80) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            return new double[]{city[0] + random.nextGaussian() * 0.3, city[1] + random.nextGaussian() * 0.3};
+        }
+        return new double[]{73 + random.nextDouble() * 62, 18 + random.nextDouble() * 35};
+    }
+    
+    @Test
+    @DisplayName("测试存量数据补齐 GeoHash")
+    void testBackfill() throws SQLException {
+        assertEquals(locatedCount, backfilledCount);
+        assertEquals(0, backfill.backfill());
+        
+        try (Statement statement = sqlSession.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT longitude, latitude, geohash FROM vet_ai_doctor " +
+                     "WHERE longitude IS NOT NULL AND id <= " + DOCTOR_COUNT)) {
+            int rows = 0;
+            while (resultSet.next()) {
+                String expected = GeoHashUtil.encode(resultSet.getDouble(1), resultSet.getDouble(2),
+                        GeoHashUtil.STORE_PRECISION);
+                assertEquals(expected, resultSet.getString(3));
+                rows++;
+            }
+            assertEquals(locatedCount, rows);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试网格查询与逐行计算距离的原查询结果一致")
+    void testMatchesLegacyQuery() {
+        Random random = new Random(42);
+        double[] radii = {0.5, 2, 5, 10, 30, 80};
+        int[] limits = {1, 20, 200};
+        int nonEmpty = 0;
+        for (int i = 0; i < 150; i++) {
+            double[] center = randomPoint(random);
+            double radius = radii[random.nextInt(radii.length)];
+            int limit = limits[random.nextInt(limits.length)];
+            if (assertSameAsLegacy(doctorRepository, center[0], center[1], radius, limit) > 0) {
+                nonEmpty++;
+            }
+        }
+        // 保证大部分查询确实命中了数据
+        assertTrue(nonEmpty > 100, "有结果的查询数: " + nonEmpty);
+    }
+    
+    @Test
+    @DisplayName("测试空间索引查询与逐行计算距离的原查询结果一致")
+    void testIndexMatchesLegacyQuery() {
+        assertTrue(spatialIndex.reconcile() > 0);
+        assertTrue(spatialIndex.isReady());
+        Random random = new Random(7);
+        double[] radii = {0.5, 2, 5, 10, 30, 80, 3000};
+        int[] limits = {1, 20, 200};
+        int nonEmpty = 0;
+        for (int i = 0; i < 150; i++) {
+            double[] center = randomPoint(random);
+            double radius = radii[random.nextInt(radii.length)];
+            int limit = limits[random.nextInt(limits.length)];
+            if (assertSameAsLegacy(indexedRepository, center[0], center[1], radius, limit) > 0) {
+                nonEmpty++;
+            }
+        }
+        assertTrue(nonEmpty > 100, "有结果的查询数: " + nonEmpty);
+    }
+    
+    @Test
+    @DisplayName("测试医生状态和地址变更后空间索引增量更新")
+    void testIndexFollowsDoctorChanges() {
+        spatialIndex.reconcile();
+        // 塔斯曼海上的坐标，周围没有其他医生
+        Doctor doctor = doctor(10_000_004L, DoctorStatus.PENDING, 160.0, -40.0);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        assertFalse(nearbyByIndex(160.0, -40.0, doctor.getId()));
+        
+        doctor.approve();
+        indexedRepository.save(doctor);
+        assertTrue(nearbyByIndex(160.0, -40.0, doctor.getId()));
+        
+        doctor.disable();
+        indexedRepository.save(doctor);
+        assertFalse(nearbyByIndex(160.0, -40.0, doctor.getId()));
+        
+        doctor.enable();
+        indexedRepository.save(doctor);
+        assertTrue(nearbyByIndex(160.0, -40.0, doctor.getId()));
+        
+        doctor.updateAddress(Address.of("省", "市", "区", "详细地址", 161.0, -41.0, null));
+        indexedRepository.save(doctor);
+        assertFalse(nearbyByIndex(160.0, -40.0, doctor.getId()));
+        assertTrue(nearbyByIndex(161.0, -41.0, doctor.getId()));
+        
+        // 全量对账后结果不变
+        spatialIndex.reconcile();
+        assertTrue(nearbyByIndex(161.0, -41.0, doctor.getId()));
+        
+        indexedRepository.delete(doctor.getId());
+        assertFalse(nearbyByIndex(161.0, -41.0, doctor.getId()));
+        spatialIndex.reconcile();
+        assertFalse(nearbyByIndex(161.0, -41.0, doctor.getId()));
+    }
+    
+    @Test
+    @DisplayName("测试无法用网格覆盖时回退为逐行计算距离")
+    void testFallbackAcrossAntimeridian() {
+        Doctor east = approvedDoctor(10_000_001L, 179.999, 0.0);
+        Doctor west = approvedDoctor(10_000_002L, -179.999, 0.0);
+        doctorMapper.insert(doctorConverter.toPO(east));
+        doctorMapper.insert(doctorConverter.toPO(west));
+        
+        List<Doctor> doctors = doctorRepository.findNearbyDoctors(179.9995, 0.0, 5.0, 10);
+        
+        assertEquals(2, doctors.size());
+        assertEquals(east.getId(), doctors.get(0).getId());
+        assertEquals(west.getId(), doctors.get(1).getId());
+    }
+    
+    @Test
+    @DisplayName("测试新增和更新医生时维护GeoHash")
+    void testGeohashMaintainedOnSave() {
+        Doctor doctor = approvedDoctor(10_000_003L, 120.1551, 30.2741);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        Long id = doctor.getId().getValue();
+        assertEquals(GeoHashUtil.encode(120.1551, 30.2741), doctorMapper.selectById(id).getGeohash());
+        assertTrue(doctorRepository.findNearbyDoctors(120.1551, 30.2741, 0.01, 10).stream()
+                .anyMatch(found -> found.getId().equals(doctor.getId())));
+        
+        doctor.updateAddress(Address.of("上海市", "上海市", "黄浦区", "南京东路1号", 121.4737, 31.2304, "310101"));
+        doctorRepository.save(doctor);
+        
+        VetAiDoctorPO updated = doctorMapper.selectById(id);
+        assertEquals(GeoHashUtil.encode(121.4737, 31.2304), updated.getGeohash());
+        assertTrue(doctorRepository.findNearbyDoctors(121.4737, 31.2304, 0.01, 10).stream()
+                .anyMatch(found -> found.getId().equals(doctor.getId())));
+        assertTrue(doctorRepository.findNearbyDoctors(120.1551, 30.2741, 0.01, 10).stream()
+                .noneMatch(found -> found.getId().equals(doctor.getId())));
+    }
+    
+    @Test
+    @DisplayName("测试补齐前缺少GeoHash的医生按包围盒查询")
+    void testNearbyBeforeBackfill() throws SQLException {
+        Doctor doctor = approvedDoctor(10_000_005L, 150.0, -45.0);
+        doctorMapper.insert(doctorConverter.toPO(doctor));
+        try (PreparedStatement statement = sqlSession.getConnection().prepareStatement(
+                "UPDATE vet_ai_doctor SET geohash = NULL WHERE id = ?")) {
+            statement.setLong(1, doctor.getId().getValue());
+            assertEquals(1, statement.executeUpdate());
+        }
+        
+        List<Doctor> doctors = doctorRepository.findNearbyDoctors(150.001, -45.0, 1.0, 10);
+        assertEquals(List.of(doctor.getId()), doctors.stream().map(Doctor::getId).collect(Collectors.toList()));
+        // 包围盒之外仍然不会命中
+        assertTrue(doctorRepository.findNearbyDoctors(150.1, -45.0, 1.0, 10).isEmpty());
+        
+        // 补齐后结果不变
+        assertEquals(1, backfill.backfill());
+        assertEquals(GeoHashUtil.encode(150.0, -45.0), doctorMapper.selectById(doctor.getId().getValue()).getGeohash());
+        assertEquals(1, doctorRepository.findNearbyDoctors(150.001, -45.0, 1.0, 10).size());
+    }
+    
+    @Test
+    @DisplayName("测试空间索引中的最近邻已不再审核通过时由更远的医生补足")
+    void testIndexRefillsFilteredNeighbors() throws SQLException {
+        // 南大洋上一排间隔约 56 米的医生，前 9 个在索引加载后被直接禁用（没有变更事件，索引中仍然存在）
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Doctor doctor = approvedDoctor(10_000_100L + i, -170.0 + i * 0.001, -60.0);
+            doctorMapper.insert(doctorConverter.toPO(doctor));
+            ids.add(doctor.getId().getValue());
+        }
+        spatialIndex.reconcile();
+        disable(ids.subList(0, 9));
+        assertEquals(ids, spatialIndex.nearest(-170.0, -60.0, 5.0, 20).stream()
+                .map(GeoPointIndex.Neighbor::getId).collect(Collectors.toList()));
+        
+        // 取 limit 的 2 倍、4 倍后补足
+        assertEquals(ids.subList(9, 12), nearbyIds(indexedRepository, -170.0, -60.0, 3));
+        // 取到 limit 的 8 倍仍然不足时改用数据库查询
+        assertEquals(ids.subList(9, 10), nearbyIds(indexedRepository, -170.0, -60.0, 1));
+        assertEquals(ids.subList(9, 12), nearbyIds(indexedRepository, -170.0, -60.0, 10));
+    }
+    
+    @Test
+    @DisplayName("测试空间索引按ID刷新在数据库中直接发生的变更")
+    void testIndexRefresh() throws SQLException {
+        Doctor first = approvedDoctor(10_000_200L, -150.0, -62.0);
+        Doctor second = approvedDoctor(10_000_201L, -150.001, -62.0);
+        doctorMapper.insert(doctorConverter.toPO(first));
+        doctorMapper.insert(doctorConverter.toPO(second));
+        List<Long> ids = List.of(first.getId().getValue(), second.getId().getValue());
+        spatialIndex.reconcile();
+        assertEquals(ids, nearestIds(spatialIndex, -150.0, -62.0));
+        
+        disable(ids.subList(0, 1));
+        try (PreparedStatement statement = sqlSession.getConnection().prepareStatement(
+                "UPDATE vet_ai_doctor SET longitude = -150.002 WHERE id = ?")) {
+            statement.setLong(1, ids.get(1));
+            assertEquals(1, statement.executeUpdate());
+        }
+        spatialIndex.refresh(ids);
+        assertEquals(ids.subList(1, 2), nearestIds(spatialIndex, -150.0, -62.0));
+        assertEquals(0.1044, spatialIndex.nearest(-150.0, -62.0, 1.0, 10).get(0).getDistance(), 0.001);
+        
+        // 不存在的ID只从索引中移除
+        spatialIndex.refresh(List.of(ids.get(1), 99_999_999L));
+        assertTrue(nearestIds(spatialIndex, -150.0, -62.0).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("测试空间索引通过缓存失效广播跟随其他实例的变更")
+    void testIndexFollowsOtherReplica() throws InterruptedException {
+        // 另一个实例：共用数据库和缓存存储，只有自己的空间索引和本地缓存
+        DoctorSpatialIndex replicaIndex = new DoctorSpatialIndex(doctorMapper, doctorCache(), true, 300, 10_000, 10_000);
+        replicaIndex.start();
+        try {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (!replicaIndex.isReady() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(replicaIndex.isReady());
+            
+            Doctor doctor = doctor(10_000_300L, DoctorStatus.PENDING, -130.0, -64.0);
+            doctorMapper.insert(doctorConverter.toPO(doctor));
+            Long id = doctor.getId().getValue();
+            assertTrue(nearestIds(replicaIndex, -130.0, -64.0).isEmpty());
+            
+            // 在本实例审核通过，另一个实例的空间索引收到广播后刷新
+            doctor.approve();
+            indexedRepository.save(doctor);
+            assertTrue(awaitNearest(replicaIndex, -130.0, -64.0, List.of(id)));
+            
+            doctor.disable();
+            indexedRepository.save(doctor);
+            assertTrue(awaitNearest(replicaIndex, -130.0, -64.0, List.of()));
+        } finally {
+            replicaIndex.stop();
+        }
+    }
+    
+    /**
+     * 新建使用共享存储的医生缓存
+     */
+    private static DoctorCache doctorCache() {
+        return new DoctorCache(doctorMapper, remoteStore, new ObjectMapper().registerModule(new JavaTimeModule()),
+                10_000, Duration.ofMinutes(1), Duration.ofMinutes(30), Duration.ofMinutes(1));
+    }
+    
+    /**
+     * 直接在数据库中禁用医生（不发布变更事件）
+     */
+    private static void disable(List<Long> ids) throws SQLException {
+        try (PreparedStatement statement = sqlSession.getConnection().prepareStatement(
+                "UPDATE vet_ai_doctor SET status = ? WHERE id = ?")) {
+            for (Long id : ids) {
+                statement.setInt(1, DoctorStatus.DISABLED.getCode());
+                statement.setLong(2, id);
+                assertEquals(1, statement.executeUpdate());
+            }
+        }
+    }
+    
+    private static List<Long> nearbyIds(DoctorRepositoryImpl repository, double longitude, double latitude, int limit) {
+        return repository.findNearbyDoctors(longitude, latitude, 5.0, limit).stream()
+                .map(doctor -> doctor.getId().getValue())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 空间索引中坐标附近 1 公里内的医生ID
+     */
+    private static List<Long> nearestIds(DoctorSpatialIndex index, double longitude, double latitude) {
+        return index.nearest(longitude, latitude, 1.0, 10).stream()
+                .map(GeoPointIndex.Neighbor::getId)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 等待空间索引中坐标附近的医生变为预期结果（最多 5 秒）
+     */
+    private static boolean awaitNearest(DoctorSpatialIndex index, double longitude, double latitude,
+                                        List<Long> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (expected.equals(nearestIds(index, longitude, latitude))) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+    
+    /**
+     * 用空间索引查询指定医生是否在坐标附近 1 公里内
+     */
+    private boolean nearbyByIndex(double longitude, double latitude, DoctorId id) {
+        return indexedRepository.findNearbyDoctors(longitude, latitude, 1.0, 10).stream()
+                .anyMatch(found -> found.getId().equals(id));
+    }
+    
+    /**
+     * 对比仓储查询与原查询的结果
+     * 
+     * @return 仓储查询的结果条数
+     */
+    private int assertSameAsLegacy(DoctorRepositoryImpl repository, double longitude, double latitude,
+                                   double radius, int limit) {
+        List<VetAiDoctorPO> expected = doctorMapper.selectNearbyDoctors(longitude, latitude, radius, limit);
+        List<Doctor> actual = repository.findNearbyDoctors(longitude, latitude, radius, limit);
+        String query = String.format("(%.6f, %.6f) 半径 %.1f 公里 前 %d 条", longitude, latitude, radius, limit);
+        
+        List<Double> actualDistances = actual.stream()
+                .map(doctor -> doctor.calculateDistance(longitude, latitude))
+                .collect(Collectors.toList());
+        for (int i = 1; i < actualDistances.size(); i++) {
+            assertTrue(actualDistances.get(i - 1) <= actualDistances.get(i), query + " 结果未按距离排序");
+        }
+        assertTrue(actual.size() <= limit, query);
+        
+        // 结果不同的医生只能在距离边界上：查询半径，或结果条满时第 limit 名的距离
+        double cutoff = expected.size() == limit
+                ? doctorConverter.toDomain(expected.get(limit - 1)).calculateDistance(longitude, latitude)
+                : radius;
+        Set<Long> expectedIds = expected.stream().map(VetAiDoctorPO::getId).collect(Collectors.toSet());
+        Set<Long> actualIds = actual.stream().map(doctor -> doctor.getId().getValue()).collect(Collectors.toSet());
+        List<Double> differences = new ArrayList<>();
+        for (VetAiDoctorPO po : expected) {
+            if (!actualIds.contains(po.getId())) {
+                differences.add(doctorConverter.toDomain(po).calculateDistance(longitude, latitude));
+            }
+        }
+        for (Doctor doctor : actual) {
+            if (!expectedIds.contains(doctor.getId().getValue())) {
+                differences.add(doctor.calculateDistance(longitude, latitude));
+            }
+        }
+        for (Double distance : differences) {
+            assertTrue(Math.abs(distance - radius) < DISTANCE_TOLERANCE || Math.abs(distance - cutoff) < DISTANCE_TOLERANCE,
+                    query + " 结果不一致，距离 " + distance);
+        }
+        return actual.size();
+    }
+    
+    /**
+     * 已审核的医生（ID大于写入数据的自增ID）
+     */
+    private static Doctor approvedDoctor(long id, double longitude, double latitude) {
+        return doctor(id, DoctorStatus.APPROVED, longitude, latitude);
+    }
+    
+    /**
+     * 指定状态的医生（ID大于写入数据的自增ID）
+     */
+    private static Doctor doctor(long id, DoctorStatus status, double longitude, double latitude) {
+        String phone = String.format("138%08d", id % 100_000_000L);
+        LocalDateTime now = LocalDateTime.now();
+        return Doctor.reconstruct(
+            DoctorId.of(id),
+            DoctorType.INDIVIDUAL,
+            DoctorInfo.ofIndividual("测试医生", 1, 35, phone, null, null, null),
+            Address.of("省", "市", "区", "详细地址", longitude, latitude, null),
+            Qualification.of("L" + phone, "L.jpg", "C" + phone, "C.jpg", null, null, null),
+            status,
+            now,
+            now,
+            now,
+            null
+        );
+    }
+}
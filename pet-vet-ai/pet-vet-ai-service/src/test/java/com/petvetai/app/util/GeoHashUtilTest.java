@@ -0,0 +1,91 @@
+package com.petvetai.app.util;
+
+import com.petvetai.infrastructure.util.GeoHashUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GeoHash 工具类测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("GeoHash工具类测试")
+class GeoHashUtilTest {
+    
+    @Test
+    @DisplayName("测试编码与标准 GeoHash 一致")
+    void testEncode() {
+        assertEquals("u4pruydqqvj", GeoHashUtil.encode(10.40744, 57.64911, 11));
+        assertEquals("wx4g089w", GeoHashUtil.encode(116.3912757, 39.906217));
+        assertEquals("wtmkn", GeoHashUtil.encode(120.1551, 30.2741, 5));
+        assertNull(GeoHashUtil.encode(null, 30.0));
+        assertThrows(IllegalArgumentException.class, () -> GeoHashUtil.encode(120.0, 30.0, 0));
+    }
+    
+    @Test
+    @DisplayName("测试低精度编码是高精度编码的前缀")
+    void testPrefix() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double longitude = random.nextDouble() * 360 - 180;
+            double latitude = random.nextDouble() * 180 - 90;
+            String full = GeoHashUtil.encode(longitude, latitude, 12);
+            for (int precision = 1; precision < 12; precision++) {
+                assertEquals(full.substring(0, precision), GeoHashUtil.encode(longitude, latitude, precision));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("测试覆盖网格包含查询圆内的所有点")
+    void testCover() {
+        Random random = new Random(11);
+        for (double radius : new double[]{0.2, 1, 5, 10, 50, 300}) {
+            for (int i = 0; i < 200; i++) {
+                double longitude = 73 + random.nextDouble() * 62;
+                double latitude = 18 + random.nextDouble() * 35;
+                GeoHashUtil.Cover cover = GeoHashUtil.cover(longitude, latitude, radius);
+                assertNotNull(cover);
+                assertTrue(cover.getCells().size() <= GeoHashUtil.MAX_COVER_CELLS);
+                
+                // 圆上的点都在包围盒内，且 GeoHash 落在某个覆盖网格中
+                for (int k = 0; k < 64; k++) {
+                    double bearing = Math.toRadians(k * 360.0 / 64);
+                    double[] point = destination(longitude, latitude, radius * random.nextDouble(), bearing);
+                    assertTrue(point[0] >= cover.getMinLongitude() && point[0] <= cover.getMaxLongitude());
+                    assertTrue(point[1] >= cover.getMinLatitude() && point[1] <= cover.getMaxLatitude());
+                    String geohash = GeoHashUtil.encode(point[0], point[1]);
+                    assertTrue(cover.getCells().stream().anyMatch(geohash::startsWith),
+                            () -> geohash + " 不在覆盖网格 " + cover.getCells() + " 中");
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("测试跨越极点或180度经线时不使用网格覆盖")
+    void testCoverUnavailable() {
+        assertNull(GeoHashUtil.cover(179.99, 0, 5));
+        assertNull(GeoHashUtil.cover(-179.99, 0, 5));
+        assertNull(GeoHashUtil.cover(0, 89.99, 5));
+        assertNull(GeoHashUtil.cover(120, 30, 20_000));
+        assertNotNull(GeoHashUtil.cover(120, 30, 0));
+    }
+    
+    /**
+     * 从起点沿方位角移动指定距离后的坐标（球面）
+     */
+    private static double[] destination(double longitude, double latitude, double distanceKm, double bearing) {
+        double angle = distanceKm / 6371.0;
+        double lat1 = Math.toRadians(latitude);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angle) + Math.cos(lat1) * Math.sin(angle) * Math.cos(bearing));
+        double lon2 = Math.toRadians(longitude) + Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(lat1),
+                Math.cos(angle) - Math.sin(lat1) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lon2), Math.toDegrees(lat2)};
+    }
+}
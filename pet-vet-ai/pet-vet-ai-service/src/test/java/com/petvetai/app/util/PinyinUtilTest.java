@@ -0,0 +1,67 @@
+package com.petvetai.app.util;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拼音工具类测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("拼音工具类测试")
+class PinyinUtilTest {
+    
+    @Test
+    @DisplayName("测试多音字组合展开")
+    void testCombinations() {
+        Set<String> combinations = PinyinUtil.getAllPinyinCombinations("与杭");
+        
+        assertTrue(combinations.contains("yuhang"));
+        assertTrue(PinyinUtil.isHomophone("与杭区", "余杭区"));
+        assertFalse(PinyinUtil.isHomophone("西湖区", "余杭区"));
+        assertTrue(PinyinUtil.getAllPinyinCombinations("").isEmpty());
+        assertTrue(PinyinUtil.getAllPinyinCombinations(null).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("测试整串结果缓存")
+    void testStringCache() {
+        Set<String> first = PinyinUtil.getAllPinyinCombinations("仓前街道");
+        Set<String> second = PinyinUtil.getAllPinyinCombinations("仓前街道");
+        
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.add("x"));
+        assertEquals("cangqianjiedao", PinyinUtil.getPinyin("仓前街道"));
+    }
+    
+    @Test
+    @DisplayName("测试组合数超过上限时截断")
+    void testTruncation() {
+        long before = (Long) PinyinUtil.getCacheStats().get("truncatedExpansions");
+        
+        // 长(2) 行(3) 重(2)，三组共 12^3 = 1728 种组合
+        Set<String> combinations = PinyinUtil.getAllPinyinCombinations("长行重长行重长行重");
+        
+        assertEquals(PinyinUtil.MAX_COMBINATIONS, combinations.size());
+        assertEquals(before + 1, (Long) PinyinUtil.getCacheStats().get("truncatedExpansions"));
+        // 全部取首个读音的组合一定保留
+        assertTrue(combinations.contains(PinyinUtil.getPinyin("长行重长行重长行重")));
+    }
+    
+    @Test
+    @DisplayName("测试单字读音表")
+    void testReadingTable() {
+        PinyinUtil.preload("余杭");
+        long hits = (Long) PinyinUtil.getCacheStats().get("readingHits");
+        
+        assertArrayEquals(new String[]{"hang"}, PinyinUtil.getPinyinArray('杭'));
+        assertEquals(0, PinyinUtil.getPinyinArray('a').length);
+        assertTrue((Long) PinyinUtil.getCacheStats().get("readingHits") > hits);
+    }
+}
@@ -0,0 +1,268 @@
+package com.petvetai.app.util.address;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+import com.petvetai.infrastructure.util.address.AddressDivisionLoader;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地址索引测试（不依赖Spring上下文）
+ * 
+ * 前缀查询结果与对全部关键词逐个比较的暴力结果对照；同音查询在 resources/data/administrative_divisions.csv 上
+ * 与逐条比较的结果对照，并显式校验按音节对齐后与改造前拼接拼音比较的语义差异
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("地址索引测试")
+class AddressIndexTest {
+    
+    /**
+     * 与 AddressPinyinIndex.MAX_READINGS_PER_CHAR 一致
+     */
+    private static final int MAX_READINGS_PER_CHAR = 3;
+    
+    private AddressIndex index;
+    
+    private List<AdministrativeDivision> divisions;
+    
+    @BeforeEach
+    void setUp() {
+        index = new AddressIndex();
+        divisions = new ArrayList<>();
+        divisions.add(new AdministrativeDivision("33011", "浙江省", "杭州市", "余杭区", "仓前街道",
+            "浙江省杭州市余杭区仓前街道", 4));
+        divisions.add(new AdministrativeDivision("33012", "浙江省", "杭州市", "余杭区", "五常街道",
+            "浙江省杭州市余杭区五常街道", 4));
+        divisions.add(new AdministrativeDivision("33013", "浙江省", "杭州市", "西湖区", "蒋村街道",
+            "浙江省杭州市西湖区蒋村街道", 4));
+        divisions.add(new AdministrativeDivision("33021", "浙江省", "宁波市", "海曙区", null,
+            "浙江省宁波市海曙区", 3));
+        divisions.add(new AdministrativeDivision("11001", "北京市", "北京市", "海淀区", "中关村街道",
+            "北京市海淀区中关村街道", 4));
+        divisions.add(new AdministrativeDivision("31001", "上海市", "上海市", "黄浦区", "外滩街道",
+            "上海市黄浦区外滩街道", 4));
+        index.buildIndex(divisions);
+    }
+    
+    @Test
+    @DisplayName("测试前缀查询与暴力结果一致")
+    void testPrefixMatchesBruteForce() {
+        Set<String> prefixes = new HashSet<>();
+        prefixes.add("");
+        prefixes.add("不存在");
+        for (AdministrativeDivision division : divisions) {
+            for (String keyword : keywordsOf(division)) {
+                for (int i = 1; i <= keyword.length(); i++) {
+                    prefixes.add(keyword.substring(0, i));
+                }
+            }
+        }
+        
+        for (String prefix : prefixes) {
+            assertEquals(bruteForcePrefix(prefix), index.searchByPrefix(prefix), "前缀: " + prefix);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试关键词查询包含精确匹配")
+    void testKeywordContainsExactMatch() {
+        Set<String> codes = index.searchByKeyword("余杭区");
+        
+        assertTrue(codes.contains("33011"));
+        assertTrue(codes.contains("33012"));
+        assertFalse(codes.contains("33013"));
+        assertEquals(Set.of("11001"), index.searchByPrefix("北京市海淀区中关村街道"));
+    }
+    
+    @Test
+    @DisplayName("测试重复编码以最后一次为准")
+    void testDuplicateCode() {
+        divisions.add(new AdministrativeDivision("33011", "浙江省", "杭州市", "余杭区", "良渚街道",
+            "浙江省杭州市余杭区良渚街道", 4));
+        index.buildIndex(divisions);
+        
+        assertEquals(divisions.size() - 1, index.getAllDivisions().size());
+        assertEquals("良渚街道", index.getDivision("33011").getStreet());
+        assertTrue(index.searchByPrefix("仓前").contains("33011"));
+        assertTrue(index.searchByPrefix("良渚").contains("33011"));
+    }
+    
+    @Test
+    @DisplayName("测试重建索引后旧数据不再命中")
+    void testRebuild() {
+        index.buildIndex(divisions.subList(0, 1));
+        
+        assertEquals(Set.of("33011"), index.searchByPrefix(""));
+        assertTrue(index.searchByPrefix("北京").isEmpty());
+        assertNull(index.getDivision("11001"));
+    }
+    
+    @Test
+    @DisplayName("测试空索引")
+    void testEmptyIndex() {
+        AddressIndex empty = new AddressIndex();
+        
+        assertTrue(empty.searchByKeyword("杭州").isEmpty());
+        assertTrue(empty.searchByPrefix("").isEmpty());
+        assertTrue(empty.getAllDivisions().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("测试真实数据集上同音查询与逐条比较的结果一致")
+    void testHomophoneMatchesLinearScan() throws IOException {
+        List<AdministrativeDivision> dataset = loadDataset();
+        AddressIndex datasetIndex = new AddressIndex();
+        datasetIndex.buildIndex(dataset);
+        
+        // 数据集中的全部层级名称，加上常见同音错别字和不存在的名称
+        Set<String> keywords = new LinkedHashSet<>(List.of("与杭区", "于杭区", "西胡区", "仓钱街道", "伍常街道",
+            "蒋存街道", "海电区", "朝杨区", "皇浦区", "古楼区", "天和区", "春西路街道", "胡南路街道", "不存在的区"));
+        for (AdministrativeDivision division : dataset) {
+            for (String level : division.getLevels()) {
+                if (level != null) {
+                    keywords.add(level);
+                }
+            }
+        }
+        
+        for (String keyword : keywords) {
+            Set<String> actual = datasetIndex.searchByHomophone(keyword);
+            // 与按音节对齐的逐条比较完全一致
+            assertEquals(linearHomophoneScan(dataset, keyword, MAX_READINGS_PER_CHAR), actual,
+                "关键词: " + keyword);
+            
+            // 与改造前拼接拼音的逐条比较相比只会更严格（差异见 testHomophoneSyllableAlignment）
+            Set<String> legacy = legacyHomophoneScan(dataset, keyword);
+            assertTrue(legacy.containsAll(actual), "关键词: " + keyword + "，新增结果: " + actual);
+        }
+        assertEquals(Set.of("33011", "33012"), datasetIndex.searchByHomophone("与杭区"));
+        assertEquals(Set.of("11002"), datasetIndex.searchByHomophone("朝杨区"));
+        assertEquals(Set.of("32001"), datasetIndex.searchByHomophone("胡南路街道"));
+    }
+    
+    @Test
+    @DisplayName("测试同音判定按音节对齐：跨字边界的拼音巧合不再算同音")
+    void testHomophoneSyllableAlignment() {
+        divisions.add(new AdministrativeDivision("61001", "陕西省", "西安市", "雁塔区", null,
+            "陕西省西安市雁塔区", 3));
+        index.buildIndex(divisions);
+        
+        // 改造前：拼接后都是 "xianshi"，视为同音
+        assertTrue(PinyinUtil.isHomophone("先市", "西安市"));
+        assertTrue(PinyinUtil.isHomophone("先", "西安"));
+        // 改造后：长度不同，不再同音
+        assertFalse(index.searchByHomophone("先市").contains("61001"));
+        assertTrue(index.searchByHomophone("先").isEmpty());
+        // 逐字同音仍然命中
+        assertEquals(Set.of("61001"), index.searchByHomophone("西安市"));
+        assertEquals(Set.of("61001"), index.searchByHomophone("西按市"));
+    }
+    
+    @Test
+    @DisplayName("测试拼音模糊查询")
+    void testPinyinSearch() {
+        // 名称包含输入
+        assertEquals(Set.of("33011", "33012"), index.searchByPinyin("与杭"));
+        // 输入包含名称
+        assertTrue(index.searchByPinyin("浙江省杭州市与杭区").containsAll(Set.of("33011", "33012", "33013", "33021")));
+        // 直接输入全拼或首字母
+        assertEquals(Set.of("33011", "33012"), index.searchByPinyin("yuhangqu"));
+        assertEquals(Set.of("33011", "33012"), index.searchByPinyin("yhq"));
+    }
+    
+    private Set<String> bruteForcePrefix(String prefix) {
+        Set<String> codes = new HashSet<>();
+        for (AdministrativeDivision division : divisions) {
+            for (String keyword : keywordsOf(division)) {
+                if (!keyword.isEmpty() && keyword.startsWith(prefix)) {
+                    codes.add(division.getCode());
+                }
+            }
+        }
+        return codes;
+    }
+    
+    private List<AdministrativeDivision> loadDataset() throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/administrative_divisions.csv")) {
+            assertNotNull(in, "缺少行政区划数据文件");
+            return AddressDivisionLoader.load(in);
+        }
+    }
+    
+    /**
+     * 按音节对齐的逐条比较：长度相同且每个位置的读音（最多 maxReadings 个）有交集
+     */
+    private Set<String> linearHomophoneScan(List<AdministrativeDivision> dataset, String keyword, int maxReadings) {
+        Set<String> codes = new HashSet<>();
+        for (AdministrativeDivision division : dataset) {
+            for (String level : division.getLevels()) {
+                if (level != null && alignedHomophone(keyword, level, maxReadings)) {
+                    codes.add(division.getCode());
+                }
+            }
+        }
+        return codes;
+    }
+    
+    /**
+     * 改造前 AddressMatcher 的同音候选查找方式：逐条比较所有行政区划层级拼接后的拼音组合
+     */
+    private Set<String> legacyHomophoneScan(List<AdministrativeDivision> dataset, String keyword) {
+        Set<String> codes = new HashSet<>();
+        for (AdministrativeDivision division : dataset) {
+            for (String level : division.getLevels()) {
+                if (level != null && PinyinUtil.isHomophone(keyword, level)) {
+                    codes.add(division.getCode());
+                }
+            }
+        }
+        return codes;
+    }
+    
+    private static boolean alignedHomophone(String a, String b, int maxReadings) {
+        if (a.isEmpty() || a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (Collections.disjoint(readings(a.charAt(i), maxReadings), readings(b.charAt(i), maxReadings))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static List<String> readings(char c, int maxReadings) {
+        String[] pinyins = PinyinUtil.getPinyinArray(c);
+        if (pinyins.length == 0) {
+            return List.of(String.valueOf(c));
+        }
+        return Arrays.asList(pinyins).subList(0, Math.min(pinyins.length, maxReadings));
+    }
+    
+    private List<String> keywordsOf(AdministrativeDivision division) {
+        List<String> keywords = new ArrayList<>();
+        for (String level : division.getLevels()) {
+            if (level != null) {
+                keywords.add(level);
+            }
+        }
+        keywords.add(division.getFullAddress());
+        return keywords;
+    }
+}
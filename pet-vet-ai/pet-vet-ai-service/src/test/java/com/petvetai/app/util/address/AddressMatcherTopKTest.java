@@ -0,0 +1,339 @@
+package com.petvetai.app.util.address;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import com.petvetai.infrastructure.util.address.MatchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地址匹配前 k 个结果测试（不依赖Spring上下文）
+ * 
+ * 以改造前的匹配流程（对全部候选逐个打分、稳定排序后取前 k 个，见 {@link LegacyAddressMatcher}）为基准，
+ * 在固定输入和以固定随机种子生成的 {@value #RANDOM_INPUTS} 条输入上对照
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("地址匹配前k个结果测试")
+class AddressMatcherTopKTest {
+    
+    private static final String[] INPUTS = {
+        "浙江省杭州市余杭区仓前街道",
+        "浙江省杭州市与杭区仓前街道",
+        "余杭区仓前街道",
+        "杭州市西湖区",
+        "浙江省杭州市余杭区",
+        "北京市海淀区中关村街道",
+        "北京北京市海淀区浙江省杭州市余杭区五常街道",
+        "完全无关的地址"
+    };
+    
+    /**
+     * 随机输入条数
+     */
+    private static final int RANDOM_INPUTS = 150;
+    
+    /**
+     * 随机输入中使用的同音错别字
+     */
+    private static final Map<Character, Character> TYPOS = Map.of(
+        '余', '与', '杭', '航', '湖', '胡', '常', '长', '村', '存',
+        '前', '钱', '渚', '主', '海', '还', '淀', '电', '州', '洲');
+    
+    private static final String[] SEPARATORS = {"", "", "", " ", "，", "、"};
+    
+    private List<AdministrativeDivision> divisions;
+    
+    private AddressMatcher matcher;
+    
+    private LegacyAddressMatcher legacy;
+    
+    @BeforeEach
+    void setUp() {
+        divisions = new ArrayList<>();
+        String[][] districts = {
+            {"3301", "浙江省", "杭州市", "余杭区"},
+            {"3302", "浙江省", "杭州市", "西湖区"},
+            {"3303", "浙江省", "宁波市", "海曙区"},
+            {"1101", "北京市", "北京市", "海淀区"}
+        };
+        String[] streets = {"仓前街道", "五常街道", "蒋村街道", "中关村街道", "良渚街道", "文新街道"};
+        for (String[] district : districts) {
+            for (int i = 0; i < streets.length; i++) {
+                String city = district[1].equals(district[2]) ? district[1] : district[1] + district[2];
+                divisions.add(new AdministrativeDivision(district[0] + i, district[1], district[2], district[3],
+                    streets[i], city + district[3] + streets[i], 4));
+            }
+        }
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        matcher = new AddressMatcher(index);
+        legacy = new LegacyAddressMatcher(index);
+    }
+    
+    @Test
+    @DisplayName("测试前k个结果与改造前的全量排序一致")
+    void testTopKMatchesFullSort() {
+        for (String input : INPUTS) {
+            assertTopKMatchesLegacy(input);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试随机输入上前k个结果与改造前的全量排序一致")
+    void testTopKMatchesFullSortOnRandomInputs() {
+        Random random = new Random(20261016L);
+        for (int n = 0; n < RANDOM_INPUTS; n++) {
+            assertTopKMatchesLegacy(randomInput(random));
+        }
+    }
+    
+    @Test
+    @DisplayName("测试单个结果接口与改造前一致")
+    void testSingleMatchEqualsLegacy() {
+        List<String> inputs = new ArrayList<>(List.of(INPUTS));
+        Random random = new Random(20261017L);
+        for (int n = 0; n < RANDOM_INPUTS; n++) {
+            inputs.add(randomInput(random));
+        }
+        
+        for (String input : inputs) {
+            MatchResult expected = legacy.match(input);
+            MatchResult actual = matcher.match(input);
+            
+            assertNotNull(actual);
+            assertEquals(expected.getCode(), actual.getCode(), input);
+            assertEquals(expected.getScore(), actual.getScore(), input);
+            assertEquals(expected.isAbnormal(), actual.isAbnormal(), input);
+            assertEquals(expected.getAbnormalReason(), actual.getAbnormalReason(), input);
+        }
+        assertEquals("33010", matcher.match("浙江省杭州市余杭区仓前街道").getCode());
+    }
+    
+    @Test
+    @DisplayName("测试参数校验")
+    void testArguments() {
+        assertTrue(matcher.match("", 3).isEmpty());
+        assertTrue(matcher.match(null, 3).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> matcher.match("余杭区", 0));
+    }
+    
+    private void assertTopKMatchesLegacy(String input) {
+        List<MatchResult> full = legacy.matchAll(input);
+        for (int k = 1; k <= full.size() + 1; k++) {
+            List<MatchResult> topK = matcher.match(input, k);
+            assertEquals(Math.min(k, full.size()), topK.size(), "结果数: " + input + " k=" + k);
+            for (int i = 0; i < topK.size(); i++) {
+                assertEquals(full.get(i).getCode(), topK.get(i).getCode(), input + " k=" + k + " 第" + i + "个");
+                assertEquals(full.get(i).getScore(), topK.get(i).getScore(), input + " k=" + k + " 第" + i + "个");
+            }
+        }
+    }
+    
+    /**
+     * 随机生成输入：任取一个行政区划，随机省略层级、替换同音错别字、插入分隔符，偶尔拼接另一个省份
+     */
+    private String randomInput(Random random) {
+        AdministrativeDivision division = divisions.get(random.nextInt(divisions.size()));
+        List<String> parts = new ArrayList<>();
+        if (random.nextInt(10) == 0) {
+            parts.add(divisions.get(random.nextInt(divisions.size())).getProvince());
+        }
+        String[] levels = division.getLevels();
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == null || (i == 1 && levels[1].equals(levels[0])) || random.nextInt(5) == 0) {
+                continue;
+            }
+            parts.add(random.nextInt(4) == 0 ? withTypo(levels[i], random) : levels[i]);
+        }
+        StringBuilder input = new StringBuilder();
+        for (String part : parts) {
+            input.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(part);
+        }
+        return input.length() == 0 ? division.getStreet() : input.toString();
+    }
+    
+    private static String withTypo(String text, Random random) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (TYPOS.containsKey(text.charAt(i))) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return text;
+        }
+        int position = positions.get(random.nextInt(positions.size()));
+        char[] chars = text.toCharArray();
+        chars[position] = TYPOS.get(chars[position]);
+        return new String(chars);
+    }
+    
+    /**
+     * 改造前的匹配流程（参照实现）：对全部候选逐个打分，按分数稳定排序
+     * 
+     * 除候选查找外不复用 AddressMatcher 的任何代码，打分直接读取 AdministrativeDivision，同音判断不做缓存
+     */
+    private static final class LegacyAddressMatcher {
+        
+        // 与 AddressMatcher 相同的 Set.of 字面量：同一 JVM 内遍历顺序一致，解析出的层级也一致
+        private static final Set<String> PROVINCE_KEYWORDS = Set.of("省", "自治区", "特别行政区");
+        private static final Set<String> CITY_KEYWORDS = Set.of("市", "州", "盟", "地区");
+        private static final Set<String> DISTRICT_KEYWORDS = Set.of("区", "县", "旗", "自治县");
+        private static final Set<String> STREET_KEYWORDS = Set.of("街道", "镇", "乡", "街道办");
+        private static final Pattern PROVINCE_PATTERN = Pattern.compile(".*?(省|自治区|特别行政区)");
+        private static final Pattern CITY_PATTERN = Pattern.compile(".*?(市|州|盟|地区)");
+        
+        private final AddressIndex index;
+        
+        private LegacyAddressMatcher(AddressIndex index) {
+            this.index = index;
+        }
+        
+        private MatchResult match(String inputAddress) {
+            String normalizedAddress = normalize(inputAddress);
+            String abnormalReason = detectAbnormalAddress(normalizedAddress);
+            List<MatchResult> results = matchAll(inputAddress);
+            if (results.isEmpty()) {
+                return new MatchResult(null, null, 0.0, abnormalReason != null, abnormalReason);
+            }
+            MatchResult bestMatch = results.get(0);
+            bestMatch.setAbnormal(abnormalReason != null);
+            bestMatch.setAbnormalReason(abnormalReason);
+            return bestMatch;
+        }
+        
+        private List<MatchResult> matchAll(String inputAddress) {
+            String normalizedAddress = normalize(inputAddress);
+            List<String> keywords = extractKeywords(normalizedAddress);
+            // 与 AddressMatcher 相同的候选集合构造方式，保证遍历顺序（即同分时的次序）一致
+            Set<String> candidateCodes = new HashSet<>();
+            for (String keyword : keywords) {
+                candidateCodes.addAll(index.searchByKeyword(keyword));
+                candidateCodes.addAll(index.searchByHomophone(keyword));
+            }
+            List<MatchResult> results = new ArrayList<>();
+            for (String code : candidateCodes) {
+                results.add(calculateMatchScore(code, normalizedAddress, keywords));
+            }
+            // List.sort 为稳定排序
+            results.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+            return results;
+        }
+        
+        private static String normalize(String address) {
+            return address.replaceAll("[\\s,，。、]", "");
+        }
+        
+        private static String detectAbnormalAddress(String address) {
+            if (PROVINCE_PATTERN.matcher(address).results().count() > 1) {
+                return "检测到多个省份";
+            }
+            if (CITY_PATTERN.matcher(address).results().count() > 2) {
+                return "检测到多个城市";
+            }
+            String[] commonProvinces = {"北京", "上海", "天津", "重庆", "浙江", "江苏", "广东", "山东",
+                "河南", "四川", "湖北", "湖南", "河北", "安徽", "福建", "江西"};
+            int provinceOccurrences = 0;
+            for (String province : commonProvinces) {
+                if (address.contains(province + "省") || address.contains(province + "市")) {
+                    provinceOccurrences++;
+                }
+            }
+            return provinceOccurrences > 1 ? "检测到多个省份名称" : null;
+        }
+        
+        private static List<String> extractKeywords(String address) {
+            List<String> keywords = new ArrayList<>();
+            keywords.add(address);
+            String[] levels = parseAddressLevels(address);
+            for (String level : levels) {
+                if (level != null && !level.isEmpty()) {
+                    keywords.add(level);
+                }
+            }
+            if (levels[0] == null && levels[1] != null) {
+                keywords.add(levels[1]);
+            }
+            if (levels[1] == null && levels[2] != null) {
+                keywords.add(levels[2]);
+            }
+            return keywords;
+        }
+        
+        private static String[] parseAddressLevels(String address) {
+            String[] levels = new String[4];
+            List<Set<String>> suffixes = List.of(PROVINCE_KEYWORDS, CITY_KEYWORDS, DISTRICT_KEYWORDS, STREET_KEYWORDS);
+            for (int level = 0; level < suffixes.size(); level++) {
+                for (String keyword : suffixes.get(level)) {
+                    int position = address.indexOf(keyword);
+                    if (position > 0) {
+                        levels[level] = address.substring(0, position + keyword.length());
+                        address = address.substring(position + keyword.length());
+                        break;
+                    }
+                }
+            }
+            return levels;
+        }
+        
+        private MatchResult calculateMatchScore(String code, String inputAddress, List<String> keywords) {
+            AdministrativeDivision division = index.getDivision(code);
+            if (division == null) {
+                return new MatchResult(code, null, 0.0);
+            }
+            
+            double score = 0.0;
+            String fullAddress = division.getFullAddress();
+            String[] levels = division.getLevels();
+            String[] inputLevels = parseAddressLevels(inputAddress);
+            
+            if (inputAddress.equals(fullAddress)) {
+                score += 50.0;
+            } else if (fullAddress.contains(inputAddress) || inputAddress.contains(fullAddress)) {
+                score += 30.0;
+            }
+            
+            for (int i = 0; i < Math.min(levels.length, inputLevels.length); i++) {
+                if (levels[i] != null && inputLevels[i] != null) {
+                    if (levels[i].equals(inputLevels[i])) {
+                        score += 10.0;
+                    } else if (PinyinUtil.isHomophone(levels[i], inputLevels[i])) {
+                        score += 8.0;
+                    } else if (levels[i].contains(inputLevels[i]) || inputLevels[i].contains(levels[i])) {
+                        score += 5.0;
+                    }
+                }
+            }
+            
+            if (inputLevels[0] == null && levels[1] != null && inputAddress.contains(levels[1])) {
+                score += 15.0;
+            }
+            if (inputLevels[1] == null && levels[2] != null && inputAddress.contains(levels[2])) {
+                score += 10.0;
+            }
+            
+            for (String keyword : keywords) {
+                if (fullAddress.contains(keyword)) {
+                    score += 2.0;
+                }
+            }
+            
+            return new MatchResult(code, division, Math.min(100.0, score));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.petvetai.app.util.address;
+
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import com.petvetai.infrastructure.util.address.MatchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地址索引二进制快照测试（不依赖Spring上下文）
+ * 
+ * 以内存中构建的索引为基准，校验写出再内存映射加载的索引在各类查询上的结果完全一致，
+ * 以及损坏、版本不符的快照被拒绝加载
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("地址索引快照测试")
+class AddressSnapshotTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private List<AdministrativeDivision> divisions;
+    
+    private AddressIndex built;
+    
+    private Path file;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        divisions = new ArrayList<>();
+        String[][] districts = {
+            {"3301", "浙江省", "杭州市", "余杭区"},
+            {"3302", "浙江省", "杭州市", "西湖区"},
+            {"3303", "浙江省", "宁波市", "海曙区"},
+            {"1101", "北京市", "北京市", "海淀区"},
+            {"3101", "上海市", "上海市", "黄浦区"}
+        };
+        String[] streets = {"仓前街道", "五常街道", "蒋村街道", "中关村街道", "良渚街道", "外滩街道"};
+        for (String[] district : districts) {
+            String city = district[1].equals(district[2]) ? district[1] : district[1] + district[2];
+            for (int i = 0; i < streets.length; i++) {
+                divisions.add(new AdministrativeDivision(district[0] + i, district[1], district[2], district[3],
+                    streets[i], city + district[3] + streets[i], 4));
+            }
+            // 区县级（没有街道）
+            divisions.add(new AdministrativeDivision(district[0], district[1], district[2], district[3], null,
+                city + district[3], 3));
+        }
+        built = new AddressIndex();
+        built.buildIndex(divisions);
+        file = tempDir.resolve("address-index.snapshot");
+        built.writeSnapshot(file);
+    }
+    
+    @Test
+    @DisplayName("测试快照加载后的行政区划与内存构建一致")
+    void testDivisionsRoundTrip() throws IOException {
+        AddressIndex loaded = load(file);
+        
+        assertEquals(new ArrayList<>(built.getAllDivisions()), new ArrayList<>(loaded.getAllDivisions()));
+        for (AdministrativeDivision division : divisions) {
+            assertEquals(division, loaded.getDivision(division.getCode()));
+        }
+        assertNull(loaded.getDivision("不存在"));
+        assertNull(loaded.getDivision("33019"));
+        assertNull(loaded.getDivision("3301").getStreet());
+        assertEquals(built.getStats().get("trieNodes"), loaded.getStats().get("trieNodes"));
+    }
+    
+    @Test
+    @DisplayName("测试快照加载后的各类查询与内存构建一致")
+    void testSearchRoundTrip() throws IOException {
+        AddressIndex loaded = load(file);
+        
+        Set<String> keywords = new HashSet<>(List.of("", "不存在", "与杭区", "西胡区", "仓钱街道", "伍常",
+            "yuhangqu", "yhq", "hangzhou", "HZS", "浙江省杭州市与杭区"));
+        for (AdministrativeDivision division : divisions) {
+            for (String level : division.getLevels()) {
+                if (level != null) {
+                    for (int i = 1; i <= level.length(); i++) {
+                        keywords.add(level.substring(0, i));
+                    }
+                }
+            }
+            keywords.add(division.getFullAddress());
+        }
+        
+        for (String keyword : keywords) {
+            assertEquals(built.searchByPrefix(keyword), loaded.searchByPrefix(keyword), "前缀: " + keyword);
+            assertEquals(built.searchByKeyword(keyword), loaded.searchByKeyword(keyword), "关键词: " + keyword);
+            assertEquals(built.searchByPinyin(keyword), loaded.searchByPinyin(keyword), "拼音: " + keyword);
+            assertEquals(built.searchByHomophone(keyword), loaded.searchByHomophone(keyword), "同音: " + keyword);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试快照加载后的地址匹配结果与内存构建一致")
+    void testMatchRoundTrip() throws IOException {
+        AddressMatcher builtMatcher = new AddressMatcher(built);
+        AddressMatcher loadedMatcher = new AddressMatcher(load(file));
+        String[] inputs = {
+            "浙江省杭州市余杭区仓前街道",
+            "浙江省杭州市与杭区仓前街道",
+            "余杭区仓前街道",
+            "北京市海淀区中关村街道",
+            "北京北京市海淀区浙江省杭州市余杭区五常街道",
+            "完全无关的地址"
+        };
+        
+        for (String input : inputs) {
+            List<MatchResult> expected = builtMatcher.match(input, 5);
+            List<MatchResult> actual = loadedMatcher.match(input, 5);
+            assertEquals(expected.size(), actual.size(), "输入: " + input);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getCode(), actual.get(i).getCode(), "输入: " + input);
+                assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-9, "输入: " + input);
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("测试空索引的快照")
+    void testEmptySnapshot() throws IOException {
+        Path emptyFile = tempDir.resolve("empty.snapshot");
+        new AddressIndex().writeSnapshot(emptyFile);
+        AddressIndex loaded = load(emptyFile);
+        
+        assertTrue(loaded.getAllDivisions().isEmpty());
+        assertTrue(loaded.searchByKeyword("杭州").isEmpty());
+        assertTrue(loaded.searchByPrefix("").isEmpty());
+    }
+    
+    @Test
+    @DisplayName("测试损坏的快照被拒绝且不影响当前索引")
+    void testCorruptedSnapshot() throws IOException {
+        AddressIndex index = load(file);
+        byte[] bytes = Files.readAllBytes(file);
+        
+        // 修改最后一个分区中的一个字节：分区校验和不一致
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 9] ^= 0x5A;
+        Path corruptedFile = tempDir.resolve("corrupted.snapshot");
+        Files.write(corruptedFile, corrupted);
+        assertThrows(IOException.class, () -> index.loadSnapshot(corruptedFile));
+        assertEquals(built.searchByPrefix("杭州"), index.searchByPrefix("杭州"));
+        
+        // 截断文件
+        Path truncatedFile = tempDir.resolve("truncated.snapshot");
+        Files.write(truncatedFile, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> index.loadSnapshot(truncatedFile));
+        
+        // 不是快照文件
+        Path otherFile = tempDir.resolve("other.snapshot");
+        Files.writeString(otherFile, "33011,浙江省,杭州市,余杭区,仓前街道");
+        assertThrows(IOException.class, () -> index.loadSnapshot(otherFile));
+    }
+    
+    @Test
+    @DisplayName("测试版本不符的快照被拒绝")
+    void testVersionMismatch() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 999);
+        Path otherVersion = tempDir.resolve("v999.snapshot");
+        Files.write(otherVersion, bytes);
+        
+        IOException e = assertThrows(IOException.class, () -> load(otherVersion));
+        assertTrue(e.getMessage().contains("999"));
+    }
+    
+    @Test
+    @DisplayName("测试覆盖写出快照")
+    void testOverwrite() throws IOException {
+        AddressIndex smaller = new AddressIndex();
+        smaller.buildIndex(divisions.subList(0, 3));
+        smaller.writeSnapshot(file);
+        
+        AddressIndex loaded = load(file);
+        assertEquals(3, loaded.getAllDivisions().size());
+        assertTrue(loaded.searchByPrefix("北京").isEmpty());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "临时文件应已清理");
+        }
+    }
+    
+    private static AddressIndex load(Path path) throws IOException {
+        AddressIndex index = new AddressIndex();
+        index.loadSnapshot(path);
+        return index;
+    }
+}
@@ -0,0 +1,196 @@
+package com.petvetai.app.util.geo;
+
+import com.petvetai.infrastructure.util.geo.GeoPointIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存地理位置索引测试
+ * 
+ * 以逐点计算 Haversine 距离的暴力查询为基准，覆盖 KD 树、增量变更、全量重建和合并
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("内存地理位置索引测试")
+class GeoPointIndexTest {
+    
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    
+    @Test
+    @DisplayName("测试查询结果与暴力计算一致")
+    void testMatchesBruteForce() {
+        Random random = new Random(20261017L);
+        Map<Long, double[]> points = randomPoints(random, 20_000);
+        GeoPointIndex index = build(points);
+        
+        assertMatches(index, points, random, 300);
+    }
+    
+    @Test
+    @DisplayName("测试增量变更、全量重建和合并")
+    void testChanges() {
+        Random random = new Random(17);
+        Map<Long, double[]> points = randomPoints(random, 5_000);
+        GeoPointIndex index = build(points);
+        
+        // 移动、移除和新增
+        for (int i = 0; i < 500; i++) {
+            long id = random.nextInt(6_000);
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                points.remove(id);
+            } else {
+                double[] point = randomPoint(random);
+                index.upsert(id, point[0], point[1]);
+                points.put(id, point);
+            }
+        }
+        assertTrue(index.pendingChanges() > 0);
+        assertMatches(index, points, random, 100);
+        
+        index.compact();
+        assertEquals(0, index.pendingChanges());
+        assertEquals(points.size(), index.treeSize());
+        assertMatches(index, points, random, 100);
+    }
+    
+    @Test
+    @DisplayName("测试全量重建时保留读取数据之后的变更")
+    void testRebuildKeepsLaterChanges() {
+        GeoPointIndex index = new GeoPointIndex();
+        index.upsert(1L, 120.0, 30.0);
+        index.upsert(2L, 120.001, 30.0);
+        
+        // 读取全量数据时点2已移除，读取之后点3加入、点1被移除
+        long sequence = index.sequence();
+        index.upsert(3L, 120.002, 30.0);
+        index.remove(1L);
+        index.rebuild(new long[]{1L}, new double[]{120.0}, new double[]{30.0}, 1, sequence);
+        
+        assertEquals(2, index.pendingChanges());
+        List<Long> ids = index.nearest(120.0, 30.0, 10, 10).stream()
+                .map(GeoPointIndex.Neighbor::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(3L), ids);
+    }
+    
+    @Test
+    @DisplayName("测试跨越180度经线和极点的查询")
+    void testAntimeridianAndPole() {
+        GeoPointIndex index = new GeoPointIndex();
+        long[] ids = {1L, 2L, 3L, 4L};
+        double[] longitudes = {179.999, -179.999, 0.0, 180.0};
+        double[] latitudes = {0.0, 0.0, 89.999, 89.999};
+        index.rebuild(ids, longitudes, latitudes, ids.length, index.sequence());
+        
+        List<GeoPointIndex.Neighbor> neighbors = index.nearest(179.9995, 0.0, 5.0, 10);
+        assertEquals(List.of(1L, 2L), neighbors.stream().map(GeoPointIndex.Neighbor::getId).collect(Collectors.toList()));
+        
+        // 两点到北极的距离相同（浮点误差内），只校验都能查到
+        neighbors = index.nearest(90.0, 90.0, 1.0, 10);
+        assertEquals(List.of(3L, 4L), neighbors.stream().map(GeoPointIndex.Neighbor::getId).sorted().collect(Collectors.toList()));
+    }
+    
+    @Test
+    @DisplayName("测试空索引和非法参数")
+    void testEmpty() {
+        GeoPointIndex index = new GeoPointIndex();
+        assertTrue(index.nearest(120.0, 30.0, 10, 10).isEmpty());
+        index.upsert(1L, 120.0, 30.0);
+        assertTrue(index.nearest(120.0, 30.0, 10, 0).isEmpty());
+        assertTrue(index.nearest(120.0, 30.0, -1, 10).isEmpty());
+        assertEquals(1, index.nearest(120.0, 30.0, 0, 10).size());
+    }
+    
+    private static void assertMatches(GeoPointIndex index, Map<Long, double[]> points, Random random, int queries) {
+        double[] radii = {0.5, 5, 30, 300, Double.POSITIVE_INFINITY};
+        int[] limits = {1, 10, 100};
+        for (int i = 0; i < queries; i++) {
+            double[] center = randomPoint(random);
+            double radius = radii[random.nextInt(radii.length)];
+            int limit = limits[random.nextInt(limits.length)];
+            List<GeoPointIndex.Neighbor> expected = bruteForce(points, center[0], center[1], radius, limit);
+            List<GeoPointIndex.Neighbor> actual = index.nearest(center[0], center[1], radius, limit);
+            String query = String.format("(%.6f, %.6f) 半径 %.1f 公里 前 %d 条", center[0], center[1], radius, limit);
+            assertEquals(expected.size(), actual.size(), query);
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j).getId(), actual.get(j).getId(), query);
+                assertEquals(expected.get(j).getDistance(), actual.get(j).getDistance(), 0.0, query);
+            }
+        }
+    }
+    
+    private static List<GeoPointIndex.Neighbor> bruteForce(Map<Long, double[]> points, double longitude,
+                                                           double latitude, double radius, int limit) {
+        List<GeoPointIndex.Neighbor> neighbors = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : points.entrySet()) {
+            double distance = haversine(longitude, latitude, entry.getValue()[0], entry.getValue()[1]);
+            if (distance <= radius) {
+                neighbors.add(new GeoPointIndex.Neighbor(entry.getKey(), distance));
+            }
+        }
+        return neighbors.stream()
+                .sorted(Comparator.comparingDouble(GeoPointIndex.Neighbor::getDistance)
+                        .thenComparingLong(GeoPointIndex.Neighbor::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    private static GeoPointIndex build(Map<Long, double[]> points) {
+        GeoPointIndex index = new GeoPointIndex();
+        long[] ids = new long[points.size()];
+        double[] longitudes = new double[points.size()];
+        double[] latitudes = new double[points.size()];
+        int size = 0;
+        for (Map.Entry<Long, double[]> entry : points.entrySet()) {
+            ids[size] = entry.getKey();
+            longitudes[size] = entry.getValue()[0];
+            latitudes[size] = entry.getValue()[1];
+            size++;
+        }
+        index.rebuild(ids, longitudes, latitudes, size, index.sequence());
+        return index;
+    }
+    
+    private static Map<Long, double[]> randomPoints(Random random, int count) {
+        Map<Long, double[]> points = new HashMap<>();
+        for (long id = 0; id < count; id++) {
+            points.put(id, randomPoint(random));
+        }
+        return points;
+    }
+    
+    /**
+     * 随机坐标（经度, 纬度）：一半集中在杭州附近（含大量重复坐标），其余分布在全球
+     */
+    private static double[] randomPoint(Random random) {
+        int kind = random.nextInt(4);
+        if (kind == 0) {
+            return new double[]{120.1551 + random.nextInt(20) * 0.001, 30.2741};
+        }
+        if (kind == 1) {
+            return new double[]{120.1551 + random.nextGaussian() * 0.2, 30.2741 + random.nextGaussian() * 0.2};
+        }
+        return new double[]{random.nextDouble() * 360 - 180, Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1))};
+    }
+    
+    private static double haversine(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double deltaLatRad = Math.toRadians(latitude2 - latitude1);
+        double deltaLonRad = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(deltaLatRad / 2) * Math.sin(deltaLatRad / 2) +
+                   Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) *
+                   Math.sin(deltaLonRad / 2) * Math.sin(deltaLonRad / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
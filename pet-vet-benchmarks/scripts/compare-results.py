@@ -0,0 +1,84 @@
+#!/usr/bin/env python3
+"""
+对比两次 JMH JSON 结果
+
+用法：
+    scripts/compare-results.py results/baseline.json results/candidate.json [--threshold 5]
+
+按 (基准方法, 参数, 线程数) 配对两次结果，输出分数变化百分比；
+变化超过阈值且超出两次结果误差范围之和的行标记为 FASTER/SLOWER（会根据吞吐/耗时模式判断方向）。
+存在 SLOWER 行时以退出码 2 结束，便于在 CI 中使用。
+"""
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = json.load(f)
+    table = {}
+    for r in results:
+        params = ",".join("%s=%s" % (k, v) for k, v in sorted((r.get("params") or {}).items()))
+        key = (r["benchmark"], params, r.get("threads", 1))
+        metric = r["primaryMetric"]
+        error = metric.get("scoreError")
+        table[key] = {
+            "mode": r["mode"],
+            "score": metric["score"],
+            "error": error if isinstance(error, (int, float)) else 0.0,
+            "unit": metric["scoreUnit"],
+        }
+    return table
+
+
+def short_name(benchmark):
+    parts = benchmark.split(".")
+    return ".".join(parts[-2:])
+
+
+def main():
+    parser = argparse.ArgumentParser(description="对比两次 JMH JSON 结果")
+    parser.add_argument("baseline")
+    parser.add_argument("candidate")
+    parser.add_argument("--threshold", type=float, default=5.0, help="标记为显著变化的百分比阈值（默认 5）")
+    args = parser.parse_args()
+
+    base = load(args.baseline)
+    cand = load(args.candidate)
+
+    rows = []
+    regressions = 0
+    for key in sorted(set(base) | set(cand)):
+        name = "%s[%s] t=%s" % (short_name(key[0]), key[1], key[2])
+        if key not in base or key not in cand:
+            rows.append((name, "-", "-", "-", "ONLY IN " + ("CANDIDATE" if key in cand else "BASELINE")))
+            continue
+        b, c = base[key], cand[key]
+        delta = (c["score"] - b["score"]) / b["score"] * 100.0 if b["score"] else 0.0
+        # 吞吐模式分数越大越好，其余模式（耗时）越小越好
+        higher_is_better = b["mode"] == "thrpt"
+        significant = abs(delta) >= args.threshold and abs(c["score"] - b["score"]) > b["error"] + c["error"]
+        verdict = ""
+        if significant:
+            better = (delta > 0) == higher_is_better
+            verdict = "FASTER" if better else "SLOWER"
+            if not better:
+                regressions += 1
+        rows.append((name,
+                     "%.3f ± %.3f %s" % (b["score"], b["error"], b["unit"]),
+                     "%.3f ± %.3f %s" % (c["score"], c["error"], c["unit"]),
+                     "%+.1f%%" % delta,
+                     verdict))
+
+    headers = ("Benchmark", "Baseline", "Candidate", "Delta", "")
+    widths = [max(len(str(row[i])) for row in rows + [headers]) for i in range(len(headers))]
+    fmt = "  ".join("{:<%d}" % w for w in widths)
+    print(fmt.format(*headers))
+    for row in rows:
+        print(fmt.format(*row))
+    return 2 if regressions else 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+#
+# 运行 JMH 基准测试并输出 JSON 结果
+#
+# 用法：
+#   scripts/run-benchmarks.sh <结果名称> [JMH 参数...]
+# 示例：
+#   scripts/run-benchmarks.sh baseline
+#   scripts/run-benchmarks.sh snowflake SnowflakeIdGeneratorBenchmark -f 2
+#
+# 结果写入 results/<结果名称>.json，可用 scripts/compare-results.py 对比两次运行
+#
+set -euo pipefail
+
+MODULE_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+ROOT_DIR="$(cd "${MODULE_DIR}/.." && pwd)"
+
+if [ $# -lt 1 ]; then
+    echo "用法: $0 <结果名称> [JMH 参数...]" >&2
+    exit 1
+fi
+NAME="$1"
+shift
+
+JAR="${MODULE_DIR}/target/benchmarks.jar"
+if [ ! -f "${JAR}" ] || [ "${REBUILD:-false}" = "true" ]; then
+    (cd "${ROOT_DIR}" && mvn -B -q -P benchmarks -pl pet-vet-benchmarks -am package -DskipTests)
+fi
+
+mkdir -p "${MODULE_DIR}/results"
+java -jar "${JAR}" -rf json -rff "${MODULE_DIR}/results/${NAME}.json" "$@"
+echo "结果已写入 ${MODULE_DIR}/results/${NAME}.json"
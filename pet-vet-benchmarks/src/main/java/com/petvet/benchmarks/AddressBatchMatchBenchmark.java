@@ -0,0 +1,119 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.app.application.address.AddressBatchMatchService;
+import com.petvetai.app.dto.resp.AddressBatchMatchSummaryResp;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量地址匹配基准测试：AddressBatchMatchService 在不同线程数下的吞吐（行/秒）
+ * 
+ * 每次调用匹配 {@value #ROWS} 行地址，输入由 fixtures/administrative_divisions.csv 以固定随机种子生成：
+ * 约 30% 为前面出现过的地址（含只差空格、标点的写法），其余为完整地址、缺少省市、带门牌号或含一个错别字的地址
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class AddressBatchMatchBenchmark {
+    
+    /**
+     * 每次调用匹配的行数
+     */
+    private static final int ROWS = 20000;
+    
+    /**
+     * 错别字用字
+     */
+    private static final String TYPO_CHARS = "与钱仓余航杭州洲西溪海淀典中忠关官";
+    
+    /**
+     * 工作线程数
+     */
+    @Param({"1", "4", "8"})
+    public int threads;
+    
+    private List<String> inputs;
+    
+    private ExecutorService executor;
+    
+    private AddressBatchMatchService service;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<AdministrativeDivision> divisions = BenchmarkFixtures.loadDivisions();
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        inputs = generateInputs(divisions, new Random(20261016L));
+        executor = Executors.newFixedThreadPool(threads);
+        service = new AddressBatchMatchService(new AddressMatcher(index), executor, 256, threads * 2, 100000);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public AddressBatchMatchSummaryResp matchBatch(Blackhole blackhole) {
+        return service.matchBatch(inputs.iterator(), blackhole::consume);
+    }
+    
+    private static List<String> generateInputs(List<AdministrativeDivision> divisions, Random random) {
+        List<String> inputs = new ArrayList<>(ROWS);
+        while (inputs.size() < ROWS) {
+            if (!inputs.isEmpty() && random.nextInt(10) < 3) {
+                String previous = inputs.get(random.nextInt(inputs.size()));
+                inputs.add(random.nextBoolean() ? previous : previous.replace("市", "市 ").concat("，"));
+                continue;
+            }
+            AdministrativeDivision division = divisions.get(random.nextInt(divisions.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    inputs.add(division.getFullAddress());
+                    break;
+                case 1:
+                    inputs.add(division.getDistrict() + division.getStreet());
+                    break;
+                case 2:
+                    inputs.add(division.getFullAddress() + (1 + random.nextInt(300)) + "号");
+                    break;
+                default:
+                    char[] chars = division.getFullAddress().toCharArray();
+                    chars[random.nextInt(chars.length)] = TYPO_CHARS.charAt(random.nextInt(TYPO_CHARS.length()));
+                    inputs.add(new String(chars));
+                    break;
+            }
+        }
+        return inputs;
+    }
+}
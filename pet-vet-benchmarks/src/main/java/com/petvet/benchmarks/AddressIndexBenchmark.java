@@ -0,0 +1,90 @@
+package com.petvet.benchmarks;
+
+import com.petvet.benchmarks.legacy.LegacyAddressIndex;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 地址索引查询基准测试：紧凑前缀树与旧版 HashMap 前缀树（legacy 包）对比
+ * 
+ * 查询词取自数据集本身：完整地址（精确命中）、街道名（少量结果）、城市名前缀（整市结果）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class AddressIndexBenchmark {
+    
+    /**
+     * 索引实现：compact-当前实现，legacy-旧版实现
+     */
+    @Param({"compact", "legacy"})
+    public String impl;
+    
+    /**
+     * 数据集：fixture-约3800条街道，national-约4万条合成街道
+     */
+    @Param({"fixture", "national"})
+    public String dataset;
+    
+    /**
+     * 查询类型
+     */
+    @Param({"fullAddress", "street", "cityPrefix"})
+    public String query;
+    
+    private Function<String, Set<String>> searchByKeyword;
+    
+    private String keyword;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<AdministrativeDivision> divisions = "national".equals(dataset)
+                ? BenchmarkFixtures.nationalDivisions()
+                : BenchmarkFixtures.loadDivisions();
+        if ("legacy".equals(impl)) {
+            LegacyAddressIndex index = new LegacyAddressIndex();
+            index.buildIndex(divisions);
+            searchByKeyword = index::searchByKeyword;
+        } else {
+            AddressIndex index = new AddressIndex();
+            index.buildIndex(divisions);
+            searchByKeyword = index::searchByKeyword;
+        }
+        
+        AdministrativeDivision sample = divisions.get(divisions.size() / 2);
+        switch (query) {
+            case "fullAddress" -> keyword = sample.getFullAddress();
+            case "street" -> keyword = sample.getStreet();
+            case "cityPrefix" -> keyword = sample.getCity().substring(0, 2);
+            default -> throw new IllegalArgumentException("未知查询类型: " + query);
+        }
+    }
+    
+    @Benchmark
+    public Set<String> searchByKeyword() {
+        return searchByKeyword.apply(keyword);
+    }
+}
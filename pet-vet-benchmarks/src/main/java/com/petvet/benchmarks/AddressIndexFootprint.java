@@ -0,0 +1,80 @@
+package com.petvet.benchmarks;
+
+import com.petvet.benchmarks.legacy.LegacyAddressIndex;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 地址索引内存占用对比（非 JMH 基准）
+ * 
+ * 分别构建旧版和当前索引，通过多次 GC 后的堆使用量差值估算索引常驻内存，结果包含行政区划对象本身。
+ * 用法：java -Xmx2g -cp target/benchmarks.jar com.petvet.benchmarks.AddressIndexFootprint [fixture|national]
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class AddressIndexFootprint {
+    
+    private AddressIndexFootprint() {
+    }
+    
+    public static void main(String[] args) {
+        String dataset = args.length > 0 ? args[0] : "national";
+        Supplier<List<AdministrativeDivision>> divisions = "fixture".equals(dataset)
+                ? BenchmarkFixtures::loadDivisions
+                : BenchmarkFixtures::nationalDivisions;
+        
+        System.out.printf("数据集 %s，行政区划 %d 条%n", dataset, divisions.get().size());
+        
+        long legacyBytes = measure(() -> {
+            LegacyAddressIndex index = new LegacyAddressIndex();
+            index.buildIndex(divisions.get());
+            return index;
+        });
+        System.out.printf("legacy  : %,d 字节%n", legacyBytes);
+        
+        AddressIndex compact = new AddressIndex();
+        long compactBytes = measure(() -> {
+            compact.buildIndex(divisions.get());
+            return compact;
+        });
+        System.out.printf("compact : %,d 字节 %s%n", compactBytes, compact.getStats());
+        System.out.printf("compact/legacy = %.3f%n", (double) compactBytes / legacyBytes);
+    }
+    
+    /**
+     * 测量对象构建后常驻的堆内存
+     * 
+     * @param factory 对象构建函数
+     * @return 估算字节数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static long measure(Supplier<Object> factory) {
+        long before = usedHeapAfterGc();
+        Object retained = factory.get();
+        long after = usedHeapAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+    
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
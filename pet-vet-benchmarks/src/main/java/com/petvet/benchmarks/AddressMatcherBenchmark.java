@@ -0,0 +1,61 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AddressMatcher;
+import com.petvetai.infrastructure.util.address.MatchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地址匹配基准测试：在 fixtures/administrative_divisions.csv（约3800条街道级区划）上执行 AddressMatcher.match
+ * （单个最佳结果和前5个结果）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AddressMatcherBenchmark {
+    
+    /**
+     * 输入地址：完整地址、同音错别字、缺少省市、直辖市
+     */
+    @Param({"浙江省杭州市余杭区仓前街道", "浙江省杭州市与杭区仓前街道", "余杭区仓前街道", "北京市海淀区中关村街道"})
+    public String address;
+    
+    private AddressMatcher matcher;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(BenchmarkFixtures.loadDivisions());
+        matcher = new AddressMatcher(index);
+    }
+    
+    @Benchmark
+    public MatchResult match() {
+        return matcher.match(address);
+    }
+    
+    @Benchmark
+    public List<MatchResult> matchTop5() {
+        return matcher.match(address, 5);
+    }
+}
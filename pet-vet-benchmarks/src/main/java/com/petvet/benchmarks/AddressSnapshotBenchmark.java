@@ -0,0 +1,80 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地址索引启动基准测试：从行政区划对象构建索引与内存映射加载二进制快照对比
+ * 
+ * 单次执行计时（冷启动场景），load 包含打开文件、校验全部分区的校验和，不包含读取原始 CSV
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class AddressSnapshotBenchmark {
+    
+    /**
+     * 数据集：fixture-约3800条街道，national-约4万条合成街道
+     */
+    @Param({"fixture", "national"})
+    public String dataset;
+    
+    private List<AdministrativeDivision> divisions;
+    
+    private Path snapshot;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        divisions = "national".equals(dataset)
+                ? BenchmarkFixtures.nationalDivisions()
+                : BenchmarkFixtures.loadDivisions();
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        snapshot = Files.createTempFile("address-index-", ".snapshot");
+        index.writeSnapshot(snapshot);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+    
+    @Benchmark
+    public AddressIndex build() {
+        AddressIndex index = new AddressIndex();
+        index.buildIndex(divisions);
+        return index;
+    }
+    
+    @Benchmark
+    public AddressIndex load() throws IOException {
+        AddressIndex index = new AddressIndex();
+        index.loadSnapshot(snapshot);
+        return index;
+    }
+}
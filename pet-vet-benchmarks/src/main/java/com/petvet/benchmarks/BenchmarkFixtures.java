@@ -0,0 +1,158 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试数据加载工具
+ * 
+ * 所有测试数据都位于本模块的 classpath:fixtures/ 目录下，随模块提交，运行基准测试不需要网络或外部服务
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class BenchmarkFixtures {
+    
+    /**
+     * 测试数据目录
+     */
+    private static final String FIXTURE_DIR = "fixtures/";
+    
+    /**
+     * 合成地名用字（常见地名用字，含部分同音字）
+     */
+    private static final String PLACE_CHARS =
+            "安宁平和兴华新东西南北中山江河湖海云阳城关林泉水石桥龙凤金银玉宝长永昌盛福寿康泰顺德仁义礼智"
+                    + "春秋黄青白红绿松柏梅竹兰桂花溪岭峰岗坪塘湾洲沙田庄园源清明光辉荣丰富庆吉祥瑞台州口门";
+    
+    /**
+     * 合成区划名称的层级后缀
+     */
+    private static final String[] STREET_SUFFIXES = {"街道", "镇", "乡"};
+    
+    private BenchmarkFixtures() {
+    }
+    
+    /**
+     * 读取测试数据文件的全部字节
+     * 
+     * @param name 文件名
+     * @return 文件内容
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static byte[] readBytes(String name) {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(FIXTURE_DIR + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("测试数据不存在: " + FIXTURE_DIR + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取测试数据失败: " + name, e);
+        }
+    }
+    
+    /**
+     * 读取 UTF-8 文本测试数据
+     * 
+     * @param name 文件名
+     * @return 文本内容
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static String readString(String name) {
+        return new String(readBytes(name), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 读取按行组织的测试数据，忽略空行和 # 开头的注释行
+     * 
+     * @param name 文件名
+     * @return 数据行
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static List<String> readLines(String name) {
+        List<String> lines = new ArrayList<>();
+        for (String line : readString(name).split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * 加载行政区划测试数据（格式：编码,省,市,区,街道）
+     * 
+     * @return 行政区划列表
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static List<AdministrativeDivision> loadDivisions() {
+        List<AdministrativeDivision> divisions = new ArrayList<>();
+        for (String line : readLines("administrative_divisions.csv")) {
+            String[] parts = line.split(",");
+            String province = parts[1];
+            String city = parts[2];
+            String district = parts[3];
+            String street = parts[4];
+            // 直辖市省市同名，完整地址中只保留一次（如：北京市海淀区中关村街道）
+            String fullAddress = (province.equals(city) ? province : province + city) + district + street;
+            divisions.add(new AdministrativeDivision(parts[0], province, city, district, street, fullAddress, 4));
+        }
+        return divisions;
+    }
+    
+    /**
+     * 生成全国规模的合成行政区划数据（约4万条街道级区划）
+     * 
+     * 仓库中没有完整的全国区划数据，这里用固定随机种子组合地名用字生成：
+     * 34个省、每省约10个市、每市约10个区县、每区县约12个街道，名称长度和重名分布接近真实数据，
+     * 用于衡量索引在全国数据规模下的内存占用和查询耗时。相同参数每次生成的结果完全一致
+     * 
+     * @return 行政区划列表
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static List<AdministrativeDivision> nationalDivisions() {
+        Random random = new Random(20261016L);
+        List<AdministrativeDivision> divisions = new ArrayList<>(42000);
+        for (int p = 0; p < 34; p++) {
+            String province = placeName(random, 2) + "省";
+            int cityCount = 8 + random.nextInt(5);
+            for (int c = 0; c < cityCount; c++) {
+                String city = placeName(random, 2) + "市";
+                int districtCount = 8 + random.nextInt(5);
+                for (int d = 0; d < districtCount; d++) {
+                    String district = placeName(random, 2) + (random.nextInt(3) == 0 ? "县" : "区");
+                    int streetCount = 9 + random.nextInt(7);
+                    for (int s = 0; s < streetCount; s++) {
+                        String street = placeName(random, 2 + random.nextInt(2))
+                                + STREET_SUFFIXES[random.nextInt(STREET_SUFFIXES.length)];
+                        String code = String.format("%02d%02d%02d%03d", p + 11, c + 1, d + 1, s + 1);
+                        divisions.add(new AdministrativeDivision(code, province, city, district, street,
+                                province + city + district + street, 4));
+                    }
+                }
+            }
+        }
+        return divisions;
+    }
+    
+    private static String placeName(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            name.append(PLACE_CHARS.charAt(random.nextInt(PLACE_CHARS.length())));
+        }
+        return name.toString();
+    }
+}
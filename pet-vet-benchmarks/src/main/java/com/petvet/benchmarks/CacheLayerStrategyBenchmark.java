@@ -0,0 +1,84 @@
+package com.petvet.benchmarks;
+
+import com.petvet.rag.app.classifier.config.ClassifierProperties;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.strategy.impl.CacheLayerStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分类缓存层基准测试：缓存 Key 计算（MD5）加 Caffeine 查找/写入
+ * 
+ * 查询来自 fixtures/queries.txt；命中场景预先缓存全部查询，未命中场景在查询后追加后缀使其不在缓存中
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheLayerStrategyBenchmark {
+    
+    private CacheLayerStrategy strategy;
+    
+    private String[] hitQueries;
+    
+    private String[] missQueries;
+    
+    private ClassificationResult result;
+    
+    private int cursor;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        strategy = new CacheLayerStrategy(new ClassifierProperties());
+        List<String> queries = BenchmarkFixtures.readLines("queries.txt");
+        hitQueries = queries.toArray(new String[0]);
+        missQueries = queries.stream().map(query -> query + "（未缓存）").toArray(String[]::new);
+        result = ClassificationResult.builder()
+                .needRetrieval(true)
+                .confidence(0.95)
+                .reason("benchmark")
+                .strategyName("RuleLayerStrategy")
+                .build();
+        for (String query : hitQueries) {
+            strategy.cacheResult(query, result);
+        }
+    }
+    
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == hitQueries.length ? 0 : index + 1;
+        return index;
+    }
+    
+    @Benchmark
+    public ClassificationResult lookupHit() {
+        return strategy.classify(hitQueries[next()], null);
+    }
+    
+    @Benchmark
+    public ClassificationResult lookupMiss() {
+        return strategy.classify(missQueries[next()], null);
+    }
+    
+    @Benchmark
+    public void put() {
+        strategy.cacheResult(hitQueries[next()], result);
+    }
+}
@@ -0,0 +1,133 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.geo.GeoPointIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 附近医生内存空间索引基准测试（采样模式，结果包含 p50/p99 等分位数）
+ * 
+ * 100 万个已审核医生，80% 集中在 5 个城市中心附近，其余分布在全国范围；查询点取自医生坐标附近。
+ * pendingChanges 为尚未合并进 KD 树的增量变更数（上限为 doctor.spatial-index.max-pending-changes 的默认值）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class DoctorSpatialIndexBenchmark {
+    
+    private static final double[][] CITIES = {
+        {116.4074, 39.9042}, {121.4737, 31.2304}, {120.1551, 30.2741}, {113.2644, 23.1291}, {104.0665, 30.5728}
+    };
+    
+    private static final int QUERY_COUNT = 4096;
+    
+    /**
+     * 医生数量
+     */
+    @Param({"1000000"})
+    public int doctors;
+    
+    /**
+     * 查询类型：knn-10公里内最近20个，radius-5公里内全部（最多1000个）
+     */
+    @Param({"knn", "radius"})
+    public String query;
+    
+    /**
+     * 尚未合并进 KD 树的增量变更数
+     */
+    @Param({"0", "10000"})
+    public int pendingChanges;
+    
+    private GeoPointIndex index;
+    
+    private double[] queryLongitudes;
+    
+    private double[] queryLatitudes;
+    
+    private double maxDistance;
+    
+    private int limit;
+    
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20261017L);
+        long[] ids = new long[doctors];
+        double[] longitudes = new double[doctors];
+        double[] latitudes = new double[doctors];
+        for (int i = 0; i < doctors; i++) {
+            ids[i] = i + 1;
+            double[] point = randomPoint(random);
+            longitudes[i] = point[0];
+            latitudes[i] = point[1];
+        }
+        queryLongitudes = new double[QUERY_COUNT];
+        queryLatitudes = new double[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int doctor = random.nextInt(doctors);
+            queryLongitudes[i] = longitudes[doctor] + random.nextGaussian() * 0.01;
+            queryLatitudes[i] = latitudes[doctor] + random.nextGaussian() * 0.01;
+        }
+        
+        index = new GeoPointIndex();
+        index.rebuild(ids.clone(), longitudes.clone(), latitudes.clone(), doctors, index.sequence());
+        // 一半为移动，一半为禁用
+        for (int i = 0; i < pendingChanges; i++) {
+            int doctor = random.nextInt(doctors);
+            if (random.nextBoolean()) {
+                double[] point = randomPoint(random);
+                index.upsert(ids[doctor], point[0], point[1]);
+            } else {
+                index.remove(ids[doctor]);
+            }
+        }
+        
+        switch (query) {
+            case "knn" -> {
+                maxDistance = 10;
+                limit = 20;
+            }
+            case "radius" -> {
+                maxDistance = 5;
+                limit = 1000;
+            }
+            default -> throw new IllegalArgumentException("未知查询类型: " + query);
+        }
+    }
+    
+    @Benchmark
+    public List<GeoPointIndex.Neighbor> nearest() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return index.nearest(queryLongitudes[i], queryLatitudes[i], maxDistance, limit);
+    }
+    
+    private static double[] randomPoint(Random random) {
+        if (random.nextInt(100) < 80) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            return new double[]{city[0] + random.nextGaussian() * 0.3, city[1] + random.nextGaussian() * 0.3};
+        }
+        return new double[]{73 + random.nextDouble() * 62, 18 + random.nextDouble() * 35};
+    }
+}
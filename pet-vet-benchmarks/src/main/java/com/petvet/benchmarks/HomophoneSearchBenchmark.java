@@ -0,0 +1,83 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+import com.petvetai.infrastructure.util.address.AddressIndex;
+import com.petvetai.infrastructure.util.address.AdministrativeDivision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同音候选查找基准测试：拼音 n-gram 索引与改造前的逐条拼音比较对比
+ * 
+ * linearScan 复现改造前 AddressMatcher.findCandidateCodes 中的同音循环
+ * （对每个行政区划的每个层级调用 PinyinUtil.isHomophone），index 为 AddressIndex.searchByHomophone
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class HomophoneSearchBenchmark {
+    
+    /**
+     * 数据集：fixture-约3800条街道，national-约4万条合成街道
+     */
+    @Param({"fixture", "national"})
+    public String dataset;
+    
+    /**
+     * 关键词：同音错别字区县、街道名
+     */
+    @Param({"与杭区", "仓钱街道"})
+    public String keyword;
+    
+    private List<AdministrativeDivision> divisions;
+    
+    private AddressIndex index;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        divisions = "national".equals(dataset)
+                ? BenchmarkFixtures.nationalDivisions()
+                : BenchmarkFixtures.loadDivisions();
+        index = new AddressIndex();
+        index.buildIndex(divisions);
+    }
+    
+    @Benchmark
+    public Set<String> index() {
+        return index.searchByHomophone(keyword);
+    }
+    
+    @Benchmark
+    public Set<String> linearScan() {
+        Set<String> codes = new HashSet<>();
+        for (AdministrativeDivision division : divisions) {
+            for (String level : division.getLevels()) {
+                if (level != null && PinyinUtil.isHomophone(keyword, level)) {
+                    codes.add(division.getCode());
+                }
+            }
+        }
+        return codes;
+    }
+}
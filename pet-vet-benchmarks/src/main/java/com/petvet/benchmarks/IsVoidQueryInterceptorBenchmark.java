@@ -0,0 +1,101 @@
+package com.petvet.benchmarks;
+
+import com.petvet.benchmarks.legacy.LegacyIsVoidQueryInterceptor;
+import com.petvet.common.mybatis.interceptor.IsVoidQueryInterceptor;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * is_void 拦截器基准测试：每次查询的拦截开销，改写缓存前（每次解析）与改写缓存后的对比
+ * 
+ * 下游 Executor 为空实现，测得的时间只包含拦截器本身的开销
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsVoidQueryInterceptorBenchmark {
+    
+    /**
+     * 测试 SQL：需要改写的查询、已有 is_void 条件无需改写的查询、需要改写的更新
+     */
+    private static final Map<String, String> SQLS = Map.of(
+            "selectRewrite", "SELECT d.id, d.name, d.title FROM vet_ai_doctor d "
+                    + "WHERE d.approval_status = ? AND d.city_code = ? ORDER BY d.update_time DESC LIMIT ?",
+            "selectNoRewrite", "SELECT id, name, breed FROM vet_ai_pet WHERE user_id = ? AND is_void = 0",
+            "updateRewrite", "UPDATE vet_ai_user SET nickname = ?, update_time = ? WHERE id = ?");
+    
+    @Param({"selectRewrite", "selectNoRewrite", "updateRewrite"})
+    public String statement;
+    
+    private Interceptor legacy;
+    
+    private Interceptor cached;
+    
+    private Invocation invocation;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        legacy = new LegacyIsVoidQueryInterceptor();
+        cached = new IsVoidQueryInterceptor();
+        
+        String sql = SQLS.get(statement);
+        boolean update = statement.startsWith("update");
+        Configuration configuration = new Configuration();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "com.petvet.benchmarks.Mapper." + statement,
+                new StaticSqlSource(configuration, sql), update ? SqlCommandType.UPDATE : SqlCommandType.SELECT)
+                .build();
+        
+        Executor executor = (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(),
+                new Class<?>[]{Executor.class},
+                (proxy, method, args) -> "update".equals(method.getName()) ? 0 : Collections.emptyList());
+        if (update) {
+            Method method = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+            invocation = new Invocation(executor, method, new Object[]{ms, null});
+        } else {
+            Method method = Executor.class.getMethod("query", MappedStatement.class, Object.class,
+                    RowBounds.class, ResultHandler.class);
+            invocation = new Invocation(executor, method, new Object[]{ms, null, RowBounds.DEFAULT, null});
+        }
+    }
+    
+    @Benchmark
+    public Object legacyParseEveryTime() throws Throwable {
+        return legacy.intercept(invocation);
+    }
+    
+    @Benchmark
+    public Object rewriteCache() throws Throwable {
+        return cached.intercept(invocation);
+    }
+}
@@ -0,0 +1,52 @@
+package com.petvet.benchmarks;
+
+import com.petvet.embedding.app.util.PdfBox3DocumentParser;
+import dev.langchain4j.data.document.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF 解析基准测试：PdfBox3DocumentParser.parse 解析随模块提交的示例简历 PDF（1页、10页）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfBox3DocumentParserBenchmark {
+    
+    @Param({"resume-1page.pdf", "resume-10pages.pdf"})
+    public String file;
+    
+    private PdfBox3DocumentParser parser;
+    
+    private byte[] pdfBytes;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        parser = new PdfBox3DocumentParser();
+        pdfBytes = BenchmarkFixtures.readBytes(file);
+    }
+    
+    @Benchmark
+    public Document parse() {
+        return parser.parse(new ByteArrayInputStream(pdfBytes));
+    }
+}
@@ -0,0 +1,50 @@
+package com.petvet.benchmarks;
+
+import com.petvetai.infrastructure.util.PinyinUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拼音组合基准测试：PinyinUtil.getAllPinyinCombinations（含多音字展开）和 isHomophone
+ * 
+ * PinyinUtil 缓存了单字读音和整串结果，稳定状态下测到的是缓存命中的开销；
+ * 与缓存之前的结果对比即可看出地址匹配内层循环节省的时间
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PinyinUtilBenchmark {
+    
+    /**
+     * 输入文本：短关键词、含多音字的关键词、完整地址
+     */
+    @Param({"余杭区", "重庆市长江路街道", "浙江省杭州市余杭区仓前街道"})
+    public String text;
+    
+    @Benchmark
+    public Set<String> allPinyinCombinations() {
+        return PinyinUtil.getAllPinyinCombinations(text);
+    }
+    
+    @Benchmark
+    public boolean homophone() {
+        return PinyinUtil.isHomophone(text, "浙江省杭州市余杭区仓前街道");
+    }
+}
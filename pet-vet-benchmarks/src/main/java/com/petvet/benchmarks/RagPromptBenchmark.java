@@ -0,0 +1,115 @@
+package com.petvet.benchmarks;
+
+import com.petvet.rag.app.util.PromptTemplate;
+import com.petvet.rag.app.util.RagPromptBuilder;
+import com.petvet.rag.app.util.TokenEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RAG 提示词构建基准测试：改造前的 StringBuilder 拼接上下文加两次 String.replace，
+ * 与预编译模板加 Token 预算拼接上下文的对比
+ * 
+ * 文档正文从 fixtures/resume-zh.txt（约4400字）中循环截取，documentChars 为每个文档的字符数；
+ * budgeted 使用 6000 Token 的提示词上限（长上下文时会截断），unlimited 不限制，便于与改造前对比
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RagPromptBenchmark {
+    
+    private static final String TEMPLATE = "基于以下上下文信息回答用户的问题。如果上下文中没有相关信息，请说明无法从提供的信息中找到答案。\n\n"
+            + "上下文信息：\n{context}\n\n用户问题：{question}\n\n请提供详细、准确的答案：";
+    
+    private static final String QUESTION = "我家狗狗最近一直咳嗽，精神也不太好，需要去医院吗？";
+    
+    private static final int MAX_PROMPT_TOKENS = 6000;
+    
+    @Param({"5", "20"})
+    public int documents;
+    
+    @Param({"500", "4000"})
+    public int documentChars;
+    
+    private List<String> texts;
+    
+    private PromptTemplate template;
+    
+    private String longContext;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        String source = BenchmarkFixtures.readString("resume-zh.txt");
+        texts = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            StringBuilder text = new StringBuilder(documentChars);
+            int offset = i * 97 % source.length();
+            while (text.length() < documentChars) {
+                int end = Math.min(source.length(), offset + documentChars - text.length());
+                text.append(source, offset, end);
+                offset = 0;
+            }
+            texts.add(text.toString());
+        }
+        template = RagPromptBuilder.compile(TEMPLATE);
+        StringBuilder context = new StringBuilder();
+        RagPromptBuilder.appendDocuments(context, texts, null, documents, Integer.MAX_VALUE);
+        longContext = context.toString();
+    }
+    
+    /**
+     * 改造前 RagService.generate 的实现
+     */
+    @Benchmark
+    public String legacyReplace() {
+        StringBuilder contextBuilder = new StringBuilder();
+        for (int i = 0; i < texts.size(); i++) {
+            contextBuilder.append("文档").append(i + 1).append("：\n");
+            contextBuilder.append(texts.get(i)).append("\n\n");
+        }
+        String context = contextBuilder.toString().trim();
+        return TEMPLATE
+                .replace("{context}", context)
+                .replace("{question}", QUESTION);
+    }
+    
+    @Benchmark
+    public String compiledUnlimited() {
+        StringBuilder context = new StringBuilder();
+        RagPromptBuilder.appendDocuments(context, texts, null, documents, Integer.MAX_VALUE);
+        return RagPromptBuilder.render(template, context, QUESTION);
+    }
+    
+    @Benchmark
+    public String compiledBudgeted() {
+        StringBuilder context = new StringBuilder();
+        RagPromptBuilder.appendDocuments(context, texts, null, documents,
+                RagPromptBuilder.contextTokenBudget(template, QUESTION, MAX_PROMPT_TOKENS));
+        return RagPromptBuilder.render(template, context, QUESTION);
+    }
+    
+    @Benchmark
+    public int estimateTokens() {
+        return TokenEstimator.estimate(longContext);
+    }
+}
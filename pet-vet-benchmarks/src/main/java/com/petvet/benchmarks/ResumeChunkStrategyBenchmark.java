@@ -0,0 +1,56 @@
+package com.petvet.benchmarks;
+
+import com.petvet.embedding.app.config.ResumeChunkConfig;
+import com.petvet.embedding.app.domain.TextChunk;
+import com.petvet.embedding.app.service.ResumeChunkStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简历切分基准测试：ResumeChunkStrategy.chunk 切分 fixtures/resume-zh.txt（约4400字）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResumeChunkStrategyBenchmark {
+    
+    /**
+     * 最大 chunk 大小（500 为默认配置）
+     */
+    @Param({"200", "500"})
+    public int maxChunkSize;
+    
+    private ResumeChunkStrategy strategy;
+    
+    private String resumeText;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        strategy = new ResumeChunkStrategy(new ResumeChunkConfig());
+        resumeText = BenchmarkFixtures.readString("resume-zh.txt");
+    }
+    
+    @Benchmark
+    public List<TextChunk> chunk() {
+        return strategy.chunk(resumeText, maxChunkSize, maxChunkSize / 5);
+    }
+}
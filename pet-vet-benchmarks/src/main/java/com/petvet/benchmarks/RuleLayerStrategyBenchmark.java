@@ -0,0 +1,63 @@
+package com.petvet.benchmarks;
+
+import com.petvet.rag.app.classifier.config.ClassifierProperties;
+import com.petvet.rag.app.classifier.engine.RuleEngine;
+import com.petvet.rag.app.classifier.engine.RuleLoader;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.strategy.impl.RuleLayerStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则层基准测试：使用默认规则（闲聊/强制检索/通用知识）对 fixtures/queries.txt 中的查询逐条分类
+ * 
+ * 查询覆盖首条规则命中、后续规则命中和全部不命中三种路径
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleLayerStrategyBenchmark {
+    
+    private RuleLayerStrategy strategy;
+    
+    private String[] queries;
+    
+    private int cursor;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClassifierProperties properties = new ClassifierProperties();
+        RuleEngine ruleEngine = new RuleEngine();
+        ruleEngine.init();
+        RuleLoader ruleLoader = new RuleLoader(properties, ruleEngine);
+        ruleLoader.init();
+        strategy = new RuleLayerStrategy(properties, ruleEngine, ruleLoader);
+        List<String> lines = BenchmarkFixtures.readLines("queries.txt");
+        queries = lines.toArray(new String[0]);
+    }
+    
+    @Benchmark
+    public ClassificationResult classify() {
+        int index = cursor;
+        cursor = index + 1 == queries.length ? 0 : index + 1;
+        return strategy.classify(queries[index], null);
+    }
+}
@@ -0,0 +1,115 @@
+package com.petvet.benchmarks;
+
+import com.petvet.benchmarks.legacy.LegacyRuleLayerStrategy;
+import com.petvet.rag.app.classifier.engine.CompiledRuleSet;
+import com.petvet.rag.app.classifier.engine.RuleCompiler;
+import com.petvet.rag.app.classifier.engine.RuleEngine;
+import com.petvet.rag.app.classifier.engine.RuleLoader;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.model.RuleDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则集基准测试：编译后的规则集（关键词自动机 + 静态动作）与旧版逐条交给 QLExpress 执行的对比
+ * 
+ * 在默认规则之前插入 extraRules 条以固定随机种子生成的关键词规则（每条 5 个关键词），
+ * 其中每 20 条有 1 条为 && 组合的动态规则，对 fixtures/queries.txt 中的查询逐条分类。
+ * 生成的关键词基本不会命中，每条查询都要经过全部生成规则，衡量规则数量对单次分类耗时的影响
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleSetBenchmark {
+    
+    private static final String KEYWORD_CHARS = "犬猫兔鼠鸟龟鱼蛇耳眼鼻齿爪毛皮骨肝肾胃肠心肺血尿粪便热咳喘吐泻痒肿痛癣螨虱蚤";
+    
+    @Param({"0", "300"})
+    public int extraRules;
+    
+    private RuleEngine ruleEngine;
+    
+    private CompiledRuleSet compiled;
+    
+    private LegacyRuleLayerStrategy legacy;
+    
+    private String[] queries;
+    
+    private int cursor;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        ruleEngine = new RuleEngine();
+        ruleEngine.init();
+        
+        List<RuleDefinition> rules = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < extraRules; i++) {
+            List<String> conditions = new ArrayList<>();
+            for (int k = 0; k < 5; k++) {
+                conditions.add("lowerQuery.contains(\"" + keyword(random) + "\")");
+            }
+            String expression = i % 20 == 19 ? String.join(" && ", conditions) : String.join(" || ", conditions);
+            rules.add(RuleDefinition.builder()
+                .name("generated_" + i)
+                .priority(i)
+                .enabled(true)
+                .expression(expression)
+                .action("result.setNeedRetrieval(true); result.setConfidence(0.7); result.setReason(\"规则" + i + "\"); return true;")
+                .build());
+        }
+        rules.addAll(RuleLoader.getDefaultRules());
+        
+        compiled = RuleCompiler.compile(rules);
+        legacy = new LegacyRuleLayerStrategy(ruleEngine, rules);
+        queries = BenchmarkFixtures.readLines("queries.txt").toArray(new String[0]);
+    }
+    
+    @Benchmark
+    public ClassificationResult legacyInterpreted() {
+        return legacy.classify(nextQuery(), null);
+    }
+    
+    @Benchmark
+    public ClassificationResult compiled() {
+        return compiled.evaluate(nextQuery(), null, ruleEngine);
+    }
+    
+    private String nextQuery() {
+        int index = cursor;
+        cursor = index + 1 == queries.length ? 0 : index + 1;
+        return queries[index];
+    }
+    
+    /**
+     * 3 个字的关键词，字符集中没有查询里常见的词组合，几乎不会命中
+     */
+    private static String keyword(Random random) {
+        StringBuilder keyword = new StringBuilder(3);
+        for (int i = 0; i < 3; i++) {
+            keyword.append(KEYWORD_CHARS.charAt(random.nextInt(KEYWORD_CHARS.length())));
+        }
+        return keyword.toString();
+    }
+}
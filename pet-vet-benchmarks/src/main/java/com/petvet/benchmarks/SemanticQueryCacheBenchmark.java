@@ -0,0 +1,122 @@
+package com.petvet.benchmarks;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.semantic.HashingQueryEmbedder;
+import com.petvet.rag.app.semantic.SemanticCacheProperties;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义查询缓存基准测试（采样模式，结果包含 p50/p99 等分位数）
+ * 
+ * 缓存中写入 entries 条查询（fixtures/queries.txt 中的查询加 6 个随机汉字前缀），向量为 256 维本地哈希向量。
+ * 同一查询的不同前缀版本之间相似度较高，每条命中查询都有大量接近阈值的近似条目需要计算点积，属于偏坏的情况；
+ * 命中查询为已缓存的查询加问号（向量相同），未命中查询为 12 个随机汉字，几乎都在签名阶段被排除。
+ * 两组各 4096 条循环使用，超过查询向量缓存的容量，结果包含向量化耗时
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class SemanticQueryCacheBenchmark {
+    
+    private static final int PROBE_COUNT = 4096;
+    
+    /**
+     * 缓存的查询数
+     */
+    @Param({"10000", "100000"})
+    public int entries;
+    
+    private SemanticQueryCache cache;
+    
+    private HashingQueryEmbedder embedder;
+    
+    private String[] hitQueries;
+    
+    private String[] missQueries;
+    
+    private int cursor;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        embedder = new HashingQueryEmbedder(256);
+        SemanticCacheProperties properties = new SemanticCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaxSize(entries);
+        properties.setExpireMinutes(24 * 60);
+        cache = new SemanticQueryCache(properties, embedder);
+        
+        List<String> queries = BenchmarkFixtures.readLines("queries.txt");
+        Random random = new Random(42);
+        String[] cached = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            cached[i] = randomText(random, 6) + queries.get(i % queries.size());
+            cache.putClassification(cached[i], ClassificationResult.builder()
+                .needRetrieval(i % 2 == 0)
+                .confidence(0.9)
+                .reason("规则" + i)
+                .strategyName("RuleLayerStrategy")
+                .build());
+        }
+        
+        hitQueries = new String[PROBE_COUNT];
+        missQueries = new String[PROBE_COUNT];
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            hitQueries[i] = cached[random.nextInt(entries)] + "？";
+            missQueries[i] = randomText(random, 12);
+        }
+    }
+    
+    @Benchmark
+    public ClassificationResult hit() {
+        return cache.getClassification(hitQueries[nextProbe()]);
+    }
+    
+    @Benchmark
+    public ClassificationResult miss() {
+        return cache.getClassification(missQueries[nextProbe()]);
+    }
+    
+    @Benchmark
+    public float[] embed() {
+        return embedder.embed(hitQueries[nextProbe()]);
+    }
+    
+    private int nextProbe() {
+        int index = cursor;
+        cursor = (index + 1) & (PROBE_COUNT - 1);
+        return index;
+    }
+    
+    /**
+     * 随机的 CJK 统一汉字
+     */
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('\u4e00' + random.nextInt(0x9fa5 - 0x4e00)));
+        }
+        return text.toString();
+    }
+}
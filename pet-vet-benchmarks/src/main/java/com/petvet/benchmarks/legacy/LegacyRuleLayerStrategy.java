@@ -0,0 +1,94 @@
+package com.petvet.benchmarks.legacy;
+
+import com.petvet.rag.app.classifier.engine.RuleEngine;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.model.RuleDefinition;
+import com.petvet.rag.app.service.MemoryService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 旧版规则层策略（基准对照）
+ * 
+ * 复制自引入规则编译之前的 RuleLayerStrategy：每次分类都创建上下文，每条规则的表达式和动作都交给 QLExpress 执行，
+ * 仅把规则来源从 RuleLoader 改为构造参数传入，执行逻辑保持不变，用于与当前实现对比
+ * 
+ * @author daidasheng
+ * @date 2024-12-15
+ */
+@Slf4j
+public class LegacyRuleLayerStrategy {
+    
+    private final RuleEngine ruleEngine;
+    
+    private final List<RuleDefinition> rules;
+    
+    public LegacyRuleLayerStrategy(RuleEngine ruleEngine, List<RuleDefinition> rules) {
+        this.ruleEngine = ruleEngine;
+        this.rules = rules;
+    }
+    
+    public ClassificationResult classify(String query, MemoryService.ConversationMemory memory) {
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            // 构建执行上下文（QLExpress 4.0.4使用Map作为上下文）
+            Map<String, Object> context = ruleEngine.createContext();
+            context.put("query", query);
+            context.put("lowerQuery", query.toLowerCase());
+            context.put("memory", memory);
+            
+            // 创建结果对象
+            ClassificationResult result = ClassificationResult.builder()
+                .needRetrieval(null)
+                .confidence(0.0)
+                .reason("")
+                .strategyName("RuleLayerStrategy")
+                .build();
+            context.put("result", result);
+            
+            // 按优先级顺序执行规则
+            for (RuleDefinition rule : rules) {
+                try {
+                    // 1. 执行规则表达式，判断是否匹配
+                    boolean matched = ruleEngine.executeBoolean(rule.getExpression(), context);
+                    
+                    if (matched) {
+                        log.debug("规则 {} 匹配成功, 表达式: {}", rule.getName(), rule.getExpression());
+                        
+                        // 2. 执行规则动作
+                        if (rule.getAction() != null && !rule.getAction().trim().isEmpty()) {
+                            // 执行动作表达式（设置result属性等）
+                            String actionExpression = rule.getAction();
+                            Object actionResult = ruleEngine.execute(actionExpression, context);
+                            
+                            // 如果动作返回true，表示规则处理完成
+                            if (actionResult instanceof Boolean && (Boolean) actionResult) {
+                                long costTime = System.currentTimeMillis() - startTime;
+                                result.setCostTime(costTime);
+                                return result;
+                            }
+                        } else {
+                            // 如果没有动作表达式，默认返回匹配结果
+                            long costTime = System.currentTimeMillis() - startTime;
+                            result.setCostTime(costTime);
+                            return result;
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("规则 {} 执行失败, 继续下一个规则, 错误: {}", rule.getName(), e.getMessage());
+                    // 继续执行下一个规则
+                }
+            }
+            
+            // 所有规则都不匹配，返回null继续下一个策略
+            return null;
+            
+        } catch (Exception e) {
+            log.warn("规则执行失败, query: {}", query, e);
+            return null;
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package com.petvet.common.mybatis.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
-import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.petvet.common.mybatis.id.FileLockWorkerIdLeaseStore;
+import com.petvet.common.mybatis.id.RedisWorkerIdLeaseStore;
 import com.petvet.common.mybatis.id.SnowflakeIdGenerator;
+import com.petvet.common.mybatis.id.WorkerIdLeaseStore;
 import com.petvet.common.mybatis.interceptor.IsVoidQueryInterceptor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.plugin.Interceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+import java.time.Duration;
 
 /**
  * MyBatis Plus 配置类
@@ -18,14 +28,50 @@ import org.springframework.context.annotation.Configuration;
  * - 分页插件
  * - 乐观锁插件
  * - is_void 查询拦截器（自动添加逻辑删除条件）
- * - 雪花算法ID生成器（保证ID严格递增）
+ * - 雪花算法ID生成器（保证ID严格递增，机器ID通过 Redis 租约或文件锁分配，默认为本机文件锁）
  * 
  * @author daidasheng
  * @date 2024-12-27
  */
+@Slf4j
 @Configuration
 public class MybatisPlusConfig {
     
+    /**
+     * 未配置锁文件目录时，在本机临时目录下使用的子目录名
+     */
+    static final String DEFAULT_WORKER_LEASE_DIRECTORY_NAME = "pet-vet-snowflake-worker";
+    
+    /**
+     * 机器ID租约类型：redis 或 file（默认）
+     */
+    @Value("${pet-vet.snowflake.worker-lease.type:}")
+    private String workerLeaseType;
+    
+    /**
+     * 文件锁租约的锁文件目录（未配置时使用本机临时目录，只能在同一主机的进程之间互斥）
+     */
+    @Value("${pet-vet.snowflake.worker-lease.directory:}")
+    private String workerLeaseDirectory;
+    
+    /**
+     * Redis 租约的 Key 前缀
+     */
+    @Value("${pet-vet.snowflake.worker-lease.redis-key-prefix:" + RedisWorkerIdLeaseStore.DEFAULT_KEY_PREFIX + "}")
+    private String workerLeaseRedisKeyPrefix;
+    
+    /**
+     * Redis 租约时长（毫秒）
+     */
+    @Value("${pet-vet.snowflake.worker-lease.redis-ttl-millis:30000}")
+    private long workerLeaseRedisTtlMillis;
+    
+    /**
+     * 允许逻辑时间领先系统时钟的最大毫秒数
+     */
+    @Value("${pet-vet.snowflake.max-clock-skew-millis:" + SnowflakeIdGenerator.DEFAULT_MAX_CLOCK_SKEW_MILLIS + "}")
+    private long maxClockSkewMillis;
+    
     /**
      * 配置 MyBatis Plus 拦截器
      * 
@@ -75,15 +121,49 @@ public class MybatisPlusConfig {
     /**
      * 注册雪花算法ID生成器
      * 
-     * 保证生成的ID严格递增，同时具备分布式唯一性
+     * 保证生成的ID严格递增，同时具备分布式唯一性；机器ID通过租约分配，应用关闭时释放
      * 
+     * @param redisTemplateProvider Redis 模板（仅 redis 租约类型需要）
      * @return IdentifierGenerator
      * @author daidasheng
      * @date 2024-12-27
      */
-    @Bean
-    public IdentifierGenerator identifierGenerator() {
-        return new SnowflakeIdGenerator();
+    @Bean(destroyMethod = "close")
+    public SnowflakeIdGenerator identifierGenerator(ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        return new SnowflakeIdGenerator(workerIdLeaseStore(redisTemplateProvider), maxClockSkewMillis);
+    }
+    
+    /**
+     * 根据配置创建机器ID租约存储
+     * 
+     * 默认使用本机临时目录下的文件锁，只能保证同一主机上的进程互斥，并在启动时告警；
+     * 多主机或多容器部署时需要配置 type=redis，或把 directory 配置为所有实例共享的目录
+     * 
+     * @param redisTemplateProvider Redis 模板
+     * @return 机器ID租约存储
+     * @throws IllegalStateException 租约类型未知，或类型为 redis 但没有 Redis 模板时抛出
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private WorkerIdLeaseStore workerIdLeaseStore(ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        if ("redis".equalsIgnoreCase(workerLeaseType)) {
+            StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+            if (redisTemplate == null) {
+                throw new IllegalStateException("机器ID租约类型为 redis，但未配置 StringRedisTemplate");
+            }
+            return new RedisWorkerIdLeaseStore(redisTemplate, workerLeaseRedisKeyPrefix,
+                    Duration.ofMillis(workerLeaseRedisTtlMillis));
+        }
+        if (StringUtils.hasText(workerLeaseType) && !"file".equalsIgnoreCase(workerLeaseType)) {
+            throw new IllegalStateException("未知的雪花算法机器ID租约类型: " + workerLeaseType + "（可选 redis、file）");
+        }
+        if (StringUtils.hasText(workerLeaseDirectory)) {
+            return new FileLockWorkerIdLeaseStore(workerLeaseDirectory);
+        }
+        String directory = Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_WORKER_LEASE_DIRECTORY_NAME).toString();
+        log.warn("未配置雪花算法机器ID租约存储，使用本机目录 {} 下的文件锁，只能保证同一主机上的进程互斥；"
+                + "多主机或多容器部署时请设置 pet-vet.snowflake.worker-lease.type=redis，"
+                + "或设置 pet-vet.snowflake.worker-lease.directory 为所有实例共享的目录", directory);
+        return new FileLockWorkerIdLeaseStore(directory);
     }
 }
-
@@ -0,0 +1,145 @@
+package com.petvet.common.mybatis.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于文件锁的机器ID租约存储
+ * 
+ * 每个机器ID对应目录下的一个锁文件（worker-<id>.lock），进程持有该文件的排他锁即持有该机器ID；
+ * 进程退出（包括异常退出）时操作系统自动释放文件锁，不需要续期。
+ * 只能在共享同一目录的进程之间保证互斥（同一主机上的多个进程，或挂载了同一共享卷且支持文件锁的多个容器）。
+ * MybatisPlusConfig 未配置目录时使用本机临时目录，只适合单主机部署：容器各自的临时目录互不可见，
+ * 多个副本可能拿到同一个机器ID并生成重复ID；没有共享目录时使用 {@link RedisWorkerIdLeaseStore}
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+public class FileLockWorkerIdLeaseStore implements WorkerIdLeaseStore {
+    
+    /**
+     * 锁文件目录
+     */
+    private final Path directory;
+    
+    /**
+     * 构造函数
+     * 
+     * @param directory 锁文件目录（需要互斥的进程共享的目录）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public FileLockWorkerIdLeaseStore(String directory) {
+        if (directory == null || directory.trim().isEmpty()) {
+            throw new IllegalArgumentException("机器ID锁文件目录不能为空");
+        }
+        this.directory = Paths.get(directory);
+    }
+    
+    @Override
+    public WorkerIdLease acquire(long maxWorkerId) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法创建机器ID锁文件目录: " + directory, e);
+        }
+        
+        // 随机起点探测，减少多个实例同时启动时的争用（容器内进程ID通常都是1，不能作为起点）
+        long size = maxWorkerId + 1;
+        long start = ThreadLocalRandom.current().nextLong(size);
+        for (long i = 0; i < size; i++) {
+            long workerId = (start + i) % size;
+            FileLease lease = tryLock(workerId);
+            if (lease != null) {
+                log.info("通过文件锁获取机器ID: {}, 锁文件目录: {}", workerId, directory);
+                return lease;
+            }
+        }
+        throw new IllegalStateException("机器ID已全部被占用，锁文件目录: " + directory);
+    }
+    
+    /**
+     * 尝试锁定指定机器ID的锁文件
+     * 
+     * @param workerId 机器ID
+     * @return 租约；已被其他进程（或本进程的其他生成器）占用时返回null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private FileLease tryLock(long workerId) {
+        Path lockFile = directory.resolve("worker-" + workerId + ".lock");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new FileLease(workerId, channel, lock);
+            }
+        } catch (OverlappingFileLockException e) {
+            // 本进程内已持有该锁
+        } catch (IOException e) {
+            log.warn("锁定机器ID锁文件失败: {}", lockFile, e);
+        }
+        closeQuietly(channel);
+        return null;
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("关闭机器ID锁文件失败", e);
+        }
+    }
+    
+    /**
+     * 文件锁租约
+     */
+    private static final class FileLease implements WorkerIdLease {
+        
+        private final long workerId;
+        
+        private final FileChannel channel;
+        
+        private final FileLock lock;
+        
+        private FileLease(long workerId, FileChannel channel, FileLock lock) {
+            this.workerId = workerId;
+            this.channel = channel;
+            this.lock = lock;
+        }
+        
+        @Override
+        public long getWorkerId() {
+            return workerId;
+        }
+        
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+        
+        @Override
+        public void close() {
+            try {
+                lock.release();
+            } catch (IOException e) {
+                log.debug("释放机器ID文件锁失败", e);
+            }
+            closeQuietly(channel);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.petvet.common.mybatis.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 的机器ID租约存储
+ * 
+ * 每个机器ID对应一个 Redis Key（{keyPrefix}{id}），值为持有者标识，通过 SET NX PX 抢占，
+ * 后台线程每 1/3 TTL 续期一次。连续两次续期失败（距上次成功续期超过 2/3 TTL）或发现 Key 已被他人持有时，
+ * 租约立即标记为失效，赶在 Key 过期、其他进程可以抢到同一机器ID之前停止使用；
+ * {@link SnowflakeIdGenerator} 发现租约失效后重新申请一个机器ID（Redis 恢复后即可继续生成ID）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+public class RedisWorkerIdLeaseStore implements WorkerIdLeaseStore {
+    
+    /**
+     * 默认 Key 前缀
+     */
+    public static final String DEFAULT_KEY_PREFIX = "pet-vet:snowflake:worker:";
+    
+    /**
+     * 默认租约时长
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    
+    /**
+     * 续期脚本：仍由自己持有时延长过期时间
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    
+    /**
+     * 释放脚本：仍由自己持有时删除
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+    
+    /**
+     * Redis 模板
+     */
+    private final StringRedisTemplate redisTemplate;
+    
+    /**
+     * Key 前缀
+     */
+    private final String keyPrefix;
+    
+    /**
+     * 租约时长
+     */
+    private final Duration ttl;
+    
+    /**
+     * 使用默认前缀和租约时长构造
+     * 
+     * @param redisTemplate Redis 模板
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public RedisWorkerIdLeaseStore(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, DEFAULT_KEY_PREFIX, DEFAULT_TTL);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param redisTemplate Redis 模板
+     * @param keyPrefix Key 前缀
+     * @param ttl 租约时长（至少3秒）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public RedisWorkerIdLeaseStore(StringRedisTemplate redisTemplate, String keyPrefix, Duration ttl) {
+        if (ttl.toMillis() < 3000) {
+            throw new IllegalArgumentException("机器ID租约时长不能小于3秒: " + ttl);
+        }
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+    }
+    
+    @Override
+    public WorkerIdLease acquire(long maxWorkerId) {
+        String owner = ProcessHandle.current().pid() + ":" + UUID.randomUUID();
+        
+        // 随机起点探测，避免所有实例从0开始争抢
+        long size = maxWorkerId + 1;
+        long start = ThreadLocalRandom.current().nextLong(size);
+        for (long i = 0; i < size; i++) {
+            long workerId = (start + i) % size;
+            String key = keyPrefix + workerId;
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, owner, ttl))) {
+                log.info("通过 Redis 租约获取机器ID: {}, Key: {}, 租约时长: {}", workerId, key, ttl);
+                return new RedisLease(workerId, key, owner);
+            }
+        }
+        throw new IllegalStateException("机器ID已全部被占用，Key 前缀: " + keyPrefix);
+    }
+    
+    /**
+     * Redis 租约
+     */
+    private final class RedisLease implements WorkerIdLease {
+        
+        private final long workerId;
+        
+        private final String key;
+        
+        private final String owner;
+        
+        /**
+         * 续期线程
+         */
+        private final ScheduledExecutorService renewer;
+        
+        /**
+         * 上次成功续期的时间
+         */
+        private volatile long lastRenewedAt;
+        
+        /**
+         * 租约是否有效
+         */
+        private volatile boolean valid = true;
+        
+        private RedisLease(long workerId, String key, String owner) {
+            this.workerId = workerId;
+            this.key = key;
+            this.owner = owner;
+            this.lastRenewedAt = System.currentTimeMillis();
+            this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snowflake-worker-lease-" + workerId);
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = ttl.toMillis() / 3;
+            renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+        }
+        
+        /**
+         * 续期租约
+         */
+        private void renew() {
+            if (!valid) {
+                return;
+            }
+            try {
+                Long result = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key),
+                        owner, Long.toString(ttl.toMillis()));
+                if (result != null && result == 1L) {
+                    lastRenewedAt = System.currentTimeMillis();
+                    return;
+                }
+                log.error("机器ID {} 的 Redis 租约已被其他进程持有，停止使用该机器ID", workerId);
+                invalidate();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("机器ID {} 的 Redis 租约续期失败", workerId, e);
+            }
+            if (System.currentTimeMillis() - lastRenewedAt >= ttl.toMillis() * 2 / 3) {
+                log.error("机器ID {} 的 Redis 租约连续续期失败，停止使用该机器ID", workerId);
+                invalidate();
+            }
+        }
+        
+        private void invalidate() {
+            valid = false;
+            renewer.shutdown();
+        }
+        
+        @Override
+        public long getWorkerId() {
+            return workerId;
+        }
+        
+        @Override
+        public boolean isValid() {
+            return valid;
+        }
+        
+        @Override
+        public void close() {
+            boolean wasValid = valid;
+            invalidate();
+            if (!wasValid) {
+                return;
+            }
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), owner);
+            } catch (RuntimeException e) {
+                log.warn("释放机器ID {} 的 Redis 租约失败，等待其自然过期", workerId, e);
+            }
+        }
+    }
+}
@@ -2,32 +2,40 @@ package com.petvet.common.mybatis.id;
 
 import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * 改进的雪花算法ID生成器
  * 
  * 保证生成的ID严格递增，同时具备雪花算法的优势：
  * - 分布式环境下唯一
- * - 性能高
+ * - 性能高（无锁，时间戳和序列号打包在一个 long 中通过 CAS 更新）
  * - 趋势递增（严格递增）
  * 
  * ID结构（64位）：
  * - 1位符号位（固定为0）
  * - 41位时间戳（毫秒级，可用约69年）
- * - 10位机器ID（5位数据中心ID + 5位机器ID）
+ * - 10位机器ID（通过 {@link WorkerIdLeaseStore} 租约分配，不再由IP推导）
  * - 12位序列号（同一毫秒内最多4096个ID）
  * 
+ * 时钟偏差策略：
+ * 逻辑时间戳（state 的高位）只增不减。同一毫秒序列号用尽时借用下一毫秒，
+ * 时钟回拨时继续在逻辑时间上递增；逻辑时间领先系统时钟的幅度以 maxClockSkewMillis 为界，
+ * 序列号用尽导致超限时自旋等待时钟追上，时钟回拨超限时抛出异常。全程不加锁、不休眠
+ * 
+ * 租约失效（如 Redis 短暂不可用导致续期失败，或机器ID被其他进程抢占）后，下一次生成ID时通过租约存储重新申请机器ID，
+ * 申请期间生成ID的线程等待（租约存储不可用时按退避间隔重试，超过 leaseAcquireTimeoutMillis 仍失败才抛出异常）。
+ * 切换机器ID时逻辑时间前进到下一毫秒，之后的ID仍大于切换前的所有ID
+ * 
+ * 只通过 MybatisPlusConfig 注册为 Bean（不使用 @Component），保证一个进程只持有一个机器ID租约
+ * 
  * @author daidasheng
  * @date 2024-12-27
  */
 @Slf4j
-@Component
-public class SnowflakeIdGenerator implements IdentifierGenerator {
+public class SnowflakeIdGenerator implements IdentifierGenerator, AutoCloseable {
     
     /**
      * 起始时间戳（2024-01-01 00:00:00）
@@ -35,11 +43,6 @@ public class SnowflakeIdGenerator implements IdentifierGenerator {
      */
     private static final long START_TIMESTAMP = 1704067200000L;
     
-    /**
-     * 时间戳占用的位数
-     */
-    private static final long TIMESTAMP_BITS = 41L;
-    
     /**
      * 机器ID占用的位数
      */
@@ -53,7 +56,7 @@ public class SnowflakeIdGenerator implements IdentifierGenerator {
     /**
      * 机器ID最大值（1023）
      */
-    private static final long MAX_MACHINE_ID = (1L << MACHINE_ID_BITS) - 1;
+    public static final long MAX_MACHINE_ID = (1L << MACHINE_ID_BITS) - 1;
     
     /**
      * 序列号最大值（4095）
@@ -71,68 +74,83 @@ public class SnowflakeIdGenerator implements IdentifierGenerator {
     private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
     
     /**
-     * 机器ID（通过IP地址和配置生成）
+     * 默认允许的最大时钟偏差（毫秒）
+     */
+    public static final long DEFAULT_MAX_CLOCK_SKEW_MILLIS = 5000L;
+    
+    /**
+     * 默认的重新申请机器ID租约的最长等待时间（毫秒）
      */
-    private final long machineId;
+    public static final long DEFAULT_LEASE_ACQUIRE_TIMEOUT_MILLIS = 30_000L;
     
     /**
-     * 序列号（同一毫秒内的递增序列）
+     * 重新申请租约失败后的最长重试间隔（毫秒）
      */
-    private final AtomicLong sequence = new AtomicLong(0);
+    private static final long MAX_LEASE_RETRY_INTERVAL_MILLIS = 1000L;
     
     /**
-     * 上次生成ID的时间戳
+     * 机器ID租约存储
      */
-    private volatile long lastTimestamp = -1L;
+    private final WorkerIdLeaseStore leaseStore;
+    
+    /**
+     * 重新申请机器ID租约的最长等待时间（毫秒）
+     */
+    private final long leaseAcquireTimeoutMillis;
+    
+    /**
+     * 当前的机器ID租约
+     */
+    private volatile LeasedMachineId current;
+    
+    /**
+     * 允许逻辑时间领先系统时钟的最大毫秒数
+     */
+    private final long maxClockSkewMillis;
+    
+    /**
+     * 系统时钟（毫秒）
+     */
+    private final LongSupplier clock;
+    
+    /**
+     * 生成器状态：高位为相对起始时间戳的逻辑时间戳，低 SEQUENCE_BITS 位为序列号
+     */
+    private final AtomicLong state = new AtomicLong(0);
     
     /**
      * 构造函数
      * 
-     * 根据本机IP地址生成机器ID，确保分布式环境下唯一
-     * 
+     * @param leaseStore 机器ID租约存储
+     * @param maxClockSkewMillis 允许逻辑时间领先系统时钟的最大毫秒数（不小于1）
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-16
      */
-    public SnowflakeIdGenerator() {
-        this.machineId = generateMachineId();
-        log.info("雪花算法ID生成器初始化完成，机器ID: {}", machineId);
+    public SnowflakeIdGenerator(WorkerIdLeaseStore leaseStore, long maxClockSkewMillis) {
+        this(leaseStore, maxClockSkewMillis, System::currentTimeMillis, DEFAULT_LEASE_ACQUIRE_TIMEOUT_MILLIS);
     }
     
     /**
-     * 生成机器ID
-     * 
-     * 根据本机IP地址的最后一段生成机器ID，确保分布式环境下唯一
-     * 如果无法获取IP，则使用随机数
+     * 构造函数（可指定时钟，用于测试时钟回拨）
      * 
-     * @return 机器ID（0-1023）
+     * @param leaseStore 机器ID租约存储
+     * @param maxClockSkewMillis 允许逻辑时间领先系统时钟的最大毫秒数（不小于1）
+     * @param clock 系统时钟（毫秒）
+     * @param leaseAcquireTimeoutMillis 租约失效后重新申请的最长等待时间（毫秒）
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-17
      */
-    private long generateMachineId() {
-        try {
-            InetAddress inetAddress = InetAddress.getLocalHost();
-            byte[] address = inetAddress.getAddress();
-            
-            // 使用IP地址的最后一段生成机器ID
-            // IPv4: 使用最后一个字节
-            // IPv6: 使用最后两个字节的异或结果
-            long machineId;
-            if (address.length == 4) {
-                // IPv4
-                machineId = (address[3] & 0xFF) | ((address[2] & 0xFF) << 8);
-            } else {
-                // IPv6或其他，使用哈希
-                machineId = Math.abs(inetAddress.getHostAddress().hashCode());
-            }
-            
-            // 确保机器ID在有效范围内
-            return machineId & MAX_MACHINE_ID;
-        } catch (UnknownHostException e) {
-            log.warn("无法获取本机IP地址，使用随机数作为机器ID", e);
-            // 如果无法获取IP，使用进程ID和时间戳的组合
-            long pid = ProcessHandle.current().pid();
-            return (pid ^ System.currentTimeMillis()) & MAX_MACHINE_ID;
+    SnowflakeIdGenerator(WorkerIdLeaseStore leaseStore, long maxClockSkewMillis, LongSupplier clock,
+                         long leaseAcquireTimeoutMillis) {
+        if (maxClockSkewMillis < 1) {
+            throw new IllegalArgumentException("最大时钟偏差必须大于0: " + maxClockSkewMillis);
         }
+        this.leaseStore = leaseStore;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        this.clock = clock;
+        this.leaseAcquireTimeoutMillis = leaseAcquireTimeoutMillis;
+        this.current = acquireLease();
+        log.info("雪花算法ID生成器初始化完成，机器ID: {}, 最大时钟偏差: {} 毫秒", current.machineId, maxClockSkewMillis);
     }
     
     /**
@@ -144,76 +162,111 @@ public class SnowflakeIdGenerator implements IdentifierGenerator {
      * @author daidasheng
      * @date 2024-12-27
      */
-    public synchronized long nextId() {
-        long currentTimestamp = System.currentTimeMillis();
-        
-        // 如果当前时间小于上次时间，说明时钟回拨
-        if (currentTimestamp < lastTimestamp) {
-            long offset = lastTimestamp - currentTimestamp;
-            log.warn("检测到时钟回拨，回拨时间: {} 毫秒", offset);
-            
-            // 如果回拨时间小于5秒，等待时钟追上
-            if (offset < 5000) {
-                try {
-                    Thread.sleep(offset);
-                    currentTimestamp = System.currentTimeMillis();
-                    // 再次检查
-                    if (currentTimestamp < lastTimestamp) {
-                        throw new RuntimeException("时钟回拨严重，无法生成ID");
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("等待时钟恢复时被中断", e);
+    public long nextId() {
+        while (true) {
+            LeasedMachineId leased = current;
+            if (!leased.lease.isValid()) {
+                renewLease(leased);
+                continue;
+            }
+            long now = clock.getAsLong() - START_TIMESTAMP;
+            long prev = state.get();
+            // 新的毫秒从序列号0开始；否则在上一个状态上加1，序列号用尽时自然进位到下一毫秒
+            long next = Math.max(now << SEQUENCE_BITS, prev + 1);
+            long lead = (next >>> SEQUENCE_BITS) - now;
+            if (lead > maxClockSkewMillis) {
+                long lastTimestamp = prev >>> SEQUENCE_BITS;
+                if (lastTimestamp - now > maxClockSkewMillis) {
+                    throw new IllegalStateException("时钟回拨超过 " + maxClockSkewMillis + " 毫秒，无法生成ID，回拨时间: "
+                            + (lastTimestamp - now) + " 毫秒");
+                }
+                // 序列号用尽且已借满时间，等待时钟追上
+                Thread.onSpinWait();
+                continue;
+            }
+            if (state.compareAndSet(prev, next)) {
+                if (!leased.lease.isValid() || current != leased) {
+                    // 计算期间租约失效或已切换机器ID，丢弃这个序号
+                    continue;
                 }
-            } else {
-                throw new RuntimeException("时钟回拨超过5秒，无法生成ID");
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                        | leased.shiftedMachineId
+                        | (next & MAX_SEQUENCE);
             }
         }
-        
-        // 如果是同一毫秒内
-        if (currentTimestamp == lastTimestamp) {
-            // 序列号递增
-            long seq = sequence.incrementAndGet();
-            
-            // 如果序列号超过最大值，等待下一毫秒
-            if (seq > MAX_SEQUENCE) {
-                currentTimestamp = waitNextMillis(lastTimestamp);
-                seq = 0;
-                sequence.set(0);
+    }
+    
+    /**
+     * 租约失效后重新申请机器ID（只有一个线程申请，其余线程等待其完成）
+     * 
+     * @param expired 发现失效的租约
+     */
+    private synchronized void renewLease(LeasedMachineId expired) {
+        if (current != expired) {
+            return;
+        }
+        log.warn("机器ID {} 的租约已失效，重新申请机器ID", expired.machineId);
+        expired.lease.close();
+        long deadline = System.currentTimeMillis() + leaseAcquireTimeoutMillis;
+        long retryInterval = 50L;
+        while (true) {
+            try {
+                LeasedMachineId renewed = acquireLease();
+                // 逻辑时间前进到下一毫秒，新机器ID的ID大于旧机器ID已生成的所有ID
+                state.updateAndGet(value -> ((value >>> SEQUENCE_BITS) + 1) << SEQUENCE_BITS);
+                current = renewed;
+                log.info("重新申请机器ID成功，机器ID: {} -> {}", expired.machineId, renewed.machineId);
+                return;
+            } catch (RuntimeException e) {
+                if (System.currentTimeMillis() + retryInterval > deadline) {
+                    throw new IllegalStateException("机器ID租约已失效，且在 " + leaseAcquireTimeoutMillis
+                            + " 毫秒内未能重新申请机器ID，无法生成ID", e);
+                }
+                log.warn("重新申请机器ID失败，{} 毫秒后重试", retryInterval, e);
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待重新申请机器ID时被中断", e);
             }
-            
-            lastTimestamp = currentTimestamp;
-            
-            // 组装ID
-            return ((currentTimestamp - START_TIMESTAMP) << TIMESTAMP_SHIFT)
-                    | (machineId << MACHINE_ID_SHIFT)
-                    | seq;
-        } else {
-            // 新的毫秒，序列号重置为0
-            sequence.set(0);
-            lastTimestamp = currentTimestamp;
-            
-            // 组装ID
-            return ((currentTimestamp - START_TIMESTAMP) << TIMESTAMP_SHIFT)
-                    | (machineId << MACHINE_ID_SHIFT)
-                    | 0;
+            retryInterval = Math.min(retryInterval * 2, MAX_LEASE_RETRY_INTERVAL_MILLIS);
         }
     }
     
     /**
-     * 等待下一毫秒
+     * 申请机器ID租约并校验机器ID范围
+     */
+    private LeasedMachineId acquireLease() {
+        WorkerIdLease lease = leaseStore.acquire(MAX_MACHINE_ID);
+        long machineId = lease.getWorkerId();
+        if (machineId < 0 || machineId > MAX_MACHINE_ID) {
+            lease.close();
+            throw new IllegalStateException("机器ID超出范围: " + machineId);
+        }
+        return new LeasedMachineId(lease, machineId);
+    }
+    
+    /**
+     * 获取机器ID
      * 
-     * @param lastTimestamp 上次时间戳
-     * @return 新的时间戳
+     * @return 机器ID
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-16
      */
-    private long waitNextMillis(long lastTimestamp) {
-        long currentTimestamp = System.currentTimeMillis();
-        while (currentTimestamp <= lastTimestamp) {
-            currentTimestamp = System.currentTimeMillis();
-        }
-        return currentTimestamp;
+    public long getMachineId() {
+        return current.machineId;
+    }
+    
+    /**
+     * 释放机器ID租约
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Override
+    public synchronized void close() {
+        current.lease.close();
     }
     
     /**
@@ -228,5 +281,25 @@ public class SnowflakeIdGenerator implements IdentifierGenerator {
     public Number nextId(Object entity) {
         return nextId();
     }
+    
+    /**
+     * 机器ID租约及对应的机器ID
+     */
+    private static final class LeasedMachineId {
+        
+        private final WorkerIdLease lease;
+        
+        private final long machineId;
+        
+        /**
+         * 机器ID（已左移到ID中的位置）
+         */
+        private final long shiftedMachineId;
+        
+        private LeasedMachineId(WorkerIdLease lease, long machineId) {
+            this.lease = lease;
+            this.machineId = machineId;
+            this.shiftedMachineId = machineId << MACHINE_ID_SHIFT;
+        }
+    }
 }
-
@@ -0,0 +1,42 @@
+package com.petvet.common.mybatis.id;
+
+/**
+ * 雪花算法机器ID租约
+ * 
+ * 持有租约期间机器ID归当前进程独占；租约失效（如 Redis 续期失败）后，
+ * 其他进程可能申请到同一个机器ID，此时不允许再使用该机器ID生成ID，需要重新申请新的租约
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public interface WorkerIdLease extends AutoCloseable {
+    
+    /**
+     * 获取租约对应的机器ID
+     * 
+     * @return 机器ID
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    long getWorkerId();
+    
+    /**
+     * 租约是否仍然有效
+     * 
+     * 每次生成ID都会调用，实现必须是无锁的廉价读取
+     * 
+     * @return 是否有效
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    boolean isValid();
+    
+    /**
+     * 释放租约
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Override
+    void close();
+}
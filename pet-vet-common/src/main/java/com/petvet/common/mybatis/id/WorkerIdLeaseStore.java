@@ -0,0 +1,25 @@
+package com.petvet.common.mybatis.id;
+
+/**
+ * 雪花算法机器ID租约存储
+ * 
+ * 负责在多个进程之间分配互不冲突的机器ID：
+ * - {@link FileLockWorkerIdLeaseStore}：文件锁，共享同一目录的进程互斥（默认，本机临时目录下只保证同一主机互斥）
+ * - {@link RedisWorkerIdLeaseStore}：Redis 租约，跨主机、跨子网的容器互斥
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public interface WorkerIdLeaseStore {
+    
+    /**
+     * 申请一个机器ID租约
+     * 
+     * @param maxWorkerId 机器ID最大值（包含）
+     * @return 租约
+     * @throws IllegalStateException 所有机器ID都已被占用时抛出
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    WorkerIdLease acquire(long maxWorkerId);
+}
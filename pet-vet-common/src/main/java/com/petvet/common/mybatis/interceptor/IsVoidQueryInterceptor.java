@@ -1,11 +1,15 @@
 package com.petvet.common.mybatis.interceptor;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
 import net.sf.jsqlparser.expression.BinaryExpression;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
@@ -19,6 +23,9 @@ import org.apache.ibatis.plugin.*;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
+import java.lang.reflect.Field;
+import java.util.Properties;
+
 /**
  * is_void 查询拦截器
  * 
@@ -28,6 +35,10 @@ import org.apache.ibatis.session.RowBounds;
  * 注意：此拦截器只处理自定义 SQL（@Select、@Update、@Delete 注解或 XML 中的 SQL），
  * MyBatis Plus 的 BaseMapper 方法已经通过 @TableLogic 注解自动处理逻辑删除
  * 
+ * SQL 解析比大多数查询本身更耗时，因此改写结果按 (MappedStatement ID, 原始 SQL) 缓存：
+ * 需要改写的缓存改写后的 SQL，不需要改写（或解析失败）的记为"无需改写"，
+ * 同一条 SQL 只在首次执行时解析一次。缓存有容量上限，命中率可通过 {@link #getRewriteCacheStats()} 查看
+ * 
  * @author daidasheng
  * @date 2024-12-27
  */
@@ -48,6 +59,52 @@ public class IsVoidQueryInterceptor implements Interceptor {
      */
     private static final long NOT_DELETED_VALUE = 0L;
     
+    /**
+     * 默认改写缓存最大条目数
+     */
+    public static final long DEFAULT_REWRITE_CACHE_MAX_SIZE = 2048L;
+    
+    /**
+     * 改写缓存容量配置项（MyBatis 插件属性）
+     */
+    private static final String REWRITE_CACHE_MAX_SIZE_PROPERTY = "rewriteCacheMaxSize";
+    
+    /**
+     * "无需改写"标记（按引用比较）
+     */
+    private static final String NO_REWRITE = new String("");
+    
+    /**
+     * BoundSql.sql 字段（只解析一次）
+     */
+    private static final Field BOUND_SQL_FIELD = resolveBoundSqlField();
+    
+    /**
+     * SQL 改写缓存：Key 为 (MappedStatement ID, 原始 SQL)，值为改写后的 SQL 或 NO_REWRITE
+     */
+    private volatile Cache<RewriteKey, String> rewriteCache;
+    
+    /**
+     * 构造函数（默认缓存容量）
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public IsVoidQueryInterceptor() {
+        this(DEFAULT_REWRITE_CACHE_MAX_SIZE);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param rewriteCacheMaxSize 改写缓存最大条目数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public IsVoidQueryInterceptor(long rewriteCacheMaxSize) {
+        this.rewriteCache = buildRewriteCache(rewriteCacheMaxSize);
+    }
+    
     /**
      * 拦截方法
      * 
@@ -66,58 +123,65 @@ public class IsVoidQueryInterceptor implements Interceptor {
         BoundSql boundSql = ms.getBoundSql(parameter);
         String sql = boundSql.getSql();
         
-        if (sql == null || sql.trim().isEmpty()) {
+        if (sql == null || sql.isBlank()) {
             return invocation.proceed();
         }
         
-        // 检查是否是查询或更新操作
-        String sqlCommandType = ms.getSqlCommandType().name();
+        // 同一条 SQL 只解析一次，之后直接复用改写结果
+        String rewritten = rewriteCache.get(new RewriteKey(ms.getId(), sql), key -> rewrite(key.sql));
+        if (rewritten != NO_REWRITE) {
+            replaceSql(boundSql, rewritten);
+        }
         
+        return invocation.proceed();
+    }
+    
+    /**
+     * 解析 SQL 并添加 is_void = 0 条件（仅在改写缓存未命中时调用）
+     * 
+     * @param sql 原始 SQL
+     * @return 改写后的 SQL；不需要改写或解析失败时返回 NO_REWRITE
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private String rewrite(String sql) {
         try {
             // 解析 SQL
-            Statement statement = net.sf.jsqlparser.parser.CCJSqlParserUtil.parse(sql);
-            
-            boolean modified = false;
+            Statement statement = CCJSqlParserUtil.parse(sql);
             
             // 处理 SELECT 语句
             if (statement instanceof Select) {
                 Select select = (Select) statement;
                 PlainSelect plainSelect = select.getPlainSelect();
-                if (plainSelect != null) {
-                    modified = addIsVoidCondition(plainSelect);
-                    if (modified) {
-                        String newSql = select.toString();
-                        replaceSql(boundSql, newSql);
-                        log.debug("SELECT SQL 已添加 is_void = 0 条件: {}", newSql);
-                    }
+                if (plainSelect != null && addIsVoidCondition(plainSelect)) {
+                    String newSql = select.toString();
+                    log.debug("SELECT SQL 已添加 is_void = 0 条件: {}", newSql);
+                    return newSql;
                 }
             }
             // 处理 UPDATE 语句
             else if (statement instanceof Update) {
                 Update update = (Update) statement;
-                modified = addIsVoidConditionToUpdate(update);
-                if (modified) {
+                if (addIsVoidConditionToUpdate(update)) {
                     String newSql = update.toString();
-                    replaceSql(boundSql, newSql);
                     log.debug("UPDATE SQL 已添加 is_void = 0 条件: {}", newSql);
+                    return newSql;
                 }
             }
             // 处理 DELETE 语句
             else if (statement instanceof Delete) {
                 Delete delete = (Delete) statement;
-                modified = addIsVoidConditionToDelete(delete);
-                if (modified) {
+                if (addIsVoidConditionToDelete(delete)) {
                     String newSql = delete.toString();
-                    replaceSql(boundSql, newSql);
                     log.debug("DELETE SQL 已添加 is_void = 0 条件: {}", newSql);
+                    return newSql;
                 }
             }
         } catch (Exception e) {
-            // 如果 SQL 解析失败，记录日志但不影响执行
+            // 如果 SQL 解析失败，记录日志但不影响执行（同一条 SQL 只记录一次）
             log.warn("解析 SQL 失败，跳过 is_void 条件添加: {}", sql, e);
         }
-        
-        return invocation.proceed();
+        return NO_REWRITE;
     }
     
     /**
@@ -254,8 +318,33 @@ public class IsVoidQueryInterceptor implements Interceptor {
      * @date 2024-12-27
      */
     @Override
-    public void setProperties(java.util.Properties properties) {
-        // 可以在这里设置配置属性
+    public void setProperties(Properties properties) {
+        String maxSize = properties.getProperty(REWRITE_CACHE_MAX_SIZE_PROPERTY);
+        if (maxSize != null && !maxSize.trim().isEmpty()) {
+            this.rewriteCache = buildRewriteCache(Long.parseLong(maxSize.trim()));
+        }
+    }
+    
+    /**
+     * 获取改写缓存统计（命中/未命中/淘汰次数）
+     * 
+     * @return 缓存统计
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public CacheStats getRewriteCacheStats() {
+        return rewriteCache.stats();
+    }
+    
+    /**
+     * 获取改写缓存当前条目数
+     * 
+     * @return 条目数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public long getRewriteCacheSize() {
+        return rewriteCache.estimatedSize();
     }
     
     /**
@@ -301,14 +390,81 @@ public class IsVoidQueryInterceptor implements Interceptor {
      * @date 2024-12-27
      */
     private void replaceSql(BoundSql boundSql, String newSql) {
+        if (BOUND_SQL_FIELD == null) {
+            return;
+        }
         try {
-            // 使用反射替换 SQL
-            java.lang.reflect.Field field = BoundSql.class.getDeclaredField("sql");
+            BOUND_SQL_FIELD.set(boundSql, newSql);
+        } catch (IllegalAccessException e) {
+            log.error("替换 SQL 失败", e);
+        }
+    }
+    
+    /**
+     * 创建改写缓存
+     * 
+     * @param maxSize 最大条目数
+     * @return 缓存
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static Cache<RewriteKey, String> buildRewriteCache(long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * 解析 BoundSql.sql 字段
+     * 
+     * @return 字段；无法访问时返回null（此时拦截器不改写 SQL）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static Field resolveBoundSqlField() {
+        try {
+            Field field = BoundSql.class.getDeclaredField("sql");
             field.setAccessible(true);
-            field.set(boundSql, newSql);
+            return field;
         } catch (Exception e) {
-            log.error("替换 SQL 失败", e);
+            log.error("无法访问 BoundSql.sql 字段，is_void 条件将不会被添加", e);
+            return null;
+        }
+    }
+    
+    /**
+     * 改写缓存 Key：MappedStatement ID + 原始 SQL
+     */
+    private static final class RewriteKey {
+        
+        private final String statementId;
+        
+        private final String sql;
+        
+        private final int hash;
+        
+        private RewriteKey(String statementId, String sql) {
+            this.statementId = statementId;
+            this.sql = sql;
+            this.hash = 31 * statementId.hashCode() + sql.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RewriteKey)) {
+                return false;
+            }
+            RewriteKey other = (RewriteKey) o;
+            return hash == other.hash && statementId.equals(other.statementId) && sql.equals(other.sql);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
         }
     }
 }
-
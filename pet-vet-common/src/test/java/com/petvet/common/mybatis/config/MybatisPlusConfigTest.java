@@ -0,0 +1,90 @@
+package com.petvet.common.mybatis.config;
+
+import com.petvet.common.mybatis.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * MyBatis Plus 配置测试：雪花算法机器ID租约存储的选择
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("MyBatis Plus 配置测试")
+class MybatisPlusConfigTest {
+    
+    @TempDir
+    Path directory;
+    
+    private MybatisPlusConfig config;
+    
+    private ObjectProvider<StringRedisTemplate> noRedis;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config = new MybatisPlusConfig();
+        ReflectionTestUtils.setField(config, "workerLeaseType", "");
+        ReflectionTestUtils.setField(config, "workerLeaseDirectory", "");
+        ReflectionTestUtils.setField(config, "workerLeaseRedisKeyPrefix", "test:snowflake:worker:");
+        ReflectionTestUtils.setField(config, "workerLeaseRedisTtlMillis", 30000L);
+        ReflectionTestUtils.setField(config, "maxClockSkewMillis", SnowflakeIdGenerator.DEFAULT_MAX_CLOCK_SKEW_MILLIS);
+        noRedis = mock(ObjectProvider.class);
+    }
+    
+    @Test
+    @DisplayName("测试未配置租约存储时使用本机临时目录下的文件锁")
+    void testDefaultLocalFileLock() {
+        String tmpdir = System.getProperty("java.io.tmpdir");
+        System.setProperty("java.io.tmpdir", directory.toString());
+        try {
+            for (String type : new String[]{"", "file"}) {
+                ReflectionTestUtils.setField(config, "workerLeaseType", type);
+                SnowflakeIdGenerator generator = config.identifierGenerator(noRedis);
+                try {
+                    assertTrue(generator.nextId() > 0);
+                    assertTrue(directory.resolve(MybatisPlusConfig.DEFAULT_WORKER_LEASE_DIRECTORY_NAME)
+                            .resolve("worker-" + generator.getMachineId() + ".lock").toFile().exists());
+                } finally {
+                    generator.close();
+                }
+            }
+        } finally {
+            System.setProperty("java.io.tmpdir", tmpdir);
+        }
+    }
+    
+    @Test
+    @DisplayName("测试租约类型为 redis 但没有 Redis 模板，或类型未知时启动失败")
+    void testInvalidLeaseType() {
+        ReflectionTestUtils.setField(config, "workerLeaseType", "redis");
+        assertThrows(IllegalStateException.class, () -> config.identifierGenerator(noRedis));
+        
+        ReflectionTestUtils.setField(config, "workerLeaseType", "zookeeper");
+        assertThrows(IllegalStateException.class, () -> config.identifierGenerator(noRedis));
+    }
+    
+    @Test
+    @DisplayName("测试配置共享目录时使用文件锁租约")
+    void testSharedDirectory() {
+        ReflectionTestUtils.setField(config, "workerLeaseDirectory", directory.toString());
+        
+        SnowflakeIdGenerator generator = config.identifierGenerator(noRedis);
+        try {
+            assertTrue(generator.nextId() > 0);
+            assertTrue(directory.resolve("worker-" + generator.getMachineId() + ".lock").toFile().exists());
+        } finally {
+            generator.close();
+        }
+    }
+}
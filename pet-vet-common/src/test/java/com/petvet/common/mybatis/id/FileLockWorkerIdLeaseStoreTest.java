@@ -0,0 +1,59 @@
+package com.petvet.common.mybatis.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件锁机器ID租约存储测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("文件锁机器ID租约存储测试")
+class FileLockWorkerIdLeaseStoreTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("测试共享目录内的租约互斥，释放后可被重新申请")
+    void testExclusivity() {
+        // 两个存储实例指向同一目录，模拟共享同一目录的多个实例
+        FileLockWorkerIdLeaseStore first = new FileLockWorkerIdLeaseStore(directory.toString());
+        FileLockWorkerIdLeaseStore second = new FileLockWorkerIdLeaseStore(directory.toString());
+        
+        WorkerIdLease a = first.acquire(3);
+        WorkerIdLease b = second.acquire(3);
+        WorkerIdLease c = first.acquire(3);
+        WorkerIdLease d = second.acquire(3);
+        Set<Long> workerIds = new HashSet<>(Set.of(a.getWorkerId(), b.getWorkerId(), c.getWorkerId(), d.getWorkerId()));
+        assertEquals(Set.of(0L, 1L, 2L, 3L), workerIds);
+        assertTrue(a.isValid());
+        
+        // 全部被占用
+        assertThrows(IllegalStateException.class, () -> second.acquire(3));
+        
+        b.close();
+        WorkerIdLease reacquired = first.acquire(3);
+        assertEquals(b.getWorkerId(), reacquired.getWorkerId());
+        
+        a.close();
+        c.close();
+        d.close();
+        reacquired.close();
+    }
+    
+    @Test
+    @DisplayName("测试未指定目录时拒绝创建")
+    void testDirectoryRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new FileLockWorkerIdLeaseStore(null));
+        assertThrows(IllegalArgumentException.class, () -> new FileLockWorkerIdLeaseStore(" "));
+    }
+}
@@ -0,0 +1,170 @@
+package com.petvet.common.mybatis.id;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis 机器ID租约存储测试（未安装 Docker 时跳过）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Redis 机器ID租约存储测试")
+class RedisWorkerIdLeaseStoreTest {
+    
+    private static final String KEY_PREFIX = "test:snowflake:worker:";
+    
+    /**
+     * 最短租约时长，续期间隔为 1 秒
+     */
+    private static final Duration TTL = Duration.ofSeconds(3);
+    
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+    
+    private static LettuceConnectionFactory connectionFactory;
+    
+    private static StringRedisTemplate redisTemplate;
+    
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+    
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        Set<String> keys = redisTemplate.keys(KEY_PREFIX + "*");
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+    
+    private RedisWorkerIdLeaseStore store() {
+        return new RedisWorkerIdLeaseStore(redisTemplate, KEY_PREFIX, TTL);
+    }
+    
+    @Test
+    @DisplayName("测试不同实例的租约互斥，释放后可被重新申请")
+    void testExclusivity() {
+        WorkerIdLease first = store().acquire(1);
+        WorkerIdLease second = store().acquire(1);
+        assertEquals(Set.of(0L, 1L), Set.of(first.getWorkerId(), second.getWorkerId()));
+        assertThrows(IllegalStateException.class, () -> store().acquire(1));
+        
+        first.close();
+        assertFalse(first.isValid());
+        assertNull(redisTemplate.opsForValue().get(KEY_PREFIX + first.getWorkerId()));
+        
+        WorkerIdLease reacquired = store().acquire(1);
+        assertEquals(first.getWorkerId(), reacquired.getWorkerId());
+        second.close();
+        reacquired.close();
+    }
+    
+    @Test
+    @DisplayName("测试后台续期使租约在超过 TTL 后仍然有效")
+    void testRenewal() throws InterruptedException {
+        WorkerIdLease lease = store().acquire(0);
+        String key = KEY_PREFIX + lease.getWorkerId();
+        String owner = redisTemplate.opsForValue().get(key);
+        assertNotNull(owner);
+        
+        // 等待超过一个 TTL，期间续期线程每秒续期一次
+        Thread.sleep(TTL.toMillis() + 1500);
+        
+        assertTrue(lease.isValid());
+        assertEquals(owner, redisTemplate.opsForValue().get(key));
+        Long ttlMillis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        assertNotNull(ttlMillis);
+        assertTrue(ttlMillis > TTL.toMillis() / 3, "剩余 TTL: " + ttlMillis);
+        assertThrows(IllegalStateException.class, () -> store().acquire(0));
+        lease.close();
+    }
+    
+    @Test
+    @DisplayName("测试租约被他人持有后失效，生成器重新申请机器ID后继续生成ID")
+    void testResumesWhenTakenOver() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(store(), 5000L);
+        long workerId = generator.getMachineId();
+        long before = generator.nextId();
+        
+        // 模拟 Key 过期后被其他进程抢到
+        redisTemplate.opsForValue().set(KEY_PREFIX + workerId, "other-owner", TTL);
+        awaitMachineIdChange(generator, workerId);
+        
+        long after = generator.nextId();
+        assertTrue(after > before);
+        assertNotEquals(workerId, generator.getMachineId());
+        assertEquals(generator.getMachineId(), (after >>> 12) & 1023L);
+        // 不会删除他人持有的 Key
+        assertEquals("other-owner", redisTemplate.opsForValue().get(KEY_PREFIX + workerId));
+        generator.close();
+        assertNull(redisTemplate.opsForValue().get(KEY_PREFIX + generator.getMachineId()));
+    }
+    
+    @Test
+    @DisplayName("测试租约 Key 丢失（如 Redis 重启）后生成器重新申请机器ID并继续生成ID")
+    void testResumesWhenKeyLost() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(store(), 5000L);
+        long workerId = generator.getMachineId();
+        long before = generator.nextId();
+        
+        String owner = redisTemplate.opsForValue().get(KEY_PREFIX + workerId);
+        assertNotNull(owner);
+        
+        redisTemplate.delete(KEY_PREFIX + workerId);
+        // 续期发现 Key 丢失后重新申请（可能申请到同一个机器ID，持有者标识不同）
+        long deadline = System.currentTimeMillis() + TTL.toMillis() * 2;
+        String renewedOwner = null;
+        while ((renewedOwner == null || renewedOwner.equals(owner)) && System.currentTimeMillis() < deadline) {
+            assertTrue(generator.nextId() > 0);
+            Thread.sleep(50);
+            renewedOwner = redisTemplate.opsForValue().get(KEY_PREFIX + generator.getMachineId());
+        }
+        assertNotNull(renewedOwner);
+        assertNotEquals(owner, renewedOwner);
+        
+        long after = generator.nextId();
+        assertTrue(after > before);
+        generator.close();
+    }
+    
+    /**
+     * 持续生成ID，直到续期线程发现租约失效、生成器切换到新的机器ID
+     */
+    private static void awaitMachineIdChange(SnowflakeIdGenerator generator, long workerId)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TTL.toMillis() * 2;
+        while (generator.getMachineId() == workerId && System.currentTimeMillis() < deadline) {
+            assertTrue(generator.nextId() > 0);
+            Thread.sleep(50);
+        }
+        assertNotEquals(workerId, generator.getMachineId());
+    }
+}
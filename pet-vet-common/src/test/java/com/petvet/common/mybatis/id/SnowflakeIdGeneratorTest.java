@@ -0,0 +1,262 @@
+package com.petvet.common.mybatis.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 雪花算法ID生成器测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("雪花算法ID生成器测试")
+class SnowflakeIdGeneratorTest {
+    
+    private static final long WORKER_ID = 7L;
+    
+    /**
+     * 测试用时钟起点（2025-10-09）
+     */
+    private static final long CLOCK_START = 1_760_000_000_000L;
+    
+    private static long timestampOf(long id) {
+        return id >>> 22;
+    }
+    
+    private static long workerIdOf(long id) {
+        return (id >>> 12) & 1023L;
+    }
+    
+    private static long sequenceOf(long id) {
+        return id & 4095L;
+    }
+    
+    @Test
+    @DisplayName("测试并发生成的ID全局唯一且每个线程内严格递增")
+    void testConcurrentUniqueAndMonotonic() throws Exception {
+        int threads = 8;
+        int perThread = 200_000;
+        FixedLease lease = new FixedLease(WORKER_ID);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(max -> lease, SnowflakeIdGenerator.DEFAULT_MAX_CLOCK_SKEW_MILLIS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            
+            long[] all = new long[threads * perThread];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(60, TimeUnit.SECONDS);
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "线程内ID未严格递增: " + ids[i - 1] + " -> " + ids[i]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertNotEquals(all[i - 1], all[i], "ID重复: " + all[i]);
+            }
+            assertTrue(Arrays.stream(all).allMatch(id -> id > 0 && workerIdOf(id) == WORKER_ID));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    @DisplayName("测试时钟回拨在允许范围内时继续在逻辑时间上递增，超出范围时抛出异常")
+    void testClockRollback() {
+        AtomicLong clock = new AtomicLong(CLOCK_START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(max -> new FixedLease(WORKER_ID), 5000L, clock::get,
+                SnowflakeIdGenerator.DEFAULT_LEASE_ACQUIRE_TIMEOUT_MILLIS);
+        
+        long first = generator.nextId();
+        assertEquals(0L, sequenceOf(first));
+        
+        // 回拨 1 秒（在 5 秒上限内）：逻辑时间不后退，序列号继续递增
+        clock.addAndGet(-1000L);
+        long second = generator.nextId();
+        assertTrue(second > first);
+        assertEquals(timestampOf(first), timestampOf(second));
+        assertEquals(1L, sequenceOf(second));
+        
+        // 回拨超过上限：拒绝生成
+        clock.set(CLOCK_START - 10_000L);
+        IllegalStateException error = assertThrows(IllegalStateException.class, generator::nextId);
+        assertTrue(error.getMessage().contains("时钟回拨"), error.getMessage());
+        
+        // 时钟恢复后继续递增
+        clock.set(CLOCK_START + 1);
+        long third = generator.nextId();
+        assertTrue(third > second);
+        assertEquals(timestampOf(first) + 1, timestampOf(third));
+        assertEquals(0L, sequenceOf(third));
+    }
+    
+    @Test
+    @DisplayName("测试序列号用尽时借用下一毫秒，借满后等待时钟追上")
+    void testSequenceExhaustion() throws Exception {
+        AtomicLong clock = new AtomicLong(CLOCK_START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(max -> new FixedLease(WORKER_ID), 1L, clock::get,
+                SnowflakeIdGenerator.DEFAULT_LEASE_ACQUIRE_TIMEOUT_MILLIS);
+        
+        long previous = 0L;
+        for (int i = 0; i < 4096 * 2; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        long baseTimestamp = timestampOf(previous) - 1;
+        assertEquals(4095L, sequenceOf(previous));
+        
+        // 逻辑时间已领先 1 毫秒且序列号用尽：自旋等待，直到时钟前进
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(generator::nextId);
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        clock.addAndGet(1L);
+        long next = waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(next > previous);
+        assertEquals(baseTimestamp + 2, timestampOf(next));
+        assertEquals(0L, sequenceOf(next));
+    }
+    
+    @Test
+    @DisplayName("测试租约失效后重新申请机器ID，继续生成递增的ID，关闭生成器时释放租约")
+    void testLeaseInvalidation() {
+        FixedLease first = new FixedLease(WORKER_ID);
+        FixedLease second = new FixedLease(WORKER_ID + 1);
+        Deque<FixedLease> leases = new ArrayDeque<>(List.of(first, second));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(max -> leases.poll(), 5000L);
+        assertEquals(WORKER_ID, generator.getMachineId());
+        long before = generator.nextId();
+        
+        first.valid = false;
+        long after = generator.nextId();
+        
+        assertTrue(first.closed);
+        assertEquals(WORKER_ID + 1, generator.getMachineId());
+        assertEquals(WORKER_ID + 1, workerIdOf(after));
+        assertTrue(after > before);
+        assertTrue(timestampOf(after) > timestampOf(before));
+        
+        generator.close();
+        assertTrue(second.closed);
+    }
+    
+    @Test
+    @DisplayName("测试租约存储暂时不可用时等待重试，恢复后继续生成ID")
+    void testLeaseStoreOutage() {
+        FixedLease first = new FixedLease(WORKER_ID);
+        AtomicInteger attempts = new AtomicInteger();
+        WorkerIdLeaseStore store = max -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                return first;
+            }
+            if (attempt <= 4) {
+                throw new IllegalStateException("租约存储不可用");
+            }
+            return new FixedLease(WORKER_ID + 2);
+        };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(store, 5000L, System::currentTimeMillis, 10_000L);
+        long before = generator.nextId();
+        
+        first.valid = false;
+        long after = generator.nextId();
+        
+        assertEquals(5, attempts.get());
+        assertEquals(WORKER_ID + 2, workerIdOf(after));
+        assertTrue(after > before);
+    }
+    
+    @Test
+    @DisplayName("测试租约存储持续不可用超过等待时间后抛出异常，恢复后可以继续生成ID")
+    void testLeaseStoreOutageTimeout() {
+        FixedLease first = new FixedLease(WORKER_ID);
+        // 每个租约只能申请一次，没有可用租约时视为租约存储不可用
+        AtomicReference<FixedLease> available = new AtomicReference<>(first);
+        WorkerIdLeaseStore store = max -> {
+            FixedLease lease = available.getAndSet(null);
+            if (lease == null) {
+                throw new IllegalStateException("租约存储不可用");
+            }
+            return lease;
+        };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(store, 5000L, System::currentTimeMillis, 200L);
+        generator.nextId();
+        
+        first.valid = false;
+        IllegalStateException error = assertThrows(IllegalStateException.class, generator::nextId);
+        assertTrue(error.getMessage().contains("未能重新申请机器ID"), error.getMessage());
+        
+        available.set(new FixedLease(WORKER_ID + 3));
+        assertEquals(WORKER_ID + 3, workerIdOf(generator.nextId()));
+    }
+    
+    @Test
+    @DisplayName("测试机器ID超出范围时拒绝并释放租约")
+    void testWorkerIdOutOfRange() {
+        FixedLease lease = new FixedLease(SnowflakeIdGenerator.MAX_MACHINE_ID + 1);
+        assertThrows(IllegalStateException.class, () -> new SnowflakeIdGenerator(max -> lease, 5000L));
+        assertTrue(lease.closed);
+    }
+    
+    /**
+     * 固定机器ID的租约
+     */
+    private static final class FixedLease implements WorkerIdLease {
+        
+        private final long workerId;
+        
+        private volatile boolean valid = true;
+        
+        private volatile boolean closed;
+        
+        private FixedLease(long workerId) {
+            this.workerId = workerId;
+        }
+        
+        @Override
+        public long getWorkerId() {
+            return workerId;
+        }
+        
+        @Override
+        public boolean isValid() {
+            return valid;
+        }
+        
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.petvet.common.mybatis.interceptor;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * is_void 拦截器改写缓存测试
+ * 
+ * 每次拦截都和 MyBatis 一样从 MappedStatement 取得新的 BoundSql，断言拦截后 BoundSql 中的 SQL
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("is_void 拦截器改写缓存测试")
+class IsVoidQueryInterceptorTest {
+    
+    private static final String SELECT_SQL = "SELECT d.id, d.name FROM vet_ai_doctor d WHERE d.city_code = ? ORDER BY d.id";
+    
+    private static final String UPDATE_SQL = "UPDATE vet_ai_user SET nickname = ? WHERE id = ?";
+    
+    private static final String DELETE_SQL = "DELETE FROM vet_ai_pet WHERE id = ?";
+    
+    private static final String HAS_IS_VOID_SQL = "SELECT id, name FROM vet_ai_pet WHERE user_id = ? AND is_void = 0";
+    
+    private static final String UNPARSEABLE_SQL = "SELECT FROM WHERE ?? broken";
+    
+    private final Configuration configuration = new Configuration();
+    
+    private final Executor executor = (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(),
+            new Class<?>[]{Executor.class},
+            (proxy, method, args) -> "update".equals(method.getName()) ? 0 : Collections.emptyList());
+    
+    /**
+     * 执行一次拦截
+     * 
+     * @return 拦截后交给下游执行的 SQL
+     */
+    private String intercept(IsVoidQueryInterceptor interceptor, String statementId, String sql) throws Throwable {
+        AtomicReference<BoundSql> bound = new AtomicReference<>();
+        SqlSource sqlSource = parameter -> {
+            BoundSql boundSql = new BoundSql(configuration, sql, List.of(), parameter);
+            bound.set(boundSql);
+            return boundSql;
+        };
+        boolean query = sql.startsWith("SELECT");
+        MappedStatement ms = new MappedStatement.Builder(configuration, statementId, sqlSource,
+                query ? SqlCommandType.SELECT : SqlCommandType.UPDATE).build();
+        Invocation invocation;
+        if (query) {
+            Method method = Executor.class.getMethod("query", MappedStatement.class, Object.class,
+                    RowBounds.class, ResultHandler.class);
+            invocation = new Invocation(executor, method, new Object[]{ms, null, RowBounds.DEFAULT, null});
+        } else {
+            Method method = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+            invocation = new Invocation(executor, method, new Object[]{ms, null});
+        }
+        interceptor.intercept(invocation);
+        return bound.get().getSql();
+    }
+    
+    @Test
+    @DisplayName("测试同一 msId 和 SQL 第二次拦截从缓存读取改写结果")
+    void testSecondCallServedFromCache() throws Throwable {
+        IsVoidQueryInterceptor interceptor = new IsVoidQueryInterceptor();
+        
+        String first = intercept(interceptor, "PetMapper.selectByCity", SELECT_SQL);
+        assertTrue(first.contains("d.is_void = 0"), first);
+        assertEquals(1, interceptor.getRewriteCacheStats().missCount());
+        assertEquals(0, interceptor.getRewriteCacheStats().hitCount());
+        
+        String second = intercept(interceptor, "PetMapper.selectByCity", SELECT_SQL);
+        assertSame(first, second);
+        assertEquals(1, interceptor.getRewriteCacheStats().missCount());
+        assertEquals(1, interceptor.getRewriteCacheStats().hitCount());
+        assertEquals(1, interceptor.getRewriteCacheSize());
+        
+        // 同一条 SQL 属于不同的 MappedStatement 时分别缓存
+        assertEquals(first, intercept(interceptor, "DoctorMapper.selectByCity", SELECT_SQL));
+        assertEquals(2, interceptor.getRewriteCacheStats().missCount());
+        assertEquals(2, interceptor.getRewriteCacheSize());
+    }
+    
+    @Test
+    @DisplayName("测试无需改写和解析失败的 SQL 通过无需改写标记原样放行，并且同样被缓存")
+    void testNoRewritePassesThrough() throws Throwable {
+        IsVoidQueryInterceptor interceptor = new IsVoidQueryInterceptor();
+        
+        for (int i = 0; i < 3; i++) {
+            assertSame(HAS_IS_VOID_SQL, intercept(interceptor, "PetMapper.selectByUser", HAS_IS_VOID_SQL));
+            assertSame(UNPARSEABLE_SQL, intercept(interceptor, "PetMapper.broken", UNPARSEABLE_SQL));
+        }
+        
+        // 每条 SQL 只解析一次，之后命中无需改写标记，不会把标记（空字符串）写入 BoundSql
+        assertEquals(2, interceptor.getRewriteCacheStats().missCount());
+        assertEquals(4, interceptor.getRewriteCacheStats().hitCount());
+        assertEquals(2, interceptor.getRewriteCacheSize());
+    }
+    
+    @Test
+    @DisplayName("测试缓存的改写结果与不使用缓存时的改写结果一致")
+    void testCachedMatchesUncached() throws Throwable {
+        IsVoidQueryInterceptor cached = new IsVoidQueryInterceptor();
+        List<String> sqls = List.of(SELECT_SQL, UPDATE_SQL, DELETE_SQL, HAS_IS_VOID_SQL, UNPARSEABLE_SQL);
+        for (String sql : sqls) {
+            intercept(cached, "Mapper." + sqls.indexOf(sql), sql);
+        }
+        
+        for (String sql : sqls) {
+            String statementId = "Mapper." + sqls.indexOf(sql);
+            // 每次使用新的拦截器，第一次拦截必然解析 SQL
+            String uncached = intercept(new IsVoidQueryInterceptor(), statementId, sql);
+            assertEquals(uncached, intercept(cached, statementId, sql), sql);
+        }
+        assertEquals(sqls.size(), cached.getRewriteCacheStats().hitCount());
+        
+        assertEquals(UPDATE_SQL + " AND is_void = 0", intercept(cached, "Mapper.1", UPDATE_SQL));
+        assertEquals(DELETE_SQL + " AND is_void = 0", intercept(cached, "Mapper.2", DELETE_SQL));
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 网关配置类
@@ -98,6 +99,47 @@ public class GatewayConfig {
          * QQ配置
          */
         private QqConfig qq;
+        
+        /**
+         * 第三方授权HTTP客户端配置（连接池、超时）
+         */
+        private HttpClientConfig httpClient = new HttpClientConfig();
+    }
+    
+    /**
+     * 第三方授权HTTP客户端配置
+     * 
+     * 所有授权服务共享同一个连接池
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Data
+    public static class HttpClientConfig {
+        /**
+         * 连接池最大连接数
+         */
+        private Integer maxConnections = 200;
+        
+        /**
+         * 等待获取连接的超时时间（毫秒）
+         */
+        private Long pendingAcquireTimeoutMillis = 2000L;
+        
+        /**
+         * 空闲连接最大存活时间（毫秒），应小于第三方服务端的Keep-Alive超时
+         */
+        private Long maxIdleTimeMillis = 20000L;
+        
+        /**
+         * 建立连接超时时间（毫秒）
+         */
+        private Integer connectTimeoutMillis = 2000;
+        
+        /**
+         * 单次响应超时时间（毫秒）
+         */
+        private Long responseTimeoutMillis = 5000L;
     }
     
     /**
@@ -133,6 +175,16 @@ public class GatewayConfig {
          */
         private String redirectUri;
         
+        /**
+         * 授权流程整体超时时间（毫秒）
+         */
+        private Long timeoutMillis = 5000L;
+        
+        /**
+         * Access Token 提前刷新时间（毫秒），在过期前这段时间内触发刷新
+         */
+        private Long tokenRefreshAheadMillis = 300000L;
+        
         /**
          * API URL配置
          */
@@ -191,6 +243,11 @@ public class GatewayConfig {
          */
         private String redirectUri;
         
+        /**
+         * 授权流程整体超时时间（毫秒）
+         */
+        private Long timeoutMillis = 5000L;
+        
         /**
          * API URL配置
          */
@@ -254,6 +311,11 @@ public class GatewayConfig {
          */
         private String redirectUri;
         
+        /**
+         * 授权流程整体超时时间（毫秒）
+         */
+        private Long timeoutMillis = 5000L;
+        
         /**
          * API URL配置
          */
@@ -307,6 +369,11 @@ public class GatewayConfig {
          */
         private String redirectUri;
         
+        /**
+         * 授权流程整体超时时间（毫秒）
+         */
+        private Long timeoutMillis = 5000L;
+        
         /**
          * API URL配置
          */
@@ -366,9 +433,24 @@ public class GatewayConfig {
         private Boolean responseBody;
         
         /**
-         * 最大请求/响应体大小（字节）
+         * 最大请求/响应体大小（字节），只捕获前 maxBodySize 个字节
          */
         private Integer maxBodySize;
+        
+        /**
+         * 默认采样率（0.0-1.0），未单独配置的路由使用此值
+         */
+        private Double sampleRate = 1.0;
+        
+        /**
+         * 按路由ID配置的采样率（0.0-1.0）
+         */
+        private Map<String, Double> routeSampleRates;
+        
+        /**
+         * 异步日志环形缓冲区容量（向上取整为2的幂），缓冲区满时丢弃日志
+         */
+        private Integer bufferSize = 8192;
     }
     
     /**
@@ -387,6 +469,14 @@ public class GatewayConfig {
      */
     private GrayReleaseConfig grayRelease;
     
+    /**
+     * 集群分布式限流配置
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private RateLimitConfig rateLimit;
+    
     /**
      * Sentinel流控规则配置内部类
      * 
@@ -546,12 +636,66 @@ public class GatewayConfig {
          */
         private List<String> servicePaths;
         
+        /**
+         * 按服务配置的灰度规则（多版本加权），按顺序匹配，先匹配先生效
+         * 未配置时使用上面的 percentage/oldVersion/newVersion/servicePaths 作为唯一规则
+         */
+        private List<GrayRuleConfig> rules;
+        
         /**
          * 负载均衡配置
          */
         private LoadBalancerConfig loadBalancer = new LoadBalancerConfig();
     }
     
+    /**
+     * 服务灰度规则配置内部类
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Data
+    public static class GrayRuleConfig {
+        /**
+         * 规则名称（用于日志）
+         */
+        private String name;
+        
+        /**
+         * 规则适用的服务路径列表（支持通配符）
+         */
+        private List<String> servicePaths;
+        
+        /**
+         * 流量分配策略，为空时使用全局 strategy
+         */
+        private String strategy;
+        
+        /**
+         * 版本权重列表
+         */
+        private List<VersionWeightConfig> versions;
+    }
+    
+    /**
+     * 版本权重配置内部类
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Data
+    public static class VersionWeightConfig {
+        /**
+         * 版本号（必须与服务实例在 Nacos 中的 metadata.version 一致）
+         */
+        private String version;
+        
+        /**
+         * 权重（基点，万分之一）；各版本权重之和不等于10000时按比例归一化
+         */
+        private Integer weight;
+    }
+    
     /**
      * 负载均衡配置内部类
      * 
@@ -582,5 +726,76 @@ public class GatewayConfig {
          */
         private String fallbackStrategy = "all";
     }
+    
+    /**
+     * 集群分布式限流配置内部类
+     * 
+     * 基于 Redis 令牌桶实现全局限流，与 Sentinel 单节点规则叠加生效；
+     * Redis 不可用时放行，由 Sentinel 单节点规则兜底
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Data
+    public static class RateLimitConfig {
+        /**
+         * 是否启用分布式限流
+         */
+        private Boolean enabled = false;
+        
+        /**
+         * Redis Key 前缀
+         */
+        private String keyPrefix = "pet-vet:gateway:rate-limit";
+        
+        /**
+         * 单次 Redis 调用超时时间（毫秒），超时视为 Redis 不可用
+         */
+        private Long timeoutMillis = 50L;
+        
+        /**
+         * Redis 不可用后跳过分布式限流的冷却时间（毫秒），冷却期内直接放行
+         */
+        private Long failOpenCooldownMillis = 5000L;
+        
+        /**
+         * 网关前可信代理（负载均衡）的层数，用于从 X-Forwarded-For 末尾解析客户端IP；
+         * 0 表示不信任 X-Forwarded-For，直接使用连接的远端地址
+         */
+        private Integer trustedProxyCount = 0;
+        
+        /**
+         * 按路由ID配置的限流规则，未配置的路由不做分布式限流
+         */
+        private Map<String, RouteRateLimit> routes;
+    }
+    
+    /**
+     * 路由限流规则内部类
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Data
+    public static class RouteRateLimit {
+        /**
+         * 路由级（集群全局）令牌补充速率（每秒）
+         */
+        private Integer replenishRate;
+        
+        /**
+         * 路由级（集群全局）令牌桶容量（允许的突发请求数）
+         */
+        private Integer burstCapacity;
+        
+        /**
+         * 单用户令牌补充速率（每秒），为空则不做用户级限流
+         */
+        private Integer userReplenishRate;
+        
+        /**
+         * 单用户令牌桶容量，为空则等于 userReplenishRate
+         */
+        private Integer userBurstCapacity;
+    }
 }
-
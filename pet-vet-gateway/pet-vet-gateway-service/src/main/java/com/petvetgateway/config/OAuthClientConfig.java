@@ -0,0 +1,60 @@
+package com.petvetgateway.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * 第三方授权HTTP客户端配置
+ * 
+ * 为企业微信、微信、QQ、支付宝授权服务提供共享的非阻塞 WebClient，
+ * 使用独立的连接池，避免与网关转发流量争抢连接
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Configuration
+public class OAuthClientConfig {
+    
+    /**
+     * 第三方授权 WebClient
+     * 
+     * @param gatewayConfig 网关配置
+     * @return WebClient
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Bean
+    public WebClient oauthWebClient(GatewayConfig gatewayConfig) {
+        GatewayConfig.AuthConfig authConfig = gatewayConfig.getAuth();
+        GatewayConfig.HttpClientConfig config = authConfig != null && authConfig.getHttpClient() != null
+                ? authConfig.getHttpClient()
+                : new GatewayConfig.HttpClientConfig();
+        
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("oauth-client")
+                .maxConnections(config.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(config.getPendingAcquireTimeoutMillis()))
+                .maxIdleTime(Duration.ofMillis(config.getMaxIdleTimeMillis()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+        
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMillis())
+                .responseTimeout(Duration.ofMillis(config.getResponseTimeoutMillis()));
+        
+        log.info("第三方授权HTTP客户端初始化完成，最大连接数: {}, 响应超时: {}ms",
+                config.getMaxConnections(), config.getResponseTimeoutMillis());
+        
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
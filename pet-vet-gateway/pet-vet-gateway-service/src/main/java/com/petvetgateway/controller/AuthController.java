@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -77,34 +78,31 @@ public class AuthController {
      * @date 2024-12-27
      */
     @PostMapping("/callback")
-    public ResponseEntity<Map<String, Object>> authCallback(
+    public Mono<ResponseEntity<Map<String, Object>>> authCallback(
             @RequestParam String type,
             @RequestParam String code) {
         log.info("授权回调，类型: {}, 授权码: {}", type, code);
         
-        try {
-            Map<String, Object> result = authService.authByCode(type, code);
-            
-            if (result == null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "授权失败，请重试");
-                return ResponseEntity.ok(response);
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "授权成功");
-            response.put("data", result);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("授权回调处理失败", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "授权失败: " + e.getMessage());
-            return ResponseEntity.ok(response);
-        }
+        return authService.authByCode(type, code)
+                .map(result -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "授权成功");
+                    response.put("data", result);
+                    return ResponseEntity.ok(response);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", false);
+                    response.put("message", "授权失败，请重试");
+                    return ResponseEntity.ok(response);
+                }))
+                .onErrorResume(e -> {
+                    log.error("授权回调处理失败", e);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", false);
+                    response.put("message", "授权失败: " + e.getMessage());
+                    return Mono.just(ResponseEntity.ok(response));
+                });
     }
 }
-
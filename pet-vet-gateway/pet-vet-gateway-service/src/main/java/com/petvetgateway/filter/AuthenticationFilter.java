@@ -1,6 +1,7 @@
 package com.petvetgateway.filter;
 
 import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.util.JwtClaims;
 import com.petvetgateway.util.JwtUtil;
 import com.petvetgateway.util.WhitelistUtil;
 import lombok.RequiredArgsConstructor;
@@ -26,7 +27,8 @@ import java.util.Map;
  * 统一鉴权过滤器
  * 
  * 负责对请求进行鉴权验证，支持JWT Token验证
- * 白名单路径跳过鉴权
+ * 白名单路径跳过鉴权（同时移除客户端自带的用户信息请求头，防止伪造身份）
+ * 鉴权通过的用户ID同时写入交换属性 {@link #USER_ID_ATTR}，供限流等后续过滤器使用
  * 
  * @author daidasheng
  * @date 2024-12-27
@@ -56,6 +58,11 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
      */
     private static final int FILTER_ORDER = -100;
     
+    /**
+     * 交换属性：鉴权通过的用户ID（Long），白名单路径和未登录请求没有该属性
+     */
+    public static final String USER_ID_ATTR = AuthenticationFilter.class.getName() + ".userId";
+    
     /**
      * 执行过滤逻辑
      * 
@@ -73,21 +80,28 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
         // 检查是否在白名单中
         if (whitelistUtil.isWhitelisted(path)) {
             log.debug("路径 {} 在白名单中，跳过鉴权", path);
-            return chain.filter(exchange);
+            ServerHttpRequest strippedRequest = request.mutate()
+                    .headers(headers -> {
+                        headers.remove("X-User-Id");
+                        headers.remove("X-Open-Id");
+                        headers.remove("X-Auth-Token");
+                    })
+                    .build();
+            return chain.filter(exchange.mutate().request(strippedRequest).build());
         }
         
         // 获取Token
         String token = extractToken(request);
         
-        // 验证Token
-        if (!StringUtils.hasText(token) || !jwtUtil.validateToken(token)) {
+        // 验证Token并提取用户信息（单次验签，结果按Token摘要缓存）
+        JwtClaims claims = StringUtils.hasText(token) ? jwtUtil.verifyAndExtract(token) : null;
+        if (claims == null) {
             log.warn("请求路径 {} 鉴权失败，Token无效或缺失", path);
             return handleUnauthorized(exchange);
         }
         
-        // 从Token中提取用户信息并添加到请求头
-        Long userId = jwtUtil.getUserIdFromToken(token);
-        String openId = jwtUtil.getOpenIdFromToken(token);
+        Long userId = claims.getUserId();
+        String openId = claims.getOpenId();
         
         // 将用户信息添加到请求头，供下游服务使用
         ServerHttpRequest modifiedRequest = request.mutate()
@@ -97,6 +111,9 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
                 .build();
         
         log.debug("请求路径 {} 鉴权成功，用户ID: {}", path, userId);
+        if (userId != null) {
+            exchange.getAttributes().put(USER_ID_ATTR, userId);
+        }
         
         return chain.filter(exchange.mutate().request(modifiedRequest).build());
     }
@@ -1,6 +1,7 @@
 package com.petvetgateway.filter;
 
-import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.gray.GrayRule;
+import com.petvetgateway.gray.GrayRuleTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -8,26 +9,24 @@ import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 灰度发布过滤器（基于 Nacos 元数据版本选择）
  * 
- * 实现简单的灰度发布功能：
- * - 可配置的流量百分比走新版本
+ * 实现灰度发布功能：
+ * - 按服务配置多版本加权规则（未配置规则时为新旧两个版本按百分比分流）
  * - 通过 Nacos 元数据选择服务实例，前端无需修改
- * - 支持配置化的服务路径匹配
+ * - 支持配置化的服务路径匹配，规则随配置刷新原子替换
  * 
  * 工作原理：
- * 1. 根据配置的随机数决定目标版本
- * 2. 将版本信息添加到请求头 X-Target-Version（仅网关内部使用）
- * 3. VersionLoadBalancer 根据版本选择对应的服务实例
+ * 1. 在鉴权过滤器之后执行，此时 X-User-Id 已写入请求头，登录用户可按用户ID稳定分桶
+ * 2. 稳定键经 64 位 MurmurHash3 映射到 10000 个基点分桶，按规则的累计权重选择目标版本
+ * 3. 将版本信息添加到请求头 X-Target-Version（仅网关内部使用）
+ * 4. VersionLoadBalancer 根据版本选择对应的服务实例
  * 
  * @author daidasheng
  * @date 2026-01-07
@@ -38,24 +37,14 @@ import java.util.Random;
 public class GrayReleaseFilter implements GlobalFilter, Ordered {
     
     /**
-     * 网关配置（支持动态刷新）
+     * 灰度规则表（支持动态刷新）
      */
-    private final GatewayConfig gatewayConfig;
+    private final GrayRuleTable grayRuleTable;
     
     /**
-     * 路径匹配器（支持通配符）
+     * 过滤器执行顺序（在鉴权和分布式限流之后、路由之前，此时用户身份已确定）
      */
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
-    
-    /**
-     * 随机数生成器
-     */
-    private final Random random = new Random();
-    
-    /**
-     * 过滤器执行顺序（在路由之前，优先级高于其他过滤器）
-     */
-    private static final int FILTER_ORDER = -200;
+    private static final int FILTER_ORDER = -80;
     
     /**
      * 执行过滤逻辑
@@ -68,24 +57,25 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
      */
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        // 检查是否启用灰度发布
-        GatewayConfig.GrayReleaseConfig grayConfig = gatewayConfig.getGrayRelease();
-        if (grayConfig == null || grayConfig.getEnabled() == null || !grayConfig.getEnabled()) {
-            return chain.filter(exchange);
-        }
-        
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
         
-        // 检查路径是否匹配配置的服务路径
-        if (!isPathMatched(path, grayConfig)) {
+        // 查找路径适用的灰度规则（灰度未启用或路径不匹配时为空）
+        GrayRule rule = grayRuleTable.match(path);
+        if (rule == null) {
             return chain.filter(exchange);
         }
         
-        // 根据配置的策略决定版本
-        String targetVersion = determineVersion(grayConfig, request);
+        // 根据规则的策略决定版本
+        String hashKey = getHashKey(rule.getStrategy(), request);
+        int bucket = hashKey != null
+                ? GrayRule.bucketOf(hashKey)
+                : ThreadLocalRandom.current().nextInt(GrayRule.TOTAL_BUCKETS);
+        String targetVersion = rule.selectVersion(bucket);
         
-        log.info("灰度发布 - 路径: {}, 目标版本: {}, 灰度比例: {}%, 策略: {}", path, targetVersion, grayConfig.getPercentage(), grayConfig.getStrategy());
+        if (log.isDebugEnabled()) {
+            log.debug("灰度发布 - 路径: {}, 规则: {}, 分桶: {}, 目标版本: {}", path, rule.getName(), bucket, targetVersion);
+        }
         
         // 将版本信息添加到请求头中，供 LoadBalancer 使用
         // 注意：这个请求头仅在网关内部使用，LoadBalancer 选择实例后会被移除，不会传递给下游服务
@@ -97,76 +87,17 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
     }
     
     /**
-     * 检查路径是否匹配配置的服务路径
-     * 
-     * @param path 请求路径
-     * @param grayConfig 灰度配置
-     * @return 是否匹配
-     * @author daidasheng
-     * @date 2026-01-07
-     */
-    private boolean isPathMatched(String path, GatewayConfig.GrayReleaseConfig grayConfig) {
-        List<String> servicePaths = grayConfig.getServicePaths();
-        
-        // 如果没有配置服务路径，默认匹配所有 /api/ai/** 路径（向后兼容）
-        if (CollectionUtils.isEmpty(servicePaths)) {
-            return path.startsWith("/api/ai/");
-        }
-        
-        // 检查路径是否匹配配置的任一服务路径
-        return servicePaths.stream()
-                .filter(pattern -> pattern != null && !pattern.isEmpty())
-                .anyMatch(pattern -> pathMatcher.match(pattern, path));
-    }
-    
-    /**
-     * 根据灰度配置和策略决定目标版本
+     * 根据策略获取稳定哈希键
      * 
      * 支持多种策略：
-     * - hybrid: 混合策略（推荐）- 优先用户ID，其次IP，最后请求ID
-     * - user-id: 基于用户ID的一致性哈希
+     * - hybrid: 混合策略（推荐）- 优先用户ID，其次IP，都没有时随机分桶
+     * - user-id: 基于用户ID的一致性哈希，未登录时随机分桶
      * - ip: 基于IP的一致性哈希
-     * - request-id: 基于请求ID的取模
-     * - random: 纯随机数（不推荐）
-     * 
-     * @param grayConfig 灰度配置
-     * @param request 请求对象
-     * @return 版本号
-     * @author daidasheng
-     * @date 2026-01-07
-     */
-    private String determineVersion(GatewayConfig.GrayReleaseConfig grayConfig, ServerHttpRequest request) {
-        // 获取配置的灰度百分比（默认10%）
-        int percentage = grayConfig.getPercentage() != null ? grayConfig.getPercentage() : 10;
-        // 限制在 0-100 范围内
-        percentage = Math.max(0, Math.min(100, percentage));
-        
-        // 获取策略（默认混合策略）
-        String strategy = grayConfig.getStrategy() != null ? grayConfig.getStrategy() : "hybrid";
-        
-        // 根据策略获取哈希键
-        String hashKey = getHashKey(strategy, request);
-        
-        // 计算哈希值并取模
-        int hash = hashKey.hashCode();
-        int mod = Math.abs(hash % 100);
-        
-        // 根据取模结果决定版本
-        boolean useNewVersion = mod < percentage;
-        
-        if (useNewVersion) {
-            return grayConfig.getNewVersion() != null ? grayConfig.getNewVersion() : "v2.0";
-        } else {
-            return grayConfig.getOldVersion() != null ? grayConfig.getOldVersion() : "v1.0";
-        }
-    }
-    
-    /**
-     * 根据策略获取哈希键
+     * - request-id / random: 每个请求随机分桶（不推荐，用户体验不一致）
      * 
      * @param strategy 策略名称
      * @param request 请求对象
-     * @return 哈希键
+     * @return 哈希键；返回null表示该请求随机分桶
      * @author daidasheng
      * @date 2026-01-07
      */
@@ -178,8 +109,7 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
                 if (userId != null && !userId.isEmpty()) {
                     return "user:" + userId;
                 }
-                // 如果没有用户ID，降级到请求ID
-                return "request:" + generateRequestId();
+                return null;
                 
             case "ip":
                 // 基于IP地址
@@ -187,16 +117,12 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
                 return "ip:" + (clientIp != null ? clientIp : "unknown");
                 
             case "request-id":
-                // 基于请求ID
-                return "request:" + generateRequestId();
-                
             case "random":
-                // 纯随机数（不推荐，但保留兼容性）
-                return "random:" + random.nextInt(Integer.MAX_VALUE);
+                return null;
                 
             case "hybrid":
             default:
-                // 混合策略：优先用户ID，其次IP，最后请求ID
+                // 混合策略：优先用户ID，其次IP，最后随机
                 String hybridUserId = request.getHeaders().getFirst("X-User-Id");
                 if (hybridUserId != null && !hybridUserId.isEmpty()) {
                     return "user:" + hybridUserId;
@@ -207,21 +133,10 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
                     return "ip:" + hybridIp;
                 }
                 
-                return "request:" + generateRequestId();
+                return null;
         }
     }
     
-    /**
-     * 生成请求ID
-     * 
-     * @return 请求ID
-     * @author daidasheng
-     * @date 2026-01-07
-     */
-    private String generateRequestId() {
-        return "REQ-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
-    }
-    
     /**
      * 获取客户端IP地址
      * 
@@ -264,4 +179,3 @@ public class GrayReleaseFilter implements GlobalFilter, Ordered {
         return FILTER_ORDER;
     }
 }
-
@@ -0,0 +1,186 @@
+package com.petvetgateway.filter;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.ratelimit.DistributedRateLimiter;
+import com.petvetgateway.ratelimit.RateLimitDecision;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 集群分布式限流过滤器
+ * 
+ * 在鉴权过滤器之后执行，按路由和用户做集群全局限流。用户只取鉴权过滤器验证过的用户ID（交换属性，
+ * 不读取客户端可以伪造的 X-User-Id 请求头）；未登录时为客户端IP，只从可信代理追加的 X-Forwarded-For 中解析。
+ * Sentinel 的 GatewayFlowRule 仍按单节点生效，两者叠加：
+ * 分布式限流保证集群总量，Sentinel 保护单个节点并在 Redis 不可用时兜底
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter implements GlobalFilter, Ordered {
+    
+    /**
+     * 分布式限流器
+     */
+    private final DistributedRateLimiter distributedRateLimiter;
+    
+    /**
+     * 网关配置（支持动态刷新）
+     */
+    private final GatewayConfig gatewayConfig;
+    
+    /**
+     * 按可信代理层数缓存的客户端地址解析器
+     */
+    private volatile TrustedAddressResolver addressResolver = new TrustedAddressResolver(0);
+    
+    /**
+     * 过滤器执行顺序（在鉴权过滤器之后，此时已验证的用户ID已写入交换属性）
+     */
+    private static final int FILTER_ORDER = -90;
+    
+    /**
+     * 剩余令牌数响应头
+     */
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    
+    /**
+     * 限流响应体（与 Sentinel 限流响应格式一致）
+     */
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"success\":false,\"code\":429,\"message\":\"请求过于频繁，请稍后再试\",\"data\":null}"
+                    .getBytes(StandardCharsets.UTF_8);
+    
+    /**
+     * 执行过滤逻辑
+     * 
+     * @param exchange 服务器Web交换对象
+     * @param chain 过滤器链
+     * @return Mono<Void>
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        String subject = resolveSubject(exchange);
+        
+        return distributedRateLimiter.acquire(routeId, subject)
+                .flatMap(decision -> {
+                    if (decision.getRemaining() >= 0) {
+                        exchange.getResponse().getHeaders().set(REMAINING_HEADER, Long.toString(decision.getRemaining()));
+                    }
+                    if (decision.isAllowed()) {
+                        return chain.filter(exchange);
+                    }
+                    log.debug("路由 {} 主体 {} 触发分布式限流", routeId, subject);
+                    return handleTooManyRequests(exchange);
+                });
+    }
+    
+    /**
+     * 解析限流主体：优先鉴权通过的用户ID，其次经可信代理解析后的客户端IP
+     * 
+     * @param exchange 服务器Web交换对象
+     * @return 限流主体
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    String resolveSubject(ServerWebExchange exchange) {
+        Long userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTR);
+        if (userId != null) {
+            return "u:" + userId;
+        }
+        InetSocketAddress address = remoteAddressResolver().resolve(exchange);
+        if (address != null && address.getAddress() != null) {
+            return "ip:" + address.getAddress().getHostAddress();
+        }
+        return null;
+    }
+    
+    /**
+     * 按当前配置的可信代理层数获取客户端地址解析器
+     */
+    private RemoteAddressResolver remoteAddressResolver() {
+        GatewayConfig.RateLimitConfig config = gatewayConfig.getRateLimit();
+        int trustedProxyCount = config != null && config.getTrustedProxyCount() != null
+                ? Math.max(0, config.getTrustedProxyCount())
+                : 0;
+        TrustedAddressResolver resolver = addressResolver;
+        if (resolver.trustedProxyCount != trustedProxyCount) {
+            resolver = new TrustedAddressResolver(trustedProxyCount);
+            addressResolver = resolver;
+        }
+        return resolver.resolver;
+    }
+    
+    /**
+     * 返回429限流响应
+     * 
+     * @param exchange 服务器Web交换对象
+     * @return Mono<Void>
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private Mono<Void> handleTooManyRequests(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY);
+        return response.writeWith(Mono.just(buffer));
+    }
+    
+    /**
+     * 获取过滤器执行顺序
+     * 
+     * @return 顺序值
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @Override
+    public int getOrder() {
+        return FILTER_ORDER;
+    }
+    
+    /**
+     * 可信代理层数及对应的地址解析器：0 层时直接使用连接的远端地址，
+     * 否则只信任 X-Forwarded-For 末尾由可信代理追加的部分，客户端自己填写的前缀会被忽略
+     */
+    private static final class TrustedAddressResolver {
+        
+        private final int trustedProxyCount;
+        
+        private final RemoteAddressResolver resolver;
+        
+        private TrustedAddressResolver(int trustedProxyCount) {
+            this.trustedProxyCount = trustedProxyCount;
+            this.resolver = trustedProxyCount > 0
+                    ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxyCount)
+                    : new RemoteAddressResolver() { };
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.petvetgateway.filter;
 
 import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.logging.AccessLogEvent;
+import com.petvetgateway.logging.AccessLogSampler;
+import com.petvetgateway.logging.AccessLogWriter;
+import com.petvetgateway.logging.BodyCaptureWindow;
+import com.petvetgateway.util.RequestIdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.reactivestreams.Publisher;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
-import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -20,15 +26,16 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 /**
  * 请求/响应日志记录过滤器
  * 
  * 记录所有经过网关的请求和响应信息，包括请求头、请求体、响应状态、响应体等
  * 
+ * 事件循环线程上只做采样判断和原始字段采集：
+ * - 按路由采样，未采样的请求不做任何包装
+ * - 请求/响应体只在数据流经时复制前 maxBodySize 个字节，原 DataBuffer 原样向下游传递
+ * - 日志事件放入无锁环形缓冲区，由 {@link AccessLogWriter} 的独立线程格式化输出，缓冲区满时丢弃
+ * 
  * @author daidasheng
  * @date 2024-12-27
  */
@@ -43,15 +50,30 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * 日期时间格式化器
+     * 访问日志采样器
+     */
+    private final AccessLogSampler accessLogSampler;
+    
+    /**
+     * 访问日志异步写入器
      */
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private final AccessLogWriter accessLogWriter;
+    
+    /**
+     * 请求ID生成器
+     */
+    private final RequestIdGenerator requestIdGenerator;
     
     /**
      * 过滤器执行顺序（在鉴权过滤器之后）
      */
     private static final int FILTER_ORDER = -50;
     
+    /**
+     * 默认请求/响应体捕获大小（字节）
+     */
+    private static final int DEFAULT_MAX_BODY_SIZE = 10240;
+    
     /**
      * 执行过滤逻辑
      * 
@@ -63,91 +85,89 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
      */
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GatewayConfig.LogConfig logConfig = gatewayConfig.getLog();
         // 如果日志功能未启用，直接跳过
-        if (!gatewayConfig.getLog().getEnabled()) {
+        if (logConfig == null || !Boolean.TRUE.equals(logConfig.getEnabled())) {
+            return chain.filter(exchange);
+        }
+        
+        String routeId = getRouteId(exchange);
+        if (!accessLogSampler.shouldSample(routeId)) {
             return chain.filter(exchange);
         }
         
         ServerHttpRequest request = exchange.getRequest();
-        String requestId = generateRequestId();
-        long startTime = System.currentTimeMillis();
+        String requestId = requestIdGenerator.nextId();
+        long startNanos = System.nanoTime();
+        int maxBodySize = logConfig.getMaxBodySize() != null ? logConfig.getMaxBodySize() : DEFAULT_MAX_BODY_SIZE;
         
         // 记录请求信息
-        logRequest(request, requestId);
+        accessLogWriter.publish(AccessLogEvent.request(requestId, routeId,
+                request.getMethod().name(), request.getURI().getPath(), request.getURI().getQuery(),
+                getClientIp(request), snapshotHeaders(request.getHeaders())));
         
-        // 如果需要记录请求体，需要包装请求
+        // 如果需要记录请求体，包装请求捕获前 N 个字节
         ServerHttpRequest decoratedRequest = request;
-        if (gatewayConfig.getLog().getRequestBody()) {
-            decoratedRequest = new RequestLoggingDecorator(
-                    request, requestId, exchange.getResponse().bufferFactory());
+        BodyCaptureWindow requestBody = null;
+        if (Boolean.TRUE.equals(logConfig.getRequestBody())) {
+            requestBody = new BodyCaptureWindow(maxBodySize);
+            decoratedRequest = new RequestLoggingDecorator(request, requestBody);
         }
         
-        // 包装响应以记录响应信息
-        ServerHttpResponseDecorator decoratedResponse = new ResponseLoggingDecorator(
-                exchange.getResponse(), requestId, startTime);
+        // 如果需要记录响应体，包装响应捕获前 N 个字节
+        ServerHttpResponse response = exchange.getResponse();
+        ServerHttpResponse decoratedResponse = response;
+        BodyCaptureWindow responseBody = null;
+        if (Boolean.TRUE.equals(logConfig.getResponseBody())) {
+            responseBody = new BodyCaptureWindow(maxBodySize);
+            decoratedResponse = new ResponseLoggingDecorator(response, responseBody);
+        }
         
+        BodyCaptureWindow capturedRequestBody = requestBody;
+        BodyCaptureWindow capturedResponseBody = responseBody;
         return chain.filter(exchange.mutate()
-                .request(decoratedRequest)
-                .response(decoratedResponse)
-                .build());
+                        .request(decoratedRequest)
+                        .response(decoratedResponse)
+                        .build())
+                .doFinally(signal -> {
+                    long durationMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+                    HttpStatusCode status = response.getStatusCode();
+                    accessLogWriter.publish(AccessLogEvent.response(requestId, routeId,
+                            status != null ? status.value() : null, snapshotHeaders(response.getHeaders()), durationMillis,
+                            capturedRequestBody, capturedResponseBody));
+                });
     }
     
     /**
-     * 生成请求ID
+     * 获取当前请求匹配的路由ID
      * 
-     * @return 请求ID
+     * @param exchange 服务器Web交换对象
+     * @return 路由ID，未匹配路由时返回null
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-16
      */
-    private String generateRequestId() {
-        return "REQ-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
+    private String getRouteId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : null;
     }
     
     /**
-     * 记录请求信息
+     * 复制请求/响应头
      * 
-     * @param request 请求对象
-     * @param requestId 请求ID
-     * @author daidasheng
-     * @date 2024-12-27
-     */
-    private void logRequest(ServerHttpRequest request, String requestId) {
-        StringBuilder logBuilder = new StringBuilder();
-        logBuilder.append("\n========== 请求开始 ==========\n");
-        logBuilder.append("请求ID: ").append(requestId).append("\n");
-        logBuilder.append("时间: ").append(LocalDateTime.now().format(DATE_TIME_FORMATTER)).append("\n");
-        logBuilder.append("方法: ").append(request.getMethod()).append("\n");
-        logBuilder.append("路径: ").append(request.getURI().getPath()).append("\n");
-        logBuilder.append("查询参数: ").append(request.getURI().getQuery()).append("\n");
-        logBuilder.append("请求头: ").append(request.getHeaders()).append("\n");
-        logBuilder.append("客户端IP: ").append(getClientIp(request)).append("\n");
-        logBuilder.append("==============================");
-        
-        log.info(logBuilder.toString());
-    }
-    
-    /**
-     * 记录响应信息
+     * 事件由日志写入线程异步读取，而原始头对象在请求处理过程中仍可能被其他过滤器修改，
+     * 因此入队前复制一份只读快照（new HttpHeaders(headers) 只是包装同一个 Map，不能用于复制）
      * 
-     * @param response 响应对象
-     * @param requestId 请求ID
-     * @param startTime 请求开始时间
+     * @param headers 原始请求/响应头
+     * @return 只读副本
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-17
      */
-    private void logResponse(ServerHttpResponse response, String requestId, long startTime) {
-        long duration = System.currentTimeMillis() - startTime;
-        
-        StringBuilder logBuilder = new StringBuilder();
-        logBuilder.append("\n========== 响应结束 ==========\n");
-        logBuilder.append("请求ID: ").append(requestId).append("\n");
-        logBuilder.append("时间: ").append(LocalDateTime.now().format(DATE_TIME_FORMATTER)).append("\n");
-        logBuilder.append("状态码: ").append(response.getStatusCode()).append("\n");
-        logBuilder.append("响应头: ").append(response.getHeaders()).append("\n");
-        logBuilder.append("耗时: ").append(duration).append("ms\n");
-        logBuilder.append("==============================");
-        
-        log.info(logBuilder.toString());
+    private static HttpHeaders snapshotHeaders(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        if (headers != null) {
+            copy.addAll(headers);
+        }
+        return HttpHeaders.readOnlyHttpHeaders(copy);
     }
     
     /**
@@ -161,7 +181,8 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
     private String getClientIp(ServerHttpRequest request) {
         String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma >= 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
         }
         
         String xRealIp = request.getHeaders().getFirst("X-Real-IP");
@@ -169,110 +190,75 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
             return xRealIp;
         }
         
-        return request.getRemoteAddress() != null ? 
+        return request.getRemoteAddress() != null ?
                 request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
     }
     
     /**
      * 请求日志装饰器
-     * 用于读取和记录请求体
+     * 用于捕获请求体的前 N 个字节
      * 
      * @author daidasheng
      * @date 2024-12-27
      */
-    private class RequestLoggingDecorator extends ServerHttpRequestDecorator {
+    private static class RequestLoggingDecorator extends ServerHttpRequestDecorator {
         
         /**
-         * 请求ID
+         * 请求体捕获窗口
          */
-        private final String requestId;
-        
-        /**
-         * 数据缓冲区工厂
-         */
-        private final DataBufferFactory bufferFactory;
+        private final BodyCaptureWindow captureWindow;
         
         /**
          * 构造函数
          * 
          * @param delegate 原始请求
-         * @param requestId 请求ID
-         * @param bufferFactory 数据缓冲区工厂
+         * @param captureWindow 请求体捕获窗口
          * @author daidasheng
          * @date 2024-12-27
          */
-        public RequestLoggingDecorator(ServerHttpRequest delegate, String requestId, DataBufferFactory bufferFactory) {
+        public RequestLoggingDecorator(ServerHttpRequest delegate, BodyCaptureWindow captureWindow) {
             super(delegate);
-            this.requestId = requestId;
-            this.bufferFactory = bufferFactory;
+            this.captureWindow = captureWindow;
         }
         
         /**
          * 获取请求体
          * 
-         * @return 请求体Flux
+         * @return 请求体Flux（原 DataBuffer 原样传递）
          * @author daidasheng
          * @date 2024-12-27
          */
         @Override
         public Flux<DataBuffer> getBody() {
-            return DataBufferUtils.join(super.getBody())
-                    .flatMapMany(dataBuffer -> {
-                        // 先读取 buffer 内容
-                        byte[] bytes = new byte[dataBuffer.readableByteCount()];
-                        dataBuffer.read(bytes);
-                        
-                        // 记录日志
-                        String body = new String(bytes, StandardCharsets.UTF_8);
-                        int maxSize = gatewayConfig.getLog().getMaxBodySize();
-                        
-                        if (body.length() > maxSize) {
-                            body = body.substring(0, maxSize) + "...(已截断)";
-                        }
-                        
-                        log.info("请求ID: {}, 请求体: {}", requestId, body);
-                        
-                        // 释放原始 buffer
-                        DataBufferUtils.release(dataBuffer);
-                        
-                        // 创建新的 buffer 供后续使用
-                        return Flux.just(bufferFactory.wrap(bytes));
-                    });
+            return super.getBody().doOnNext(captureWindow::capture);
         }
     }
     
     /**
      * 响应日志装饰器
-     * 用于读取和记录响应体
+     * 用于捕获响应体的前 N 个字节
      * 
      * @author daidasheng
      * @date 2024-12-27
      */
-    private class ResponseLoggingDecorator extends ServerHttpResponseDecorator {
+    private static class ResponseLoggingDecorator extends ServerHttpResponseDecorator {
         
         /**
-         * 请求ID
+         * 响应体捕获窗口
          */
-        private final String requestId;
-        
-        /**
-         * 请求开始时间
-         */
-        private final long startTime;
+        private final BodyCaptureWindow captureWindow;
         
         /**
          * 构造函数
          * 
          * @param delegate 原始响应
-         * @param requestId 请求ID
-         * @param startTime 请求开始时间
+         * @param captureWindow 响应体捕获窗口
          * @author daidasheng
          * @date 2024-12-27
          */
-        public ResponseLoggingDecorator(ServerHttpResponse delegate, String requestId, long startTime) {
+        public ResponseLoggingDecorator(ServerHttpResponse delegate, BodyCaptureWindow captureWindow) {
             super(delegate);
-            this.requestId = requestId;
-            this.startTime = startTime;
+            this.captureWindow = captureWindow;
         }
         
         /**
@@ -285,36 +271,7 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
          */
         @Override
         public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
-            if (gatewayConfig.getLog().getResponseBody() && body instanceof Flux) {
-                Flux<? extends DataBuffer> fluxBody = (Flux<? extends DataBuffer>) body;
-                // 使用缓存方式读取响应体，避免影响原始流
-                return DataBufferUtils.join(fluxBody)
-                        .flatMap(dataBuffer -> {
-                            // 读取响应体内容用于日志记录
-                            byte[] bytes = new byte[dataBuffer.readableByteCount()];
-                            dataBuffer.read(bytes);
-                            
-                            String responseBody = new String(bytes, StandardCharsets.UTF_8);
-                            int maxSize = gatewayConfig.getLog().getMaxBodySize();
-                            
-                            if (responseBody.length() > maxSize) {
-                                responseBody = responseBody.substring(0, maxSize) + "...(已截断)";
-                            }
-                            
-                            log.info("请求ID: {}, 响应体: {}", requestId, responseBody);
-                            
-                            // 重新创建DataBuffer用于写入响应
-                            DataBuffer newBuffer = getDelegate().bufferFactory().wrap(bytes);
-                            return super.writeWith(Flux.just(newBuffer));
-                        })
-                        .then(Mono.fromRunnable(() -> {
-                            logResponse(getDelegate(), requestId, startTime);
-                        }));
-            } else {
-                return super.writeWith(body).doOnSuccess(aVoid -> {
-                    logResponse(getDelegate(), requestId, startTime);
-                });
-            }
+            return super.writeWith(Flux.from(body).doOnNext(captureWindow::capture));
         }
     }
     
@@ -330,4 +287,3 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
         return FILTER_ORDER;
     }
 }
-
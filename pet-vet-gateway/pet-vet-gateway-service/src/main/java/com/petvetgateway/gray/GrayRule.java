@@ -0,0 +1,169 @@
+package com.petvetgateway.gray;
+
+import com.petvetgateway.util.Murmur3Hash;
+import com.petvetgateway.util.PathPatternTrie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 编译后的灰度规则（不可变）
+ * 
+ * 稳定键经 64 位 MurmurHash3 映射到 [0, 10000) 的基点分桶，
+ * 再按各版本累计权重区间选择目标版本，同一个键在规则不变时始终落到同一版本
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class GrayRule {
+    
+    /**
+     * 分桶总数（基点）
+     */
+    public static final int TOTAL_BUCKETS = 10000;
+    
+    /**
+     * 规则名称
+     */
+    private final String name;
+    
+    /**
+     * 规则适用的路径
+     */
+    private final PathPatternTrie paths;
+    
+    /**
+     * 流量分配策略
+     */
+    private final String strategy;
+    
+    /**
+     * 版本列表
+     */
+    private final String[] versions;
+    
+    /**
+     * 各版本累计分桶上界（不含），最后一个等于 TOTAL_BUCKETS
+     */
+    private final int[] upperBounds;
+    
+    private GrayRule(String name, PathPatternTrie paths, String strategy, String[] versions, int[] upperBounds) {
+        this.name = name;
+        this.paths = paths;
+        this.strategy = strategy;
+        this.versions = versions;
+        this.upperBounds = upperBounds;
+    }
+    
+    /**
+     * 编译灰度规则
+     * 
+     * 权重之和不等于 TOTAL_BUCKETS 时按比例归一化；权重为空或不大于0的版本被忽略
+     * 
+     * @param name 规则名称
+     * @param paths 规则适用的路径
+     * @param strategy 流量分配策略
+     * @param versions 版本列表
+     * @param weights 与版本一一对应的权重
+     * @return 编译后的规则；没有有效版本时返回null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static GrayRule of(String name, PathPatternTrie paths, String strategy, List<String> versions, List<Integer> weights) {
+        List<String> validVersions = new ArrayList<>();
+        List<Integer> validWeights = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < versions.size(); i++) {
+            String version = versions.get(i);
+            Integer weight = i < weights.size() ? weights.get(i) : null;
+            if (version == null || version.isEmpty() || weight == null || weight <= 0) {
+                continue;
+            }
+            validVersions.add(version);
+            validWeights.add(weight);
+            total += weight;
+        }
+        if (validVersions.isEmpty()) {
+            return null;
+        }
+        
+        int[] upperBounds = new int[validVersions.size()];
+        long cumulative = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            cumulative += validWeights.get(i);
+            upperBounds[i] = (int) (cumulative * TOTAL_BUCKETS / total);
+        }
+        upperBounds[upperBounds.length - 1] = TOTAL_BUCKETS;
+        return new GrayRule(name, paths, strategy, validVersions.toArray(new String[0]), upperBounds);
+    }
+    
+    /**
+     * 计算稳定键所在的分桶
+     * 
+     * @param key 稳定键（如 user:123）
+     * @return 分桶 [0, TOTAL_BUCKETS)
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static int bucketOf(String key) {
+        return (int) Long.remainderUnsigned(Murmur3Hash.hash64(key), TOTAL_BUCKETS);
+    }
+    
+    /**
+     * 判断路径是否适用本规则
+     * 
+     * @param path 请求路径
+     * @return 是否适用
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean matches(String path) {
+        return paths.matches(path);
+    }
+    
+    /**
+     * 按分桶选择版本
+     * 
+     * @param bucket 分桶 [0, TOTAL_BUCKETS)
+     * @return 版本号
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public String selectVersion(int bucket) {
+        for (int i = 0; i < upperBounds.length - 1; i++) {
+            if (bucket < upperBounds[i]) {
+                return versions[i];
+            }
+        }
+        return versions[versions.length - 1];
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getStrategy() {
+        return strategy;
+    }
+    
+    public List<String> getVersions() {
+        List<String> list = new ArrayList<>(versions.length);
+        Collections.addAll(list, versions);
+        return Collections.unmodifiableList(list);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GrayRule{name=").append(name).append(", strategy=").append(strategy).append(", split=[");
+        int lower = 0;
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(versions[i]).append(':').append(upperBounds[i] - lower);
+            lower = upperBounds[i];
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.petvetgateway.gray;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.util.PathPatternTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 灰度规则表
+ * 
+ * 灰度配置在首次使用时编译为 {@link GrayRule} 列表；配置刷新后整体重新编译并原子替换，
+ * 进行中的请求继续使用旧规则，不会看到半更新的规则
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrayRuleTable {
+    
+    /**
+     * 默认灰度路径（未配置 servicePaths 时，向后兼容）
+     */
+    private static final List<String> DEFAULT_SERVICE_PATHS = List.of("/api/ai/**");
+    
+    /**
+     * 网关配置（支持动态刷新）
+     */
+    private final GatewayConfig gatewayConfig;
+    
+    /**
+     * 当前生效的规则
+     */
+    private final AtomicReference<CompiledRules> compiled = new AtomicReference<>();
+    
+    /**
+     * 路径匹配代价计数器（跨重建累计）
+     */
+    private final PathPatternTrie.MatchCounters counters = new PathPatternTrie.MatchCounters();
+    
+    /**
+     * 查找路径适用的灰度规则
+     * 
+     * @param path 请求路径
+     * @return 第一个匹配的规则；灰度未启用或没有匹配规则时返回null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public GrayRule match(String path) {
+        GatewayConfig.GrayReleaseConfig grayConfig = gatewayConfig.getGrayRelease();
+        if (grayConfig == null || !Boolean.TRUE.equals(grayConfig.getEnabled()) || path == null) {
+            return null;
+        }
+        for (GrayRule rule : currentRules(grayConfig)) {
+            if (rule.matches(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 配置刷新后重新编译灰度规则
+     * 
+     * @param event 刷新事件
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh(RefreshScopeRefreshedEvent event) {
+        GatewayConfig.GrayReleaseConfig grayConfig = gatewayConfig.getGrayRelease();
+        if (grayConfig != null) {
+            compiled.set(compile(grayConfig));
+        }
+    }
+    
+    /**
+     * 获取与当前配置对应的规则，配置对象发生变化时重新编译
+     * 
+     * @param grayConfig 当前灰度配置
+     * @return 规则列表
+     */
+    private List<GrayRule> currentRules(GatewayConfig.GrayReleaseConfig grayConfig) {
+        CompiledRules current = compiled.get();
+        if (current != null && current.source == grayConfig) {
+            return current.rules;
+        }
+        CompiledRules rebuilt = compile(grayConfig);
+        compiled.compareAndSet(current, rebuilt);
+        return rebuilt.rules;
+    }
+    
+    /**
+     * 编译灰度配置
+     * 
+     * 配置了 rules 时按服务规则编译；否则用 percentage/oldVersion/newVersion/servicePaths 编译为单条规则
+     * 
+     * @param grayConfig 灰度配置
+     * @return 编译结果
+     */
+    private CompiledRules compile(GatewayConfig.GrayReleaseConfig grayConfig) {
+        String defaultStrategy = grayConfig.getStrategy() != null ? grayConfig.getStrategy() : "hybrid";
+        List<GrayRule> rules = new ArrayList<>();
+        
+        if (!CollectionUtils.isEmpty(grayConfig.getRules())) {
+            int index = 0;
+            for (GatewayConfig.GrayRuleConfig ruleConfig : grayConfig.getRules()) {
+                index++;
+                if (ruleConfig == null || CollectionUtils.isEmpty(ruleConfig.getServicePaths())
+                        || CollectionUtils.isEmpty(ruleConfig.getVersions())) {
+                    continue;
+                }
+                List<String> versions = new ArrayList<>();
+                List<Integer> weights = new ArrayList<>();
+                for (GatewayConfig.VersionWeightConfig versionWeight : ruleConfig.getVersions()) {
+                    if (versionWeight != null) {
+                        versions.add(versionWeight.getVersion());
+                        weights.add(versionWeight.getWeight());
+                    }
+                }
+                String name = ruleConfig.getName() != null ? ruleConfig.getName() : "rule-" + index;
+                String strategy = ruleConfig.getStrategy() != null ? ruleConfig.getStrategy() : defaultStrategy;
+                GrayRule rule = GrayRule.of(name, PathPatternTrie.compile(ruleConfig.getServicePaths(), counters),
+                        strategy, versions, weights);
+                if (rule != null) {
+                    rules.add(rule);
+                }
+            }
+        } else {
+            int percentage = grayConfig.getPercentage() != null ? grayConfig.getPercentage() : 10;
+            percentage = Math.max(0, Math.min(100, percentage));
+            String oldVersion = grayConfig.getOldVersion() != null ? grayConfig.getOldVersion() : "v1.0";
+            String newVersion = grayConfig.getNewVersion() != null ? grayConfig.getNewVersion() : "v2.0";
+            List<String> servicePaths = CollectionUtils.isEmpty(grayConfig.getServicePaths())
+                    ? DEFAULT_SERVICE_PATHS
+                    : grayConfig.getServicePaths();
+            GrayRule rule = GrayRule.of("default", PathPatternTrie.compile(servicePaths, counters), defaultStrategy,
+                    List.of(oldVersion, newVersion), List.of((100 - percentage) * 100, percentage * 100));
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        
+        log.info("灰度规则编译完成: {}", rules);
+        return new CompiledRules(grayConfig, Collections.unmodifiableList(rules));
+    }
+    
+    /**
+     * 灰度规则编译结果，绑定其来源配置对象
+     */
+    private static final class CompiledRules {
+        
+        private final GatewayConfig.GrayReleaseConfig source;
+        
+        private final List<GrayRule> rules;
+        
+        private CompiledRules(GatewayConfig.GrayReleaseConfig source, List<GrayRule> rules) {
+            this.source = source;
+            this.rules = rules;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.petvetgateway.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个服务的版本实例快照（不可变）
+ *
+ * 在服务实例列表变化时按 version 元数据预先分组，
+ * 请求时根据目标版本直接读取结果，降级策略的结果同样按目标版本缓存
+ * 是否复用快照只比较原始实例列表的引用（O(1)），不逐个比较实例内容：
+ * 带缓存的原始提供者在实例变化前一直返回同一个列表，实例变化时才返回新列表
+ *
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+final class VersionInstanceSnapshot {
+
+    /**
+     * 版本元数据键
+     */
+    private static final String VERSION_METADATA_KEY = "version";
+
+    /**
+     * 构建快照时的原始实例列表（引用相同时直接复用快照）
+     */
+    private final List<ServiceInstance> source;
+
+    /**
+     * 构建快照时的降级配置
+     */
+    private final FallbackSettings settings;
+
+    /**
+     * 构建时间（毫秒时间戳）
+     */
+    private final long builtAt;
+
+    /**
+     * 所有实例
+     */
+    private final List<ServiceInstance> allInstances;
+
+    /**
+     * 有版本的实例
+     */
+    private final List<ServiceInstance> versionedInstances;
+
+    /**
+     * 无版本的实例
+     */
+    private final List<ServiceInstance> noVersionInstances;
+
+    /**
+     * 版本 -> 实例列表
+     */
+    private final Map<String, List<ServiceInstance>> instancesByVersion;
+
+    /**
+     * 目标版本 -> 最终实例列表（含降级结果）
+     */
+    private final Map<String, List<ServiceInstance>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param serviceId 服务ID（仅用于日志）
+     * @param source 原始实例列表
+     * @param settings 降级配置
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    VersionInstanceSnapshot(String serviceId, List<ServiceInstance> source, FallbackSettings settings) {
+        this.source = source;
+        this.settings = settings;
+        this.builtAt = System.currentTimeMillis();
+
+        List<ServiceInstance> instances = source != null ? source : List.of();
+        List<ServiceInstance> versioned = new ArrayList<>();
+        List<ServiceInstance> noVersion = new ArrayList<>();
+        Map<String, List<ServiceInstance>> byVersion = new HashMap<>();
+        for (ServiceInstance instance : instances) {
+            Map<String, String> metadata = instance.getMetadata();
+            String instanceVersion = metadata != null ? metadata.get(VERSION_METADATA_KEY) : null;
+            if (instanceVersion == null || instanceVersion.isEmpty()) {
+                noVersion.add(instance);
+            } else {
+                versioned.add(instance);
+                byVersion.computeIfAbsent(instanceVersion, key -> new ArrayList<>()).add(instance);
+            }
+        }
+        byVersion.replaceAll((version, list) -> Collections.unmodifiableList(list));
+
+        this.allInstances = Collections.unmodifiableList(new ArrayList<>(instances));
+        this.versionedInstances = Collections.unmodifiableList(versioned);
+        this.noVersionInstances = Collections.unmodifiableList(noVersion);
+        this.instancesByVersion = byVersion;
+
+        log.debug("服务 {} 实例快照已更新 - 总数: {}, 有版本: {}, 无版本: {}, 版本: {}",
+                serviceId, allInstances.size(), versionedInstances.size(), noVersionInstances.size(), byVersion.keySet());
+    }
+
+    /**
+     * 判断快照是否由指定实例列表和降级配置构建
+     *
+     * 只比较列表引用：带缓存的原始提供者在实例变化前返回同一个列表，引用不同即视为实例已变化
+     *
+     * @param instances 实例列表
+     * @param currentSettings 当前降级配置
+     * @return 是否可复用
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    boolean isBuiltFrom(List<ServiceInstance> instances, FallbackSettings currentSettings) {
+        return source == instances && settings.equals(currentSettings);
+    }
+
+    /**
+     * 判断快照的降级配置是否与当前配置一致
+     *
+     * @param currentSettings 当前降级配置
+     * @return 是否一致
+     */
+    boolean hasSettings(FallbackSettings currentSettings) {
+        return settings.equals(currentSettings);
+    }
+
+    long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 获取目标版本对应的实例列表
+     *
+     * @param targetVersion 目标版本，为 null 时返回所有实例
+     * @return 实例列表（不可修改）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    List<ServiceInstance> resolve(String targetVersion) {
+        if (targetVersion == null) {
+            return allInstances;
+        }
+        return resolved.computeIfAbsent(targetVersion, this::doResolve);
+    }
+
+    /**
+     * 计算目标版本对应的实例列表
+     *
+     * @param targetVersion 目标版本
+     * @return 实例列表
+     */
+    private List<ServiceInstance> doResolve(String targetVersion) {
+        List<ServiceInstance> matched = instancesByVersion.get(targetVersion);
+        if (matched != null && !matched.isEmpty()) {
+            // 目标版本即默认版本时，无版本实例一并参与
+            if (settings.allowNoVersion && targetVersion.equals(settings.defaultVersion) && !noVersionInstances.isEmpty()) {
+                List<ServiceInstance> merged = new ArrayList<>(matched.size() + noVersionInstances.size());
+                merged.addAll(matched);
+                merged.addAll(noVersionInstances);
+                matched = Collections.unmodifiableList(merged);
+            }
+            log.info("版本过滤完成 - 目标版本: {}, 匹配实例数: {}/{} (有版本: {}, 无版本: {})",
+                    targetVersion, matched.size(), allInstances.size(),
+                    versionedInstances.size(), noVersionInstances.size());
+            return matched;
+        }
+        return resolveFallback(targetVersion);
+    }
+
+    /**
+     * 无匹配版本时按降级策略计算实例列表
+     *
+     * @param targetVersion 目标版本
+     * @return 降级后的实例列表
+     */
+    private List<ServiceInstance> resolveFallback(String targetVersion) {
+        switch (settings.fallbackStrategy) {
+            case "default-version":
+                if (settings.defaultVersion != null) {
+                    List<ServiceInstance> defaultVersionInstances = instancesByVersion.get(settings.defaultVersion);
+                    if (defaultVersionInstances != null && !defaultVersionInstances.isEmpty()) {
+                        log.warn("未找到版本 {} 的服务实例，降级到默认版本 {}，实例数: {}",
+                                targetVersion, settings.defaultVersion, defaultVersionInstances.size());
+                        return defaultVersionInstances;
+                    }
+                }
+                log.warn("默认版本 {} 也没有实例，执行 fail 策略", settings.defaultVersion);
+                return List.of();
+
+            case "fail":
+                log.error("未找到版本 {} 的服务实例，且降级策略为 fail，返回空列表", targetVersion);
+                return List.of();
+
+            case "all":
+            default:
+                if (settings.allowNoVersion) {
+                    log.warn("未找到版本 {} 的服务实例，返回所有实例作为降级处理（包括 {} 个无版本实例）",
+                            targetVersion, noVersionInstances.size());
+                    return allInstances;
+                }
+                log.warn("未找到版本 {} 的服务实例，且不允许无版本实例，返回所有有版本实例", targetVersion);
+                return versionedInstances.isEmpty() ? allInstances : versionedInstances;
+        }
+    }
+
+    /**
+     * 降级配置（来自 gateway.gray-release.load-balancer）
+     *
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    static final class FallbackSettings {
+
+        /**
+         * 无版本实例的默认版本
+         */
+        private final String defaultVersion;
+
+        /**
+         * 是否允许无版本实例参与负载均衡
+         */
+        private final boolean allowNoVersion;
+
+        /**
+         * 无匹配版本时的降级策略
+         */
+        private final String fallbackStrategy;
+
+        FallbackSettings(String defaultVersion, boolean allowNoVersion, String fallbackStrategy) {
+            this.defaultVersion = defaultVersion;
+            this.allowNoVersion = allowNoVersion;
+            this.fallbackStrategy = fallbackStrategy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FallbackSettings)) {
+                return false;
+            }
+            FallbackSettings that = (FallbackSettings) o;
+            return allowNoVersion == that.allowNoVersion
+                    && Objects.equals(defaultVersion, that.defaultVersion)
+                    && Objects.equals(fallbackStrategy, that.fallbackStrategy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(defaultVersion, allowNoVersion, fallbackStrategy);
+        }
+    }
+}
@@ -13,12 +13,13 @@ import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 版本负载均衡器
@@ -32,6 +33,11 @@ import java.util.stream.Collectors;
  * 3. 从服务实例列表中筛选出匹配版本的服务实例
  * 4. 如果没有匹配的实例，返回所有实例（降级处理）
  * 
+ * 每个服务独立维护版本实例快照（版本 -> 实例列表），实例列表变化时重建，
+ * 请求时只做一次 Map 读取，不再逐请求遍历和过滤实例；
+ * 快照按原始实例列表的引用复用，原始提供者应启用缓存（spring.cloud.loadbalancer.cache），
+ * 否则每次返回新列表都会重建快照
+ * 
  * 注意：请求头 X-Target-Version 仅在网关内部使用，不会传递给下游服务
  * 
  * @author daidasheng
@@ -63,109 +69,228 @@ public class VersionLoadBalancer {
      * 使用装饰器模式，为每个服务创建版本感知的 ServiceInstanceListSupplier
      * 
      * @param clientFactory LoadBalancer 客户端工厂
+     * @param environment 环境（在负载均衡子上下文中创建时包含该上下文的服务名）
      * @return 服务实例列表提供者配置
      * @author daidasheng
      * @date 2026-01-07
      */
     @Bean
     @Primary
-    public ServiceInstanceListSupplier versionAwareServiceInstanceListSupplier(LoadBalancerClientFactory clientFactory) {
-        return new VersionAwareServiceInstanceListSupplier(clientFactory, gatewayConfig, discoveryClient);
+    public ServiceInstanceListSupplier versionAwareServiceInstanceListSupplier(LoadBalancerClientFactory clientFactory,
+                                                                               Environment environment) {
+        return new VersionAwareServiceInstanceListSupplier(clientFactory, gatewayConfig, discoveryClient,
+                environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME));
     }
     
     /**
      * 版本感知的服务实例列表提供者
      * 
-     * 使用装饰器模式，包装原始的 ServiceInstanceListSupplier
+     * 按服务ID维护独立的注册项（原始提供者 + 版本实例快照），不同服务之间互不影响；
+     * 原始提供者返回的实例列表变化时重建快照，请求时按目标版本直接读取快照；
+     * 不带请求的 get() 和 getServiceId() 委托给所绑定服务的原始提供者
      */
     private static class VersionAwareServiceInstanceListSupplier implements ServiceInstanceListSupplier {
         
+        /**
+         * DiscoveryClient 直连模式下快照的刷新间隔（毫秒）
+         */
+        private static final long DISCOVERY_REFRESH_INTERVAL_MS = 5000L;
+        
         private final LoadBalancerClientFactory clientFactory;
         private final GatewayConfig gatewayConfig;
         private final DiscoveryClient discoveryClient;
-        private ServiceInstanceListSupplier delegate;
-        private String serviceId;
+        
+        /**
+         * 所在负载均衡子上下文的服务ID，在主上下文中创建时为 null
+         */
+        private final String boundServiceId;
+        
+        /**
+         * 服务ID -> 服务注册项
+         */
+        private final Map<String, ServiceEntry> registry = new ConcurrentHashMap<>();
         
         public VersionAwareServiceInstanceListSupplier(LoadBalancerClientFactory clientFactory, 
                                                        GatewayConfig gatewayConfig,
-                                                       DiscoveryClient discoveryClient) {
+                                                       DiscoveryClient discoveryClient,
+                                                       String boundServiceId) {
             this.clientFactory = clientFactory;
             this.gatewayConfig = gatewayConfig;
             this.discoveryClient = discoveryClient;
+            this.boundServiceId = boundServiceId;
         }
         
         @Override
         public String getServiceId() {
-            return serviceId;
+            if (boundServiceId == null) {
+                return null;
+            }
+            ServiceEntry entry = registry.computeIfAbsent(boundServiceId, this::createEntry);
+            return entry.delegate != null ? entry.delegate.getServiceId() : boundServiceId;
         }
         
         @Override
         public Flux<List<ServiceInstance>> get() {
-            // Supplier 接口的方法，Gateway 中通常不使用
-            if (delegate != null) {
-                return delegate.get();
+            if (boundServiceId == null) {
+                log.warn("版本感知提供者未绑定服务，且调用方未提供请求上下文，无法确定服务");
+                return Flux.just(List.of());
+            }
+            ServiceEntry entry = registry.computeIfAbsent(boundServiceId, this::createEntry);
+            if (entry.delegate == null) {
+                return Flux.defer(() -> Flux.just(getInstancesFromDiscoveryClient(boundServiceId)));
             }
-            return Flux.just(List.of());
+            return entry.delegate.get();
         }
         
         @Override
         public Flux<List<ServiceInstance>> get(Request request) {
-            // 从请求中获取服务ID
+            // 从请求中获取服务ID，获取不到时使用所绑定的服务
             String requestServiceId = getServiceIdFromRequest(request);
+            if (requestServiceId == null) {
+                requestServiceId = boundServiceId;
+            }
             if (requestServiceId == null) {
                 log.warn("无法从请求中获取服务ID");
                 return Flux.just(List.of());
             }
             
-            this.serviceId = requestServiceId;
+            ServiceEntry entry = registry.computeIfAbsent(requestServiceId, this::createEntry);
+            String targetVersion = getTargetVersion(request);
+            VersionInstanceSnapshot.FallbackSettings settings = currentSettings();
             
-            // 延迟初始化 delegate（避免无限递归）
-            if (delegate == null) {
-                // 获取原始的服务实例列表提供者
-                ObjectProvider<ServiceInstanceListSupplier> provider = clientFactory.getLazyProvider(requestServiceId, ServiceInstanceListSupplier.class);
-                
-                if (provider == null) {
-                    log.warn("无法获取服务实例列表提供者，服务ID: {}，使用 DiscoveryClient 直接获取", requestServiceId);
-                    return getInstancesFromDiscoveryClient(requestServiceId, request);
-                }
-                
-                ServiceInstanceListSupplier candidate = provider.getIfAvailable();
-                
-                // 关键修复：检查是否是自身实例，避免无限递归
-                if (candidate == null || candidate instanceof VersionAwareServiceInstanceListSupplier) {
-                    log.debug("检测到循环依赖，使用 DiscoveryClient 直接获取服务实例，服务ID: {}", requestServiceId);
-                    return getInstancesFromDiscoveryClient(requestServiceId, request);
+            if (entry.delegate == null) {
+                return Flux.just(entry.discoverySnapshot(settings).resolve(targetVersion));
+            }
+            return entry.delegate.get(request)
+                    .map(instances -> entry.snapshot(instances, settings).resolve(targetVersion));
+        }
+        
+        /**
+         * 创建服务注册项，解析该服务的原始实例列表提供者
+         * 
+         * @param serviceId 服务ID
+         * @return 服务注册项
+         * @author daidasheng
+         * @date 2026-10-16
+         */
+        private ServiceEntry createEntry(String serviceId) {
+            // 获取原始的服务实例列表提供者
+            ObjectProvider<ServiceInstanceListSupplier> provider = clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+            if (provider == null) {
+                log.warn("无法获取服务实例列表提供者，服务ID: {}，使用 DiscoveryClient 直接获取", serviceId);
+                return new ServiceEntry(serviceId, null);
+            }
+            
+            ServiceInstanceListSupplier candidate = provider.getIfAvailable();
+            
+            // 关键修复：检查是否是自身实例，避免无限递归
+            if (candidate == null || candidate instanceof VersionAwareServiceInstanceListSupplier) {
+                log.debug("检测到循环依赖，使用 DiscoveryClient 直接获取服务实例，服务ID: {}", serviceId);
+                return new ServiceEntry(serviceId, null);
+            }
+            return new ServiceEntry(serviceId, candidate);
+        }
+        
+        /**
+         * 读取当前负载均衡降级配置
+         * 
+         * @return 降级配置
+         * @author daidasheng
+         * @date 2026-10-16
+         */
+        private VersionInstanceSnapshot.FallbackSettings currentSettings() {
+            GatewayConfig.LoadBalancerConfig lbConfig = gatewayConfig.getGrayRelease() != null ? gatewayConfig.getGrayRelease().getLoadBalancer() : null;
+            
+            String defaultVersion = lbConfig != null ? lbConfig.getDefaultVersion() : null;
+            boolean allowNoVersion = lbConfig == null || lbConfig.getAllowNoVersion() == null || lbConfig.getAllowNoVersion();
+            String fallbackStrategy = lbConfig != null && lbConfig.getFallbackStrategy() != null ? lbConfig.getFallbackStrategy() : "all";
+            return new VersionInstanceSnapshot.FallbackSettings(defaultVersion, allowNoVersion, fallbackStrategy);
+        }
+        
+        /**
+         * 单个服务的注册项
+         * 
+         * @author daidasheng
+         * @date 2026-10-16
+         */
+        private final class ServiceEntry {
+            
+            /**
+             * 服务ID
+             */
+            private final String serviceId;
+            
+            /**
+             * 原始实例列表提供者，为 null 时直接使用 DiscoveryClient
+             */
+            private final ServiceInstanceListSupplier delegate;
+            
+            /**
+             * 当前版本实例快照
+             */
+            private final AtomicReference<VersionInstanceSnapshot> snapshot = new AtomicReference<>();
+            
+            private ServiceEntry(String serviceId, ServiceInstanceListSupplier delegate) {
+                this.serviceId = serviceId;
+                this.delegate = delegate;
+            }
+            
+            /**
+             * 获取与实例列表对应的快照，列表或配置变化时重建
+             * 
+             * @param instances 原始提供者返回的实例列表
+             * @param settings 当前降级配置
+             * @return 快照
+             */
+            private VersionInstanceSnapshot snapshot(List<ServiceInstance> instances, VersionInstanceSnapshot.FallbackSettings settings) {
+                VersionInstanceSnapshot current = snapshot.get();
+                if (current != null && current.isBuiltFrom(instances, settings)) {
+                    return current;
                 }
-                
-                this.delegate = candidate;
+                VersionInstanceSnapshot rebuilt = new VersionInstanceSnapshot(serviceId, instances, settings);
+                snapshot.compareAndSet(current, rebuilt);
+                return rebuilt;
             }
             
-            // 获取服务实例列表并过滤
-            return delegate.get(request).map(instances -> filterInstancesByVersion(instances, request));
+            /**
+             * 获取 DiscoveryClient 直连模式下的快照，超过刷新间隔或配置变化时重新拉取
+             * 
+             * @param settings 当前降级配置
+             * @return 快照
+             */
+            private VersionInstanceSnapshot discoverySnapshot(VersionInstanceSnapshot.FallbackSettings settings) {
+                VersionInstanceSnapshot current = snapshot.get();
+                if (current != null && current.hasSettings(settings)
+                        && System.currentTimeMillis() - current.getBuiltAt() < DISCOVERY_REFRESH_INTERVAL_MS) {
+                    return current;
+                }
+                VersionInstanceSnapshot rebuilt = new VersionInstanceSnapshot(serviceId, getInstancesFromDiscoveryClient(serviceId), settings);
+                snapshot.compareAndSet(current, rebuilt);
+                return rebuilt;
+            }
         }
         
         /**
          * 直接从 DiscoveryClient 获取服务实例（避免无限递归）
          * 
          * @param serviceId 服务ID
-         * @param request 请求对象
          * @return 服务实例列表
          * @author daidasheng
          * @date 2026-01-08
          */
-        private Flux<List<ServiceInstance>> getInstancesFromDiscoveryClient(String serviceId, Request request) {
+        private List<ServiceInstance> getInstancesFromDiscoveryClient(String serviceId) {
             try {
                 List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
                 if (instances == null || instances.isEmpty()) {
                     log.warn("从 DiscoveryClient 获取的服务实例列表为空，服务ID: {}", serviceId);
-                    return Flux.just(List.of());
+                    return List.of();
                 }
                 
                 log.debug("从 DiscoveryClient 获取到 {} 个服务实例，服务ID: {}", instances.size(), serviceId);
-                return Flux.just(filterInstancesByVersion(instances, request));
+                return instances;
             } catch (Exception e) {
                 log.error("从 DiscoveryClient 获取服务实例失败，服务ID: {}", serviceId, e);
-                return Flux.just(List.of());
+                return List.of();
             }
         }
         
@@ -234,143 +359,6 @@ public class VersionLoadBalancer {
             return null;
         }
         
-        /**
-         * 根据版本过滤服务实例
-         * 
-         * @param instances 所有服务实例
-         * @param request 请求对象
-         * @return 过滤后的服务实例列表
-         * @author daidasheng
-         * @date 2026-01-07
-         */
-        private List<ServiceInstance> filterInstancesByVersion(List<ServiceInstance> instances, Request request) {
-            
-            // 从请求上下文中获取目标版本
-            String targetVersion = getTargetVersion(request);
-            
-            if (targetVersion == null) {
-                // 如果没有目标版本，返回所有实例（降级处理）
-                log.debug("未指定目标版本，返回所有服务实例，数量: {}", instances.size());
-                return instances;
-            }
-            
-            // 获取负载均衡配置
-            GatewayConfig.LoadBalancerConfig lbConfig = gatewayConfig.getGrayRelease() != null ? gatewayConfig.getGrayRelease().getLoadBalancer() : null;
-            
-            String defaultVersion = lbConfig != null ? lbConfig.getDefaultVersion() : null;
-            boolean allowNoVersion = lbConfig == null || lbConfig.getAllowNoVersion() == null || lbConfig.getAllowNoVersion();
-            String fallbackStrategy = lbConfig != null && lbConfig.getFallbackStrategy() != null ? lbConfig.getFallbackStrategy() : "all";
-            
-            // 分离有版本和无版本的实例
-            List<ServiceInstance> versionedInstances = new ArrayList<>();
-            List<ServiceInstance> noVersionInstances = new ArrayList<>();
-            
-            for (ServiceInstance instance : instances) {
-                Map<String, String> metadata = instance.getMetadata();
-                String instanceVersion = metadata != null ? metadata.get("version") : null;
-                
-                if (instanceVersion == null || instanceVersion.isEmpty()) {
-                    noVersionInstances.add(instance);
-                } else {
-                    versionedInstances.add(instance);
-                }
-            }
-            
-            // 根据版本过滤实例
-            List<ServiceInstance> matchedInstances = versionedInstances.stream()
-                    .filter(instance -> {
-                        Map<String, String> metadata = instance.getMetadata();
-                        String instanceVersion = metadata.get("version");
-                        boolean matched = targetVersion.equals(instanceVersion);
-                        
-                        if (matched) {
-                            log.debug("服务实例匹配 - 实例: {}:{}, 版本: {}", instance.getHost(), instance.getPort(), instanceVersion);
-                        }
-                        
-                        return matched;
-                    })
-                    .collect(Collectors.toList());
-            
-            // 处理无版本实例
-            if (!matchedInstances.isEmpty()) {
-                // 如果找到匹配的实例，检查是否需要包含无版本实例
-                if (allowNoVersion && defaultVersion != null && defaultVersion.equals(targetVersion)) {
-                    log.debug("目标版本 {} 匹配默认版本，包含 {} 个无版本实例", targetVersion, noVersionInstances.size());
-                    matchedInstances.addAll(noVersionInstances);
-                }
-                
-                log.info("版本过滤完成 - 目标版本: {}, 匹配实例数: {}/{} (有版本: {}, 无版本: {})", 
-                        targetVersion, matchedInstances.size(), instances.size(), 
-                        versionedInstances.size(), noVersionInstances.size());
-                
-                return matchedInstances;
-            }
-            
-            // 如果没有匹配的实例，根据降级策略处理
-            return handleFallback(targetVersion, instances, versionedInstances, noVersionInstances, defaultVersion, allowNoVersion, fallbackStrategy);
-        }
-        
-        /**
-         * 处理降级策略
-         * 
-         * @param targetVersion 目标版本
-         * @param allInstances 所有实例
-         * @param versionedInstances 有版本的实例
-         * @param noVersionInstances 无版本的实例
-         * @param defaultVersion 默认版本
-         * @param allowNoVersion 是否允许无版本实例
-         * @param fallbackStrategy 降级策略
-         * @return 降级后的实例列表
-         * @author daidasheng
-         * @date 2026-01-07
-         */
-        private List<ServiceInstance> handleFallback(String targetVersion, 
-                                                     List<ServiceInstance> allInstances,
-                                                     List<ServiceInstance> versionedInstances,
-                                                     List<ServiceInstance> noVersionInstances,
-                                                     String defaultVersion,
-                                                     boolean allowNoVersion,
-                                                     String fallbackStrategy) {
-            
-            switch (fallbackStrategy) {
-                case "default-version":
-                    // 返回默认版本的实例
-                    if (defaultVersion != null) {
-                        List<ServiceInstance> defaultVersionInstances = versionedInstances.stream()
-                                .filter(instance -> {
-                                    String instanceVersion = instance.getMetadata().get("version");
-                                    return defaultVersion.equals(instanceVersion);
-                                })
-                                .collect(Collectors.toList());
-                        
-                        if (!defaultVersionInstances.isEmpty()) {
-                            log.warn("未找到版本 {} 的服务实例，降级到默认版本 {}，实例数: {}", 
-                                    targetVersion, defaultVersion, defaultVersionInstances.size());
-                            return defaultVersionInstances;
-                        }
-                    }
-                    // 如果默认版本也没有实例，继续执行 fail 策略
-                    log.warn("默认版本 {} 也没有实例，执行 fail 策略", defaultVersion);
-                    return new ArrayList<>();
-                    
-                case "fail":
-                    // 返回空列表（可能导致请求失败）
-                    log.error("未找到版本 {} 的服务实例，且降级策略为 fail，返回空列表", targetVersion);
-                    return new ArrayList<>();
-                    
-                case "all":
-                default:
-                    // 返回所有实例（包括无版本实例）
-                    if (allowNoVersion) {
-                        log.warn("未找到版本 {} 的服务实例，返回所有实例作为降级处理（包括 {} 个无版本实例）", targetVersion, noVersionInstances.size());
-                        return allInstances;
-                    } else {
-                        log.warn("未找到版本 {} 的服务实例，且不允许无版本实例，返回所有有版本实例", targetVersion);
-                        return versionedInstances.isEmpty() ? allInstances : versionedInstances;
-                    }
-            }
-        }
-        
         /**
          * 从请求上下文中获取目标版本
          * 
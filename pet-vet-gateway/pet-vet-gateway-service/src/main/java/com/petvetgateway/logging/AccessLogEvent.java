@@ -0,0 +1,154 @@
+package com.petvetgateway.logging;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 访问日志事件
+ * 
+ * 在事件循环线程上只采集原始字段（不做字符串拼接），
+ * 由日志写入线程统一格式化输出
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class AccessLogEvent {
+    
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        /**
+         * 请求开始
+         */
+        REQUEST,
+        /**
+         * 响应结束
+         */
+        RESPONSE
+    }
+    
+    private final Type type;
+    private final String requestId;
+    private final String routeId;
+    private final long timestamp;
+    private final String method;
+    private final String path;
+    private final String query;
+    private final String clientIp;
+    private final HttpHeaders headers;
+    private final Integer statusCode;
+    private final long durationMillis;
+    private final BodyCaptureWindow requestBody;
+    private final BodyCaptureWindow responseBody;
+    
+    private AccessLogEvent(Type type, String requestId, String routeId, String method, String path, String query,
+                           String clientIp, HttpHeaders headers, Integer statusCode, long durationMillis,
+                           BodyCaptureWindow requestBody, BodyCaptureWindow responseBody) {
+        this.type = type;
+        this.requestId = requestId;
+        this.routeId = routeId;
+        this.timestamp = System.currentTimeMillis();
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.clientIp = clientIp;
+        this.headers = headers;
+        this.statusCode = statusCode;
+        this.durationMillis = durationMillis;
+        this.requestBody = requestBody;
+        this.responseBody = responseBody;
+    }
+    
+    /**
+     * 创建请求开始事件
+     * 
+     * @param requestId 请求ID
+     * @param routeId 路由ID
+     * @param method 请求方法
+     * @param path 请求路径
+     * @param query 查询参数
+     * @param clientIp 客户端IP
+     * @param headers 请求头（只读）
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static AccessLogEvent request(String requestId, String routeId, String method, String path,
+                                         String query, String clientIp, HttpHeaders headers) {
+        return new AccessLogEvent(Type.REQUEST, requestId, routeId, method, path, query, clientIp, headers,
+                null, 0L, null, null);
+    }
+    
+    /**
+     * 创建响应结束事件
+     * 
+     * @param requestId 请求ID
+     * @param routeId 路由ID
+     * @param statusCode 响应状态码
+     * @param headers 响应头
+     * @param durationMillis 耗时（毫秒）
+     * @param requestBody 请求体捕获窗口（未记录时为null）
+     * @param responseBody 响应体捕获窗口（未记录时为null）
+     * @return 事件
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static AccessLogEvent response(String requestId, String routeId, Integer statusCode, HttpHeaders headers,
+                                          long durationMillis, BodyCaptureWindow requestBody,
+                                          BodyCaptureWindow responseBody) {
+        return new AccessLogEvent(Type.RESPONSE, requestId, routeId, null, null, null, null, headers,
+                statusCode, durationMillis, requestBody, responseBody);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public String getRequestId() {
+        return requestId;
+    }
+    
+    public String getRouteId() {
+        return routeId;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public String getQuery() {
+        return query;
+    }
+    
+    public String getClientIp() {
+        return clientIp;
+    }
+    
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+    
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public BodyCaptureWindow getRequestBody() {
+        return requestBody;
+    }
+    
+    public BodyCaptureWindow getResponseBody() {
+        return responseBody;
+    }
+}
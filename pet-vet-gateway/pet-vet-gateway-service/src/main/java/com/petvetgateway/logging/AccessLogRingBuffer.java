@@ -0,0 +1,145 @@
+package com.petvetgateway.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 访问日志环形缓冲区（有界、无锁）
+ * 
+ * 多生产者（Netty 事件循环线程）/ 单消费者（日志写入线程）队列，
+ * 基于每个槽位的序号实现：生产者通过 CAS 抢占写入位置，消费者按序读取。
+ * 缓冲区已满时 {@link #offer(Object)} 立即返回 false 并计入丢弃数，绝不阻塞生产者
+ * 
+ * @param <E> 元素类型
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class AccessLogRingBuffer<E> {
+    
+    /**
+     * 容量掩码（容量为2的幂）
+     */
+    private final int mask;
+    
+    /**
+     * 元素槽位
+     */
+    private final Object[] slots;
+    
+    /**
+     * 槽位序号：等于写入位置时可写，等于写入位置+1时可读
+     */
+    private final AtomicLongArray sequences;
+    
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    
+    /**
+     * 下一个读取位置（仅消费者线程修改）
+     */
+    private final AtomicLong dequeuePosition = new AtomicLong();
+    
+    /**
+     * 因缓冲区已满而丢弃的元素数
+     */
+    private final LongAdder dropped = new LongAdder();
+    
+    /**
+     * 构造函数
+     * 
+     * @param requestedCapacity 期望容量，向上取整为2的幂
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public AccessLogRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("环形缓冲区容量至少为2: " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * 写入元素（可多线程并发调用）
+     * 
+     * @param element 元素
+     * @return 是否写入成功，缓冲区已满返回 false
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = enqueuePosition.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            }
+            // difference > 0：其他生产者已抢占该位置，重读写入位置
+        }
+    }
+    
+    /**
+     * 读取元素（只允许单个消费者线程调用）
+     * 
+     * @return 元素，缓冲区为空返回 null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = dequeuePosition.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        dequeuePosition.lazySet(position + 1);
+        sequences.lazySet(index, position + mask + 1);
+        return element;
+    }
+    
+    /**
+     * 当前缓冲的元素数（近似值）
+     * 
+     * @return 元素数
+     */
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, mask + 1L));
+    }
+    
+    /**
+     * 缓冲区容量
+     * 
+     * @return 容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+    
+    /**
+     * 累计丢弃数
+     * 
+     * @return 丢弃数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
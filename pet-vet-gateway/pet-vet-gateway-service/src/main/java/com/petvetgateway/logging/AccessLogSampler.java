@@ -0,0 +1,69 @@
+package com.petvetgateway.logging;
+
+import com.petvetgateway.config.GatewayConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 访问日志采样器
+ * 
+ * 按路由配置采样率（gateway.log.route-sample-rates），未配置的路由使用默认采样率（gateway.log.sample-rate）。
+ * 采样率取值 0.0-1.0：1.0 表示全部记录，0.0 表示不记录
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Component
+@RequiredArgsConstructor
+public class AccessLogSampler {
+    
+    /**
+     * 网关配置
+     */
+    private final GatewayConfig gatewayConfig;
+    
+    /**
+     * 判断本次请求是否需要记录日志
+     * 
+     * @param routeId 路由ID（可为null）
+     * @return 是否采样
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean shouldSample(String routeId) {
+        double rate = getSampleRate(routeId);
+        if (rate >= 1.0) {
+            return true;
+        }
+        if (rate <= 0.0) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+    
+    /**
+     * 获取路由的采样率
+     * 
+     * @param routeId 路由ID（可为null）
+     * @return 采样率
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public double getSampleRate(String routeId) {
+        GatewayConfig.LogConfig logConfig = gatewayConfig.getLog();
+        if (logConfig == null) {
+            return 1.0;
+        }
+        Map<String, Double> routeRates = logConfig.getRouteSampleRates();
+        if (routeId != null && routeRates != null) {
+            Double routeRate = routeRates.get(routeId);
+            if (routeRate != null) {
+                return routeRate;
+            }
+        }
+        return logConfig.getSampleRate() != null ? logConfig.getSampleRate() : 1.0;
+    }
+}
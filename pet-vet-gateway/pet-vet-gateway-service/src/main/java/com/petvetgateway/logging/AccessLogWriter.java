@@ -0,0 +1,226 @@
+package com.petvetgateway.logging;
+
+import com.petvetgateway.config.GatewayConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志异步写入器
+ * 
+ * 事件循环线程通过 {@link #publish(AccessLogEvent)} 把事件放入无锁环形缓冲区后立即返回，
+ * 由单独的守护线程取出事件、格式化并输出日志。缓冲区已满时丢弃事件并计数，不阻塞请求处理
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessLogWriter {
+    
+    /**
+     * 默认环形缓冲区容量
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    
+    /**
+     * 缓冲区为空时写入线程的休眠时间（纳秒）
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    /**
+     * 丢弃数告警的最小间隔（毫秒）
+     */
+    private static final long DROP_REPORT_INTERVAL_MS = 10000L;
+    
+    /**
+     * 需要脱敏的请求头
+     */
+    private static final List<String> MASKED_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE, "X-Auth-Token");
+    
+    /**
+     * 日期时间格式化器
+     */
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+    
+    /**
+     * 网关配置
+     */
+    private final GatewayConfig gatewayConfig;
+    
+    /**
+     * 事件缓冲区
+     */
+    private AccessLogRingBuffer<AccessLogEvent> ringBuffer;
+    
+    /**
+     * 写入线程
+     */
+    private Thread writerThread;
+    
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running;
+    
+    /**
+     * 启动写入线程
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @PostConstruct
+    public void start() {
+        GatewayConfig.LogConfig logConfig = gatewayConfig.getLog();
+        int bufferSize = logConfig != null && logConfig.getBufferSize() != null ? logConfig.getBufferSize() : DEFAULT_BUFFER_SIZE;
+        this.ringBuffer = new AccessLogRingBuffer<>(bufferSize);
+        this.running = true;
+        this.writerThread = new Thread(this::drainLoop, "gateway-access-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        log.info("访问日志写入线程已启动，缓冲区容量: {}", ringBuffer.capacity());
+    }
+    
+    /**
+     * 停止写入线程，输出剩余事件
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * 发布日志事件（非阻塞）
+     * 
+     * @param event 日志事件
+     * @return 是否进入缓冲区，缓冲区已满时返回 false（事件被丢弃）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean publish(AccessLogEvent event) {
+        return ringBuffer.offer(event);
+    }
+    
+    /**
+     * 累计丢弃的事件数
+     * 
+     * @return 丢弃数
+     */
+    public long getDroppedCount() {
+        return ringBuffer.getDroppedCount();
+    }
+    
+    /**
+     * 当前积压的事件数
+     * 
+     * @return 积压数
+     */
+    public int getBacklog() {
+        return ringBuffer.size();
+    }
+    
+    /**
+     * 写入线程主循环
+     */
+    private void drainLoop() {
+        long reportedDrops = 0L;
+        long lastReportTime = 0L;
+        while (running || ringBuffer.size() > 0) {
+            AccessLogEvent event = ringBuffer.poll();
+            if (event == null) {
+                long drops = ringBuffer.getDroppedCount();
+                long now = System.currentTimeMillis();
+                if (drops > reportedDrops && now - lastReportTime >= DROP_REPORT_INTERVAL_MS) {
+                    log.warn("访问日志缓冲区已满，累计丢弃 {} 条事件（新增 {} 条）", drops, drops - reportedDrops);
+                    reportedDrops = drops;
+                    lastReportTime = now;
+                }
+                if (running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+            try {
+                write(event);
+            } catch (Exception e) {
+                log.warn("访问日志输出失败，请求ID: {}", event.getRequestId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 格式化并输出单个事件
+     * 
+     * @param event 日志事件
+     */
+    private void write(AccessLogEvent event) {
+        String time = DATE_TIME_FORMATTER.format(Instant.ofEpochMilli(event.getTimestamp()));
+        if (event.getType() == AccessLogEvent.Type.REQUEST) {
+            log.info("[请求开始] 请求ID: {}, 时间: {}, 路由: {}, 方法: {}, 路径: {}, 查询参数: {}, 客户端IP: {}, 请求头: {}",
+                    event.getRequestId(), time, event.getRouteId(), event.getMethod(), event.getPath(),
+                    event.getQuery(), event.getClientIp(), formatHeaders(event.getHeaders()));
+            return;
+        }
+        log.info("[响应结束] 请求ID: {}, 时间: {}, 路由: {}, 状态码: {}, 耗时: {}ms, 响应头: {}",
+                event.getRequestId(), time, event.getRouteId(), event.getStatusCode(),
+                event.getDurationMillis(), formatHeaders(event.getHeaders()));
+        if (event.getRequestBody() != null && !event.getRequestBody().isEmpty()) {
+            log.info("请求ID: {}, 请求体: {}", event.getRequestId(), event.getRequestBody().decode());
+        }
+        if (event.getResponseBody() != null && !event.getResponseBody().isEmpty()) {
+            log.info("请求ID: {}, 响应体: {}", event.getRequestId(), event.getResponseBody().decode());
+        }
+    }
+    
+    /**
+     * 格式化请求/响应头，敏感头脱敏
+     * 
+     * @param headers 请求/响应头
+     * @return 格式化结果
+     */
+    static String formatHeaders(HttpHeaders headers) {
+        if (headers == null || headers.isEmpty()) {
+            return "{}";
+        }
+        StringBuilder builder = new StringBuilder(headers.size() * 32);
+        builder.append('{');
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            builder.append(entry.getKey()).append('=');
+            if (MASKED_HEADERS.stream().anyMatch(name -> name.equalsIgnoreCase(entry.getKey()))) {
+                builder.append("******");
+            } else {
+                builder.append(entry.getValue());
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
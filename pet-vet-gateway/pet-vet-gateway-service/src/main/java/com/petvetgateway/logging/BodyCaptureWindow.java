@@ -0,0 +1,104 @@
+package com.petvetgateway.logging;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求/响应体捕获窗口
+ * 
+ * 在数据流经时只复制前 N 个字节，原 DataBuffer 的读写位置不变、原样向下游传递；
+ * 不再把整个请求/响应体 join 成一个大数组。超过窗口的部分只计数不复制
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class BodyCaptureWindow {
+    
+    /**
+     * 捕获的字节（按需扩容，上限为窗口大小）
+     */
+    private byte[] bytes = new byte[0];
+    
+    /**
+     * 已捕获的字节数
+     */
+    private int captured;
+    
+    /**
+     * 流经的总字节数
+     */
+    private long totalBytes;
+    
+    /**
+     * 窗口大小（字节）
+     */
+    private final int limit;
+    
+    /**
+     * 构造函数
+     * 
+     * @param limit 窗口大小（字节）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public BodyCaptureWindow(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+    
+    /**
+     * 记录流经的数据缓冲区
+     * 
+     * @param buffer 数据缓冲区（不修改其读位置）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public void capture(DataBuffer buffer) {
+        int readable = buffer.readableByteCount();
+        totalBytes += readable;
+        int copy = Math.min(readable, limit - captured);
+        if (copy <= 0) {
+            return;
+        }
+        if (bytes.length < captured + copy) {
+            byte[] grown = new byte[Math.min(limit, Math.max(captured + copy, bytes.length * 2))];
+            System.arraycopy(bytes, 0, grown, 0, captured);
+            bytes = grown;
+        }
+        int readPosition = buffer.readPosition();
+        for (int i = 0; i < copy; i++) {
+            bytes[captured + i] = buffer.getByte(readPosition + i);
+        }
+        captured += copy;
+    }
+    
+    /**
+     * 是否有数据流经
+     * 
+     * @return 是否有数据
+     */
+    public boolean isEmpty() {
+        return totalBytes == 0;
+    }
+    
+    /**
+     * 流经的总字节数
+     * 
+     * @return 总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * 解码捕获的内容（在日志写入线程调用）
+     * 
+     * @return 捕获内容，超出窗口时追加截断标记
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public String decode() {
+        String text = new String(bytes, 0, captured, StandardCharsets.UTF_8);
+        return totalBytes > captured ? text + "...(已截断，共" + totalBytes + "字节)" : text;
+    }
+}
@@ -0,0 +1,146 @@
+package com.petvetgateway.ratelimit;
+
+import com.petvetgateway.config.GatewayConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群分布式限流器
+ * 
+ * 按路由（集群全局）和用户两个维度构造令牌桶，交给 {@link RateLimitStore} 判定：先扣减用户级令牌桶，
+ * 通过后再扣减路由级令牌桶，被用户级限流拒绝的请求不消耗路由级令牌（路由级拒绝时用户级令牌不退回）。
+ * 两个令牌桶使用不同的 hash tag（路由ID、限流主体），用户级令牌桶在 Redis Cluster 中分散到各个 slot。
+ * 所有网关实例共享 Redis 中的令牌桶，限流阈值不随实例数变化。
+ * 
+ * 失败放行：Redis 调用出错或超时时直接放行，并在冷却期内跳过分布式限流，
+ * 此时仅由 Sentinel 的单节点 GatewayFlowRule 兜底
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DistributedRateLimiter {
+    
+    /**
+     * 网关配置（支持动态刷新）
+     */
+    private final GatewayConfig gatewayConfig;
+    
+    /**
+     * 令牌桶存储
+     */
+    private final RateLimitStore rateLimitStore;
+    
+    /**
+     * 默认 Key 前缀
+     */
+    private static final String DEFAULT_KEY_PREFIX = "pet-vet:gateway:rate-limit";
+    
+    /**
+     * Redis 不可用时的冷却截止时间（毫秒时间戳），之前的请求直接放行
+     */
+    private volatile long bypassUntilMillis;
+    
+    /**
+     * 对一次请求做分布式限流判定
+     * 
+     * @param routeId 路由ID
+     * @param subject 限流主体（用户ID，未登录时为客户端IP），为空则只做路由级限流
+     * @return 判定结果，永远不会以错误信号结束
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public Mono<RateLimitDecision> acquire(String routeId, String subject) {
+        GatewayConfig.RateLimitConfig config = gatewayConfig.getRateLimit();
+        if (config == null || !Boolean.TRUE.equals(config.getEnabled()) || routeId == null) {
+            return Mono.just(RateLimitDecision.PASS_THROUGH);
+        }
+        Map<String, GatewayConfig.RouteRateLimit> routes = config.getRoutes();
+        GatewayConfig.RouteRateLimit rule = routes != null ? routes.get(routeId) : null;
+        if (rule == null) {
+            return Mono.just(RateLimitDecision.PASS_THROUGH);
+        }
+        if (System.currentTimeMillis() < bypassUntilMillis) {
+            return Mono.just(RateLimitDecision.PASS_THROUGH);
+        }
+        
+        String keyPrefix = StringUtils.hasText(config.getKeyPrefix()) ? config.getKeyPrefix() : DEFAULT_KEY_PREFIX;
+        TokenBucket userBucket = userBucket(keyPrefix, routeId, subject, rule);
+        TokenBucket routeBucket = routeBucket(keyPrefix, routeId, rule);
+        if (userBucket == null && routeBucket == null) {
+            return Mono.just(RateLimitDecision.PASS_THROUGH);
+        }
+        Mono<RateLimitDecision> decision;
+        if (userBucket == null) {
+            decision = rateLimitStore.tryAcquire(List.of(routeBucket), 1);
+        } else if (routeBucket == null) {
+            decision = rateLimitStore.tryAcquire(List.of(userBucket), 1);
+        } else {
+            decision = rateLimitStore.tryAcquire(List.of(userBucket), 1)
+                    .flatMap(user -> !user.isAllowed()
+                            ? Mono.just(user)
+                            : rateLimitStore.tryAcquire(List.of(routeBucket), 1)
+                                    .map(route -> new RateLimitDecision(route.isAllowed(),
+                                            Math.min(user.getRemaining(), route.getRemaining()))));
+        }
+        
+        long timeoutMillis = config.getTimeoutMillis() != null ? config.getTimeoutMillis() : 50L;
+        long cooldownMillis = config.getFailOpenCooldownMillis() != null ? config.getFailOpenCooldownMillis() : 5000L;
+        return decision
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .defaultIfEmpty(RateLimitDecision.PASS_THROUGH)
+                .onErrorResume(e -> {
+                    bypassUntilMillis = System.currentTimeMillis() + cooldownMillis;
+                    log.warn("分布式限流不可用，{}ms 内降级为 Sentinel 单节点限流: {}", cooldownMillis, e.toString());
+                    return Mono.just(RateLimitDecision.PASS_THROUGH);
+                });
+    }
+    
+    /**
+     * 构造路由级令牌桶，Key 为 {prefix}:{routeId}:route
+     * 
+     * @param keyPrefix Key前缀
+     * @param routeId 路由ID
+     * @param rule 路由限流规则
+     * @return 令牌桶，未配置路由级限流时为 null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private TokenBucket routeBucket(String keyPrefix, String routeId, GatewayConfig.RouteRateLimit rule) {
+        Integer routeRate = rule.getReplenishRate();
+        if (routeRate == null || routeRate <= 0) {
+            return null;
+        }
+        int capacity = rule.getBurstCapacity() != null && rule.getBurstCapacity() > 0 ? rule.getBurstCapacity() : routeRate;
+        return new TokenBucket(keyPrefix + ":{" + routeId + "}:route", routeRate, capacity);
+    }
+    
+    /**
+     * 构造用户级令牌桶，Key 为 {prefix}:{routeId}:user:{subject}，以限流主体作为 hash tag
+     * 
+     * @param keyPrefix Key前缀
+     * @param routeId 路由ID
+     * @param subject 限流主体
+     * @param rule 路由限流规则
+     * @return 令牌桶，没有限流主体或未配置用户级限流时为 null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private TokenBucket userBucket(String keyPrefix, String routeId, String subject, GatewayConfig.RouteRateLimit rule) {
+        Integer userRate = rule.getUserReplenishRate();
+        if (!StringUtils.hasText(subject) || userRate == null || userRate <= 0) {
+            return null;
+        }
+        int capacity = rule.getUserBurstCapacity() != null && rule.getUserBurstCapacity() > 0 ? rule.getUserBurstCapacity() : userRate;
+        return new TokenBucket(keyPrefix + ":" + routeId + ":user:{" + subject + "}", userRate, capacity);
+    }
+}
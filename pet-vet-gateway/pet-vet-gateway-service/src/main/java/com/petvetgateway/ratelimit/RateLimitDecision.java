@@ -0,0 +1,51 @@
+package com.petvetgateway.ratelimit;
+
+/**
+ * 限流判定结果（不可变）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class RateLimitDecision {
+    
+    /**
+     * 未启用分布式限流或Redis不可用时的放行结果
+     */
+    public static final RateLimitDecision PASS_THROUGH = new RateLimitDecision(true, -1L);
+    
+    /**
+     * 是否放行
+     */
+    private final boolean allowed;
+    
+    /**
+     * 剩余令牌数（多个令牌桶取最小值），-1 表示未经过分布式限流
+     */
+    private final long remaining;
+    
+    /**
+     * 构造函数
+     * 
+     * @param allowed 是否放行
+     * @param remaining 剩余令牌数
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public RateLimitDecision(boolean allowed, long remaining) {
+        this.allowed = allowed;
+        this.remaining = remaining;
+    }
+    
+    public boolean isAllowed() {
+        return allowed;
+    }
+    
+    public long getRemaining() {
+        return remaining;
+    }
+    
+    @Override
+    public String toString() {
+        return "RateLimitDecision{allowed=" + allowed + ", remaining=" + remaining + "}";
+    }
+}
@@ -0,0 +1,28 @@
+package com.petvetgateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 令牌桶存储
+ * 
+ * 一次调用内原子地检查并扣减多个令牌桶：只有所有令牌桶都足够时才扣减，
+ * 否则一个都不扣减。生产环境由 {@link RedisRateLimitStore} 通过 Lua 脚本实现
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public interface RateLimitStore {
+    
+    /**
+     * 尝试从所有令牌桶中各获取 permits 个令牌
+     * 
+     * @param buckets 令牌桶列表（不能为空）
+     * @param permits 申请的令牌数
+     * @return 判定结果；存储不可用时以错误信号结束
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    Mono<RateLimitDecision> tryAcquire(List<TokenBucket> buckets, int permits);
+}
@@ -0,0 +1,71 @@
+package com.petvetgateway.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于 Redis Lua 脚本的令牌桶存储
+ * 
+ * 脚本见 resources/scripts/gateway-token-bucket.lua，在 Redis 内原子执行，
+ * 所有网关实例共享同一组令牌桶，从而保证集群全局限流
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisRateLimitStore implements RateLimitStore {
+    
+    /**
+     * 令牌桶脚本（脚本内容只加载一次，执行时优先使用 EVALSHA）
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/gateway-token-bucket.lua"), List.class);
+    
+    /**
+     * 响应式 Redis 模板
+     */
+    private final ReactiveStringRedisTemplate redisTemplate;
+    
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(List<TokenBucket> buckets, int permits) {
+        List<String> keys = new ArrayList<>(buckets.size());
+        List<String> args = new ArrayList<>(buckets.size() * 2 + 1);
+        for (TokenBucket bucket : buckets) {
+            keys.add(bucket.getKey());
+            args.add(Integer.toString(bucket.getReplenishRate()));
+            args.add(Integer.toString(bucket.getBurstCapacity()));
+        }
+        args.add(Integer.toString(permits));
+        
+        return redisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, args)
+                .next()
+                .map(RedisRateLimitStore::toDecision);
+    }
+    
+    /**
+     * 将脚本返回的 {allowed, remaining} 转换为判定结果
+     * 
+     * @param result 脚本返回值
+     * @return 判定结果
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @SuppressWarnings("rawtypes")
+    private static RateLimitDecision toDecision(List result) {
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("令牌桶脚本返回值异常: " + result);
+        }
+        long allowed = ((Number) result.get(0)).longValue();
+        long remaining = ((Number) result.get(1)).longValue();
+        return new RateLimitDecision(allowed == 1L, remaining);
+    }
+}
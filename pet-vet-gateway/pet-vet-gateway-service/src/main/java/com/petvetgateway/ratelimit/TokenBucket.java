@@ -0,0 +1,62 @@
+package com.petvetgateway.ratelimit;
+
+/**
+ * 令牌桶定义（不可变）
+ * 
+ * 描述一个需要在 Redis 中检查的令牌桶：Key、补充速率和容量
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class TokenBucket {
+    
+    /**
+     * 令牌桶 Redis Key
+     */
+    private final String key;
+    
+    /**
+     * 令牌补充速率（每秒）
+     */
+    private final int replenishRate;
+    
+    /**
+     * 令牌桶容量
+     */
+    private final int burstCapacity;
+    
+    /**
+     * 构造函数
+     * 
+     * @param key 令牌桶 Redis Key
+     * @param replenishRate 令牌补充速率（每秒），必须大于0
+     * @param burstCapacity 令牌桶容量，必须大于0
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public TokenBucket(String key, int replenishRate, int burstCapacity) {
+        if (replenishRate <= 0 || burstCapacity <= 0) {
+            throw new IllegalArgumentException("令牌桶速率和容量必须大于0: " + key);
+        }
+        this.key = key;
+        this.replenishRate = replenishRate;
+        this.burstCapacity = burstCapacity;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public int getReplenishRate() {
+        return replenishRate;
+    }
+    
+    public int getBurstCapacity() {
+        return burstCapacity;
+    }
+    
+    @Override
+    public String toString() {
+        return "TokenBucket{key=" + key + ", rate=" + replenishRate + ", capacity=" + burstCapacity + "}";
+    }
+}
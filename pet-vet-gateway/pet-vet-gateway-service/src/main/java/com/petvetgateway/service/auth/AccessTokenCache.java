@@ -0,0 +1,130 @@
+package com.petvetgateway.service.auth;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 第三方平台 Access Token 缓存
+ * 
+ * - 在过期前 refreshAheadMillis 内触发刷新，而不是等到过期后才刷新
+ * - 同一个Key同时只有一个刷新请求（single-flight），并发请求共享同一次刷新结果
+ * - 刷新失败时，如果旧Token尚未过期则继续使用旧Token
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public class AccessTokenCache {
+    
+    /**
+     * 已缓存的Token
+     */
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+    
+    /**
+     * 正在进行中的刷新请求
+     */
+    private final Map<String, Mono<Token>> inflight = new ConcurrentHashMap<>();
+    
+    /**
+     * 时钟（毫秒）
+     */
+    private final LongSupplier clock;
+    
+    /**
+     * 构造函数（使用系统时钟）
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public AccessTokenCache() {
+        this(System::currentTimeMillis);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param clock 时钟（毫秒）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public AccessTokenCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * 获取Token，必要时通过 loader 刷新
+     * 
+     * @param key 缓存Key（如 corpId + secret 摘要）
+     * @param refreshAheadMillis 提前刷新时间（毫秒）
+     * @param loader Token加载器，返回新的Token
+     * @return Token值；加载失败且没有可用旧Token时以错误信号结束
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public Mono<String> get(String key, long refreshAheadMillis, Supplier<Mono<Token>> loader) {
+        return Mono.defer(() -> {
+            Token cached = tokens.get(key);
+            if (cached != null && clock.getAsLong() < cached.getExpiresAtMillis() - refreshAheadMillis) {
+                return Mono.just(cached.getValue());
+            }
+            
+            Mono<Token> refresh = inflight.computeIfAbsent(key, k -> Mono.defer(loader)
+                    .doOnNext(token -> tokens.put(k, token))
+                    .doFinally(signal -> inflight.remove(k))
+                    .cache());
+            
+            return refresh
+                    .map(Token::getValue)
+                    .onErrorResume(e -> cached != null && clock.getAsLong() < cached.getExpiresAtMillis()
+                            ? Mono.just(cached.getValue())
+                            : Mono.error(e));
+        });
+    }
+    
+    /**
+     * 使缓存的Token失效（如第三方返回Token无效时）
+     * 
+     * @param key 缓存Key
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public void invalidate(String key) {
+        tokens.remove(key);
+    }
+    
+    /**
+     * 带过期时间的Token（不可变）
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static final class Token {
+        
+        /**
+         * Token值
+         */
+        private final String value;
+        
+        /**
+         * 过期时间（毫秒时间戳）
+         */
+        private final long expiresAtMillis;
+        
+        public Token(String value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,9 +29,9 @@ public class AlipayAuthService {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * Web客户端（用于调用支付宝API）
+     * 第三方授权 Web 客户端（共享连接池，非阻塞）
      */
-    private final WebClient webClient = WebClient.builder().build();
+    private final WebClient oauthWebClient;
     
     /**
      * 获取授权URL
@@ -64,29 +65,25 @@ public class AlipayAuthService {
      * 通过授权码获取用户信息
      * 
      * @param code 授权码
-     * @return 用户信息
+     * @return 用户信息；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
-    public Map<String, Object> getUserInfoByCode(String code) {
-        try {
-            GatewayConfig.AlipayConfig config = gatewayConfig.getAuth().getAlipay();
-            
-            // 支付宝需要先通过code获取access_token，然后再获取用户信息
-            // 这里简化处理，实际应该调用支付宝的API
-            // 注意：支付宝的API调用需要签名，这里只是示例
-            
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("openId", code); // 临时使用code作为openId
-            userInfo.put("authType", "alipay");
-            
-            log.warn("支付宝授权功能需要实现完整的API调用和签名逻辑");
-            
-            return userInfo;
-        } catch (Exception e) {
-            log.error("支付宝授权失败", e);
-            return null;
+    public Mono<Map<String, Object>> getUserInfoByCode(String code) {
+        GatewayConfig.AlipayConfig config = gatewayConfig.getAuth().getAlipay();
+        if (config == null) {
+            log.error("支付宝配置为空");
+            return Mono.empty();
         }
+        
+        // 支付宝需要先通过code获取access_token，然后再获取用户信息
+        // 这里简化处理，实际应该通过 oauthWebClient 调用支付宝的API（需要签名），并返回同样的非阻塞 Mono
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("openId", code); // 临时使用code作为openId
+        userInfo.put("authType", "alipay");
+        
+        log.warn("支付宝授权功能需要实现完整的API调用和签名逻辑");
+        
+        return Mono.just(userInfo);
     }
 }
-
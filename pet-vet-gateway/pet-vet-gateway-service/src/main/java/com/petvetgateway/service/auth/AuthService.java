@@ -1,5 +1,7 @@
 package com.petvetgateway.service.auth;
 
+import reactor.core.publisher.Mono;
+
 import java.util.Map;
 
 /**
@@ -28,10 +30,10 @@ public interface AuthService {
      * 
      * @param authType 授权类型
      * @param code 授权码
-     * @return 包含Token和用户信息的Map
+     * @return 包含Token和用户信息的Map；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
-    Map<String, Object> authByCode(String authType, String code);
+    Mono<Map<String, Object>> authByCode(String authType, String code);
 }
 
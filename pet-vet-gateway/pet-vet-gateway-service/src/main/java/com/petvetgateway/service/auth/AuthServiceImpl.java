@@ -5,6 +5,7 @@ import com.petvetgateway.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -95,62 +96,61 @@ public class AuthServiceImpl implements AuthService {
      * 
      * @param authType 授权类型
      * @param code 授权码
-     * @return 包含Token和用户信息的Map
+     * @return 包含Token和用户信息的Map；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
     @Override
-    public Map<String, Object> authByCode(String authType, String code) {
-        Map<String, Object> userInfo = null;
+    public Mono<Map<String, Object>> authByCode(String authType, String code) {
+        Mono<Map<String, Object>> userInfoMono = Mono.empty();
         
         switch (authType.toLowerCase()) {
             case "wework":
                 if (gatewayConfig.getAuth().getWework().getEnabled()) {
-                    userInfo = weWorkAuthService.getUserInfoByCode(code);
+                    userInfoMono = weWorkAuthService.getUserInfoByCode(code);
                 }
                 break;
             case "wechat":
                 if (gatewayConfig.getAuth().getWechat().getEnabled()) {
-                    userInfo = weChatAuthService.getUserInfoByCode(code);
+                    userInfoMono = weChatAuthService.getUserInfoByCode(code);
                 }
                 break;
             case "alipay":
                 if (gatewayConfig.getAuth().getAlipay().getEnabled()) {
-                    userInfo = alipayAuthService.getUserInfoByCode(code);
+                    userInfoMono = alipayAuthService.getUserInfoByCode(code);
                 }
                 break;
             case "qq":
                 if (gatewayConfig.getAuth().getQq().getEnabled()) {
-                    userInfo = qqAuthService.getUserInfoByCode(code);
+                    userInfoMono = qqAuthService.getUserInfoByCode(code);
                 }
                 break;
             default:
                 log.warn("不支持的授权类型: {}", authType);
         }
         
-        if (userInfo == null || userInfo.isEmpty()) {
-            return null;
-        }
-        
-        // 生成JWT Token
-        Long userId = (Long) userInfo.get("userId");
-        String openId = (String) userInfo.get("openId");
-        
-        // 这里应该调用用户服务获取或创建用户，然后生成Token
-        // 为了简化，这里直接使用openId作为userId
-        if (userId == null) {
-            userId = System.currentTimeMillis(); // 临时方案，实际应该从用户服务获取
-        }
-        
-        // 生成Token（这里需要实际的JWT生成逻辑，暂时使用占位符）
-        // 实际实现中应该调用JWT生成服务或使用JwtUtil扩展方法
-        String token = generateToken(userId, openId, userInfo);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("token", token);
-        result.put("userInfo", userInfo);
-        
-        return result;
+        return userInfoMono
+                .filter(userInfo -> !userInfo.isEmpty())
+                .map(userInfo -> {
+                    // 生成JWT Token
+                    Long userId = userInfo.get("userId") instanceof Long ? (Long) userInfo.get("userId") : null;
+                    String openId = (String) userInfo.get("openId");
+                    
+                    // 这里应该调用用户服务获取或创建用户，然后生成Token
+                    // 为了简化，这里直接使用openId作为userId
+                    if (userId == null) {
+                        userId = System.currentTimeMillis(); // 临时方案，实际应该从用户服务获取
+                    }
+                    
+                    // 生成Token（这里需要实际的JWT生成逻辑，暂时使用占位符）
+                    // 实际实现中应该调用JWT生成服务或使用JwtUtil扩展方法
+                    String token = generateToken(userId, openId, userInfo);
+                    
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("token", token);
+                    result.put("userInfo", userInfo);
+                    return result;
+                });
     }
     
     /**
@@ -5,7 +5,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,9 +30,9 @@ public class QqAuthService {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * Web客户端（用于调用QQ API）
+     * 第三方授权 Web 客户端（共享连接池，非阻塞）
      */
-    private final WebClient webClient = WebClient.builder().build();
+    private final WebClient oauthWebClient;
     
     /**
      * 获取授权URL
@@ -64,102 +66,87 @@ public class QqAuthService {
      * 通过授权码获取用户信息
      * 
      * @param code 授权码
-     * @return 用户信息
+     * @return 用户信息；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
-    public Map<String, Object> getUserInfoByCode(String code) {
-        try {
-            GatewayConfig.QqConfig config = gatewayConfig.getAuth().getQq();
-            
-            // 1. 通过code获取Access Token
-            GatewayConfig.QqUrlConfig urlConfig = config.getUrls();
-            if (urlConfig == null || urlConfig.getAccessTokenUrlTemplate() == null) {
-                log.error("QQ Access Token URL模板为空");
-                return null;
-            }
-            
-            String tokenUrl = String.format(urlConfig.getAccessTokenUrlTemplate(), 
-                    config.getAppId(), 
-                    config.getAppKey(), 
-                    code,
-                    java.net.URLEncoder.encode(config.getRedirectUri(), java.nio.charset.StandardCharsets.UTF_8));
-            
-            String tokenResponse = webClient.get()
-                    .uri(tokenUrl)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            if (tokenResponse == null || tokenResponse.contains("error")) {
-                log.error("获取QQ Access Token失败: {}", tokenResponse);
-                return null;
-            }
-            
-            // 解析Access Token
-            String accessToken = parseAccessToken(tokenResponse);
-            if (accessToken == null) {
-                log.error("解析QQ Access Token失败");
-                return null;
-            }
-            
-            // 2. 通过Access Token获取OpenId
-            String openIdUrlTemplate = urlConfig.getOpenIdUrlTemplate();
-            if (openIdUrlTemplate == null || openIdUrlTemplate.isEmpty()) {
-                log.error("QQ OpenId URL模板为空");
-                return null;
-            }
-            
-            String openIdUrl = String.format(openIdUrlTemplate, accessToken);
-            String openIdResponse = webClient.get()
-                    .uri(openIdUrl)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            if (openIdResponse == null || openIdResponse.contains("error")) {
-                log.error("获取QQ OpenId失败: {}", openIdResponse);
-                return null;
-            }
-            
-            String openId = parseOpenId(openIdResponse);
-            if (openId == null) {
-                log.error("解析QQ OpenId失败");
-                return null;
-            }
-            
-            // 3. 通过Access Token和OpenId获取用户信息
-            String userInfoUrlTemplate = urlConfig.getUserInfoUrlTemplate();
-            if (userInfoUrlTemplate == null || userInfoUrlTemplate.isEmpty()) {
-                log.error("QQ用户信息URL模板为空");
-                return null;
-            }
-            
-            String userInfoUrl = String.format(userInfoUrlTemplate, accessToken, config.getAppId(), openId);
-            Map<String, Object> userInfoResponse = webClient.get()
-                    .uri(userInfoUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            
-            if (userInfoResponse == null || (Integer) userInfoResponse.get("ret") != 0) {
-                Integer ret = (Integer) userInfoResponse.get("ret");
-                log.error("获取QQ用户信息失败，错误码: {}", ret);
-                return null;
-            }
-            
-            // 4. 构建用户信息
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("openId", openId);
-            userInfo.put("nickname", userInfoResponse.get("nickname"));
-            userInfo.put("figureurl", userInfoResponse.get("figureurl"));
-            userInfo.put("authType", "qq");
-            
-            return userInfo;
-        } catch (Exception e) {
-            log.error("QQ授权失败", e);
-            return null;
+    public Mono<Map<String, Object>> getUserInfoByCode(String code) {
+        GatewayConfig.QqConfig config = gatewayConfig.getAuth().getQq();
+        GatewayConfig.QqUrlConfig urlConfig = config != null ? config.getUrls() : null;
+        if (urlConfig == null || urlConfig.getAccessTokenUrlTemplate() == null) {
+            log.error("QQ Access Token URL模板为空");
+            return Mono.empty();
+        }
+        
+        String openIdUrlTemplate = urlConfig.getOpenIdUrlTemplate();
+        if (openIdUrlTemplate == null || openIdUrlTemplate.isEmpty()) {
+            log.error("QQ OpenId URL模板为空");
+            return Mono.empty();
+        }
+        
+        String userInfoUrlTemplate = urlConfig.getUserInfoUrlTemplate();
+        if (userInfoUrlTemplate == null || userInfoUrlTemplate.isEmpty()) {
+            log.error("QQ用户信息URL模板为空");
+            return Mono.empty();
         }
+        
+        String tokenUrl = String.format(urlConfig.getAccessTokenUrlTemplate(), 
+                config.getAppId(), 
+                config.getAppKey(), 
+                code,
+                java.net.URLEncoder.encode(config.getRedirectUri() != null ? config.getRedirectUri() : "", java.nio.charset.StandardCharsets.UTF_8));
+        
+        // 1. 通过code获取Access Token
+        return oauthWebClient.get()
+                .uri(tokenUrl)
+                .retrieve()
+                .bodyToMono(String.class)
+                .flatMap(tokenResponse -> {
+                    String accessToken = tokenResponse.contains("error") ? null : parseAccessToken(tokenResponse);
+                    if (accessToken == null) {
+                        log.error("获取QQ Access Token失败: {}", tokenResponse);
+                        return Mono.<Map<String, Object>>empty();
+                    }
+                    
+                    // 2. 通过Access Token获取OpenId
+                    return oauthWebClient.get()
+                            .uri(String.format(openIdUrlTemplate, accessToken))
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .flatMap(openIdResponse -> {
+                                String openId = openIdResponse.contains("error") ? null : parseOpenId(openIdResponse);
+                                if (openId == null) {
+                                    log.error("获取QQ OpenId失败: {}", openIdResponse);
+                                    return Mono.<Map<String, Object>>empty();
+                                }
+                                
+                                // 3. 通过Access Token和OpenId获取用户信息
+                                return oauthWebClient.get()
+                                        .uri(String.format(userInfoUrlTemplate, accessToken, config.getAppId(), openId))
+                                        .retrieve()
+                                        .bodyToMono(Map.class)
+                                        .flatMap(userInfoResponse -> {
+                                            Object ret = userInfoResponse.get("ret");
+                                            if (!Integer.valueOf(0).equals(ret)) {
+                                                log.error("获取QQ用户信息失败，错误码: {}", ret);
+                                                return Mono.<Map<String, Object>>empty();
+                                            }
+                                            
+                                            // 4. 构建用户信息
+                                            Map<String, Object> userInfo = new HashMap<>();
+                                            userInfo.put("openId", openId);
+                                            userInfo.put("nickname", userInfoResponse.get("nickname"));
+                                            userInfo.put("figureurl", userInfoResponse.get("figureurl"));
+                                            userInfo.put("authType", "qq");
+                                            return Mono.just(userInfo);
+                                        });
+                            });
+                })
+                .timeout(Duration.ofMillis(config.getTimeoutMillis() != null ? config.getTimeoutMillis() : 5000L))
+                .onErrorResume(e -> {
+                    log.error("QQ授权失败", e);
+                    return Mono.empty();
+                });
     }
     
     /**
@@ -5,7 +5,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,9 +30,9 @@ public class WeChatAuthService {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * Web客户端（用于调用微信API）
+     * 第三方授权 Web 客户端（共享连接池，非阻塞）
      */
-    private final WebClient webClient = WebClient.builder().build();
+    private final WebClient oauthWebClient;
     
     /**
      * 获取授权URL
@@ -64,76 +66,70 @@ public class WeChatAuthService {
      * 通过授权码获取用户信息
      * 
      * @param code 授权码
-     * @return 用户信息
+     * @return 用户信息；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
-    public Map<String, Object> getUserInfoByCode(String code) {
-        try {
-            // 1. 通过code获取Access Token
-            GatewayConfig.WeChatConfig config = gatewayConfig.getAuth().getWechat();
-            if (config == null || config.getUrls() == null) {
-                log.error("微信配置或URL配置为空");
-                return null;
-            }
-            
-            String accessTokenUrlTemplate = config.getUrls().getAccessTokenUrlTemplate();
-            if (accessTokenUrlTemplate == null || accessTokenUrlTemplate.isEmpty()) {
-                log.error("微信Access Token URL模板为空");
-                return null;
-            }
-            
-            String tokenUrl = String.format(accessTokenUrlTemplate, config.getAppId(), config.getAppSecret(), code);
-            
-            Map<String, Object> tokenResponse = webClient.get()
-                    .uri(tokenUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            
-            if (tokenResponse == null || tokenResponse.containsKey("errcode")) {
-                Integer errcode = (Integer) tokenResponse.get("errcode");
-                log.error("获取微信Access Token失败，错误码: {}", errcode);
-                return null;
-            }
-            
-            String accessToken = (String) tokenResponse.get("access_token");
-            String openId = (String) tokenResponse.get("openid");
-            
-            // 2. 通过Access Token和OpenId获取用户信息
-            String userInfoUrlTemplate = config.getUrls().getUserInfoUrlTemplate();
-            if (userInfoUrlTemplate == null || userInfoUrlTemplate.isEmpty()) {
-                log.error("微信用户信息URL模板为空");
-                return null;
-            }
-            
-            String userInfoUrl = String.format(userInfoUrlTemplate, accessToken, openId);
-            
-            Map<String, Object> userInfoResponse = webClient.get()
-                    .uri(userInfoUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            
-            if (userInfoResponse == null || userInfoResponse.containsKey("errcode")) {
-                Integer errcode = (Integer) userInfoResponse.get("errcode");
-                log.error("获取微信用户信息失败，错误码: {}", errcode);
-                return null;
-            }
-            
-            // 3. 构建用户信息
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("openId", openId);
-            userInfo.put("nickname", userInfoResponse.get("nickname"));
-            userInfo.put("headimgurl", userInfoResponse.get("headimgurl"));
-            userInfo.put("unionid", userInfoResponse.get("unionid"));
-            userInfo.put("authType", "wechat");
-            
-            return userInfo;
-        } catch (Exception e) {
-            log.error("微信授权失败", e);
-            return null;
+    public Mono<Map<String, Object>> getUserInfoByCode(String code) {
+        GatewayConfig.WeChatConfig config = gatewayConfig.getAuth().getWechat();
+        if (config == null || config.getUrls() == null) {
+            log.error("微信配置或URL配置为空");
+            return Mono.empty();
+        }
+        
+        String accessTokenUrlTemplate = config.getUrls().getAccessTokenUrlTemplate();
+        if (accessTokenUrlTemplate == null || accessTokenUrlTemplate.isEmpty()) {
+            log.error("微信Access Token URL模板为空");
+            return Mono.empty();
         }
+        
+        String userInfoUrlTemplate = config.getUrls().getUserInfoUrlTemplate();
+        if (userInfoUrlTemplate == null || userInfoUrlTemplate.isEmpty()) {
+            log.error("微信用户信息URL模板为空");
+            return Mono.empty();
+        }
+        
+        String tokenUrl = String.format(accessTokenUrlTemplate, config.getAppId(), config.getAppSecret(), code);
+        
+        // 1. 通过code获取Access Token（用户级Token，每次授权不同，不缓存）
+        return oauthWebClient.get()
+                .uri(tokenUrl)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .flatMap(tokenResponse -> {
+                    if (tokenResponse.containsKey("errcode")) {
+                        log.error("获取微信Access Token失败，错误码: {}", tokenResponse.get("errcode"));
+                        return Mono.<Map<String, Object>>empty();
+                    }
+                    
+                    String accessToken = (String) tokenResponse.get("access_token");
+                    String openId = (String) tokenResponse.get("openid");
+                    
+                    // 2. 通过Access Token和OpenId获取用户信息
+                    return oauthWebClient.get()
+                            .uri(String.format(userInfoUrlTemplate, accessToken, openId))
+                            .retrieve()
+                            .bodyToMono(Map.class)
+                            .flatMap(userInfoResponse -> {
+                                if (userInfoResponse.containsKey("errcode")) {
+                                    log.error("获取微信用户信息失败，错误码: {}", userInfoResponse.get("errcode"));
+                                    return Mono.<Map<String, Object>>empty();
+                                }
+                                
+                                // 3. 构建用户信息
+                                Map<String, Object> userInfo = new HashMap<>();
+                                userInfo.put("openId", openId);
+                                userInfo.put("nickname", userInfoResponse.get("nickname"));
+                                userInfo.put("headimgurl", userInfoResponse.get("headimgurl"));
+                                userInfo.put("unionid", userInfoResponse.get("unionid"));
+                                userInfo.put("authType", "wechat");
+                                return Mono.just(userInfo);
+                            });
+                })
+                .timeout(Duration.ofMillis(config.getTimeoutMillis() != null ? config.getTimeoutMillis() : 5000L))
+                .onErrorResume(e -> {
+                    log.error("微信授权失败", e);
+                    return Mono.empty();
+                });
     }
 }
-
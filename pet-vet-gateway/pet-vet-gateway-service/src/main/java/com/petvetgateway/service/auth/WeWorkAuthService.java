@@ -7,13 +7,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 企业微信授权服务
  * 
- * 实现企业微信扫码授权登录功能
+ * 实现企业微信扫码授权登录功能，所有第三方调用均为非阻塞
  * 
  * @author daidasheng
  * @date 2024-12-27
@@ -29,9 +30,19 @@ public class WeWorkAuthService {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * Web客户端（用于调用企业微信API）
+     * 第三方授权 Web 客户端（共享连接池，非阻塞）
      */
-    private final WebClient webClient = WebClient.builder().build();
+    private final WebClient oauthWebClient;
+    
+    /**
+     * 企业Access Token缓存
+     */
+    private final AccessTokenCache accessTokenCache = new AccessTokenCache();
+    
+    /**
+     * 企业微信未返回 expires_in 时的默认有效期（秒）
+     */
+    private static final long DEFAULT_TOKEN_EXPIRES_IN_SECONDS = 7200L;
     
     /**
      * 获取授权URL
@@ -66,93 +77,82 @@ public class WeWorkAuthService {
      * 通过授权码获取用户信息
      * 
      * @param code 授权码
-     * @return 用户信息
+     * @return 用户信息；授权失败时为空
      * @author daidasheng
      * @date 2024-12-27
      */
-    public Map<String, Object> getUserInfoByCode(String code) {
-        try {
-            // 1. 获取Access Token
-            String accessToken = getAccessToken();
-            if (accessToken == null) {
-                log.error("获取企业微信Access Token失败");
-                return null;
-            }
-            
-            // 2. 通过code获取用户信息
-            GatewayConfig.WeWorkUrlConfig urlConfig = gatewayConfig.getAuth().getWework().getUrls();
-            if (urlConfig == null || urlConfig.getUserInfoUrlTemplate() == null) {
-                log.error("企业微信用户信息URL模板为空");
-                return null;
-            }
-            String userInfoUrl = String.format(urlConfig.getUserInfoUrlTemplate(), accessToken, code);
-            
-            Map<String, Object> response = webClient.get()
-                    .uri(userInfoUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            
-            if (response == null || response.containsKey("errcode")) {
-                Integer errcode = (Integer) response.get("errcode");
-                log.error("获取企业微信用户信息失败，错误码: {}", errcode);
-                return null;
-            }
-            
-            // 3. 构建用户信息
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("userId", response.get("UserId")); // 企业微信用户ID
-            userInfo.put("openId", response.get("OpenId")); // 企业微信OpenId
-            userInfo.put("deviceId", response.get("DeviceId")); // 设备ID
-            userInfo.put("authType", "wework");
-            
-            return userInfo;
-        } catch (Exception e) {
-            log.error("企业微信授权失败", e);
-            return null;
+    public Mono<Map<String, Object>> getUserInfoByCode(String code) {
+        GatewayConfig.WeWorkConfig config = gatewayConfig.getAuth().getWework();
+        GatewayConfig.WeWorkUrlConfig urlConfig = config != null ? config.getUrls() : null;
+        if (urlConfig == null || urlConfig.getUserInfoUrlTemplate() == null) {
+            log.error("企业微信用户信息URL模板为空");
+            return Mono.empty();
         }
+        
+        return getAccessToken(config)
+                // 1. 通过code获取用户信息
+                .flatMap(accessToken -> oauthWebClient.get()
+                        .uri(String.format(urlConfig.getUserInfoUrlTemplate(), accessToken, code))
+                        .retrieve()
+                        .bodyToMono(Map.class))
+                .flatMap(response -> {
+                    Object errcode = response.get("errcode");
+                    if (errcode != null && !Integer.valueOf(0).equals(errcode)) {
+                        log.error("获取企业微信用户信息失败，错误码: {}", errcode);
+                        return Mono.<Map<String, Object>>empty();
+                    }
+                    
+                    // 2. 构建用户信息
+                    Map<String, Object> userInfo = new HashMap<>();
+                    userInfo.put("userId", response.get("UserId")); // 企业微信用户ID
+                    userInfo.put("openId", response.get("OpenId")); // 企业微信OpenId
+                    userInfo.put("deviceId", response.get("DeviceId")); // 设备ID
+                    userInfo.put("authType", "wework");
+                    return Mono.just(userInfo);
+                })
+                .timeout(Duration.ofMillis(config.getTimeoutMillis() != null ? config.getTimeoutMillis() : 5000L))
+                .onErrorResume(e -> {
+                    log.error("企业微信授权失败", e);
+                    return Mono.empty();
+                });
     }
     
     /**
      * 获取Access Token
      * 
+     * 企业Access Token在应用内共享，有效期内从缓存读取，过期前自动刷新（并发请求只刷新一次）
+     * 
+     * @param config 企业微信配置
      * @return Access Token
      * @author daidasheng
      * @date 2024-12-27
      */
-    private String getAccessToken() {
-        GatewayConfig.WeWorkConfig config = gatewayConfig.getAuth().getWework();
-        if (config == null || config.getUrls() == null) {
-            log.error("企业微信配置或URL配置为空");
-            return null;
-        }
-        
+    private Mono<String> getAccessToken(GatewayConfig.WeWorkConfig config) {
         String accessTokenUrlTemplate = config.getUrls().getAccessTokenUrlTemplate();
         if (accessTokenUrlTemplate == null || accessTokenUrlTemplate.isEmpty()) {
             log.error("企业微信Access Token URL模板为空");
-            return null;
+            return Mono.empty();
         }
         
         String tokenUrl = String.format(accessTokenUrlTemplate, config.getCorpId(), config.getSecret());
+        long refreshAheadMillis = config.getTokenRefreshAheadMillis() != null ? config.getTokenRefreshAheadMillis() : 0L;
         
-        try {
-            Map<String, Object> response = webClient.get()
-                    .uri(tokenUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-            
-            if (response != null && response.containsKey("access_token")) {
-                return (String) response.get("access_token");
-            }
-            
-            Integer errcode = (Integer) response.get("errcode");
-            log.error("获取企业微信Access Token失败，错误码: {}", errcode);
-            return null;
-        } catch (Exception e) {
-            log.error("获取企业微信Access Token异常", e);
-            return null;
-        }
+        return accessTokenCache.get(config.getCorpId() + ":" + config.getAgentId(), refreshAheadMillis,
+                () -> oauthWebClient.get()
+                        .uri(tokenUrl)
+                        .retrieve()
+                        .bodyToMono(Map.class)
+                        .flatMap(response -> {
+                            Object accessToken = response.get("access_token");
+                            if (accessToken == null) {
+                                return Mono.<AccessTokenCache.Token>error(new IllegalStateException(
+                                        "获取企业微信Access Token失败，错误码: " + response.get("errcode")));
+                            }
+                            long expiresInSeconds = response.get("expires_in") instanceof Number
+                                    ? ((Number) response.get("expires_in")).longValue()
+                                    : DEFAULT_TOKEN_EXPIRES_IN_SECONDS;
+                            return Mono.just(new AccessTokenCache.Token((String) accessToken,
+                                    System.currentTimeMillis() + expiresInSeconds * 1000L));
+                        }));
     }
 }
-
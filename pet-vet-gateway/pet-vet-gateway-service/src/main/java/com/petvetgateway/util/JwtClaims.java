@@ -0,0 +1,85 @@
+package com.petvetgateway.util;
+
+import java.util.Date;
+
+/**
+ * 已验证的JWT声明（不可变）
+ *
+ * 由 {@link JwtUtil#verifyAndExtract(String)} 一次验签后生成，
+ * 网关鉴权所需的用户信息全部从该对象读取，避免重复解析Token
+ *
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class JwtClaims {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 微信openId
+     */
+    private final String openId;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private final long expirationMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param userId 用户ID
+     * @param openId 微信openId
+     * @param expirationMillis 过期时间（毫秒时间戳）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public JwtClaims(Long userId, String openId, long expirationMillis) {
+        this.userId = userId;
+        this.openId = openId;
+        this.expirationMillis = expirationMillis;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getOpenId() {
+        return openId;
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    /**
+     * 获取过期时间
+     *
+     * @return 过期时间
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public Date getExpiration() {
+        return new Date(expirationMillis);
+    }
+
+    /**
+     * 判断在指定时间点是否已过期
+     *
+     * @param nowMillis 当前时间（毫秒时间戳）
+     * @return 是否已过期
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean isExpired(long nowMillis) {
+        return expirationMillis <= nowMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtClaims{userId=" + userId + ", openId=" + openId + ", expirationMillis=" + expirationMillis + "}";
+    }
+}
@@ -1,16 +1,25 @@
 package com.petvetgateway.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT工具类
@@ -18,6 +27,9 @@ import java.util.Date;
  * 用于生成和验证JWT Token
  * 支持用户身份认证和授权
  * 
+ * 签名密钥和解析器在启动时构建一次并复用；
+ * 验签结果按Token摘要缓存，命中时无需再做HMAC计算
+ * 
  * @author daidasheng
  * @date 2024-12-27
  */
@@ -40,15 +52,113 @@ public class JwtUtil {
     private Long expiration;
     
     /**
-     * 生成SecretKey
+     * 已验证Claims缓存最大条目数
+     */
+    @Value("${gateway.jwt.claims-cache.max-size:10000}")
+    private Long claimsCacheMaxSize;
+    
+    /**
+     * 已验证Claims缓存最长存活时间（毫秒），实际存活时间不超过Token剩余有效期
+     */
+    @Value("${gateway.jwt.claims-cache.max-ttl:300000}")
+    private Long claimsCacheMaxTtl;
+    
+    /**
+     * 签名密钥（启动时构建一次）
+     */
+    private SecretKey signingKey;
+    
+    /**
+     * JWT解析器（线程安全，启动时构建一次）
+     */
+    private JwtParser jwtParser;
+    
+    /**
+     * 已验证Claims缓存，Key为Token的SHA-256摘要
+     */
+    private Cache<String, JwtClaims> claimsCache;
+    
+    /**
+     * 每个线程复用的SHA-256摘要实例
+     */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    });
+    
+    /**
+     * 初始化签名密钥、解析器和Claims缓存
      * 
-     * @return SecretKey对象
      * @author daidasheng
-     * @date 2024-12-27
+     * @date 2026-10-16
+     */
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry(TimeUnit.MILLISECONDS.toNanos(claimsCacheMaxTtl)))
+                .recordStats()
+                .build();
+        log.info("JWT工具初始化完成，Claims缓存容量: {}, 最长存活: {}ms", claimsCacheMaxSize, claimsCacheMaxTtl);
+    }
+    
+    /**
+     * 验证Token并提取Claims（单次验签）
+     * 
+     * 先按Token摘要查缓存，命中且未过期直接返回；
+     * 未命中时做一次验签解析，成功后写入缓存。验签失败的Token不缓存
+     * 
+     * @param token JWT Token
+     * @return 已验证的Claims，Token无效或已过期返回null
+     * @author daidasheng
+     * @date 2026-10-16
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtClaims verifyAndExtract(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String cacheKey = digest(token);
+        JwtClaims cached = claimsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            claimsCache.invalidate(cacheKey);
+            return null;
+        }
+        
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null || claims.getExpiration() == null) {
+            return null;
+        }
+        JwtClaims verified = new JwtClaims(
+                toLong(claims.get("userId")),
+                claims.get("openId", String.class),
+                claims.getExpiration().getTime());
+        if (verified.isExpired(now)) {
+            return null;
+        }
+        claimsCache.put(cacheKey, verified);
+        return verified;
+    }
+    
+    /**
+     * 获取Claims缓存统计信息
+     * 
+     * @return 缓存统计（命中率、加载次数、淘汰次数等）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public CacheStats getClaimsCacheStats() {
+        return claimsCache.stats();
     }
     
     /**
@@ -61,11 +171,7 @@ public class JwtUtil {
      */
     public Claims getClaimsFromToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             log.warn("JWT Token解析失败: {}", e.getMessage());
             return null;
@@ -81,16 +187,8 @@ public class JwtUtil {
      * @date 2024-12-27
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        if (claims != null) {
-            Object userId = claims.get("userId");
-            if (userId instanceof Integer) {
-                return ((Integer) userId).longValue();
-            } else if (userId instanceof Long) {
-                return (Long) userId;
-            }
-        }
-        return null;
+        JwtClaims claims = verifyAndExtract(token);
+        return claims != null ? claims.getUserId() : null;
     }
     
     /**
@@ -102,11 +200,8 @@ public class JwtUtil {
      * @date 2024-12-27
      */
     public String getOpenIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        if (claims != null) {
-            return claims.get("openId", String.class);
-        }
-        return null;
+        JwtClaims claims = verifyAndExtract(token);
+        return claims != null ? claims.getOpenId() : null;
     }
     
     /**
@@ -118,17 +213,7 @@ public class JwtUtil {
      * @date 2024-12-27
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaimsFromToken(token);
-            if (claims == null) {
-                return false;
-            }
-            // 检查是否过期
-            return !claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            log.warn("JWT Token验证失败: {}", e.getMessage());
-            return false;
-        }
+        return verifyAndExtract(token) != null;
     }
     
     /**
@@ -140,11 +225,75 @@ public class JwtUtil {
      * @date 2024-12-27
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        if (claims != null) {
-            return claims.getExpiration();
+        JwtClaims claims = verifyAndExtract(token);
+        return claims != null ? claims.getExpiration() : null;
+    }
+    
+    /**
+     * 将userId声明转换为Long
+     * 
+     * @param userId userId声明值
+     * @return Long类型用户ID，无法转换返回null
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private Long toLong(Object userId) {
+        if (userId instanceof Integer) {
+            return ((Integer) userId).longValue();
+        } else if (userId instanceof Long) {
+            return (Long) userId;
         }
         return null;
     }
+    
+    /**
+     * 计算Token的SHA-256摘要，作为缓存Key，避免缓存中保存Token明文
+     * 
+     * @param token JWT Token
+     * @return Base64编码的摘要
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private String digest(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+    
+    /**
+     * Claims缓存过期策略：存活时间取Token剩余有效期与最长存活时间的较小值
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    private static final class ClaimsExpiry implements Expiry<String, JwtClaims> {
+        
+        /**
+         * 最长存活时间（纳秒）
+         */
+        private final long maxTtlNanos;
+        
+        private ClaimsExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+        
+        @Override
+        public long expireAfterCreate(String key, JwtClaims value, long currentTime) {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(
+                    value.getExpirationMillis() - System.currentTimeMillis());
+            return Math.max(0L, Math.min(remainingNanos, maxTtlNanos));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, JwtClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
 
@@ -0,0 +1,136 @@
+package com.petvetgateway.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MurmurHash3（x64_128）哈希工具
+ * 
+ * 取128位结果的低64位，输出分布均匀、与 JVM 无关且跨进程稳定，
+ * 适合把用户ID、IP等稳定键映射到固定分桶（String.hashCode 低位分布差且可能为负）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class Murmur3Hash {
+    
+    private static final long C1 = 0x87c37b91114253d5L;
+    
+    private static final long C2 = 0x4cf5ad432745937fL;
+    
+    private Murmur3Hash() {
+    }
+    
+    /**
+     * 计算字符串（UTF-8）的64位哈希
+     * 
+     * @param key 键
+     * @return 64位哈希值
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static long hash64(String key) {
+        byte[] data = key.getBytes(StandardCharsets.UTF_8);
+        return hash64(data, 0, data.length, 0);
+    }
+    
+    /**
+     * 计算字节数组的64位哈希
+     * 
+     * @param data 数据
+     * @param offset 起始偏移
+     * @param length 长度
+     * @param seed 种子
+     * @return 64位哈希值（x64_128 的低64位）
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static long hash64(byte[] data, int offset, int length, int seed) {
+        long h1 = seed & 0xffffffffL;
+        long h2 = seed & 0xffffffffL;
+        int blocks = length >>> 4;
+        
+        for (int i = 0; i < blocks; i++) {
+            int index = offset + (i << 4);
+            long k1 = getLongLittleEndian(data, index);
+            long k2 = getLongLittleEndian(data, index + 8);
+            
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        
+        int tail = offset + (blocks << 4);
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+            default:
+                break;
+        }
+        
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+    
+    private static long getLongLittleEndian(byte[] data, int index) {
+        return (data[index] & 0xffL)
+                | (data[index + 1] & 0xffL) << 8
+                | (data[index + 2] & 0xffL) << 16
+                | (data[index + 3] & 0xffL) << 24
+                | (data[index + 4] & 0xffL) << 32
+                | (data[index + 5] & 0xffL) << 40
+                | (data[index + 6] & 0xffL) << 48
+                | (data[index + 7] & 0xffL) << 56;
+    }
+    
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
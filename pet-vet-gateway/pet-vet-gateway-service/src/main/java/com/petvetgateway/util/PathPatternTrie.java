@@ -0,0 +1,401 @@
+package com.petvetgateway.util;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路径模式段前缀树
+ *
+ * 将一组Ant风格路径模式一次性编译为按路径段组织的前缀树，构建完成后只读、线程安全。
+ * 支持三类段：字面量、单段通配 {@code *}、多段通配 {@code **}；
+ * 匹配语义与 {@link AntPathMatcher#match(String, String)} 保持一致（含结尾斜杠的处理）。
+ *
+ * 查找按路径段逐级下钻，末尾为 {@code **} 的模式（如 /api/auth/**）一旦到达即判定命中，
+ * 因此常见白名单的查找代价为 O(路径段数)，与模式数量无关。
+ * 段内含部分通配（如 *.js、?、{var}）的模式无法放入树中，保留为回退列表逐个用 AntPathMatcher 匹配。
+ *
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+public final class PathPatternTrie {
+
+    /**
+     * 路径分隔符
+     */
+    private static final String SEPARATOR = "/";
+
+    /**
+     * 单段通配
+     */
+    private static final String SINGLE_WILDCARD = "*";
+
+    /**
+     * 多段通配
+     */
+    private static final String MULTI_WILDCARD = "**";
+
+    /**
+     * 根节点（以 / 开头的模式）
+     */
+    private final Node root;
+
+    /**
+     * 无法编译进树的模式，回退到 AntPathMatcher 匹配
+     */
+    private final List<String> fallbackPatterns;
+
+    /**
+     * 已编译的模式数量
+     */
+    private final int compiledPatternCount;
+
+    /**
+     * 匹配代价计数器
+     */
+    private final MatchCounters counters;
+
+    /**
+     * 回退匹配器
+     */
+    private final AntPathMatcher fallbackMatcher = new AntPathMatcher();
+
+    private PathPatternTrie(Node root, List<String> fallbackPatterns, int compiledPatternCount, MatchCounters counters) {
+        this.root = root;
+        this.fallbackPatterns = fallbackPatterns;
+        this.compiledPatternCount = compiledPatternCount;
+        this.counters = counters;
+    }
+
+    /**
+     * 编译路径模式
+     *
+     * @param patterns 路径模式列表
+     * @param counters 匹配代价计数器（可跨多次编译共享）
+     * @return 编译后的前缀树
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static PathPatternTrie compile(List<String> patterns, MatchCounters counters) {
+        Node root = new Node();
+        List<String> fallback = new ArrayList<>();
+        int compiled = 0;
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern == null || pattern.isEmpty()) {
+                    continue;
+                }
+                if (!isCompilable(pattern)) {
+                    fallback.add(pattern);
+                    continue;
+                }
+                Node node = root;
+                for (String segment : tokenize(pattern)) {
+                    node = node.child(segment);
+                }
+                if (pattern.endsWith(SEPARATOR)) {
+                    node.terminalWithSlash = true;
+                } else {
+                    node.terminal = true;
+                }
+                compiled++;
+            }
+        }
+        root.freeze();
+        return new PathPatternTrie(root, Collections.unmodifiableList(fallback), compiled, counters);
+    }
+
+    /**
+     * 判断路径是否命中任一模式
+     *
+     * @param path 请求路径
+     * @return 是否命中
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        counters.lookups.increment();
+        if (path.startsWith(SEPARATOR)) {
+            String[] segments = tokenize(path).toArray(new String[0]);
+            int[] visits = new int[1];
+            boolean matched = matchNode(root, segments, 0, path.endsWith(SEPARATOR), visits);
+            counters.nodeVisits.add(visits[0]);
+            if (matched) {
+                counters.trieHits.increment();
+                return true;
+            }
+        }
+        for (String pattern : fallbackPatterns) {
+            counters.fallbackChecks.increment();
+            if (fallbackMatcher.match(pattern, path)) {
+                counters.fallbackHits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已编译进树的模式数量
+     *
+     * @return 模式数量
+     */
+    public int getCompiledPatternCount() {
+        return compiledPatternCount;
+    }
+
+    /**
+     * 回退匹配的模式数量
+     *
+     * @return 模式数量
+     */
+    public int getFallbackPatternCount() {
+        return fallbackPatterns.size();
+    }
+
+    /**
+     * 从指定节点开始匹配剩余路径段
+     *
+     * @param node 当前节点
+     * @param segments 路径段
+     * @param index 当前路径段下标
+     * @param pathEndsWithSlash 路径是否以 / 结尾
+     * @param visits 访问节点计数
+     * @return 是否命中
+     */
+    private boolean matchNode(Node node, String[] segments, int index, boolean pathEndsWithSlash, int[] visits) {
+        visits[0]++;
+        if (index == segments.length) {
+            return matchesAtPathEnd(node, pathEndsWithSlash);
+        }
+
+        Node literal = node.literalChildren.get(segments[index]);
+        if (literal != null && matchNode(literal, segments, index + 1, pathEndsWithSlash, visits)) {
+            return true;
+        }
+        if (node.singleWildcard != null
+                && matchNode(node.singleWildcard, segments, index + 1, pathEndsWithSlash, visits)) {
+            return true;
+        }
+        Node multi = node.multiWildcard;
+        if (multi != null) {
+            // 末尾 ** 匹配任意剩余路径，无需继续下钻
+            if (multi.terminal || multi.terminalWithSlash) {
+                visits[0]++;
+                return true;
+            }
+            // 中间 ** 匹配 0..n 个路径段
+            for (int next = index; next <= segments.length; next++) {
+                if (matchNode(multi, segments, next, pathEndsWithSlash, visits)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 路径段已耗尽时判断当前节点是否构成命中（对齐 AntPathMatcher 的收尾规则）
+     *
+     * @param node 当前节点
+     * @param pathEndsWithSlash 路径是否以 / 结尾
+     * @return 是否命中
+     */
+    private boolean matchesAtPathEnd(Node node, boolean pathEndsWithSlash) {
+        if (pathEndsWithSlash ? node.terminalWithSlash : node.terminal) {
+            return true;
+        }
+        // 形如 /a/* 的模式可匹配 /a/
+        if (pathEndsWithSlash && node.singleWildcard != null && node.singleWildcard.terminal) {
+            return true;
+        }
+        // 剩余模式段全部为 ** 时命中
+        Node multi = node.multiWildcard;
+        while (multi != null) {
+            if (multi.terminal || multi.terminalWithSlash) {
+                return true;
+            }
+            multi = multi.multiWildcard;
+        }
+        return false;
+    }
+
+    /**
+     * 判断模式能否编译进树：必须以 / 开头，且每段为字面量、* 或 **
+     *
+     * @param pattern 路径模式
+     * @return 是否可编译
+     */
+    private static boolean isCompilable(String pattern) {
+        if (!pattern.startsWith(SEPARATOR)) {
+            return false;
+        }
+        for (String segment : tokenize(pattern)) {
+            if (SINGLE_WILDCARD.equals(segment) || MULTI_WILDCARD.equals(segment)) {
+                continue;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按 / 切分路径，忽略空段（与 AntPathMatcher 一致）
+     *
+     * @param path 路径
+     * @return 路径段列表
+     */
+    private static List<String> tokenize(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+
+        /**
+         * 字面量子节点
+         */
+        private Map<String, Node> literalChildren = new HashMap<>();
+
+        /**
+         * 单段通配子节点
+         */
+        private Node singleWildcard;
+
+        /**
+         * 多段通配子节点
+         */
+        private Node multiWildcard;
+
+        /**
+         * 是否有模式在此结束（模式不以 / 结尾）
+         */
+        private boolean terminal;
+
+        /**
+         * 是否有模式在此结束（模式以 / 结尾）
+         */
+        private boolean terminalWithSlash;
+
+        private Node child(String segment) {
+            if (MULTI_WILDCARD.equals(segment)) {
+                if (multiWildcard == null) {
+                    multiWildcard = new Node();
+                }
+                return multiWildcard;
+            }
+            if (SINGLE_WILDCARD.equals(segment)) {
+                if (singleWildcard == null) {
+                    singleWildcard = new Node();
+                }
+                return singleWildcard;
+            }
+            return literalChildren.computeIfAbsent(segment, key -> new Node());
+        }
+
+        private void freeze() {
+            literalChildren.values().forEach(Node::freeze);
+            literalChildren = literalChildren.isEmpty() ? Collections.emptyMap() : Map.copyOf(literalChildren);
+            if (singleWildcard != null) {
+                singleWildcard.freeze();
+            }
+            if (multiWildcard != null) {
+                multiWildcard.freeze();
+            }
+        }
+    }
+
+    /**
+     * 匹配代价计数器
+     *
+     * 用于对比前缀树与逐个模式匹配的开销：
+     * 逐个匹配的开销约为 lookups × 模式数 次 AntPathMatcher 调用，
+     * 前缀树的开销为 nodeVisits 次节点访问加 fallbackChecks 次回退匹配
+     *
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public static final class MatchCounters {
+
+        /**
+         * 查找次数
+         */
+        private final LongAdder lookups = new LongAdder();
+
+        /**
+         * 前缀树节点访问次数
+         */
+        private final LongAdder nodeVisits = new LongAdder();
+
+        /**
+         * 前缀树命中次数
+         */
+        private final LongAdder trieHits = new LongAdder();
+
+        /**
+         * 回退模式匹配次数
+         */
+        private final LongAdder fallbackChecks = new LongAdder();
+
+        /**
+         * 回退模式命中次数
+         */
+        private final LongAdder fallbackHits = new LongAdder();
+
+        public long getLookups() {
+            return lookups.sum();
+        }
+
+        public long getNodeVisits() {
+            return nodeVisits.sum();
+        }
+
+        public long getTrieHits() {
+            return trieHits.sum();
+        }
+
+        public long getFallbackChecks() {
+            return fallbackChecks.sum();
+        }
+
+        public long getFallbackHits() {
+            return fallbackHits.sum();
+        }
+
+        /**
+         * 清零所有计数
+         */
+        public void reset() {
+            lookups.reset();
+            nodeVisits.reset();
+            trieHits.reset();
+            fallbackChecks.reset();
+            fallbackHits.reset();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.petvetgateway.util;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成器
+ * 
+ * 格式：REQ-{启动时间}-{随机数}-{序号}
+ * - 启动时间（36进制）+ 32位安全随机数：区分不同网关实例及同一实例的多次启动
+ * - 序号：进程内单调递增计数器（36进制），同一实例内不会重复
+ * 
+ * 替代原先 currentTimeMillis + 线程ID 的方式（同一毫秒同一事件循环线程上的请求会得到相同ID）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@Component
+public class RequestIdGenerator {
+    
+    /**
+     * 请求ID前缀
+     */
+    private static final String PREFIX = "REQ-";
+    
+    /**
+     * 实例标识（含末尾分隔符）
+     */
+    private final String instancePrefix;
+    
+    /**
+     * 进程内序号
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    
+    /**
+     * 构造函数，生成实例标识
+     * 
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public RequestIdGenerator() {
+        long random = new SecureRandom().nextInt() & 0xFFFFFFFFL;
+        this.instancePrefix = PREFIX + Long.toString(System.currentTimeMillis(), 36)
+                + "-" + Long.toString(random, 36) + "-";
+    }
+    
+    /**
+     * 生成下一个请求ID
+     * 
+     * @return 请求ID
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public String nextId() {
+        return instancePrefix + Long.toString(sequence.incrementAndGet(), 36);
+    }
+}
@@ -3,16 +3,21 @@ package com.petvetgateway.util;
 import com.petvetgateway.config.GatewayConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 白名单工具类
  * 
  * 用于检查请求路径是否在白名单中，白名单中的路径不需要鉴权
  * 
+ * 白名单在首次使用时编译为 {@link PathPatternTrie}，查找代价与白名单条目数无关；
+ * 配置刷新后整体重新编译并原子替换，进行中的请求继续使用旧的编译结果
+ * 
  * @author daidasheng
  * @date 2024-12-27
  */
@@ -27,9 +32,14 @@ public class WhitelistUtil {
     private final GatewayConfig gatewayConfig;
     
     /**
-     * 路径匹配器
+     * 当前生效的白名单编译结果
      */
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AtomicReference<CompiledWhitelist> compiled = new AtomicReference<>();
+    
+    /**
+     * 匹配代价计数器（跨重建累计）
+     */
+    private final PathPatternTrie.MatchCounters counters = new PathPatternTrie.MatchCounters();
     
     /**
      * 检查路径是否在白名单中
@@ -49,15 +59,78 @@ public class WhitelistUtil {
             return false;
         }
         
-        // 使用Ant路径匹配器进行匹配
-        for (String pattern : whitelist) {
-            if (pathMatcher.match(pattern, path)) {
-                log.debug("路径 {} 匹配白名单模式 {}", path, pattern);
-                return true;
-            }
+        boolean matched = currentTrie(whitelist).matches(path);
+        if (matched) {
+            log.debug("路径 {} 匹配白名单", path);
+        }
+        return matched;
+    }
+    
+    /**
+     * 获取匹配代价计数器
+     * 
+     * @return 计数器
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    public PathPatternTrie.MatchCounters getMatchCounters() {
+        return counters;
+    }
+    
+    /**
+     * 配置刷新后重新编译白名单
+     * 
+     * @param event 刷新事件
+     * @author daidasheng
+     * @date 2026-10-16
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh(RefreshScopeRefreshedEvent event) {
+        List<String> whitelist = gatewayConfig.getWhitelist();
+        compiled.set(compile(whitelist));
+    }
+    
+    /**
+     * 获取与当前配置对应的前缀树，配置列表发生变化时重新编译
+     * 
+     * @param whitelist 当前白名单配置
+     * @return 前缀树
+     */
+    private PathPatternTrie currentTrie(List<String> whitelist) {
+        CompiledWhitelist current = compiled.get();
+        if (current != null && current.source == whitelist) {
+            return current.trie;
         }
+        CompiledWhitelist rebuilt = compile(whitelist);
+        compiled.compareAndSet(current, rebuilt);
+        return rebuilt.trie;
+    }
+    
+    /**
+     * 编译白名单
+     * 
+     * @param whitelist 白名单配置
+     * @return 编译结果
+     */
+    private CompiledWhitelist compile(List<String> whitelist) {
+        PathPatternTrie trie = PathPatternTrie.compile(whitelist, counters);
+        log.info("白名单编译完成，前缀树模式数: {}, 回退模式数: {}",
+                trie.getCompiledPatternCount(), trie.getFallbackPatternCount());
+        return new CompiledWhitelist(whitelist, trie);
+    }
+    
+    /**
+     * 白名单编译结果，绑定其来源配置列表
+     */
+    private static final class CompiledWhitelist {
         
-        return false;
+        private final List<String> source;
+        
+        private final PathPatternTrie trie;
+        
+        private CompiledWhitelist(List<String> source, PathPatternTrie trie) {
+            this.source = source;
+            this.trie = trie;
+        }
     }
 }
-
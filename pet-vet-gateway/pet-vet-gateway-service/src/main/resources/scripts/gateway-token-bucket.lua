@@ -0,0 +1,61 @@
+-- ============================================
+-- 网关分布式令牌桶限流脚本（原子执行）
+-- ============================================
+-- KEYS[i]        : 第 i 个令牌桶的 Hash Key（字段 tokens / ts）
+-- ARGV[2i-1]     : 第 i 个令牌桶的补充速率（每秒）
+-- ARGV[2i]       : 第 i 个令牌桶的容量
+-- ARGV[2n+1]     : 本次申请的令牌数
+-- 返回 {allowed, remaining}
+--   allowed   : 1-放行，0-拒绝（所有令牌桶都足够时才扣减）
+--   remaining : 各令牌桶剩余令牌数的最小值（向下取整）
+-- 时间取 Redis 服务器时间，避免多个网关实例之间的时钟偏差
+-- ============================================
+
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local n = #KEYS
+local permits = tonumber(ARGV[2 * n + 1])
+local allowed = 1
+local filled = {}
+
+for i = 1, n do
+    local rate = tonumber(ARGV[2 * i - 1])
+    local capacity = tonumber(ARGV[2 * i])
+    local state = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local tokens = tonumber(state[1])
+    local ts = tonumber(state[2])
+    if tokens == nil or ts == nil then
+        tokens = capacity
+        ts = now
+    end
+    local elapsed = math.max(0, now - ts)
+    tokens = math.min(capacity, tokens + elapsed * rate / 1000)
+    filled[i] = tokens
+    if tokens < permits then
+        allowed = 0
+    end
+end
+
+local remaining = -1
+for i = 1, n do
+    local rate = tonumber(ARGV[2 * i - 1])
+    local capacity = tonumber(ARGV[2 * i])
+    local tokens = filled[i]
+    if allowed == 1 then
+        tokens = tokens - permits
+    end
+    redis.call('HSET', KEYS[i], 'tokens', tostring(tokens), 'ts', tostring(now))
+    -- 桶补满所需时间的 2 倍后过期，空闲 Key 自动回收
+    redis.call('PEXPIRE', KEYS[i], math.ceil(capacity * 2000 / rate))
+    local left = math.floor(tokens)
+    if remaining < 0 or left < remaining then
+        remaining = left
+    end
+end
+
+return {allowed, remaining}
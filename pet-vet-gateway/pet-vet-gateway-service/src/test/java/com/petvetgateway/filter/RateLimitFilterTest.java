@@ -0,0 +1,154 @@
+package com.petvetgateway.filter;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.ratelimit.DistributedRateLimiter;
+import com.petvetgateway.ratelimit.RateLimitDecision;
+import com.petvetgateway.util.JwtClaims;
+import com.petvetgateway.util.JwtUtil;
+import com.petvetgateway.util.WhitelistUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分布式限流过滤器测试：限流主体只取鉴权过滤器验证过的用户ID和经可信代理解析的客户端IP（不依赖Spring上下文）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("分布式限流过滤器测试")
+class RateLimitFilterTest {
+    
+    private static final String ROUTE_ID = "pet-vet-ai-service";
+    
+    private GatewayConfig gatewayConfig;
+    
+    private DistributedRateLimiter distributedRateLimiter;
+    
+    private RateLimitFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        GatewayConfig.RateLimitConfig rateLimit = new GatewayConfig.RateLimitConfig();
+        rateLimit.setEnabled(true);
+        gatewayConfig = new GatewayConfig();
+        gatewayConfig.setRateLimit(rateLimit);
+        GatewayConfig.JwtConfig jwt = new GatewayConfig.JwtConfig();
+        jwt.setHeader("Authorization");
+        jwt.setPrefix("Bearer ");
+        gatewayConfig.setJwt(jwt);
+        
+        distributedRateLimiter = mock(DistributedRateLimiter.class);
+        when(distributedRateLimiter.acquire(anyString(), any())).thenReturn(Mono.just(new RateLimitDecision(true, 9)));
+        filter = new RateLimitFilter(distributedRateLimiter, gatewayConfig);
+    }
+    
+    private static MockServerHttpRequest.BaseBuilder<?> request(String path) {
+        return MockServerHttpRequest.get(path).remoteAddress(new InetSocketAddress("10.0.0.1", 40000));
+    }
+    
+    private static MockServerWebExchange exchange(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route route = Route.async()
+                .id(ROUTE_ID)
+                .uri("lb://pet-vet-ai")
+                .predicate(serverWebExchange -> true)
+                .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+    
+    @Test
+    @DisplayName("测试客户端自带的 X-User-Id 和 X-Forwarded-For 不作为限流主体")
+    void testForgedHeadersIgnored() {
+        MockServerWebExchange exchange = exchange(request("/api/public")
+                .header("X-User-Id", "42")
+                .header("X-Forwarded-For", "1.2.3.4")
+                .build());
+        
+        assertEquals("ip:10.0.0.1", filter.resolveSubject(exchange));
+    }
+    
+    @Test
+    @DisplayName("测试鉴权通过的用户按用户ID限流")
+    void testVerifiedUser() {
+        MockServerWebExchange exchange = exchange(request("/api/ai/chat").header("X-User-Id", "7").build());
+        exchange.getAttributes().put(AuthenticationFilter.USER_ID_ATTR, 42L);
+        
+        assertEquals("u:42", filter.resolveSubject(exchange));
+    }
+    
+    @Test
+    @DisplayName("测试配置可信代理层数后只信任代理追加的 X-Forwarded-For 地址")
+    void testTrustedProxy() {
+        gatewayConfig.getRateLimit().setTrustedProxyCount(1);
+        // 客户端伪造了 1.2.3.4，可信代理追加了它看到的真实地址 5.6.7.8
+        MockServerWebExchange exchange = exchange(request("/api/public")
+                .header("X-Forwarded-For", "1.2.3.4, 5.6.7.8")
+                .build());
+        assertEquals("ip:5.6.7.8", filter.resolveSubject(exchange));
+        
+        // 没有 X-Forwarded-For 时使用连接的远端地址
+        assertEquals("ip:10.0.0.1", filter.resolveSubject(exchange(request("/api/public").build())));
+        
+        gatewayConfig.getRateLimit().setTrustedProxyCount(0);
+        assertEquals("ip:10.0.0.1", filter.resolveSubject(exchange));
+    }
+    
+    @Test
+    @DisplayName("测试鉴权过滤器验证的用户ID传递到限流过滤器，白名单路径移除伪造的用户请求头")
+    void testAuthenticationFilterChain() {
+        WhitelistUtil whitelistUtil = mock(WhitelistUtil.class);
+        when(whitelistUtil.isWhitelisted("/api/public")).thenReturn(true);
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.verifyAndExtract("valid-token")).thenReturn(new JwtClaims(42L, "open-id", Long.MAX_VALUE));
+        AuthenticationFilter authenticationFilter = new AuthenticationFilter(gatewayConfig, jwtUtil, whitelistUtil);
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        GatewayFilterChain chain = exchange -> filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        });
+        
+        // 白名单路径：按IP限流，下游收不到伪造的 X-User-Id
+        MockServerWebExchange anonymous = exchange(request("/api/public").header("X-User-Id", "7").build());
+        authenticationFilter.filter(anonymous, chain).block();
+        verify(distributedRateLimiter).acquire(ROUTE_ID, "ip:10.0.0.1");
+        assertNull(forwarded.get().getRequest().getHeaders().getFirst("X-User-Id"));
+        
+        // 鉴权通过：按 Token 中的用户ID限流，忽略请求头中的 X-User-Id
+        MockServerWebExchange authenticated = exchange(request("/api/ai/chat")
+                .header("Authorization", "Bearer valid-token")
+                .header("X-User-Id", "7")
+                .build());
+        authenticationFilter.filter(authenticated, chain).block();
+        verify(distributedRateLimiter).acquire(ROUTE_ID, "u:42");
+        assertEquals("42", forwarded.get().getRequest().getHeaders().getFirst("X-User-Id"));
+    }
+    
+    @Test
+    @DisplayName("测试触发限流时返回429")
+    void testTooManyRequests() {
+        when(distributedRateLimiter.acquire(anyString(), any())).thenReturn(Mono.just(new RateLimitDecision(false, 0)));
+        MockServerWebExchange exchange = exchange(request("/api/public").build());
+        
+        filter.filter(exchange, next -> Mono.error(new AssertionError("不应转发"))).block();
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        assertEquals("0", exchange.getResponse().getHeaders().getFirst("X-RateLimit-Remaining"));
+    }
+}
@@ -0,0 +1,177 @@
+package com.petvetgateway.filter;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.logging.AccessLogEvent;
+import com.petvetgateway.logging.AccessLogSampler;
+import com.petvetgateway.logging.AccessLogWriter;
+import com.petvetgateway.util.RequestIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求日志过滤器测试（不依赖Spring上下文）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("请求日志过滤器测试")
+class RequestLoggingFilterTest {
+    
+    private GatewayConfig gatewayConfig;
+    
+    private AccessLogWriter accessLogWriter;
+    
+    private RequestLoggingFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        GatewayConfig.LogConfig logConfig = new GatewayConfig.LogConfig();
+        logConfig.setEnabled(true);
+        logConfig.setSampleRate(1.0);
+        gatewayConfig = new GatewayConfig();
+        gatewayConfig.setLog(logConfig);
+        
+        accessLogWriter = mock(AccessLogWriter.class);
+        when(accessLogWriter.publish(any())).thenReturn(true);
+        filter = new RequestLoggingFilter(gatewayConfig, new AccessLogSampler(gatewayConfig), accessLogWriter,
+                new RequestIdGenerator());
+    }
+    
+    private MockServerWebExchange exchange(MockServerHttpRequest request, String routeId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route route = Route.async()
+                .id(routeId)
+                .uri("lb://pet-vet-ai")
+                .predicate(serverWebExchange -> true)
+                .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+    
+    private List<AccessLogEvent> publishedEvents(int expected) {
+        ArgumentCaptor<AccessLogEvent> captor = ArgumentCaptor.forClass(AccessLogEvent.class);
+        verify(accessLogWriter, times(expected)).publish(captor.capture());
+        return captor.getAllValues();
+    }
+    
+    @Test
+    @DisplayName("测试请求和响应事件的字段提取")
+    void testFieldExtraction() {
+        MockServerHttpRequest request = MockServerHttpRequest.post("/api/ai/chat?sessionId=42")
+                .header("X-Forwarded-For", " 10.0.0.8 , 192.168.1.1")
+                .header("X-Real-IP", "172.16.0.1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .build();
+        MockServerWebExchange exchange = exchange(request, "pet-vet-ai-route");
+        GatewayFilterChain chain = serverWebExchange -> {
+            serverWebExchange.getResponse().setStatusCode(HttpStatus.CREATED);
+            serverWebExchange.getResponse().getHeaders().add("X-Trace", "t-1");
+            return Mono.empty();
+        };
+        
+        filter.filter(exchange, chain).block();
+        
+        List<AccessLogEvent> events = publishedEvents(2);
+        AccessLogEvent requestEvent = events.get(0);
+        assertEquals(AccessLogEvent.Type.REQUEST, requestEvent.getType());
+        assertEquals("pet-vet-ai-route", requestEvent.getRouteId());
+        assertEquals("POST", requestEvent.getMethod());
+        assertEquals("/api/ai/chat", requestEvent.getPath());
+        assertEquals("sessionId=42", requestEvent.getQuery());
+        // X-Forwarded-For 优先，取第一个地址
+        assertEquals("10.0.0.8", requestEvent.getClientIp());
+        assertEquals("Bearer token", requestEvent.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        
+        AccessLogEvent responseEvent = events.get(1);
+        assertEquals(AccessLogEvent.Type.RESPONSE, responseEvent.getType());
+        assertEquals(requestEvent.getRequestId(), responseEvent.getRequestId());
+        assertEquals("pet-vet-ai-route", responseEvent.getRouteId());
+        assertEquals(201, responseEvent.getStatusCode());
+        assertEquals("t-1", responseEvent.getHeaders().getFirst("X-Trace"));
+        assertTrue(responseEvent.getDurationMillis() >= 0);
+        assertNull(responseEvent.getRequestBody());
+        assertNull(responseEvent.getResponseBody());
+    }
+    
+    @Test
+    @DisplayName("测试没有转发头时使用 X-Real-IP")
+    void testClientIpFromRealIp() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/rag/query")
+                .header("X-Real-IP", "172.16.0.1")
+                .build();
+        
+        filter.filter(exchange(request, "pet-vet-rag-route"), serverWebExchange -> Mono.empty()).block();
+        
+        assertEquals("172.16.0.1", publishedEvents(2).get(0).getClientIp());
+    }
+    
+    @Test
+    @DisplayName("测试事件中的请求/响应头是入队时的只读副本")
+    void testHeadersAreCopied() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/ai/chat")
+                .header("X-Request-Source", "app")
+                .build();
+        MockServerWebExchange exchange = exchange(request, "pet-vet-ai-route");
+        
+        filter.filter(exchange, serverWebExchange -> {
+            serverWebExchange.getResponse().getHeaders().add("X-Trace", "t-1");
+            return Mono.empty();
+        }).block();
+        // 写入线程读取事件之前，原始响应头仍被修改
+        exchange.getResponse().getHeaders().add("X-Late", "late");
+        
+        List<AccessLogEvent> events = publishedEvents(2);
+        HttpHeaders requestHeaders = events.get(0).getHeaders();
+        assertNotSame(request.getHeaders(), requestHeaders);
+        assertEquals(List.of("app"), requestHeaders.get("X-Request-Source"));
+        assertThrows(UnsupportedOperationException.class, () -> requestHeaders.add("X-Other", "1"));
+        
+        HttpHeaders responseHeaders = events.get(1).getHeaders();
+        assertEquals("t-1", responseHeaders.getFirst("X-Trace"));
+        assertFalse(responseHeaders.containsKey("X-Late"));
+    }
+    
+    @Test
+    @DisplayName("测试路由采样率为0时不记录")
+    void testRouteNotSampled() {
+        gatewayConfig.getLog().setRouteSampleRates(Map.of("pet-vet-ai-route", 0.0));
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/ai/chat").build();
+        MockServerWebExchange exchange = exchange(request, "pet-vet-ai-route");
+        
+        filter.filter(exchange, serverWebExchange -> {
+            // 未采样的请求不做包装
+            assertSame(exchange, serverWebExchange);
+            return Mono.empty();
+        }).block();
+        
+        verify(accessLogWriter, never()).publish(any());
+    }
+    
+    @Test
+    @DisplayName("测试日志功能关闭时不记录")
+    void testDisabled() {
+        gatewayConfig.getLog().setEnabled(false);
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/ai/chat").build();
+        
+        filter.filter(exchange(request, "pet-vet-ai-route"), serverWebExchange -> Mono.empty()).block();
+        
+        verify(accessLogWriter, never()).publish(any());
+    }
+}
@@ -0,0 +1,92 @@
+package com.petvetgateway.gray;
+
+import com.petvetgateway.util.PathPatternTrie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 灰度规则测试（不依赖Spring上下文）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("灰度规则测试")
+class GrayRuleTest {
+    
+    /**
+     * 统计用的键数量
+     */
+    private static final int KEY_COUNT = 2_000_000;
+    
+    /**
+     * 允许的绝对偏差（0.2%）
+     */
+    private static final double TOLERANCE = 0.002;
+    
+    private static GrayRule rule(List<String> versions, List<Integer> weights) {
+        PathPatternTrie paths = PathPatternTrie.compile(List.of("/api/ai/**"), new PathPatternTrie.MatchCounters());
+        return GrayRule.of("test", paths, "user-id", versions, weights);
+    }
+    
+    private static double[] distribution(GrayRule rule, List<String> versions) {
+        long[] counts = new long[versions.size()];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            int bucket = GrayRule.bucketOf("user:" + i);
+            assertTrue(bucket >= 0 && bucket < GrayRule.TOTAL_BUCKETS);
+            counts[versions.indexOf(rule.selectVersion(bucket))]++;
+        }
+        double[] ratios = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            ratios[i] = (double) counts[i] / KEY_COUNT;
+        }
+        return ratios;
+    }
+    
+    @Test
+    @DisplayName("测试两版本 90/10 分流比例")
+    void testTwoWaySplit() {
+        List<String> versions = List.of("v1.0", "v2.0");
+        double[] ratios = distribution(rule(versions, List.of(9000, 1000)), versions);
+        assertEquals(0.9, ratios[0], TOLERANCE);
+        assertEquals(0.1, ratios[1], TOLERANCE);
+    }
+    
+    @Test
+    @DisplayName("测试三版本 70/20/10 分流比例")
+    void testThreeWaySplit() {
+        List<String> versions = List.of("v1.0", "v2.0", "v2.1");
+        double[] ratios = distribution(rule(versions, List.of(7000, 2000, 1000)), versions);
+        assertEquals(0.7, ratios[0], TOLERANCE);
+        assertEquals(0.2, ratios[1], TOLERANCE);
+        assertEquals(0.1, ratios[2], TOLERANCE);
+    }
+    
+    @Test
+    @DisplayName("测试权重归一化与无效版本过滤")
+    void testNormalization() {
+        GrayRule normalized = rule(List.of("v1.0", "v2.0", "v3.0"), List.of(3, 1, 0));
+        assertEquals(List.of("v1.0", "v2.0"), normalized.getVersions());
+        assertEquals("v1.0", normalized.selectVersion(7499));
+        assertEquals("v2.0", normalized.selectVersion(7500));
+        assertEquals("v2.0", normalized.selectVersion(GrayRule.TOTAL_BUCKETS - 1));
+        
+        assertNull(rule(List.of("v1.0"), List.of(0)));
+    }
+    
+    @Test
+    @DisplayName("测试同一用户分桶稳定")
+    void testStickyBucket() {
+        GrayRule grayRule = rule(List.of("v1.0", "v2.0"), List.of(5000, 5000));
+        for (int i = 0; i < 1000; i++) {
+            String key = "user:" + i;
+            assertEquals(GrayRule.bucketOf(key), GrayRule.bucketOf(key));
+            assertEquals(grayRule.selectVersion(GrayRule.bucketOf(key)), grayRule.selectVersion(GrayRule.bucketOf(key)));
+        }
+        assertTrue(grayRule.matches("/api/ai/diagnosis"));
+        assertFalse(grayRule.matches("/api/user/info"));
+    }
+}
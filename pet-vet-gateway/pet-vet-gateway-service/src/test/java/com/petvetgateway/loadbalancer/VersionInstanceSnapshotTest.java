@@ -0,0 +1,82 @@
+package com.petvetgateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 版本实例快照测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("版本实例快照测试")
+class VersionInstanceSnapshotTest {
+    
+    private static final ServiceInstance V1_A = instance("a", "v1.0");
+    private static final ServiceInstance V1_B = instance("b", "v1.0");
+    private static final ServiceInstance V2_A = instance("c", "v2.0");
+    private static final ServiceInstance NO_VERSION = instance("d", null);
+    
+    private static final List<ServiceInstance> INSTANCES = List.of(V1_A, V1_B, V2_A, NO_VERSION);
+    
+    static ServiceInstance instance(String id, String version) {
+        Map<String, String> metadata = version != null ? Map.of("version", version) : Map.of();
+        return new DefaultServiceInstance(id, "pet-vet-ai", "10.0.0." + (id.charAt(0) - 'a' + 1), 8080, false, metadata);
+    }
+    
+    private static VersionInstanceSnapshot snapshot(String defaultVersion, boolean allowNoVersion, String strategy) {
+        return new VersionInstanceSnapshot("pet-vet-ai", INSTANCES,
+                new VersionInstanceSnapshot.FallbackSettings(defaultVersion, allowNoVersion, strategy));
+    }
+    
+    @Test
+    @DisplayName("测试按目标版本选择实例")
+    void testResolveByVersion() {
+        VersionInstanceSnapshot snapshot = snapshot("v1.0", false, "all");
+        
+        assertEquals(List.of(V1_A, V1_B), snapshot.resolve("v1.0"));
+        assertEquals(List.of(V2_A), snapshot.resolve("v2.0"));
+        // 未指定目标版本时返回全部实例
+        assertEquals(INSTANCES, snapshot.resolve(null));
+        // 结果按目标版本缓存
+        assertSame(snapshot.resolve("v2.0"), snapshot.resolve("v2.0"));
+    }
+    
+    @Test
+    @DisplayName("测试目标版本为默认版本时无版本实例一并参与")
+    void testDefaultVersionIncludesNoVersionInstances() {
+        assertEquals(List.of(V1_A, V1_B, NO_VERSION), snapshot("v1.0", true, "all").resolve("v1.0"));
+        assertEquals(List.of(V2_A), snapshot("v1.0", true, "all").resolve("v2.0"));
+    }
+    
+    @Test
+    @DisplayName("测试无匹配版本时的降级策略")
+    void testFallback() {
+        assertEquals(INSTANCES, snapshot(null, true, "all").resolve("v9.9"));
+        assertEquals(List.of(V1_A, V1_B, V2_A), snapshot(null, false, "all").resolve("v9.9"));
+        assertEquals(List.of(V1_A, V1_B), snapshot("v1.0", true, "default-version").resolve("v9.9"));
+        assertEquals(List.of(), snapshot("v3.0", true, "default-version").resolve("v9.9"));
+        assertEquals(List.of(), snapshot("v1.0", true, "fail").resolve("v9.9"));
+    }
+    
+    @Test
+    @DisplayName("测试同一个实例列表复用快照，列表或配置变化时重建")
+    void testIsBuiltFrom() {
+        VersionInstanceSnapshot.FallbackSettings settings = new VersionInstanceSnapshot.FallbackSettings("v1.0", true, "all");
+        VersionInstanceSnapshot snapshot = new VersionInstanceSnapshot("pet-vet-ai", INSTANCES, settings);
+        
+        assertTrue(snapshot.isBuiltFrom(INSTANCES, new VersionInstanceSnapshot.FallbackSettings("v1.0", true, "all")));
+        assertFalse(snapshot.isBuiltFrom(INSTANCES, new VersionInstanceSnapshot.FallbackSettings("v1.0", true, "fail")));
+        // 只比较引用：原始提供者返回新列表即视为实例已变化，不逐个比较实例内容
+        assertFalse(snapshot.isBuiltFrom(new ArrayList<>(INSTANCES), settings));
+        assertFalse(snapshot.isBuiltFrom(List.of(V1_A, V1_B, V2_A), settings));
+    }
+}
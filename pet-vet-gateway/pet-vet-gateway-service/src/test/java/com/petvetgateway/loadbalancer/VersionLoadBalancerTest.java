@@ -0,0 +1,237 @@
+package com.petvetgateway.loadbalancer;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.gray.GrayRule;
+import com.petvetgateway.util.PathPatternTrie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 版本负载均衡器测试（不依赖Spring上下文）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("版本负载均衡器测试")
+class VersionLoadBalancerTest {
+    
+    private static final String AI_SERVICE = "pet-vet-ai";
+    
+    private static final String RAG_SERVICE = "pet-vet-rag";
+    
+    private final List<ServiceInstance> aiInstances = List.of(
+            instance(AI_SERVICE, "ai-1", "v1.0"),
+            instance(AI_SERVICE, "ai-2", "v1.0"),
+            instance(AI_SERVICE, "ai-3", "v2.0"));
+    
+    private final List<ServiceInstance> ragInstances = List.of(
+            instance(RAG_SERVICE, "rag-1", "v1.0"),
+            instance(RAG_SERVICE, "rag-2", "v2.0"));
+    
+    private CountingSupplier aiSupplier;
+    
+    private CountingSupplier ragSupplier;
+    
+    private LoadBalancerClientFactory clientFactory;
+    
+    private ServiceInstanceListSupplier supplier;
+    
+    private static ServiceInstance instance(String serviceId, String id, String version) {
+        return new DefaultServiceInstance(id, serviceId, id + ".local", 8080, false,
+                Map.of("version", version));
+    }
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        aiSupplier = new CountingSupplier(AI_SERVICE, aiInstances);
+        ragSupplier = new CountingSupplier(RAG_SERVICE, ragInstances);
+        
+        clientFactory = mock(LoadBalancerClientFactory.class);
+        ObjectProvider<ServiceInstanceListSupplier> aiProvider = mock(ObjectProvider.class);
+        when(aiProvider.getIfAvailable()).thenReturn(aiSupplier);
+        ObjectProvider<ServiceInstanceListSupplier> ragProvider = mock(ObjectProvider.class);
+        when(ragProvider.getIfAvailable()).thenReturn(ragSupplier);
+        when(clientFactory.getLazyProvider(eq(AI_SERVICE), eq(ServiceInstanceListSupplier.class))).thenReturn(aiProvider);
+        when(clientFactory.getLazyProvider(eq(RAG_SERVICE), eq(ServiceInstanceListSupplier.class))).thenReturn(ragProvider);
+        
+        supplier = supplier(new MockEnvironment());
+    }
+    
+    private ServiceInstanceListSupplier supplier(MockEnvironment environment) {
+        return new VersionLoadBalancer(new GatewayConfig(), mock(DiscoveryClient.class))
+                .versionAwareServiceInstanceListSupplier(clientFactory, environment);
+    }
+    
+    private static Request<RequestDataContext> request(String serviceId, String targetVersion) {
+        HttpHeaders headers = new HttpHeaders();
+        if (targetVersion != null) {
+            headers.add("X-Target-Version", targetVersion);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, URI.create("lb://" + serviceId + "/api/test"));
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://gateway/api/test"), headers,
+                new LinkedMultiValueMap<>(), attributes);
+        return new DefaultRequest<>(new RequestDataContext(requestData));
+    }
+    
+    private List<ServiceInstance> select(String serviceId, String targetVersion) {
+        return supplier.get(request(serviceId, targetVersion)).blockFirst();
+    }
+    
+    @Test
+    @DisplayName("测试按灰度规则权重选择版本后的实例分布")
+    void testVersionWeightedSelection() {
+        List<String> versions = List.of("v1.0", "v2.0");
+        GrayRule rule = GrayRule.of("ai", PathPatternTrie.compile(List.of("/api/ai/**"), new PathPatternTrie.MatchCounters()),
+                "user-id", versions, List.of(9000, 1000));
+        
+        int total = 20000;
+        int newVersionHits = 0;
+        for (int i = 0; i < total; i++) {
+            String targetVersion = rule.selectVersion(GrayRule.bucketOf("user:" + i));
+            List<ServiceInstance> selected = select(AI_SERVICE, targetVersion);
+            assertFalse(selected.isEmpty());
+            for (ServiceInstance instance : selected) {
+                assertEquals(targetVersion, instance.getMetadata().get("version"));
+            }
+            if ("v2.0".equals(targetVersion)) {
+                newVersionHits++;
+            }
+        }
+        assertEquals(0.1, (double) newVersionHits / total, 0.01);
+    }
+    
+    @Test
+    @DisplayName("测试无匹配版本时降级为全部实例")
+    void testFallbackWhenNoInstanceMatches() {
+        assertEquals(aiInstances, select(AI_SERVICE, "v9.9"));
+        assertEquals(aiInstances, select(AI_SERVICE, null));
+    }
+    
+    @Test
+    @DisplayName("测试不同服务的快照互相隔离")
+    void testPerServiceIsolation() throws Exception {
+        assertEquals(List.of(ragInstances.get(1)), select(RAG_SERVICE, "v2.0"));
+        assertEquals(List.of(aiInstances.get(2)), select(AI_SERVICE, "v2.0"));
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                String serviceId = i % 2 == 0 ? AI_SERVICE : RAG_SERVICE;
+                String version = i % 3 == 0 ? "v2.0" : "v1.0";
+                Callable<Boolean> task = () -> select(serviceId, version).stream()
+                        .allMatch(instance -> serviceId.equals(instance.getServiceId()));
+                futures.add(executor.submit(task));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(aiSupplier.calls.get() > 0);
+        assertTrue(ragSupplier.calls.get() > 0);
+    }
+    
+    @Test
+    @DisplayName("测试原始提供者返回同一个列表时复用快照，列表变化时重建")
+    void testSnapshotReusedForSameList() {
+        List<ServiceInstance> first = select(AI_SERVICE, "v1.0");
+        List<ServiceInstance> second = select(AI_SERVICE, "v1.0");
+        assertEquals(2, aiSupplier.calls.get());
+        // 复用快照时返回同一个已缓存的结果列表
+        assertSame(first, second);
+        assertSame(select(AI_SERVICE, null), select(AI_SERVICE, null));
+        
+        aiSupplier.instances = List.of(instance(AI_SERVICE, "ai-1", "v1.0"), instance(AI_SERVICE, "ai-4", "v1.0"));
+        List<ServiceInstance> changed = select(AI_SERVICE, "v1.0");
+        assertNotSame(first, changed);
+        assertEquals(List.of("ai-1", "ai-4"), changed.stream().map(ServiceInstance::getInstanceId).toList());
+        assertSame(changed, select(AI_SERVICE, "v1.0"));
+    }
+    
+    @Test
+    @DisplayName("测试不带请求的 get() 和 getServiceId() 委托给所绑定服务的原始提供者")
+    void testDelegatesWithoutRequest() {
+        ServiceInstanceListSupplier bound = supplier(
+                new MockEnvironment().withProperty(LoadBalancerClientFactory.PROPERTY_NAME, RAG_SERVICE));
+        
+        assertEquals(RAG_SERVICE, bound.getServiceId());
+        assertEquals(ragInstances, bound.get().blockFirst());
+        assertEquals(1, ragSupplier.calls.get());
+        
+        // 未绑定服务（主上下文中创建）时没有可委托的提供者
+        assertNull(supplier.getServiceId());
+        assertEquals(List.of(), supplier.get().blockFirst());
+    }
+    
+    /**
+     * 实例变化前一直返回同一个列表的原始提供者（与带缓存的提供者一致）
+     */
+    private static final class CountingSupplier implements ServiceInstanceListSupplier {
+        
+        private final String serviceId;
+        
+        private final AtomicInteger calls = new AtomicInteger();
+        
+        private volatile List<ServiceInstance> instances;
+        
+        private volatile List<ServiceInstance> cached;
+        
+        private CountingSupplier(String serviceId, List<ServiceInstance> instances) {
+            this.serviceId = serviceId;
+            this.instances = instances;
+        }
+        
+        @Override
+        public String getServiceId() {
+            return serviceId;
+        }
+        
+        @Override
+        public Flux<List<ServiceInstance>> get() {
+            calls.incrementAndGet();
+            List<ServiceInstance> current = cached;
+            if (current == null || !current.equals(instances)) {
+                current = new ArrayList<>(instances);
+                cached = current;
+            }
+            return Flux.just(current);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.petvetgateway.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问日志环形缓冲区测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("访问日志环形缓冲区测试")
+class AccessLogRingBufferTest {
+    
+    @Test
+    @DisplayName("测试缓冲区满时丢弃并计数")
+    void testDropWhenFull() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(5);
+        assertEquals(8, buffer.capacity());
+        
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8));
+        assertFalse(buffer.offer(9));
+        assertEquals(2, buffer.getDroppedCount());
+        
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(10));
+        for (int i = 1; i < 8; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertEquals(10, buffer.poll());
+        assertNull(buffer.poll());
+    }
+    
+    @Test
+    @DisplayName("测试多生产者单消费者不丢失不重复")
+    void testMultiProducerSingleConsumer() throws Exception {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.offer(base + i);
+                }
+                done.countDown();
+            });
+        }
+        
+        Set<Integer> received = new HashSet<>();
+        while (done.getCount() > 0 || buffer.size() > 0) {
+            Integer value = buffer.poll();
+            if (value != null) {
+                assertTrue(received.add(value), "重复元素: " + value);
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        assertEquals((long) producers * perProducer, received.size() + buffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,42 @@
+package com.petvetgateway.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问日志写入器测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("访问日志写入器测试")
+class AccessLogWriterTest {
+    
+    @Test
+    @DisplayName("测试敏感头脱敏（不区分大小写），其他头原样输出")
+    void testHeaderMasking() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.AUTHORIZATION, "Bearer secret-token");
+        headers.add("cookie", "SESSION=secret-session");
+        headers.add("x-auth-token", "secret-auth");
+        headers.add("X-Request-Source", "app");
+        
+        String formatted = AccessLogWriter.formatHeaders(headers);
+        
+        assertFalse(formatted.contains("secret"), formatted);
+        assertTrue(formatted.contains("Authorization=******"), formatted);
+        assertTrue(formatted.contains("cookie=******"), formatted);
+        assertTrue(formatted.contains("x-auth-token=******"), formatted);
+        assertTrue(formatted.contains("X-Request-Source=[app]"), formatted);
+    }
+    
+    @Test
+    @DisplayName("测试空请求头")
+    void testEmptyHeaders() {
+        assertEquals("{}", AccessLogWriter.formatHeaders(null));
+        assertEquals("{}", AccessLogWriter.formatHeaders(new HttpHeaders()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.petvetgateway.ratelimit;
+
+import com.petvetgateway.config.GatewayConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集群分布式限流器测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("集群分布式限流器测试")
+class DistributedRateLimiterTest {
+    
+    private static final String ROUTE_ID = "pet-vet-ai-service";
+    
+    private static GatewayConfig config(int routeRate, int routeBurst, Integer userRate, Integer userBurst) {
+        GatewayConfig.RouteRateLimit rule = new GatewayConfig.RouteRateLimit();
+        rule.setReplenishRate(routeRate);
+        rule.setBurstCapacity(routeBurst);
+        rule.setUserReplenishRate(userRate);
+        rule.setUserBurstCapacity(userBurst);
+        Map<String, GatewayConfig.RouteRateLimit> routes = new HashMap<>();
+        routes.put(ROUTE_ID, rule);
+        
+        GatewayConfig.RateLimitConfig rateLimit = new GatewayConfig.RateLimitConfig();
+        rateLimit.setEnabled(true);
+        rateLimit.setTimeoutMillis(1000L);
+        rateLimit.setRoutes(routes);
+        
+        GatewayConfig gatewayConfig = new GatewayConfig();
+        gatewayConfig.setRateLimit(rateLimit);
+        return gatewayConfig;
+    }
+    
+    @Test
+    @DisplayName("测试多个网关实例并发时全局限流阈值不被突破")
+    void testGlobalLimitAcrossInstances() throws Exception {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(clock::get);
+        GatewayConfig gatewayConfig = config(100, 200, null, null);
+        
+        int instances = 4;
+        List<DistributedRateLimiter> gateways = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            gateways.add(new DistributedRateLimiter(gatewayConfig, store));
+        }
+        
+        int threadsPerInstance = 4;
+        int requestsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(instances * threadsPerInstance);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(instances * threadsPerInstance);
+        AtomicInteger allowed = new AtomicInteger();
+        for (int i = 0; i < instances * threadsPerInstance; i++) {
+            DistributedRateLimiter gateway = gateways.get(i % instances);
+            String user = "u:" + i;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int r = 0; r < requestsPerThread; r++) {
+                        if (gateway.acquire(ROUTE_ID, user).block().isAllowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        // 时钟冻结，没有令牌补充，全局只能放行桶容量个请求
+        assertEquals(200, allowed.get());
+        
+        // 1秒后补充 replenishRate 个令牌，仍按全局计算
+        clock.addAndGet(1000L);
+        int refilled = 0;
+        for (int r = 0; r < 500; r++) {
+            if (gateways.get(r % instances).acquire(ROUTE_ID, "u:" + r).block().isAllowed()) {
+                refilled++;
+            }
+        }
+        assertEquals(100, refilled);
+    }
+    
+    @Test
+    @DisplayName("测试用户级限流不影响其他用户")
+    void testPerUserLimit() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(clock::get);
+        DistributedRateLimiter limiter = new DistributedRateLimiter(config(1000, 1000, 5, 5), store);
+        
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        }
+        RateLimitDecision rejected = limiter.acquire(ROUTE_ID, "u:1").block();
+        assertFalse(rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        
+        assertTrue(limiter.acquire(ROUTE_ID, "u:2").block().isAllowed());
+        // 被拒绝的请求不扣减路由级令牌：1000 - 5（u:1）- 1（u:2）- 1（本次）
+        assertEquals(993, limiter.acquire(ROUTE_ID, null).block().getRemaining());
+    }
+    
+    @Test
+    @DisplayName("测试用户桶以限流主体为 hash tag，路由桶和用户桶分别调用存储")
+    void testBucketKeysSpreadAcrossSlots() {
+        InMemoryRateLimitStore delegate = new InMemoryRateLimitStore(() -> 0L);
+        List<List<String>> calls = new ArrayList<>();
+        RateLimitStore recording = (buckets, permits) -> {
+            List<String> keys = new ArrayList<>();
+            buckets.forEach(bucket -> keys.add(bucket.getKey()));
+            calls.add(keys);
+            return delegate.tryAcquire(buckets, permits);
+        };
+        DistributedRateLimiter limiter = new DistributedRateLimiter(config(10, 10, 5, 5), recording);
+        
+        assertTrue(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        
+        // 同一次调用中的多个 Key 必须落在同一槽位，因此每次只传一个令牌桶；先用户后路由
+        assertEquals(List.of(
+                List.of("pet-vet:gateway:rate-limit:" + ROUTE_ID + ":user:{u:1}"),
+                List.of("pet-vet:gateway:rate-limit:{" + ROUTE_ID + "}:route")), calls);
+        
+        // 用户级已拒绝时不再访问路由桶
+        calls.clear();
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(ROUTE_ID, "u:1").block();
+        }
+        calls.clear();
+        assertFalse(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        assertEquals(1, calls.size());
+    }
+    
+    @Test
+    @DisplayName("测试未配置的路由不做分布式限流")
+    void testUnconfiguredRoutePassesThrough() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(() -> 0L);
+        DistributedRateLimiter limiter = new DistributedRateLimiter(config(1, 1, null, null), store);
+        
+        assertSame(RateLimitDecision.PASS_THROUGH, limiter.acquire("pet-vet-unknown", "u:1").block());
+    }
+    
+    @Test
+    @DisplayName("测试Redis不可用时放行并在冷却期内跳过")
+    void testFailOpenWhenStoreUnavailable() {
+        AtomicInteger calls = new AtomicInteger();
+        RateLimitStore broken = (buckets, permits) -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("connection refused"));
+        };
+        DistributedRateLimiter limiter = new DistributedRateLimiter(config(1, 1, null, null), broken);
+        
+        assertTrue(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        assertTrue(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        assertTrue(limiter.acquire(ROUTE_ID, "u:1").block().isAllowed());
+        assertEquals(1, calls.get());
+    }
+}
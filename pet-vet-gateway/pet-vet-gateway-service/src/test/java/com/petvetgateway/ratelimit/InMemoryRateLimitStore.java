@@ -0,0 +1,62 @@
+package com.petvetgateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存版令牌桶存储（测试用 Redis 替身）
+ * 
+ * 与 gateway-token-bucket.lua 的语义一致：同一把锁内原子地检查并扣减所有令牌桶，
+ * 模拟 Redis 单线程执行 Lua 脚本；多个限流器实例共享同一个存储即模拟多网关实例
+ * 只用于测试限流器本身的逻辑，脚本行为由 {@link RedisRateLimitStoreTest} 在真实 Redis 上验证
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+class InMemoryRateLimitStore implements RateLimitStore {
+    
+    private final Map<String, double[]> states = new HashMap<>();
+    
+    private final LongSupplier clock;
+    
+    InMemoryRateLimitStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(List<TokenBucket> buckets, int permits) {
+        return Mono.fromSupplier(() -> evaluate(buckets, permits));
+    }
+    
+    private synchronized RateLimitDecision evaluate(List<TokenBucket> buckets, int permits) {
+        long now = clock.getAsLong();
+        double[] filled = new double[buckets.size()];
+        boolean allowed = true;
+        for (int i = 0; i < buckets.size(); i++) {
+            TokenBucket bucket = buckets.get(i);
+            double[] state = states.get(bucket.getKey());
+            double tokens = state != null ? state[0] : bucket.getBurstCapacity();
+            long ts = state != null ? (long) state[1] : now;
+            tokens = Math.min(bucket.getBurstCapacity(),
+                    tokens + Math.max(0, now - ts) * bucket.getReplenishRate() / 1000.0);
+            filled[i] = tokens;
+            if (tokens < permits) {
+                allowed = false;
+            }
+        }
+        long remaining = -1;
+        for (int i = 0; i < buckets.size(); i++) {
+            double tokens = allowed ? filled[i] - permits : filled[i];
+            states.put(buckets.get(i).getKey(), new double[]{tokens, now});
+            long left = (long) Math.floor(tokens);
+            if (remaining < 0 || left < remaining) {
+                remaining = left;
+            }
+        }
+        return new RateLimitDecision(allowed, remaining);
+    }
+}
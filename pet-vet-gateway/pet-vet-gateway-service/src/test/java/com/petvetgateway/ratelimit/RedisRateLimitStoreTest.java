@@ -0,0 +1,135 @@
+package com.petvetgateway.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis 令牌桶存储测试：在真实 Redis 上执行 gateway-token-bucket.lua（未安装 Docker 时跳过）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Redis 令牌桶脚本测试")
+class RedisRateLimitStoreTest {
+    
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+    
+    private static LettuceConnectionFactory connectionFactory;
+    
+    private static ReactiveStringRedisTemplate redisTemplate;
+    
+    private RedisRateLimitStore store;
+    
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+    
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+        store = new RedisRateLimitStore(redisTemplate);
+    }
+    
+    private RateLimitDecision acquire(List<TokenBucket> buckets, int permits) {
+        return store.tryAcquire(buckets, permits).block(Duration.ofSeconds(5));
+    }
+    
+    private double tokens(String key) {
+        Object value = redisTemplate.opsForHash().get(key, "tokens").block(Duration.ofSeconds(5));
+        assertNotNull(value, "令牌桶不存在: " + key);
+        return Double.parseDouble(value.toString());
+    }
+    
+    @Test
+    @DisplayName("测试突发容量：新桶满容量放行，用完后拒绝")
+    void testBurst() {
+        List<TokenBucket> buckets = List.of(new TokenBucket("gateway:rl:burst", 1, 5));
+        
+        for (int i = 4; i >= 0; i--) {
+            RateLimitDecision decision = acquire(buckets, 1);
+            assertTrue(decision.isAllowed());
+            assertEquals(i, decision.getRemaining());
+        }
+        RateLimitDecision rejected = acquire(buckets, 1);
+        assertFalse(rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        
+        // 一次申请多个令牌，超过容量时拒绝
+        assertFalse(acquire(List.of(new TokenBucket("gateway:rl:burst-batch", 1, 5)), 6).isAllowed());
+        assertTrue(acquire(List.of(new TokenBucket("gateway:rl:burst-batch", 1, 5)), 5).isAllowed());
+    }
+    
+    @Test
+    @DisplayName("测试按 Redis 服务器时间补充令牌，且不超过容量")
+    void testRefill() throws InterruptedException {
+        List<TokenBucket> buckets = List.of(new TokenBucket("gateway:rl:refill", 5, 2));
+        assertTrue(acquire(buckets, 1).isAllowed());
+        assertTrue(acquire(buckets, 1).isAllowed());
+        assertFalse(acquire(buckets, 1).isAllowed());
+        
+        // 5 个/秒，500ms 后补满 2 个（不超过容量）
+        Thread.sleep(500);
+        RateLimitDecision refilled = acquire(buckets, 1);
+        assertTrue(refilled.isAllowed());
+        assertEquals(1, refilled.getRemaining());
+        assertTrue(tokens("gateway:rl:refill") <= 1.0 + 1e-9);
+    }
+    
+    @Test
+    @DisplayName("测试拒绝路径：任一令牌桶不足时所有令牌桶都不扣减")
+    void testRejectDoesNotConsume() {
+        TokenBucket user = new TokenBucket("gateway:rl:user:1", 1, 1);
+        TokenBucket route = new TokenBucket("gateway:rl:route:ai", 1, 10);
+        List<TokenBucket> buckets = List.of(user, route);
+        
+        RateLimitDecision first = acquire(buckets, 1);
+        assertTrue(first.isAllowed());
+        // 剩余令牌取各令牌桶的最小值
+        assertEquals(0, first.getRemaining());
+        double routeTokens = tokens(route.getKey());
+        assertEquals(9.0, routeTokens, 0.1);
+        
+        RateLimitDecision rejected = acquire(buckets, 1);
+        assertFalse(rejected.isAllowed());
+        // 路由令牌桶只补充不扣减，用户令牌桶不会变为负数
+        assertTrue(tokens(route.getKey()) >= routeTokens);
+        assertTrue(tokens(user.getKey()) >= 0.0);
+    }
+    
+    @Test
+    @DisplayName("测试空闲令牌桶按补满时间的 2 倍过期")
+    void testExpire() {
+        acquire(List.of(new TokenBucket("gateway:rl:expire", 10, 20)), 1);
+        
+        Duration ttl = redisTemplate.getExpire("gateway:rl:expire").block(Duration.ofSeconds(5));
+        assertNotNull(ttl);
+        assertTrue(ttl.toMillis() > 0 && ttl.toMillis() <= 4000, "TTL: " + ttl);
+    }
+}
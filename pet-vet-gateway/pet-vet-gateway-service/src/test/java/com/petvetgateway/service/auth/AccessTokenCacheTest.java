@@ -0,0 +1,59 @@
+package com.petvetgateway.service.auth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 第三方平台 Access Token 缓存测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("Access Token缓存测试")
+class AccessTokenCacheTest {
+    
+    @Test
+    @DisplayName("测试过期前提前刷新")
+    void testRefreshAhead() {
+        AtomicLong clock = new AtomicLong(0);
+        AtomicInteger loads = new AtomicInteger();
+        AccessTokenCache cache = new AccessTokenCache(clock::get);
+        
+        assertEquals("t1", cache.get("k", 100, () -> load(loads, clock, 1000)).block());
+        clock.set(899);
+        assertEquals("t1", cache.get("k", 100, () -> load(loads, clock, 1000)).block());
+        assertEquals(1, loads.get());
+        
+        // 进入提前刷新窗口
+        clock.set(900);
+        assertEquals("t2", cache.get("k", 100, () -> load(loads, clock, 1000)).block());
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    @DisplayName("测试刷新失败时继续使用未过期的旧Token")
+    void testFallbackToStaleTokenOnFailure() {
+        AtomicLong clock = new AtomicLong(0);
+        AtomicInteger loads = new AtomicInteger();
+        AccessTokenCache cache = new AccessTokenCache(clock::get);
+        cache.get("k", 100, () -> load(loads, clock, 1000)).block();
+        
+        clock.set(950);
+        assertEquals("t1", cache.get("k", 100, () -> Mono.error(new IllegalStateException("down"))).block());
+        
+        clock.set(1000);
+        assertThrows(IllegalStateException.class,
+                () -> cache.get("k", 100, () -> Mono.error(new IllegalStateException("down"))).block());
+    }
+    
+    private static Mono<AccessTokenCache.Token> load(AtomicInteger loads, AtomicLong clock, long ttlMillis) {
+        int n = loads.incrementAndGet();
+        return Mono.just(new AccessTokenCache.Token("t" + n, clock.get() + ttlMillis));
+    }
+}
@@ -0,0 +1,161 @@
+package com.petvetgateway.service.auth;
+
+import com.petvetgateway.config.GatewayConfig;
+import com.petvetgateway.config.OAuthClientConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 第三方授权客户端测试（基于桩服务器）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("第三方授权客户端测试")
+class OAuthProviderClientTest {
+    
+    private StubOAuthServer stub;
+    
+    private GatewayConfig gatewayConfig;
+    
+    private WebClient oauthWebClient;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubOAuthServer();
+        String base = stub.baseUrl();
+        
+        GatewayConfig.WeWorkUrlConfig weWorkUrls = new GatewayConfig.WeWorkUrlConfig();
+        weWorkUrls.setAccessTokenUrlTemplate(base + "/cgi-bin/gettoken?corpid=%s&corpsecret=%s");
+        weWorkUrls.setUserInfoUrlTemplate(base + "/cgi-bin/user/getuserinfo?access_token=%s&code=%s");
+        GatewayConfig.WeWorkConfig wework = new GatewayConfig.WeWorkConfig();
+        wework.setEnabled(true);
+        wework.setCorpId("corp");
+        wework.setAgentId("agent");
+        wework.setSecret("secret");
+        wework.setTimeoutMillis(500L);
+        wework.setUrls(weWorkUrls);
+        
+        GatewayConfig.WeChatUrlConfig weChatUrls = new GatewayConfig.WeChatUrlConfig();
+        weChatUrls.setAccessTokenUrlTemplate(base + "/sns/oauth2/access_token?appid=%s&secret=%s&code=%s");
+        weChatUrls.setUserInfoUrlTemplate(base + "/sns/userinfo?access_token=%s&openid=%s");
+        GatewayConfig.WeChatConfig wechat = new GatewayConfig.WeChatConfig();
+        wechat.setEnabled(true);
+        wechat.setAppId("wx-app");
+        wechat.setAppSecret("wx-secret");
+        wechat.setUrls(weChatUrls);
+        
+        GatewayConfig.QqUrlConfig qqUrls = new GatewayConfig.QqUrlConfig();
+        qqUrls.setAccessTokenUrlTemplate(base + "/oauth2.0/token?client_id=%s&client_secret=%s&code=%s&redirect_uri=%s");
+        qqUrls.setOpenIdUrlTemplate(base + "/oauth2.0/me?access_token=%s");
+        qqUrls.setUserInfoUrlTemplate(base + "/user/get_user_info?access_token=%s&oauth_consumer_key=%s&openid=%s");
+        GatewayConfig.QqConfig qq = new GatewayConfig.QqConfig();
+        qq.setEnabled(true);
+        qq.setAppId("qq-app");
+        qq.setAppKey("qq-key");
+        qq.setRedirectUri("http://localhost/callback");
+        qq.setUrls(qqUrls);
+        
+        GatewayConfig.AuthConfig auth = new GatewayConfig.AuthConfig();
+        auth.setWework(wework);
+        auth.setWechat(wechat);
+        auth.setQq(qq);
+        gatewayConfig = new GatewayConfig();
+        gatewayConfig.setAuth(auth);
+        
+        oauthWebClient = new OAuthClientConfig().oauthWebClient(gatewayConfig);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+    
+    @Test
+    @DisplayName("测试企业微信Access Token缓存复用")
+    void testWeWorkAccessTokenCached() {
+        WeWorkAuthService service = new WeWorkAuthService(gatewayConfig, oauthWebClient);
+        
+        Map<String, Object> first = service.getUserInfoByCode("code-1").block();
+        Map<String, Object> second = service.getUserInfoByCode("code-2").block();
+        
+        assertNotNull(first);
+        assertEquals("zhangsan", first.get("userId"));
+        assertEquals("wework", first.get("authType"));
+        assertNotNull(second);
+        assertEquals(1, stub.hits("/cgi-bin/gettoken"));
+        assertEquals(2, stub.hits("/cgi-bin/user/getuserinfo"));
+    }
+    
+    @Test
+    @DisplayName("测试并发请求只刷新一次Access Token")
+    void testWeWorkAccessTokenSingleFlight() {
+        stub.setTokenDelayMillis(200);
+        WeWorkAuthService service = new WeWorkAuthService(gatewayConfig, oauthWebClient);
+        
+        List<Map<String, Object>> results = Flux.range(0, 50)
+                .flatMap(i -> service.getUserInfoByCode("code-" + i))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        
+        assertNotNull(results);
+        assertEquals(50, results.size());
+        assertEquals(1, stub.hits("/cgi-bin/gettoken"));
+    }
+    
+    @Test
+    @DisplayName("测试单个平台超时不拖住调用方")
+    void testProviderTimeout() {
+        WeWorkAuthService service = new WeWorkAuthService(gatewayConfig, oauthWebClient);
+        
+        long start = System.nanoTime();
+        Map<String, Object> result = service.getUserInfoByCode("slow").block(Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        assertNull(result);
+        assertTrue(elapsedMillis < 1500, "超时未生效，耗时: " + elapsedMillis + "ms");
+    }
+    
+    @Test
+    @DisplayName("测试授权流程全程运行在非阻塞线程上且不调用阻塞API")
+    void testNoBlockingCallOnEventLoop() {
+        // Reactor 的 parallel 调度器和 Netty 事件循环线程都是 NonBlocking 线程，
+        // 在这类线程上调用 block() 会直接抛出 IllegalStateException，
+        // 因此若授权流程内部仍有 block()，下面的结果会因为异常被吞掉而为空
+        List<Boolean> nonBlockingThreads = new CopyOnWriteArrayList<>();
+        WeWorkAuthService weWork = new WeWorkAuthService(gatewayConfig, oauthWebClient);
+        WeChatAuthService weChat = new WeChatAuthService(gatewayConfig, oauthWebClient);
+        QqAuthService qq = new QqAuthService(gatewayConfig, oauthWebClient);
+        
+        List<Map<String, Object>> results = Flux.merge(
+                        weWork.getUserInfoByCode("code"),
+                        weChat.getUserInfoByCode("code"),
+                        qq.getUserInfoByCode("code"))
+                .doOnNext(userInfo -> nonBlockingThreads.add(Schedulers.isInNonBlockingThread()))
+                .subscribeOn(Schedulers.parallel())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals(List.of(true, true, true), nonBlockingThreads);
+        
+        // 在非阻塞线程上调用 block() 必须被检测出来，保证上面的断言有效
+        assertThrows(IllegalStateException.class, () -> Mono.fromCallable(() -> Mono.just(1).delayElement(Duration.ofMillis(10)).block())
+                .subscribeOn(Schedulers.parallel())
+                .block(Duration.ofSeconds(5)));
+    }
+}
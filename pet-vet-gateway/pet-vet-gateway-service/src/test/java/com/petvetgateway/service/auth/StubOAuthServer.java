@@ -0,0 +1,113 @@
+package com.petvetgateway.service.auth;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 第三方授权平台桩服务器（测试用）
+ * 
+ * 基于 JDK HttpServer，模拟企业微信、微信、QQ 的授权接口，并统计各路径调用次数
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+class StubOAuthServer implements AutoCloseable {
+    
+    private final HttpServer server;
+    
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    
+    /**
+     * 企业微信 gettoken 接口的响应延迟（毫秒），用于制造并发刷新窗口
+     */
+    private volatile long tokenDelayMillis;
+    
+    StubOAuthServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        
+        // 企业微信
+        json("/cgi-bin/gettoken", exchange -> {
+            sleep(tokenDelayMillis);
+            return "{\"errcode\":0,\"access_token\":\"wework-token-" + hits("/cgi-bin/gettoken") + "\",\"expires_in\":7200}";
+        });
+        json("/cgi-bin/user/getuserinfo", exchange -> {
+            if (exchange.getRequestURI().getQuery().contains("code=slow")) {
+                sleep(2000);
+            }
+            return "{\"errcode\":0,\"errmsg\":\"ok\",\"UserId\":\"zhangsan\",\"DeviceId\":\"device-1\"}";
+        });
+        
+        // 微信
+        json("/sns/oauth2/access_token", exchange -> "{\"access_token\":\"wechat-token\",\"expires_in\":7200,\"openid\":\"wechat-open-id\"}");
+        json("/sns/userinfo", exchange -> "{\"openid\":\"wechat-open-id\",\"nickname\":\"wechat-user\",\"headimgurl\":\"http://img\"}");
+        
+        // QQ
+        text("/oauth2.0/token", exchange -> "access_token=qq-token&expires_in=7776000&refresh_token=qq-refresh");
+        text("/oauth2.0/me", exchange -> "callback( {\"client_id\":\"qq-app\",\"openid\":\"qq-open-id\"} );");
+        json("/user/get_user_info", exchange -> "{\"ret\":0,\"nickname\":\"qq-user\",\"figureurl\":\"http://qq-img\"}");
+        
+        server.start();
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    int hits(String path) {
+        return hits.computeIfAbsent(path, k -> new AtomicInteger()).get();
+    }
+    
+    void setTokenDelayMillis(long tokenDelayMillis) {
+        this.tokenDelayMillis = tokenDelayMillis;
+    }
+    
+    private void json(String path, Responder responder) {
+        handle(path, "application/json;charset=UTF-8", responder);
+    }
+    
+    private void text(String path, Responder responder) {
+        handle(path, "text/plain;charset=UTF-8", responder);
+    }
+    
+    private void handle(String path, String contentType, Responder responder) {
+        server.createContext(path, exchange -> {
+            hits.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+            byte[] body = responder.respond(exchange).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+    
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private interface Responder {
+        String respond(HttpExchange exchange);
+    }
+}
@@ -0,0 +1,35 @@
+package com.petvetgateway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MurmurHash3 测试（参考值与 Guava murmur3_128(0).hashString(..).asLong() 一致）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("MurmurHash3 测试")
+class Murmur3HashTest {
+    
+    @Test
+    @DisplayName("测试参考向量")
+    void testReferenceVectors() {
+        assertEquals(0L, Murmur3Hash.hash64(""));
+        assertEquals(0x629942693e10f867L, Murmur3Hash.hash64("hell"));
+        assertEquals(0xcbd8a7b341bd9b02L, Murmur3Hash.hash64("hello"));
+        assertEquals(0xe34bbc7bbc071b6cL, Murmur3Hash.hash64("The quick brown fox jumps over the lazy dog"));
+    }
+    
+    @Test
+    @DisplayName("测试字符串与字节数组结果一致")
+    void testStringAndBytesConsistent() {
+        String text = "user:宠物医生-123456";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertEquals(Murmur3Hash.hash64(text), Murmur3Hash.hash64(bytes, 0, bytes.length, 0));
+    }
+}
@@ -0,0 +1,90 @@
+package com.petvetgateway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路径模式前缀树测试（不依赖Spring上下文）
+ * 
+ * @author daidasheng
+ * @date 2026-10-16
+ */
+@DisplayName("路径模式前缀树测试")
+class PathPatternTrieTest {
+    
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    
+    @Test
+    @DisplayName("测试默认白名单匹配")
+    void testDefaultWhitelist() {
+        List<String> whitelist = List.of("/api/auth/**", "/api/public/**", "/api/demo/**",
+                "/actuator/**", "/health", "/favicon.ico");
+        PathPatternTrie trie = PathPatternTrie.compile(whitelist, new PathPatternTrie.MatchCounters());
+        
+        assertTrue(trie.matches("/api/auth/url"));
+        assertTrue(trie.matches("/api/auth"));
+        assertTrue(trie.matches("/api/demo/a/b/c"));
+        assertTrue(trie.matches("/health"));
+        assertFalse(trie.matches("/health/"));
+        assertFalse(trie.matches("/api/ai/diagnosis"));
+        assertFalse(trie.matches("/healthz"));
+        assertEquals(6, trie.getCompiledPatternCount());
+        assertEquals(0, trie.getFallbackPatternCount());
+    }
+    
+    @Test
+    @DisplayName("测试与AntPathMatcher结果一致")
+    void testEquivalentToAntPathMatcher() {
+        List<String> patterns = List.of("/a/*", "/a/*/c", "/b/**/d", "/c/**/x/**", "/d/", "/e/*/",
+                "/f/**", "/g/*.js", "/h/{id}", "/i/**/**", "/*/j");
+        PathPatternTrie trie = PathPatternTrie.compile(patterns, new PathPatternTrie.MatchCounters());
+        List<String> paths = List.of("/a", "/a/", "/a/b", "/a/b/", "/a/b/c", "/a/b/c/d", "/b/d", "/b/1/2/d",
+                "/b/1/2/e", "/c/x", "/c/1/x/2", "/d", "/d/", "/e/1", "/e/1/", "/f", "/f/", "/f/1/2",
+                "/g/app.js", "/g/app.css", "/h/12", "/i", "/i/1/2", "/z/j", "/j", "//a//b", "");
+        
+        for (String path : paths) {
+            boolean expected = patterns.stream().anyMatch(p -> antPathMatcher.match(p, path));
+            assertEquals(expected, trie.matches(path), "路径不一致: " + path);
+        }
+        assertEquals(2, trie.getFallbackPatternCount());
+    }
+    
+    @Test
+    @DisplayName("测试大白名单下的匹配代价")
+    void testMatchCostUnderLargeWhitelist() {
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            patterns.add("/api/service" + i + "/public/**");
+            patterns.add("/api/service" + i + "/*/info");
+        }
+        PathPatternTrie.MatchCounters counters = new PathPatternTrie.MatchCounters();
+        PathPatternTrie trie = PathPatternTrie.compile(patterns, counters);
+        
+        Random random = new Random(42);
+        int lookups = 10000;
+        for (int i = 0; i < lookups; i++) {
+            int service = random.nextInt(4000);
+            String path = switch (random.nextInt(3)) {
+                case 0 -> "/api/service" + service + "/public/doc/" + i;
+                case 1 -> "/api/service" + service + "/user/info";
+                default -> "/api/service" + service + "/private/" + i;
+            };
+            boolean expected = service < 2000 && !path.contains("/private/");
+            assertEquals(expected, trie.matches(path), "路径不一致: " + path);
+        }
+        
+        // 逐个匹配需要 lookups × 模式数 次匹配，前缀树每次查找只访问常数个节点
+        assertEquals(lookups, counters.getLookups());
+        assertEquals(0, counters.getFallbackChecks());
+        assertTrue(counters.getNodeVisits() < (long) lookups * 10,
+                "节点访问次数过多: " + counters.getNodeVisits());
+        assertTrue(counters.getNodeVisits() < (long) lookups * patterns.size() / 100);
+    }
+}
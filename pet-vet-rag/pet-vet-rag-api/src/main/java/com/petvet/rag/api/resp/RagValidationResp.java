@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * RAG 验证响应
@@ -59,6 +60,12 @@ public class RagValidationResp {
      */
     private Boolean usedKnowledgeBase;
     
+    /**
+     * 各阶段耗时（毫秒），键为 memory、classification、retrieval、generation，未执行的阶段没有对应的键。
+     * 各阶段并行执行，耗时之和可能大于 queryTime
+     */
+    private Map<String, Long> stageTimings;
+    
     /**
      * 检索到的文档信息
      */
@@ -4,6 +4,9 @@ import com.petvet.rag.app.classifier.chain.ClassificationChain;
 import com.petvet.rag.app.classifier.model.ClassificationResult;
 import com.petvet.rag.app.classifier.strategy.impl.CacheLayerStrategy;
 import com.petvet.rag.app.classifier.strategy.impl.RedisCacheLayerStrategy;
+import com.petvet.rag.app.semantic.SemanticCacheAudit;
+import com.petvet.rag.app.semantic.SemanticClassificationHit;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
 import com.petvet.rag.app.service.MemoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,10 +15,13 @@ import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 
+import java.util.Objects;
+
 /**
  * 混合分类编排器
  * 协调各个策略，处理缓存更新
  * 支持 Redis 分布式缓存和本地缓存
+ * 支持语义缓存：高置信度结果同时写入语义缓存，语义缓存命中按比例抽样重新分类，结果不一致时记为误命中
  * 
  * @author daidasheng
  * @date 2024-12-15
@@ -27,6 +33,7 @@ public class HybridClassificationOrchestrator {
     
     private final ClassificationChain classificationChain;
     private final CacheLayerStrategy cacheLayerStrategy;
+    private final SemanticQueryCache semanticQueryCache;
     
     @Autowired(required = false)
     private RedisCacheLayerStrategy redisCacheLayerStrategy;
@@ -59,6 +66,19 @@ public class HybridClassificationOrchestrator {
             // 1. 执行责任链分类
             ClassificationResult result = classificationChain.execute(query, memory);
             
+            // 抽样校验语义缓存命中：跳过语义缓存重新分类，高置信度的新结果与缓存结果不一致时删除该缓存并使用新结果
+            // （兜底策略等低置信度结果不足以判定误命中）
+            // 命中结果附带命中的条目，误命中时直接删除该条目，不再重新查找
+            if (result instanceof SemanticClassificationHit && semanticQueryCache.shouldVerify()) {
+                ClassificationResult fresh = classificationChain.execute(query, memory, SemanticQueryCache.STRATEGY_NAME);
+                if (fresh != null && fresh.getConfidence() != null && fresh.getConfidence() >= 0.8
+                    && !Objects.equals(fresh.getNeedRetrieval(), result.getNeedRetrieval())) {
+                    semanticQueryCache.reportFalseHit(SemanticCacheAudit.Tier.CLASSIFICATION, query,
+                        (SemanticClassificationHit) result);
+                    result = fresh;
+                }
+            }
+            
             // 2. 如果结果不为空，更新缓存（异步）
             if (result != null && !Boolean.TRUE.equals(result.getCacheHit())) {
                 // 只有高置信度的结果才缓存
@@ -69,6 +89,7 @@ public class HybridClassificationOrchestrator {
                     } else {
                         cacheLayerStrategy.cacheResult(query, result);
                     }
+                    semanticQueryCache.putClassification(query, result);
                 }
             }
             
@@ -96,4 +117,15 @@ public class HybridClassificationOrchestrator {
                 .build();
         }
     }
+    
+    /**
+     * 分类是否依赖对话记忆
+     * 
+     * @return 是否有启用的策略依赖对话记忆
+     * @date 2026-10-17
+     * @author daidasheng
+     */
+    public boolean requiresMemory() {
+        return classificationChain.requiresMemory();
+    }
 }
@@ -45,6 +45,18 @@ public class ClassificationChain {
      * @return 分类结果
      */
     public ClassificationResult execute(String query, MemoryService.ConversationMemory memory) {
+        return execute(query, memory, null);
+    }
+    
+    /**
+     * 执行分类，跳过指定策略（用于校验缓存结果）
+     * 
+     * @param query 用户查询
+     * @param memory 对话记忆
+     * @param skippedStrategy 跳过的策略名称，为 null 时不跳过
+     * @return 分类结果
+     */
+    public ClassificationResult execute(String query, MemoryService.ConversationMemory memory, String skippedStrategy) {
         if (query == null || query.trim().isEmpty()) {
             return ClassificationResult.builder()
                 .needRetrieval(false)
@@ -58,6 +70,9 @@ public class ClassificationChain {
         
         // 按优先级顺序执行策略
         for (ClassificationStrategy strategy : strategies) {
+            if (skippedStrategy != null && skippedStrategy.equals(strategy.getName())) {
+                continue;
+            }
             try {
                 // 检查是否匹配
                 if (strategy.matches(query, memory)) {
@@ -84,6 +99,17 @@ public class ClassificationChain {
         return null;
     }
     
+    /**
+     * 是否有启用的策略依赖对话记忆
+     * 
+     * @return 是否依赖对话记忆
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean requiresMemory() {
+        return strategies.stream().anyMatch(strategy -> strategy.isEnabled() && strategy.requiresMemory());
+    }
+    
     /**
      * 获取策略列表
      * 
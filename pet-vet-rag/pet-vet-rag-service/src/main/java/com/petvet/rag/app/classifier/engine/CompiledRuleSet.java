@@ -0,0 +1,267 @@
+package com.petvet.rag.app.classifier.engine;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.model.RuleDefinition;
+import com.petvet.rag.app.service.MemoryService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 编译后的规则集
+ * 
+ * 由 {@link RuleCompiler} 构建，构建后不可变。关键词规则的匹配结果由自动机一次扫描得到，
+ * 静态动作直接设置结果，其余表达式和动作按需创建上下文后交给 {@link RuleEngine} 执行
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+public final class CompiledRuleSet {
+    
+    /**
+     * 空规则集
+     */
+    public static final CompiledRuleSet EMPTY = new CompiledRuleSet(List.of(), null, null);
+    
+    private static final Pattern MEMORY = Pattern.compile("\\bmemory\\b");
+    
+    /**
+     * 规则（按优先级排序）
+     */
+    private final List<CompiledRule> rules;
+    
+    /**
+     * query.contains 关键词的自动机，没有此类关键词时为 null
+     */
+    private final KeywordAutomaton queryKeywords;
+    
+    /**
+     * lowerQuery.contains 关键词的自动机，没有此类关键词时为 null
+     */
+    private final KeywordAutomaton lowerQueryKeywords;
+    
+    /**
+     * 是否有规则的表达式或动作引用了 memory
+     */
+    private final boolean usesMemory;
+    
+    CompiledRuleSet(List<CompiledRule> rules, KeywordAutomaton queryKeywords, KeywordAutomaton lowerQueryKeywords) {
+        this.rules = List.copyOf(rules);
+        this.queryKeywords = queryKeywords;
+        this.lowerQueryKeywords = lowerQueryKeywords;
+        this.usesMemory = rules.stream().map(CompiledRule::getDefinition)
+            .anyMatch(rule -> references(rule.getExpression()) || references(rule.getAction()));
+    }
+    
+    /**
+     * 按优先级顺序执行规则，返回第一个动作返回 true（或没有动作）的规则的结果
+     * 
+     * 与逐条交给 QLExpress 执行的结果一致：执行失败的规则被跳过，动作返回 true 以外的值时继续执行下一条规则
+     * 
+     * @param query 用户查询
+     * @param memory 对话记忆
+     * @param ruleEngine 执行动态表达式的规则引擎
+     * @return 分类结果，所有规则都不匹配时返回 null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public ClassificationResult evaluate(String query, MemoryService.ConversationMemory memory, RuleEngine ruleEngine) {
+        String lowerQuery = query.toLowerCase();
+        BitSet keywordMatched = new BitSet(rules.size());
+        if (queryKeywords != null) {
+            queryKeywords.match(query, keywordMatched);
+        }
+        if (lowerQueryKeywords != null) {
+            lowerQueryKeywords.match(lowerQuery, keywordMatched);
+        }
+        
+        ClassificationResult result = ClassificationResult.builder()
+            .needRetrieval(null)
+            .confidence(0.0)
+            .reason("")
+            .strategyName("RuleLayerStrategy")
+            .build();
+        // 只有执行动态表达式时才需要上下文
+        Map<String, Object> context = null;
+        
+        for (int index = 0; index < rules.size(); index++) {
+            CompiledRule rule = rules.get(index);
+            RuleDefinition definition = rule.getDefinition();
+            try {
+                boolean matched;
+                if (rule.isKeywordRule()) {
+                    matched = keywordMatched.get(index);
+                } else {
+                    if (context == null) {
+                        context = createContext(ruleEngine, query, lowerQuery, memory, result);
+                    }
+                    matched = ruleEngine.executeBoolean(definition.getExpression(), context);
+                }
+                if (!matched) {
+                    continue;
+                }
+                log.debug("规则 {} 匹配成功, 表达式: {}", definition.getName(), definition.getExpression());
+                
+                if (rule.getAction() != null) {
+                    if (rule.getAction().apply(result)) {
+                        return result;
+                    }
+                } else if (definition.getAction() != null && !definition.getAction().trim().isEmpty()) {
+                    if (context == null) {
+                        context = createContext(ruleEngine, query, lowerQuery, memory, result);
+                    }
+                    Object actionResult = ruleEngine.execute(definition.getAction(), context);
+                    if (actionResult instanceof Boolean && (Boolean) actionResult) {
+                        return result;
+                    }
+                } else {
+                    log.debug("规则 {} 匹配但无动作表达式, 返回默认结果", definition.getName());
+                    return result;
+                }
+            } catch (Exception e) {
+                log.warn("规则 {} 执行失败, 继续下一个规则, 错误: {}", definition.getName(), e.getMessage());
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 获取规则定义（按优先级排序）
+     * 
+     * @return 规则定义列表
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public List<RuleDefinition> getDefinitions() {
+        return rules.stream().map(CompiledRule::getDefinition).collect(Collectors.toList());
+    }
+    
+    /**
+     * 获取由自动机匹配的关键词规则数量
+     * 
+     * @return 关键词规则数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int getKeywordRuleCount() {
+        return (int) rules.stream().filter(CompiledRule::isKeywordRule).count();
+    }
+    
+    /**
+     * 获取动作为静态动作的规则数量
+     * 
+     * @return 静态动作规则数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int getStaticActionCount() {
+        return (int) rules.stream().filter(rule -> rule.getAction() != null).count();
+    }
+    
+    /**
+     * 是否有规则的表达式或动作引用了对话记忆
+     * 
+     * @return 是否引用了 memory
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean usesMemory() {
+        return usesMemory;
+    }
+    
+    /**
+     * 获取规则数量
+     * 
+     * @return 规则数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int size() {
+        return rules.size();
+    }
+    
+    private static boolean references(String text) {
+        return text != null && MEMORY.matcher(text).find();
+    }
+    
+    private static Map<String, Object> createContext(RuleEngine ruleEngine, String query, String lowerQuery,
+                                                     MemoryService.ConversationMemory memory,
+                                                     ClassificationResult result) {
+        Map<String, Object> context = ruleEngine.createContext();
+        context.put(RuleCompiler.QUERY, query);
+        context.put(RuleCompiler.LOWER_QUERY, lowerQuery);
+        context.put("memory", memory);
+        context.put("result", result);
+        return context;
+    }
+    
+    /**
+     * 编译后的规则
+     */
+    @Getter
+    @AllArgsConstructor
+    static class CompiledRule {
+        
+        /**
+         * 规则定义
+         */
+        private final RuleDefinition definition;
+        
+        /**
+         * 是否为关键词规则（由自动机匹配）
+         */
+        private final boolean keywordRule;
+        
+        /**
+         * 静态动作，动作需要交给 QLExpress 执行或没有动作时为 null
+         */
+        private final StaticAction action;
+    }
+    
+    /**
+     * 只包含常量赋值的规则动作
+     */
+    @AllArgsConstructor
+    static class StaticAction {
+        
+        /**
+         * 以下字段为 null 表示动作中没有设置
+         */
+        private final Boolean needRetrieval;
+        
+        private final Double confidence;
+        
+        private final String reason;
+        
+        /**
+         * 动作是否以 return true 结束
+         */
+        private final boolean returnsTrue;
+        
+        /**
+         * 设置结果
+         * 
+         * @param result 分类结果
+         * @return 动作的返回值是否为 true
+         */
+        boolean apply(ClassificationResult result) {
+            if (needRetrieval != null) {
+                result.setNeedRetrieval(needRetrieval);
+            }
+            if (confidence != null) {
+                result.setConfidence(confidence);
+            }
+            if (reason != null) {
+                result.setReason(reason);
+            }
+            return returnsTrue;
+        }
+    }
+}
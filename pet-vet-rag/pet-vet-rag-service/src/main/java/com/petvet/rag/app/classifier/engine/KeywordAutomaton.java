@@ -0,0 +1,216 @@
+package com.petvet.rag.app.classifier.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 关键词多模式匹配自动机（Aho–Corasick）
+ * 
+ * 每个关键词关联一个整数值（通常为规则序号），一次扫描文本即可得到所有出现过的关键词对应的值，
+ * 耗时只与文本长度和命中数有关，与关键词数量无关。构建后不可变，可被多个线程共享
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public final class KeywordAutomaton {
+    
+    private static final int[] NO_VALUES = new int[0];
+    
+    /**
+     * 每个状态的出边字符（升序）
+     */
+    private final char[][] labels;
+    
+    /**
+     * 每个状态的出边目标，与 labels 一一对应
+     */
+    private final int[][] targets;
+    
+    /**
+     * 失败指针
+     */
+    private final int[] fail;
+    
+    /**
+     * 到达状态时命中的值（已合并失败指针链上的值）
+     */
+    private final int[][] values;
+    
+    private KeywordAutomaton(char[][] labels, int[][] targets, int[] fail, int[][] values) {
+        this.labels = labels;
+        this.targets = targets;
+        this.fail = fail;
+        this.values = values;
+    }
+    
+    /**
+     * 创建构建器
+     * 
+     * @return 构建器
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * 扫描文本，把出现过的关键词对应的值写入 matched
+     * 
+     * @param text 文本
+     * @param matched 命中的值
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void match(CharSequence text, BitSet matched) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transition(labels, targets, state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            for (int value : values[state]) {
+                matched.set(value);
+            }
+        }
+    }
+    
+    /**
+     * 状态数量（含根状态）
+     * 
+     * @return 状态数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int getStateCount() {
+        return fail.length;
+    }
+    
+    private static int transition(char[][] labels, int[][] targets, int state, char c) {
+        int index = Arrays.binarySearch(labels[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+    
+    /**
+     * 自动机构建器（非线程安全）
+     */
+    public static final class Builder {
+        
+        private final List<StringBuilder> stateLabels = new ArrayList<>();
+        
+        private final List<List<Integer>> stateTargets = new ArrayList<>();
+        
+        private final List<BitSet> stateValues = new ArrayList<>();
+        
+        private Builder() {
+            newState();
+        }
+        
+        /**
+         * 添加关键词
+         * 
+         * @param keyword 关键词，不能为空串
+         * @param value 命中时写入的值，不能为负数
+         * @return 构建器
+         * @author daidasheng
+         * @date 2026-10-17
+         */
+        public Builder add(String keyword, int value) {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("关键词不能为空");
+            }
+            if (value < 0) {
+                throw new IllegalArgumentException("关键词的值不能为负数: " + value);
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                int index = stateLabels.get(state).indexOf(String.valueOf(c));
+                if (index >= 0) {
+                    state = stateTargets.get(state).get(index);
+                } else {
+                    int next = newState();
+                    stateLabels.get(state).append(c);
+                    stateTargets.get(state).add(next);
+                    state = next;
+                }
+            }
+            stateValues.get(state).set(value);
+            return this;
+        }
+        
+        /**
+         * 构建自动机：按层次遍历计算失败指针，并把失败指针链上的值合并到每个状态
+         * 
+         * @return 自动机
+         * @author daidasheng
+         * @date 2026-10-17
+         */
+        public KeywordAutomaton build() {
+            int count = stateLabels.size();
+            char[][] labels = new char[count][];
+            int[][] targets = new int[count][];
+            for (int state = 0; state < count; state++) {
+                char[] chars = stateLabels.get(state).toString().toCharArray();
+                List<Integer> next = stateTargets.get(state);
+                Integer[] order = new Integer[chars.length];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (a, b) -> Character.compare(chars[a], chars[b]));
+                labels[state] = new char[chars.length];
+                targets[state] = new int[chars.length];
+                for (int i = 0; i < order.length; i++) {
+                    labels[state][i] = chars[order[i]];
+                    targets[state][i] = next.get(order[i]);
+                }
+            }
+            
+            int[] fail = new int[count];
+            BitSet[] merged = new BitSet[count];
+            merged[0] = stateValues.get(0);
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                merged[child] = stateValues.get(child);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < labels[state].length; i++) {
+                    char c = labels[state][i];
+                    int child = targets[state][i];
+                    int f = fail[state];
+                    int next;
+                    while ((next = transition(labels, targets, f, c)) < 0 && f != 0) {
+                        f = fail[f];
+                    }
+                    fail[child] = Math.max(next, 0);
+                    // 子状态按层次在父状态之后出队，此时失败指针指向的较浅状态已合并完毕
+                    BitSet values = (BitSet) stateValues.get(child).clone();
+                    values.or(merged[fail[child]]);
+                    merged[child] = values;
+                    queue.add(child);
+                }
+            }
+            
+            int[][] values = new int[count][];
+            for (int state = 0; state < count; state++) {
+                values[state] = merged[state].isEmpty() ? NO_VALUES : merged[state].stream().toArray();
+            }
+            return new KeywordAutomaton(labels, targets, fail, values);
+        }
+        
+        private int newState() {
+            stateLabels.add(new StringBuilder(2));
+            stateTargets.add(new ArrayList<>(2));
+            stateValues.add(new BitSet());
+            return stateLabels.size() - 1;
+        }
+    }
+}
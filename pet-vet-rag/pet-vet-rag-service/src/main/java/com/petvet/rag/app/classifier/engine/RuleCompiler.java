@@ -0,0 +1,169 @@
+package com.petvet.rag.app.classifier.engine;
+
+import com.petvet.rag.app.classifier.model.RuleDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 规则编译器
+ * 
+ * 识别规则中可以不经过 QLExpress 执行的部分：
+ * <ul>
+ *     <li>表达式只由 query/lowerQuery.contains("关键词") 以 || 连接组成的关键词规则，
+ *     所有关键词规则合并到 {@link KeywordAutomaton} 中，一次扫描查询即可得到全部规则的匹配结果</li>
+ *     <li>动作只由 result.setNeedRetrieval/setConfidence/setReason 常量赋值和 return true/false 组成的静态动作</li>
+ * </ul>
+ * 其余表达式和动作仍交给 {@link RuleEngine} 执行（编译结果由 RuleEngine 缓存）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public final class RuleCompiler {
+    
+    static final String QUERY = "query";
+    
+    static final String LOWER_QUERY = "lowerQuery";
+    
+    /**
+     * 单个关键词条件，关键词不含引号、反斜杠和 $（含转义或字符串插值的表达式交给 QLExpress）
+     */
+    private static final Pattern CONTAINS = Pattern.compile(
+        "\\s*(query|lowerQuery)\\s*\\.\\s*contains\\s*\\(\\s*\"([^\"\\\\$]+)\"\\s*\\)\\s*");
+    
+    private static final Pattern OR = Pattern.compile("\\|\\|");
+    
+    private static final Pattern SET_NEED_RETRIEVAL = Pattern.compile(
+        "\\s*result\\s*\\.\\s*setNeedRetrieval\\s*\\(\\s*(true|false)\\s*\\)\\s*;");
+    
+    /**
+     * 只接受小数常量，整数常量与 Double 参数的转换交给 QLExpress 处理
+     */
+    private static final Pattern SET_CONFIDENCE = Pattern.compile(
+        "\\s*result\\s*\\.\\s*setConfidence\\s*\\(\\s*(\\d+\\.\\d+)\\s*\\)\\s*;");
+    
+    private static final Pattern SET_REASON = Pattern.compile(
+        "\\s*result\\s*\\.\\s*setReason\\s*\\(\\s*\"([^\"\\\\$]*)\"\\s*\\)\\s*;");
+    
+    private static final Pattern RETURN = Pattern.compile("\\s*return\\s+(true|false)\\s*;?\\s*");
+    
+    private static final Pattern BLANK = Pattern.compile("\\s*");
+    
+    private RuleCompiler() {
+    }
+    
+    /**
+     * 编译规则
+     * 
+     * @param rules 规则列表（已按优先级排序）
+     * @return 编译后的规则集
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static CompiledRuleSet compile(List<RuleDefinition> rules) {
+        List<CompiledRuleSet.CompiledRule> compiled = new ArrayList<>(rules.size());
+        KeywordAutomaton.Builder queryKeywords = KeywordAutomaton.builder();
+        KeywordAutomaton.Builder lowerQueryKeywords = KeywordAutomaton.builder();
+        boolean hasQueryKeywords = false;
+        boolean hasLowerQueryKeywords = false;
+        
+        for (int index = 0; index < rules.size(); index++) {
+            RuleDefinition rule = rules.get(index);
+            List<String[]> keywords = parseKeywords(rule.getExpression());
+            if (keywords != null) {
+                for (String[] keyword : keywords) {
+                    if (QUERY.equals(keyword[0])) {
+                        queryKeywords.add(keyword[1], index);
+                        hasQueryKeywords = true;
+                    } else {
+                        lowerQueryKeywords.add(keyword[1], index);
+                        hasLowerQueryKeywords = true;
+                    }
+                }
+            }
+            compiled.add(new CompiledRuleSet.CompiledRule(rule, keywords != null, parseAction(rule.getAction())));
+        }
+        
+        return new CompiledRuleSet(compiled,
+            hasQueryKeywords ? queryKeywords.build() : null,
+            hasLowerQueryKeywords ? lowerQueryKeywords.build() : null);
+    }
+    
+    /**
+     * 解析关键词规则表达式
+     * 
+     * @param expression 规则表达式
+     * @return 关键词列表（每项为 {变量名, 关键词}），不是关键词规则时返回 null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    static List<String[]> parseKeywords(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        List<String[]> keywords = new ArrayList<>();
+        Matcher contains = CONTAINS.matcher(expression);
+        Matcher or = OR.matcher(expression);
+        int position = 0;
+        while (true) {
+            contains.region(position, expression.length());
+            if (!contains.lookingAt()) {
+                return null;
+            }
+            keywords.add(new String[]{contains.group(1), contains.group(2)});
+            position = contains.end();
+            if (position == expression.length()) {
+                return keywords;
+            }
+            or.region(position, expression.length());
+            if (!or.lookingAt()) {
+                return null;
+            }
+            position = or.end();
+        }
+    }
+    
+    /**
+     * 解析静态动作
+     * 
+     * @param action 动作表达式
+     * @return 静态动作，为空或包含其他语句时返回 null
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    static CompiledRuleSet.StaticAction parseAction(String action) {
+        if (action == null || action.trim().isEmpty()) {
+            return null;
+        }
+        Boolean needRetrieval = null;
+        Double confidence = null;
+        String reason = null;
+        boolean returnsTrue = false;
+        int position = 0;
+        while (position < action.length()) {
+            Matcher matcher;
+            if ((matcher = lookingAt(SET_NEED_RETRIEVAL, action, position)) != null) {
+                needRetrieval = Boolean.valueOf(matcher.group(1));
+            } else if ((matcher = lookingAt(SET_CONFIDENCE, action, position)) != null) {
+                confidence = Double.valueOf(matcher.group(1));
+            } else if ((matcher = lookingAt(SET_REASON, action, position)) != null) {
+                reason = matcher.group(1);
+            } else if ((matcher = lookingAt(RETURN, action, position)) != null && matcher.end() == action.length()) {
+                returnsTrue = Boolean.parseBoolean(matcher.group(1));
+            } else if (lookingAt(BLANK, action, position).end() == action.length()) {
+                break;
+            } else {
+                return null;
+            }
+            position = matcher.end();
+        }
+        return new CompiledRuleSet.StaticAction(needRetrieval, confidence, reason, returnsTrue);
+    }
+    
+    private static Matcher lookingAt(Pattern pattern, String text, int position) {
+        Matcher matcher = pattern.matcher(text).region(position, text.length());
+        return matcher.lookingAt() ? matcher : null;
+    }
+}
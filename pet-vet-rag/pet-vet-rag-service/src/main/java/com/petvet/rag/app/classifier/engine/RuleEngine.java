@@ -22,6 +22,8 @@ import java.util.Map;
  * - 包名：com.alibaba.qlexpress4
  * - 支持表达式缓存，提升重复执行性能
  * 
+ * 纯关键词规则由 {@link RuleCompiler} 编译为自动机，不经过本类执行，这里只执行动态表达式
+ * 
  * @author daidasheng
  * @date 2024-12-15
  */
@@ -35,6 +37,11 @@ public class RuleEngine {
      */
     private Express4Runner runner;
     
+    /**
+     * 执行选项：缓存表达式的编译结果，同一表达式只解析一次
+     */
+    private static final QLOptions CACHED_OPTIONS = QLOptions.builder().cache(true).build();
+    
     /**
      * 初始化规则引擎
      * 
@@ -70,8 +77,8 @@ public class RuleEngine {
         }
         
         try {
-            // 执行表达式（QLExpress 4.0.4会自动缓存编译结果）
-            QLResult qlResult = runner.execute(expression, context != null ? context : new HashMap<>(), QLOptions.DEFAULT_OPTIONS);
+            // 执行表达式（按表达式文本缓存编译结果）
+            QLResult qlResult = runner.execute(expression, context != null ? context : new HashMap<>(), CACHED_OPTIONS);
             Object result = qlResult.getResult();
             log.debug("规则表达式执行成功: {}, 结果: {}", expression, result);
             return result;
@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
  * 规则加载器
  * 
  * 负责从配置中加载规则定义，并提供默认规则
+ * 加载后的规则由 {@link RuleCompiler} 编译为 {@link CompiledRuleSet}，重新加载时整体替换
  * 
  * @author daidasheng
  * @date 2024-12-15
@@ -29,9 +30,9 @@ public class RuleLoader {
     private final RuleEngine ruleEngine;
     
     /**
-     * 加载的规则列表（按优先级排序）
+     * 编译后的规则集（按优先级排序），重新加载时构建新的规则集后整体替换，读取方不会看到加载到一半的规则
      */
-    private List<RuleDefinition> loadedRules = new ArrayList<>();
+    private volatile CompiledRuleSet compiledRules = CompiledRuleSet.EMPTY;
     
     /**
      * 初始化规则
@@ -81,11 +82,14 @@ public class RuleLoader {
         // 4. 按优先级排序
         validRules.sort(Comparator.comparingInt(rule -> rule.getPriority() != null ? rule.getPriority() : Integer.MAX_VALUE));
         
-        loadedRules = validRules;
-        log.info("规则加载完成，共 {} 条有效规则", loadedRules.size());
+        // 5. 编译规则
+        CompiledRuleSet compiled = RuleCompiler.compile(validRules);
+        compiledRules = compiled;
+        log.info("规则加载完成，共 {} 条有效规则，其中关键词规则 {} 条、静态动作 {} 条",
+            compiled.size(), compiled.getKeywordRuleCount(), compiled.getStaticActionCount());
         
         // 打印规则信息
-        loadedRules.forEach(rule -> log.debug("规则: {}, 优先级: {}, 表达式: {}", rule.getName(), rule.getPriority(), rule.getExpression()));
+        validRules.forEach(rule -> log.debug("规则: {}, 优先级: {}, 表达式: {}", rule.getName(), rule.getPriority(), rule.getExpression()));
     }
     
     /**
@@ -93,7 +97,7 @@ public class RuleLoader {
      * 
      * @return 默认规则列表
      */
-    private List<RuleDefinition> getDefaultRules() {
+    public static List<RuleDefinition> getDefaultRules() {
         List<RuleDefinition> rules = new ArrayList<>();
         
         // 1. 闲聊规则
@@ -150,7 +154,18 @@ public class RuleLoader {
      * @return 规则列表
      */
     public List<RuleDefinition> getRules() {
-        return new ArrayList<>(loadedRules);
+        return compiledRules.getDefinitions();
+    }
+    
+    /**
+     * 获取编译后的规则集
+     * 
+     * @return 编译后的规则集
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public CompiledRuleSet getCompiledRules() {
+        return compiledRules;
     }
     
     /**
@@ -51,4 +51,13 @@ public interface ClassificationStrategy {
     default boolean isEnabled() {
         return true;
     }
+    
+    /**
+     * 分类是否依赖对话记忆（不依赖时调用方可以在记忆加载完成前开始分类，并传入 null 记忆）
+     * 
+     * @return 是否依赖对话记忆
+     */
+    default boolean requiresMemory() {
+        return false;
+    }
 }
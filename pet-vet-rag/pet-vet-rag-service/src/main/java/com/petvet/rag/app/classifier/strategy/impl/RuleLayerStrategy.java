@@ -1,24 +1,22 @@
 package com.petvet.rag.app.classifier.strategy.impl;
 
 import com.petvet.rag.app.classifier.config.ClassifierProperties;
+import com.petvet.rag.app.classifier.engine.CompiledRuleSet;
 import com.petvet.rag.app.classifier.engine.RuleEngine;
 import com.petvet.rag.app.classifier.engine.RuleLoader;
 import com.petvet.rag.app.classifier.model.ClassificationResult;
-import com.petvet.rag.app.classifier.model.RuleDefinition;
 import com.petvet.rag.app.classifier.strategy.ClassificationStrategy;
 import com.petvet.rag.app.service.MemoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
-
 /**
  * 规则层策略
  * 使用QLExpress执行规则判断
  * 
  * 真正使用QLExpress规则引擎执行配置化的规则表达式
+ * 纯关键词规则编译为一个自动机，一次扫描查询即可得到所有关键词规则的匹配结果
  * 
  * @author daidasheng
  * @date 2024-12-15
@@ -47,65 +45,21 @@ public class RuleLayerStrategy implements ClassificationStrategy {
         long startTime = System.currentTimeMillis();
         
         try {
-            // 构建执行上下文（QLExpress 4.0.4使用Map作为上下文）
-            Map<String, Object> context = ruleEngine.createContext();
-            context.put("query", query);
-            context.put("lowerQuery", query.toLowerCase());
-            context.put("memory", memory);
-            
-            // 创建结果对象
-            ClassificationResult result = ClassificationResult.builder()
-                .needRetrieval(null)
-                .confidence(0.0)
-                .reason("")
-                .strategyName("RuleLayerStrategy")
-                .build();
-            context.put("result", result);
+            // 关键词规则由自动机一次扫描匹配，其余规则按需交给QLExpress执行
+            CompiledRuleSet rules = ruleLoader.getCompiledRules();
+            ClassificationResult result = rules.evaluate(query, memory, ruleEngine);
             
-            // 获取所有规则（已按优先级排序）
-            List<RuleDefinition> rules = ruleLoader.getRules();
-            
-            // 按优先级顺序执行规则
-            for (RuleDefinition rule : rules) {
-                try {
-                    // 1. 执行规则表达式，判断是否匹配
-                    boolean matched = ruleEngine.executeBoolean(rule.getExpression(), context);
-                    
-                    if (matched) {
-                        log.debug("规则 {} 匹配成功, 表达式: {}", rule.getName(), rule.getExpression());
-                        
-                        // 2. 执行规则动作
-                        if (rule.getAction() != null && !rule.getAction().trim().isEmpty()) {
-                            // 执行动作表达式（设置result属性等）
-                            String actionExpression = rule.getAction();
-                            Object actionResult = ruleEngine.execute(actionExpression, context);
-                            
-                            // 如果动作返回true，表示规则处理完成
-                            if (actionResult instanceof Boolean && (Boolean) actionResult) {
-                                long costTime = System.currentTimeMillis() - startTime;
-                                result.setCostTime(costTime);
-                                log.debug("规则 {} 执行完成, 结果: needRetrieval={}, confidence={}, reason={}, cost={}ms",
-                                    rule.getName(), result.getNeedRetrieval(), result.getConfidence(),
-                                    result.getReason(), costTime);
-                                return result;
-                            }
-                        } else {
-                            // 如果没有动作表达式，默认返回匹配结果
-                            long costTime = System.currentTimeMillis() - startTime;
-                            result.setCostTime(costTime);
-                            log.debug("规则 {} 匹配但无动作表达式, 返回默认结果", rule.getName());
-                            return result;
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("规则 {} 执行失败, 继续下一个规则, 错误: {}", rule.getName(), e.getMessage());
-                    // 继续执行下一个规则
-                }
+            if (result == null) {
+                // 所有规则都不匹配，返回null继续下一个策略
+                log.debug("所有规则都不匹配, query: {}", query);
+                return null;
             }
             
-            // 所有规则都不匹配，返回null继续下一个策略
-            log.debug("所有规则都不匹配, query: {}", query);
-            return null;
+            long costTime = System.currentTimeMillis() - startTime;
+            result.setCostTime(costTime);
+            log.debug("规则执行完成, 结果: needRetrieval={}, confidence={}, reason={}, cost={}ms",
+                result.getNeedRetrieval(), result.getConfidence(), result.getReason(), costTime);
+            return result;
             
         } catch (Exception e) {
             log.warn("规则执行失败, query: {}", query, e);
@@ -124,6 +78,12 @@ public class RuleLayerStrategy implements ClassificationStrategy {
         return "RuleLayerStrategy";
     }
     
+    @Override
+    public boolean requiresMemory() {
+        // 只有规则表达式或动作引用了 memory 时才需要等待记忆加载
+        return isEnabled() && ruleLoader.getCompiledRules().usesMemory();
+    }
+    
     @Override
     public boolean isEnabled() {
         return properties.getRule().getEnabled() != null && properties.getRule().getEnabled();
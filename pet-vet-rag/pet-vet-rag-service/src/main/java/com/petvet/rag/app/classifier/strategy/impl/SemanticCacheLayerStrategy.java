@@ -0,0 +1,53 @@
+package com.petvet.rag.app.classifier.strategy.impl;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.strategy.ClassificationStrategy;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
+import com.petvet.rag.app.service.MemoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语义缓存层策略
+ * 规则层不匹配时，复用语义相近的已分类查询的结果，避免改写后的问题落入兜底策略
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SemanticCacheLayerStrategy implements ClassificationStrategy {
+    
+    private final SemanticQueryCache semanticQueryCache;
+    
+    @Override
+    public boolean matches(String query, MemoryService.ConversationMemory memory) {
+        return semanticQueryCache.isEnabled();
+    }
+    
+    @Override
+    public ClassificationResult classify(String query, MemoryService.ConversationMemory memory) {
+        ClassificationResult cached = semanticQueryCache.getClassification(query);
+        if (cached != null) {
+            log.debug("语义缓存命中, query: {}, result: {}", query, cached);
+        }
+        return cached;
+    }
+    
+    @Override
+    public int getPriority() {
+        return 3; // 规则层之后、兜底策略之前
+    }
+    
+    @Override
+    public String getName() {
+        return SemanticQueryCache.STRATEGY_NAME;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return semanticQueryCache.isEnabled();
+    }
+}
@@ -1,68 +1,75 @@
 package com.petvet.rag.app.config;
 
+import com.petvet.rag.app.llm.ChatModelRegistry;
+import com.petvet.rag.app.llm.ModelKey;
+import com.petvet.rag.app.stream.ScheduledStreamingChatModel;
 import dev.langchain4j.model.chat.ChatModel;
-import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * LangChain4j 配置类
- * 
- * 配置 LangChain4j 的 ChatModel
+ *
+ * 配置 LangChain4j 的 ChatModel 和流式输出的 StreamingChatModel
  * 支持多种 AI 提供商：OpenAI、DeepSeek、xAI Grok 等
- * 
+ *
  * DeepSeek 和 xAI Grok 都使用 OpenAI 兼容的 API，可以通过设置 baseUrl 来使用
- * 
+ *
+ * 模型实例由 {@link ChatModelRegistry} 按配置缓存并共用 HTTP 连接池；provider 配置（spring.ai.*）支持动态刷新，
+ * 刷新后配置变化的实例被替换，注入的 ChatModel / StreamingChatModel 每次调用时按当前配置选择实例
+ *
  * @author PetVetRAG Team
  */
 @Configuration
 @Slf4j
+@RequiredArgsConstructor
+@EnableConfigurationProperties({LlmProviderProperties.class, LlmClientProperties.class})
 public class LangChainConfig {
 
-    @Value("${spring.ai.provider.type:deepseek}")
-    private String providerType;
-
-    @Value("${spring.ai.openai.api-key:${OPENAI_API_KEY:}}")
-    private String openAiApiKey;
-
-    @Value("${spring.ai.openai.chat.options.model:gpt-4o}")
-    private String openAiModel;
-
-    @Value("${spring.ai.openai.chat.options.temperature:0.7}")
-    private Double temperature;
+    private final LlmProviderProperties providerProperties;
 
-    @Value("${spring.ai.deepseek.api-key:${DEEPSEEK_API_KEY:}}")
-    private String deepSeekApiKey;
+    private final LlmClientProperties clientProperties;
 
-    @Value("${spring.ai.deepseek.base-url:https://api.deepseek.com}")
-    private String deepSeekBaseUrl;
-
-    @Value("${spring.ai.deepseek.chat.options.model:deepseek-chat}")
-    private String deepSeekModel;
-
-    @Value("${spring.ai.deepseek.chat.options.temperature:0.7}")
-    private Double deepSeekTemperature;
-
-    @Value("${spring.ai.grok.api-key:${GROK_API_KEY:}}")
-    private String grokApiKey;
+    /**
+     * 流式输出是否使用本地桩模型（不调用大模型服务，用于本地联调）
+     */
+    @Value("${rag.streaming.stub.enabled:false}")
+    private boolean streamingStubEnabled;
 
-    @Value("${spring.ai.grok.base-url:https://api.x.ai/v1}")
-    private String grokBaseUrl;
+    @Value("${rag.streaming.stub.first-token-delay-ms:300}")
+    private long stubFirstTokenDelayMs;
 
-    @Value("${spring.ai.grok.chat.options.model:grok-4-latest}")
-    private String grokModel;
+    @Value("${rag.streaming.stub.token-interval-ms:50}")
+    private long stubTokenIntervalMs;
 
-    @Value("${spring.ai.grok.chat.options.temperature:0.7}")
-    private Double grokTemperature;
+    /**
+     * 模型实例注册表：按配置缓存模型实例，共用 HTTP 连接池，记录 provider 健康状态
+     *
+     * @return ChatModelRegistry 实例
+     */
+    @Bean
+    public ChatModelRegistry chatModelRegistry() {
+        return new ChatModelRegistry(clientProperties);
+    }
 
     /**
      * 创建 ChatModel
      * 根据配置自动选择 OpenAI、DeepSeek 或 Grok
      * 如果指定的 provider 没有 API key，会自动尝试其他可用的 provider
-     * 
+     *
      * @return ChatModel 实例
      */
     @Bean
@@ -70,53 +77,197 @@ public class LangChainConfig {
     public ChatModel chatLanguageModel() {
         log.info("==========================================");
         log.info("RAG AI 配置信息:");
-        log.info("  配置的 Provider: {}", providerType);
-        log.info("  Grok API Key: {}", isNotEmpty(grokApiKey) ? "已设置 (" + maskApiKey(grokApiKey) + ")" : "未设置");
-        log.info("  DeepSeek API Key: {}", isNotEmpty(deepSeekApiKey) ? "已设置 (" + maskApiKey(deepSeekApiKey) + ")" : "未设置");
-        log.info("  OpenAI API Key: {}", isNotEmpty(openAiApiKey) ? "已设置 (" + maskApiKey(openAiApiKey) + ")" : "未设置");
+        log.info("  配置的 Provider: {}", providerType());
+        log.info("  Grok API Key: {}", describeApiKey(ChatModelRegistry.PROVIDER_GROK));
+        log.info("  DeepSeek API Key: {}", describeApiKey(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        log.info("  OpenAI API Key: {}", describeApiKey(ChatModelRegistry.PROVIDER_OPENAI));
         log.info("==========================================");
-        
-        // 优先使用配置指定的 provider
-        if ("grok".equalsIgnoreCase(providerType)) {
-            if (isNotEmpty(grokApiKey)) {
-                log.info("✅ 使用 Grok AI provider");
-                return createGrokModel();
-            }
-        } else if ("deepseek".equalsIgnoreCase(providerType)) {
-            if (isNotEmpty(deepSeekApiKey)) {
-                log.info("✅ 使用 DeepSeek AI provider");
-                return createDeepSeekModel();
+
+        // 启动时检查配置，没有任何 API key 时直接失败
+        ModelKey modelKey = defaultModelKey();
+        if (modelKey.getProvider().equalsIgnoreCase(providerType())) {
+            log.info("✅ 使用 {} AI provider", modelKey.getProvider());
+        } else {
+            log.warn("⚠️  警告: 配置的 AI provider ({}) 没有 API key，自动切换到 {}", providerType(), modelKey.getProvider());
+        }
+        return chatModelRegistry().routingChatModel(this::defaultModelKey);
+    }
+
+    /**
+     * 根据模型名称获取 ChatModel
+     * 用于动态选择不同的模型；实例按配置缓存，同一配置的多次调用返回同一个实例
+     *
+     * @param modelName 模型名称（openai, deepseek, grok）
+     * @return ChatModel 实例
+     */
+    public ChatModel createModelByName(String modelName) {
+        if (modelName == null || modelName.trim().isEmpty()) {
+            return chatLanguageModel(); // 使用默认模型
+        }
+
+        String provider = providerOf(modelName);
+        if (provider != null && hasApiKey(provider)) {
+            if (chatModelRegistry().isAvailable(provider)) {
+                return chatModelRegistry().chatModel(modelKey(provider));
             }
-        } else if ("openai".equalsIgnoreCase(providerType)) {
-            if (isNotEmpty(openAiApiKey)) {
-                log.info("✅ 使用 OpenAI AI provider");
-                return createOpenAiModel();
+            log.warn("指定的模型 {} 当前不可用（{}），使用默认模型", modelName, chatModelRegistry().getHealth(provider));
+            return chatLanguageModel();
+        }
+
+        // 如果指定的模型不可用，使用默认模型
+        log.warn("指定的模型 {} 不可用，使用默认模型", modelName);
+        return chatLanguageModel();
+    }
+
+    /**
+     * 创建流式输出的 StreamingChatModel
+     * 与 ChatModel 使用相同的 provider 选择顺序：优先使用配置指定的 provider，没有 API key 时使用其他可用的 provider
+     *
+     * @return StreamingChatModel 实例
+     */
+    @Bean
+    public StreamingChatModel streamingChatModel() {
+        if (streamingStubEnabled) {
+            log.warn("⚠️  流式输出使用本地桩模型，不会调用大模型服务");
+            return createStubStreamingModel();
+        }
+        defaultModelKey();
+        return chatModelRegistry().routingStreamingChatModel(this::defaultModelKey);
+    }
+
+    /**
+     * 根据模型名称获取 StreamingChatModel
+     *
+     * @param modelName 模型名称（openai, deepseek, grok）
+     * @return StreamingChatModel 实例
+     */
+    public StreamingChatModel createStreamingModelByName(String modelName) {
+        if (streamingStubEnabled || modelName == null || modelName.trim().isEmpty()) {
+            return streamingChatModel();
+        }
+
+        String provider = providerOf(modelName);
+        if (provider != null && hasApiKey(provider) && chatModelRegistry().isAvailable(provider)) {
+            return chatModelRegistry().streamingChatModel(modelKey(provider));
+        }
+
+        log.warn("指定的流式模型 {} 不可用，使用默认模型", modelName);
+        return streamingChatModel();
+    }
+
+    /**
+     * 配置刷新后淘汰配置已经变化的模型实例，下次调用时按新配置创建
+     *
+     * @param event 刷新事件
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh(RefreshScopeRefreshedEvent event) {
+        int removed = chatModelRegistry().retain(candidateModelKeys());
+        if (removed > 0) {
+            log.info("大模型配置已刷新，淘汰 {} 个模型实例，当前默认模型: {}", removed,
+                candidateModelKeys().isEmpty() ? "无" : defaultModelKey());
+        }
+    }
+
+    /**
+     * 默认模型：按优先顺序选择第一个处于可用状态的 provider，都不可用时使用优先级最高的
+     *
+     * @return 默认模型配置
+     */
+    private ModelKey defaultModelKey() {
+        List<ModelKey> candidates = candidateModelKeys();
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException(noApiKeyMessage());
+        }
+        for (ModelKey candidate : candidates) {
+            if (chatModelRegistry().isAvailable(candidate.getProvider())) {
+                return candidate;
             }
         }
-        
-        // 如果指定的 provider 没有 API key，尝试其他可用的 provider
-        if (isNotEmpty(grokApiKey)) {
-            log.warn("⚠️  警告: 配置的 AI provider ({}) 没有 API key，自动切换到 Grok", providerType);
-            return createGrokModel();
+        return candidates.get(0);
+    }
+
+    /**
+     * 配置了 API key 的 provider，配置指定的 provider 优先，其余依次为 Grok、DeepSeek、OpenAI
+     *
+     * @return 模型配置列表
+     */
+    private List<ModelKey> candidateModelKeys() {
+        Set<String> order = new LinkedHashSet<>();
+        order.add(providerType().toLowerCase());
+        order.add(ChatModelRegistry.PROVIDER_GROK);
+        order.add(ChatModelRegistry.PROVIDER_DEEPSEEK);
+        order.add(ChatModelRegistry.PROVIDER_OPENAI);
+
+        List<ModelKey> keys = new ArrayList<>();
+        for (String provider : order) {
+            if (vendor(provider) != null && hasApiKey(provider)) {
+                keys.add(modelKey(provider));
+            }
         }
-        if (isNotEmpty(deepSeekApiKey)) {
-            log.warn("⚠️  警告: 配置的 AI provider ({}) 没有 API key，自动切换到 DeepSeek", providerType);
-            return createDeepSeekModel();
+        return keys;
+    }
+
+    /**
+     * 根据模型名称判断 provider
+     *
+     * @param modelName 模型名称
+     * @return provider 名称，无法识别时为 null
+     */
+    private String providerOf(String modelName) {
+        String lowerModelName = modelName.toLowerCase();
+        if (lowerModelName.contains("grok")) {
+            return ChatModelRegistry.PROVIDER_GROK;
+        } else if (lowerModelName.contains("deepseek")) {
+            return ChatModelRegistry.PROVIDER_DEEPSEEK;
+        } else if (lowerModelName.contains("openai") || lowerModelName.contains("gpt")) {
+            return ChatModelRegistry.PROVIDER_OPENAI;
         }
-        if (isNotEmpty(openAiApiKey)) {
-            log.warn("⚠️  警告: 配置的 AI provider ({}) 没有 API key，自动切换到 OpenAI", providerType);
-            return createOpenAiModel();
+        return null;
+    }
+
+    private ModelKey modelKey(String provider) {
+        LlmProviderProperties.Vendor vendor = vendor(provider);
+        return new ModelKey(provider, vendor.getBaseUrl(), vendor.getChat().getOptions().getModel(),
+            vendor.getChat().getOptions().getTemperature(), vendor.getApiKey());
+    }
+
+    private LlmProviderProperties.Vendor vendor(String provider) {
+        switch (provider) {
+            case ChatModelRegistry.PROVIDER_GROK:
+                return providerProperties.getGrok();
+            case ChatModelRegistry.PROVIDER_DEEPSEEK:
+                return providerProperties.getDeepseek();
+            case ChatModelRegistry.PROVIDER_OPENAI:
+                return providerProperties.getOpenai();
+            default:
+                return null;
         }
-        
-        // 如果都没有 API key，抛出清晰的错误
-        throw new IllegalStateException(
-            "❌ 错误: 没有配置任何 AI API Key！\n" +
+    }
+
+    private String providerType() {
+        String type = providerProperties.getProvider().getType();
+        return type != null ? type : "";
+    }
+
+    private boolean hasApiKey(String provider) {
+        return isNotEmpty(vendor(provider).getApiKey());
+    }
+
+    private String describeApiKey(String provider) {
+        return hasApiKey(provider) ? "已设置 (" + maskApiKey(vendor(provider).getApiKey()) + ")" : "未设置";
+    }
+
+    private String noApiKeyMessage() {
+        return "❌ 错误: 没有配置任何 AI API Key！\n" +
             "\n" +
             "配置检查结果：\n" +
-            "  - spring.ai.provider.type = " + providerType + "\n" +
-            "  - spring.ai.grok.api-key = " + (isNotEmpty(grokApiKey) ? "已设置" : "未设置") + "\n" +
-            "  - spring.ai.deepseek.api-key = " + (isNotEmpty(deepSeekApiKey) ? "已设置" : "未设置") + "\n" +
-            "  - spring.ai.openai.api-key = " + (isNotEmpty(openAiApiKey) ? "已设置" : "未设置") + "\n" +
+            "  - spring.ai.provider.type = " + providerType() + "\n" +
+            "  - spring.ai.grok.api-key = " + (hasApiKey(ChatModelRegistry.PROVIDER_GROK) ? "已设置" : "未设置") + "\n" +
+            "  - spring.ai.deepseek.api-key = " + (hasApiKey(ChatModelRegistry.PROVIDER_DEEPSEEK) ? "已设置" : "未设置") + "\n" +
+            "  - spring.ai.openai.api-key = " + (hasApiKey(ChatModelRegistry.PROVIDER_OPENAI) ? "已设置" : "未设置") + "\n" +
             "\n" +
             "解决方案：\n" +
             "1. 如果使用 Nacos 配置，请确保在 Nacos 中配置了：\n" +
@@ -127,42 +278,9 @@ public class LangChainConfig {
             "   export DEEPSEEK_API_KEY=your-api-key-here\n" +
             "   export AI_PROVIDER_TYPE=deepseek\n" +
             "\n" +
-            "3. 检查 Nacos 是否连接成功，查看启动日志中的 Nacos 配置加载信息"
-        );
-    }
-    
-    /**
-     * 根据模型名称创建 ChatModel
-     * 用于动态选择不同的模型
-     * 
-     * @param modelName 模型名称（openai, deepseek, grok）
-     * @return ChatModel 实例
-     */
-    public ChatModel createModelByName(String modelName) {
-        if (modelName == null || modelName.trim().isEmpty()) {
-            return chatLanguageModel(); // 使用默认模型
-        }
-        
-        String lowerModelName = modelName.toLowerCase();
-        if (lowerModelName.contains("grok")) {
-            if (isNotEmpty(grokApiKey)) {
-                return createGrokModel();
-            }
-        } else if (lowerModelName.contains("deepseek")) {
-            if (isNotEmpty(deepSeekApiKey)) {
-                return createDeepSeekModel();
-            }
-        } else if (lowerModelName.contains("openai") || lowerModelName.contains("gpt")) {
-            if (isNotEmpty(openAiApiKey)) {
-                return createOpenAiModel();
-            }
-        }
-        
-        // 如果指定的模型不可用，使用默认模型
-        log.warn("指定的模型 {} 不可用，使用默认模型", modelName);
-        return chatLanguageModel();
+            "3. 检查 Nacos 是否连接成功，查看启动日志中的 Nacos 配置加载信息";
     }
-    
+
     /**
      * 掩码 API Key，只显示前后几位
      */
@@ -172,45 +290,18 @@ public class LangChainConfig {
         }
         return apiKey.substring(0, 4) + "..." + apiKey.substring(apiKey.length() - 4);
     }
-    
+
     private boolean isNotEmpty(String str) {
         return str != null && !str.trim().isEmpty();
     }
 
     /**
-     * 创建 DeepSeek ChatModel
-     * DeepSeek 使用 OpenAI 兼容的 API
-     */
-    private ChatModel createDeepSeekModel() {
-        return OpenAiChatModel.builder()
-                .apiKey(deepSeekApiKey)
-                .baseUrl(deepSeekBaseUrl)
-                .modelName(deepSeekModel)
-                .temperature(deepSeekTemperature)
-                .build();
-    }
-
-    /**
-     * 创建 OpenAI ChatModel
-     */
-    private ChatModel createOpenAiModel() {
-        return OpenAiChatModel.builder()
-                .apiKey(openAiApiKey)
-                .modelName(openAiModel)
-                .temperature(temperature)
-                .build();
-    }
-
-    /**
-     * 创建 xAI Grok ChatModel
-     * Grok 使用 OpenAI 兼容的 API
+     * 创建本地桩模型：逐字输出一段固定的回答
      */
-    private ChatModel createGrokModel() {
-        return OpenAiChatModel.builder()
-                .apiKey(grokApiKey)
-                .baseUrl(grokBaseUrl)
-                .modelName(grokModel)
-                .temperature(grokTemperature)
-                .build();
+    private StreamingChatModel createStubStreamingModel() {
+        String answer = "这是本地桩模型生成的回答，用于联调流式输出，没有调用大模型服务。";
+        List<String> tokens = new ArrayList<>();
+        answer.codePoints().forEach(codePoint -> tokens.add(new String(Character.toChars(codePoint))));
+        return new ScheduledStreamingChatModel(tokens, stubFirstTokenDelayMs, stubTokenIntervalMs);
     }
 }
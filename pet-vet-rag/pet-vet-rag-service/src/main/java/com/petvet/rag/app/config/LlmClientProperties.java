@@ -0,0 +1,65 @@
+package com.petvet.rag.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 大模型客户端配置属性
+ * 绑定 rag.llm.* 配置项：共享 HTTP 连接池和 provider 健康检查
+ * 
+ * 注意：不使用 @Component，通过 @EnableConfigurationProperties 在 LangChainConfig 中启用
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@ConfigurationProperties(prefix = "rag.llm")
+@Data
+public class LlmClientProperties {
+    
+    /**
+     * 共享 HTTP 客户端配置（启动时创建，修改后需要重启）
+     */
+    private Http http = new Http();
+    
+    /**
+     * provider 健康检查配置
+     */
+    private Health health = new Health();
+    
+    /**
+     * 共享 HTTP 客户端配置
+     */
+    @Data
+    public static class Http {
+        /**
+         * 建立连接的超时时间（毫秒）
+         */
+        private Long connectTimeoutMs = 5000L;
+        
+        /**
+         * 读取响应的超时时间（毫秒）
+         */
+        private Long readTimeoutMs = 60000L;
+        
+        /**
+         * 是否优先使用 HTTP/2（HTTPS 下协商成功时多个请求复用同一个连接）
+         */
+        private Boolean http2 = true;
+    }
+    
+    /**
+     * provider 健康检查配置
+     */
+    @Data
+    public static class Health {
+        /**
+         * 连续失败多少次后把 provider 标记为不可用
+         */
+        private Integer failureThreshold = 3;
+        
+        /**
+         * 标记为不可用的时长（毫秒），之后重新尝试
+         */
+        private Long cooldownMs = 30000L;
+    }
+}
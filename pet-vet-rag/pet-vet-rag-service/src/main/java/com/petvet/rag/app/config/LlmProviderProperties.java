@@ -0,0 +1,104 @@
+package com.petvet.rag.app.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+
+/**
+ * 大模型 provider 配置属性
+ * 绑定 spring.ai.* 配置项（provider.type、openai、deepseek、grok）
+ * 支持 Nacos 配置动态刷新，刷新后 LangChainConfig 会替换配置发生变化的模型实例
+ * 
+ * 注意：不使用 @Component，通过 @EnableConfigurationProperties 在 LangChainConfig 中启用
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@RefreshScope
+@ConfigurationProperties(prefix = "spring.ai")
+@Data
+public class LlmProviderProperties {
+    
+    /**
+     * 默认使用的 provider
+     */
+    private Provider provider = new Provider();
+    
+    /**
+     * OpenAI 配置（baseUrl 为空时使用 OpenAI 官方地址）
+     */
+    private Vendor openai = new Vendor(null, "gpt-4o");
+    
+    /**
+     * DeepSeek 配置（OpenAI 兼容的 API）
+     */
+    private Vendor deepseek = new Vendor("https://api.deepseek.com", "deepseek-chat");
+    
+    /**
+     * xAI Grok 配置（OpenAI 兼容的 API）
+     */
+    private Vendor grok = new Vendor("https://api.x.ai/v1", "grok-4-latest");
+    
+    /**
+     * 默认 provider 配置
+     */
+    @Data
+    public static class Provider {
+        /**
+         * provider 类型：openai、deepseek 或 grok
+         */
+        private String type = "deepseek";
+    }
+    
+    /**
+     * 单个 provider 的配置
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Vendor {
+        /**
+         * API Key，为空表示该 provider 不可用
+         */
+        private String apiKey;
+        
+        /**
+         * API 地址
+         */
+        private String baseUrl;
+        
+        /**
+         * 对话参数
+         */
+        private Chat chat = new Chat();
+        
+        public Vendor(String baseUrl, String model) {
+            this.baseUrl = baseUrl;
+            this.chat.getOptions().setModel(model);
+        }
+    }
+    
+    /**
+     * 对话配置
+     */
+    @Data
+    public static class Chat {
+        private Options options = new Options();
+    }
+    
+    /**
+     * 对话参数
+     */
+    @Data
+    public static class Options {
+        /**
+         * 模型名称
+         */
+        private String model;
+        
+        /**
+         * 温度
+         */
+        private Double temperature = 0.7;
+    }
+}
@@ -0,0 +1,70 @@
+package com.petvet.rag.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RAG 验证流水线配置类
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Configuration
+@EnableConfigurationProperties(RagPipelineProperties.class)
+public class RagPipelineConfig {
+    
+    /**
+     * 线程池拒绝提交的次数
+     */
+    public static final String REJECTED_METER = "rag.pipeline.rejected";
+    
+    /**
+     * 流水线线程池：并行执行加载记忆、分类、检索，并为生成答案设置超时
+     * 
+     * 线程数和队列都有上限；队列满时拒绝提交，对应阶段立即按超时处理并使用降级结果（不在请求线程中执行，
+     * 否则阶段不受截止时间约束）。被拒绝的次数记录在指标 rag.pipeline.rejected 中
+     * 
+     * @param properties 流水线配置
+     * @param meterRegistry 指标注册表（不存在时不记录指标）
+     * @return 线程池
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ragPipelineExecutor(RagPipelineProperties properties,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        int threads = properties.getThreads() != null && properties.getThreads() > 0
+            ? properties.getThreads()
+            : Runtime.getRuntime().availableProcessors() * 4;
+        int queueCapacity = properties.getQueueCapacity() != null ? properties.getQueueCapacity() : 256;
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "rag-pipeline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Counter rejected = registry != null ? registry.counter(REJECTED_METER) : null;
+        RejectedExecutionHandler rejectionHandler = (runnable, executor) -> {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new RejectedExecutionException("RAG 流水线线程池已满（队列容量 " + queueCapacity + "）");
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, rejectionHandler);
+    }
+}
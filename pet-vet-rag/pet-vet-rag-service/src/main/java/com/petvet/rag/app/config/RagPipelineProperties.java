@@ -0,0 +1,58 @@
+package com.petvet.rag.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * RAG 验证流水线配置属性
+ * 绑定 rag.pipeline.* 配置项
+ * 
+ * 注意：不使用 @Component，通过 @EnableConfigurationProperties 在 RagPipelineConfig 中启用
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@ConfigurationProperties(prefix = "rag.pipeline")
+@Data
+public class RagPipelineProperties {
+    
+    /**
+     * 是否在分类完成前提前发起检索（分类结果为不需要检索时丢弃检索结果）
+     */
+    private Boolean speculativeRetrieval = true;
+    
+    /**
+     * 加载历史记忆的超时时间（毫秒），超时后按空记忆处理
+     */
+    private Long memoryTimeoutMs = 500L;
+    
+    /**
+     * 分类的超时时间（毫秒），超时后使用原有分类器的结果
+     */
+    private Long classificationTimeoutMs = 1000L;
+    
+    /**
+     * 检索的超时时间（毫秒），超时后不使用知识库
+     */
+    private Long retrievalTimeoutMs = 3000L;
+    
+    /**
+     * 生成答案的超时时间（毫秒），超时后返回生成失败的提示
+     */
+    private Long generationTimeoutMs = 60000L;
+    
+    /**
+     * 流式响应（SSE）的超时时间（毫秒），超时后取消生成并结束响应
+     */
+    private Long streamTimeoutMs = 120000L;
+    
+    /**
+     * 流水线线程数（0 表示CPU核数的4倍，各阶段大部分时间在等待IO）
+     */
+    private Integer threads = 0;
+    
+    /**
+     * 流水线任务队列容量（队列满时新的阶段按超时处理）
+     */
+    private Integer queueCapacity = 256;
+}
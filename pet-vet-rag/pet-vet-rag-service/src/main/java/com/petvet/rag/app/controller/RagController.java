@@ -6,13 +6,18 @@ import com.petvet.rag.api.req.RagQueryReq;
 import com.petvet.rag.api.req.RagValidationReq;
 import com.petvet.rag.api.resp.RagQueryResp;
 import com.petvet.rag.api.resp.RagValidationResp;
+import com.petvet.rag.app.config.RagPipelineProperties;
 import com.petvet.rag.app.service.RagService;
 import com.petvet.rag.app.service.RagValidationService;
+import com.petvet.rag.app.stream.RagTokenStream;
+import com.petvet.rag.app.stream.SseRagStreamListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * RAG 控制器
@@ -28,6 +33,7 @@ public class RagController {
     
     private final RagService ragService;
     private final RagValidationService ragValidationService;
+    private final RagPipelineProperties pipelineProperties;
     
     /**
      * RAG 查询接口
@@ -102,6 +108,77 @@ public class RagController {
         }
     }
     
+    /**
+     * RAG 流式查询接口
+     * 检索完成后通过 SSE 逐段推送生成的答案：token 事件为文本片段，done 事件为与 /query 相同的完整响应，
+     * error 事件为错误信息。客户端断开时取消生成
+     * 
+     * @param request 查询请求
+     * @author daidasheng
+     * @date 2026-10-17
+     * @return SSE 响应
+     */
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter queryStream(@RequestBody RagQueryReq request) {
+        SseEmitter emitter = new SseEmitter(pipelineProperties.getStreamTimeoutMs());
+        // 参数验证
+        if (request == null || request.getQuery() == null || request.getQuery().trim().isEmpty()) {
+            SseRagStreamListener.sendError(emitter, "查询文本不能为空");
+            return emitter;
+        }
+        
+        try {
+            // 执行检索，绑定取消回调后再开始生成（生成开始前客户端断开也能取消）
+            SseRagStreamListener<RagQueryResp> listener = new SseRagStreamListener<>(emitter);
+            RagTokenStream<RagQueryResp> stream = ragService.queryStream(request, listener);
+            listener.bind(stream);
+            stream.run();
+            
+        } catch (Exception e) {
+            log.error("RAG流式查询失败", e);
+            SseRagStreamListener.sendError(emitter, "查询失败: " + e.getMessage());
+        }
+        return emitter;
+    }
+    
+    /**
+     * RAG 流式验证接口
+     * 加载记忆、分类和检索完成后通过 SSE 逐段推送生成的答案：token 事件为文本片段，done 事件为与 /validate
+     * 相同的完整响应，error 事件为错误信息。生成完成后才更新记忆和保存历史记录，客户端断开时取消生成且不保存
+     * 
+     * @param request 验证请求
+     * @author daidasheng
+     * @date 2026-10-17
+     * @return SSE 响应
+     */
+    @PostMapping(value = "/validate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter validateStream(@RequestBody RagValidationReq request) {
+        SseEmitter emitter = new SseEmitter(pipelineProperties.getStreamTimeoutMs());
+        // 参数验证
+        if (request == null || request.getQuery() == null || request.getQuery().trim().isEmpty()) {
+            SseRagStreamListener.sendError(emitter, "查询文本不能为空");
+            return emitter;
+        }
+        
+        if (request.getUserId() == null || request.getUserId().trim().isEmpty()) {
+            SseRagStreamListener.sendError(emitter, "用户ID不能为空");
+            return emitter;
+        }
+        
+        try {
+            // 加载记忆、分类和检索，绑定取消回调后再开始生成（生成开始前客户端断开也能取消）
+            SseRagStreamListener<RagValidationResp> listener = new SseRagStreamListener<>(emitter);
+            RagTokenStream<RagValidationResp> stream = ragValidationService.validateStream(request, listener);
+            listener.bind(stream);
+            stream.run();
+            
+        } catch (Exception e) {
+            log.error("RAG流式验证失败", e);
+            SseRagStreamListener.sendError(emitter, "验证失败: " + e.getMessage());
+        }
+        return emitter;
+    }
+    
     /**
      * 健康检查接口
      */
@@ -0,0 +1,253 @@
+package com.petvet.rag.app.llm;
+
+import com.petvet.rag.app.config.LlmClientProperties;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 大模型实例注册表
+ * 
+ * 每种配置组合（{@link ModelKey}）只创建一次 ChatModel / StreamingChatModel 并复用，所有实例共用一个 HTTP 连接池；
+ * 同时按 provider 记录调用的健康状态。配置刷新后通过 {@link #retain} 淘汰配置已经变化的实例，下次使用时按新配置创建
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+public class ChatModelRegistry {
+    
+    public static final String PROVIDER_GROK = "grok";
+    
+    public static final String PROVIDER_DEEPSEEK = "deepseek";
+    
+    public static final String PROVIDER_OPENAI = "openai";
+    
+    /**
+     * 请求上下文中记录开始时间的属性名
+     */
+    private static final String START_TIME_ATTRIBUTE = "petvet.startTime";
+    
+    private final LlmClientProperties.Health healthProperties;
+    
+    private final HttpClientBuilder httpClientBuilder;
+    
+    /**
+     * 时钟（毫秒时间戳），用于调用耗时和不可用状态的冷却时间
+     */
+    private final LongSupplier clock;
+    
+    private final Map<ModelKey, ChatModel> chatModels = new ConcurrentHashMap<>();
+    
+    private final Map<ModelKey, StreamingChatModel> streamingChatModels = new ConcurrentHashMap<>();
+    
+    private final Map<String, ProviderHealth> providerHealth = new ConcurrentHashMap<>();
+    
+    public ChatModelRegistry(LlmClientProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+    
+    ChatModelRegistry(LlmClientProperties properties, LongSupplier clock) {
+        this.healthProperties = properties.getHealth();
+        this.httpClientBuilder = new SharedHttpClientBuilder(properties.getHttp());
+        this.clock = clock;
+    }
+    
+    /**
+     * 获取（第一次使用时创建）ChatModel
+     * 
+     * @param key 模型配置
+     * @return ChatModel 实例
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public ChatModel chatModel(ModelKey key) {
+        return chatModels.computeIfAbsent(key, this::createChatModel);
+    }
+    
+    /**
+     * 获取（第一次使用时创建）StreamingChatModel
+     * 
+     * @param key 模型配置
+     * @return StreamingChatModel 实例
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public StreamingChatModel streamingChatModel(ModelKey key) {
+        return streamingChatModels.computeIfAbsent(key, this::createStreamingChatModel);
+    }
+    
+    /**
+     * 每次调用时按当前配置选择实例的 ChatModel，配置刷新后不需要重新注入
+     * 
+     * @param keySupplier 当前使用的模型配置
+     * @return ChatModel
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public ChatModel routingChatModel(Supplier<ModelKey> keySupplier) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest chatRequest) {
+                return chatModel(keySupplier.get()).chat(chatRequest);
+            }
+        };
+    }
+    
+    /**
+     * 每次调用时按当前配置选择实例的 StreamingChatModel，配置刷新后不需要重新注入
+     * 
+     * @param keySupplier 当前使用的模型配置
+     * @return StreamingChatModel
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public StreamingChatModel routingStreamingChatModel(Supplier<ModelKey> keySupplier) {
+        return new StreamingChatModel() {
+            @Override
+            public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+                streamingChatModel(keySupplier.get()).chat(chatRequest, handler);
+            }
+        };
+    }
+    
+    /**
+     * 只保留当前配置对应的实例，淘汰其余实例（正在使用旧实例的请求不受影响）
+     * 只有 provider 的连接配置（API 地址、API Key）变化或 provider 被移除时才重置其健康状态，
+     * 只更换模型或温度时保留原有的失败记录和冷却状态
+     * 
+     * @param keys 当前配置对应的模型
+     * @return 淘汰的实例数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int retain(Collection<ModelKey> keys) {
+        Set<ModelKey> stale = chatModels.keySet().stream()
+            .filter(key -> !keys.contains(key))
+            .collect(Collectors.toSet());
+        streamingChatModels.keySet().stream()
+            .filter(key -> !keys.contains(key))
+            .forEach(stale::add);
+        for (ModelKey key : stale) {
+            chatModels.remove(key);
+            streamingChatModels.remove(key);
+            log.info("配置已变化，淘汰模型实例: {}", key);
+            if (keys.stream().noneMatch(key::sameProviderConfig) && providerHealth.remove(key.getProvider()) != null) {
+                log.info("provider {} 的连接配置已变化，重置健康状态", key.getProvider());
+            }
+        }
+        return stale.size();
+    }
+    
+    /**
+     * provider 当前是否可用（没有调用记录时视为可用）
+     * 
+     * @param provider provider 名称
+     * @return 是否可用
+     */
+    public boolean isAvailable(String provider) {
+        ProviderHealth health = providerHealth.get(provider);
+        return health == null || health.isAvailable();
+    }
+    
+    /**
+     * provider 的健康状态
+     * 
+     * @param provider provider 名称
+     * @return 健康状态
+     */
+    public ProviderHealth getHealth(String provider) {
+        return providerHealth.computeIfAbsent(provider, name -> new ProviderHealth(name, clock));
+    }
+    
+    /**
+     * 已缓存的模型实例数（ChatModel 和 StreamingChatModel 分别计数）
+     * 
+     * @return 实例数
+     */
+    public int size() {
+        return chatModels.size() + streamingChatModels.size();
+    }
+    
+    private ChatModel createChatModel(ModelKey key) {
+        log.info("创建 ChatModel: {}", key);
+        OpenAiChatModel.OpenAiChatModelBuilder builder = OpenAiChatModel.builder()
+            .httpClientBuilder(httpClientBuilder)
+            .apiKey(key.getApiKey())
+            .modelName(key.getModelName())
+            .temperature(key.getTemperature())
+            .listeners(List.of(new HealthListener(key.getProvider())));
+        if (key.getBaseUrl() != null && !key.getBaseUrl().trim().isEmpty()) {
+            builder.baseUrl(key.getBaseUrl());
+        }
+        return builder.build();
+    }
+    
+    private StreamingChatModel createStreamingChatModel(ModelKey key) {
+        log.info("创建 StreamingChatModel: {}", key);
+        OpenAiStreamingChatModel.OpenAiStreamingChatModelBuilder builder = OpenAiStreamingChatModel.builder()
+            .httpClientBuilder(httpClientBuilder)
+            .apiKey(key.getApiKey())
+            .modelName(key.getModelName())
+            .temperature(key.getTemperature())
+            .listeners(List.of(new HealthListener(key.getProvider())));
+        if (key.getBaseUrl() != null && !key.getBaseUrl().trim().isEmpty()) {
+            builder.baseUrl(key.getBaseUrl());
+        }
+        return builder.build();
+    }
+    
+    /**
+     * 把模型调用结果记录到 provider 的健康状态
+     */
+    private class HealthListener implements ChatModelListener {
+        
+        private final String provider;
+        
+        HealthListener(String provider) {
+            this.provider = provider;
+        }
+        
+        @Override
+        public void onRequest(ChatModelRequestContext requestContext) {
+            requestContext.attributes().put(START_TIME_ATTRIBUTE, clock.getAsLong());
+        }
+        
+        @Override
+        public void onResponse(ChatModelResponseContext responseContext) {
+            Object startTime = responseContext.attributes().get(START_TIME_ATTRIBUTE);
+            long latency = startTime instanceof Long ? clock.getAsLong() - (Long) startTime : -1;
+            getHealth(provider).recordSuccess(latency);
+        }
+        
+        @Override
+        public void onError(ChatModelErrorContext errorContext) {
+            ProviderHealth health = getHealth(provider);
+            boolean unavailable = health.recordFailure(errorContext.error(),
+                healthProperties.getFailureThreshold(), healthProperties.getCooldownMs());
+            if (unavailable) {
+                log.warn("大模型 provider {} 连续失败 {} 次，{}ms 内标记为不可用: {}",
+                    provider, health.getConsecutiveFailures(), healthProperties.getCooldownMs(), health.getLastError());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.petvet.rag.app.llm;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * 模型实例的缓存键：provider 和创建模型用到的全部配置
+ * 
+ * 任何一项配置变化（如刷新配置后更换了 API Key 或模型）都会得到新的键，从而创建新的实例
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public final class ModelKey {
+    
+    private final String provider;
+    
+    /**
+     * API 地址，为空时使用 OpenAI 官方地址
+     */
+    private final String baseUrl;
+    
+    private final String modelName;
+    
+    private final Double temperature;
+    
+    private final String apiKey;
+    
+    /**
+     * 是否与另一个键属于同一个 provider 且连接配置（API 地址和 API Key）相同，只有模型参数不同
+     * 
+     * @param other 另一个键
+     * @return 是否相同
+     */
+    public boolean sameProviderConfig(ModelKey other) {
+        return Objects.equals(provider, other.provider)
+            && Objects.equals(baseUrl, other.baseUrl)
+            && Objects.equals(apiKey, other.apiKey);
+    }
+    
+    @Override
+    public String toString() {
+        return provider + "/" + modelName + (baseUrl != null ? "@" + baseUrl : "");
+    }
+}
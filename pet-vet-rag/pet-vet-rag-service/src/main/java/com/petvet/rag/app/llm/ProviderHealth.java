@@ -0,0 +1,124 @@
+package com.petvet.rag.app.llm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个 provider 的健康状态
+ * 
+ * 连续失败达到阈值后在冷却时间内标记为不可用，冷却结束后允许重新尝试；任意一次成功都会清零连续失败次数
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class ProviderHealth {
+    
+    private final String provider;
+    
+    /**
+     * 时钟（毫秒时间戳）
+     */
+    private final LongSupplier clock;
+    
+    private final AtomicLong successCount = new AtomicLong();
+    
+    private final AtomicLong failureCount = new AtomicLong();
+    
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    
+    /**
+     * 最近一次成功调用的耗时（毫秒），还没有成功调用时为 -1
+     */
+    private volatile long lastLatencyMs = -1;
+    
+    private volatile String lastError;
+    
+    /**
+     * 不可用状态的截止时间
+     */
+    private volatile long unavailableUntil;
+    
+    public ProviderHealth(String provider) {
+        this(provider, System::currentTimeMillis);
+    }
+    
+    ProviderHealth(String provider, LongSupplier clock) {
+        this.provider = provider;
+        this.clock = clock;
+    }
+    
+    /**
+     * 记录一次成功调用
+     * 
+     * @param latencyMs 调用耗时（毫秒）
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void recordSuccess(long latencyMs) {
+        successCount.incrementAndGet();
+        consecutiveFailures.set(0);
+        lastLatencyMs = latencyMs;
+        unavailableUntil = 0;
+    }
+    
+    /**
+     * 记录一次失败调用
+     * 
+     * @param error 异常
+     * @param failureThreshold 连续失败阈值
+     * @param cooldownMs 不可用时长（毫秒）
+     * @return 是否因为这次失败被标记为不可用
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public boolean recordFailure(Throwable error, int failureThreshold, long cooldownMs) {
+        failureCount.incrementAndGet();
+        lastError = error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null;
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            unavailableUntil = clock.getAsLong() + cooldownMs;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 当前是否可用（没有处于连续失败后的冷却时间内）
+     * 
+     * @return 是否可用
+     */
+    public boolean isAvailable() {
+        return clock.getAsLong() >= unavailableUntil;
+    }
+    
+    public String getProvider() {
+        return provider;
+    }
+    
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+    
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+    
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+    
+    public long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    @Override
+    public String toString() {
+        return provider + "{available=" + isAvailable() + ", success=" + successCount.get()
+            + ", failure=" + failureCount.get() + ", consecutiveFailures=" + consecutiveFailures.get()
+            + ", lastLatencyMs=" + lastLatencyMs + ", lastError=" + lastError + "}";
+    }
+}
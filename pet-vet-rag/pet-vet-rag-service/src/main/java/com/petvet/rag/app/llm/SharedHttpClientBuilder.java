@@ -0,0 +1,82 @@
+package com.petvet.rag.app.llm;
+
+import com.petvet.rag.app.config.LlmClientProperties;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * 所有模型实例共用的 HTTP 客户端
+ * 
+ * LangChain4j 的模型在创建时调用 {@link #build()} 得到 HTTP 客户端，这里每次都返回同一个客户端，
+ * 所有模型共用 JDK HttpClient 的连接池：同一个 provider 的请求复用已建立的连接，不再为每个模型实例重新建连和 TLS 握手。
+ * 超时时间在创建时确定，模型传入的超时设置被忽略。
+ * 连接池的保活时间和容量是 JVM 级别的参数，在启动参数中设置（见服务的 Dockerfile 和 README 启动说明）：
+ * -Djdk.httpclient.keepalive.timeout=300 -Djdk.httpclient.connectionPoolSize=0
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+final class SharedHttpClientBuilder implements HttpClientBuilder {
+    
+    /**
+     * JDK HttpClient 连接池参数（JVM 级别，通过启动参数设置，这里只用于日志）
+     */
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    
+    private static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    
+    private final Duration connectTimeout;
+    
+    private final Duration readTimeout;
+    
+    private final HttpClient httpClient;
+    
+    SharedHttpClientBuilder(LlmClientProperties.Http properties) {
+        this.connectTimeout = Duration.ofMillis(properties.getConnectTimeoutMs());
+        this.readTimeout = Duration.ofMillis(properties.getReadTimeoutMs());
+        
+        java.net.http.HttpClient.Builder jdkBuilder = java.net.http.HttpClient.newBuilder()
+            .version(Boolean.TRUE.equals(properties.getHttp2())
+                ? java.net.http.HttpClient.Version.HTTP_2
+                : java.net.http.HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout);
+        this.httpClient = JdkHttpClient.builder()
+            .httpClientBuilder(jdkBuilder)
+            .connectTimeout(connectTimeout)
+            .readTimeout(readTimeout)
+            .build();
+        log.info("创建共享大模型HTTP客户端，HTTP/2: {}, 连接超时: {}ms, 读取超时: {}ms, 连接保活: {}s, 连接池容量: {}",
+            properties.getHttp2(), properties.getConnectTimeoutMs(), properties.getReadTimeoutMs(),
+            System.getProperty(KEEP_ALIVE_PROPERTY, "默认"), System.getProperty(POOL_SIZE_PROPERTY, "默认"));
+    }
+    
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+    
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        return this;
+    }
+    
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+    
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        return this;
+    }
+    
+    @Override
+    public HttpClient build() {
+        return httpClient;
+    }
+}
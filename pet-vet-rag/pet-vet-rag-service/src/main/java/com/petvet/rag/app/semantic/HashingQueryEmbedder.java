@@ -0,0 +1,86 @@
+package com.petvet.rag.app.semantic;
+
+/**
+ * 基于字符 n-gram 特征哈希的本地向量化实现
+ * 
+ * 不依赖任何模型，结果确定，用于离线测试和没有配置向量模型时的默认实现：
+ * 文本转小写并去掉空白和标点后，取单字（权重 0.5）和相邻两字（权重 1）作为特征，
+ * 哈希到固定维度的向量上（哈希的符号位决定正负，减少冲突带来的偏差），最后归一化。
+ * 只能识别字面上相近的改写（增删语气词、标点、个别字），不理解同义词；
+ * 替换关键字的查询（"猫咪不吃东西怎么办"与"狗狗不吃东西怎么办"）相似度约 0.74，低于默认阈值
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class HashingQueryEmbedder implements QueryEmbedder {
+    
+    private static final float UNIGRAM_WEIGHT = 0.5f;
+    
+    private static final float BIGRAM_WEIGHT = 1.0f;
+    
+    private final int dimension;
+    
+    public HashingQueryEmbedder(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0: " + dimension);
+        }
+        this.dimension = dimension;
+    }
+    
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+        int previous = -1;
+        for (int i = 0; text != null && i < text.length(); ) {
+            int codePoint = Character.toLowerCase(text.codePointAt(i));
+            i += Character.charCount(codePoint);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                continue;
+            }
+            add(vector, mix(codePoint), UNIGRAM_WEIGHT);
+            if (previous >= 0) {
+                add(vector, mix(previous * 31L + codePoint + 0x9E3779B97F4A7C15L), BIGRAM_WEIGHT);
+            }
+            previous = codePoint;
+        }
+        normalize(vector);
+        return vector;
+    }
+    
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+    
+    private void add(float[] vector, long hash, float weight) {
+        int index = (int) ((hash >>> 1) % dimension);
+        vector[index] += (hash & 1) == 0 ? weight : -weight;
+    }
+    
+    /**
+     * 归一化，零向量保持不变（与任何向量的相似度都为 0）
+     */
+    static void normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+    
+    /**
+     * SplitMix64 的混合函数
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
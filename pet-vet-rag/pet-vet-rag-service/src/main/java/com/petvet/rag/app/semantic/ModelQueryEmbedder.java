@@ -0,0 +1,33 @@
+package com.petvet.rag.app.semantic;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+/**
+ * 基于 LangChain4j EmbeddingModel 的向量化实现
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class ModelQueryEmbedder implements QueryEmbedder {
+    
+    private final EmbeddingModel embeddingModel;
+    
+    private final int dimension;
+    
+    public ModelQueryEmbedder(EmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+        this.dimension = embeddingModel.dimension();
+    }
+    
+    @Override
+    public float[] embed(String text) {
+        float[] vector = embeddingModel.embed(text).content().vector().clone();
+        HashingQueryEmbedder.normalize(vector);
+        return vector;
+    }
+    
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+}
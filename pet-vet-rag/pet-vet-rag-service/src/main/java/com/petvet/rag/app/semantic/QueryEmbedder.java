@@ -0,0 +1,28 @@
+package com.petvet.rag.app.semantic;
+
+/**
+ * 查询向量化接口
+ * 
+ * 语义缓存通过它把查询转换为向量，返回的向量必须已归一化（L2 范数为 1），
+ * 这样向量点积即为余弦相似度
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public interface QueryEmbedder {
+    
+    /**
+     * 向量化查询
+     * 
+     * @param text 查询文本
+     * @return 归一化后的向量，长度为 {@link #dimension()}
+     */
+    float[] embed(String text);
+    
+    /**
+     * 向量维度
+     * 
+     * @return 维度
+     */
+    int dimension();
+}
@@ -0,0 +1,121 @@
+package com.petvet.rag.app.semantic;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语义缓存审计
+ * 
+ * 按层级统计命中、未命中、误命中次数，并把每次命中和误命中写入 semantic-cache-audit 日志
+ * （未命中为 DEBUG 级别，附带接近阈值的最高相似度，用于调整相似度阈值）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j(topic = "semantic-cache-audit")
+public class SemanticCacheAudit {
+    
+    /**
+     * 缓存层级
+     */
+    public enum Tier {
+        /**
+         * 分类结果
+         */
+        CLASSIFICATION,
+        /**
+         * 最终答案
+         */
+        ANSWER
+    }
+    
+    private final LongAdder[] hits = adders();
+    
+    private final LongAdder[] misses = adders();
+    
+    private final LongAdder[] falseHits = adders();
+    
+    /**
+     * 记录命中
+     * 
+     * @param tier 层级
+     * @param query 查询
+     * @param cachedQuery 命中的缓存查询
+     * @param similarity 相似度
+     */
+    public void hit(Tier tier, String query, String cachedQuery, float similarity) {
+        hits[tier.ordinal()].increment();
+        log.info("HIT tier={} similarity={} query={} cached={}", tier, similarity, query, cachedQuery);
+    }
+    
+    /**
+     * 记录未命中
+     * 
+     * @param tier 层级
+     * @param query 查询
+     * @param closestSimilarity 最接近的缓存的相似度，没有与阈值相差 0.1 以内的缓存时为 null
+     */
+    public void miss(Tier tier, String query, Float closestSimilarity) {
+        misses[tier.ordinal()].increment();
+        log.debug("MISS tier={} closest={} query={}", tier, closestSimilarity, query);
+    }
+    
+    /**
+     * 记录误命中
+     * 
+     * @param tier 层级
+     * @param query 查询
+     * @param cachedQuery 误命中的缓存查询
+     * @param similarity 相似度
+     */
+    public void falseHit(Tier tier, String query, String cachedQuery, float similarity) {
+        falseHits[tier.ordinal()].increment();
+        log.warn("FALSE_HIT tier={} similarity={} query={} cached={}", tier, similarity, query, cachedQuery);
+    }
+    
+    /**
+     * 获取统计
+     * 
+     * @param tier 层级
+     * @return 统计
+     */
+    public Stats getStats(Tier tier) {
+        int i = tier.ordinal();
+        return new Stats(hits[i].sum(), misses[i].sum(), falseHits[i].sum());
+    }
+    
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Tier.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+    
+    /**
+     * 统计快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        
+        private final long hits;
+        
+        private final long misses;
+        
+        private final long falseHits;
+        
+        /**
+         * 命中率（误命中仍计入命中）
+         * 
+         * @return 命中率，没有请求时为 0
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
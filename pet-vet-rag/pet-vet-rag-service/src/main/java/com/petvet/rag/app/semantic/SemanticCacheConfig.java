@@ -0,0 +1,38 @@
+package com.petvet.rag.app.semantic;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 语义缓存配置类
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Configuration
+@EnableConfigurationProperties(SemanticCacheProperties.class)
+@Slf4j
+public class SemanticCacheConfig {
+    
+    /**
+     * 查询向量化实现：配置为 model 且容器中有 EmbeddingModel 时使用模型，否则使用本地哈希向量
+     */
+    @Bean
+    public QueryEmbedder queryEmbedder(SemanticCacheProperties properties, ObjectProvider<EmbeddingModel> embeddingModel) {
+        if ("model".equalsIgnoreCase(properties.getEmbedder())) {
+            EmbeddingModel model = embeddingModel.getIfAvailable();
+            if (model != null) {
+                log.info("语义缓存使用 EmbeddingModel 向量化: {}", model.getClass().getSimpleName());
+                return new ModelQueryEmbedder(model);
+            }
+            log.warn("语义缓存配置为 model 向量化，但容器中没有 EmbeddingModel，使用本地哈希向量");
+        }
+        int dimension = properties.getDimension() != null ? properties.getDimension() : 256;
+        log.info("语义缓存使用本地哈希向量化，维度: {}", dimension);
+        return new HashingQueryEmbedder(dimension);
+    }
+}
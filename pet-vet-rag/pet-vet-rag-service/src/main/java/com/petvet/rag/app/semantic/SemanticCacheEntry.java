@@ -0,0 +1,84 @@
+package com.petvet.rag.app.semantic;
+
+import com.petvet.rag.api.resp.RagValidationResp;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 语义缓存条目
+ * 
+ * 一个查询对应一个条目和一个向量，分类结果和最终答案分别写入（分类在前、生成答案在后）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Getter
+public class SemanticCacheEntry {
+    
+    /**
+     * 原始查询
+     */
+    private final String query;
+    
+    /**
+     * 在向量索引中的槽位
+     */
+    private volatile int slot = -1;
+    
+    /**
+     * 分类结果
+     */
+    private volatile ClassificationResult classification;
+    
+    /**
+     * 最终答案
+     */
+    private volatile CachedAnswer answer;
+    
+    SemanticCacheEntry(String query) {
+        this.query = query;
+    }
+    
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+    
+    void setClassification(ClassificationResult classification) {
+        this.classification = classification;
+    }
+    
+    void setAnswer(CachedAnswer answer) {
+        this.answer = answer;
+    }
+    
+    /**
+     * 缓存的最终答案
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedAnswer {
+        
+        /**
+         * 影响答案的请求参数（模型、检索数量、相似度阈值等），不同时不命中
+         */
+        private final String scope;
+        
+        /**
+         * 答案
+         */
+        private final String answer;
+        
+        /**
+         * 生成答案时使用的检索文档
+         */
+        private final List<RagValidationResp.RetrievedDocument> retrievedDocuments;
+        
+        /**
+         * 是否使用了知识库
+         */
+        private final boolean usedKnowledgeBase;
+    }
+}
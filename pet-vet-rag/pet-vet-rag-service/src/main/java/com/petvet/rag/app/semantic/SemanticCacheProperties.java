@@ -0,0 +1,58 @@
+package com.petvet.rag.app.semantic;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 语义缓存配置属性
+ * 绑定 rag.semantic-cache.* 配置项
+ * 
+ * 注意：不使用 @Component，通过 @EnableConfigurationProperties 在 SemanticCacheConfig 中启用
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@ConfigurationProperties(prefix = "rag.semantic-cache")
+@Data
+public class SemanticCacheProperties {
+    
+    /**
+     * 是否启用语义缓存
+     */
+    private Boolean enabled = false;
+    
+    /**
+     * 命中所需的最低余弦相似度
+     */
+    private Double similarityThreshold = 0.92;
+    
+    /**
+     * 最多缓存的查询数，超出后淘汰最早写入的查询
+     */
+    private Integer maxSize = 10000;
+    
+    /**
+     * 过期时间（分钟，写入后计时）
+     */
+    private Integer expireMinutes = 60;
+    
+    /**
+     * 向量化方式：hashing（本地字符 n-gram 哈希，不依赖模型）或 model（使用容器中的 EmbeddingModel）
+     */
+    private String embedder = "hashing";
+    
+    /**
+     * hashing 方式的向量维度
+     */
+    private Integer dimension = 256;
+    
+    /**
+     * 分类结果命中后重新分类校验的抽样比例（0.0-1.0），结果不一致记为误命中并删除该缓存
+     */
+    private Double verifySampleRate = 0.05;
+    
+    /**
+     * 是否缓存最终答案（只缓存没有对话历史的首轮问答）
+     */
+    private Boolean answerEnabled = true;
+}
@@ -0,0 +1,64 @@
+package com.petvet.rag.app.semantic;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+
+/**
+ * 语义缓存命中的分类结果
+ * 
+ * 除分类结果外还记录命中的条目及其槽位，误命中时按原样交回 {@link SemanticQueryCache#reportFalseHit}，
+ * 只删除这次命中的条目，不需要重新做一次最近邻查找
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class SemanticClassificationHit extends ClassificationResult {
+    
+    /**
+     * 命中的缓存条目
+     */
+    private final SemanticCacheEntry entry;
+    
+    /**
+     * 命中时条目在向量索引中的槽位
+     */
+    private final int slot;
+    
+    /**
+     * 查询与缓存查询的余弦相似度
+     */
+    private final float similarity;
+    
+    SemanticClassificationHit(ClassificationResult cached, SemanticCacheEntry entry, int slot, float similarity) {
+        super(cached.getNeedRetrieval(), cached.getConfidence(), cached.getReason(),
+            SemanticQueryCache.STRATEGY_NAME, true, null);
+        this.entry = entry;
+        this.slot = slot;
+        this.similarity = similarity;
+    }
+    
+    SemanticCacheEntry getEntry() {
+        return entry;
+    }
+    
+    int getSlot() {
+        return slot;
+    }
+    
+    /**
+     * 命中的缓存查询
+     * 
+     * @return 缓存查询
+     */
+    public String getCachedQuery() {
+        return entry.getQuery();
+    }
+    
+    /**
+     * 查询与缓存查询的余弦相似度
+     * 
+     * @return 相似度
+     */
+    public float getSimilarity() {
+        return similarity;
+    }
+}
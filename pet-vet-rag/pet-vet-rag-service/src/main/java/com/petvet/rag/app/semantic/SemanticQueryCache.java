@@ -0,0 +1,231 @@
+package com.petvet.rag.app.semantic;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 语义查询缓存
+ * 
+ * 保存查询向量及其分类结果和最终答案，新查询与缓存查询的余弦相似度不低于阈值时直接复用，
+ * 使措辞略有不同的同一问题也能命中，不必再走完整的分类链和大模型调用。
+ * 
+ * - 向量保存在进程内的 {@link FlatVectorIndex} 中，按容量和过期时间淘汰
+ * - 同一查询文本只保存一个条目，分类结果和答案分别写入
+ * - 最近的查询向量缓存一分钟，同一请求内的多次查找和写入只向量化一次
+ * - 命中、未命中和误命中由 {@link SemanticCacheAudit} 统计并写入审计日志
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Component
+@Slf4j
+public class SemanticQueryCache {
+    
+    /**
+     * 语义缓存命中时分类结果中的策略名
+     */
+    public static final String STRATEGY_NAME = "SemanticCacheLayerStrategy";
+    
+    /**
+     * 未命中时审计日志记录的最接近相似度的范围（阈值以下）
+     */
+    private static final double AUDIT_MARGIN = 0.1;
+    
+    private final SemanticCacheProperties properties;
+    
+    private final QueryEmbedder embedder;
+    
+    private final FlatVectorIndex<SemanticCacheEntry> index;
+    
+    /**
+     * 查询文本到条目的映射，条目被淘汰时同步删除
+     */
+    private final Map<String, SemanticCacheEntry> entries = new ConcurrentHashMap<>();
+    
+    private final Cache<String, float[]> recentEmbeddings = Caffeine.newBuilder()
+        .maximumSize(1024)
+        .expireAfterWrite(1, TimeUnit.MINUTES)
+        .build();
+    
+    private final SemanticCacheAudit audit = new SemanticCacheAudit();
+    
+    @Autowired
+    public SemanticQueryCache(SemanticCacheProperties properties, QueryEmbedder embedder) {
+        this(properties, embedder, System::currentTimeMillis);
+    }
+    
+    SemanticQueryCache(SemanticCacheProperties properties, QueryEmbedder embedder, LongSupplier clock) {
+        this.properties = properties;
+        this.embedder = embedder;
+        int maxSize = properties.getMaxSize() != null ? properties.getMaxSize() : 10000;
+        int expireMinutes = properties.getExpireMinutes() != null ? properties.getExpireMinutes() : 60;
+        this.index = new FlatVectorIndex<>(embedder.dimension(), maxSize, TimeUnit.MINUTES.toMillis(expireMinutes),
+            clock, entry -> entries.remove(entry.getQuery(), entry));
+        log.info("语义缓存初始化完成，启用: {}, 相似度阈值: {}, 容量: {}, 过期时间: {}分钟, 向量维度: {}",
+            isEnabled(), properties.getSimilarityThreshold(), maxSize, expireMinutes, embedder.dimension());
+    }
+    
+    /**
+     * 是否启用
+     * 
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(properties.getEnabled());
+    }
+    
+    /**
+     * 是否启用答案缓存
+     * 
+     * @return 是否启用
+     */
+    public boolean isAnswerEnabled() {
+        return isEnabled() && !Boolean.FALSE.equals(properties.getAnswerEnabled());
+    }
+    
+    /**
+     * 查找相似查询的分类结果
+     * 
+     * @param query 查询
+     * @return 分类结果的副本（cacheHit 为 true，策略名为 SemanticCacheLayerStrategy，附带命中的条目），未命中时返回 null
+     */
+    public SemanticClassificationHit getClassification(String query) {
+        FlatVectorIndex.Match<SemanticCacheEntry> match = lookup(SemanticCacheAudit.Tier.CLASSIFICATION, query,
+            entry -> entry.getClassification() != null);
+        if (match == null) {
+            return null;
+        }
+        return new SemanticClassificationHit(match.getValue().getClassification(), match.getValue(),
+            match.getSlot(), match.getSimilarity());
+    }
+    
+    /**
+     * 缓存分类结果
+     * 
+     * @param query 查询
+     * @param result 分类结果
+     */
+    public void putClassification(String query, ClassificationResult result) {
+        if (!isEnabled() || result == null) {
+            return;
+        }
+        entryFor(query).setClassification(ClassificationResult.builder()
+            .needRetrieval(result.getNeedRetrieval())
+            .confidence(result.getConfidence())
+            .reason(result.getReason())
+            .strategyName(result.getStrategyName())
+            .build());
+    }
+    
+    /**
+     * 查找相似查询在相同请求参数下的答案
+     * 
+     * @param query 查询
+     * @param scope 影响答案的请求参数
+     * @return 缓存的答案，未命中时返回 null
+     */
+    public SemanticCacheEntry.CachedAnswer getAnswer(String query, String scope) {
+        FlatVectorIndex.Match<SemanticCacheEntry> match = lookup(SemanticCacheAudit.Tier.ANSWER, query,
+            entry -> entry.getAnswer() != null && entry.getAnswer().getScope().equals(scope));
+        return match != null ? match.getValue().getAnswer() : null;
+    }
+    
+    /**
+     * 缓存答案
+     * 
+     * @param query 查询
+     * @param answer 答案
+     */
+    public void putAnswer(String query, SemanticCacheEntry.CachedAnswer answer) {
+        if (!isAnswerEnabled() || answer == null || answer.getAnswer() == null) {
+            return;
+        }
+        entryFor(query).setAnswer(answer);
+    }
+    
+    /**
+     * 是否对本次分类命中做重新分类校验（按 verifySampleRate 抽样）
+     * 
+     * @return 是否校验
+     */
+    public boolean shouldVerify() {
+        double rate = properties.getVerifySampleRate() != null ? properties.getVerifySampleRate() : 0;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+    
+    /**
+     * 报告误命中：记录审计并删除这次命中的缓存条目（条目已被淘汰或覆盖时不做处理）
+     * 
+     * @param tier 层级
+     * @param query 发生误命中的查询
+     * @param hit {@link #getClassification} 返回的命中结果
+     */
+    public void reportFalseHit(SemanticCacheAudit.Tier tier, String query, SemanticClassificationHit hit) {
+        audit.falseHit(tier, query, hit.getCachedQuery(), hit.getSimilarity());
+        index.remove(hit.getSlot(), hit.getEntry());
+    }
+    
+    /**
+     * 获取统计
+     * 
+     * @param tier 层级
+     * @return 统计
+     */
+    public SemanticCacheAudit.Stats getStats(SemanticCacheAudit.Tier tier) {
+        return audit.getStats(tier);
+    }
+    
+    /**
+     * 未过期的缓存查询数
+     * 
+     * @return 数量
+     */
+    public int size() {
+        return index.size();
+    }
+    
+    private FlatVectorIndex.Match<SemanticCacheEntry> lookup(SemanticCacheAudit.Tier tier, String query,
+                                                             Predicate<SemanticCacheEntry> filter) {
+        if (!isEnabled() || query == null || query.isBlank()) {
+            return null;
+        }
+        // 放宽阈值查找，未命中时把接近阈值的最高相似度写入审计日志，便于调整阈值
+        FlatVectorIndex.Match<SemanticCacheEntry> match = index.nearest(embed(query), threshold() - AUDIT_MARGIN, filter);
+        if (match == null || match.getSimilarity() < threshold()) {
+            audit.miss(tier, query, match != null ? match.getSimilarity() : null);
+            return null;
+        }
+        audit.hit(tier, query, match.getValue().getQuery(), match.getSimilarity());
+        return match;
+    }
+    
+    private SemanticCacheEntry entryFor(String query) {
+        SemanticCacheEntry entry = entries.get(query);
+        if (entry != null && index.isLive(entry.getSlot(), entry)) {
+            return entry;
+        }
+        SemanticCacheEntry created = new SemanticCacheEntry(query);
+        entries.put(query, created);
+        created.setSlot(index.add(embed(query), created));
+        return created;
+    }
+    
+    private float[] embed(String query) {
+        return recentEmbeddings.get(query, embedder::embed);
+    }
+    
+    private double threshold() {
+        return properties.getSimilarityThreshold() != null ? properties.getSimilarityThreshold() : 0.92;
+    }
+}
@@ -92,4 +92,13 @@ public class HybridQueryClassifier {
             return null;
         }
     }
+    
+    /**
+     * 混合方案分类是否依赖对话记忆（不依赖时可以与记忆加载并行执行）
+     * 
+     * @return 是否依赖对话记忆
+     */
+    public boolean requiresMemory() {
+        return orchestrator.requiresMemory();
+    }
 }
@@ -0,0 +1,137 @@
+package com.petvet.rag.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * RAG 验证流水线中异步执行的一个阶段
+ * 
+ * 阶段提交到线程池后立即开始执行，截止时间从提交时开始计算；等待结果时超过截止时间、执行失败或被中断都返回降级结果。
+ * 线程池已满拒绝提交时阶段不会执行，按超时处理，等待时立即返回降级结果。
+ * 阶段耗时为任务实际执行的时间，超时时为从提交到放弃等待的时间
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+final class RagPipelineStage<T> {
+    
+    private final String name;
+    
+    private final long startTime;
+    
+    private final long deadline;
+    
+    /**
+     * 线程池拒绝提交时为 null
+     */
+    private final Future<T> future;
+    
+    /**
+     * 任务执行耗时（毫秒），任务未结束时为 -1
+     */
+    private volatile long executionTime = -1;
+    
+    /**
+     * 调用方拿到结果（或放弃等待）时记录的耗时
+     */
+    private long costTime = -1;
+    
+    private RagPipelineStage(String name, long timeoutMs, ExecutorService executor, Callable<T> task) {
+        this.name = name;
+        this.startTime = System.currentTimeMillis();
+        this.deadline = startTime + timeoutMs;
+        Future<T> submitted;
+        try {
+            submitted = executor.submit(() -> {
+                long taskStart = System.currentTimeMillis();
+                try {
+                    return task.call();
+                } finally {
+                    executionTime = System.currentTimeMillis() - taskStart;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("流水线阶段 {} 被拒绝（{}），按超时处理", name, e.getMessage());
+            submitted = null;
+        }
+        this.future = submitted;
+    }
+    
+    /**
+     * 提交阶段任务
+     * 
+     * @param name 阶段名称
+     * @param timeoutMs 超时时间（毫秒，从提交时开始计算）
+     * @param executor 线程池
+     * @param task 阶段任务
+     * @return 阶段
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    static <T> RagPipelineStage<T> start(String name, long timeoutMs, ExecutorService executor, Callable<T> task) {
+        return new RagPipelineStage<>(name, timeoutMs, executor, task);
+    }
+    
+    /**
+     * 等待阶段结果，最多等到截止时间
+     * 
+     * @param fallback 超时、失败或被中断时的降级结果
+     * @return 阶段结果
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    T await(Supplier<T> fallback) {
+        if (future == null) {
+            costTime = System.currentTimeMillis() - startTime;
+            return fallback.get();
+        }
+        try {
+            T result = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            costTime = executionTime >= 0 ? executionTime : System.currentTimeMillis() - startTime;
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            costTime = System.currentTimeMillis() - startTime;
+            log.warn("流水线阶段 {} 超时（{}ms），使用降级结果", name, costTime);
+        } catch (ExecutionException e) {
+            costTime = System.currentTimeMillis() - startTime;
+            log.error("流水线阶段 {} 执行失败，使用降级结果", name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            costTime = System.currentTimeMillis() - startTime;
+            log.warn("等待流水线阶段 {} 时被中断，使用降级结果", name);
+        }
+        return fallback.get();
+    }
+    
+    /**
+     * 取消阶段（结果不再需要），正在执行的任务会被中断
+     * 
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    void cancel() {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * 阶段耗时（毫秒），调用 {@link #await} 前为 -1
+     * 
+     * @return 阶段耗时
+     */
+    long getCostTime() {
+        return costTime;
+    }
+}
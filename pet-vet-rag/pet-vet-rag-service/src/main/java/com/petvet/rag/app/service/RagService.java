@@ -7,7 +7,12 @@ import com.petvet.embedding.api.resp.ResumeSearchResp;
 import com.petvet.rag.api.req.RagQueryReq;
 import com.petvet.rag.api.resp.RagQueryResp;
 import com.petvet.rag.app.config.LangChainConfig;
+import com.petvet.rag.app.stream.RagStreamListener;
+import com.petvet.rag.app.stream.RagTokenStream;
+import com.petvet.rag.app.util.PromptTemplate;
+import com.petvet.rag.app.util.RagPromptBuilder;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,11 +35,18 @@ public class RagService {
     
     private final ResumeParseFeignClient resumeParseFeignClient;
     private final ChatModel chatModel;
+    private final StreamingChatModel streamingChatModel;
     private final LangChainConfig langChainConfig;
     
     @Value("${rag.generation.prompt-template:基于以下上下文信息回答用户的问题。如果上下文中没有相关信息，请说明无法从提供的信息中找到答案。\n\n上下文信息：\n{context}\n\n用户问题：{question}\n\n请提供详细、准确的答案：}")
     private String promptTemplate;
     
+    /**
+     * 提示词的Token上限（模型上下文长度减去为回答预留的部分）
+     */
+    @Value("${rag.generation.max-prompt-tokens:6000}")
+    private int maxPromptTokens;
+    
     /**
      * 执行 RAG 查询
      * 
@@ -67,6 +79,51 @@ public class RagService {
             .build();
     }
     
+    /**
+     * 流式执行 RAG 查询
+     * 检索在调用线程上完成，答案通过 listener 逐段推送，生成完成后推送与 {@link #query} 相同的完整响应
+     * 
+     * @param request 查询请求
+     * @param listener 结果接收方
+     * @return 未开始的流式生成，调用方绑定取消回调后调用 {@link RagTokenStream#run()} 开始
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<RagQueryResp> queryStream(RagQueryReq request, RagStreamListener<RagQueryResp> listener) {
+        log.info("执行流式RAG查询，查询文本: {}", request.getQuery());
+        
+        int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 10;
+        double minScore = request.getMinScore() != null ? request.getMinScore() : 0.7;
+        boolean enableGeneration = request.getEnableGeneration() != null ? request.getEnableGeneration() : true;
+        
+        List<RagQueryResp.RetrievedDocument> retrievedDocuments = retrieve(request.getQuery(), maxResults, minScore);
+        boolean useGeneration = enableGeneration && !retrievedDocuments.isEmpty();
+        
+        RagTokenStream<RagQueryResp> stream = new RagTokenStream<>(listener,
+            answer -> RagQueryResp.builder()
+                .retrievedCount(retrievedDocuments.size())
+                .retrievedDocuments(retrievedDocuments)
+                .generatedAnswer(useGeneration ? answer : null)
+                .usedGeneration(useGeneration)
+                .build(),
+            error -> log.error("流式生成答案失败, query: {}", request.getQuery(), error));
+        if (!useGeneration) {
+            return stream.defer(pending -> pending.complete(null));
+        }
+        
+        String prompt = buildPrompt(request.getQuery(), retrievedDocuments);
+        StreamingChatModel model = streamingChatModel;
+        if (request.getModelName() != null && !request.getModelName().trim().isEmpty()) {
+            try {
+                model = langChainConfig.createStreamingModelByName(request.getModelName());
+            } catch (Exception e) {
+                log.warn("无法创建指定流式模型 {}，使用默认模型", request.getModelName(), e);
+            }
+        }
+        StreamingChatModel selected = model;
+        return stream.defer(pending -> pending.start(selected, prompt));
+    }
+    
     /**
      * 检索相关文档
      * 
@@ -144,29 +201,12 @@ public class RagService {
         log.debug("开始生成答案，查询: {}, 文档数量: {}, 模型: {}", query, documents.size(), modelName);
         
         try {
-            // 1. 构建上下文（取前N个文档，根据配置的上下文窗口大小）
-            int contextWindowSize = 5; // 默认值，可以从配置读取
-            List<RagQueryResp.RetrievedDocument> contextDocuments = documents.stream()
-                .limit(contextWindowSize)
-                .collect(Collectors.toList());
-            
-            // 2. 构建上下文文本
-            StringBuilder contextBuilder = new StringBuilder();
-            for (int i = 0; i < contextDocuments.size(); i++) {
-                RagQueryResp.RetrievedDocument doc = contextDocuments.get(i);
-                contextBuilder.append("文档").append(i + 1).append("：\n");
-                contextBuilder.append(doc.getText()).append("\n\n");
-            }
-            String context = contextBuilder.toString().trim();
-            
-            // 3. 构建提示词
-            String prompt = promptTemplate
-                .replace("{context}", context)
-                .replace("{question}", query);
+            // 1. 构建提示词
+            String prompt = buildPrompt(query, documents);
             
             log.debug("生成的提示词长度: {}", prompt.length());
             
-            // 4. 选择模型（如果指定了模型名称，使用指定的模型；否则使用默认模型）
+            // 2. 选择模型（如果指定了模型名称，使用指定的模型；否则使用默认模型）
             ChatModel model = chatModel;
             if (modelName != null && !modelName.trim().isEmpty()) {
                 try {
@@ -177,7 +217,7 @@ public class RagService {
                 }
             }
             
-            // 5. 调用LLM生成答案
+            // 3. 调用LLM生成答案
             String answer = model.chat(prompt);
             
             log.info("答案生成完成，答案长度: {}", answer != null ? answer.length() : 0);
@@ -188,4 +228,29 @@ public class RagService {
             return "抱歉，生成答案时出现错误：" + e.getMessage();
         }
     }
+    
+    /**
+     * 构建提示词：取前N个文档作为上下文，超出提示词Token预算的文档被丢弃或截断
+     * 
+     * @param query 用户问题
+     * @param documents 检索到的文档
+     * @return 提示词
+     */
+    private String buildPrompt(String query, List<RagQueryResp.RetrievedDocument> documents) {
+        // 1. 构建上下文（取前N个文档，根据配置的上下文窗口大小）
+        int contextWindowSize = 5; // 默认值，可以从配置读取
+        List<String> texts = documents.stream()
+            .limit(contextWindowSize)
+            .map(RagQueryResp.RetrievedDocument::getText)
+            .collect(Collectors.toList());
+        
+        // 2. 构建上下文文本
+        PromptTemplate template = RagPromptBuilder.compile(promptTemplate);
+        StringBuilder context = new StringBuilder();
+        RagPromptBuilder.appendDocuments(context, texts, null, contextWindowSize,
+            RagPromptBuilder.contextTokenBudget(template, query, maxPromptTokens));
+        
+        // 3. 构建提示词
+        return RagPromptBuilder.render(template, context, query);
+    }
 }
@@ -7,8 +7,19 @@ import com.petvet.rag.api.resp.RagValidationResp;
 import com.petvet.rag.app.classifier.config.ClassifierProperties;
 import com.petvet.rag.app.classifier.model.ClassificationResult;
 import com.petvet.rag.app.config.LangChainConfig;
+import com.petvet.rag.app.config.RagPipelineProperties;
 import com.petvet.rag.app.domain.VetRagQueryHistoryEntity;
+import com.petvet.rag.app.semantic.SemanticCacheEntry;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
+import com.petvet.rag.app.stream.RagStreamListener;
+import com.petvet.rag.app.stream.RagTokenStream;
+import com.petvet.rag.app.util.PromptTemplate;
+import com.petvet.rag.app.util.RagPromptBuilder;
+import com.petvet.rag.app.util.TokenEstimator;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,8 +27,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +54,38 @@ public class RagValidationService {
     private final ClassifierProperties classifierProperties; // 分类器配置
     private final ChatModel chatModel;
     private final LangChainConfig langChainConfig;
+    private final SemanticQueryCache semanticQueryCache;
+    private final RagPipelineProperties pipelineProperties;
+    private final ExecutorService ragPipelineExecutor;
+    private final StreamingChatModel streamingChatModel;
+    
+    /**
+     * 纯大模型模式的提示词模板，{history} 为空或"对话历史：\n...\n\n"
+     */
+    private static final PromptTemplate HISTORY_ONLY_TEMPLATE = PromptTemplate.compile(
+        "作为专业的宠物医疗AI助手，基于以下对话历史回答用户的问题。\n\n" +
+        "{history}用户当前问题：{question}\n\n请提供详细、准确的答案：");
+    
+    private static final String HISTORY_HEADER = "[历史对话上下文]\n";
+    
+    private static final String DOCUMENT_HEADER = "[检索到的相关文档]\n";
+    
+    private static final String HISTORY_ONLY_HEADER = "对话历史：\n";
+    
+    private static final String SECTION_SEPARATOR = "\n\n";
+    
+    private static final String GENERATION_ERROR_PREFIX = "抱歉，生成答案时出现错误：";
+    
+    /**
+     * 流水线阶段名称，也是响应中 stageTimings 的键
+     */
+    private static final String STAGE_MEMORY = "memory";
+    
+    private static final String STAGE_CLASSIFICATION = "classification";
+    
+    private static final String STAGE_RETRIEVAL = "retrieval";
+    
+    private static final String STAGE_GENERATION = "generation";
     
     @Value("${rag.generation.prompt-template:基于以下上下文信息回答用户的问题。如果上下文中没有相关信息，请说明无法从提供的信息中找到答案。\n\n上下文信息：\n{context}\n\n用户问题：{question}\n\n请提供详细、准确的答案：}")
     private String promptTemplate;
@@ -47,6 +93,18 @@ public class RagValidationService {
     @Value("${rag.retrieval.min-retrieval-score:0.6}")
     private Double minRetrievalScore;
     
+    /**
+     * 提示词的Token上限（模型上下文长度减去为回答预留的部分）
+     */
+    @Value("${rag.generation.max-prompt-tokens:6000}")
+    private int maxPromptTokens;
+    
+    /**
+     * RAG 模式下历史对话最多占用的Token数，其余预算留给检索到的文档
+     */
+    @Value("${rag.generation.history-max-tokens:1000}")
+    private int historyMaxTokens;
+    
     /**
      * 执行 RAG 验证
      * 
@@ -56,328 +114,562 @@ public class RagValidationService {
      * @return 验证响应
      */
     public RagValidationResp validate(RagValidationReq request) {
-        long startTime = System.currentTimeMillis();
-        
         try {
-            // 1. 参数处理
-            String userId = request.getUserId();
-            String sessionId = StringUtils.hasText(request.getSessionId()) ? request.getSessionId() : generateSessionId();
-            String query = request.getQuery();
-            int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 5;
-            double minScore = request.getMinScore() != null ? request.getMinScore() : 0.7;
-            boolean enableGeneration = request.getEnableGeneration() != null ? request.getEnableGeneration() : true;
-            int contextWindowSize = request.getContextWindowSize() != null ? request.getContextWindowSize() : 5;
-            
-            log.info("开始RAG验证，用户: {}, 会话: {}, 查询: {}", userId, sessionId, query);
-            
-            // 2. 加载历史记忆
-            MemoryService.ConversationMemory memory = memoryService.loadConversation(userId, sessionId);
-            log.debug("加载历史记忆，消息数: {}", memory.getMessages().size());
+            // 1-5. 加载记忆、分类、检索
+            ValidationContext context = prepare(request);
             
-            // 3. 判断是否需要检索知识库（支持新旧方案对比验证）
-            ClassificationResult classificationResult = null;
-            boolean needRetrieval;
-            String classifierType = "original"; // 记录使用的分类器类型
-            Boolean originalResult = null; // 用于对比验证
+            // 6. 生成答案
+            String answer = null;
+            if (context.getCachedAnswer() != null) {
+                answer = context.getCachedAnswer().getAnswer();
+            } else if (context.isEnableGeneration()) {
+                RagPipelineStage<String> generationStage = RagPipelineStage.start(STAGE_GENERATION,
+                    pipelineProperties.getGenerationTimeoutMs(), ragPipelineExecutor, () -> generate(context));
+                answer = generationStage.await(() -> GENERATION_ERROR_PREFIX + "生成超时");
+                context.getStageTimings().put(STAGE_GENERATION, generationStage.getCostTime());
+            }
             
-            // 判断是否启用对比模式
-            boolean enableCompare = classifierProperties.getCompareMode() != null && classifierProperties.getCompareMode();
-            boolean useHybrid = classifierProperties.getHybrid().getEnabled() != null && classifierProperties.getHybrid().getEnabled();
+            // 7-12. 更新记忆、保存历史记录并构建响应
+            return complete(context, answer);
+                
+        } catch (Exception e) {
+            log.error("RAG验证失败", e);
+            throw new RuntimeException("RAG验证失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 流式执行 RAG 验证
+     * 
+     * 加载记忆、分类和检索在调用线程上完成，之后答案以文本片段的形式推送给 listener；生成完成后才更新记忆、
+     * 保存历史记录并推送完整结果。生成被取消（客户端断开）时不更新记忆，也不保存历史记录
+     * 
+     * @param request 验证请求
+     * @param listener 结果接收方
+     * @return 未开始的流式生成，调用方绑定取消回调后调用 {@link RagTokenStream#run()} 开始
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<RagValidationResp> validateStream(RagValidationReq request,
+                                                            RagStreamListener<RagValidationResp> listener) {
+        ValidationContext context;
+        try {
+            context = prepare(request);
+        } catch (Exception e) {
+            log.error("RAG验证失败", e);
+            throw new RuntimeException("RAG验证失败: " + e.getMessage(), e);
+        }
+        
+        boolean generating = context.getCachedAnswer() == null && context.isEnableGeneration();
+        long generationStart = System.currentTimeMillis();
+        RagTokenStream<RagValidationResp> stream = new RagTokenStream<>(listener,
+            answer -> {
+                if (generating) {
+                    context.getStageTimings().put(STAGE_GENERATION, System.currentTimeMillis() - generationStart);
+                }
+                return complete(context, answer);
+            },
+            error -> complete(context, GENERATION_ERROR_PREFIX + error.getMessage()));
+        
+        if (context.getCachedAnswer() != null) {
+            String cached = context.getCachedAnswer().getAnswer();
+            return stream.defer(pending -> pending.complete(cached));
+        }
+        if (!generating) {
+            return stream.defer(pending -> pending.complete(null));
+        }
+        try {
+            StreamingChatModel model = selectStreamingModel(request.getModelName());
+            String prompt = buildPrompt(context);
+            return stream.defer(pending -> pending.start(model, prompt));
+        } catch (Exception e) {
+            return stream.defer(pending -> pending.onError(e));
+        }
+    }
+    
+    /**
+     * 生成答案之前的步骤：加载历史记忆、查语义答案缓存、分类和检索
+     * 
+     * @param request 验证请求
+     * @return 验证上下文
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private ValidationContext prepare(RagValidationReq request) {
+        long startTime = System.currentTimeMillis();
+        
+        // 1. 参数处理
+        String userId = request.getUserId();
+        String sessionId = StringUtils.hasText(request.getSessionId()) ? request.getSessionId() : generateSessionId();
+        String query = request.getQuery();
+        int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 5;
+        double minScore = request.getMinScore() != null ? request.getMinScore() : 0.7;
+        boolean enableGeneration = request.getEnableGeneration() != null ? request.getEnableGeneration() : true;
+        int contextWindowSize = request.getContextWindowSize() != null ? request.getContextWindowSize() : 5;
+        
+        log.info("开始RAG验证，用户: {}, 会话: {}, 查询: {}", userId, sessionId, query);
+        
+        // 2. 并行启动各阶段：加载历史记忆、分类（规则不依赖记忆时）、检索（提前发起，分类结果为不需要检索时丢弃）
+        Map<String, Long> stageTimings = new LinkedHashMap<>();
+        boolean enableCompare = classifierProperties.getCompareMode() != null && classifierProperties.getCompareMode();
+        boolean useHybrid = classifierProperties.getHybrid().getEnabled() != null && classifierProperties.getHybrid().getEnabled();
+        
+        RagPipelineStage<MemoryService.ConversationMemory> memoryStage = RagPipelineStage.start(STAGE_MEMORY,
+            pipelineProperties.getMemoryTimeoutMs(), ragPipelineExecutor,
+            () -> memoryService.loadConversation(userId, sessionId));
+        RagPipelineStage<ClassificationResult> classificationStage = useHybrid && !hybridQueryClassifier.requiresMemory()
+            ? startClassification(query, null)
+            : null;
+        RagPipelineStage<List<RagQueryResp.RetrievedDocument>> retrievalStage =
+            Boolean.TRUE.equals(pipelineProperties.getSpeculativeRetrieval())
+                ? startRetrieval(query, maxResults, minScore)
+                : null;
+        
+        // 3. 等待历史记忆，超时按空记忆处理（只影响本次生成，更新记忆时会重新加载）
+        MemoryService.ConversationMemory loadedMemory = memoryStage.await(() -> null);
+        stageTimings.put(STAGE_MEMORY, memoryStage.getCostTime());
+        boolean memoryLoaded = loadedMemory != null;
+        MemoryService.ConversationMemory memory = memoryLoaded ? loadedMemory : emptyMemory(userId, sessionId);
+        log.debug("加载历史记忆，消息数: {}", memory.getMessages().size());
+        
+        // 首轮问答（没有对话历史）先查语义答案缓存，命中时跳过分类、检索和生成
+        // （记忆加载超时时无法确定是否为首轮，不查也不写答案缓存）
+        boolean firstTurn = memoryLoaded && memory.getMessages().isEmpty();
+        String answerScope = buildAnswerScope(request.getModelName(), maxResults, minScore, contextWindowSize);
+        SemanticCacheEntry.CachedAnswer cachedAnswer = firstTurn && enableGeneration && semanticQueryCache.isAnswerEnabled()
+            ? semanticQueryCache.getAnswer(query, answerScope)
+            : null;
+        
+        // 4. 判断是否需要检索知识库（支持新旧方案对比验证）
+        ClassificationResult classificationResult = null;
+        boolean needRetrieval;
+        String classifierType = "original"; // 记录使用的分类器类型
+        
+        if (cachedAnswer != null) {
+            // 语义答案缓存命中，不需要分类和检索
+            needRetrieval = false;
+            if (classificationStage != null) {
+                classificationStage.cancel();
+            }
+            log.info("语义答案缓存命中, query: {}", query);
+        } else {
+            long classifyStart = System.currentTimeMillis();
+            if (useHybrid && classificationStage == null) {
+                classificationStage = startClassification(query, memory);
+            }
+            // 原有分类器只做本地关键词判断，在请求线程上执行，与混合方案并行
+            Boolean originalResult = !useHybrid || enableCompare ? queryClassifier.needRetrieval(query, memory) : null;
+            if (classificationStage != null) {
+                classificationResult = classificationStage.await(() -> null);
+            }
             
-            if (enableCompare && useHybrid) {
-                // 对比模式：同时运行新旧方案
-                originalResult = queryClassifier.needRetrieval(query, memory);
-                try {
-                    classificationResult = hybridQueryClassifier.classify(query, memory);
-                    if (classificationResult != null && classificationResult.getNeedRetrieval() != null) {
-                        needRetrieval = classificationResult.getNeedRetrieval();
-                        classifierType = "hybrid";
-                        
-                        // 对比结果
-                        boolean isSame = originalResult.equals(needRetrieval);
-                        log.info("【对比验证】query: {}, 原有方案: {}, 混合方案: {}, 结果一致: {}, 策略: {}, 置信度: {}, 耗时: {}ms",
-                            query, originalResult, needRetrieval, isSame,
-                            classificationResult.getStrategyName(), classificationResult.getConfidence(),
-                            classificationResult.getCostTime());
-                        
-                        if (!isSame) {
-                            log.warn("【对比验证】新旧方案结果不一致！query: {}, 原有: {}, 混合: {}, 策略: {}, 原因: {}",
-                                query, originalResult, needRetrieval, classificationResult.getStrategyName(),
-                                classificationResult.getReason());
-                        }
-                    } else {
-                        // 混合方案返回null，使用原有结果
-                        needRetrieval = originalResult;
-                        log.warn("混合方案返回null，使用原有结果, query: {}, needRetrieval: {}", query, needRetrieval);
+            if (classificationResult != null && classificationResult.getNeedRetrieval() != null) {
+                needRetrieval = classificationResult.getNeedRetrieval();
+                classifierType = "hybrid";
+                if (enableCompare) {
+                    // 对比模式：同时运行新旧方案
+                    boolean isSame = originalResult.equals(needRetrieval);
+                    log.info("【对比验证】query: {}, 原有方案: {}, 混合方案: {}, 结果一致: {}, 策略: {}, 置信度: {}, 耗时: {}ms",
+                        query, originalResult, needRetrieval, isSame,
+                        classificationResult.getStrategyName(), classificationResult.getConfidence(),
+                        classificationResult.getCostTime());
+                    
+                    if (!isSame) {
+                        log.warn("【对比验证】新旧方案结果不一致！query: {}, 原有: {}, 混合: {}, 策略: {}, 原因: {}",
+                            query, originalResult, needRetrieval, classificationResult.getStrategyName(),
+                            classificationResult.getReason());
                     }
-                } catch (Exception e) {
-                    // 异常时使用原有结果
-                    needRetrieval = originalResult;
-                    log.error("混合方案执行失败，使用原有结果, query: {}", query, e);
+                } else {
+                    log.info("使用混合方案分类, query: {}, needRetrieval: {}, strategy: {}, confidence: {}, cost: {}ms",
+                        query, needRetrieval, classificationResult.getStrategyName(),
+                        classificationResult.getConfidence(), classificationResult.getCostTime());
                 }
             } else if (useHybrid) {
-                // 仅使用混合方案
-                try {
-                    classificationResult = hybridQueryClassifier.classify(query, memory);
-                    if (classificationResult != null && classificationResult.getNeedRetrieval() != null) {
-                        needRetrieval = classificationResult.getNeedRetrieval();
-                        classifierType = "hybrid";
-                        log.info("使用混合方案分类, query: {}, needRetrieval: {}, strategy: {}, confidence: {}, cost: {}ms",
-                            query, needRetrieval, classificationResult.getStrategyName(),
-                            classificationResult.getConfidence(), classificationResult.getCostTime());
-                    } else {
-                        // 降级到原有实现
-                        needRetrieval = queryClassifier.needRetrieval(query, memory);
-                        log.warn("混合方案返回null，降级到原有实现, query: {}", query);
-                    }
-                } catch (Exception e) {
-                    // 异常时降级到原有实现
-                    needRetrieval = queryClassifier.needRetrieval(query, memory);
-                    log.error("混合方案执行失败，降级到原有实现, query: {}", query, e);
-                }
+                // 混合方案返回null、失败或超时，降级到原有实现
+                needRetrieval = originalResult != null ? originalResult : queryClassifier.needRetrieval(query, memory);
+                log.warn("混合方案未返回结果，降级到原有实现, query: {}, needRetrieval: {}", query, needRetrieval);
             } else {
                 // 使用原有实现
-                needRetrieval = queryClassifier.needRetrieval(query, memory);
+                needRetrieval = originalResult;
                 log.debug("使用原有分类器, query: {}, needRetrieval: {}", query, needRetrieval);
             }
-            
-            // 记录分类结果详情用于验证
-            if (classificationResult != null) {
-                log.info("分类结果详情 - query: {}, classifier: {}, needRetrieval: {}, strategy: {}, confidence: {}, cacheHit: {}, cost: {}ms",
-                    query, classifierType, needRetrieval, classificationResult.getStrategyName(),
-                    classificationResult.getConfidence(), classificationResult.getCacheHit(),
-                    classificationResult.getCostTime());
-            }
-            
-            List<RagValidationResp.RetrievedDocument> retrievedDocuments = new ArrayList<>();
-            String answer = null;
-            boolean usedKnowledgeBase = false;
-            
-            if (needRetrieval) {
-                // 4. 向量检索
-                RagQueryResp ragResult = ragService.query(RagQueryReq.builder()
-                    .query(query)
-                    .maxResults(maxResults)
-                    .minScore(minScore)
-                    .enableGeneration(false) // 先只检索，不生成
-                    .build());
-                
-                if (ragResult.getRetrievedDocuments() != null && !ragResult.getRetrievedDocuments().isEmpty()) {
-                    // 检查检索结果质量
-                    double topScore = ragResult.getRetrievedDocuments().get(0).getScore();
-                    if (topScore >= minRetrievalScore) {
-                        retrievedDocuments = convertToValidationDocuments(ragResult.getRetrievedDocuments());
-                        usedKnowledgeBase = true;
-                        log.info("检索到高质量结果，相似度: {}, 文档数: {}", topScore, retrievedDocuments.size());
-                    } else {
-                        log.info("检索结果质量低，相似度: {}, 跳过使用知识库", topScore);
-                    }
-                }
+            stageTimings.put(STAGE_CLASSIFICATION, classificationStage != null
+                ? classificationStage.getCostTime()
+                : System.currentTimeMillis() - classifyStart);
+        }
+        
+        // 记录分类结果详情用于验证
+        if (classificationResult != null) {
+            log.info("分类结果详情 - query: {}, classifier: {}, needRetrieval: {}, strategy: {}, confidence: {}, cacheHit: {}, cost: {}ms",
+                query, classifierType, needRetrieval, classificationResult.getStrategyName(),
+                classificationResult.getConfidence(), classificationResult.getCacheHit(),
+                classificationResult.getCostTime());
+        }
+        
+        List<RagValidationResp.RetrievedDocument> retrievedDocuments = new ArrayList<>();
+        boolean usedKnowledgeBase = false;
+        
+        if (needRetrieval) {
+            // 5. 向量检索（没有提前发起时现在发起），超时按没有检索结果处理
+            if (retrievalStage == null) {
+                retrievalStage = startRetrieval(query, maxResults, minScore);
             }
+            List<RagQueryResp.RetrievedDocument> documents = retrievalStage.await(List::of);
+            stageTimings.put(STAGE_RETRIEVAL, retrievalStage.getCostTime());
             
-            // 5. 生成答案
-            if (enableGeneration) {
-                if (usedKnowledgeBase && !retrievedDocuments.isEmpty()) {
-                    // RAG 模式：使用知识库 + 历史对话
-                    answer = generateWithRag(query, retrievedDocuments, memory, contextWindowSize, request.getModelName());
+            if (documents != null && !documents.isEmpty()) {
+                // 检查检索结果质量
+                double topScore = documents.get(0).getScore();
+                if (topScore >= minRetrievalScore) {
+                    retrievedDocuments = convertToValidationDocuments(documents);
+                    usedKnowledgeBase = true;
+                    log.info("检索到高质量结果，相似度: {}, 文档数: {}", topScore, retrievedDocuments.size());
                 } else {
-                    // 纯大模型模式：只使用历史对话
-                    answer = generateWithHistoryOnly(query, memory, request.getModelName());
+                    log.info("检索结果质量低，相似度: {}, 跳过使用知识库", topScore);
                 }
             }
+        } else if (retrievalStage != null) {
+            // 不需要检索，取消提前发起的检索并丢弃结果
+            retrievalStage.cancel();
+            log.debug("不需要检索知识库，丢弃提前发起的检索, query: {}", query);
+        }
+        
+        return ValidationContext.builder()
+            .request(request)
+            .startTime(startTime)
+            .userId(userId)
+            .sessionId(sessionId)
+            .query(query)
+            .enableGeneration(enableGeneration)
+            .contextWindowSize(contextWindowSize)
+            .memory(memory)
+            .firstTurn(firstTurn)
+            .answerScope(answerScope)
+            .cachedAnswer(cachedAnswer)
+            .retrievedDocuments(retrievedDocuments)
+            .usedKnowledgeBase(usedKnowledgeBase)
+            .stageTimings(stageTimings)
+            .build();
+    }
+    
+    /**
+     * 得到答案之后的步骤：缓存首轮答案、更新记忆、保存历史记录并构建响应
+     * 
+     * @param context 验证上下文
+     * @param answer 答案（不需要生成时为 null）
+     * @return 验证响应
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private RagValidationResp complete(ValidationContext context, String answer) {
+        String userId = context.getUserId();
+        String sessionId = context.getSessionId();
+        List<RagValidationResp.RetrievedDocument> retrievedDocuments = context.getRetrievedDocuments();
+        boolean usedKnowledgeBase = context.isUsedKnowledgeBase();
+        
+        SemanticCacheEntry.CachedAnswer cachedAnswer = context.getCachedAnswer();
+        if (cachedAnswer != null) {
+            retrievedDocuments = cachedAnswer.getRetrievedDocuments();
+            usedKnowledgeBase = cachedAnswer.isUsedKnowledgeBase();
+        } else if (context.isEnableGeneration() && context.isFirstTurn()
+            && answer != null && !answer.startsWith(GENERATION_ERROR_PREFIX)) {
+            // 缓存首轮问答的答案（生成失败的答案不缓存）
+            semanticQueryCache.putAnswer(context.getQuery(), new SemanticCacheEntry.CachedAnswer(
+                context.getAnswerScope(), answer, List.copyOf(retrievedDocuments), usedKnowledgeBase));
+        }
+        
+        // 7. 更新记忆
+        memoryService.addMessage(userId, sessionId, "USER", context.getQuery());
+        if (answer != null) {
+            memoryService.addMessage(userId, sessionId, "ASSISTANT", answer);
+        }
+        
+        // 8. 构建对话历史响应
+        RagValidationResp.ConversationHistory conversationHistory = buildConversationHistory(context.getMemory());
+        
+        // 9. 计算置信度
+        Double confidence = calculateConfidence(retrievedDocuments, usedKnowledgeBase);
+        
+        // 10. 计算查询耗时
+        long queryTime = System.currentTimeMillis() - context.getStartTime();
+        
+        // 11. 异步保存历史记录
+        saveHistoryAsync(userId, sessionId, context.getRequest(), answer, retrievedDocuments, conversationHistory,
+            queryTime, confidence);
+        
+        // 12. 构建响应
+        return RagValidationResp.builder()
+            .answer(answer)
+            .retrievedCount(retrievedDocuments.size())
+            .retrievedDocuments(retrievedDocuments)
+            .conversationHistory(conversationHistory)
+            .confidence(confidence)
+            .queryTime(queryTime)
+            .sessionId(sessionId)
+            .usedKnowledgeBase(usedKnowledgeBase)
+            .stageTimings(context.getStageTimings())
+            .build();
+    }
+    
+    /**
+     * 提交混合方案分类阶段
+     * 
+     * @param query 用户查询
+     * @param memory 对话记忆（分类不依赖记忆时为 null）
+     * @return 分类阶段，结果为 null 表示混合方案没有给出结果
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private RagPipelineStage<ClassificationResult> startClassification(String query,
+                                                                       MemoryService.ConversationMemory memory) {
+        return RagPipelineStage.start(STAGE_CLASSIFICATION, pipelineProperties.getClassificationTimeoutMs(),
+            ragPipelineExecutor, () -> hybridQueryClassifier.classify(query, memory));
+    }
+    
+    /**
+     * 提交检索阶段（只检索，不生成）
+     * 
+     * @param query 用户查询
+     * @param maxResults 最大检索数量
+     * @param minScore 最低相似度
+     * @return 检索阶段
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private RagPipelineStage<List<RagQueryResp.RetrievedDocument>> startRetrieval(String query, int maxResults,
+                                                                                  double minScore) {
+        return RagPipelineStage.start(STAGE_RETRIEVAL, pipelineProperties.getRetrievalTimeoutMs(),
+            ragPipelineExecutor, () -> ragService.query(RagQueryReq.builder()
+                .query(query)
+                .maxResults(maxResults)
+                .minScore(minScore)
+                .enableGeneration(false)
+                .build()).getRetrievedDocuments());
+    }
+    
+    /**
+     * 调用大模型生成答案，失败时返回错误提示作为答案
+     * 
+     * @param context 验证上下文
+     * @return 生成的答案
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private String generate(ValidationContext context) {
+        String mode = isRagMode(context) ? "RAG模式" : "纯大模型模式";
+        try {
+            String answer = selectModel(context.getRequest().getModelName()).chat(buildPrompt(context));
+            log.info("{}生成答案完成，答案长度: {}", mode, answer != null ? answer.length() : 0);
+            return answer;
             
-            // 6. 更新记忆
-            memoryService.addMessage(userId, sessionId, "USER", query);
-            if (answer != null) {
-                memoryService.addMessage(userId, sessionId, "ASSISTANT", answer);
-            }
-            
-            // 7. 构建对话历史响应
-            RagValidationResp.ConversationHistory conversationHistory = buildConversationHistory(memory);
-            
-            // 8. 计算置信度
-            Double confidence = calculateConfidence(retrievedDocuments, usedKnowledgeBase);
-            
-            // 9. 计算查询耗时
-            long queryTime = System.currentTimeMillis() - startTime;
-            
-            // 10. 异步保存历史记录
-            saveHistoryAsync(userId, sessionId, request, answer, retrievedDocuments, conversationHistory, queryTime, confidence);
-            
-            // 11. 构建响应
-            return RagValidationResp.builder()
-                .answer(answer)
-                .retrievedCount(retrievedDocuments.size())
-                .retrievedDocuments(retrievedDocuments)
-                .conversationHistory(conversationHistory)
-                .confidence(confidence)
-                .queryTime(queryTime)
-                .sessionId(sessionId)
-                .usedKnowledgeBase(usedKnowledgeBase)
-                .build();
-                
         } catch (Exception e) {
-            log.error("RAG验证失败", e);
-            throw new RuntimeException("RAG验证失败: " + e.getMessage(), e);
+            log.error("{}生成答案失败", mode, e);
+            return GENERATION_ERROR_PREFIX + e.getMessage();
         }
     }
     
     /**
-     * RAG 模式生成答案（使用知识库 + 历史对话）
+     * 使用知识库时为 RAG 模式（知识库 + 历史对话），否则为纯大模型模式（只使用历史对话）
+     */
+    private boolean isRagMode(ValidationContext context) {
+        return context.isUsedKnowledgeBase() && !context.getRetrievedDocuments().isEmpty();
+    }
+    
+    /**
+     * 构建生成答案的提示词
+     * 
+     * @param context 验证上下文
+     * @return 提示词
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private String buildPrompt(ValidationContext context) {
+        return isRagMode(context)
+            ? buildRagPrompt(context.getQuery(), context.getRetrievedDocuments(), context.getMemory(),
+                context.getContextWindowSize())
+            : buildHistoryOnlyPrompt(context.getQuery(), context.getMemory());
+    }
+    
+    /**
+     * 构建 RAG 模式的提示词（使用知识库 + 历史对话）
      * 
      * @param query 用户查询
      * @param documents 检索到的文档
      * @param memory 对话记忆
      * @param contextWindowSize 上下文窗口大小
-     * @param modelName 模型名称
-     * @return 生成的答案
+     * @return 提示词
      * @author daidasheng
      * @date 2024-12-11
      */
-    private String generateWithRag(String query, 
-                                   List<RagValidationResp.RetrievedDocument> documents,
-                                   MemoryService.ConversationMemory memory,
-                                   int contextWindowSize,
-                                   String modelName) {
-        try {
-            // 1. 构建历史对话上下文（最近3-5轮）
-            String historyContext = buildHistoryContext(memory, 3);
-            
-            // 2. 构建检索文档上下文
-            String documentContext = buildDocumentContext(documents, contextWindowSize);
-            
-            // 3. 构建完整上下文
-            String context = "";
-            if (StringUtils.hasText(historyContext)) {
-                context += "[历史对话上下文]\n" + historyContext + "\n\n";
-            }
-            if (StringUtils.hasText(documentContext)) {
-                context += "[检索到的相关文档]\n" + documentContext;
-            }
-            
-            // 4. 构建Prompt
-            String prompt = promptTemplate
-                .replace("{context}", context)
-                .replace("{question}", query);
-            
-            // 5. 选择模型
-            ChatModel model = chatModel;
-            if (StringUtils.hasText(modelName)) {
-                try {
-                    model = langChainConfig.createModelByName(modelName);
-                } catch (Exception e) {
-                    log.warn("无法创建指定模型 {}，使用默认模型", modelName, e);
-                }
-            }
-            
-            // 6. 调用大模型生成答案
-            String answer = model.chat(prompt);
-            log.info("RAG模式生成答案完成，答案长度: {}", answer != null ? answer.length() : 0);
-            return answer;
-            
-        } catch (Exception e) {
-            log.error("RAG模式生成答案失败", e);
-            return "抱歉，生成答案时出现错误：" + e.getMessage();
+    private String buildRagPrompt(String query,
+                                  List<RagValidationResp.RetrievedDocument> documents,
+                                  MemoryService.ConversationMemory memory,
+                                  int contextWindowSize) {
+        PromptTemplate template = RagPromptBuilder.compile(promptTemplate);
+        int budget = RagPromptBuilder.contextTokenBudget(template, query, maxPromptTokens);
+        StringBuilder context = new StringBuilder();
+        
+        // 1. 构建历史对话上下文（最近3轮，最多占用 historyMaxTokens）
+        int historyBudget = Math.min(historyMaxTokens,
+            budget - TokenEstimator.estimate(HISTORY_HEADER) - TokenEstimator.estimate(DOCUMENT_HEADER));
+        context.append(HISTORY_HEADER);
+        int historyTokens = buildHistoryContext(context, memory, 3, historyBudget);
+        if (historyTokens > 0) {
+            context.append(SECTION_SEPARATOR);
+            budget -= TokenEstimator.estimate(HISTORY_HEADER) + historyTokens;
+        } else {
+            context.setLength(0);
         }
+        
+        // 2. 构建检索文档上下文（使用剩余预算）
+        buildDocumentContext(context, documents, contextWindowSize, budget);
+        
+        // 3. 构建Prompt
+        return RagPromptBuilder.render(template, context, query);
     }
     
     /**
-     * 纯大模型模式生成答案（只使用历史对话）
+     * 构建纯大模型模式的提示词（只使用历史对话）
      * 
      * @param query 用户查询
      * @param memory 对话记忆
-     * @param modelName 模型名称
-     * @return 生成的答案
+     * @return 提示词
      * @author daidasheng
      * @date 2024-12-11
      */
-    private String generateWithHistoryOnly(String query,
-                                           MemoryService.ConversationMemory memory,
-                                           String modelName) {
-        try {
-            // 1. 构建历史对话上下文
-            String historyContext = buildHistoryContext(memory, 5);
-            
-            // 2. 构建Prompt
-            String prompt = "作为专业的宠物医疗AI助手，基于以下对话历史回答用户的问题。\n\n";
-            if (StringUtils.hasText(historyContext)) {
-                prompt += "对话历史：\n" + historyContext + "\n\n";
+    private String buildHistoryOnlyPrompt(String query, MemoryService.ConversationMemory memory) {
+        // 1. 构建历史对话上下文（最近5轮，不超过提示词的Token上限）
+        int budget = RagPromptBuilder.contextTokenBudget(HISTORY_ONLY_TEMPLATE, query, maxPromptTokens)
+            - TokenEstimator.estimate(HISTORY_ONLY_HEADER) - TokenEstimator.estimate(SECTION_SEPARATOR);
+        StringBuilder history = new StringBuilder(HISTORY_ONLY_HEADER);
+        if (buildHistoryContext(history, memory, 5, budget) > 0) {
+            history.append(SECTION_SEPARATOR);
+        } else {
+            history.setLength(0);
+        }
+        
+        // 2. 构建Prompt
+        return HISTORY_ONLY_TEMPLATE.render(Map.of(
+            "history", history,
+            "question", query != null ? query : ""));
+    }
+    
+    /**
+     * 选择模型，指定的模型创建失败时使用默认模型
+     * 
+     * @param modelName 模型名称
+     * @return 模型
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private ChatModel selectModel(String modelName) {
+        if (StringUtils.hasText(modelName)) {
+            try {
+                return langChainConfig.createModelByName(modelName);
+            } catch (Exception e) {
+                log.warn("无法创建指定模型 {}，使用默认模型", modelName, e);
             }
-            prompt += "用户当前问题：" + query + "\n\n请提供详细、准确的答案：";
-            
-            // 3. 选择模型
-            ChatModel model = chatModel;
-            if (StringUtils.hasText(modelName)) {
-                try {
-                    model = langChainConfig.createModelByName(modelName);
-                } catch (Exception e) {
-                    log.warn("无法创建指定模型 {}，使用默认模型", modelName, e);
-                }
+        }
+        return chatModel;
+    }
+    
+    /**
+     * 选择流式模型，指定的模型创建失败时使用默认流式模型
+     * 
+     * @param modelName 模型名称
+     * @return 流式模型
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private StreamingChatModel selectStreamingModel(String modelName) {
+        if (StringUtils.hasText(modelName)) {
+            try {
+                return langChainConfig.createStreamingModelByName(modelName);
+            } catch (Exception e) {
+                log.warn("无法创建指定流式模型 {}，使用默认流式模型", modelName, e);
             }
-            
-            // 4. 调用大模型生成答案
-            String answer = model.chat(prompt);
-            log.info("纯大模型模式生成答案完成，答案长度: {}", answer != null ? answer.length() : 0);
-            return answer;
-            
-        } catch (Exception e) {
-            log.error("纯大模型模式生成答案失败", e);
-            return "抱歉，生成答案时出现错误：" + e.getMessage();
         }
+        return streamingChatModel;
     }
     
     /**
-     * 构建历史对话上下文
+     * 构建历史对话上下文：从最近的消息往前取，最多 maxRounds 轮，超出Token预算的更早消息被丢弃
      * 
+     * @param out 追加到的上下文
      * @param memory 对话记忆
      * @param maxRounds 最大轮数
-     * @return 历史对话上下文文本
+     * @param tokenBudget Token预算
+     * @return 追加的内容占用的Token数（估算），没有追加任何消息时为 0
      * @author daidasheng
      * @date 2024-12-11
      */
-    private String buildHistoryContext(MemoryService.ConversationMemory memory, int maxRounds) {
+    private int buildHistoryContext(StringBuilder out, MemoryService.ConversationMemory memory, int maxRounds,
+                                    int tokenBudget) {
         if (memory == null || memory.getMessages() == null || memory.getMessages().isEmpty()) {
-            return "";
+            return 0;
         }
         
         List<MemoryService.ConversationMemory.Message> messages = memory.getMessages();
         int maxMessages = maxRounds * 2; // 每轮2条消息
         int startIndex = Math.max(0, messages.size() - maxMessages);
         
-        StringBuilder context = new StringBuilder();
-        for (int i = startIndex; i < messages.size(); i++) {
+        // 角色（2个字）、冒号和换行
+        int roleTokens = 4;
+        int used = 0;
+        int first = messages.size();
+        while (first > startIndex) {
+            int tokens = roleTokens + TokenEstimator.estimate(messages.get(first - 1).getContent());
+            if (used + tokens > tokenBudget) {
+                break;
+            }
+            used += tokens;
+            first--;
+        }
+        if (first == messages.size()) {
+            return 0;
+        }
+        
+        for (int i = first; i < messages.size(); i++) {
             MemoryService.ConversationMemory.Message msg = messages.get(i);
             String role = "用户".equals(msg.getRole()) || "USER".equals(msg.getRole()) ? "用户" : "助手";
-            context.append(role).append("：").append(msg.getContent()).append("\n");
+            if (i > first) {
+                out.append('\n');
+            }
+            out.append(role).append("：").append(msg.getContent());
         }
-        
-        return context.toString().trim();
+        return used;
     }
     
     /**
      * 构建文档上下文
      * 
+     * @param out 追加到的上下文
      * @param documents 检索到的文档
      * @param contextWindowSize 上下文窗口大小
-     * @return 文档上下文文本
+     * @param tokenBudget Token预算（包括标题）
      * @author daidasheng
      * @date 2024-12-11
      */
-    private String buildDocumentContext(List<RagValidationResp.RetrievedDocument> documents, int contextWindowSize) {
+    private void buildDocumentContext(StringBuilder out, List<RagValidationResp.RetrievedDocument> documents,
+                                      int contextWindowSize, int tokenBudget) {
         if (documents == null || documents.isEmpty()) {
-            return "";
+            return;
         }
         
-        StringBuilder context = new StringBuilder();
         int count = Math.min(documents.size(), contextWindowSize);
-        
+        List<String> texts = new ArrayList<>(count);
+        List<Double> scores = new ArrayList<>(count);
         for (int i = 0; i < count; i++) {
-            RagValidationResp.RetrievedDocument doc = documents.get(i);
-            context.append("文档").append(i + 1).append("（相似度：").append(doc.getScore()).append("）：\n");
-            context.append(doc.getText()).append("\n\n");
+            texts.add(documents.get(i).getText());
+            scores.add(documents.get(i).getScore());
         }
         
-        return context.toString().trim();
+        int start = out.length();
+        out.append(DOCUMENT_HEADER);
+        if (RagPromptBuilder.appendDocuments(out, texts, scores, count,
+                tokenBudget - TokenEstimator.estimate(DOCUMENT_HEADER)) == 0) {
+            out.setLength(start);
+        }
     }
     
     /**
@@ -504,6 +796,39 @@ public class RagValidationService {
         }
     }
     
+    /**
+     * 构建答案缓存的作用域：影响答案内容的请求参数相同时才能复用缓存的答案
+     * 
+     * @param modelName 模型名称
+     * @param maxResults 最大检索数量
+     * @param minScore 最低相似度
+     * @param contextWindowSize 上下文窗口大小
+     * @return 作用域
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private String buildAnswerScope(String modelName, int maxResults, double minScore, int contextWindowSize) {
+        return (StringUtils.hasText(modelName) ? modelName : "default") + '|' + maxResults + '|' + minScore + '|' + contextWindowSize;
+    }
+    
+    /**
+     * 记忆加载超时时使用的空记忆
+     * 
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @return 空的对话记忆
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    private MemoryService.ConversationMemory emptyMemory(String userId, String sessionId) {
+        return MemoryService.ConversationMemory.builder()
+            .userId(userId)
+            .sessionId(sessionId)
+            .messages(new ArrayList<>())
+            .lastUpdateTime(System.currentTimeMillis())
+            .build();
+    }
+    
     /**
      * 生成会话ID
      * 
@@ -514,6 +839,52 @@ public class RagValidationService {
     private String generateSessionId() {
         return "session_" + UUID.randomUUID().toString().replace("-", "");
     }
-
     
+    /**
+     * 一次验证在生成答案前后共用的数据
+     * 
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    @Getter
+    @Builder
+    private static class ValidationContext {
+        
+        private final RagValidationReq request;
+        
+        private final long startTime;
+        
+        private final String userId;
+        
+        private final String sessionId;
+        
+        private final String query;
+        
+        private final boolean enableGeneration;
+        
+        private final int contextWindowSize;
+        
+        /**
+         * 加载的对话记忆（加载超时时为空记忆）
+         */
+        private final MemoryService.ConversationMemory memory;
+        
+        /**
+         * 是否为首轮问答（记忆加载超时时为 false）
+         */
+        private final boolean firstTurn;
+        
+        private final String answerScope;
+        
+        /**
+         * 命中的语义答案缓存，未命中时为 null
+         */
+        private final SemanticCacheEntry.CachedAnswer cachedAnswer;
+        
+        private final List<RagValidationResp.RetrievedDocument> retrievedDocuments;
+        
+        private final boolean usedKnowledgeBase;
+        
+        private final Map<String, Long> stageTimings;
+    }
 }
@@ -0,0 +1,36 @@
+package com.petvet.rag.app.stream;
+
+import java.io.IOException;
+
+/**
+ * 流式生成结果的接收方
+ * 
+ * 回调在大模型客户端的线程上依次执行（不会并发调用）
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public interface RagStreamListener<T> {
+    
+    /**
+     * 收到一段生成的文本
+     * 
+     * @param token 文本片段
+     * @throws IOException 客户端已断开，调用方会取消生成
+     */
+    void onToken(String token) throws IOException;
+    
+    /**
+     * 生成完成
+     * 
+     * @param result 完整结果
+     */
+    void onComplete(T result);
+    
+    /**
+     * 生成失败
+     * 
+     * @param error 异常
+     */
+    void onError(Throwable error);
+}
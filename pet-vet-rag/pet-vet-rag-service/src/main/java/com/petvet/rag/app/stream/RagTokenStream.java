@@ -0,0 +1,234 @@
+package com.petvet.rag.app.stream;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 一次流式生成
+ * 
+ * 把大模型的流式回调转发给 {@link RagStreamListener}，同时拼接完整答案：生成完成后由 completion 根据完整答案
+ * 构建结果（保存记忆、历史记录等只在这里做一次），生成失败时调用 failure。
+ * 客户端断开（发送文本片段失败）或调用 {@link #cancel()} 后取消上游生成，之后的回调都被忽略，completion 和 failure 都不会执行。
+ * 服务通过 {@link #defer} 设置开始生成的动作并返回未开始的流，调用方绑定取消回调后再调用 {@link #run()} 开始，
+ * 生成开始前客户端断开也能取消
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+public final class RagTokenStream<T> implements StreamingChatResponseHandler {
+    
+    private final RagStreamListener<T> listener;
+    
+    private final Function<String, T> completion;
+    
+    private final Consumer<Throwable> failure;
+    
+    private final StringBuilder answer = new StringBuilder();
+    
+    /**
+     * 是否已结束（完成、失败或取消），保证只结束一次
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+    
+    private volatile boolean cancelled;
+    
+    /**
+     * 上游生成的句柄，收到第一段文本时才能拿到
+     */
+    private volatile StreamingHandle handle;
+    
+    /**
+     * 开始生成的动作，{@link #run()} 时执行一次
+     */
+    private final AtomicReference<Consumer<RagTokenStream<T>>> pending = new AtomicReference<>();
+    
+    private final long startTime = System.currentTimeMillis();
+    
+    private volatile long firstTokenTime = -1;
+    
+    /**
+     * @param listener 结果接收方
+     * @param completion 根据完整答案构建结果
+     * @param failure 生成失败时的处理
+     */
+    public RagTokenStream(RagStreamListener<T> listener, Function<String, T> completion, Consumer<Throwable> failure) {
+        this.listener = listener;
+        this.completion = completion;
+        this.failure = failure;
+    }
+    
+    /**
+     * 设置开始生成的动作（如 {@code stream -> stream.start(model, prompt)}），调用 {@link #run()} 时才执行
+     * 
+     * @param action 开始生成的动作
+     * @return 当前流
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<T> defer(Consumer<RagTokenStream<T>> action) {
+        pending.set(action);
+        return this;
+    }
+    
+    /**
+     * 执行 {@link #defer} 设置的动作，只执行一次；已取消时不再执行
+     * 
+     * @return 当前流
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<T> run() {
+        Consumer<RagTokenStream<T>> action = pending.getAndSet(null);
+        if (action != null && !cancelled) {
+            action.accept(this);
+        }
+        return this;
+    }
+    
+    /**
+     * 开始流式生成（已取消时不再调用大模型）
+     * 
+     * @param model 流式大模型
+     * @param prompt 提示词
+     * @return 当前流
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<T> start(StreamingChatModel model, String prompt) {
+        if (cancelled) {
+            return this;
+        }
+        try {
+            model.chat(prompt, this);
+        } catch (Exception e) {
+            onError(e);
+        }
+        return this;
+    }
+    
+    /**
+     * 不调用大模型直接完成（如命中答案缓存或不需要生成），答案作为一段文本发送
+     * 
+     * @param text 答案，可以为 null
+     * @return 当前流
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public RagTokenStream<T> complete(String text) {
+        if (text != null && !text.isEmpty()) {
+            onPartialResponse(text);
+        }
+        onCompleteResponse(null);
+        return this;
+    }
+    
+    @Override
+    public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+        handle = context.streamingHandle();
+        if (cancelled) {
+            handle.cancel();
+            return;
+        }
+        onPartialResponse(partialResponse.text());
+    }
+    
+    @Override
+    public void onPartialResponse(String token) {
+        if (finished.get() || token == null || token.isEmpty()) {
+            return;
+        }
+        if (firstTokenTime < 0) {
+            firstTokenTime = System.currentTimeMillis() - startTime;
+        }
+        answer.append(token);
+        try {
+            listener.onToken(token);
+        } catch (IOException | RuntimeException e) {
+            log.info("客户端已断开，取消生成: {}", e.getMessage());
+            cancel();
+        }
+    }
+    
+    @Override
+    public void onCompleteResponse(ChatResponse completeResponse) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        // 没有收到任何文本片段时以完整响应为准（不调用大模型直接完成时为 null）
+        String text = answer.length() > 0 ? answer.toString()
+            : completeResponse != null && completeResponse.aiMessage() != null ? completeResponse.aiMessage().text() : null;
+        T result;
+        try {
+            result = completion.apply(text);
+        } catch (Exception e) {
+            log.error("流式生成完成后处理结果失败", e);
+            listener.onError(e);
+            return;
+        }
+        log.info("流式生成完成，首个文本片段耗时: {}ms, 总耗时: {}ms, 答案长度: {}",
+            firstTokenTime, System.currentTimeMillis() - startTime, text != null ? text.length() : 0);
+        listener.onComplete(result);
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        log.error("流式生成失败", error);
+        try {
+            failure.accept(error);
+        } catch (Exception e) {
+            log.error("处理流式生成失败时出错", e);
+        }
+        listener.onError(error);
+    }
+    
+    /**
+     * 取消生成（客户端断开或超时），已结束时不做处理
+     * 
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void cancel() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        cancelled = true;
+        StreamingHandle current = handle;
+        if (current != null) {
+            current.cancel();
+        }
+        log.info("流式生成已取消，已生成长度: {}", answer.length());
+    }
+    
+    /**
+     * 是否已取消
+     * 
+     * @return 是否已取消
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * 从创建到收到第一段文本的耗时（毫秒），还没有收到文本时为 -1
+     * 
+     * @return 首个文本片段耗时
+     */
+    public long getFirstTokenTime() {
+        return firstTokenTime;
+    }
+}
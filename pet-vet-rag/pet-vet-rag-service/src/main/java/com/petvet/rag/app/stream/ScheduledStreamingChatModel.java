@@ -0,0 +1,136 @@
+package com.petvet.rag.app.stream;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按固定时间表输出文本片段的本地流式模型
+ * 
+ * 不调用任何大模型服务：收到请求后等待 firstTokenDelayMs 输出第一段文本，之后每隔 tokenIntervalMs 输出下一段，
+ * 全部输出后完成。用于本地联调（rag.streaming.stub.enabled=true）以及首个文本片段耗时、取消生成的测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public class ScheduledStreamingChatModel implements StreamingChatModel {
+    
+    private final List<String> tokens;
+    
+    private final long firstTokenDelayMs;
+    
+    private final long tokenIntervalMs;
+    
+    private final ScheduledExecutorService scheduler;
+    
+    /**
+     * 已输出的文本片段总数（所有请求）
+     */
+    private final AtomicInteger emittedTokens = new AtomicInteger();
+    
+    /**
+     * @param tokens 每次请求依次输出的文本片段
+     * @param firstTokenDelayMs 第一段文本的延迟（毫秒）
+     * @param tokenIntervalMs 之后每段文本的间隔（毫秒）
+     */
+    public ScheduledStreamingChatModel(List<String> tokens, long firstTokenDelayMs, long tokenIntervalMs) {
+        this.tokens = List.copyOf(tokens);
+        this.firstTokenDelayMs = firstTokenDelayMs;
+        this.tokenIntervalMs = Math.max(1, tokenIntervalMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stub-streaming-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new Emission(handler).start();
+    }
+    
+    /**
+     * 已输出的文本片段总数
+     * 
+     * @return 文本片段数
+     */
+    public int getEmittedTokens() {
+        return emittedTokens.get();
+    }
+    
+    /**
+     * 一次请求的输出过程，同时作为取消生成的句柄
+     */
+    private class Emission implements StreamingHandle {
+        
+        private final StreamingChatResponseHandler handler;
+        
+        private final PartialResponseContext context = new PartialResponseContext(this);
+        
+        private final StringBuilder text = new StringBuilder();
+        
+        private volatile ScheduledFuture<?> future;
+        
+        private volatile boolean cancelled;
+        
+        /**
+         * 只在输出线程上读写
+         */
+        private boolean completed;
+        
+        private int next;
+        
+        Emission(StreamingChatResponseHandler handler) {
+            this.handler = handler;
+        }
+        
+        void start() {
+            future = scheduler.scheduleAtFixedRate(this::emit, firstTokenDelayMs, tokenIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        
+        private void emit() {
+            if (cancelled || completed) {
+                return;
+            }
+            if (next < tokens.size()) {
+                String token = tokens.get(next++);
+                text.append(token);
+                emittedTokens.incrementAndGet();
+                handler.onPartialResponse(new PartialResponse(token), context);
+                return;
+            }
+            completed = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(text.toString())).build());
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.petvet.rag.app.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 通过 Server-Sent Events 推送流式生成结果
+ * 
+ * 事件：token（data 为 {"token": "文本片段"}）、done（data 为完整结果）、error（data 为 {"message": "错误信息"}）。
+ * 文本片段以 JSON 发送，片段中的换行不会破坏事件格式
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@Slf4j
+public class SseRagStreamListener<T> implements RagStreamListener<T> {
+    
+    public static final String EVENT_TOKEN = "token";
+    
+    public static final String EVENT_DONE = "done";
+    
+    public static final String EVENT_ERROR = "error";
+    
+    private final SseEmitter emitter;
+    
+    public SseRagStreamListener(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+    
+    /**
+     * 客户端断开、连接出错或超时时取消生成
+     * 
+     * @param stream 流式生成
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public void bind(RagTokenStream<T> stream) {
+        emitter.onTimeout(() -> {
+            log.warn("流式响应超时，取消生成");
+            stream.cancel();
+            emitter.complete();
+        });
+        emitter.onError(error -> stream.cancel());
+        emitter.onCompletion(stream::cancel);
+    }
+    
+    @Override
+    public void onToken(String token) throws IOException {
+        emitter.send(SseEmitter.event().name(EVENT_TOKEN).data(Map.of("token", token), MediaType.APPLICATION_JSON));
+    }
+    
+    @Override
+    public void onComplete(T result) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_DONE).data(result, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.info("发送流式生成结果失败，客户端可能已断开: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        sendError(emitter, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+    
+    /**
+     * 发送 error 事件并结束响应
+     * 
+     * @param emitter SSE 响应
+     * @param message 错误信息
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_ERROR).data(Map.of("message", message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.info("发送流式生成错误失败，客户端可能已断开: {}", e.getMessage());
+        }
+    }
+}
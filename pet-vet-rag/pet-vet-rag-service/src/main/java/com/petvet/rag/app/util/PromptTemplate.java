@@ -0,0 +1,207 @@
+package com.petvet.rag.app.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的提示词模板
+ * 
+ * 模板中的 {name}（name 由字母、数字、下划线和中划线组成，以字母或下划线开头）为占位符，其他花括号按原样输出。
+ * 编译时把模板拆分为文本段和占位符段，渲染时一次性写入预先分配好容量的 StringBuilder，
+ * 代替对整个模板多次 String.replace；占位符的值不会再被当作模板解析（值中出现 {question} 等不会被替换），
+ * 没有提供值的占位符与 String.replace 一样按原样输出。
+ * 编译后的模板不可变，可以在多个线程间共享
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public final class PromptTemplate {
+    
+    private final String template;
+    
+    /**
+     * 文本段，比占位符多一个：literals[0] slots[0] literals[1] ... slots[n-1] literals[n]
+     */
+    private final String[] literals;
+    
+    private final String[] slots;
+    
+    private final int literalLength;
+    
+    private final int literalTokens;
+    
+    private PromptTemplate(String template, String[] literals, String[] slots) {
+        this.template = template;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        int tokens = 0;
+        for (String literal : literals) {
+            length += literal.length();
+            tokens += TokenEstimator.estimate(literal);
+        }
+        this.literalLength = length;
+        this.literalTokens = tokens;
+    }
+    
+    /**
+     * 编译模板
+     * 
+     * @param template 模板文本
+     * @return 编译后的模板
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static PromptTemplate compile(String template) {
+        if (template == null) {
+            throw new IllegalArgumentException("提示词模板不能为空");
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < template.length()) {
+            int end = template.charAt(i) == '{' ? slotEnd(template, i) : -1;
+            if (end < 0) {
+                i++;
+                continue;
+            }
+            literals.add(template.substring(literalStart, i));
+            slots.add(template.substring(i + 1, end));
+            i = end + 1;
+            literalStart = i;
+        }
+        literals.add(template.substring(literalStart));
+        return new PromptTemplate(template, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+    
+    /**
+     * 渲染模板，缺少的占位符按原样输出 {name}
+     * 
+     * @param values 占位符名称 -> 值
+     * @return 提示词
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public String render(Map<String, ? extends CharSequence> values) {
+        return render(values, Collections.emptyMap());
+    }
+    
+    /**
+     * 渲染模板，值超过该占位符的 Token 预算时截断（按 {@link TokenEstimator} 估算），缺少的占位符按原样输出 {name}
+     * 
+     * @param values 占位符名称 -> 值
+     * @param slotTokenBudgets 占位符名称 -> Token 预算，没有配置的占位符不限制
+     * @return 提示词
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public String render(Map<String, ? extends CharSequence> values, Map<String, Integer> slotTokenBudgets) {
+        CharSequence[] resolved = new CharSequence[slots.length];
+        int[] lengths = new int[slots.length];
+        int capacity = literalLength;
+        for (int i = 0; i < slots.length; i++) {
+            CharSequence value = values.get(slots[i]);
+            if (value == null) {
+                resolved[i] = "{" + slots[i] + "}";
+                lengths[i] = resolved[i].length();
+            } else {
+                Integer budget = slotTokenBudgets.get(slots[i]);
+                resolved[i] = value;
+                lengths[i] = budget != null ? TokenEstimator.prefixLength(value, budget) : value.length();
+            }
+            capacity += lengths[i];
+        }
+        
+        StringBuilder prompt = new StringBuilder(capacity);
+        for (int i = 0; i < slots.length; i++) {
+            prompt.append(literals[i]);
+            prompt.append(resolved[i], 0, lengths[i]);
+        }
+        prompt.append(literals[slots.length]);
+        return prompt.toString();
+    }
+    
+    /**
+     * 模板中的占位符名称（按出现顺序去重）
+     * 
+     * @return 占位符名称
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public Set<String> getSlots() {
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, slots);
+        return names;
+    }
+    
+    /**
+     * 模板文本部分（不含占位符）的估算 Token 数
+     * 
+     * @return Token 数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int getLiteralTokens() {
+        return literalTokens;
+    }
+    
+    /**
+     * 模板文本部分（不含占位符）的字符数
+     * 
+     * @return 字符数
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+    
+    /**
+     * 原始模板文本
+     * 
+     * @return 模板文本
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public String getTemplate() {
+        return template;
+    }
+    
+    /**
+     * 从 start 处的 '{' 开始匹配占位符，返回 '}' 的位置，不是占位符时返回 -1
+     */
+    private static int slotEnd(String template, int start) {
+        int i = start + 1;
+        if (i >= template.length() || !isNameStart(template.charAt(i))) {
+            return -1;
+        }
+        for (i++; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '}') {
+                return i;
+            }
+            if (!isNamePart(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+    
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+    
+    @Override
+    public String toString() {
+        return "PromptTemplate{slots=" + getSlots() + ", literalLength=" + literalLength + "}";
+    }
+}
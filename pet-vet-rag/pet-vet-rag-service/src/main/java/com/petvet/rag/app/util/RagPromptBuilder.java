@@ -6,12 +6,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * RAG 提示词构建工具类
  * 
- * 用于构建 RAG 查询的提示词模板
+ * 用于构建 RAG 查询的提示词模板。模板编译为 {@link PromptTemplate} 后缓存，
+ * 上下文按 {@link TokenEstimator} 估算的 Token 预算拼接，超出预算的文档被丢弃或截断
  * 
  * @author daidasheng
  * @date 2024-12-11
@@ -28,6 +31,49 @@ public class RagPromptBuilder {
         "用户问题：{question}\n\n" +
         "请提供详细、准确的答案：";
     
+    private static final PromptTemplate DEFAULT_TEMPLATE = PromptTemplate.compile(DEFAULT_PROMPT_TEMPLATE);
+    
+    /**
+     * 缓存的已编译模板数量上限（模板来自配置，正常只有几个）
+     */
+    private static final int MAX_CACHED_TEMPLATES = 64;
+    
+    private static final Map<String, PromptTemplate> COMPILED_TEMPLATES = new ConcurrentHashMap<>();
+    
+    private static final String NO_CONTEXT = "无相关上下文信息";
+    
+    private static final String DOCUMENT_SEPARATOR = "\n\n";
+    
+    private static final String TRUNCATED_MARK = "…";
+    
+    /**
+     * 文档截断后至少保留的 Token 数，剩余预算不足时直接丢弃该文档
+     */
+    private static final int MIN_TRUNCATED_TOKENS = 32;
+    
+    /**
+     * 获取编译后的模板（按模板文本缓存）
+     * 
+     * @param template 提示词模板，如果为空则使用默认模板
+     * @return 编译后的模板
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static PromptTemplate compile(String template) {
+        if (!StringUtils.hasText(template)) {
+            return DEFAULT_TEMPLATE;
+        }
+        PromptTemplate compiled = COMPILED_TEMPLATES.get(template);
+        if (compiled != null) {
+            return compiled;
+        }
+        compiled = PromptTemplate.compile(template);
+        if (COMPILED_TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+            COMPILED_TEMPLATES.putIfAbsent(template, compiled);
+        }
+        return compiled;
+    }
+    
     /**
      * 构建提示词
      * 
@@ -39,22 +85,114 @@ public class RagPromptBuilder {
      * @date 2024-12-11
      */
     public static String buildPrompt(String template, List<String> context, String question) {
-        if (!StringUtils.hasText(template)) {
-            template = DEFAULT_PROMPT_TEMPLATE;
-        }
-        
-        // 构建上下文文本
-        String contextText = buildContextText(context);
-        
-        // 替换模板中的占位符
-        String prompt = template
-            .replace("{context}", contextText)
-            .replace("{question}", question != null ? question : "");
-        
+        String prompt = render(compile(template), buildContextText(context), question);
         log.debug("构建提示词完成，长度: {}", prompt.length());
         return prompt;
     }
     
+    /**
+     * 用 {context} 和 {question} 渲染 RAG 提示词
+     * 
+     * @param template 编译后的模板
+     * @param context 上下文
+     * @param question 用户问题
+     * @return 提示词
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static String render(PromptTemplate template, CharSequence context, String question) {
+        return template.render(Map.of(
+            "context", context != null ? context : "",
+            "question", question != null ? question : ""));
+    }
+    
+    /**
+     * 计算留给 {context} 的 Token 预算：提示词总预算减去模板文本和问题占用的部分
+     * 
+     * @param template 编译后的模板
+     * @param question 用户问题
+     * @param maxPromptTokens 提示词的 Token 上限（模型上下文长度减去为回答预留的部分）
+     * @return 上下文的 Token 预算，不小于 0
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static int contextTokenBudget(PromptTemplate template, String question, int maxPromptTokens) {
+        return Math.max(0, maxPromptTokens - template.getLiteralTokens() - TokenEstimator.estimate(question));
+    }
+    
+    /**
+     * 按相似度顺序把文档追加到上下文中，直到数量或 Token 预算用完
+     * 
+     * 格式为"文档N：\n正文"或"文档N（相似度：score）：\n正文"，文档之间空一行。放不下完整正文时，
+     * 剩余预算足够则截断正文并以省略号结尾，否则丢弃该文档，之后的文档不再追加。
+     * 每个字符最多计 1 个 Token，所以按字符数就能确定放得下的部分不再逐字估算，只在接近预算时估算
+     * 
+     * @param out 上下文
+     * @param texts 文档正文（按相似度从高到低）
+     * @param scores 与 texts 一一对应的相似度，为 null 时不输出相似度
+     * @param maxDocuments 最多追加的文档数
+     * @param tokenBudget Token 预算
+     * @return 追加的内容占用的 Token 数上限（不超过预算），没有追加任何文档时为 0
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static int appendDocuments(StringBuilder out, List<String> texts, List<Double> scores,
+                                      int maxDocuments, int tokenBudget) {
+        int count = Math.min(texts.size(), maxDocuments);
+        int capacity = 0;
+        for (int i = 0; i < count; i++) {
+            capacity += (texts.get(i) != null ? texts.get(i).length() : 0) + 32;
+        }
+        out.ensureCapacity(out.length() + capacity);
+        
+        // [0, estimatedEnd) 部分已估算为 used 个 Token，之后追加的部分按字符数计
+        int used = 0;
+        int estimatedEnd = out.length();
+        for (int i = 0; i < count; i++) {
+            String text = texts.get(i) != null ? texts.get(i) : "";
+            int start = out.length();
+            if (i > 0) {
+                out.append(DOCUMENT_SEPARATOR);
+            }
+            out.append("文档").append(i + 1);
+            if (scores != null) {
+                out.append("（相似度：").append(scores.get(i)).append("）");
+            }
+            out.append("：\n");
+            if ((long) used + (out.length() - estimatedEnd) + text.length() <= tokenBudget) {
+                out.append(text);
+                continue;
+            }
+            
+            used += TokenEstimator.estimate(out, estimatedEnd, start);
+            int headerTokens = TokenEstimator.estimate(out, start, out.length());
+            estimatedEnd = out.length();
+            int textTokens = TokenEstimator.estimate(text);
+            if ((long) used + headerTokens + textTokens <= tokenBudget) {
+                out.append(text);
+                used += headerTokens + textTokens;
+                estimatedEnd = out.length();
+                continue;
+            }
+            
+            int markTokens = TokenEstimator.estimate(TRUNCATED_MARK);
+            int remaining = tokenBudget - used - headerTokens - markTokens;
+            int kept = i;
+            if (remaining >= MIN_TRUNCATED_TOKENS) {
+                int end = TokenEstimator.prefixLength(text, remaining);
+                out.append(text, 0, end).append(TRUNCATED_MARK);
+                used += headerTokens + TokenEstimator.estimate(text, 0, end) + markTokens;
+                kept++;
+            } else {
+                out.setLength(start);
+            }
+            estimatedEnd = out.length();
+            log.debug("上下文超出Token预算，保留 {}/{} 个文档（最后一个可能被截断），预算: {}", kept, count, tokenBudget);
+            break;
+        }
+        return used + (out.length() - estimatedEnd);
+    }
+    
     /**
      * 构建上下文文本
      * 
@@ -63,14 +201,14 @@ public class RagPromptBuilder {
      * @author daidasheng
      * @date 2024-12-11
      */
-    private static String buildContextText(List<String> context) {
+    private static CharSequence buildContextText(List<String> context) {
         if (context == null || context.isEmpty()) {
-            return "无相关上下文信息";
+            return NO_CONTEXT;
         }
         
-        return context.stream()
-            .map(text -> String.format("文档%d：\n%s", text))
-            .collect(Collectors.joining("\n\n"));
+        StringBuilder text = new StringBuilder();
+        appendDocuments(text, context, null, context.size(), Integer.MAX_VALUE);
+        return text;
     }
     
     /**
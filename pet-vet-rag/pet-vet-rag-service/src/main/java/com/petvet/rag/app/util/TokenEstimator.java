@@ -0,0 +1,159 @@
+package com.petvet.rag.app.util;
+
+/**
+ * Token 数量估算工具类
+ * 
+ * 不依赖具体模型的分词器，按字符类别估算，结果略偏大，用于给提示词各部分分配 Token 预算：
+ * <ul>
+ *     <li>中文等非 ASCII 字符：每个字符 1 个 Token</li>
+ *     <li>连续的 ASCII 字母和数字：每 4 个字符 1 个 Token（不足 4 个按 1 个计）</li>
+ *     <li>ASCII 标点符号：每个 1 个 Token</li>
+ *     <li>连续的换行：1 个 Token；空格、制表符不单独计数（通常与相邻的词合并）</li>
+ * </ul>
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+public final class TokenEstimator {
+    
+    /**
+     * 英文单词、数字按多少个字符计为一个 Token（必须为 2 的幂）
+     */
+    private static final int ASCII_CHARS_PER_TOKEN = 4;
+    
+    private static final byte OTHER = 0;
+    
+    private static final byte WORD = 1;
+    
+    private static final byte SPACE = 2;
+    
+    private static final byte NEWLINE = 3;
+    
+    /**
+     * ASCII 字符的类别
+     */
+    private static final byte[] ASCII_CLASS = new byte[128];
+    
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_CLASS[c] = WORD;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_CLASS[c] = WORD;
+            ASCII_CLASS[c - 'a' + 'A'] = WORD;
+        }
+        ASCII_CLASS[' '] = SPACE;
+        ASCII_CLASS['\t'] = SPACE;
+        ASCII_CLASS['\n'] = NEWLINE;
+        ASCII_CLASS['\r'] = NEWLINE;
+    }
+    
+    private TokenEstimator() {
+    }
+    
+    /**
+     * 估算文本的 Token 数量，结果不超过文本的字符数
+     * 
+     * @param text 文本
+     * @return Token 数量，文本为空时为 0
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static int estimate(CharSequence text) {
+        return text == null ? 0 : estimate(text, 0, text.length());
+    }
+    
+    /**
+     * 估算文本中 [start, end) 部分的 Token 数量
+     * 
+     * @param text 文本
+     * @param start 起始位置（包含）
+     * @param end 结束位置（不包含）
+     * @return Token 数量
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static int estimate(CharSequence text, int start, int end) {
+        int tokens = 0;
+        int run = 0;
+        boolean afterNewline = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 128) {
+                // 低位代理与高位代理合计 1 个
+                if (!Character.isLowSurrogate(c)) {
+                    tokens++;
+                }
+                run = 0;
+                afterNewline = false;
+                continue;
+            }
+            switch (ASCII_CLASS[c]) {
+                case WORD:
+                    if ((run++ & (ASCII_CHARS_PER_TOKEN - 1)) == 0) {
+                        tokens++;
+                    }
+                    afterNewline = false;
+                    continue;
+                case SPACE:
+                    afterNewline = false;
+                    break;
+                case NEWLINE:
+                    if (!afterNewline) {
+                        tokens++;
+                    }
+                    afterNewline = true;
+                    break;
+                default:
+                    tokens++;
+                    afterNewline = false;
+                    break;
+            }
+            run = 0;
+        }
+        return tokens;
+    }
+    
+    /**
+     * 计算文本在 Token 预算内的最长前缀长度（不会截断代理对）
+     * 
+     * @param text 文本
+     * @param maxTokens Token 预算
+     * @return 前缀的字符数，整个文本都在预算内时为文本长度
+     * @author daidasheng
+     * @date 2026-10-17
+     */
+    public static int prefixLength(CharSequence text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return 0;
+        }
+        int length = text.length();
+        if (length <= maxTokens) {
+            return length;
+        }
+        int tokens = 0;
+        int run = 0;
+        boolean afterNewline = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte type = c >= 128 ? OTHER : ASCII_CLASS[c];
+            int added;
+            if (type == WORD) {
+                added = (run & (ASCII_CHARS_PER_TOKEN - 1)) == 0 ? 1 : 0;
+            } else if (type == SPACE) {
+                added = 0;
+            } else if (type == NEWLINE) {
+                added = afterNewline ? 0 : 1;
+            } else {
+                added = Character.isLowSurrogate(c) ? 0 : 1;
+            }
+            if (tokens + added > maxTokens) {
+                return i;
+            }
+            tokens += added;
+            run = type == WORD ? run + 1 : 0;
+            afterNewline = type == NEWLINE;
+        }
+        return length;
+    }
+}
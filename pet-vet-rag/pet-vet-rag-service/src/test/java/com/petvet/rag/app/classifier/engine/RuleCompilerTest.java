@@ -0,0 +1,192 @@
+package com.petvet.rag.app.classifier.engine;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.classifier.model.RuleDefinition;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 规则编译器测试：关键词自动机、规则识别，以及编译后的规则集与逐条 QLExpress 执行的结果一致性
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("规则编译器测试")
+class RuleCompilerTest {
+    
+    private static RuleEngine ruleEngine;
+    
+    @BeforeAll
+    static void setUp() {
+        ruleEngine = new RuleEngine();
+        ruleEngine.init();
+    }
+    
+    @Test
+    @DisplayName("自动机找出所有出现的关键词，包括重叠和互为后缀的关键词")
+    void testAutomatonOverlappingKeywords() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+            .add("he", 0)
+            .add("she", 1)
+            .add("his", 2)
+            .add("hers", 3)
+            .add("狗狗", 4)
+            .build();
+        
+        BitSet matched = new BitSet();
+        automaton.match("ushers", matched);
+        assertEquals(BitSet.valueOf(new long[]{0b1011}), matched);
+        
+        matched.clear();
+        automaton.match("我家狗狗咳嗽", matched);
+        assertEquals(BitSet.valueOf(new long[]{0b10000}), matched);
+    }
+    
+    @Test
+    @DisplayName("自动机匹配结果与逐个 String.contains 一致")
+    void testAutomatonMatchesContains() {
+        Random random = new Random(42);
+        String alphabet = "猫狗病ab";
+        for (int round = 0; round < 200; round++) {
+            List<String> keywords = new ArrayList<>();
+            KeywordAutomaton.Builder builder = KeywordAutomaton.builder();
+            for (int i = 0; i < 20; i++) {
+                String keyword = randomText(random, alphabet, 1 + random.nextInt(4));
+                keywords.add(keyword);
+                builder.add(keyword, i);
+            }
+            KeywordAutomaton automaton = builder.build();
+            String text = randomText(random, alphabet, random.nextInt(30));
+            
+            BitSet matched = new BitSet();
+            automaton.match(text, matched);
+            for (int i = 0; i < keywords.size(); i++) {
+                assertEquals(text.contains(keywords.get(i)), matched.get(i), keywords.get(i) + " in " + text);
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("只有纯关键词表达式和常量赋值动作会被编译")
+    void testParse() {
+        assertEquals(3, RuleCompiler.compile(RuleLoader.getDefaultRules()).getKeywordRuleCount());
+        assertEquals(3, RuleCompiler.compile(RuleLoader.getDefaultRules()).getStaticActionCount());
+        assertFalse(RuleCompiler.compile(RuleLoader.getDefaultRules()).usesMemory());
+        assertTrue(RuleCompiler.compile(List.of(rule("follow_up", "memory != null && query.length() < 5", null))).usesMemory());
+        assertFalse(RuleCompiler.compile(List.of(rule("memory_keyword", "query.contains(\"memoryCard\")", null))).usesMemory());
+
+        List<String[]> keywords = RuleCompiler.parseKeywords(" query.contains(\"A\")||lowerQuery . contains( \"b c\" ) ");
+        assertNotNull(keywords);
+        assertArrayEquals(new String[]{"query", "A"}, keywords.get(0));
+        assertArrayEquals(new String[]{"lowerQuery", "b c"}, keywords.get(1));
+        
+        assertNull(RuleCompiler.parseKeywords("lowerQuery.contains(\"猫\") && lowerQuery.contains(\"狗\")"));
+        assertNull(RuleCompiler.parseKeywords("query.length() > 30"));
+        assertNull(RuleCompiler.parseKeywords("lowerQuery.contains(\"\")"));
+        assertNull(RuleCompiler.parseKeywords("lowerQuery.contains(\"\\\"\")"));
+        assertNull(RuleCompiler.parseKeywords("lowerQuery.contains(\"${x}\")"));
+        assertNull(RuleCompiler.parseKeywords("lowerQuery.contains(\"猫\") ||"));
+        assertNull(RuleCompiler.parseKeywords("memory.contains(\"猫\")"));
+        
+        assertNotNull(RuleCompiler.parseAction("result.setConfidence(0.5);"));
+        assertNull(RuleCompiler.parseAction("result.setConfidence(1); return true;"));
+        assertNull(RuleCompiler.parseAction("result.setReason(\"长度\" + query.length()); return true;"));
+        assertNull(RuleCompiler.parseAction("return true; result.setConfidence(0.5);"));
+        assertNull(RuleCompiler.parseAction("  "));
+    }
+    
+    @Test
+    @DisplayName("编译后的规则集与逐条 QLExpress 执行结果一致")
+    void testEquivalentToInterpreter() {
+        List<RuleDefinition> rules = new ArrayList<>();
+        rules.add(rule("hospital", "lowerQuery.contains(\"医院\")", "result.setConfidence(0.5);"));
+        rules.add(rule("long_query", "query.length() > 30",
+            "result.setNeedRetrieval(true); result.setConfidence(0.6); result.setReason(\"长问题\"); return true;"));
+        rules.addAll(RuleLoader.getDefaultRules());
+        rules.add(rule("cat_and_dog", "lowerQuery.contains(\"猫\") && lowerQuery.contains(\"狗\")",
+            "result.setReason(\"猫狗\" + query.length()); return true;"));
+        rules.add(rule("vaccine_code", "query.contains(\"DHPPi\") || lowerQuery.contains(\"rabies\")",
+            "result.setNeedRetrieval(true); result.setReason(\"疫苗型号\"); return false;"));
+        rules.add(rule("no_action", "lowerQuery.contains(\"兔\")", null));
+        
+        CompiledRuleSet compiled = RuleCompiler.compile(rules);
+        assertEquals(6, compiled.getKeywordRuleCount());
+        
+        List<String> queries = List.of("你好", "我家狗狗最近一直咳嗽，是不是呼吸道感染的症状？", "什么是犬细小病毒",
+            "宠物医院周末几点开门", "宠物医院可以做绝育手术吗", "家里的猫和狗打架了", "DHPPi 要打几针",
+            "dhppi 要打几针", "Rabies 疫苗", "兔子不吃东西两天了", "仓鼠可以洗澡吗",
+            "我家的狗狗已经十二岁了，最近走路越来越慢，晚上还总是喘气，这种情况正常吗", "");
+        for (String query : queries) {
+            ClassificationResult expected = interpret(rules, query);
+            ClassificationResult actual = compiled.evaluate(query, null, ruleEngine);
+            if (expected == null) {
+                assertNull(actual, query);
+            } else {
+                assertNotNull(actual, query);
+                assertEquals(expected.getNeedRetrieval(), actual.getNeedRetrieval(), query);
+                assertEquals(expected.getConfidence(), actual.getConfidence(), query);
+                assertEquals(expected.getReason(), actual.getReason(), query);
+            }
+        }
+    }
+    
+    /**
+     * 改造前 RuleLayerStrategy 的执行方式：每条规则的表达式和动作都交给 QLExpress 执行
+     */
+    private static ClassificationResult interpret(List<RuleDefinition> rules, String query) {
+        Map<String, Object> context = ruleEngine.createContext();
+        context.put("query", query);
+        context.put("lowerQuery", query.toLowerCase());
+        context.put("memory", null);
+        ClassificationResult result = ClassificationResult.builder()
+            .needRetrieval(null)
+            .confidence(0.0)
+            .reason("")
+            .strategyName("RuleLayerStrategy")
+            .build();
+        context.put("result", result);
+        for (RuleDefinition rule : rules) {
+            try {
+                if (!ruleEngine.executeBoolean(rule.getExpression(), context)) {
+                    continue;
+                }
+                if (rule.getAction() == null || rule.getAction().trim().isEmpty()) {
+                    return result;
+                }
+                Object actionResult = ruleEngine.execute(rule.getAction(), context);
+                if (actionResult instanceof Boolean && (Boolean) actionResult) {
+                    return result;
+                }
+            } catch (Exception e) {
+                // 与策略一致，跳过执行失败的规则
+            }
+        }
+        return null;
+    }
+    
+    private static RuleDefinition rule(String name, String expression, String action) {
+        return RuleDefinition.builder()
+            .name(name)
+            .enabled(true)
+            .expression(expression)
+            .action(action)
+            .build();
+    }
+    
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,192 @@
+package com.petvet.rag.app.llm;
+
+import com.petvet.rag.app.config.LlmClientProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.model.chat.ChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模型注册表测试：使用本地 OpenAI 兼容的桩服务，验证实例复用、连接复用、配置刷新后的替换和 provider 健康状态
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("模型注册表测试")
+class ChatModelRegistryTest {
+    
+    private static final String BAD_API_KEY = "bad-key";
+    
+    private static final String COMPLETION = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1,"
+        + "\"model\":\"stub\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"答案\"},"
+        + "\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":1,\"completion_tokens\":1,\"total_tokens\":2}}";
+    
+    private static final String UNAUTHORIZED = "{\"error\":{\"message\":\"Incorrect API key provided\","
+        + "\"type\":\"invalid_request_error\",\"code\":\"invalid_api_key\"}}";
+    
+    private HttpServer server;
+    
+    private String baseUrl;
+    
+    /**
+     * 桩服务收到请求时客户端连接的端口，每个端口对应一个 TCP 连接
+     */
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    
+    private final AtomicInteger requests = new AtomicInteger();
+    
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    
+    private ChatModelRegistry registry;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        
+        LlmClientProperties properties = new LlmClientProperties();
+        // 桩服务只支持 HTTP/1.1
+        properties.getHttp().setHttp2(false);
+        properties.getHealth().setFailureThreshold(2);
+        properties.getHealth().setCooldownMs(300L);
+        registry = new ChatModelRegistry(properties, clock::get);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+    
+    @Test
+    @DisplayName("同一配置复用同一个实例，不同 provider 的实例共用连接")
+    void testConnectionReuse() {
+        ChatModel deepseek = registry.chatModel(key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, "key-1"));
+        assertSame(deepseek, registry.chatModel(key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, "key-1")));
+        ChatModel grok = registry.chatModel(key(ChatModelRegistry.PROVIDER_GROK, "grok-4-latest", 0.7, "key-2"));
+        assertNotSame(deepseek, grok);
+        assertEquals(2, registry.size());
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals("答案", deepseek.chat("犬细小病毒有哪些症状"));
+            assertEquals("答案", grok.chat("猫咪呕吐怎么办"));
+        }
+        
+        assertEquals(10, requests.get());
+        assertEquals(1, clientPorts.size(), "连接没有复用: " + clientPorts);
+    }
+    
+    @Test
+    @DisplayName("配置刷新后替换配置变化的实例，新实例继续复用连接")
+    void testRetainReplacesStaleInstances() {
+        ModelKey oldKey = key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, "key-1");
+        ModelKey grokKey = key(ChatModelRegistry.PROVIDER_GROK, "grok-4-latest", 0.7, "key-2");
+        ChatModel oldModel = registry.chatModel(oldKey);
+        ChatModel grok = registry.chatModel(grokKey);
+        assertEquals("答案", oldModel.chat("你好"));
+        
+        ModelKey newKey = key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-reasoner", 0.7, "key-1");
+        assertEquals(1, registry.retain(List.of(newKey, grokKey)));
+        
+        ChatModel newModel = registry.chatModel(newKey);
+        assertNotSame(oldModel, newModel);
+        assertSame(grok, registry.chatModel(grokKey));
+        assertEquals("答案", newModel.chat("你好"));
+        assertEquals(1, clientPorts.size(), "连接没有复用: " + clientPorts);
+    }
+    
+    @Test
+    @DisplayName("连续失败达到阈值后标记不可用，冷却后恢复，成功调用清零失败次数")
+    void testProviderHealth() {
+        ChatModel failing = registry.chatModel(key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, BAD_API_KEY));
+        ChatModel grok = registry.chatModel(key(ChatModelRegistry.PROVIDER_GROK, "grok-4-latest", 0.7, "key-2"));
+        
+        assertThrows(RuntimeException.class, () -> failing.chat("你好"));
+        assertTrue(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        assertThrows(RuntimeException.class, () -> failing.chat("你好"));
+        assertFalse(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        
+        ProviderHealth health = registry.getHealth(ChatModelRegistry.PROVIDER_DEEPSEEK);
+        assertEquals(2, health.getFailureCount());
+        assertNotNull(health.getLastError());
+        
+        // 其他 provider 不受影响
+        assertEquals("答案", grok.chat("你好"));
+        assertTrue(registry.isAvailable(ChatModelRegistry.PROVIDER_GROK));
+        assertTrue(registry.getHealth(ChatModelRegistry.PROVIDER_GROK).getLastLatencyMs() >= 0);
+        
+        clock.addAndGet(299L);
+        assertFalse(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        clock.addAndGet(1L);
+        assertTrue(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        
+        assertEquals("答案", registry.chatModel(key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, "key-1"))
+            .chat("你好"));
+        assertEquals(0, health.getConsecutiveFailures());
+        assertEquals(1, health.getSuccessCount());
+    }
+    
+    @Test
+    @DisplayName("配置刷新后只有 provider 连接配置变化时才重置健康状态")
+    void testRetainResetsHealthOnlyWhenProviderConfigChanged() {
+        ModelKey failingKey = key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-chat", 0.7, BAD_API_KEY);
+        ChatModel failing = registry.chatModel(failingKey);
+        assertThrows(RuntimeException.class, () -> failing.chat("你好"));
+        assertThrows(RuntimeException.class, () -> failing.chat("你好"));
+        assertFalse(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        ModelKey grokKey = key(ChatModelRegistry.PROVIDER_GROK, "grok-4-latest", 0.7, "key-2");
+        registry.chatModel(grokKey);
+        
+        // 只更换模型和温度：淘汰旧实例，保留失败记录和冷却状态
+        ModelKey modelChanged = key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-reasoner", 0.3, BAD_API_KEY);
+        assertEquals(1, registry.retain(List.of(modelChanged, grokKey)));
+        assertFalse(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        assertEquals(2, registry.getHealth(ChatModelRegistry.PROVIDER_DEEPSEEK).getFailureCount());
+        
+        // 更换 API Key：重置健康状态，其他 provider 不受影响
+        registry.chatModel(modelChanged);
+        assertEquals("答案", registry.chatModel(grokKey).chat("你好"));
+        ModelKey keyChanged = key(ChatModelRegistry.PROVIDER_DEEPSEEK, "deepseek-reasoner", 0.3, "key-1");
+        assertEquals(1, registry.retain(List.of(keyChanged, grokKey)));
+        assertTrue(registry.isAvailable(ChatModelRegistry.PROVIDER_DEEPSEEK));
+        assertEquals(0, registry.getHealth(ChatModelRegistry.PROVIDER_DEEPSEEK).getFailureCount());
+        assertEquals(1, registry.getHealth(ChatModelRegistry.PROVIDER_GROK).getSuccessCount());
+    }
+    
+    private ModelKey key(String provider, String modelName, double temperature, String apiKey) {
+        return new ModelKey(provider, baseUrl, modelName, temperature, apiKey);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        boolean authorized = authorization != null && !authorization.endsWith(BAD_API_KEY);
+        byte[] response = (authorized ? COMPLETION : UNAUTHORIZED).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(authorized ? 200 : 401, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.petvet.rag.app.semantic;
+
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 语义查询缓存测试：本地哈希向量、相似查询命中、过期和容量淘汰、误命中统计
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("语义查询缓存测试")
+class SemanticQueryCacheTest {
+    
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    
+    @Test
+    @DisplayName("哈希向量结果确定且已归一化，字面相近的查询相似度高")
+    void testHashingEmbedder() {
+        HashingQueryEmbedder embedder = new HashingQueryEmbedder(256);
+        float[] a = embedder.embed("猫咪不吃东西怎么办？");
+        assertArrayEquals(a, embedder.embed("猫咪不吃东西怎么办？"));
+        assertEquals(1.0, dot(a, a), 1e-5);
+        
+        assertEquals(1.0, dot(a, embedder.embed("猫咪 不吃东西 怎么办")), 1e-5);
+        assertTrue(dot(a, embedder.embed("猫咪不吃东西了怎么办")) > 0.8);
+        assertTrue(dot(a, embedder.embed("狗狗不吃东西怎么办")) < 0.8);
+        assertTrue(dot(a, embedder.embed("狗狗疫苗要打几针")) < 0.3);
+        
+        float[] empty = embedder.embed("？？");
+        assertEquals(0.0, dot(empty, empty), 0);
+    }
+    
+    @Test
+    @DisplayName("相近的查询命中分类结果，不相关的查询不命中")
+    void testClassificationHit() {
+        SemanticQueryCache cache = newCache(100, 60);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        
+        ClassificationResult hit = cache.getClassification("狗狗一直咳嗽是什么原因呢");
+        assertNotNull(hit);
+        assertTrue(hit.getNeedRetrieval());
+        assertTrue(hit.getCacheHit());
+        assertEquals(SemanticQueryCache.STRATEGY_NAME, hit.getStrategyName());
+        
+        assertNull(cache.getClassification("狗狗疫苗要打几针"));
+        assertNull(cache.getClassification("猫咪一直咳嗽是什么原因"));
+        assertEquals(1, cache.getStats(SemanticCacheAudit.Tier.CLASSIFICATION).getHits());
+        assertEquals(2, cache.getStats(SemanticCacheAudit.Tier.CLASSIFICATION).getMisses());
+    }
+    
+    @Test
+    @DisplayName("答案只在作用域相同时命中，且与分类结果共用一个条目")
+    void testAnswerScope() {
+        SemanticQueryCache cache = newCache(100, 60);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        cache.putAnswer("狗狗一直咳嗽是什么原因",
+            new SemanticCacheEntry.CachedAnswer("default|5|0.7|5", "可能是呼吸道感染", List.of(), false));
+        
+        assertNull(cache.getAnswer("狗狗一直咳嗽是什么原因呢", "gpt-4|5|0.7|5"));
+        SemanticCacheEntry.CachedAnswer answer = cache.getAnswer("狗狗一直咳嗽是什么原因呢", "default|5|0.7|5");
+        assertNotNull(answer);
+        assertEquals("可能是呼吸道感染", answer.getAnswer());
+        assertEquals(1, cache.size());
+    }
+    
+    @Test
+    @DisplayName("超过过期时间的条目不再命中，重新写入后恢复")
+    void testExpire() {
+        SemanticQueryCache cache = newCache(100, 10);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(9));
+        assertNotNull(cache.getClassification("狗狗一直咳嗽是什么原因"));
+        
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        assertNull(cache.getClassification("狗狗一直咳嗽是什么原因"));
+        assertEquals(0, cache.size());
+        
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(false));
+        ClassificationResult hit = cache.getClassification("狗狗一直咳嗽是什么原因");
+        assertNotNull(hit);
+        assertFalse(hit.getNeedRetrieval());
+    }
+    
+    @Test
+    @DisplayName("超出容量时淘汰最早写入的条目")
+    void testEvictOldest() {
+        SemanticQueryCache cache = newCache(2, 60);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        cache.putClassification("狗狗疫苗要打几针", result(true));
+        cache.putClassification("你好，请问你是谁", result(false));
+        
+        assertEquals(2, cache.size());
+        assertNull(cache.getClassification("狗狗一直咳嗽是什么原因"));
+        assertNotNull(cache.getClassification("狗狗疫苗要打几针"));
+        assertNotNull(cache.getClassification("你好，请问你是谁"));
+    }
+    
+    @Test
+    @DisplayName("报告误命中后删除命中的条目并计数")
+    void testFalseHit() {
+        SemanticQueryCache cache = newCache(100, 60);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        SemanticClassificationHit hit = cache.getClassification("狗狗一直咳嗽是什么原因呢");
+        assertNotNull(hit);
+        assertEquals("狗狗一直咳嗽是什么原因", hit.getCachedQuery());
+        
+        cache.reportFalseHit(SemanticCacheAudit.Tier.CLASSIFICATION, "狗狗一直咳嗽是什么原因呢", hit);
+        assertNull(cache.getClassification("狗狗一直咳嗽是什么原因呢"));
+        assertEquals(0, cache.size());
+        
+        SemanticCacheAudit.Stats stats = cache.getStats(SemanticCacheAudit.Tier.CLASSIFICATION);
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getFalseHits());
+        assertEquals(0.5, stats.getHitRate(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("误命中只删除这次命中的条目，不影响之后写入的更相近的条目")
+    void testFalseHitRemovesMatchedEntryOnly() {
+        SemanticQueryCache cache = newCache(100, 60);
+        cache.putClassification("狗狗一直咳嗽是什么原因", result(true));
+        SemanticClassificationHit hit = cache.getClassification("狗狗一直咳嗽是什么原因呢");
+        assertNotNull(hit);
+        
+        // 校验期间写入了与查询完全相同的条目，重新查找最近邻会删掉它
+        cache.putClassification("狗狗一直咳嗽是什么原因呢", result(false));
+        cache.reportFalseHit(SemanticCacheAudit.Tier.CLASSIFICATION, "狗狗一直咳嗽是什么原因呢", hit);
+        
+        assertEquals(1, cache.size());
+        SemanticClassificationHit current = cache.getClassification("狗狗一直咳嗽是什么原因呢");
+        assertNotNull(current);
+        assertEquals("狗狗一直咳嗽是什么原因呢", current.getCachedQuery());
+        assertFalse(current.getNeedRetrieval());
+        
+        // 条目已删除后重复报告只计数，不删除其他条目
+        cache.reportFalseHit(SemanticCacheAudit.Tier.CLASSIFICATION, "狗狗一直咳嗽是什么原因呢", hit);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getStats(SemanticCacheAudit.Tier.CLASSIFICATION).getFalseHits());
+    }
+    
+    @Test
+    @DisplayName("平铺索引返回相似度最高的向量")
+    void testIndexNearest() {
+        FlatVectorIndex<String> index = new FlatVectorIndex<>(3, 3000, 1000, clock::get, null);
+        for (int i = 0; i < 2500; i++) {
+            index.add(new float[]{0, 0, 1}, "z" + i);
+        }
+        index.add(new float[]{0.6f, 0.8f, 0}, "xy");
+        index.add(new float[]{1, 0, 0}, "x");
+        
+        FlatVectorIndex.Match<String> match = index.nearest(new float[]{1, 0, 0}, 0.5, value -> true);
+        assertEquals("x", match.getValue());
+        assertEquals(1.0f, match.getSimilarity());
+        
+        assertEquals("xy", index.nearest(new float[]{1, 0, 0}, 0.5, value -> !"x".equals(value)).getValue());
+        assertNull(index.nearest(new float[]{0, 1, 0}, 0.9, value -> true));
+    }
+    
+    @Test
+    @DisplayName("签名过滤不漏掉相似度达到阈值的向量，结果与逐个计算点积一致")
+    void testIndexSignatureFilter() {
+        Random random = new Random(7);
+        int dimension = 64;
+        float[][] vectors = new float[3000][];
+        FlatVectorIndex<Integer> index = new FlatVectorIndex<>(dimension, vectors.length, 1000, clock::get, null);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random, dimension);
+            index.add(vectors[i], i);
+        }
+        
+        for (int round = 0; round < 500; round++) {
+            // 在某个已有向量上叠加噪声，相似度大致分布在 0.8 到 1 之间
+            float[] base = vectors[random.nextInt(vectors.length)];
+            float[] noise = randomVector(random, dimension);
+            float scale = random.nextFloat() * 0.8f;
+            float[] query = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                query[i] = base[i] + noise[i] * scale;
+            }
+            HashingQueryEmbedder.normalize(query);
+            
+            double threshold = 0.85;
+            int expected = -1;
+            double best = threshold;
+            for (int i = 0; i < vectors.length; i++) {
+                double similarity = dot(query, vectors[i]);
+                if (similarity >= best) {
+                    expected = i;
+                    best = similarity;
+                }
+            }
+            FlatVectorIndex.Match<Integer> match = index.nearest(query, threshold, value -> true);
+            if (expected < 0) {
+                assertNull(match);
+            } else {
+                assertNotNull(match, "round " + round);
+                assertEquals(expected, match.getValue(), "round " + round);
+            }
+        }
+    }
+    
+    private SemanticQueryCache newCache(int maxSize, int expireMinutes) {
+        SemanticCacheProperties properties = new SemanticCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaxSize(maxSize);
+        properties.setExpireMinutes(expireMinutes);
+        return new SemanticQueryCache(properties, new HashingQueryEmbedder(256), clock::get);
+    }
+    
+    private static ClassificationResult result(boolean needRetrieval) {
+        return ClassificationResult.builder()
+            .needRetrieval(needRetrieval)
+            .confidence(0.9)
+            .reason("测试")
+            .strategyName("RuleLayerStrategy")
+            .build();
+    }
+    
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        HashingQueryEmbedder.normalize(vector);
+        return vector;
+    }
+    
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
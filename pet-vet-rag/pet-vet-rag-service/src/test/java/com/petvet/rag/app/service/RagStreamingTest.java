@@ -0,0 +1,289 @@
+package com.petvet.rag.app.service;
+
+import com.petvet.embedding.api.dto.ApiResponse;
+import com.petvet.embedding.api.feign.ResumeParseFeignClient;
+import com.petvet.embedding.api.resp.ResumeSearchResp;
+import com.petvet.rag.api.req.RagQueryReq;
+import com.petvet.rag.api.req.RagValidationReq;
+import com.petvet.rag.api.resp.RagQueryResp;
+import com.petvet.rag.api.resp.RagValidationResp;
+import com.petvet.rag.app.classifier.config.ClassifierProperties;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.config.LangChainConfig;
+import com.petvet.rag.app.config.RagPipelineConfig;
+import com.petvet.rag.app.config.RagPipelineProperties;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
+import com.petvet.rag.app.stream.RagStreamListener;
+import com.petvet.rag.app.stream.RagTokenStream;
+import com.petvet.rag.app.stream.ScheduledStreamingChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 流式生成测试：使用按时间表输出的本地流式模型，验证首个文本片段耗时、完成后保存、取消生成
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("流式生成测试")
+class RagStreamingTest {
+    
+    private static final List<String> TOKENS = List.of("犬", "细小", "病毒", "的", "常见", "症状", "是", "呕吐", "和", "腹泻");
+    
+    private static final long FIRST_TOKEN_DELAY = 100;
+    
+    private static final long TOKEN_INTERVAL = 100;
+    
+    /**
+     * 全部文本片段输出完成的耗时
+     */
+    private static final long TOTAL_GENERATION_TIME = FIRST_TOKEN_DELAY + TOKEN_INTERVAL * TOKENS.size();
+    
+    private final RagPipelineProperties pipelineProperties = new RagPipelineProperties();
+    
+    private MemoryService memoryService;
+    
+    private HistoryService historyService;
+    
+    private ResumeParseFeignClient feignClient;
+    
+    private ScheduledStreamingChatModel streamingModel;
+    
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setUp() {
+        pipelineProperties.setThreads(4);
+        memoryService = mock(MemoryService.class);
+        historyService = mock(HistoryService.class);
+        feignClient = mock(ResumeParseFeignClient.class);
+        streamingModel = new ScheduledStreamingChatModel(TOKENS, FIRST_TOKEN_DELAY, TOKEN_INTERVAL);
+        
+        when(memoryService.loadConversation(anyString(), anyString())).thenReturn(MemoryService.ConversationMemory.builder()
+            .userId("user")
+            .sessionId("session")
+            .messages(new ArrayList<>())
+            .lastUpdateTime(System.currentTimeMillis())
+            .build());
+        ResumeSearchResp searchResp = ResumeSearchResp.builder()
+            .count(1)
+            .results(List.of(ResumeSearchResp.SearchItem.builder()
+                .chunkId("chunk-1")
+                .score(0.9)
+                .text("犬细小病毒的常见症状是呕吐和腹泻")
+                .build()))
+            .build();
+        when(feignClient.searchResume(any())).thenReturn(ApiResponse.success(searchResp));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    @DisplayName("第一段文本在生成完成前推送，完成后推送完整结果并保存记忆和历史记录")
+    void testValidateStream() throws InterruptedException {
+        CapturingListener<RagValidationResp> listener = new CapturingListener<>();
+        
+        RagTokenStream<RagValidationResp> stream = newService().validateStream(request(), listener).run();
+        
+        assertTrue(listener.awaitDone(), "流式生成没有完成");
+        assertEquals(TOKENS, listener.tokens);
+        assertNull(listener.error);
+        // 首个文本片段的耗时远小于整个答案的生成耗时
+        assertTrue(stream.getFirstTokenTime() < TOTAL_GENERATION_TIME / 2, "firstTokenTime=" + stream.getFirstTokenTime());
+        assertTrue(listener.doneTime - listener.firstTokenTime >= TOKEN_INTERVAL * (TOKENS.size() - 1) - 50,
+            "答案应该逐段推送");
+        
+        RagValidationResp resp = listener.result;
+        assertEquals(String.join("", TOKENS), resp.getAnswer());
+        assertTrue(resp.getUsedKnowledgeBase());
+        assertTrue(resp.getStageTimings().containsKey("generation"));
+        verify(memoryService).addMessage("user", "session", "USER", "狗狗呕吐腹泻是不是细小");
+        verify(memoryService).addMessage("user", "session", "ASSISTANT", String.join("", TOKENS));
+        verify(historyService).saveAsync(any());
+    }
+    
+    @Test
+    @DisplayName("取消后停止输出，不保存记忆和历史记录")
+    void testCancel() throws InterruptedException {
+        CapturingListener<RagValidationResp> listener = new CapturingListener<>();
+        
+        RagTokenStream<RagValidationResp> stream = newService().validateStream(request(), listener).run();
+        assertTrue(listener.firstToken.await(2, TimeUnit.SECONDS), "没有收到文本片段");
+        stream.cancel();
+        int emitted = streamingModel.getEmittedTokens();
+        Thread.sleep(TOKEN_INTERVAL * 3);
+        
+        assertTrue(stream.isCancelled());
+        assertTrue(streamingModel.getEmittedTokens() - emitted <= 1, "取消后仍在输出");
+        assertTrue(listener.tokens.size() < TOKENS.size());
+        assertNull(listener.result);
+        assertNull(listener.error);
+        verify(memoryService, never()).addMessage(anyString(), anyString(), anyString(), anyString());
+        verify(historyService, never()).saveAsync(any());
+    }
+    
+    @Test
+    @DisplayName("调用 run() 之前不开始生成，开始前取消则不再调用大模型")
+    void testCancelBeforeRun() throws InterruptedException {
+        CapturingListener<RagValidationResp> listener = new CapturingListener<>();
+        
+        RagTokenStream<RagValidationResp> stream = newService().validateStream(request(), listener);
+        Thread.sleep(FIRST_TOKEN_DELAY * 2);
+        assertEquals(0, streamingModel.getEmittedTokens());
+        assertTrue(listener.tokens.isEmpty());
+        
+        // 模拟客户端在绑定取消回调之后、开始生成之前断开
+        stream.cancel();
+        stream.run();
+        Thread.sleep(FIRST_TOKEN_DELAY * 2);
+        
+        assertTrue(stream.isCancelled());
+        assertEquals(0, streamingModel.getEmittedTokens());
+        assertTrue(listener.tokens.isEmpty());
+        assertNull(listener.result);
+        assertNull(listener.error);
+        verify(memoryService, never()).addMessage(anyString(), anyString(), anyString(), anyString());
+        verify(historyService, never()).saveAsync(any());
+    }
+    
+    @Test
+    @DisplayName("客户端断开（推送文本片段失败）时取消生成")
+    void testClientDisconnect() throws InterruptedException {
+        CapturingListener<RagValidationResp> listener = new CapturingListener<>();
+        listener.failAfter = 2;
+        
+        RagTokenStream<RagValidationResp> stream = newService().validateStream(request(), listener).run();
+        Thread.sleep(FIRST_TOKEN_DELAY + TOKEN_INTERVAL * 5);
+        
+        assertTrue(stream.isCancelled());
+        assertTrue(streamingModel.getEmittedTokens() <= 3, "emittedTokens=" + streamingModel.getEmittedTokens());
+        assertNull(listener.result);
+        verify(memoryService, never()).addMessage(anyString(), anyString(), eq("ASSISTANT"), anyString());
+    }
+    
+    @Test
+    @DisplayName("流式查询推送检索结果和生成的答案")
+    void testQueryStream() throws InterruptedException {
+        CapturingListener<RagQueryResp> listener = new CapturingListener<>();
+        
+        newRagService().queryStream(RagQueryReq.builder().query("狗狗呕吐腹泻是不是细小").build(), listener).run();
+        
+        assertTrue(listener.awaitDone(), "流式生成没有完成");
+        assertEquals(TOKENS, listener.tokens);
+        assertEquals(1, listener.result.getRetrievedCount());
+        assertEquals(String.join("", TOKENS), listener.result.getGeneratedAnswer());
+    }
+    
+    private RagService newRagService() {
+        RagService ragService = new RagService(feignClient, mock(ChatModel.class), streamingModel, mock(LangChainConfig.class));
+        ReflectionTestUtils.setField(ragService, "promptTemplate", "上下文信息：\n{context}\n\n用户问题：{question}");
+        ReflectionTestUtils.setField(ragService, "maxPromptTokens", 6000);
+        return ragService;
+    }
+    
+    private RagValidationService newService() {
+        ClassifierProperties classifierProperties = new ClassifierProperties();
+        classifierProperties.getHybrid().setEnabled(true);
+        HybridQueryClassifier hybridQueryClassifier = mock(HybridQueryClassifier.class);
+        when(hybridQueryClassifier.classify(anyString(), any())).thenReturn(ClassificationResult.builder()
+            .needRetrieval(true)
+            .confidence(0.9)
+            .strategyName("RuleLayerStrategy")
+            .build());
+        executor = new RagPipelineConfig().ragPipelineExecutor(pipelineProperties, mock(ObjectProvider.class));
+        
+        RagValidationService service = new RagValidationService(newRagService(), memoryService, historyService,
+            mock(QueryClassifier.class), hybridQueryClassifier, classifierProperties, mock(ChatModel.class),
+            mock(LangChainConfig.class), mock(SemanticQueryCache.class), pipelineProperties, executor, streamingModel);
+        ReflectionTestUtils.setField(service, "promptTemplate", "上下文信息：\n{context}\n\n用户问题：{question}");
+        ReflectionTestUtils.setField(service, "minRetrievalScore", 0.6);
+        ReflectionTestUtils.setField(service, "maxPromptTokens", 6000);
+        ReflectionTestUtils.setField(service, "historyMaxTokens", 1000);
+        return service;
+    }
+    
+    private static RagValidationReq request() {
+        return RagValidationReq.builder()
+            .userId("user")
+            .sessionId("session")
+            .query("狗狗呕吐腹泻是不是细小")
+            .build();
+    }
+    
+    /**
+     * 记录收到的文本片段和结果，failAfter 大于 0 时模拟客户端在收到指定数量的文本片段后断开
+     */
+    private static class CapturingListener<T> implements RagStreamListener<T> {
+        
+        private final List<String> tokens = new CopyOnWriteArrayList<>();
+        
+        private final CountDownLatch firstToken = new CountDownLatch(1);
+        
+        private final CountDownLatch done = new CountDownLatch(1);
+        
+        private final long startTime = System.currentTimeMillis();
+        
+        private volatile long firstTokenTime = -1;
+        
+        private volatile long doneTime = -1;
+        
+        private volatile int failAfter;
+        
+        private volatile T result;
+        
+        private volatile Throwable error;
+        
+        @Override
+        public void onToken(String token) throws IOException {
+            if (failAfter > 0 && tokens.size() >= failAfter) {
+                throw new IOException("Broken pipe");
+            }
+            if (tokens.isEmpty()) {
+                firstTokenTime = System.currentTimeMillis() - startTime;
+            }
+            tokens.add(token);
+            firstToken.countDown();
+        }
+        
+        @Override
+        public void onComplete(T result) {
+            this.result = result;
+            doneTime = System.currentTimeMillis() - startTime;
+            done.countDown();
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+        
+        boolean awaitDone() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.petvet.rag.app.service;
+
+import com.petvet.embedding.api.dto.ApiResponse;
+import com.petvet.embedding.api.feign.ResumeParseFeignClient;
+import com.petvet.embedding.api.resp.ResumeSearchResp;
+import com.petvet.rag.api.req.RagValidationReq;
+import com.petvet.rag.api.resp.RagValidationResp;
+import com.petvet.rag.app.classifier.config.ClassifierProperties;
+import com.petvet.rag.app.classifier.model.ClassificationResult;
+import com.petvet.rag.app.config.LangChainConfig;
+import com.petvet.rag.app.config.RagPipelineConfig;
+import com.petvet.rag.app.config.RagPipelineProperties;
+import com.petvet.rag.app.semantic.SemanticQueryCache;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * RAG 验证流水线延迟测试：分类器、检索服务（Feign 客户端）和大模型都是注入了固定延迟的桩，
+ * 验证各阶段并行执行、提前发起的检索在不需要时被丢弃，以及各阶段超时和线程池已满时的降级
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("RAG 验证流水线延迟测试")
+class RagValidationServiceLatencyTest {
+    
+    private static final long MEMORY_DELAY = 300;
+    
+    private static final long CLASSIFICATION_DELAY = 400;
+    
+    private static final long RETRIEVAL_DELAY = 600;
+    
+    private static final long GENERATION_DELAY = 300;
+    
+    /**
+     * 各阶段串行执行的总耗时
+     */
+    private static final long SEQUENTIAL_TIME = MEMORY_DELAY + CLASSIFICATION_DELAY + RETRIEVAL_DELAY + GENERATION_DELAY;
+    
+    private final RagPipelineProperties pipelineProperties = new RagPipelineProperties();
+    
+    private MemoryService memoryService;
+    
+    private QueryClassifier queryClassifier;
+    
+    private HybridQueryClassifier hybridQueryClassifier;
+    
+    private ResumeParseFeignClient feignClient;
+    
+    private ChatModel chatModel;
+    
+    private ExecutorService executor;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipelineProperties.setThreads(8);
+        memoryService = mock(MemoryService.class);
+        queryClassifier = mock(QueryClassifier.class);
+        hybridQueryClassifier = mock(HybridQueryClassifier.class);
+        feignClient = mock(ResumeParseFeignClient.class);
+        chatModel = mock(ChatModel.class);
+        
+        when(memoryService.loadConversation(anyString(), anyString())).thenAnswer(delayed(MEMORY_DELAY,
+            MemoryService.ConversationMemory.builder()
+                .userId("user")
+                .sessionId("session")
+                .messages(new ArrayList<>())
+                .lastUpdateTime(System.currentTimeMillis())
+                .build()));
+        givenClassification(true, CLASSIFICATION_DELAY);
+        givenRetrieval(RETRIEVAL_DELAY);
+        doAnswer(delayed(GENERATION_DELAY, "答案")).when(chatModel).chat(anyString());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    @DisplayName("加载记忆、分类和检索并行执行，总耗时明显小于各阶段之和")
+    void testStagesRunConcurrently() {
+        RagValidationResp resp = newService().validate(request());
+        
+        assertTrue(resp.getUsedKnowledgeBase());
+        assertEquals("答案", resp.getAnswer());
+        assertEquals(List.of("memory", "classification", "retrieval", "generation"),
+            new ArrayList<>(resp.getStageTimings().keySet()));
+        assertTrue(resp.getStageTimings().get("retrieval") >= RETRIEVAL_DELAY - 50, resp.getStageTimings().toString());
+        // 关键路径为检索 + 生成，串行执行时还要加上加载记忆和分类的耗时
+        assertTrue(resp.getQueryTime() < SEQUENTIAL_TIME - MEMORY_DELAY, "queryTime=" + resp.getQueryTime());
+    }
+    
+    @Test
+    @DisplayName("分类结果为不需要检索时丢弃提前发起的检索，不等待检索完成")
+    void testSpeculativeRetrievalDiscarded() {
+        givenClassification(false, CLASSIFICATION_DELAY);
+        givenRetrieval(5000);
+        
+        RagValidationResp resp = newService().validate(request());
+        
+        assertFalse(resp.getUsedKnowledgeBase());
+        assertEquals(0, resp.getRetrievedCount());
+        assertFalse(resp.getStageTimings().containsKey("retrieval"));
+        assertTrue(resp.getQueryTime() < 1500, "queryTime=" + resp.getQueryTime());
+        verify(feignClient, timeout(1000)).searchResume(any());
+    }
+    
+    @Test
+    @DisplayName("关闭提前检索时，分类结果为不需要检索则不调用检索服务")
+    void testNoSpeculativeRetrieval() {
+        pipelineProperties.setSpeculativeRetrieval(false);
+        givenClassification(false, CLASSIFICATION_DELAY);
+        
+        RagValidationResp resp = newService().validate(request());
+        
+        assertFalse(resp.getUsedKnowledgeBase());
+        verify(feignClient, never()).searchResume(any());
+    }
+    
+    @Test
+    @DisplayName("分类超时时降级到原有分类器")
+    void testClassificationDeadline() {
+        pipelineProperties.setClassificationTimeoutMs(500L);
+        givenClassification(false, 5000);
+        when(queryClassifier.needRetrieval(anyString(), any())).thenReturn(true);
+        
+        RagValidationResp resp = newService().validate(request());
+        
+        assertTrue(resp.getUsedKnowledgeBase());
+        assertTrue(resp.getStageTimings().get("classification") < 1000, resp.getStageTimings().toString());
+        assertTrue(resp.getQueryTime() < 2000, "queryTime=" + resp.getQueryTime());
+    }
+    
+    @Test
+    @DisplayName("检索超时时不使用知识库，仍然生成答案")
+    void testRetrievalDeadline() {
+        pipelineProperties.setRetrievalTimeoutMs(500L);
+        givenRetrieval(5000);
+        
+        RagValidationResp resp = newService().validate(request());
+        
+        assertFalse(resp.getUsedKnowledgeBase());
+        assertEquals("答案", resp.getAnswer());
+        assertTrue(resp.getQueryTime() < 2000, "queryTime=" + resp.getQueryTime());
+    }
+    
+    @Test
+    @DisplayName("生成超时时返回生成失败的提示")
+    void testGenerationDeadline() {
+        pipelineProperties.setGenerationTimeoutMs(300L);
+        doAnswer(delayed(5000, "答案")).when(chatModel).chat(anyString());
+        
+        RagValidationResp resp = newService().validate(request());
+        
+        assertTrue(resp.getAnswer().startsWith("抱歉，生成答案时出现错误"), resp.getAnswer());
+        assertTrue(resp.getQueryTime() < 2000, "queryTime=" + resp.getQueryTime());
+    }
+    
+    @Test
+    @DisplayName("线程池已满时各阶段按超时处理，不在请求线程中执行，并记录拒绝次数")
+    void testPoolSaturated() throws InterruptedException {
+        pipelineProperties.setThreads(1);
+        pipelineProperties.setQueueCapacity(1);
+        RagValidationService service = newService();
+        // 占满唯一的线程和队列
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        try {
+            RagValidationResp resp = service.validate(request());
+            
+            assertFalse(resp.getUsedKnowledgeBase());
+            assertTrue(resp.getAnswer().startsWith("抱歉，生成答案时出现错误"), resp.getAnswer());
+            assertTrue(resp.getQueryTime() < MEMORY_DELAY, "queryTime=" + resp.getQueryTime());
+            verify(memoryService, never()).loadConversation(anyString(), anyString());
+            verify(hybridQueryClassifier, never()).classify(anyString(), any());
+            verify(feignClient, never()).searchResume(any());
+            verify(chatModel, never()).chat(anyString());
+            // 加载记忆、分类、检索、生成各被拒绝一次
+            assertEquals(4.0, meterRegistry.counter(RagPipelineConfig.REJECTED_METER).count());
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private RagValidationService newService() {
+        ClassifierProperties classifierProperties = new ClassifierProperties();
+        classifierProperties.getHybrid().setEnabled(true);
+        LangChainConfig langChainConfig = mock(LangChainConfig.class);
+        ObjectProvider<MeterRegistry> meterRegistryProvider = mock(ObjectProvider.class);
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        executor = new RagPipelineConfig().ragPipelineExecutor(pipelineProperties, meterRegistryProvider);
+        
+        RagService ragService = new RagService(feignClient, chatModel, mock(StreamingChatModel.class), langChainConfig);
+        RagValidationService service = new RagValidationService(ragService, memoryService, mock(HistoryService.class),
+            queryClassifier, hybridQueryClassifier, classifierProperties, chatModel, langChainConfig,
+            mock(SemanticQueryCache.class), pipelineProperties, executor, mock(StreamingChatModel.class));
+        ReflectionTestUtils.setField(service, "promptTemplate", "上下文信息：\n{context}\n\n用户问题：{question}");
+        ReflectionTestUtils.setField(service, "minRetrievalScore", 0.6);
+        ReflectionTestUtils.setField(service, "maxPromptTokens", 6000);
+        ReflectionTestUtils.setField(service, "historyMaxTokens", 1000);
+        return service;
+    }
+    
+    private void givenClassification(boolean needRetrieval, long delay) {
+        doAnswer(delayed(delay, ClassificationResult.builder()
+            .needRetrieval(needRetrieval)
+            .confidence(0.9)
+            .strategyName("RuleLayerStrategy")
+            .build())).when(hybridQueryClassifier).classify(anyString(), any());
+    }
+    
+    private void givenRetrieval(long delay) {
+        ResumeSearchResp searchResp = ResumeSearchResp.builder()
+            .count(1)
+            .results(List.of(ResumeSearchResp.SearchItem.builder()
+                .chunkId("chunk-1")
+                .score(0.9)
+                .text("犬细小病毒的常见症状是呕吐和腹泻")
+                .build()))
+            .build();
+        doAnswer(delayed(delay, ApiResponse.success(searchResp))).when(feignClient).searchResume(any());
+    }
+    
+    private static RagValidationReq request() {
+        return RagValidationReq.builder()
+            .userId("user")
+            .sessionId("session")
+            .query("狗狗呕吐腹泻是不是细小")
+            .build();
+    }
+    
+    private static <T> Answer<T> delayed(long delay, T value) {
+        return invocation -> {
+            Thread.sleep(delay);
+            return value;
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.petvet.rag.app.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预编译提示词模板、Token 估算与 RAG 提示词构建测试
+ * 
+ * @author daidasheng
+ * @date 2026-10-17
+ */
+@DisplayName("提示词模板测试")
+class PromptTemplateTest {
+    
+    private static final String TEMPLATE = "上下文：\n{context}\n\n问题：{question}\n请回答：";
+    
+    @Test
+    @DisplayName("渲染结果与逐个替换占位符一致")
+    void testRenderMatchesReplace() {
+        PromptTemplate template = PromptTemplate.compile(TEMPLATE);
+        String context = "文档1：\n犬瘟热是一种病毒性传染病";
+        String question = "狗狗咳嗽怎么办？";
+        
+        String expected = TEMPLATE.replace("{context}", context).replace("{question}", question);
+        assertEquals(expected, template.render(Map.of("context", context, "question", question)));
+        assertEquals(List.of("context", "question"), List.copyOf(template.getSlots()));
+    }
+    
+    @Test
+    @DisplayName("非占位符的花括号原样输出，占位符的值不再被替换")
+    void testLiteralBracesAndNoReplacementInValues() {
+        PromptTemplate template = PromptTemplate.compile("{\"a\": 1} { context} {1x} {question}{missing}{");
+        
+        String prompt = template.render(Map.of("question", "包含{question}的问题"));
+        
+        assertEquals("{\"a\": 1} { context} {1x} 包含{question}的问题{missing}{", prompt);
+    }
+    
+    @Test
+    @DisplayName("缺少值的占位符按原样输出，与逐个替换占位符一致")
+    void testMissingSlotKeptLiteral() {
+        PromptTemplate template = PromptTemplate.compile(TEMPLATE);
+        
+        assertEquals(TEMPLATE.replace("{question}", "问"), template.render(Map.of("question", "问")));
+        assertEquals(TEMPLATE, template.render(Map.of()));
+        // 缺少的占位符不受 Token 预算影响
+        assertEquals(TEMPLATE.replace("{question}", "问"),
+                template.render(Map.of("question", "问"), Map.of("context", 1)));
+    }
+    
+    @Test
+    @DisplayName("Token 估算：中文按字、英文按 4 个字母、标点和换行各计 1 个")
+    void testEstimate() {
+        assertEquals(0, TokenEstimator.estimate(null));
+        assertEquals(0, TokenEstimator.estimate(""));
+        assertEquals(4, TokenEstimator.estimate("宠物医疗"));
+        assertEquals(3, TokenEstimator.estimate("vaccination"));
+        assertEquals(4, TokenEstimator.estimate("dog cat, a"));
+        assertEquals(3, TokenEstimator.estimate("猫\n\n狗"));
+        assertEquals(1, TokenEstimator.estimate("🐶"));
+    }
+    
+    @Test
+    @DisplayName("前缀长度不超过 Token 预算，且不会截断代理对")
+    void testPrefixLength() {
+        String text = "宠物vaccination🐶医疗";
+        int total = TokenEstimator.estimate(text);
+        assertEquals(text.length(), TokenEstimator.prefixLength(text, total));
+        for (int budget = 0; budget < total; budget++) {
+            int end = TokenEstimator.prefixLength(text, budget);
+            assertTrue(TokenEstimator.estimate(text.substring(0, end)) <= budget);
+            assertTrue(TokenEstimator.estimate(text.substring(0, end + 1)) > budget
+                    || Character.isLowSurrogate(text.charAt(end)));
+            assertFalse(end > 0 && Character.isHighSurrogate(text.charAt(end - 1)));
+        }
+    }
+    
+    @Test
+    @DisplayName("占位符按 Token 预算截断")
+    void testSlotTokenBudget() {
+        PromptTemplate template = PromptTemplate.compile(TEMPLATE);
+        
+        String prompt = template.render(Map.of("context", "一二三四五六七八九十", "question", "问"),
+                Map.of("context", 3));
+        
+        assertEquals("上下文：\n一二三\n\n问题：问\n请回答：", prompt);
+    }
+    
+    @Test
+    @DisplayName("文档上下文在预算内完整保留，超出预算时截断最后一个文档并丢弃之后的文档")
+    void testAppendDocumentsWithinBudget() {
+        String longText = "犬".repeat(200);
+        List<String> texts = List.of("第一篇", longText, "第三篇");
+        
+        StringBuilder unlimited = new StringBuilder();
+        int unlimitedTokens = RagPromptBuilder.appendDocuments(unlimited, texts, List.of(0.9, 0.8, 0.7), 5,
+                Integer.MAX_VALUE);
+        assertEquals("文档1（相似度：0.9）：\n第一篇\n\n文档2（相似度：0.8）：\n" + longText
+                + "\n\n文档3（相似度：0.7）：\n第三篇", unlimited.toString());
+        assertTrue(unlimitedTokens >= TokenEstimator.estimate(unlimited));
+        
+        StringBuilder limited = new StringBuilder();
+        int used = RagPromptBuilder.appendDocuments(limited, texts, null, 5, 100);
+        assertTrue(used <= 100);
+        assertTrue(TokenEstimator.estimate(limited) <= 100);
+        assertTrue(limited.toString().startsWith("文档1：\n第一篇\n\n文档2：\n犬"));
+        assertTrue(limited.toString().endsWith("…"));
+        assertFalse(limited.toString().contains("文档3"));
+        
+        StringBuilder tooSmall = new StringBuilder("前缀");
+        assertEquals(0, RagPromptBuilder.appendDocuments(tooSmall, List.of(longText), null, 5, 10));
+        assertEquals("前缀", tooSmall.toString());
+    }
+    
+    @Test
+    @DisplayName("上下文预算为提示词上限减去模板和问题")
+    void testBuildPrompt() {
+        PromptTemplate template = RagPromptBuilder.compile(TEMPLATE);
+        assertSame(template, RagPromptBuilder.compile(TEMPLATE));
+        assertEquals(100 - template.getLiteralTokens() - 2,
+                RagPromptBuilder.contextTokenBudget(template, "问题", 100));
+        assertEquals(0, RagPromptBuilder.contextTokenBudget(template, "问题", 1));
+        
+        String prompt = RagPromptBuilder.buildPrompt(null, List.of("甲", "乙"), "问题");
+        assertTrue(prompt.contains("文档1：\n甲\n\n文档2：\n乙"));
+        assertTrue(prompt.contains("用户问题：问题"));
+    }
+}